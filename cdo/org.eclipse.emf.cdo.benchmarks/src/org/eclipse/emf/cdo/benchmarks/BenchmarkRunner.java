@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks of this bundle and writes their results as JSON, so that the results of different builds can be
+ * compared.
+ * <p>
+ * All JMH command line options are supported. Without <code>-rf</code> and <code>-rff</code> the results are written
+ * to {@link #DEFAULT_RESULT_FILE}. For example, the following arguments run only the revision cache benchmarks and
+ * write their results to <code>cache.json</code>:
+ *
+ * <pre>
+ * RevisionCacheBenchmark -rff cache.json
+ * </pre>
+ *
+ * @author Eike Stepper
+ */
+public final class BenchmarkRunner
+{
+  public static final String DEFAULT_RESULT_FILE = "cdo-benchmarks.json"; //$NON-NLS-1$
+
+  private BenchmarkRunner()
+  {
+  }
+
+  public static void main(String[] args) throws Exception
+  {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    if (commandLineOptions.shouldHelp())
+    {
+      commandLineOptions.showHelp();
+      return;
+    }
+
+    ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+    if (!commandLineOptions.getResultFormat().hasValue())
+    {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+
+    if (!commandLineOptions.getResult().hasValue())
+    {
+      builder.result(DEFAULT_RESULT_FILE);
+    }
+
+    Runner runner = new Runner(builder.build());
+    if (commandLineOptions.shouldList())
+    {
+      runner.list();
+      return;
+    }
+
+    runner.run();
+  }
+}
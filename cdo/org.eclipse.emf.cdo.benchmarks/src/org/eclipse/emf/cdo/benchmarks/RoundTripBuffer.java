@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks;
+
+import org.eclipse.net4j.util.io.ExtendedDataInputStream;
+import org.eclipse.net4j.util.io.ExtendedDataOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * An in-memory buffer that the data written to its {@link #getOutput() output} can be read back from through its
+ * {@link #getInput() input}. Both streams are reused after a {@link #reset() reset}, so that a round trip does not
+ * allocate anything but the data it writes and reads.
+ *
+ * @author Eike Stepper
+ */
+public final class RoundTripBuffer
+{
+  private final Bytes bytes = new Bytes();
+
+  private final ExtendedDataOutputStream output = new ExtendedDataOutputStream(bytes);
+
+  private final ExtendedDataInputStream input = new ExtendedDataInputStream(new BytesInputStream());
+
+  private int position;
+
+  public RoundTripBuffer()
+  {
+  }
+
+  public ExtendedDataOutputStream getOutput()
+  {
+    return output;
+  }
+
+  public ExtendedDataInputStream getInput()
+  {
+    return input;
+  }
+
+  /**
+   * Returns the number of bytes that have been written since the last {@link #reset() reset}.
+   */
+  public int size()
+  {
+    return bytes.size();
+  }
+
+  /**
+   * Discards the written bytes and rewinds the input.
+   */
+  public void reset()
+  {
+    bytes.reset();
+    position = 0;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class Bytes extends ByteArrayOutputStream
+  {
+    public Bytes()
+    {
+      super(4096);
+    }
+
+    public byte[] getBuffer()
+    {
+      return buf;
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private final class BytesInputStream extends InputStream
+  {
+    public BytesInputStream()
+    {
+    }
+
+    @Override
+    public int read()
+    {
+      if (position >= bytes.size())
+      {
+        return -1;
+      }
+
+      return bytes.getBuffer()[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len)
+    {
+      int available = bytes.size() - position;
+      if (available <= 0)
+      {
+        return len == 0 ? 0 : -1;
+      }
+
+      int n = Math.min(len, available);
+      System.arraycopy(bytes.getBuffer(), position, b, off, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int available()
+    {
+      return bytes.size() - position;
+    }
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks.common;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the auditing and branching revision caches while several threads look revisions up and
+ * add them, for both the synchronized and the concurrent cache implementation.
+ *
+ * @author Eike Stepper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RevisionCacheBenchmark
+{
+  private static final int OBJECTS = 10000;
+
+  private static final int VERSIONS = 4;
+
+  private static final long TIME_STEP = 100L;
+
+  @Param({ "false", "true" })
+  public boolean branching;
+
+  @Param({ "false", "true" })
+  public boolean concurrent;
+
+  private InternalCDOBranchManager branchManager;
+
+  private CDOBranch mainBranch;
+
+  private InternalCDORevision[][] revisions;
+
+  private InternalCDORevisionCache cache;
+
+  public RevisionCacheBenchmark()
+  {
+  }
+
+  @Setup
+  public void setUp()
+  {
+    branchManager = RevisionFixture.createBranchManager();
+    mainBranch = branchManager.getMainBranch();
+
+    revisions = new InternalCDORevision[OBJECTS][VERSIONS];
+    for (int i = 0; i < OBJECTS; i++)
+    {
+      for (int v = 0; v < VERSIONS; v++)
+      {
+        InternalCDORevision revision = RevisionFixture.createCompany(i + 1, mainBranch.getPoint(getTimeStamp(v)), v + 1,
+            0);
+        if (v < VERSIONS - 1)
+        {
+          revision.setRevised(getTimeStamp(v + 1) - 1);
+        }
+
+        revisions[i][v] = revision;
+      }
+    }
+
+    cache = (InternalCDORevisionCache)CDORevisionUtil.createRevisionCache(true, branching, concurrent);
+    LifecycleUtil.activate(cache);
+    for (int i = 0; i < OBJECTS; i++)
+    {
+      for (int v = 0; v < VERSIONS; v++)
+      {
+        cache.addRevision(revisions[i][v]);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    LifecycleUtil.deactivate(cache);
+    LifecycleUtil.deactivate(branchManager);
+    revisions = null;
+  }
+
+  @Benchmark
+  @Threads(4)
+  public CDORevision getRevision(ThreadState state)
+  {
+    return doGetRevision(state);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public CDORevision getRevisionByVersion(ThreadState state)
+  {
+    InternalCDORevision revision = revisions[state.nextObject()][state.nextVersion()];
+    return cache.getRevisionByVersion(revision.getID(), revision);
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  public CDORevision mixedGet(ThreadState state)
+  {
+    return doGetRevision(state);
+  }
+
+  /**
+   * Adds revisions that are already cached, so that the cache does not grow while it goes through its write path.
+   */
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  public void mixedAdd(ThreadState state)
+  {
+    cache.addRevision(revisions[state.nextObject()][state.nextVersion()]);
+  }
+
+  private CDORevision doGetRevision(ThreadState state)
+  {
+    int v = state.nextVersion();
+    InternalCDORevision revision = revisions[state.nextObject()][v];
+    return cache.getRevision(revision.getID(), mainBranch.getPoint(getTimeStamp(v) + TIME_STEP / 2));
+  }
+
+  private static long getTimeStamp(int v)
+  {
+    return (v + 1) * TIME_STEP;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  @State(Scope.Thread)
+  public static class ThreadState
+  {
+    private final Random random = new Random();
+
+    public ThreadState()
+    {
+    }
+
+    public int nextObject()
+    {
+      return random.nextInt(OBJECTS);
+    }
+
+    public int nextVersion()
+    {
+      return random.nextInt(VERSIONS);
+    }
+  }
+}
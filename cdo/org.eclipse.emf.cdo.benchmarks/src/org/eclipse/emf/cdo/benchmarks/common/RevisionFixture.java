@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks.common;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranchHandler;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.model.CDOPackageUnit;
+import org.eclipse.emf.cdo.common.revision.CDOList;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.common.util.CDOTimeProvider;
+import org.eclipse.emf.cdo.internal.common.model.CDOPackageRegistryImpl;
+import org.eclipse.emf.cdo.spi.common.branch.CDOBranchUtil;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.BranchInfo;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.SubBranchInfo;
+import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageRegistry;
+import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageRegistry.PackageLoader;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+
+import org.eclipse.net4j.util.collection.Pair;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+
+/**
+ * Creates the branch manager, the package registry and the {@link Model1Package#getCompany() company} revisions that
+ * the benchmarks of this package operate on, without a repository or a session.
+ *
+ * @author Eike Stepper
+ */
+final class RevisionFixture
+{
+  private RevisionFixture()
+  {
+  }
+
+  public static InternalCDOBranchManager createBranchManager()
+  {
+    InternalCDOBranchManager branchManager = CDOBranchUtil.createBranchManager();
+    branchManager.setBranchLoader(new NOOPBranchLoader());
+    branchManager.setTimeProvider(new CDOTimeProvider()
+    {
+      public long getTimeStamp()
+      {
+        return System.currentTimeMillis();
+      }
+    });
+
+    branchManager.initMainBranch(false, 0L);
+    LifecycleUtil.activate(branchManager);
+    return branchManager;
+  }
+
+  /**
+   * Creates a package registry that contains the {@link Model1Package model1} package.
+   */
+  public static InternalCDOPackageRegistry createPackageRegistry()
+  {
+    InternalCDOPackageRegistry packageRegistry = new CDOPackageRegistryImpl();
+    packageRegistry.setPackageLoader(new PackageLoader()
+    {
+      public EPackage[] loadPackages(CDOPackageUnit packageUnit)
+      {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    LifecycleUtil.activate(packageRegistry);
+    packageRegistry.putEPackage(Model1Package.eINSTANCE);
+    return packageRegistry;
+  }
+
+  /**
+   * Creates a company revision with the given number of references in each of its customer and supplier lists. The
+   * referenced IDs follow the given ID, as they would if the objects had been created in the same transaction.
+   */
+  public static InternalCDORevision createCompany(long id, CDOBranchPoint branchPoint, int version, int references)
+  {
+    Model1Package model1 = Model1Package.eINSTANCE;
+    InternalCDORevision revision = (InternalCDORevision)CDORevisionFactory.DEFAULT.createRevision(model1.getCompany());
+    revision.setID(CDOIDUtil.createLong(id));
+    revision.setVersion(version);
+    revision.setBranchPoint(branchPoint);
+    revision.setResourceID(CDOIDUtil.createLong(1));
+    revision.setContainerID(CDOIDUtil.createLong(1));
+    revision.setValue(model1.getAddress_Name(), "Company " + id); //$NON-NLS-1$
+    revision.setValue(model1.getAddress_Street(), "Street " + id); //$NON-NLS-1$
+    revision.setValue(model1.getAddress_City(), "Berlin"); //$NON-NLS-1$
+
+    long nextID = id + 1;
+    nextID = addReferences(revision, model1.getCompany_Customers(), nextID, references);
+    addReferences(revision, model1.getCompany_Suppliers(), nextID, references);
+    return revision;
+  }
+
+  private static long addReferences(InternalCDORevision revision, EReference reference, long nextID, int references)
+  {
+    CDOList list = revision.getList(reference, references);
+    for (int i = 0; i < references; i++)
+    {
+      list.add(CDOIDUtil.createLong(nextID++));
+    }
+
+    return nextID;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class NOOPBranchLoader implements BranchLoader
+  {
+    public NOOPBranchLoader()
+    {
+    }
+
+    public Pair<Integer, Long> createBranch(int branchID, BranchInfo branchInfo)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    public BranchInfo loadBranch(int branchID)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    public SubBranchInfo[] loadSubBranches(int branchID)
+    {
+      return new SubBranchInfo[0];
+    }
+
+    public int loadBranches(int startID, int endID, CDOBranchHandler branchHandler)
+    {
+      return 0;
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks.common;
+
+import org.eclipse.emf.cdo.benchmarks.RoundTripBuffer;
+import org.eclipse.emf.cdo.common.branch.CDOBranchManager;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfoManager;
+import org.eclipse.emf.cdo.common.id.CDOIDProvider;
+import org.eclipse.emf.cdo.common.lob.CDOLobStore;
+import org.eclipse.emf.cdo.common.model.CDOPackageRegistry;
+import org.eclipse.emf.cdo.common.protocol.CDODataInput;
+import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
+import org.eclipse.emf.cdo.common.revision.CDOListFactory;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager;
+import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageRegistry;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataInputImpl;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataOutputImpl;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast a revision is written with a {@link CDODataOutputImpl} and read back with a
+ * {@link CDODataInputImpl}, in the fixed-width and in the {@link CDODataOutput#writeXInt(int) compact} encoding.
+ *
+ * @author Eike Stepper
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RevisionSerializationBenchmark
+{
+  @Param({ "false", "true" })
+  public boolean compact;
+
+  /**
+   * The number of references in each of the two reference lists of the revision.
+   */
+  @Param({ "0", "100", "1000" })
+  public int references;
+
+  private InternalCDOBranchManager branchManager;
+
+  private InternalCDOPackageRegistry packageRegistry;
+
+  private InternalCDORevision revision;
+
+  private RoundTripBuffer buffer;
+
+  private CDODataOutput out;
+
+  private CDODataInput in;
+
+  public RevisionSerializationBenchmark()
+  {
+  }
+
+  @Setup
+  public void setUp()
+  {
+    branchManager = RevisionFixture.createBranchManager();
+    packageRegistry = RevisionFixture.createPackageRegistry();
+
+    revision = RevisionFixture.createCompany(100, branchManager.getMainBranch().getPoint(1000L), 1, references);
+    revision.freeze();
+
+    buffer = new RoundTripBuffer();
+    out = new CDODataOutputImpl(buffer.getOutput())
+    {
+      @Override
+      public CDOPackageRegistry getPackageRegistry()
+      {
+        return packageRegistry;
+      }
+
+      @Override
+      public CDOIDProvider getIDProvider()
+      {
+        return CDOIDProvider.NOOP;
+      }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return compact;
+      }
+    };
+
+    in = new CDODataInputImpl(buffer.getInput())
+    {
+      @Override
+      protected CDOPackageRegistry getPackageRegistry()
+      {
+        return packageRegistry;
+      }
+
+      @Override
+      protected CDOBranchManager getBranchManager()
+      {
+        return branchManager;
+      }
+
+      @Override
+      protected CDOCommitInfoManager getCommitInfoManager()
+      {
+        return null;
+      }
+
+      @Override
+      protected CDORevisionFactory getRevisionFactory()
+      {
+        return CDORevisionFactory.DEFAULT;
+      }
+
+      @Override
+      protected CDOListFactory getListFactory()
+      {
+        return CDOListFactory.DEFAULT;
+      }
+
+      @Override
+      protected CDOLobStore getLobStore()
+      {
+        return null;
+      }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return compact;
+      }
+    };
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    LifecycleUtil.deactivate(packageRegistry);
+    LifecycleUtil.deactivate(branchManager);
+  }
+
+  @Benchmark
+  public int write() throws IOException
+  {
+    buffer.reset();
+    out.writeCDORevision(revision, CDORevision.UNCHUNKED);
+    return buffer.size();
+  }
+
+  @Benchmark
+  public CDORevision roundTrip() throws IOException
+  {
+    buffer.reset();
+    out.writeCDORevision(revision, CDORevision.UNCHUNKED);
+    return in.readCDORevision();
+  }
+}
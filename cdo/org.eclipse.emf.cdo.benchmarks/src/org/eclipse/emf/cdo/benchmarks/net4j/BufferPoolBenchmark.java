@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks.net4j;
+
+import org.eclipse.net4j.Net4jUtil;
+import org.eclipse.net4j.buffer.IBuffer;
+import org.eclipse.net4j.buffer.IBufferProvider;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast several threads obtain buffers from a {@link Net4jUtil#createBufferPool() buffer pool} and retain
+ * them again, compared to a {@link Net4jUtil#createBufferFactory() buffer factory} that allocates a new buffer each
+ * time.
+ *
+ * @author Eike Stepper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class BufferPoolBenchmark
+{
+  @Param({ "false", "true" })
+  public boolean pooled;
+
+  private IBufferProvider bufferProvider;
+
+  public BufferPoolBenchmark()
+  {
+  }
+
+  @Setup
+  public void setUp()
+  {
+    bufferProvider = pooled ? Net4jUtil.createBufferPool() : Net4jUtil.createBufferFactory();
+    LifecycleUtil.activate(bufferProvider);
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    LifecycleUtil.deactivate(bufferProvider);
+  }
+
+  @Benchmark
+  public IBuffer provideAndRetain()
+  {
+    IBuffer buffer = bufferProvider.provideBuffer();
+    bufferProvider.retainBuffer(buffer);
+    return buffer;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks.net4j;
+
+import org.eclipse.net4j.util.concurrent.IRWLockManager;
+import org.eclipse.net4j.util.concurrent.IRWLockManager.LockType;
+import org.eclipse.net4j.util.concurrent.IRWOLockManager;
+import org.eclipse.net4j.util.concurrent.RWOLockManager;
+import org.eclipse.net4j.util.concurrent.StripedRWOLockManager;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast several threads lock and unlock objects with the {@link RWOLockManager global monitor} and the
+ * {@link StripedRWOLockManager striped} lock manager. With a single object all threads contend for the same lock, with
+ * many objects they mostly lock different ones.
+ *
+ * @author Eike Stepper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class LockManagerBenchmark
+{
+  @Param({ "false", "true" })
+  public boolean striped;
+
+  @Param({ "1", "1024" })
+  public int objects;
+
+  private IRWOLockManager<Object, Object> lockManager;
+
+  private List<List<Object>> keys;
+
+  public LockManagerBenchmark()
+  {
+  }
+
+  @Setup
+  public void setUp()
+  {
+    lockManager = striped ? new StripedRWOLockManager<Object, Object>() : new RWOLockManager<Object, Object>();
+    LifecycleUtil.activate(lockManager);
+
+    keys = new ArrayList<List<Object>>(objects);
+    for (int i = 0; i < objects; i++)
+    {
+      keys.add(Collections.singletonList((Object)("Object " + i))); //$NON-NLS-1$
+    }
+  }
+
+  @TearDown
+  public void tearDown()
+  {
+    LifecycleUtil.deactivate(lockManager);
+    keys = null;
+  }
+
+  @Benchmark
+  public void readLock(Context context) throws InterruptedException
+  {
+    List<Object> objectsToLock = keys.get(context.nextObject(objects));
+    lockManager.lock(LockType.READ, context, objectsToLock, IRWLockManager.WAIT);
+    lockManager.unlock(LockType.READ, context, objectsToLock);
+  }
+
+  @Benchmark
+  public void writeLock(Context context) throws InterruptedException
+  {
+    List<Object> objectsToLock = keys.get(context.nextObject(objects));
+    lockManager.lock(LockType.WRITE, context, objectsToLock, IRWLockManager.WAIT);
+    lockManager.unlock(LockType.WRITE, context, objectsToLock);
+  }
+
+  /**
+   * The lock owner of a benchmark thread.
+   *
+   * @author Eike Stepper
+   */
+  @State(Scope.Thread)
+  public static class Context
+  {
+    private final Random random = new Random();
+
+    public Context()
+    {
+    }
+
+    public int nextObject(int objects)
+    {
+      return objects == 1 ? 0 : random.nextInt(objects);
+    }
+  }
+}
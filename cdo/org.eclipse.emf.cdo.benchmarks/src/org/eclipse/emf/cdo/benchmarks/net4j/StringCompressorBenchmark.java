@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.benchmarks.net4j;
+
+import org.eclipse.emf.cdo.benchmarks.RoundTripBuffer;
+
+import org.eclipse.net4j.util.io.StringCompressor;
+import org.eclipse.net4j.util.io.StringIO;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast strings are written with one {@link StringCompressor} and read with its peer once both sides know
+ * them, compared to strings that are {@link StringIO#DIRECT written directly}.
+ *
+ * @author Eike Stepper
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StringCompressorBenchmark
+{
+  private static final int STRINGS = 256;
+
+  @Param({ "false", "true" })
+  public boolean compressed;
+
+  private String[] strings;
+
+  private StringIO client;
+
+  private StringIO server;
+
+  private RoundTripBuffer buffer;
+
+  private int next;
+
+  public StringCompressorBenchmark()
+  {
+  }
+
+  @Setup
+  public void setUp() throws IOException
+  {
+    strings = new String[STRINGS];
+    for (int i = 0; i < STRINGS; i++)
+    {
+      strings[i] = "http://www.eclipse.org/emf/CDO/tests/model" + i + "/1.0.0#//Class" + i; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    buffer = new RoundTripBuffer();
+    if (compressed)
+    {
+      client = new StringCompressor(true);
+      server = new StringCompressor(false);
+
+      for (String string : strings)
+      {
+        transfer(client, server, string);
+      }
+
+      // A string ID is only written alone after the peer has acknowledged it along with a string of its own
+      transfer(server, client, "ack"); //$NON-NLS-1$
+    }
+    else
+    {
+      client = StringIO.DIRECT;
+      server = StringIO.DIRECT;
+    }
+  }
+
+  @Benchmark
+  public String transfer() throws IOException
+  {
+    String string = strings[next];
+    next = (next + 1) % STRINGS;
+    return transfer(client, server, string);
+  }
+
+  private String transfer(StringIO writer, StringIO reader, String string) throws IOException
+  {
+    buffer.reset();
+    writer.write(buffer.getOutput(), string);
+    return reader.read(buffer.getInput());
+  }
+}
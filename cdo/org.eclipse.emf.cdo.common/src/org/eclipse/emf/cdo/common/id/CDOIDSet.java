@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.common.id;
+
+import java.util.Set;
+
+/**
+ * A {@link Set set} of {@link CDOID IDs} that stores the values of long IDs inline, without an object per element, as
+ * long as all elements are long IDs.
+ *
+ * @author Eike Stepper
+ * @since 4.2
+ * @see CDOIDUtil#createSet()
+ * @noextend This interface is not intended to be extended by clients.
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface CDOIDSet extends Set<CDOID>
+{
+}
@@ -21,11 +21,13 @@ import org.eclipse.emf.cdo.common.revision.CDOIDAndBranch;
 import org.eclipse.emf.cdo.common.revision.CDOIDAndVersion;
 import org.eclipse.emf.cdo.internal.common.bundle.OM;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDExternalImpl;
+import org.eclipse.emf.cdo.internal.common.id.CDOIDMapImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDObjectLongImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDObjectLongWithClassifierImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDObjectStringImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDObjectStringWithClassifierImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDObjectUUIDImpl;
+import org.eclipse.emf.cdo.internal.common.id.CDOIDSetImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDTempObjectExternalImpl;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDTempObjectImpl;
 import org.eclipse.emf.cdo.internal.common.messages.Messages;
@@ -301,6 +303,48 @@ public final class CDOIDUtil
     return new CDOIDAndBranchImpl(id, branch);
   }
 
+  /**
+   * Creates a {@link CDOIDSet set} of IDs that stores the values of long IDs inline.
+   *
+   * @since 4.2
+   */
+  public static CDOIDSet createSet()
+  {
+    return new CDOIDSetImpl();
+  }
+
+  /**
+   * Creates a {@link CDOIDSet set} of IDs that stores the values of long IDs inline and is presized for the given
+   * number of elements.
+   *
+   * @since 4.2
+   */
+  public static CDOIDSet createSet(int expectedSize)
+  {
+    return new CDOIDSetImpl(expectedSize);
+  }
+
+  /**
+   * Creates a {@link CDOIDMap map} with ID keys that stores the values of long IDs inline.
+   *
+   * @since 4.2
+   */
+  public static <V> CDOIDMap<V> createMap()
+  {
+    return new CDOIDMapImpl<V>();
+  }
+
+  /**
+   * Creates a {@link CDOIDMap map} with ID keys that stores the values of long IDs inline and is presized for the given
+   * number of entries.
+   *
+   * @since 4.2
+   */
+  public static <V> CDOIDMap<V> createMap(int expectedSize)
+  {
+    return new CDOIDMapImpl<V>(expectedSize);
+  }
+
   /**
    * Creates the correct implementation class for the passed {@link CDOID.ObjectType}.
    *
@@ -483,7 +527,17 @@ public final class CDOIDUtil
   public static CDOID read(ExtendedDataInput in) throws IOException
   {
     byte ordinal = in.readByte();
+    return read(in, ordinal);
+  }
 
+  /**
+   * Reads the remainder of a CDOID whose type ordinal, as written by {@link #write(ExtendedDataOutput, CDOID)
+   * write()}, has already been read from the given input.
+   *
+   * @since 4.2
+   */
+  public static CDOID read(ExtendedDataInput in, byte ordinal) throws IOException
+  {
     // A subtype of OBJECT
     if (ordinal < 0)
     {
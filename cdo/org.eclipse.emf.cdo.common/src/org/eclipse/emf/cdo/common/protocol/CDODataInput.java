@@ -56,6 +56,20 @@ import java.io.IOException;
  */
 public interface CDODataInput extends ExtendedDataInput
 {
+  /**
+   * Reads an int that has been written with {@link CDODataOutput#writeXInt(int) writeXInt()}.
+   *
+   * @since 4.2
+   */
+  public int readXInt() throws IOException;
+
+  /**
+   * Reads a long that has been written with {@link CDODataOutput#writeXLong(long) writeXLong()}.
+   *
+   * @since 4.2
+   */
+  public long readXLong() throws IOException;
+
   // /////////////////////////////////////////////////////////////////////////////////////////////////
 
   public CDOPackageUnit readCDOPackageUnit(ResourceSet resourceSet) throws IOException;
@@ -67,6 +67,20 @@ public interface CDODataOutput extends ExtendedDataOutput
    */
   public CDOPermissionProvider getPermissionProvider();
 
+  /**
+   * Writes the given int in a variable-length encoding if this output is compressed, with 4 bytes otherwise.
+   *
+   * @since 4.2
+   */
+  public void writeXInt(int v) throws IOException;
+
+  /**
+   * Writes the given long in a variable-length encoding if this output is compressed, with 8 bytes otherwise.
+   *
+   * @since 4.2
+   */
+  public void writeXLong(long v) throws IOException;
+
   // /////////////////////////////////////////////////////////////////////////////////////////////////
 
   public void writeCDOPackageUnit(CDOPackageUnit packageUnit, boolean withPackages) throws IOException;
@@ -247,6 +247,11 @@ public interface CDOProtocolConstants
    */
   public static final short SIGNAL_SET_LOCK_NOTIFICATION_MODE = 54;
 
+  /**
+   * @since 4.2
+   */
+  public static final short SIGNAL_LOAD_REVISIONS_STREAMED = 55;
+
   // //////////////////////////////////////////////////////////////////////
   // Session Refresh
 
@@ -31,6 +31,20 @@ public interface CDORevisionFactory
     }
   };
 
+  /**
+   * Creates revisions that store single-valued primitive attributes unboxed and thus need considerably less heap space
+   * than the revisions of the {@link #DEFAULT default} factory.
+   * 
+   * @since 4.2
+   */
+  public static final CDORevisionFactory COMPACT = new CDORevisionFactory()
+  {
+    public CDORevision createRevision(EClass eClass)
+    {
+      return new org.eclipse.emf.cdo.internal.common.revision.CDORevisionCompactImpl(eClass);
+    }
+  };
+
   /**
    * @since 3.0
    */
@@ -18,6 +18,7 @@ import org.eclipse.emf.cdo.common.commit.CDOChangeSet;
 import org.eclipse.emf.cdo.common.commit.CDOChangeSetData;
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.model.CDOPackageRegistry;
 import org.eclipse.emf.cdo.common.revision.delta.CDORevisionDelta;
 import org.eclipse.emf.cdo.common.util.CDOCommonUtil;
 import org.eclipse.emf.cdo.internal.common.commit.CDOChangeSetDataImpl;
@@ -27,13 +28,17 @@ import org.eclipse.emf.cdo.internal.common.revision.CDOFeatureMapEntryImpl;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisableImpl;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheAuditing;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheBranching;
+import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheConcurrent;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheNonAuditing;
+import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheOffHeap;
+import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheTiered;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisionImpl;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisionKeyImpl;
 import org.eclipse.emf.cdo.internal.common.revision.CDORevisionManagerImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDORevisionDeltaImpl;
 import org.eclipse.emf.cdo.spi.common.revision.CDOFeatureMapEntry;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionManager;
 import org.eclipse.emf.cdo.spi.common.revision.ManagedRevisionProvider;
 
@@ -85,6 +90,44 @@ public final class CDORevisionUtil
     return new CDORevisionCacheNonAuditing();
   }
 
+  /**
+   * Creates and returns a new memory sensitive revision cache. If <code>concurrent</code> is <code>true</code> the
+   * returned cache does not synchronize on a global monitor, so that concurrent lookups and additions of different
+   * objects do not block each other.
+   * 
+   * @since 4.2
+   */
+  public static CDORevisionCache createRevisionCache(boolean supportingAudits, boolean supportingBranches,
+      boolean concurrent)
+  {
+    if (concurrent)
+    {
+      return new CDORevisionCacheConcurrent(supportingAudits, supportingBranches);
+    }
+
+    return createRevisionCache(supportingAudits, supportingBranches);
+  }
+
+  /**
+   * Creates and returns a new revision cache that keeps the revisions of the given heap cache also as serialized bytes
+   * outside of the Java heap, up to the given number of bytes. Revisions that the garbage collector has evicted from
+   * the heap cache are rehydrated from these bytes on demand, with the given factories. They should be the factories
+   * that created the cached revisions.
+   * 
+   * @since 4.2
+   */
+  public static CDORevisionCache createRevisionCache(CDORevisionCache heapCache, CDOPackageRegistry packageRegistry,
+      CDORevisionFactory revisionFactory, CDOListFactory listFactory, long offHeapCapacity)
+  {
+    CDORevisionCacheOffHeap offHeapCache = new CDORevisionCacheOffHeap();
+    offHeapCache.setPackageRegistry(packageRegistry);
+    offHeapCache.setRevisionFactory(revisionFactory);
+    offHeapCache.setListFactory(listFactory);
+    offHeapCache.setCapacity(offHeapCapacity);
+    offHeapCache.setSlabSize((int)Math.min(CDORevisionCacheOffHeap.DEFAULT_SLAB_SIZE, offHeapCapacity));
+    return new CDORevisionCacheTiered((InternalCDORevisionCache)heapCache, offHeapCache);
+  }
+
   /**
    * @since 4.0
    */
@@ -21,9 +21,15 @@ import java.util.Queue;
 import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The {@link Queue queue} that represents the result of a CDOQuery.
+ * <p>
+ * The queue is unbounded by default. If a {@link #setCapacity(int) capacity} is set {@link #put(Object) put()} and
+ * {@link #offer(Object, long, TimeUnit) offer()} with a timeout wait for the consumer to take elements from a full
+ * queue. Exceptions and the end marker of a {@link #close() closed} queue are never held back.
  * 
  * @author Simon McDuff
  * @since 2.0
@@ -41,10 +47,36 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
 
   private Object closeLock = new Object();
 
+  private volatile int capacity = Integer.MAX_VALUE;
+
+  private ReentrantLock capacityLock = new ReentrantLock();
+
+  private Condition notFull = capacityLock.newCondition();
+
   public CDOQueryQueue()
   {
   }
 
+  /**
+   * @since 4.2
+   */
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  /**
+   * Sets the maximum number of elements this queue holds before producers have to wait. A capacity less than one makes
+   * the queue unbounded.
+   * 
+   * @since 4.2
+   */
+  public void setCapacity(int capacity)
+  {
+    this.capacity = capacity < 1 ? Integer.MAX_VALUE : capacity;
+    signalAllNotFull();
+  }
+
   public void setException(Throwable exception)
   {
     queue.add(new QueueEntry<E>(exception));
@@ -72,12 +104,18 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
 
   public boolean add(E e)
   {
-    return queue.add(new QueueEntry<E>(e));
+    if (!offer(e))
+    {
+      throw new IllegalStateException("Queue full"); //$NON-NLS-1$
+    }
+
+    return true;
   }
 
   public void clear()
   {
     queue.clear();
+    signalNotFull();
   }
 
   public boolean contains(Object o)
@@ -112,14 +150,67 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
     return new BlockingCloseableIteratorImpl();
   }
 
+  /**
+   * Waits up to the given timeout for free capacity. Returns <code>false</code> if the queue is still full after the
+   * timeout or if the waiting thread is interrupted; the interrupt status of the thread is preserved.
+   */
   public boolean offer(E e, long timeout, TimeUnit unit)
   {
-    return queue.offer(new QueueEntry<E>(e), timeout, unit);
+    if (capacity == Integer.MAX_VALUE)
+    {
+      return queue.offer(new QueueEntry<E>(e));
+    }
+
+    long nanos = unit.toNanos(timeout);
+    capacityLock.lock();
+
+    try
+    {
+      while (queue.size() >= capacity)
+      {
+        if (nanos <= 0)
+        {
+          return false;
+        }
+
+        nanos = notFull.awaitNanos(nanos);
+      }
+
+      return queue.offer(new QueueEntry<E>(e));
+    }
+    catch (InterruptedException ex)
+    {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    finally
+    {
+      capacityLock.unlock();
+    }
   }
 
   public boolean offer(E e)
   {
-    return queue.offer(new QueueEntry<E>(e));
+    if (capacity == Integer.MAX_VALUE)
+    {
+      return queue.offer(new QueueEntry<E>(e));
+    }
+
+    capacityLock.lock();
+
+    try
+    {
+      if (queue.size() >= capacity)
+      {
+        return false;
+      }
+
+      return queue.offer(new QueueEntry<E>(e));
+    }
+    finally
+    {
+      capacityLock.unlock();
+    }
   }
 
   public E peek()
@@ -129,27 +220,62 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
 
   public E poll(long timeout, TimeUnit unit) throws InterruptedException
   {
-    return checkObject(queue.poll(timeout, unit));
+    QueueEntry<E> entry = queue.poll(timeout, unit);
+    signalNotFull();
+    return checkObject(entry);
   }
 
   public void put(E e)
   {
-    queue.put(new QueueEntry<E>(e));
+    if (capacity == Integer.MAX_VALUE)
+    {
+      queue.put(new QueueEntry<E>(e));
+      return;
+    }
+
+    capacityLock.lock();
+
+    try
+    {
+      while (queue.size() >= capacity)
+      {
+        notFull.awaitUninterruptibly();
+      }
+
+      queue.put(new QueueEntry<E>(e));
+    }
+    finally
+    {
+      capacityLock.unlock();
+    }
   }
 
   public int remainingCapacity()
   {
-    return queue.remainingCapacity();
+    if (capacity == Integer.MAX_VALUE)
+    {
+      return queue.remainingCapacity();
+    }
+
+    return Math.max(0, capacity - queue.size());
   }
 
   public E remove()
   {
-    return checkObject(queue.remove());
+    QueueEntry<E> entry = queue.remove();
+    signalNotFull();
+    return checkObject(entry);
   }
 
   public boolean remove(Object o)
   {
-    return queue.remove(o);
+    if (queue.remove(o))
+    {
+      signalNotFull();
+      return true;
+    }
+
+    return false;
   }
 
   public int size()
@@ -162,6 +288,7 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
     QueueEntry<E> entry = null;
 
     entry = queue.take();
+    signalNotFull();
 
     return checkObject(entry);
   }
@@ -186,6 +313,11 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
   public E poll()
   {
     QueueEntry<E> entry = queue.poll();
+    if (entry != null)
+    {
+      signalNotFull();
+    }
+
     return checkObject(entry);
   }
 
@@ -214,6 +346,28 @@ public class CDOQueryQueue<E> implements Queue<E>, Closeable
     throw new UnsupportedOperationException();
   }
 
+  private void signalNotFull()
+  {
+    if (capacity != Integer.MAX_VALUE)
+    {
+      signalAllNotFull();
+    }
+  }
+
+  private void signalAllNotFull()
+  {
+    capacityLock.lock();
+
+    try
+    {
+      notFull.signalAll();
+    }
+    finally
+    {
+      capacityLock.unlock();
+    }
+  }
+
   private E checkObject(QueueEntry<E> entry)
   {
     if (entry == null || entry == QUEUE_CLOSED)
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.id;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.spi.common.id.AbstractCDOIDLong;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An open addressing hash table with linear probing for the values of {@link CDOIDObjectLongImpl long IDs}, optionally
+ * with an object value per key. Removed keys leave a marker behind that is dropped when the table is rehashed, so
+ * iterations are not disturbed by removals.
+ *
+ * @author Eike Stepper
+ */
+final class CDOIDLongTable
+{
+  private static final long FREE = AbstractCDOIDLong.NULL_VALUE;
+
+  private static final long REMOVED = Long.MIN_VALUE;
+
+  private static final int MIN_CAPACITY = 8;
+
+  private long[] keys;
+
+  private Object[] values;
+
+  private boolean withValues;
+
+  private int size;
+
+  /**
+   * The number of slots that are not {@link #FREE}, including the removed ones.
+   */
+  private int used;
+
+  public CDOIDLongTable(int expectedSize, boolean withValues)
+  {
+    this.withValues = withValues;
+    allocate(getCapacity(expectedSize));
+  }
+
+  /**
+   * Returns <code>true</code> if the given object is a long ID that can be stored in a table, <code>false</code>
+   * otherwise.
+   */
+  public static boolean isLongID(Object object)
+  {
+    return object != null && object.getClass() == CDOIDObjectLongImpl.class
+        && ((CDOIDObjectLongImpl)object).getLongValue() != REMOVED;
+  }
+
+  public static long getValue(Object id)
+  {
+    return ((CDOIDObjectLongImpl)id).getLongValue();
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  public CDOID getKey(int index)
+  {
+    return new CDOIDObjectLongImpl(keys[index]);
+  }
+
+  public Object getValue(int index)
+  {
+    return values[index];
+  }
+
+  public Object setValue(int index, Object value)
+  {
+    Object oldValue = values[index];
+    values[index] = value;
+    return oldValue;
+  }
+
+  /**
+   * Returns the index of the given key, or <code>-1</code> if the key is not contained.
+   */
+  public int indexOf(long key)
+  {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask;; i = i + 1 & mask)
+    {
+      long k = keys[i];
+      if (k == key)
+      {
+        return i;
+      }
+
+      if (k == FREE)
+      {
+        return -1;
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the given key, after adding it if it was not contained. The index of an added key is returned
+   * as <code>-index - 1</code>.
+   */
+  public int add(long key)
+  {
+    if (used >= getMaxUsed(keys.length))
+    {
+      rehash(getCapacity(size + 1));
+    }
+
+    int mask = keys.length - 1;
+    int removed = -1;
+    for (int i = hash(key) & mask;; i = i + 1 & mask)
+    {
+      long k = keys[i];
+      if (k == key)
+      {
+        return i;
+      }
+
+      if (k == REMOVED)
+      {
+        if (removed == -1)
+        {
+          removed = i;
+        }
+      }
+      else if (k == FREE)
+      {
+        if (removed != -1)
+        {
+          i = removed;
+        }
+        else
+        {
+          ++used;
+        }
+
+        keys[i] = key;
+        ++size;
+        return -i - 1;
+      }
+    }
+  }
+
+  public void removeAt(int index)
+  {
+    keys[index] = REMOVED;
+    if (withValues)
+    {
+      values[index] = null;
+    }
+
+    --size;
+  }
+
+  public void clear()
+  {
+    Arrays.fill(keys, FREE);
+    if (withValues)
+    {
+      Arrays.fill(values, null);
+    }
+
+    size = 0;
+    used = 0;
+  }
+
+  /**
+   * Returns an iterator over the indexes of the contained keys.
+   */
+  public IndexIterator iterator()
+  {
+    return new IndexIterator();
+  }
+
+  private void allocate(int capacity)
+  {
+    keys = new long[capacity];
+    if (withValues)
+    {
+      values = new Object[capacity];
+    }
+  }
+
+  private void rehash(int capacity)
+  {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    size = 0;
+    used = 0;
+
+    for (int i = 0; i < oldKeys.length; i++)
+    {
+      long key = oldKeys[i];
+      if (key != FREE && key != REMOVED)
+      {
+        int index = -add(key) - 1;
+        if (withValues)
+        {
+          values[index] = oldValues[i];
+        }
+      }
+    }
+  }
+
+  private static int getCapacity(int expectedSize)
+  {
+    int capacity = MIN_CAPACITY;
+    while (getMaxUsed(capacity) <= expectedSize)
+    {
+      capacity <<= 1;
+    }
+
+    return capacity;
+  }
+
+  private static int getMaxUsed(int capacity)
+  {
+    return capacity - (capacity >>> 2);
+  }
+
+  private static int hash(long key)
+  {
+    // Spread the bits of consecutive IDs over the whole table
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return (int)key;
+  }
+
+  /**
+   * An {@link Iterator} over the indexes of the contained keys.
+   *
+   * @author Eike Stepper
+   */
+  public final class IndexIterator
+  {
+    private int next = -1;
+
+    private int last = -1;
+
+    public IndexIterator()
+    {
+      advance();
+    }
+
+    public boolean hasNext()
+    {
+      return next < keys.length;
+    }
+
+    public int next()
+    {
+      if (next >= keys.length)
+      {
+        throw new NoSuchElementException();
+      }
+
+      last = next;
+      advance();
+      return last;
+    }
+
+    public void remove()
+    {
+      if (last == -1)
+      {
+        throw new IllegalStateException();
+      }
+
+      removeAt(last);
+      last = -1;
+    }
+
+    private void advance()
+    {
+      do
+      {
+        ++next;
+      } while (next < keys.length && (keys[next] == FREE || keys[next] == REMOVED));
+    }
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.id;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDMap;
+
+import org.eclipse.net4j.util.ObjectUtil;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link CDOIDMap} that stores the values of long ID keys in a {@link CDOIDLongTable} and switches to a
+ * {@link HashMap} when the first key of another kind is put.
+ *
+ * @author Eike Stepper
+ */
+public final class CDOIDMapImpl<V> extends AbstractMap<CDOID, V> implements CDOIDMap<V>
+{
+  private CDOIDLongTable table;
+
+  private Map<CDOID, V> objects;
+
+  private transient Set<Map.Entry<CDOID, V>> entrySet;
+
+  public CDOIDMapImpl()
+  {
+    this(0);
+  }
+
+  public CDOIDMapImpl(int expectedSize)
+  {
+    table = new CDOIDLongTable(expectedSize, true);
+  }
+
+  @Override
+  public int size()
+  {
+    return table != null ? table.size() : objects.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key)
+  {
+    if (table == null)
+    {
+      return objects.containsKey(key);
+    }
+
+    return CDOIDLongTable.isLongID(key) && table.indexOf(CDOIDLongTable.getValue(key)) != -1;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key)
+  {
+    if (table == null)
+    {
+      return objects.get(key);
+    }
+
+    if (CDOIDLongTable.isLongID(key))
+    {
+      int index = table.indexOf(CDOIDLongTable.getValue(key));
+      if (index != -1)
+      {
+        return (V)table.getValue(index);
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V put(CDOID key, V value)
+  {
+    if (table != null)
+    {
+      if (CDOIDLongTable.isLongID(key))
+      {
+        int index = table.add(CDOIDLongTable.getValue(key));
+        if (index < 0)
+        {
+          index = -index - 1;
+        }
+
+        return (V)table.setValue(index, value);
+      }
+
+      switchToObjects();
+    }
+
+    return objects.put(key, value);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key)
+  {
+    if (table == null)
+    {
+      return objects.remove(key);
+    }
+
+    if (CDOIDLongTable.isLongID(key))
+    {
+      int index = table.indexOf(CDOIDLongTable.getValue(key));
+      if (index != -1)
+      {
+        V value = (V)table.getValue(index);
+        table.removeAt(index);
+        return value;
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  public void clear()
+  {
+    if (table != null)
+    {
+      table.clear();
+    }
+    else
+    {
+      objects.clear();
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<CDOID, V>> entrySet()
+  {
+    if (entrySet == null)
+    {
+      entrySet = new EntrySet();
+    }
+
+    return entrySet;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void switchToObjects()
+  {
+    objects = new HashMap<CDOID, V>(table.size() << 1);
+    for (CDOIDLongTable.IndexIterator it = table.iterator(); it.hasNext();)
+    {
+      int index = it.next();
+      objects.put(table.getKey(index), (V)table.getValue(index));
+    }
+
+    table = null;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private final class EntrySet extends AbstractSet<Map.Entry<CDOID, V>>
+  {
+    public EntrySet()
+    {
+    }
+
+    @Override
+    public int size()
+    {
+      return CDOIDMapImpl.this.size();
+    }
+
+    @Override
+    public void clear()
+    {
+      CDOIDMapImpl.this.clear();
+    }
+
+    @Override
+    public Iterator<Map.Entry<CDOID, V>> iterator()
+    {
+      if (table == null)
+      {
+        return objects.entrySet().iterator();
+      }
+
+      final CDOIDLongTable table = CDOIDMapImpl.this.table;
+      final CDOIDLongTable.IndexIterator it = table.iterator();
+      return new Iterator<Map.Entry<CDOID, V>>()
+      {
+        public boolean hasNext()
+        {
+          return it.hasNext();
+        }
+
+        public Map.Entry<CDOID, V> next()
+        {
+          return new Entry(table, it.next());
+        }
+
+        public void remove()
+        {
+          it.remove();
+        }
+      };
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private final class Entry implements Map.Entry<CDOID, V>
+  {
+    private CDOIDLongTable table;
+
+    private int index;
+
+    private CDOID key;
+
+    public Entry(CDOIDLongTable table, int index)
+    {
+      this.table = table;
+      this.index = index;
+      key = table.getKey(index);
+    }
+
+    public CDOID getKey()
+    {
+      return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getValue()
+    {
+      return (V)table.getValue(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V setValue(V value)
+    {
+      return (V)table.setValue(index, value);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      if (obj instanceof Map.Entry<?, ?>)
+      {
+        Map.Entry<?, ?> that = (Map.Entry<?, ?>)obj;
+        return key.equals(that.getKey()) && ObjectUtil.equals(getValue(), that.getValue());
+      }
+
+      return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return key.hashCode() ^ ObjectUtil.hashCode(getValue());
+    }
+
+    @Override
+    public String toString()
+    {
+      return key + "=" + getValue(); //$NON-NLS-1$
+    }
+  }
+}
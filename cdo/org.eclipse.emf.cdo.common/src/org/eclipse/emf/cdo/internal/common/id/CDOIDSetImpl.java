@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.id;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDSet;
+
+import java.util.AbstractSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A {@link CDOIDSet} that stores the values of long IDs in a {@link CDOIDLongTable} and switches to a {@link HashSet}
+ * when the first ID of another kind is added.
+ *
+ * @author Eike Stepper
+ */
+public final class CDOIDSetImpl extends AbstractSet<CDOID> implements CDOIDSet
+{
+  private CDOIDLongTable table;
+
+  private Set<CDOID> objects;
+
+  public CDOIDSetImpl()
+  {
+    this(0);
+  }
+
+  public CDOIDSetImpl(int expectedSize)
+  {
+    table = new CDOIDLongTable(expectedSize, false);
+  }
+
+  @Override
+  public int size()
+  {
+    return table != null ? table.size() : objects.size();
+  }
+
+  @Override
+  public boolean contains(Object o)
+  {
+    if (table == null)
+    {
+      return objects.contains(o);
+    }
+
+    return CDOIDLongTable.isLongID(o) && table.indexOf(CDOIDLongTable.getValue(o)) != -1;
+  }
+
+  @Override
+  public boolean add(CDOID id)
+  {
+    if (table != null)
+    {
+      if (CDOIDLongTable.isLongID(id))
+      {
+        return table.add(CDOIDLongTable.getValue(id)) < 0;
+      }
+
+      switchToObjects();
+    }
+
+    return objects.add(id);
+  }
+
+  @Override
+  public boolean remove(Object o)
+  {
+    if (table == null)
+    {
+      return objects.remove(o);
+    }
+
+    if (CDOIDLongTable.isLongID(o))
+    {
+      int index = table.indexOf(CDOIDLongTable.getValue(o));
+      if (index != -1)
+      {
+        table.removeAt(index);
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  @Override
+  public void clear()
+  {
+    if (table != null)
+    {
+      table.clear();
+    }
+    else
+    {
+      objects.clear();
+    }
+  }
+
+  @Override
+  public Iterator<CDOID> iterator()
+  {
+    if (table == null)
+    {
+      return objects.iterator();
+    }
+
+    final CDOIDLongTable table = this.table;
+    final CDOIDLongTable.IndexIterator it = table.iterator();
+    return new Iterator<CDOID>()
+    {
+      public boolean hasNext()
+      {
+        return it.hasNext();
+      }
+
+      public CDOID next()
+      {
+        return table.getKey(it.next());
+      }
+
+      public void remove()
+      {
+        it.remove();
+      }
+    };
+  }
+
+  private void switchToObjects()
+  {
+    objects = new HashSet<CDOID>(table.size() << 1);
+    for (CDOIDLongTable.IndexIterator it = table.iterator(); it.hasNext();)
+    {
+      objects.add(table.getKey(it.next()));
+    }
+
+    table = null;
+  }
+}
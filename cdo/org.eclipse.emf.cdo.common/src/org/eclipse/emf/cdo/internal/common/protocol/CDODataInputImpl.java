@@ -109,6 +109,16 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
     super(delegate);
   }
 
+  public int readXInt() throws IOException
+  {
+    return readInt();
+  }
+
+  public long readXLong() throws IOException
+  {
+    return readLong();
+  }
+
   public CDOPackageUnit readCDOPackageUnit(ResourceSet resourceSet) throws IOException
   {
     InternalCDOPackageUnit packageUnit = (InternalCDOPackageUnit)CDOModelUtil.createPackageUnit();
@@ -83,6 +83,16 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
     super(delegate);
   }
 
+  public void writeXInt(int v) throws IOException
+  {
+    writeInt(v);
+  }
+
+  public void writeXLong(long v) throws IOException
+  {
+    writeLong(v);
+  }
+
   public void writeCDOPackageUnit(CDOPackageUnit packageUnit, boolean withPackages) throws IOException
   {
     ((InternalCDOPackageUnit)packageUnit).write(this, withPackages);
@@ -28,7 +28,7 @@ import java.util.Collection;
 /**
  * @author Simon McDuff
  */
-public class CDOListImpl extends MoveableArrayList<Object> implements InternalCDOList
+public class CDOListImpl extends MoveableArrayList<Object> implements InternalCDOList, InternalCDOList.Shareable
 {
   public static final CDOListFactory FACTORY = new CDOListFactory()
   {
@@ -102,6 +102,11 @@ public class CDOListImpl extends MoveableArrayList<Object> implements InternalCD
     frozen = true;
   }
 
+  public boolean isFrozen()
+  {
+    return frozen;
+  }
+
   private void checkFrozen()
   {
     if (frozen)
@@ -0,0 +1,577 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.model.CDOModelUtil;
+import org.eclipse.emf.cdo.common.model.CDOType;
+import org.eclipse.emf.cdo.common.revision.CDOElementProxy;
+import org.eclipse.emf.cdo.common.revision.CDOList;
+import org.eclipse.emf.cdo.common.revision.CDOListFactory;
+import org.eclipse.emf.cdo.internal.common.id.CDOIDObjectLongImpl;
+import org.eclipse.emf.cdo.spi.common.revision.CDOReferenceAdjuster;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDOList;
+
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A {@link CDOList list} of references that stores the values of long IDs in a <code>long</code> array and creates the
+ * {@link CDOID} instances only when the elements are {@link #get(int) accessed}.
+ * <p>
+ * {@link #UNINITIALIZED Uninitialized} elements are stored as <code>0</code>, {@link CDOElementProxy element proxies}
+ * as the negated index of the proxy minus <code>1</code>. The first element that can not be stored this way, for
+ * example a temporary ID, switches the list to an <code>Object</code> array for the rest of its life.
+ *
+ * @author Eike Stepper
+ */
+public class CDOLongIDListImpl extends AbstractList<Object> implements InternalCDOList, InternalCDOList.Shareable,
+    RandomAccess
+{
+  public static final CDOListFactory FACTORY = new CDOListFactory()
+  {
+    public CDOList createList(int initialCapacity, int size, int initialChunk)
+    {
+      return new CDOLongIDListImpl(initialCapacity, size, size);
+    }
+  };
+
+  public static final CDOListFactory FACTORY_WITH_ELEMENT_PROXIES = new CDOListFactory()
+  {
+    public CDOList createList(int initialCapacity, int size, int initialChunk)
+    {
+      return new CDOLongIDListImpl(initialCapacity, size, initialChunk);
+    }
+  };
+
+  private static final long UNINITIALIZED_VALUE = 0L;
+
+  private static final int MIN_CAPACITY = 10;
+
+  private long[] values;
+
+  private Object[] elements;
+
+  private int size;
+
+  private transient boolean frozen;
+
+  /**
+   * Creates a list with <code>size</code> elements, of which the first <code>initialChunk</code> ones are
+   * {@link #UNINITIALIZED uninitialized} and the others are {@link CDOElementProxy element proxies}.
+   */
+  public CDOLongIDListImpl(int initialCapacity, int size, int initialChunk)
+  {
+    values = new long[Math.max(initialCapacity, size)];
+    for (int i = initialChunk; i < size; i++)
+    {
+      values[i] = encodeProxy(i);
+    }
+
+    this.size = size;
+  }
+
+  private CDOLongIDListImpl(CDOLongIDListImpl source)
+  {
+    size = source.size;
+    if (source.values != null)
+    {
+      values = new long[size];
+      System.arraycopy(source.values, 0, values, 0, size);
+    }
+    else
+    {
+      elements = new Object[size];
+    }
+  }
+
+  /**
+   * Returns the factory that creates lists of this kind for the given factory, or the given factory if there is no
+   * such factory.
+   */
+  public static CDOListFactory getFactory(CDOListFactory factory)
+  {
+    if (factory == CDOListImpl.FACTORY)
+    {
+      return FACTORY;
+    }
+
+    if (factory == CDOListWithElementProxiesImpl.FACTORY)
+    {
+      return FACTORY_WITH_ELEMENT_PROXIES;
+    }
+
+    return factory;
+  }
+
+  /**
+   * Returns <code>true</code> if all elements of this list are stored in a <code>long</code> array, <code>false</code>
+   * otherwise.
+   */
+  public boolean isLongIDs()
+  {
+    return values != null;
+  }
+
+  /**
+   * Returns the array that the elements of this list are stored in, or <code>null</code> if this list is not
+   * {@link #isLongIDs() backed by a long array}. A value that is greater than <code>0</code> is the value of a long ID,
+   * all other values stand for {@link #UNINITIALIZED uninitialized} elements or {@link CDOElementProxy element
+   * proxies}. The array can be longer than the list and must not be modified.
+   */
+  public long[] getLongIDs()
+  {
+    return values;
+  }
+
+  /**
+   * Sets the element at the given index to the long ID with the given value without creating a {@link CDOID} for it.
+   */
+  public void setLongID(int index, long value)
+  {
+    checkFrozen();
+    checkIndex(index);
+    if (values != null && value > UNINITIALIZED_VALUE)
+    {
+      values[index] = value;
+    }
+    else
+    {
+      set(index, new CDOIDObjectLongImpl(value));
+    }
+  }
+
+  @Override
+  public int size()
+  {
+    return size;
+  }
+
+  @Override
+  public Object get(int index)
+  {
+    checkIndex(index);
+    if (values != null)
+    {
+      return decode(values[index]);
+    }
+
+    return elements[index];
+  }
+
+  public Object get(int index, boolean resolve)
+  {
+    Object element = get(index);
+    if (!resolve && element instanceof CDOElementProxy)
+    {
+      return UNINITIALIZED;
+    }
+
+    return element;
+  }
+
+  @Override
+  public Object set(int index, Object element)
+  {
+    checkFrozen();
+    return setWithoutFrozenCheck0(index, element);
+  }
+
+  public void setWithoutFrozenCheck(int index, Object element)
+  {
+    setWithoutFrozenCheck0(index, element);
+  }
+
+  @Override
+  public void add(int index, Object element)
+  {
+    checkFrozen();
+    if (index > size || index < 0)
+    {
+      throw new IndexOutOfBoundsException("index=" + index + ", size=" + size); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    ++modCount;
+    ensureCapacity(size + 1);
+    if (values != null && !canEncode(element))
+    {
+      switchToElements();
+    }
+
+    Object data = getData();
+    System.arraycopy(data, index, data, index + 1, size - index);
+    ++size;
+    put(index, element);
+  }
+
+  @Override
+  public Object remove(int index)
+  {
+    checkFrozen();
+    Object oldElement = get(index);
+    ++modCount;
+
+    Object data = getData();
+    System.arraycopy(data, index + 1, data, index, size - index - 1);
+    --size;
+    if (elements != null)
+    {
+      elements[size] = null;
+    }
+
+    return oldElement;
+  }
+
+  @Override
+  public boolean remove(Object o)
+  {
+    checkFrozen();
+    int index = indexOf(o);
+    if (index == -1)
+    {
+      return false;
+    }
+
+    remove(index);
+    return true;
+  }
+
+  @Override
+  public void clear()
+  {
+    checkFrozen();
+    ++modCount;
+    if (elements != null)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        elements[i] = null;
+      }
+    }
+
+    size = 0;
+  }
+
+  @Override
+  public int indexOf(Object o)
+  {
+    if (values == null)
+    {
+      for (int i = 0; i < size; i++)
+      {
+        Object element = elements[i];
+        if (o == null ? element == null : o.equals(element))
+        {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+
+    if (!canEncode(o))
+    {
+      return -1;
+    }
+
+    long value = encode(o);
+    for (int i = 0; i < size; i++)
+    {
+      if (values[i] == value)
+      {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  @Override
+  public int lastIndexOf(Object o)
+  {
+    for (int i = size - 1; i >= 0; i--)
+    {
+      Object element = get(i);
+      if (o == null ? element == null : o.equals(element))
+      {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  @Override
+  public boolean contains(Object o)
+  {
+    return indexOf(o) != -1;
+  }
+
+  public void move(int newPosition, Object object)
+  {
+    move(newPosition, indexOf(object));
+  }
+
+  public Object move(int targetIndex, int sourceIndex)
+  {
+    checkFrozen();
+    if (sourceIndex >= size)
+    {
+      throw new IndexOutOfBoundsException("sourceIndex=" + sourceIndex + ", size=" + size); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    if (targetIndex >= size)
+    {
+      throw new IndexOutOfBoundsException("targetIndex=" + targetIndex + ", size=" + size); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    Object object = get(sourceIndex);
+    if (targetIndex == sourceIndex)
+    {
+      return object;
+    }
+
+    ++modCount;
+    Object data = getData();
+    if (values != null)
+    {
+      long value = values[sourceIndex];
+      shift(data, targetIndex, sourceIndex);
+      values[targetIndex] = value;
+    }
+    else
+    {
+      shift(data, targetIndex, sourceIndex);
+      elements[targetIndex] = object;
+    }
+
+    return object;
+  }
+
+  public InternalCDOList clone(EClassifier classifier)
+  {
+    CDOLongIDListImpl list = new CDOLongIDListImpl(this);
+    if (elements != null)
+    {
+      CDOType type = CDOModelUtil.getType(classifier);
+      for (int i = 0; i < size; i++)
+      {
+        Object element = elements[i];
+        if (element instanceof CDOElementProxy)
+        {
+          list.elements[i] = new CDOElementProxyImpl(((CDOElementProxy)element).getIndex());
+        }
+        else
+        {
+          list.elements[i] = type.copyValue(element);
+        }
+      }
+    }
+
+    return list;
+  }
+
+  public boolean adjustReferences(CDOReferenceAdjuster revisionAdjuster, EStructuralFeature feature)
+  {
+    boolean changed = false;
+    CDOType type = CDOModelUtil.getType(feature);
+    for (int i = 0; i < size; i++)
+    {
+      Object element;
+      if (values != null)
+      {
+        long value = values[i];
+        if (value <= UNINITIALIZED_VALUE)
+        {
+          if (value != UNINITIALIZED_VALUE)
+          {
+            // Resynchronize the index of the proxy
+            values[i] = encodeProxy(i);
+          }
+
+          continue;
+        }
+
+        element = decode(value);
+      }
+      else
+      {
+        element = elements[i];
+        if (element instanceof CDOElementProxy)
+        {
+          ((CDOElementProxyImpl)element).setIndex(i);
+        }
+      }
+
+      Object newID = type.adjustReferences(revisionAdjuster, element, feature, i);
+      if (newID != element) // Just an optimization for NOOP adjusters
+      {
+        setWithoutFrozenCheck0(i, newID);
+        changed = true;
+      }
+    }
+
+    return changed;
+  }
+
+  public void freeze()
+  {
+    frozen = true;
+  }
+
+  public boolean isFrozen()
+  {
+    return frozen;
+  }
+
+  private void checkFrozen()
+  {
+    if (frozen)
+    {
+      throw new IllegalStateException("Cannot modify a frozen list");
+    }
+  }
+
+  private void checkIndex(int index)
+  {
+    if (index >= size || index < 0)
+    {
+      throw new IndexOutOfBoundsException("index=" + index + ", size=" + size); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+
+  private Object setWithoutFrozenCheck0(int index, Object element)
+  {
+    Object oldElement = get(index);
+    if (values != null && !canEncode(element))
+    {
+      switchToElements();
+    }
+
+    put(index, element);
+    return oldElement;
+  }
+
+  private void put(int index, Object element)
+  {
+    if (values != null)
+    {
+      values[index] = encode(element);
+    }
+    else
+    {
+      elements[index] = element;
+    }
+  }
+
+  private Object getData()
+  {
+    return values != null ? values : elements;
+  }
+
+  private void ensureCapacity(int minCapacity)
+  {
+    int capacity = values != null ? values.length : elements.length;
+    if (minCapacity > capacity)
+    {
+      int newCapacity = Math.max(Math.max(capacity + (capacity >> 1), minCapacity), MIN_CAPACITY);
+      if (values != null)
+      {
+        long[] newValues = new long[newCapacity];
+        System.arraycopy(values, 0, newValues, 0, size);
+        values = newValues;
+      }
+      else
+      {
+        Object[] newElements = new Object[newCapacity];
+        System.arraycopy(elements, 0, newElements, 0, size);
+        elements = newElements;
+      }
+    }
+  }
+
+  private void switchToElements()
+  {
+    elements = new Object[values.length];
+    for (int i = 0; i < size; i++)
+    {
+      elements[i] = decode(values[i]);
+    }
+
+    values = null;
+  }
+
+  private static void shift(Object data, int targetIndex, int sourceIndex)
+  {
+    if (targetIndex < sourceIndex)
+    {
+      System.arraycopy(data, targetIndex, data, targetIndex + 1, sourceIndex - targetIndex);
+    }
+    else
+    {
+      System.arraycopy(data, sourceIndex + 1, data, sourceIndex, targetIndex - sourceIndex);
+    }
+  }
+
+  private static boolean canEncode(Object element)
+  {
+    if (element == UNINITIALIZED)
+    {
+      return true;
+    }
+
+    if (element instanceof CDOElementProxyImpl)
+    {
+      return true;
+    }
+
+    return element != null && element.getClass() == CDOIDObjectLongImpl.class
+        && ((CDOIDObjectLongImpl)element).getLongValue() > UNINITIALIZED_VALUE;
+  }
+
+  private static long encode(Object element)
+  {
+    if (element == UNINITIALIZED)
+    {
+      return UNINITIALIZED_VALUE;
+    }
+
+    if (element instanceof CDOElementProxyImpl)
+    {
+      return encodeProxy(((CDOElementProxyImpl)element).getIndex());
+    }
+
+    return ((CDOIDObjectLongImpl)element).getLongValue();
+  }
+
+  private static long encodeProxy(int index)
+  {
+    return -(long)index - 1L;
+  }
+
+  private static Object decode(long value)
+  {
+    if (value > UNINITIALIZED_VALUE)
+    {
+      return new CDOIDObjectLongImpl(value);
+    }
+
+    if (value == UNINITIALIZED_VALUE)
+    {
+      return UNINITIALIZED;
+    }
+
+    return new CDOElementProxyImpl((int)(-value - 1L));
+  }
+}
@@ -0,0 +1,754 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDOIDAndBranch;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
+import org.eclipse.emf.cdo.internal.common.bundle.OM;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+
+import org.eclipse.net4j.util.CheckUtil;
+import org.eclipse.net4j.util.ObjectUtil;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A revision cache that does not synchronize on a global monitor.
+ * <p>
+ * The per-object histories are held in a lock-striped {@link ConcurrentHashMap} that is keyed by {@link CDOID} or, if
+ * branches are supported, by {@link CDOIDAndBranch}. Each history is an immutable, version-sorted array snapshot that is
+ * read without locking and binary-searched by time stamp or version. Modifications of a single history are serialized
+ * on that history only.
+ *
+ * @author Eike Stepper
+ */
+public class CDORevisionCacheConcurrent extends AbstractCDORevisionCache
+{
+  public static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_REVISION, CDORevisionCacheConcurrent.class);
+
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final boolean supportingAudits;
+
+  private final boolean supportingBranches;
+
+  private final int concurrencyLevel;
+
+  private final ConcurrentMap<Object, RevisionHistory> histories;
+
+  private final ConcurrentMap<CDOID, TypeAndRefCounter> typeMap;
+
+  public CDORevisionCacheConcurrent(boolean supportingAudits, boolean supportingBranches)
+  {
+    this(supportingAudits, supportingBranches, DEFAULT_CONCURRENCY_LEVEL);
+  }
+
+  public CDORevisionCacheConcurrent(boolean supportingAudits, boolean supportingBranches, int concurrencyLevel)
+  {
+    this.supportingAudits = supportingAudits || supportingBranches;
+    this.supportingBranches = supportingBranches;
+    this.concurrencyLevel = concurrencyLevel;
+
+    histories = new ConcurrentHashMap<Object, RevisionHistory>(INITIAL_CAPACITY, LOAD_FACTOR, concurrencyLevel);
+    typeMap = supportingBranches ? new ConcurrentHashMap<CDOID, TypeAndRefCounter>(INITIAL_CAPACITY, LOAD_FACTOR,
+        concurrencyLevel) : null;
+  }
+
+  public boolean isSupportingAudits()
+  {
+    return supportingAudits;
+  }
+
+  public boolean isSupportingBranches()
+  {
+    return supportingBranches;
+  }
+
+  public int getConcurrencyLevel()
+  {
+    return concurrencyLevel;
+  }
+
+  public InternalCDORevisionCache instantiate(CDORevision revision)
+  {
+    return new CDORevisionCacheConcurrent(supportingAudits, supportingBranches, concurrencyLevel);
+  }
+
+  public EClass getObjectType(CDOID id)
+  {
+    if (supportingBranches)
+    {
+      TypeAndRefCounter typeCounter = typeMap.get(id);
+      if (typeCounter != null)
+      {
+        return typeCounter.getType();
+      }
+
+      return null;
+    }
+
+    RevisionHistory history = histories.get(id);
+    if (history != null)
+    {
+      InternalCDORevision revision = history.getFirst();
+      if (revision != null)
+      {
+        return revision.getEClass();
+      }
+    }
+
+    return null;
+  }
+
+  public InternalCDORevision getRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    RevisionHistory history = histories.get(createKey(id, branchPoint.getBranch()));
+    if (history != null)
+    {
+      if (supportingAudits)
+      {
+        return history.getRevision(branchPoint.getTimeStamp());
+      }
+
+      InternalCDORevision revision = history.getFirst();
+      if (revision != null && revision.isValid(branchPoint))
+      {
+        return revision;
+      }
+    }
+
+    return null;
+  }
+
+  public InternalCDORevision getRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  {
+    RevisionHistory history = histories.get(createKey(id, branchVersion.getBranch()));
+    if (history != null)
+    {
+      return history.getRevisionByVersion(branchVersion.getVersion());
+    }
+
+    return null;
+  }
+
+  public List<CDORevision> getCurrentRevisions()
+  {
+    List<CDORevision> currentRevisions = new ArrayList<CDORevision>();
+    for (RevisionHistory history : histories.values())
+    {
+      InternalCDORevision revision = history.getRevision(CDORevision.UNSPECIFIED_DATE);
+      if (revision != null)
+      {
+        currentRevisions.add(revision);
+      }
+    }
+
+    return currentRevisions;
+  }
+
+  public Map<CDOBranch, List<CDORevision>> getAllRevisions()
+  {
+    Map<CDOBranch, List<CDORevision>> result = new HashMap<CDOBranch, List<CDORevision>>();
+    for (RevisionHistory history : histories.values())
+    {
+      history.getAllRevisions(result);
+    }
+
+    return result;
+  }
+
+  public List<CDORevision> getRevisions(CDOBranchPoint branchPoint)
+  {
+    List<CDORevision> result = new ArrayList<CDORevision>();
+    CDOBranch branch = branchPoint.getBranch();
+    for (Map.Entry<Object, RevisionHistory> entry : histories.entrySet())
+    {
+      if (isKeyInBranch(entry.getKey(), branch))
+      {
+        RevisionHistory history = entry.getValue();
+        InternalCDORevision revision;
+        if (supportingAudits)
+        {
+          revision = history.getRevision(branchPoint.getTimeStamp());
+        }
+        else
+        {
+          revision = history.getFirst();
+          if (revision != null && !revision.isValid(branchPoint))
+          {
+            revision = null;
+          }
+        }
+
+        if (revision != null)
+        {
+          result.add(revision);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  public void addRevision(CDORevision revision)
+  {
+    CheckUtil.checkArg(revision, "revision");
+    if (!supportingAudits && revision.isHistorical())
+    {
+      return;
+    }
+
+    CDOID id = revision.getID();
+    Object key = createKey(id, revision.getBranch());
+    Reference<InternalCDORevision> reference = createReference(revision);
+
+    for (;;)
+    {
+      RevisionHistory history = histories.get(key);
+      if (history == null)
+      {
+        history = new RevisionHistory();
+        RevisionHistory existing = histories.putIfAbsent(key, history);
+        if (existing != null)
+        {
+          history = existing;
+        }
+      }
+
+      synchronized (history)
+      {
+        if (history.isDiscarded())
+        {
+          // Concurrently removed from the map, retry with a fresh history
+          continue;
+        }
+
+        boolean wasEmpty = history.isEmpty();
+        if (supportingAudits)
+        {
+          history.addRevision((InternalCDORevision)revision, reference);
+        }
+        else
+        {
+          history.setRevision((InternalCDORevision)revision, reference);
+        }
+
+        if (wasEmpty)
+        {
+          typeRefIncrease(id, revision.getEClass());
+        }
+      }
+
+      return;
+    }
+  }
+
+  public InternalCDORevision removeRevision(CDOID id, CDOBranchVersion branchVersion)
+  {
+    Object key = createKey(id, branchVersion.getBranch());
+    RevisionHistory history = histories.get(key);
+    if (history == null)
+    {
+      return null;
+    }
+
+    InternalCDORevision revision;
+    synchronized (history)
+    {
+      revision = history.removeRevision(branchVersion.getVersion(), !supportingAudits);
+      if (history.isEmpty() && !history.isDiscarded())
+      {
+        history.discard();
+        histories.remove(key, history);
+        typeRefDecrease(id);
+
+        if (TRACER.isEnabled())
+        {
+          TRACER.format("Removed cache history of {0}", key); //$NON-NLS-1$
+        }
+      }
+    }
+
+    return supportingAudits ? null : revision;
+  }
+
+  public void clear()
+  {
+    histories.clear();
+    if (typeMap != null)
+    {
+      typeMap.clear();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return histories.toString();
+  }
+
+  protected Object createKey(CDOID id, CDOBranch branch)
+  {
+    if (supportingBranches)
+    {
+      return CDOIDUtil.createIDAndBranch(id, branch);
+    }
+
+    return id;
+  }
+
+  protected boolean isKeyInBranch(Object key, CDOBranch branch)
+  {
+    if (supportingBranches)
+    {
+      return ObjectUtil.equals(((CDOIDAndBranch)key).getBranch(), branch);
+    }
+
+    return true;
+  }
+
+  private void typeRefIncrease(CDOID id, EClass type)
+  {
+    if (typeMap == null)
+    {
+      return;
+    }
+
+    for (;;)
+    {
+      TypeAndRefCounter typeCounter = typeMap.get(id);
+      if (typeCounter == null)
+      {
+        typeCounter = new TypeAndRefCounter(type);
+        TypeAndRefCounter existing = typeMap.putIfAbsent(id, typeCounter);
+        if (existing != null)
+        {
+          typeCounter = existing;
+        }
+      }
+
+      if (typeCounter.increase())
+      {
+        return;
+      }
+    }
+  }
+
+  private void typeRefDecrease(CDOID id)
+  {
+    if (typeMap == null)
+    {
+      return;
+    }
+
+    TypeAndRefCounter typeCounter = typeMap.get(id);
+    if (typeCounter != null && typeCounter.decrease())
+    {
+      typeMap.remove(id, typeCounter);
+    }
+  }
+
+  /**
+   * The version-sorted (newest first) history of one object in one branch.
+   * <p>
+   * Readers access the current {@link Snapshot snapshot} without locking. Writers must hold the monitor of this history
+   * and replace the snapshot as a whole.
+   *
+   * @author Eike Stepper
+   */
+  protected static final class RevisionHistory
+  {
+    private static final Snapshot EMPTY = new Snapshot(0);
+
+    private volatile Snapshot snapshot = EMPTY;
+
+    private boolean discarded;
+
+    public RevisionHistory()
+    {
+    }
+
+    public boolean isEmpty()
+    {
+      return snapshot.size() == 0;
+    }
+
+    public boolean isDiscarded()
+    {
+      return discarded;
+    }
+
+    public void discard()
+    {
+      discarded = true;
+    }
+
+    public InternalCDORevision getFirst()
+    {
+      Snapshot snapshot = this.snapshot;
+      if (snapshot.size() != 0)
+      {
+        return snapshot.get(0);
+      }
+
+      return null;
+    }
+
+    public InternalCDORevision getRevision(long timeStamp)
+    {
+      Snapshot snapshot = this.snapshot;
+      if (timeStamp == CDORevision.UNSPECIFIED_DATE)
+      {
+        if (snapshot.size() != 0)
+        {
+          InternalCDORevision revision = snapshot.get(0);
+          if (revision != null && !revision.isHistorical())
+          {
+            return revision;
+          }
+        }
+
+        return null;
+      }
+
+      int index = snapshot.indexOfTimeStamp(timeStamp);
+      if (index != -1)
+      {
+        InternalCDORevision revision = snapshot.get(index);
+        if (revision != null)
+        {
+          long revised = revision.getRevised();
+          if (timeStamp <= revised || revised == CDORevision.UNSPECIFIED_DATE)
+          {
+            return revision;
+          }
+        }
+      }
+
+      return null;
+    }
+
+    public InternalCDORevision getRevisionByVersion(int version)
+    {
+      Snapshot snapshot = this.snapshot;
+      int index = snapshot.indexOfVersion(version);
+      if (index >= 0)
+      {
+        return snapshot.get(index);
+      }
+
+      return null;
+    }
+
+    public boolean addRevision(InternalCDORevision revision, Reference<InternalCDORevision> reference)
+    {
+      Snapshot snapshot = this.snapshot;
+      int index = snapshot.indexOfVersion(revision.getVersion());
+      if (index >= 0)
+      {
+        if (snapshot.get(index) != null)
+        {
+          return false;
+        }
+
+        this.snapshot = snapshot.replace(index, reference, revision.getTimeStamp());
+        return true;
+      }
+
+      this.snapshot = snapshot.insert(-(index + 1), reference, revision.getVersion(), revision.getTimeStamp());
+      return true;
+    }
+
+    public void setRevision(InternalCDORevision revision, Reference<InternalCDORevision> reference)
+    {
+      Snapshot snapshot = this.snapshot;
+      if (snapshot.size() == 1 && snapshot.get(0) == revision)
+      {
+        return;
+      }
+
+      snapshot = new Snapshot(1);
+      snapshot.references[0] = reference;
+      snapshot.versions[0] = revision.getVersion();
+      snapshot.timeStamps[0] = revision.getTimeStamp();
+      this.snapshot = snapshot;
+    }
+
+    public InternalCDORevision removeRevision(int version, boolean removeCollected)
+    {
+      Snapshot snapshot = this.snapshot;
+      int index = snapshot.indexOfVersion(version);
+      if (index >= 0)
+      {
+        InternalCDORevision revision = snapshot.get(index);
+        this.snapshot = snapshot.remove(index);
+
+        if (TRACER.isEnabled())
+        {
+          TRACER.format("Removed version {0} from cache history of {1}", version, //$NON-NLS-1$
+              ((CDORevisionKey)snapshot.references[index]).getID());
+        }
+
+        return revision;
+      }
+
+      if (removeCollected && snapshot.size() != 0 && snapshot.get(0) == null)
+      {
+        this.snapshot = snapshot.remove(0);
+      }
+
+      return null;
+    }
+
+    public void getAllRevisions(Map<CDOBranch, List<CDORevision>> result)
+    {
+      Snapshot snapshot = this.snapshot;
+      for (int i = 0; i < snapshot.size(); i++)
+      {
+        InternalCDORevision revision = snapshot.get(i);
+        if (revision != null)
+        {
+          CDOBranch branch = revision.getBranch();
+          List<CDORevision> resultList = result.get(branch);
+          if (resultList == null)
+          {
+            resultList = new ArrayList<CDORevision>(1);
+            result.put(branch, resultList);
+          }
+
+          resultList.add(revision);
+        }
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      Snapshot snapshot = this.snapshot;
+      StringBuffer buffer = new StringBuffer();
+      buffer.append("{");
+      for (int i = 0; i < snapshot.size(); i++)
+      {
+        if (i != 0)
+        {
+          buffer.append(", ");
+        }
+
+        buffer.append(snapshot.get(i));
+      }
+
+      buffer.append("}");
+      return buffer.toString();
+    }
+  }
+
+  /**
+   * An immutable array-based view of a {@link RevisionHistory history}, sorted by descending version. Within a single
+   * branch the creation time stamps are sorted the same way, so both arrays can be binary-searched.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Snapshot
+  {
+    private final Reference<?>[] references;
+
+    private final int[] versions;
+
+    private final long[] timeStamps;
+
+    public Snapshot(int size)
+    {
+      references = new Reference<?>[size];
+      versions = new int[size];
+      timeStamps = new long[size];
+    }
+
+    public int size()
+    {
+      return versions.length;
+    }
+
+    /**
+     * Returns the revision at the given index, or <code>null</code> if it has been garbage collected.
+     */
+    public InternalCDORevision get(int index)
+    {
+      return (InternalCDORevision)references[index].get();
+    }
+
+    /**
+     * Returns the index of the given version, or <code>-(insertionPoint + 1)</code> if the version is not contained.
+     */
+    public int indexOfVersion(int version)
+    {
+      int low = 0;
+      int high = versions.length - 1;
+      while (low <= high)
+      {
+        int mid = low + high >>> 1;
+        int v = versions[mid];
+        if (v > version)
+        {
+          low = mid + 1;
+        }
+        else if (v < version)
+        {
+          high = mid - 1;
+        }
+        else
+        {
+          return mid;
+        }
+      }
+
+      return -(low + 1);
+    }
+
+    /**
+     * Returns the index of the newest entry that was created at or before the given time stamp, or <code>-1</code>.
+     */
+    public int indexOfTimeStamp(long timeStamp)
+    {
+      int low = 0;
+      int high = timeStamps.length - 1;
+      while (low <= high)
+      {
+        int mid = low + high >>> 1;
+        if (timeStamps[mid] > timeStamp)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid - 1;
+        }
+      }
+
+      return low < timeStamps.length ? low : -1;
+    }
+
+    public Snapshot insert(int index, Reference<InternalCDORevision> reference, int version, long timeStamp)
+    {
+      int size = size();
+      Snapshot result = new Snapshot(size + 1);
+      copy(this, 0, result, 0, index);
+      result.references[index] = reference;
+      result.versions[index] = version;
+      result.timeStamps[index] = timeStamp;
+      copy(this, index, result, index + 1, size - index);
+      return result;
+    }
+
+    public Snapshot replace(int index, Reference<InternalCDORevision> reference, long timeStamp)
+    {
+      int size = size();
+      Snapshot result = new Snapshot(size);
+      copy(this, 0, result, 0, size);
+      result.references[index] = reference;
+      result.timeStamps[index] = timeStamp;
+      return result;
+    }
+
+    public Snapshot remove(int index)
+    {
+      int size = size();
+      if (size == 1)
+      {
+        return RevisionHistory.EMPTY;
+      }
+
+      Snapshot result = new Snapshot(size - 1);
+      copy(this, 0, result, 0, index);
+      copy(this, index + 1, result, index, size - index - 1);
+      return result;
+    }
+
+    private static void copy(Snapshot source, int sourcePos, Snapshot target, int targetPos, int length)
+    {
+      if (length > 0)
+      {
+        System.arraycopy(source.references, sourcePos, target.references, targetPos, length);
+        System.arraycopy(source.versions, sourcePos, target.versions, targetPos, length);
+        System.arraycopy(source.timeStamps, sourcePos, target.timeStamps, targetPos, length);
+      }
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class TypeAndRefCounter
+  {
+    private final EClass type;
+
+    private int refCounter;
+
+    private boolean discarded;
+
+    public TypeAndRefCounter(EClass type)
+    {
+      this.type = type;
+    }
+
+    public EClass getType()
+    {
+      return type;
+    }
+
+    /**
+     * Returns <code>false</code> if this counter has already been discarded and must be replaced.
+     */
+    public synchronized boolean increase()
+    {
+      if (discarded)
+      {
+        return false;
+      }
+
+      ++refCounter;
+      return true;
+    }
+
+    /**
+     * Returns <code>true</code> if this counter dropped to zero and has been discarded.
+     */
+    public synchronized boolean decrease()
+    {
+      if (--refCounter == 0)
+      {
+        discarded = true;
+        return true;
+      }
+
+      return false;
+    }
+  }
+}
@@ -0,0 +1,876 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchManager;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfoManager;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDProvider;
+import org.eclipse.emf.cdo.common.lob.CDOLobStore;
+import org.eclipse.emf.cdo.common.model.CDOPackageRegistry;
+import org.eclipse.emf.cdo.common.revision.CDOListFactory;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
+import org.eclipse.emf.cdo.internal.common.bundle.OM;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataInputImpl;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataOutputImpl;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+import org.eclipse.emf.cdo.spi.common.revision.PointerCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.SyntheticCDORevision;
+
+import org.eclipse.net4j.util.CheckUtil;
+import org.eclipse.net4j.util.event.IListener;
+import org.eclipse.net4j.util.io.ExtendedDataInputStream;
+import org.eclipse.net4j.util.io.ExtendedDataOutputStream;
+import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.lifecycle.Lifecycle;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link InternalCDORevisionCache revision cache} that keeps serialized revisions in direct {@link ByteBuffer byte
+ * buffers} outside of the Java heap. Each {@link #getRevision(CDOID, CDOBranchPoint) lookup} rehydrates a new revision
+ * from its bytes.
+ * <p>
+ * The bytes are appended to slabs of {@link #getSlabSize() slab size} bytes. When the {@link #getCapacity() capacity}
+ * is exhausted the oldest slab is recycled: revisions that have been read since the slab was filled are moved to the
+ * front of the slab, all others are evicted. The revised time stamps are kept in the index, not in the bytes.
+ *
+ * @author Eike Stepper
+ */
+public class CDORevisionCacheOffHeap extends Lifecycle implements InternalCDORevisionCache,
+    InternalCDORevisionCache.Copying
+{
+  public static final long DEFAULT_CAPACITY = 64L * 1024L * 1024L;
+
+  public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_REVISION, CDORevisionCacheOffHeap.class);
+
+  private CDOPackageRegistry packageRegistry;
+
+  private CDORevisionFactory revisionFactory = CDORevisionFactory.DEFAULT;
+
+  private CDOListFactory listFactory = CDOListFactory.DEFAULT;
+
+  private CDOLobStore lobStore;
+
+  private long capacity = DEFAULT_CAPACITY;
+
+  private int slabSize = DEFAULT_SLAB_SIZE;
+
+  private Map<CDOID, List<Entry>> entries = new HashMap<CDOID, List<Entry>>();
+
+  private LinkedList<Slab> slabs = new LinkedList<Slab>();
+
+  private long size;
+
+  public CDORevisionCacheOffHeap()
+  {
+  }
+
+  public CDOPackageRegistry getPackageRegistry()
+  {
+    return packageRegistry;
+  }
+
+  public void setPackageRegistry(CDOPackageRegistry packageRegistry)
+  {
+    checkInactive();
+    this.packageRegistry = packageRegistry;
+  }
+
+  public CDORevisionFactory getRevisionFactory()
+  {
+    return revisionFactory;
+  }
+
+  public void setRevisionFactory(CDORevisionFactory revisionFactory)
+  {
+    checkInactive();
+    this.revisionFactory = revisionFactory;
+  }
+
+  public CDOListFactory getListFactory()
+  {
+    return listFactory;
+  }
+
+  public void setListFactory(CDOListFactory listFactory)
+  {
+    checkInactive();
+    this.listFactory = listFactory;
+  }
+
+  public CDOLobStore getLobStore()
+  {
+    return lobStore;
+  }
+
+  public void setLobStore(CDOLobStore lobStore)
+  {
+    checkInactive();
+    this.lobStore = lobStore;
+  }
+
+  /**
+   * Returns the maximum number of bytes that are allocated for the slabs of this cache.
+   */
+  public long getCapacity()
+  {
+    return capacity;
+  }
+
+  public void setCapacity(long capacity)
+  {
+    checkInactive();
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the number of bytes of one slab. Revisions that are serialized to more bytes are not cached.
+   */
+  public int getSlabSize()
+  {
+    return slabSize;
+  }
+
+  public void setSlabSize(int slabSize)
+  {
+    checkInactive();
+    this.slabSize = slabSize;
+  }
+
+  /**
+   * Returns the number of bytes that are occupied by the cached revisions.
+   */
+  public synchronized long getSize()
+  {
+    return size;
+  }
+
+  public InternalCDORevisionCache instantiate(CDORevision revision)
+  {
+    CDORevisionCacheOffHeap cache = new CDORevisionCacheOffHeap();
+    cache.packageRegistry = packageRegistry;
+    cache.revisionFactory = revisionFactory;
+    cache.listFactory = listFactory;
+    cache.lobStore = lobStore;
+    cache.capacity = capacity;
+    cache.slabSize = slabSize;
+    return cache;
+  }
+
+  public synchronized EClass getObjectType(CDOID id)
+  {
+    List<Entry> list = entries.get(id);
+    if (list != null)
+    {
+      return list.get(0).getEClass();
+    }
+
+    return null;
+  }
+
+  public InternalCDORevision getRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    Entry entry;
+    byte[] bytes;
+    synchronized (this)
+    {
+      entry = getEntry(id, branchPoint);
+      if (entry == null)
+      {
+        return null;
+      }
+
+      entry.setAccessed(true);
+      bytes = entry.read();
+    }
+
+    return toRevision(entry, bytes);
+  }
+
+  public InternalCDORevision getRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  {
+    Entry entry;
+    byte[] bytes;
+    synchronized (this)
+    {
+      entry = getEntry(id, branchVersion.getBranch(), branchVersion.getVersion());
+      if (entry == null)
+      {
+        return null;
+      }
+
+      entry.setAccessed(true);
+      bytes = entry.read();
+    }
+
+    return toRevision(entry, bytes);
+  }
+
+  public List<CDORevision> getCurrentRevisions()
+  {
+    List<CDORevision> currentRevisions = new ArrayList<CDORevision>();
+    for (Entry entry : getEntries(null, CDORevision.UNSPECIFIED_DATE))
+    {
+      currentRevisions.add(toRevision(entry, entry.getBytes()));
+    }
+
+    return currentRevisions;
+  }
+
+  public Map<CDOBranch, List<CDORevision>> getAllRevisions()
+  {
+    Map<CDOBranch, List<CDORevision>> result = new HashMap<CDOBranch, List<CDORevision>>();
+    for (Entry entry : getEntries(null, CDOBranchPoint.INVALID_DATE))
+    {
+      CDOBranch branch = entry.getBranch();
+      List<CDORevision> list = result.get(branch);
+      if (list == null)
+      {
+        list = new ArrayList<CDORevision>(1);
+        result.put(branch, list);
+      }
+
+      list.add(toRevision(entry, entry.getBytes()));
+    }
+
+    return result;
+  }
+
+  public List<CDORevision> getRevisions(CDOBranchPoint branchPoint)
+  {
+    List<CDORevision> result = new ArrayList<CDORevision>();
+    for (Entry entry : getEntries(branchPoint.getBranch(), branchPoint.getTimeStamp()))
+    {
+      result.add(toRevision(entry, entry.getBytes()));
+    }
+
+    return result;
+  }
+
+  public void addRevision(CDORevision revision)
+  {
+    CheckUtil.checkArg(revision, "revision");
+    if (revision instanceof PointerCDORevision)
+    {
+      return;
+    }
+
+    CDOID id = revision.getID();
+    CDOBranch branch = revision.getBranch();
+    int version = revision.getVersion();
+
+    synchronized (this)
+    {
+      revisePreviousVersions(revision);
+
+      Entry entry = getEntry(id, branch, version);
+      if (entry != null)
+      {
+        entry.setRevised(revision.getRevised());
+        return;
+      }
+    }
+
+    if (revision instanceof SyntheticCDORevision)
+    {
+      return;
+    }
+
+    byte[] bytes = toBytes((InternalCDORevision)revision);
+    if (bytes == null || bytes.length > slabSize)
+    {
+      return;
+    }
+
+    List<Entry> evictedEntries = new ArrayList<Entry>();
+    synchronized (this)
+    {
+      if (getEntry(id, branch, version) != null)
+      {
+        return;
+      }
+
+      Slab slab = getSlab(bytes.length, evictedEntries);
+      if (slab != null)
+      {
+        Entry entry = new Entry(revision);
+        slab.write(entry, bytes);
+        size += bytes.length;
+
+        List<Entry> list = entries.get(id);
+        if (list == null)
+        {
+          list = new ArrayList<Entry>(1);
+          entries.put(id, list);
+        }
+
+        list.add(entry);
+      }
+    }
+
+    fireEvictionEvents(evictedEntries);
+  }
+
+  public synchronized InternalCDORevision removeRevision(CDOID id, CDOBranchVersion branchVersion)
+  {
+    Entry entry = getEntry(id, branchVersion.getBranch(), branchVersion.getVersion());
+    if (entry != null)
+    {
+      removeEntry(entry);
+    }
+
+    return null;
+  }
+
+  public synchronized void reviseRevision(CDORevision revision)
+  {
+    Entry entry = getEntry(revision.getID(), revision.getBranch(), revision.getVersion());
+    if (entry != null)
+    {
+      entry.setRevised(revision.getRevised());
+    }
+  }
+
+  public synchronized void clear()
+  {
+    entries.clear();
+    slabs.clear();
+    size = 0L;
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return MessageFormat.format("CDORevisionCacheOffHeap[objects={0}, size={1}, slabs={2}]", entries.size(), size,
+        slabs.size());
+  }
+
+  @Override
+  protected void doBeforeActivate() throws Exception
+  {
+    super.doBeforeActivate();
+    checkState(packageRegistry, "packageRegistry"); //$NON-NLS-1$
+    checkState(revisionFactory, "revisionFactory"); //$NON-NLS-1$
+    checkState(listFactory, "listFactory"); //$NON-NLS-1$
+    checkState(slabSize > 0, "slabSize"); //$NON-NLS-1$
+    checkState(capacity >= slabSize, "capacity"); //$NON-NLS-1$
+  }
+
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    clear();
+    super.doDeactivate();
+  }
+
+  private Entry getEntry(CDOID id, CDOBranch branch, int version)
+  {
+    List<Entry> list = entries.get(id);
+    if (list != null)
+    {
+      for (Entry entry : list)
+      {
+        if (entry.getVersion() == version && entry.getBranch().equals(branch))
+        {
+          return entry;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private Entry getEntry(CDOID id, CDOBranchPoint branchPoint)
+  {
+    List<Entry> list = entries.get(id);
+    if (list != null)
+    {
+      CDOBranch branch = branchPoint.getBranch();
+      long timeStamp = branchPoint.getTimeStamp();
+      for (Entry entry : list)
+      {
+        if (entry.getBranch().equals(branch) && entry.isValid(timeStamp))
+        {
+          return entry;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the entries of the given branch, or of all branches if <code>null</code>, that are valid at the given time
+   * stamp, or all entries if the time stamp is {@link CDOBranchPoint#INVALID_DATE}. The bytes of the returned entries
+   * are copied, so they can be rehydrated without holding the lock of this cache.
+   */
+  private synchronized List<Entry> getEntries(CDOBranch branch, long timeStamp)
+  {
+    List<Entry> result = new ArrayList<Entry>();
+    for (List<Entry> list : entries.values())
+    {
+      for (Entry entry : list)
+      {
+        if (branch != null && !entry.getBranch().equals(branch))
+        {
+          continue;
+        }
+
+        if (timeStamp == CDOBranchPoint.INVALID_DATE || entry.isValid(timeStamp))
+        {
+          Entry copy = new Entry(entry);
+          copy.setBytes(entry.read());
+          result.add(copy);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private void revisePreviousVersions(CDORevision revision)
+  {
+    List<Entry> list = entries.get(revision.getID());
+    if (list != null)
+    {
+      CDOBranch branch = revision.getBranch();
+      long timeStamp = revision.getTimeStamp();
+      for (Entry entry : list)
+      {
+        if (entry.getBranch().equals(branch) && entry.getRevised() == CDORevision.UNSPECIFIED_DATE
+            && entry.getTimeStamp() < timeStamp)
+        {
+          entry.setRevised(timeStamp - 1);
+        }
+      }
+    }
+  }
+
+  private void removeEntry(Entry entry)
+  {
+    CDOID id = entry.getID();
+    List<Entry> list = entries.get(id);
+    if (list != null && list.remove(entry) && list.isEmpty())
+    {
+      entries.remove(id);
+    }
+
+    size -= entry.getLength();
+    entry.setSlab(null);
+  }
+
+  /**
+   * Returns a slab with at least the given number of free bytes. If the capacity is exhausted the oldest slabs are
+   * recycled until one of them has enough free bytes. The accessed flags are reset while a slab is recycled, so two
+   * rounds over all slabs are enough to free a whole slab.
+   */
+  private Slab getSlab(int length, List<Entry> evictedEntries)
+  {
+    if (!slabs.isEmpty())
+    {
+      Slab slab = slabs.getLast();
+      if (slab.getFree() >= length)
+      {
+        return slab;
+      }
+    }
+
+    if (slabs.size() < Math.max(1L, capacity / slabSize))
+    {
+      Slab slab = new Slab(ByteBuffer.allocateDirect(slabSize));
+      slabs.addLast(slab);
+      return slab;
+    }
+
+    for (int i = 2 * slabs.size(); i > 0; --i)
+    {
+      Slab slab = slabs.removeFirst();
+      recycle(slab, evictedEntries);
+      slabs.addLast(slab);
+
+      if (slab.getFree() >= length)
+      {
+        return slab;
+      }
+    }
+
+    return null;
+  }
+
+  private void recycle(Slab slab, List<Entry> evictedEntries)
+  {
+    List<Entry> slabEntries = slab.reset();
+    for (Entry entry : slabEntries)
+    {
+      if (entry.getSlab() != slab)
+      {
+        // Already removed
+        continue;
+      }
+
+      if (entry.isAccessed())
+      {
+        // Second chance: Move the bytes to the front of the slab
+        slab.write(entry, entry.read());
+        entry.setAccessed(false);
+      }
+      else
+      {
+        removeEntry(entry);
+        evictedEntries.add(entry);
+      }
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Recycled slab: {0} kept, {1} evicted", //$NON-NLS-1$
+          slab.getEntries().size(), evictedEntries.size());
+    }
+  }
+
+  private void fireEvictionEvents(List<Entry> evictedEntries)
+  {
+    if (!evictedEntries.isEmpty())
+    {
+      IListener[] listeners = getListeners();
+      if (listeners != null)
+      {
+        for (Entry entry : evictedEntries)
+        {
+          fireEvent(new EvictionEventImpl(this, entry), listeners);
+        }
+      }
+    }
+  }
+
+  private InternalCDORevision toRevision(final Entry entry, byte[] bytes)
+  {
+    try
+    {
+      ExtendedDataInputStream stream = new ExtendedDataInputStream(new ByteArrayInputStream(bytes));
+      CDODataInputImpl in = new CDODataInputImpl(stream)
+      {
+        @Override
+        public CDOBranch readCDOBranch() throws IOException
+        {
+          // The only branch in the bytes is the branch of the revision itself
+          readXInt();
+          return entry.getBranch();
+        }
+
+        @Override
+        protected CDOPackageRegistry getPackageRegistry()
+        {
+          return packageRegistry;
+        }
+
+        @Override
+        protected CDOBranchManager getBranchManager()
+        {
+          return null;
+        }
+
+        @Override
+        protected CDOCommitInfoManager getCommitInfoManager()
+        {
+          return null;
+        }
+
+        @Override
+        protected CDORevisionFactory getRevisionFactory()
+        {
+          return revisionFactory;
+        }
+
+        @Override
+        protected CDOListFactory getListFactory()
+        {
+          return listFactory;
+        }
+
+        @Override
+        protected CDOLobStore getLobStore()
+        {
+          return lobStore;
+        }
+      };
+
+      InternalCDORevision revision = (InternalCDORevision)in.readCDORevision();
+      revision.setRevised(entry.getRevised());
+      return revision;
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+  }
+
+  private byte[] toBytes(InternalCDORevision revision)
+  {
+    try
+    {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      CDODataOutputImpl out = new CDODataOutputImpl(new ExtendedDataOutputStream(bytes))
+      {
+        @Override
+        public CDOPackageRegistry getPackageRegistry()
+        {
+          return packageRegistry;
+        }
+
+        @Override
+        public CDOIDProvider getIDProvider()
+        {
+          // Cached revisions reference other objects by their IDs only
+          return CDOIDProvider.NOOP;
+        }
+      };
+
+      out.writeCDORevision(revision, CDORevision.UNCHUNKED);
+      return bytes.toByteArray();
+    }
+    catch (Exception ex)
+    {
+      // Revisions that can not be serialized, e.g. because of EObject values, are just not cached
+      if (TRACER.isEnabled())
+      {
+        TRACER.trace("Not caching " + revision, ex); //$NON-NLS-1$
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class Entry implements CDORevisionKey
+  {
+    private CDOID id;
+
+    private CDOBranch branch;
+
+    private int version;
+
+    private long timeStamp;
+
+    private long revised;
+
+    private EClass eClass;
+
+    private Slab slab;
+
+    private int offset;
+
+    private int length;
+
+    private boolean accessed;
+
+    private byte[] bytes;
+
+    public Entry(CDORevision revision)
+    {
+      id = revision.getID();
+      branch = revision.getBranch();
+      version = revision.getVersion();
+      timeStamp = revision.getTimeStamp();
+      revised = revision.getRevised();
+      eClass = revision.getEClass();
+    }
+
+    public Entry(Entry source)
+    {
+      id = source.id;
+      branch = source.branch;
+      version = source.version;
+      timeStamp = source.timeStamp;
+      revised = source.revised;
+      eClass = source.eClass;
+    }
+
+    public CDOID getID()
+    {
+      return id;
+    }
+
+    public CDOBranch getBranch()
+    {
+      return branch;
+    }
+
+    public int getVersion()
+    {
+      return version;
+    }
+
+    public long getTimeStamp()
+    {
+      return timeStamp;
+    }
+
+    public long getRevised()
+    {
+      return revised;
+    }
+
+    public void setRevised(long revised)
+    {
+      this.revised = revised;
+    }
+
+    public EClass getEClass()
+    {
+      return eClass;
+    }
+
+    public Slab getSlab()
+    {
+      return slab;
+    }
+
+    public void setSlab(Slab slab)
+    {
+      this.slab = slab;
+    }
+
+    public int getLength()
+    {
+      return length;
+    }
+
+    public boolean isAccessed()
+    {
+      return accessed;
+    }
+
+    public void setAccessed(boolean accessed)
+    {
+      this.accessed = accessed;
+    }
+
+    public byte[] getBytes()
+    {
+      return bytes;
+    }
+
+    public void setBytes(byte[] bytes)
+    {
+      this.bytes = bytes;
+    }
+
+    public boolean isValid(long timeStamp)
+    {
+      if (timeStamp == CDORevision.UNSPECIFIED_DATE)
+      {
+        return revised == CDORevision.UNSPECIFIED_DATE;
+      }
+
+      return this.timeStamp <= timeStamp && (revised == CDORevision.UNSPECIFIED_DATE || timeStamp <= revised);
+    }
+
+    public byte[] read()
+    {
+      byte[] result = new byte[length];
+      ByteBuffer buffer = slab.getBuffer().duplicate();
+      buffer.position(offset);
+      buffer.get(result);
+      return result;
+    }
+
+    public void write(Slab slab, int offset, byte[] bytes)
+    {
+      this.slab = slab;
+      this.offset = offset;
+      length = bytes.length;
+
+      ByteBuffer buffer = slab.getBuffer().duplicate();
+      buffer.position(offset);
+      buffer.put(bytes);
+    }
+
+    @Override
+    public String toString()
+    {
+      return MessageFormat.format("{0}:{1}v{2}", id, branch.getID(), version);
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class Slab
+  {
+    private ByteBuffer buffer;
+
+    private int position;
+
+    private List<Entry> entries = new ArrayList<Entry>();
+
+    public Slab(ByteBuffer buffer)
+    {
+      this.buffer = buffer;
+    }
+
+    public ByteBuffer getBuffer()
+    {
+      return buffer;
+    }
+
+    public List<Entry> getEntries()
+    {
+      return entries;
+    }
+
+    public int getFree()
+    {
+      return buffer.capacity() - position;
+    }
+
+    public void write(Entry entry, byte[] bytes)
+    {
+      entry.write(this, position, bytes);
+      entries.add(entry);
+      position += bytes.length;
+    }
+
+    /**
+     * Empties this slab and returns the entries that were written to it, in the order of their offsets.
+     */
+    public List<Entry> reset()
+    {
+      List<Entry> result = entries;
+      entries = new ArrayList<Entry>();
+      position = 0;
+      return result;
+    }
+  }
+}
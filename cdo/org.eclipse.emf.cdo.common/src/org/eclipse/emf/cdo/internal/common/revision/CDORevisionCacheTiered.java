@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
+import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+
+import org.eclipse.net4j.util.lifecycle.Lifecycle;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link InternalCDORevisionCache revision cache} that combines a heap cache with a
+ * {@link CDORevisionCacheOffHeap second-level cache} below it.
+ * <p>
+ * Revisions are added to both levels, so the second level still has the bytes of a revision after the garbage collector
+ * has evicted it from the heap cache. A revision that is found in the second level only is rehydrated and added to the
+ * heap cache again.
+ *
+ * @author Eike Stepper
+ */
+public class CDORevisionCacheTiered extends Lifecycle implements InternalCDORevisionCache,
+    InternalCDORevisionCache.Copying
+{
+  private InternalCDORevisionCache heapCache;
+
+  private CDORevisionCacheOffHeap offHeapCache;
+
+  public CDORevisionCacheTiered(InternalCDORevisionCache heapCache, CDORevisionCacheOffHeap offHeapCache)
+  {
+    this.heapCache = heapCache;
+    this.offHeapCache = offHeapCache;
+  }
+
+  public InternalCDORevisionCache getHeapCache()
+  {
+    return heapCache;
+  }
+
+  public CDORevisionCacheOffHeap getOffHeapCache()
+  {
+    return offHeapCache;
+  }
+
+  public InternalCDORevisionCache instantiate(CDORevision revision)
+  {
+    return new CDORevisionCacheTiered(heapCache.instantiate(revision),
+        (CDORevisionCacheOffHeap)offHeapCache.instantiate(revision));
+  }
+
+  public EClass getObjectType(CDOID id)
+  {
+    EClass type = heapCache.getObjectType(id);
+    if (type == null)
+    {
+      type = offHeapCache.getObjectType(id);
+    }
+
+    return type;
+  }
+
+  public InternalCDORevision getRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    InternalCDORevision revision = (InternalCDORevision)heapCache.getRevision(id, branchPoint);
+    if (revision == null)
+    {
+      revision = promote(offHeapCache.getRevision(id, branchPoint));
+    }
+
+    return revision;
+  }
+
+  public InternalCDORevision getRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  {
+    InternalCDORevision revision = (InternalCDORevision)heapCache.getRevisionByVersion(id, branchVersion);
+    if (revision == null)
+    {
+      revision = promote(offHeapCache.getRevisionByVersion(id, branchVersion));
+    }
+
+    return revision;
+  }
+
+  public List<CDORevision> getCurrentRevisions()
+  {
+    return merge(heapCache.getCurrentRevisions(), offHeapCache.getCurrentRevisions());
+  }
+
+  public Map<CDOBranch, List<CDORevision>> getAllRevisions()
+  {
+    Map<CDOBranch, List<CDORevision>> result = new HashMap<CDOBranch, List<CDORevision>>(heapCache.getAllRevisions());
+    for (Map.Entry<CDOBranch, List<CDORevision>> entry : offHeapCache.getAllRevisions().entrySet())
+    {
+      CDOBranch branch = entry.getKey();
+      List<CDORevision> revisions = result.get(branch);
+      if (revisions == null)
+      {
+        result.put(branch, entry.getValue());
+      }
+      else
+      {
+        result.put(branch, merge(revisions, entry.getValue()));
+      }
+    }
+
+    return result;
+  }
+
+  public List<CDORevision> getRevisions(CDOBranchPoint branchPoint)
+  {
+    return merge(heapCache.getRevisions(branchPoint), offHeapCache.getRevisions(branchPoint));
+  }
+
+  public void addRevision(CDORevision revision)
+  {
+    heapCache.addRevision(revision);
+    offHeapCache.addRevision(revision);
+  }
+
+  public InternalCDORevision removeRevision(CDOID id, CDOBranchVersion branchVersion)
+  {
+    InternalCDORevision revision = (InternalCDORevision)heapCache.removeRevision(id, branchVersion);
+    offHeapCache.removeRevision(id, branchVersion);
+    return revision;
+  }
+
+  public void reviseRevision(CDORevision revision)
+  {
+    if (heapCache instanceof InternalCDORevisionCache.Copying)
+    {
+      ((InternalCDORevisionCache.Copying)heapCache).reviseRevision(revision);
+    }
+
+    offHeapCache.reviseRevision(revision);
+  }
+
+  public void clear()
+  {
+    heapCache.clear();
+    offHeapCache.clear();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "CDORevisionCacheTiered[" + heapCache + ", " + offHeapCache + "]";
+  }
+
+  @Override
+  protected void doActivate() throws Exception
+  {
+    super.doActivate();
+    LifecycleUtil.activate(heapCache);
+    LifecycleUtil.activate(offHeapCache);
+  }
+
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    LifecycleUtil.deactivate(offHeapCache);
+    LifecycleUtil.deactivate(heapCache);
+    super.doDeactivate();
+  }
+
+  /**
+   * Adds a revision that has been rehydrated from the second level to the heap cache. If the heap cache already has the
+   * same version, that one is returned; if it has not been returned by the heap cache lookup it is not valid for the
+   * looked up branch point, so <code>null</code> is returned.
+   */
+  private InternalCDORevision promote(InternalCDORevision revision)
+  {
+    if (revision == null)
+    {
+      return null;
+    }
+
+    CDOID id = revision.getID();
+    CDOBranchVersion branchVersion = revision.getBranch().getVersion(revision.getVersion());
+    if (heapCache.getRevisionByVersion(id, branchVersion) != null)
+    {
+      return null;
+    }
+
+    heapCache.addRevision(revision);
+    InternalCDORevision heapRevision = (InternalCDORevision)heapCache.getRevisionByVersion(id, branchVersion);
+    return heapRevision != null ? heapRevision : revision;
+  }
+
+  private static List<CDORevision> merge(List<CDORevision> heapRevisions, List<CDORevision> offHeapRevisions)
+  {
+    Set<CDORevisionKey> keys = new HashSet<CDORevisionKey>();
+    for (CDORevision revision : heapRevisions)
+    {
+      keys.add(CDORevisionUtil.copyRevisionKey(revision));
+    }
+
+    List<CDORevision> result = new ArrayList<CDORevision>(heapRevisions);
+    for (CDORevision revision : offHeapRevisions)
+    {
+      if (!keys.contains(CDORevisionUtil.copyRevisionKey(revision)))
+      {
+        result.add(revision);
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision;
+
+import org.eclipse.emf.cdo.common.model.CDOModelUtil;
+import org.eclipse.emf.cdo.common.model.CDOType;
+import org.eclipse.emf.cdo.common.revision.CDORevisionData;
+import org.eclipse.emf.cdo.spi.common.revision.BaseCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDOList;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * A {@link BaseCDORevision revision} that stores the values of single-valued primitive attributes unboxed in packed
+ * <code>int[]</code> and <code>long[]</code> regions. Only references, strings, lists and other object values are kept
+ * in an <code>Object[]</code>. The unset and {@link CDORevisionData#NIL nil} states of the primitive values are kept in
+ * a bit set that is appended to the <code>int[]</code> region.
+ * <p>
+ * The assignment of features to regions and slots is computed once per {@link EClass} and shared by all revisions of
+ * that class, see {@link Layout}.
+ *
+ * @author Eike Stepper
+ */
+public class CDORevisionCompactImpl extends BaseCDORevision
+{
+  private static final int[] NO_INTS = {};
+
+  private static final long[] NO_LONGS = {};
+
+  private static final Object[] NO_OBJECTS = {};
+
+  private Layout layout;
+
+  private int[] ints;
+
+  private long[] longs;
+
+  private Object[] objects;
+
+  public CDORevisionCompactImpl(EClass eClass)
+  {
+    super(eClass);
+  }
+
+  protected CDORevisionCompactImpl(CDORevisionCompactImpl source)
+  {
+    super(source);
+    layout = source.layout;
+    ints = source.ints.length == 0 ? NO_INTS : source.ints.clone();
+    longs = source.longs.length == 0 ? NO_LONGS : source.longs.clone();
+    objects = source.objects.length == 0 ? NO_OBJECTS : new Object[source.objects.length];
+
+    EStructuralFeature[] features = layout.getFeatures();
+    for (int i = 0; i < features.length; i++)
+    {
+      if (layout.getKind(i) == Layout.OBJECT)
+      {
+        EStructuralFeature feature = features[i];
+        int slot = layout.getSlot(i);
+        Object value = source.objects[slot];
+        if (feature.isMany())
+        {
+          if (value != null && value != CDORevisionData.NIL)
+          {
+            value = copyList((InternalCDOList)value, feature.getEType());
+          }
+        }
+        else
+        {
+          CDOType type = CDOModelUtil.getType(feature);
+          value = type.copyValue(value);
+        }
+
+        objects[slot] = value;
+      }
+    }
+  }
+
+  public InternalCDORevision copy()
+  {
+    return new CDORevisionCompactImpl(this);
+  }
+
+  @Override
+  protected void initValues(EStructuralFeature[] allPersistentFeatures)
+  {
+    layout = Layout.get(getEClass());
+    ints = layout.getIntsLength() == 0 ? NO_INTS : new int[layout.getIntsLength()];
+    longs = layout.getLongsLength() == 0 ? NO_LONGS : new long[layout.getLongsLength()];
+    objects = layout.getObjectsLength() == 0 ? NO_OBJECTS : new Object[layout.getObjectsLength()];
+  }
+
+  @Override
+  protected Object doGetValue(int featureIndex)
+  {
+    byte kind = layout.getKind(featureIndex);
+    int slot = layout.getSlot(featureIndex);
+    if (kind == Layout.OBJECT)
+    {
+      return objects[slot];
+    }
+
+    int bit = layout.getStateBit(featureIndex);
+    if (!isBitSet(bit))
+    {
+      return null;
+    }
+
+    if (isBitSet(bit + 1))
+    {
+      return CDORevisionData.NIL;
+    }
+
+    switch (kind)
+    {
+    case Layout.INT:
+      return ints[slot];
+
+    case Layout.LONG:
+      return longs[slot];
+
+    case Layout.FLOAT:
+      return Float.intBitsToFloat(ints[slot]);
+
+    case Layout.DOUBLE:
+      return Double.longBitsToDouble(longs[slot]);
+
+    case Layout.BOOLEAN:
+      return ints[slot] != 0;
+
+    case Layout.SHORT:
+      return (short)ints[slot];
+
+    case Layout.BYTE:
+      return (byte)ints[slot];
+
+    case Layout.CHAR:
+      return (char)ints[slot];
+
+    default:
+      throw new IllegalStateException("Invalid kind: " + kind); //$NON-NLS-1$
+    }
+  }
+
+  @Override
+  protected void doSetValue(int featureIndex, Object value)
+  {
+    byte kind = layout.getKind(featureIndex);
+    int slot = layout.getSlot(featureIndex);
+    if (kind == Layout.OBJECT)
+    {
+      objects[slot] = value;
+      return;
+    }
+
+    int bit = layout.getStateBit(featureIndex);
+    if (value == null)
+    {
+      setBit(bit, false);
+      setBit(bit + 1, false);
+      setPrimitive(kind, slot, 0L);
+      return;
+    }
+
+    setBit(bit, true);
+    if (value == CDORevisionData.NIL)
+    {
+      setBit(bit + 1, true);
+      setPrimitive(kind, slot, 0L);
+      return;
+    }
+
+    setBit(bit + 1, false);
+    switch (kind)
+    {
+    case Layout.INT:
+      ints[slot] = ((Number)value).intValue();
+      break;
+
+    case Layout.LONG:
+      longs[slot] = ((Number)value).longValue();
+      break;
+
+    case Layout.FLOAT:
+      ints[slot] = Float.floatToRawIntBits(((Number)value).floatValue());
+      break;
+
+    case Layout.DOUBLE:
+      longs[slot] = Double.doubleToRawLongBits(((Number)value).doubleValue());
+      break;
+
+    case Layout.BOOLEAN:
+      ints[slot] = (Boolean)value ? 1 : 0;
+      break;
+
+    case Layout.SHORT:
+      ints[slot] = ((Number)value).shortValue();
+      break;
+
+    case Layout.BYTE:
+      ints[slot] = ((Number)value).byteValue();
+      break;
+
+    case Layout.CHAR:
+      ints[slot] = (Character)value;
+      break;
+
+    default:
+      throw new IllegalStateException("Invalid kind: " + kind); //$NON-NLS-1$
+    }
+  }
+
+  private void setPrimitive(byte kind, int slot, long bits)
+  {
+    if (kind == Layout.LONG || kind == Layout.DOUBLE)
+    {
+      longs[slot] = bits;
+    }
+    else
+    {
+      ints[slot] = (int)bits;
+    }
+  }
+
+  private boolean isBitSet(int bit)
+  {
+    int word = layout.getStateOffset() + (bit >>> 5);
+    return (ints[word] & 1 << (bit & 31)) != 0;
+  }
+
+  private void setBit(int bit, boolean on)
+  {
+    int word = layout.getStateOffset() + (bit >>> 5);
+    if (on)
+    {
+      ints[word] |= 1 << (bit & 31);
+    }
+    else
+    {
+      ints[word] &= ~(1 << (bit & 31));
+    }
+  }
+
+  /**
+   * Describes how the persistent features of an {@link EClass} are mapped to the value regions of a
+   * {@link CDORevisionCompactImpl}. The layout is attached to its {@link EClass} as an adapter so that it is computed
+   * only once.
+   *
+   * @author Eike Stepper
+   */
+  public static final class Layout extends AdapterImpl
+  {
+    public static final byte OBJECT = 0;
+
+    public static final byte INT = 1;
+
+    public static final byte LONG = 2;
+
+    public static final byte FLOAT = 3;
+
+    public static final byte DOUBLE = 4;
+
+    public static final byte BOOLEAN = 5;
+
+    public static final byte SHORT = 6;
+
+    public static final byte BYTE = 7;
+
+    public static final byte CHAR = 8;
+
+    private EStructuralFeature[] features;
+
+    private byte[] kinds;
+
+    private int[] slots;
+
+    /**
+     * Index of the first of the two state bits (set, nil) per primitive feature, or -1 for object features.
+     */
+    private int[] stateBits;
+
+    private int stateOffset;
+
+    private int intsLength;
+
+    private int longsLength;
+
+    private int objectsLength;
+
+    private Layout(EClass eClass)
+    {
+      features = CDOModelUtil.getAllPersistentFeatures(eClass);
+      kinds = new byte[features.length];
+      slots = new int[features.length];
+      stateBits = new int[features.length];
+
+      int primitives = 0;
+      for (int i = 0; i < features.length; i++)
+      {
+        byte kind = getKind(features[i]);
+        kinds[i] = kind;
+
+        switch (kind)
+        {
+        case OBJECT:
+          slots[i] = objectsLength++;
+          stateBits[i] = -1;
+          continue;
+
+        case LONG:
+        case DOUBLE:
+          slots[i] = longsLength++;
+          break;
+
+        default:
+          slots[i] = intsLength++;
+          break;
+        }
+
+        stateBits[i] = 2 * primitives++;
+      }
+
+      stateOffset = intsLength;
+      intsLength += (2 * primitives + 31) >>> 5;
+    }
+
+    public EStructuralFeature[] getFeatures()
+    {
+      return features;
+    }
+
+    public byte getKind(int featureIndex)
+    {
+      return kinds[featureIndex];
+    }
+
+    public int getSlot(int featureIndex)
+    {
+      return slots[featureIndex];
+    }
+
+    public int getStateBit(int featureIndex)
+    {
+      return stateBits[featureIndex];
+    }
+
+    public int getStateOffset()
+    {
+      return stateOffset;
+    }
+
+    public int getIntsLength()
+    {
+      return intsLength;
+    }
+
+    public int getLongsLength()
+    {
+      return longsLength;
+    }
+
+    public int getObjectsLength()
+    {
+      return objectsLength;
+    }
+
+    @Override
+    public boolean isAdapterForType(Object type)
+    {
+      return type == Layout.class;
+    }
+
+    public static Layout get(EClass eClass)
+    {
+      synchronized (eClass)
+      {
+        EList<Adapter> adapters = eClass.eAdapters();
+        Layout layout = (Layout)EcoreUtil.getAdapter(adapters, Layout.class);
+        if (layout == null)
+        {
+          layout = new Layout(eClass);
+          adapters.add(layout);
+        }
+
+        return layout;
+      }
+    }
+
+    private static byte getKind(EStructuralFeature feature)
+    {
+      if (feature.isMany() || !(feature instanceof EAttribute))
+      {
+        return OBJECT;
+      }
+
+      Class<?> instanceClass = feature.getEType().getInstanceClass();
+      if (instanceClass == int.class)
+      {
+        return INT;
+      }
+
+      if (instanceClass == long.class)
+      {
+        return LONG;
+      }
+
+      if (instanceClass == float.class)
+      {
+        return FLOAT;
+      }
+
+      if (instanceClass == double.class)
+      {
+        return DOUBLE;
+      }
+
+      if (instanceClass == boolean.class)
+      {
+        return BOOLEAN;
+      }
+
+      if (instanceClass == short.class)
+      {
+        return SHORT;
+      }
+
+      if (instanceClass == byte.class)
+      {
+        return BYTE;
+      }
+
+      if (instanceClass == char.class)
+      {
+        return CHAR;
+      }
+
+      return OBJECT;
+    }
+  }
+}
@@ -50,7 +50,7 @@ public class CDORevisionImpl extends BaseCDORevision
         InternalCDOList sourceList = (InternalCDOList)source.values[i];
         if (sourceList != null)
         {
-          setValue(i, sourceList.clone(classifier));
+          setValue(i, copyList(sourceList, classifier));
         }
       }
       else
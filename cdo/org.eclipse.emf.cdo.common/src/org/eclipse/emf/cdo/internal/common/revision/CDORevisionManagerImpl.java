@@ -222,6 +222,10 @@ public class CDORevisionManagerImpl extends Lifecycle implements InternalCDORevi
         }
 
         revision.setRevised(timeStamp - 1);
+        if (cache instanceof InternalCDORevisionCache.Copying)
+        {
+          ((InternalCDORevisionCache.Copying)cache).reviseRevision(revision);
+        }
       }
     }
     finally
@@ -442,7 +446,8 @@ public class CDORevisionManagerImpl extends Lifecycle implements InternalCDORevi
             {
               // Remove last revision from cache, which is not revised
               InternalCDORevision cachedLatestRevision = getCachedRevision(revision.getID(), revision);
-              if (cachedLatestRevision != null && !cachedLatestRevision.isHistorical())
+              if (cachedLatestRevision != null && cachedLatestRevision != revision
+                  && !cachedLatestRevision.isHistorical())
               {
                 // Found revision is stale.
                 // We cannot revise it now because of lack information, thus remove it from the cache
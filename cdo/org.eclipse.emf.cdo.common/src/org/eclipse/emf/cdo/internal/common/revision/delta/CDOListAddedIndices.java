@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision.delta;
+
+import org.eclipse.emf.cdo.common.revision.delta.CDOFeatureDelta;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDOFeatureDelta.ListTargetAdding;
+
+import java.util.Map;
+
+/**
+ * The current list indexes of the elements that the {@link ListTargetAdding adding} deltas of a
+ * {@link CDOListFeatureDeltaImpl list feature delta} have put into the list.
+ * <p>
+ * The indexes are kept in a randomized balanced tree that is ordered by index, with a pending offset per subtree. An
+ * add, remove or move shifts all indexes behind it by splitting off the affected subtree, so each of them costs
+ * <code>O(log n)</code> for <code>n</code> added elements instead of visiting every added element. Several deltas can
+ * have the same index, e.g., if an element is set after it has been added; they are kept in the order in which they
+ * were {@link #put(ListTargetAdding, int) put}.
+ *
+ * @author Eike Stepper
+ */
+final class CDOListAddedIndices
+{
+  private Entry root;
+
+  private int seed = 0x2545F491;
+
+  /**
+   * The left result of the last {@link #split(Entry, int) split}.
+   */
+  private Entry splitLeft;
+
+  /**
+   * The right result of the last {@link #split(Entry, int) split}.
+   */
+  private Entry splitRight;
+
+  public int size()
+  {
+    return size(root);
+  }
+
+  /**
+   * Returns the delta that has put the element at the given index into the list, or <code>null</code> if it hasn't
+   * been added by a delta. If several deltas have the same index the one that has been put first is returned.
+   */
+  public ListTargetAdding get(int index)
+  {
+    Entry result = null;
+    Entry entry = root;
+    while (entry != null)
+    {
+      entry.push();
+      if (entry.index >= index)
+      {
+        result = entry;
+        entry = entry.left;
+      }
+      else
+      {
+        entry = entry.right;
+      }
+    }
+
+    return result != null && result.index == index ? result.source : null;
+  }
+
+  /**
+   * Records that the given delta has put an element at the given index, after the indexes have been adjusted to the
+   * delta.
+   */
+  public void put(ListTargetAdding source, int index)
+  {
+    split(root, index + 1);
+    Entry right = splitRight;
+    root = merge(merge(splitLeft, new Entry(source, index, nextPriority())), right);
+  }
+
+  /**
+   * Adjusts the indexes to an element that has been added at the given index.
+   */
+  public void add(int index)
+  {
+    split(root, index);
+    Entry left = splitLeft;
+    root = merge(left, shift(splitRight, 1));
+  }
+
+  /**
+   * Adjusts the indexes to the element that has been removed from the given index. If that element has been added by a
+   * delta it is forgotten.
+   */
+  public void remove(int index)
+  {
+    extract(index);
+  }
+
+  /**
+   * Adjusts the indexes to the element that has been moved from the given old position to the given new position.
+   */
+  public void move(int newPosition, int oldPosition)
+  {
+    if (newPosition != oldPosition)
+    {
+      Entry moved = extract(oldPosition);
+      split(root, newPosition);
+      Entry left = splitLeft;
+      Entry right = shift(splitRight, 1);
+      root = merge(merge(left, shift(moved, newPosition - oldPosition)), right);
+    }
+  }
+
+  /**
+   * Fills the given arrays with the deltas and their indexes, ordered by index and starting at array index
+   * <code>1</code>, and stores the number of deltas in the first element of the indices array.
+   */
+  public void toArrays(ListTargetAdding[] sources, int[] indices)
+  {
+    indices[0] = collect(root, sources, indices, 1) - 1;
+  }
+
+  /**
+   * Returns a copy of these indexes with the deltas replaced by their copies in the given map.
+   */
+  public CDOListAddedIndices copy(Map<CDOFeatureDelta, CDOFeatureDelta> copies)
+  {
+    int size = size();
+    ListTargetAdding[] sources = new ListTargetAdding[size + 1];
+    int[] indices = new int[size + 1];
+    toArrays(sources, indices);
+
+    CDOListAddedIndices result = new CDOListAddedIndices();
+    for (int i = 1; i <= size; i++)
+    {
+      Object copy = copies.get(sources[i]);
+      result.put(copy instanceof ListTargetAdding ? (ListTargetAdding)copy : null, indices[i]);
+    }
+
+    return result;
+  }
+
+  private int collect(Entry entry, ListTargetAdding[] sources, int[] indices, int i)
+  {
+    if (entry == null)
+    {
+      return i;
+    }
+
+    entry.push();
+    i = collect(entry.left, sources, indices, i);
+    sources[i] = entry.source;
+    indices[i++] = entry.index;
+    return collect(entry.right, sources, indices, i);
+  }
+
+  /**
+   * Removes the entries with the given index from the tree, shifts the entries behind them by <code>-1</code> and
+   * returns the removed entries as a tree.
+   */
+  private Entry extract(int index)
+  {
+    split(root, index);
+    Entry left = splitLeft;
+    split(splitRight, index + 1);
+    Entry extracted = splitLeft;
+    root = merge(left, shift(splitRight, -1));
+    return extracted;
+  }
+
+  /**
+   * Splits the given tree into the entries with an index lower than the given index and the remaining ones, which are
+   * returned in {@link #splitLeft} and {@link #splitRight}.
+   */
+  private void split(Entry entry, int index)
+  {
+    if (entry == null)
+    {
+      splitLeft = null;
+      splitRight = null;
+      return;
+    }
+
+    entry.push();
+    if (entry.index < index)
+    {
+      split(entry.right, index);
+      entry.right = splitLeft;
+      entry.update();
+      splitLeft = entry;
+    }
+    else
+    {
+      split(entry.left, index);
+      entry.left = splitRight;
+      entry.update();
+      splitRight = entry;
+    }
+  }
+
+  private static Entry merge(Entry left, Entry right)
+  {
+    if (left == null)
+    {
+      return right;
+    }
+
+    if (right == null)
+    {
+      return left;
+    }
+
+    if (left.priority > right.priority)
+    {
+      left.push();
+      left.right = merge(left.right, right);
+      left.update();
+      return left;
+    }
+
+    right.push();
+    right.left = merge(left, right.left);
+    right.update();
+    return right;
+  }
+
+  private static Entry shift(Entry entry, int offset)
+  {
+    if (entry != null)
+    {
+      entry.index += offset;
+      entry.offset += offset;
+    }
+
+    return entry;
+  }
+
+  private static int size(Entry entry)
+  {
+    return entry == null ? 0 : entry.size;
+  }
+
+  private int nextPriority()
+  {
+    // Xorshift
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    return seed;
+  }
+
+  /**
+   * A node of the tree of {@link CDOListAddedIndices added indices}.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Entry
+  {
+    private ListTargetAdding source;
+
+    private int index;
+
+    /**
+     * The offset that still has to be added to the indexes of the children.
+     */
+    private int offset;
+
+    private int priority;
+
+    private Entry left;
+
+    private Entry right;
+
+    /**
+     * The number of entries in the subtree of this entry.
+     */
+    private int size = 1;
+
+    public Entry(ListTargetAdding source, int index, int priority)
+    {
+      this.source = source;
+      this.index = index;
+      this.priority = priority;
+    }
+
+    public void push()
+    {
+      if (offset != 0)
+      {
+        shift(left, offset);
+        shift(right, offset);
+        offset = 0;
+      }
+    }
+
+    public void update()
+    {
+      size = 1 + CDOListAddedIndices.size(left) + CDOListAddedIndices.size(right);
+    }
+  }
+}
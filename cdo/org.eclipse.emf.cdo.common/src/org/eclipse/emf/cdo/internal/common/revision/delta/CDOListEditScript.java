@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.common.revision.delta;
+
+import org.eclipse.emf.cdo.common.revision.CDOList;
+
+import java.util.Arrays;
+
+/**
+ * A run-length representation of the changes that a sequence of list feature deltas makes to a list.
+ * <p>
+ * The resulting list is kept as a sequence of runs, each of which is either a range of elements of the original list or
+ * a single new value. The runs are stored in a randomized balanced tree that is ordered by list index, so every add,
+ * remove, move and set costs <code>O(log r)</code> for <code>r</code> runs, no matter where in the list it happens. The
+ * original list is then rewritten in a single pass by {@link #applyTo(CDOList)}.
+ * <p>
+ * All operations return <code>false</code> without changing the script if their indexes are out of bounds.
+ *
+ * @author Eike Stepper
+ */
+final class CDOListEditScript
+{
+  private int originalSize;
+
+  private Run root;
+
+  private int seed = 0x2545F491;
+
+  /**
+   * The left result of the last {@link #split(Run, int) split}.
+   */
+  private Run splitLeft;
+
+  /**
+   * The right result of the last {@link #split(Run, int) split}.
+   */
+  private Run splitRight;
+
+  public CDOListEditScript(int originalSize)
+  {
+    this.originalSize = originalSize;
+    if (originalSize != 0)
+    {
+      root = new Run(0, originalSize, null, nextPriority());
+    }
+  }
+
+  public int size()
+  {
+    return size(root);
+  }
+
+  public boolean add(int index, Object value)
+  {
+    if (index < 0 || index > size())
+    {
+      return false;
+    }
+
+    insert(index, new Run(-1, 1, value, nextPriority()));
+    return true;
+  }
+
+  public boolean remove(int index)
+  {
+    if (index < 0 || index >= size())
+    {
+      return false;
+    }
+
+    extract(index);
+    return true;
+  }
+
+  public boolean move(int targetIndex, int sourceIndex)
+  {
+    int size = size();
+    if (sourceIndex < 0 || sourceIndex >= size || targetIndex < 0 || targetIndex >= size)
+    {
+      return false;
+    }
+
+    if (targetIndex != sourceIndex)
+    {
+      insert(targetIndex, extract(sourceIndex));
+    }
+
+    return true;
+  }
+
+  public boolean set(int index, Object value)
+  {
+    if (index < 0 || index >= size())
+    {
+      return false;
+    }
+
+    extract(index);
+    insert(index, new Run(-1, 1, value, nextPriority()));
+    return true;
+  }
+
+  /**
+   * Removes all elements, so that the script starts from an empty list.
+   */
+  public void clear()
+  {
+    originalSize = 0;
+    root = null;
+  }
+
+  /**
+   * Replaces the elements of the given list, which must still be the original list of this script, with the resulting
+   * elements of this script.
+   */
+  public void applyTo(CDOList list)
+  {
+    int size = list.size();
+    if (size != originalSize)
+    {
+      throw new IllegalStateException("originalSize=" + originalSize + ", size=" + size); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    Object[] elements = new Object[size()];
+    collect(root, list, elements, 0);
+
+    list.clear();
+    list.addAll(Arrays.asList(elements));
+  }
+
+  private int collect(Run run, CDOList list, Object[] elements, int index)
+  {
+    if (run == null)
+    {
+      return index;
+    }
+
+    index = collect(run.left, list, elements, index);
+    if (run.start == -1)
+    {
+      elements[index++] = run.value;
+    }
+    else
+    {
+      for (int i = 0; i < run.length; i++)
+      {
+        elements[index++] = list.get(run.start + i);
+      }
+    }
+
+    return collect(run.right, list, elements, index);
+  }
+
+  private void insert(int index, Run run)
+  {
+    split(root, index);
+    Run right = splitRight;
+    root = merge(merge(splitLeft, run), right);
+  }
+
+  /**
+   * Removes the element at the given index and returns the single-element run that holds it.
+   */
+  private Run extract(int index)
+  {
+    split(root, index);
+    Run left = splitLeft;
+    split(splitRight, 1);
+    Run run = splitLeft;
+    root = merge(left, splitRight);
+    return run;
+  }
+
+  /**
+   * Splits the given tree into the first <code>count</code> elements and the remaining ones, which are returned in
+   * {@link #splitLeft} and {@link #splitRight}. A run that straddles the split point is cut into two runs.
+   */
+  private void split(Run run, int count)
+  {
+    if (run == null)
+    {
+      splitLeft = null;
+      splitRight = null;
+      return;
+    }
+
+    int leftSize = size(run.left);
+    if (count <= leftSize)
+    {
+      split(run.left, count);
+      run.left = splitRight;
+      run.update();
+      splitRight = run;
+    }
+    else if (count >= leftSize + run.length)
+    {
+      split(run.right, count - leftSize - run.length);
+      run.right = splitLeft;
+      run.update();
+      splitLeft = run;
+    }
+    else
+    {
+      // Only ranges of the original list can be longer than one element
+      int offset = count - leftSize;
+      Run tail = new Run(run.start + offset, run.length - offset, null, run.priority);
+      tail.right = run.right;
+      tail.update();
+
+      run.length = offset;
+      run.right = null;
+      run.update();
+
+      splitLeft = run;
+      splitRight = tail;
+    }
+  }
+
+  private static Run merge(Run left, Run right)
+  {
+    if (left == null)
+    {
+      return right;
+    }
+
+    if (right == null)
+    {
+      return left;
+    }
+
+    if (left.priority > right.priority)
+    {
+      left.right = merge(left.right, right);
+      left.update();
+      return left;
+    }
+
+    right.left = merge(left, right.left);
+    right.update();
+    return right;
+  }
+
+  private static int size(Run run)
+  {
+    return run == null ? 0 : run.size;
+  }
+
+  private int nextPriority()
+  {
+    // Xorshift
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    return seed;
+  }
+
+  /**
+   * A node of the tree of an {@link CDOListEditScript edit script}. It stands for a range of elements of the original
+   * list or, if {@link #start} is <code>-1</code>, for a single new value.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Run
+  {
+    private int start;
+
+    private int length;
+
+    private Object value;
+
+    private int priority;
+
+    private Run left;
+
+    private Run right;
+
+    /**
+     * The number of elements in the subtree of this run.
+     */
+    private int size;
+
+    public Run(int start, int length, Object value, int priority)
+    {
+      this.start = start;
+      this.length = length;
+      this.value = value;
+      this.priority = priority;
+      size = length;
+    }
+
+    public void update()
+    {
+      size = length + CDOListEditScript.size(left) + CDOListEditScript.size(right);
+    }
+  }
+}
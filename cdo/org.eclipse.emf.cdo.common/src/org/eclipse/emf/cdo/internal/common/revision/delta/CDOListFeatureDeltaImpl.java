@@ -14,15 +14,19 @@ package org.eclipse.emf.cdo.internal.common.revision.delta;
 
 import org.eclipse.emf.cdo.common.protocol.CDODataInput;
 import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
+import org.eclipse.emf.cdo.common.revision.CDOList;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
 import org.eclipse.emf.cdo.common.revision.delta.CDOAddFeatureDelta;
+import org.eclipse.emf.cdo.common.revision.delta.CDOClearFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOFeatureDeltaVisitor;
 import org.eclipse.emf.cdo.common.revision.delta.CDOListFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOMoveFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDORemoveFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOSetFeatureDelta;
+import org.eclipse.emf.cdo.common.revision.delta.CDOUnsetFeatureDelta;
 import org.eclipse.emf.cdo.spi.common.revision.CDOReferenceAdjuster;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
 
 import org.eclipse.net4j.util.ObjectUtil;
 import org.eclipse.net4j.util.collection.Pair;
@@ -33,9 +37,7 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.util.FeatureMapUtil;
 
 import java.io.IOException;
-import java.lang.reflect.Array;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
@@ -46,13 +48,19 @@ import java.util.Map;
  */
 public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOListFeatureDelta
 {
-  private List<CDOFeatureDelta> featureDeltas = new ArrayList<CDOFeatureDelta>();
-
-  private transient int[] cachedIndices;
+  /**
+   * The number of list changes from which on they are applied through a {@link CDOListEditScript} instead of one by
+   * one.
+   */
+  private static final int EDIT_SCRIPT_THRESHOLD = 16;
 
-  private transient ListTargetAdding[] cachedSources;
+  private List<CDOFeatureDelta> featureDeltas = new ArrayList<CDOFeatureDelta>();
 
-  private transient List<CDOFeatureDelta> unprocessedFeatureDeltas;
+  /**
+   * The indexes of the elements that have been added by the list changes, or <code>null</code> if they haven't been
+   * needed yet.
+   */
+  private transient CDOListAddedIndices addedIndices;
 
   public CDOListFeatureDeltaImpl(EStructuralFeature feature)
   {
@@ -62,7 +70,7 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
   public CDOListFeatureDeltaImpl(CDODataInput in, EClass eClass) throws IOException
   {
     super(in, eClass);
-    int size = in.readInt();
+    int size = in.readXInt();
     for (int i = 0; i < size; i++)
     {
       featureDeltas.add(in.readCDOFeatureDelta(eClass));
@@ -74,7 +82,7 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
     CDOListFeatureDeltaImpl result = new CDOListFeatureDeltaImpl(getFeature());
 
     Map<CDOFeatureDelta, CDOFeatureDelta> map = null;
-    if (cachedSources != null || unprocessedFeatureDeltas != null)
+    if (addedIndices != null)
     {
       map = new HashMap<CDOFeatureDelta, CDOFeatureDelta>();
     }
@@ -89,38 +97,9 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
       }
     }
 
-    if (cachedIndices != null)
-    {
-      result.cachedIndices = copyOf(cachedIndices, cachedIndices.length);
-    }
-
-    if (cachedSources != null)
+    if (addedIndices != null)
     {
-      int length = cachedSources.length;
-      result.cachedSources = new ListTargetAdding[length];
-      for (int i = 0; i < length; i++)
-      {
-        ListTargetAdding oldElement = cachedSources[i];
-        CDOFeatureDelta newElement = map.get(oldElement);
-        if (newElement instanceof ListTargetAdding)
-        {
-          result.cachedSources[i] = (ListTargetAdding)newElement;
-        }
-      }
-    }
-
-    if (unprocessedFeatureDeltas != null)
-    {
-      int size = unprocessedFeatureDeltas.size();
-      result.unprocessedFeatureDeltas = new ArrayList<CDOFeatureDelta>(size);
-      for (CDOFeatureDelta oldDelta : unprocessedFeatureDeltas)
-      {
-        CDOFeatureDelta newDelta = map.get(oldDelta);
-        if (newDelta != null)
-        {
-          result.unprocessedFeatureDeltas.add(newDelta);
-        }
-      }
+      result.addedIndices = addedIndices.copy(map);
     }
 
     return result;
@@ -130,7 +109,7 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
   public void write(CDODataOutput out, EClass eClass) throws IOException
   {
     super.write(out, eClass);
-    out.writeInt(featureDeltas.size());
+    out.writeXInt(featureDeltas.size());
     for (CDOFeatureDelta featureDelta : featureDeltas)
     {
       out.writeCDOFeatureDelta(eClass, featureDelta);
@@ -154,62 +133,52 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
    */
   public Pair<ListTargetAdding[], int[]> reconstructAddedIndices()
   {
-    reconstructAddedIndicesWithNoCopy();
-    return new Pair<ListTargetAdding[], int[]>(copyOf(cachedSources, cachedSources.length, cachedSources.getClass()),
-        copyOf(cachedIndices, cachedIndices.length));
+    CDOListAddedIndices addedIndices = reconstructAddedIndicesWithNoCopy();
+    int size = addedIndices.size();
+    ListTargetAdding[] sources = new ListTargetAdding[size + 1];
+    int[] indices = new int[size + 1];
+    addedIndices.toArrays(sources, indices);
+    return new Pair<ListTargetAdding[], int[]>(sources, indices);
   }
 
-  private void reconstructAddedIndicesWithNoCopy()
+  private CDOListAddedIndices reconstructAddedIndicesWithNoCopy()
   {
-    // Note that cachedIndices and cachedSources are always either both null or
-    // both non-null, and in the latter case, are always of the same length.
-    // Furthermore, there can only be unprocessedFeatureDeltas if cachesIndices
-    // and cachedSources are non-null.
-
-    if (cachedIndices == null || unprocessedFeatureDeltas != null)
+    if (addedIndices == null)
     {
-      if (cachedIndices == null)
+      addedIndices = new CDOListAddedIndices();
+      for (CDOFeatureDelta featureDelta : featureDeltas)
       {
-        int initialCapacity = featureDeltas.size() + 1;
-        cachedIndices = new int[initialCapacity];
-        cachedSources = new ListTargetAdding[initialCapacity];
+        affectAddedIndices(featureDelta);
       }
-      else
-      // i.e. unprocessedFeatureDeltas != null
-      {
-        int requiredCapacity = 1 + cachedIndices[0] + unprocessedFeatureDeltas.size();
-        if (cachedIndices.length < requiredCapacity)
-        {
-          int newCapacity = Math.max(requiredCapacity, cachedIndices.length * 2);
-
-          int[] newIndices = new int[newCapacity];
-          System.arraycopy(cachedIndices, 0, newIndices, 0, cachedIndices.length);
-          cachedIndices = newIndices;
+    }
 
-          ListTargetAdding[] newSources = new ListTargetAdding[newCapacity];
-          System.arraycopy(cachedSources, 0, newSources, 0, cachedSources.length);
-          cachedSources = newSources;
-        }
-      }
+    return addedIndices;
+  }
 
-      List<CDOFeatureDelta> featureDeltasToBeProcessed = unprocessedFeatureDeltas == null ? featureDeltas
-          : unprocessedFeatureDeltas;
-      for (CDOFeatureDelta featureDelta : featureDeltasToBeProcessed)
+  private void affectAddedIndices(CDOFeatureDelta featureDelta)
+  {
+    if (featureDelta instanceof CDOAddFeatureDelta)
+    {
+      int index = ((CDOAddFeatureDelta)featureDelta).getIndex();
+      if (index != NO_INDEX)
       {
-        if (featureDelta instanceof ListIndexAffecting)
-        {
-          ListIndexAffecting affecting = (ListIndexAffecting)featureDelta;
-          affecting.affectIndices(cachedSources, cachedIndices);
-        }
-
-        if (featureDelta instanceof ListTargetAdding)
-        {
-          cachedIndices[++cachedIndices[0]] = ((ListTargetAdding)featureDelta).getIndex();
-          cachedSources[cachedIndices[0]] = (ListTargetAdding)featureDelta;
-        }
+        addedIndices.add(index);
       }
+    }
+    else if (featureDelta instanceof CDORemoveFeatureDelta)
+    {
+      addedIndices.remove(((CDORemoveFeatureDelta)featureDelta).getIndex());
+    }
+    else if (featureDelta instanceof CDOMoveFeatureDelta)
+    {
+      CDOMoveFeatureDelta delta = (CDOMoveFeatureDelta)featureDelta;
+      addedIndices.move(delta.getNewPosition(), delta.getOldPosition());
+    }
 
-      unprocessedFeatureDeltas = null;
+    if (featureDelta instanceof ListTargetAdding)
+    {
+      ListTargetAdding delta = (ListTargetAdding)featureDelta;
+      addedIndices.put(delta, delta.getIndex());
     }
   }
 
@@ -220,169 +189,155 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
         && featureDelta instanceof CDORemoveFeatureDelta)
     {
       int indexToRemove = ((CDORemoveFeatureDelta)featureDelta).getIndex();
-      reconstructAddedIndicesWithNoCopy();
+      CDOListAddedIndices addedIndices = reconstructAddedIndicesWithNoCopy();
+      ListTargetAdding delta = addedIndices.get(indexToRemove);
+
+      // Updates the added indices using CDORemoveFeatureDelta.
+      addedIndices.remove(indexToRemove);
 
-      for (int i = 1; i <= cachedIndices[0]; i++)
+      if (delta != null)
       {
-        int index = cachedIndices[i];
-        if (indexToRemove == index)
+        // The previous implementation set the value of the feature delta to CDOID.NULL. Databinding and probably
+        // others don't really like it. We now remove the ADD (or SET which seems to appear in CDOListFeatureDelta
+        // during opposite adjustment!? Why???) and patch the other feature deltas.
+        // See https://bugs.eclipse.org/bugs/show_bug.cgi?id=310574
+
+        // We use a "floating" index which is the index (in the list) of the item to remove at the time when the
+        // object was still in the list. This index evolves with the feature deltas.
+        int floatingIndex = delta.getIndex();
+
+        // We only need to process feature deltas that come after the ADD (or SET) to be removed. It's searched from
+        // the end, so that the effort is proportional to the number of feature deltas that need to be adjusted.
+        ListIterator<CDOFeatureDelta> iterator = featureDeltas.listIterator(featureDeltas.size());
+        while (iterator.hasPrevious())
         {
-          // The previous implementation set the value of the feature delta to CDOID.NULL. Databinding and probably
-          // others don't really like it. We now remove the ADD (or SET which seems to appear in CDOListFeatureDelta
-          // during opposite adjustment!? Why???) and patch the other feature deltas.
-          // See https://bugs.eclipse.org/bugs/show_bug.cgi?id=310574
-
-          ListTargetAdding delta = cachedSources[i];
+          if (iterator.previous() == delta)
+          {
+            // Found the ADD (or SET) feature delta that we need to remove. So remove it from the list and start
+            // processing the next feature deltas.
+            iterator.remove();
 
-          // We use a "floating" index which is the index (in the list) of the item to remove at the time when the
-          // object was still in the list. This index evolves with the feature deltas.
-          int floatingIndex = delta.getIndex();
+            // SET
+            if (delta instanceof CDOSetFeatureDelta)
+            {
+              // If the removed delta is SET we add the REMOVE to the feature deltas. We do not need to adjust the
+              // other feature deltas because SET do not modify the list.
+              return true;
+            }
 
-          // First updates cachedSources and cachedIndices using CDORemoveFeatureDelta.
-          ListIndexAffecting affecting = (ListIndexAffecting)featureDelta;
-          affecting.affectIndices(cachedSources, cachedIndices);
+            break;
+          }
+        }
 
-          // Then adjusts the remaining feature deltas.
-          boolean skip = true;
-          ListIterator<CDOFeatureDelta> iterator = featureDeltas.listIterator();
+        // Then adjusts the remaining feature deltas.
+        while (iterator.hasNext())
+        {
+          CDOFeatureDelta fd = iterator.next();
 
-          while (iterator.hasNext())
+          // ADD
+          if (fd instanceof CDOAddFeatureDelta)
           {
-            CDOFeatureDelta fd = iterator.next();
-
-            // We only need to process feature deltas that come after the ADD (or SET) to be removed.
-            if (skip)
+            // Increases the floating index if the ADD came in front of the item.
+            if (((CDOAddFeatureDelta)fd).getIndex() <= floatingIndex)
             {
-              if (fd == delta)
-              {
-                // Found the ADD (or SET) feature delta that we need to remove. So remove it from the list and start
-                // processing the next feature deltas.
-                skip = false;
-                iterator.remove();
+              ++floatingIndex;
+            }
 
-                // SET
-                if (fd instanceof CDOSetFeatureDelta)
-                {
-                  // If the removed delta is SET we add the REMOVE to the feature deltas. We do not need to adjust the
-                  // other feature deltas because SET do not modify the list.
-                  return true;
-                }
-              }
+            // Adjusts the feature delta too.
+            ((WithIndex)fd).adjustAfterRemoval(floatingIndex);
+          }
 
-              continue;
+          // REMOVE
+          else if (fd instanceof CDORemoveFeatureDelta)
+          {
+            int idx = floatingIndex;
+            // Decreases the floating index if the REMOVE came in front of the item.
+            if (((CDORemoveFeatureDelta)fd).getIndex() <= floatingIndex)
+            {
+              --floatingIndex;
             }
 
-            // ADD
-            if (fd instanceof CDOAddFeatureDelta)
+            // Adjusts the feature delta too.
+            ((WithIndex)fd).adjustAfterRemoval(idx);
+          }
+
+          // MOVE
+          else if (fd instanceof CDOMoveFeatureDelta)
+          {
+            // Remembers the positions before we patch them.
+            int from = ((CDOMoveFeatureDelta)fd).getOldPosition();
+            int to = ((CDOMoveFeatureDelta)fd).getNewPosition();
+
+            if (floatingIndex == from)
+            {
+              // We are moving the "to be deleted" item. So we update our floating index and remove the MOVE. It has
+              // no effect on the list.
+              floatingIndex = to;
+              iterator.remove();
+            }
+            else
             {
-              // Increases the floating index if the ADD came in front of the item.
-              if (((CDOAddFeatureDelta)fd).getIndex() <= floatingIndex)
+              // In the other cases, we need to patch the positions.
+
+              // If the old position is greater or equal to the current position of the item to be removed (remember,
+              // that's our floating index), decrease the position.
+              int patchedFrom = floatingIndex <= from ? from - 1 : from;
+
+              // The new position requires more care. We need to know the direction of the move (left-to-right or
+              // right-to-left).
+              int patchedTo;
+              if (from > to)
               {
-                ++floatingIndex;
+                // left-to-right. Only decreases the position if it is strictly greater than the current item
+                // position.
+                patchedTo = floatingIndex < to ? to - 1 : to;
+              }
+              else
+              {
+                // right-to-left. Decreases the position if it is greater or equal than the current item position.
+                patchedTo = floatingIndex <= to ? to - 1 : to;
               }
 
-              // Adjusts the feature delta too.
-              ((WithIndex)fd).adjustAfterRemoval(floatingIndex);
-            }
-
-            // REMOVE
-            else if (fd instanceof CDORemoveFeatureDelta)
-            {
-              int idx = floatingIndex;
-              // Decreases the floating index if the REMOVE came in front of the item.
-              if (((CDORemoveFeatureDelta)fd).getIndex() <= floatingIndex)
+              // We can now update our floating index. We use the original positions because the floating index
+              // represents the item "to be deleted" before it was actually removed.
+              if (from < floatingIndex && floatingIndex <= to)
               {
                 --floatingIndex;
               }
+              else if (to <= floatingIndex && floatingIndex < from)
+              {
+                ++floatingIndex;
+              }
 
-              // Adjusts the feature delta too.
-              ((WithIndex)fd).adjustAfterRemoval(idx);
-            }
-
-            // MOVE
-            else if (fd instanceof CDOMoveFeatureDelta)
-            {
-              // Remembers the positions before we patch them.
-              int from = ((CDOMoveFeatureDelta)fd).getOldPosition();
-              int to = ((CDOMoveFeatureDelta)fd).getNewPosition();
-
-              if (floatingIndex == from)
+              // And finally adjust the feature delta.
+              if (patchedFrom == patchedTo)
               {
-                // We are moving the "to be deleted" item. So we update our floating index and remove the MOVE. It has
-                // no effect on the list.
-                floatingIndex = to;
+                // Source and destination are the same so just remove the feature delta.
                 iterator.remove();
               }
               else
               {
-                // In the other cases, we need to patch the positions.
-
-                // If the old position is greater or equal to the current position of the item to be removed (remember,
-                // that's our floating index), decrease the position.
-                int patchedFrom = floatingIndex <= from ? from - 1 : from;
-
-                // The new position requires more care. We need to know the direction of the move (left-to-right or
-                // right-to-left).
-                int patchedTo;
-                if (from > to)
-                {
-                  // left-to-right. Only decreases the position if it is strictly greater than the current item
-                  // position.
-                  patchedTo = floatingIndex < to ? to - 1 : to;
-                }
-                else
-                {
-                  // right-to-left. Decreases the position if it is greater or equal than the current item position.
-                  patchedTo = floatingIndex <= to ? to - 1 : to;
-                }
-
-                // We can now update our floating index. We use the original positions because the floating index
-                // represents the item "to be deleted" before it was actually removed.
-                if (from < floatingIndex && floatingIndex <= to)
-                {
-                  --floatingIndex;
-                }
-                else if (to <= floatingIndex && floatingIndex < from)
-                {
-                  ++floatingIndex;
-                }
-
-                // And finally adjust the feature delta.
-                if (patchedFrom == patchedTo)
-                {
-                  // Source and destination are the same so just remove the feature delta.
-                  iterator.remove();
-                }
-                else
-                {
-                  ((CDOMoveFeatureDeltaImpl)fd).setOldPosition(patchedFrom);
-                  ((CDOMoveFeatureDeltaImpl)fd).setNewPosition(patchedTo);
-                }
+                ((CDOMoveFeatureDeltaImpl)fd).setOldPosition(patchedFrom);
+                ((CDOMoveFeatureDeltaImpl)fd).setNewPosition(patchedTo);
               }
             }
-
-            // SET
-            else if (fd instanceof CDOSetFeatureDelta)
-            {
-              // Adjusts the feature delta too.
-              ((WithIndex)fd).adjustAfterRemoval(floatingIndex);
-            }
           }
 
-          // If the removed delta was ADD so we do not add the REMOVE to the feature deltas.
-          return false;
+          // SET
+          else if (fd instanceof CDOSetFeatureDelta)
+          {
+            // Adjusts the feature delta too.
+            ((WithIndex)fd).adjustAfterRemoval(floatingIndex);
+          }
         }
+
+        // If the removed delta was ADD so we do not add the REMOVE to the feature deltas.
+        return false;
       }
     }
-
-    if (cachedIndices != null)
+    else if (addedIndices != null)
     {
-      if (unprocessedFeatureDeltas == null)
-      {
-        unprocessedFeatureDeltas = new ArrayList<CDOFeatureDelta>();
-      }
-
-      unprocessedFeatureDeltas.add(featureDelta);
+      affectAddedIndices(featureDelta);
     }
 
     return true;
@@ -399,12 +354,87 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
 
   public void apply(CDORevision revision)
   {
+    if (featureDeltas.size() >= EDIT_SCRIPT_THRESHOLD && applyEditScript((InternalCDORevision)revision))
+    {
+      return;
+    }
+
     for (CDOFeatureDelta featureDelta : featureDeltas)
     {
       ((CDOFeatureDeltaImpl)featureDelta).apply(revision);
     }
   }
 
+  /**
+   * Applies all list changes to the list of the given revision in a single pass, so that the effort doesn't grow with
+   * the product of the number of changes and the size of the list. Returns <code>false</code> without touching the
+   * revision if the changes can't be applied that way, e.g., because an index is out of bounds; replaying them one by
+   * one then fails the same way as always.
+   */
+  private boolean applyEditScript(InternalCDORevision revision)
+  {
+    EStructuralFeature feature = getFeature();
+    CDOList list = (CDOList)revision.getValue(feature);
+    CDOListEditScript script = new CDOListEditScript(list == null ? 0 : list.size());
+    CDOFeatureDeltaImpl lastClear = null;
+    boolean changedAfterClear = false;
+
+    for (CDOFeatureDelta featureDelta : featureDeltas)
+    {
+      boolean valid;
+      if (featureDelta instanceof CDOAddFeatureDelta)
+      {
+        CDOAddFeatureDelta delta = (CDOAddFeatureDelta)featureDelta;
+        valid = script.add(delta.getIndex(), delta.getValue());
+      }
+      else if (featureDelta instanceof CDORemoveFeatureDelta)
+      {
+        valid = script.remove(((CDORemoveFeatureDelta)featureDelta).getIndex());
+      }
+      else if (featureDelta instanceof CDOMoveFeatureDelta)
+      {
+        CDOMoveFeatureDelta delta = (CDOMoveFeatureDelta)featureDelta;
+        valid = script.move(delta.getNewPosition(), delta.getOldPosition());
+      }
+      else if (featureDelta instanceof CDOSetFeatureDelta)
+      {
+        CDOSetFeatureDelta delta = (CDOSetFeatureDelta)featureDelta;
+        valid = script.set(delta.getIndex(), delta.getValue());
+      }
+      else if (featureDelta instanceof CDOClearFeatureDelta || featureDelta instanceof CDOUnsetFeatureDelta)
+      {
+        // Clearing and unsetting both reset the list, the changes before don't matter anymore
+        script.clear();
+        lastClear = (CDOFeatureDeltaImpl)featureDelta;
+        changedAfterClear = false;
+        continue;
+      }
+      else
+      {
+        valid = false;
+      }
+
+      if (!valid)
+      {
+        return false;
+      }
+
+      changedAfterClear = true;
+    }
+
+    if (lastClear != null)
+    {
+      lastClear.apply(revision);
+      if (!changedAfterClear)
+      {
+        return true;
+      }
+    }
+
+    script.applyTo(revision.getList(feature));
+    return true;
+  }
+
   @Override
   public boolean adjustReferences(CDOReferenceAdjuster adjuster)
   {
@@ -439,26 +469,4 @@ public class CDOListFeatureDeltaImpl extends CDOFeatureDeltaImpl implements CDOL
   {
     return "list=" + featureDeltas; //$NON-NLS-1$
   }
-
-  /**
-   * Copied from JAVA 1.6 {@link Arrays Arrays.copyOf}.
-   */
-  private static <T, U> T[] copyOf(U[] original, int newLength, Class<? extends T[]> newType)
-  {
-    @SuppressWarnings("unchecked")
-    T[] copy = (Object)newType == (Object)Object[].class ? (T[])new Object[newLength] : (T[])Array.newInstance(
-        newType.getComponentType(), newLength);
-    System.arraycopy(original, 0, copy, 0, Math.min(original.length, newLength));
-    return copy;
-  }
-
-  /**
-   * Copied from JAVA 1.6 {@link Arrays Arrays.copyOf}.
-   */
-  private static int[] copyOf(int[] original, int newLength)
-  {
-    int[] copy = new int[newLength];
-    System.arraycopy(original, 0, copy, 0, Math.min(original.length, newLength));
-    return copy;
-  }
 }
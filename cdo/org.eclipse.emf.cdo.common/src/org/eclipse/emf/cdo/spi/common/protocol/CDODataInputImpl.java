@@ -61,6 +61,7 @@ import org.eclipse.emf.cdo.internal.common.lock.CDOLockStateImpl;
 import org.eclipse.emf.cdo.internal.common.messages.Messages;
 import org.eclipse.emf.cdo.internal.common.revision.CDOIDAndBranchImpl;
 import org.eclipse.emf.cdo.internal.common.revision.CDOIDAndVersionImpl;
+import org.eclipse.emf.cdo.internal.common.revision.CDOLongIDListImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDOAddFeatureDeltaImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDOClearFeatureDeltaImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDOContainerFeatureDeltaImpl;
@@ -80,6 +81,7 @@ import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
 
 import org.eclipse.net4j.util.concurrent.IRWLockManager.LockType;
 import org.eclipse.net4j.util.io.ExtendedDataInput;
+import org.eclipse.net4j.util.io.ExtendedIOUtil;
 import org.eclipse.net4j.util.io.StringIO;
 import org.eclipse.net4j.util.om.trace.ContextTracer;
 
@@ -116,6 +118,45 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
     super(delegate);
   }
 
+  public int readXInt() throws IOException
+  {
+    if (isXCompression())
+    {
+      return ExtendedIOUtil.readVarInt(this);
+    }
+
+    return readInt();
+  }
+
+  public long readXLong() throws IOException
+  {
+    if (isXCompression())
+    {
+      return ExtendedIOUtil.readVarLong(this);
+    }
+
+    return readLong();
+  }
+
+  @Override
+  public byte[] readByteArray() throws IOException
+  {
+    if (isXCompression())
+    {
+      int length = readXInt();
+      if (length < 0)
+      {
+        return null;
+      }
+
+      byte[] b = new byte[length];
+      readFully(b);
+      return b;
+    }
+
+    return super.readByteArray();
+  }
+
   public CDOPackageUnit readCDOPackageUnit(ResourceSet resourceSet) throws IOException
   {
     InternalCDOPackageUnit packageUnit = (InternalCDOPackageUnit)CDOModelUtil.createPackageUnit();
@@ -125,7 +166,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
   public CDOPackageUnit[] readCDOPackageUnits(ResourceSet resourceSet) throws IOException
   {
-    int size = readInt();
+    int size = readXInt();
     if (TRACER.isEnabled())
     {
       TRACER.format("Reading {0} package units", size); //$NON-NLS-1$
@@ -182,27 +223,27 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
   public CDOBranch readCDOBranch() throws IOException
   {
-    int branchID = readInt();
+    int branchID = readXInt();
     return getBranchManager().getBranch(branchID);
   }
 
   public CDOBranchPoint readCDOBranchPoint() throws IOException
   {
     CDOBranch branch = readCDOBranch();
-    long timeStamp = readLong();
+    long timeStamp = readXLong();
     return branch.getPoint(timeStamp);
   }
 
   public CDOBranchVersion readCDOBranchVersion() throws IOException
   {
     CDOBranch branch = readCDOBranch();
-    int version = readInt();
+    int version = readXInt();
     return branch.getVersion(version);
   }
 
   public CDOChangeSetData readCDOChangeSetData() throws IOException
   {
-    int size1 = readInt();
+    int size1 = readXInt();
     List<CDOIDAndVersion> newObjects = new ArrayList<CDOIDAndVersion>(size1);
     for (int i = 0; i < size1; i++)
     {
@@ -211,7 +252,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
       newObjects.add(data);
     }
 
-    int size2 = readInt();
+    int size2 = readXInt();
     List<CDORevisionKey> changedObjects = new ArrayList<CDORevisionKey>(size2);
     for (int i = 0; i < size2; i++)
     {
@@ -220,12 +261,12 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
       changedObjects.add(data);
     }
 
-    int size3 = readInt();
+    int size3 = readXInt();
     List<CDOIDAndVersion> detachedObjects = new ArrayList<CDOIDAndVersion>(size3);
     for (int i = 0; i < size3; i++)
     {
       CDOID id = readCDOID();
-      int version = readInt();
+      int version = readXInt();
 
       CDOIDAndVersion data;
       if (version < 0)
@@ -250,7 +291,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
     ResourceSet resourceSet = new ResourceSetImpl();
     resourceSet.setPackageRegistry(packageRegistry);
 
-    int size = readInt();
+    int size = readXInt();
     List<CDOPackageUnit> newPackageUnits = new ArrayList<CDOPackageUnit>(size);
     for (int i = 0; i < size; i++)
     {
@@ -266,8 +307,8 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
   public CDOCommitInfo readCDOCommitInfo() throws IOException
   {
-    long timeStamp = readLong();
-    long previousTimeStamp = readLong();
+    long timeStamp = readXLong();
+    long previousTimeStamp = readXLong();
 
     if (readBoolean())
     {
@@ -296,7 +337,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
     Operation operation = readEnum(Operation.class);
     LockType lockType = readCDOLockType();
 
-    int n = readInt();
+    int n = readXInt();
     CDOLockState[] lockStates = new CDOLockState[n];
     for (int i = 0; i < n; i++)
     {
@@ -310,11 +351,11 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
   {
     String durableLockingID = readString();
     CDOBranch branch = readCDOBranch();
-    long timestamp = readLong();
+    long timestamp = readXLong();
     String userID = readString();
     boolean readOnly = readBoolean();
 
-    int nLockStates = readInt();
+    int nLockStates = readXInt();
     Map<CDOID, LockGrade> locks = new HashMap<CDOID, LockGrade>();
     for (int i = 0; i < nLockStates; i++)
     {
@@ -328,8 +369,8 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
   public CDOLockOwner readCDOLockOwner() throws IOException
   {
-    int session = readInt();
-    int view = readInt();
+    int session = readXInt();
+    int view = readXInt();
     String lockAreaID = readString();
     boolean isDurableView = readBoolean();
     return new CDOLockOwnerImpl(session, view, lockAreaID, isDurableView);
@@ -350,7 +391,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
     InternalCDOLockState lockState = new CDOLockStateImpl(target);
 
-    int nReadLockOwners = readInt();
+    int nReadLockOwners = readXInt();
     for (int i = 0; i < nReadLockOwners; i++)
     {
       CDOLockOwner lockOwner = readCDOLockOwner();
@@ -381,6 +422,17 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
   public CDOID readCDOID() throws IOException
   {
+    if (isXCompression())
+    {
+      byte ordinal = readByte();
+      if (ordinal == CDODataOutputImpl.LONG_ID_ORDINAL)
+      {
+        return CDOIDUtil.createLong(readXLong());
+      }
+
+      return CDOIDUtil.read(this, ordinal);
+    }
+
     return CDOIDUtil.read(this);
   }
 
@@ -392,7 +444,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
   public CDOIDAndVersion readCDOIDAndVersion() throws IOException
   {
     CDOID id = readCDOID();
-    int version = readInt();
+    int version = readXInt();
     return new CDOIDAndVersionImpl(id, version);
   }
 
@@ -407,7 +459,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
   {
     CDOID id = readCDOID();
     CDOBranch branch = readCDOBranch();
-    int version = readInt();
+    int version = readXInt();
     return CDORevisionUtil.createRevisionKey(id, branch, version);
   }
 
@@ -438,20 +490,20 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
   public CDORevisable readCDORevisable() throws IOException
   {
     CDOBranch branch = readCDOBranch();
-    int version = readInt();
-    long timeStamp = readLong();
-    long revised = readLong();
+    int version = readXInt();
+    long timeStamp = readXLong();
+    long revised = readXLong();
     return CDORevisionUtil.createRevisable(branch, version, timeStamp, revised);
   }
 
   public CDOList readCDOList(EClass owner, EStructuralFeature feature) throws IOException
   {
     int referenceChunk;
-    int size = readInt();
+    int size = readXInt();
     if (size < 0)
     {
       size = -size;
-      referenceChunk = readInt();
+      referenceChunk = readXInt();
       if (TRACER.isEnabled())
       {
         TRACER.format("Read feature {0}: size={1}, referenceChunk={2}", feature.getName(), size, referenceChunk); //$NON-NLS-1$
@@ -474,7 +526,17 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
       type = CDOModelUtil.getType(feature.getEType());
     }
 
-    InternalCDOList list = (InternalCDOList)getListFactory().createList(size, size, referenceChunk);
+    boolean isIDDeltas = isXCompression() && !isFeatureMap && feature instanceof EReference;
+    long previousID = 0L;
+
+    CDOListFactory listFactory = getListFactory();
+    if (!isFeatureMap && feature instanceof EReference)
+    {
+      listFactory = CDOLongIDListImpl.getFactory(listFactory);
+    }
+
+    InternalCDOList list = (InternalCDOList)listFactory.createList(size, size, referenceChunk);
+    CDOLongIDListImpl longIDList = list instanceof CDOLongIDListImpl ? (CDOLongIDListImpl)list : null;
     for (int j = 0; j < referenceChunk; j++)
     {
       if (isFeatureMap)
@@ -522,13 +584,33 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
         else
         {
           EClass eClass = (EClass)readCDOClassifierRefAndResolve();
-          innerFeature = eClass.getEStructuralFeature(readInt());
+          innerFeature = eClass.getEStructuralFeature(readXInt());
         }
 
         type = CDOModelUtil.getType(innerFeature.getEType());
         value = type.readValue(this);
         value = CDORevisionUtil.createFeatureMapEntry(innerFeature, value);
       }
+      else if (isIDDeltas)
+      {
+        byte ordinal = readByte();
+        if (ordinal == CDODataOutputImpl.LONG_ID_ORDINAL)
+        {
+          previousID += readXLong();
+          if (longIDList != null)
+          {
+            // Don't create an ID object that the list would discard right away
+            longIDList.setLongID(j, previousID);
+            continue;
+          }
+
+          value = CDOIDUtil.createLong(previousID);
+        }
+        else
+        {
+          value = CDOIDUtil.read(this, ordinal);
+        }
+      }
       else
       {
         value = type.readValue(this);
@@ -564,7 +646,7 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
 
   public CDOFeatureDelta readCDOFeatureDelta(EClass owner) throws IOException
   {
-    int typeOrdinal = readInt();
+    int typeOrdinal = readXInt();
     CDOFeatureDelta.Type type = CDOFeatureDelta.Type.values()[typeOrdinal];
     switch (type)
     {
@@ -619,6 +701,17 @@ public abstract class CDODataInputImpl extends ExtendedDataInput.Delegating impl
     return StringIO.DIRECT;
   }
 
+  /**
+   * Returns <code>true</code> if the {@link #readXInt() readXInt()} and {@link #readXLong() readXLong()} methods, byte
+   * array lengths and long CDOIDs use the variable-length encoding, <code>false</code> otherwise.
+   *
+   * @see CDODataOutputImpl#isXCompression()
+   */
+  protected boolean isXCompression()
+  {
+    return false;
+  }
+
   protected abstract CDOPackageRegistry getPackageRegistry();
 
   protected abstract CDOBranchManager getBranchManager();
@@ -45,14 +45,17 @@ import org.eclipse.emf.cdo.common.security.CDOPermissionProvider;
 import org.eclipse.emf.cdo.internal.common.bundle.OM;
 import org.eclipse.emf.cdo.internal.common.messages.Messages;
 import org.eclipse.emf.cdo.internal.common.model.CDOTypeImpl;
+import org.eclipse.emf.cdo.internal.common.revision.CDOLongIDListImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDOFeatureDeltaImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDORevisionDeltaImpl;
 import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageInfo;
+import org.eclipse.emf.cdo.spi.common.id.InternalCDOIDObject;
 import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageUnit;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
 
 import org.eclipse.net4j.util.concurrent.IRWLockManager.LockType;
 import org.eclipse.net4j.util.io.ExtendedDataOutput;
+import org.eclipse.net4j.util.io.ExtendedIOUtil;
 import org.eclipse.net4j.util.io.StringIO;
 import org.eclipse.net4j.util.om.trace.ContextTracer;
 
@@ -79,11 +82,62 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
 {
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_PROTOCOL, CDODataOutputImpl.class);
 
+  /**
+   * The type ordinal that {@link CDOIDUtil#write(ExtendedDataOutput, CDOID)} writes for {@link CDOID.ObjectType#LONG
+   * long} IDs.
+   */
+  static final byte LONG_ID_ORDINAL = (byte)(-CDOID.ObjectType.LONG.ordinal() - 1);
+
   public CDODataOutputImpl(ExtendedDataOutput delegate)
   {
     super(delegate);
   }
 
+  public void writeXInt(int v) throws IOException
+  {
+    if (isXCompression())
+    {
+      ExtendedIOUtil.writeVarInt(this, v);
+    }
+    else
+    {
+      writeInt(v);
+    }
+  }
+
+  public void writeXLong(long v) throws IOException
+  {
+    if (isXCompression())
+    {
+      ExtendedIOUtil.writeVarLong(this, v);
+    }
+    else
+    {
+      writeLong(v);
+    }
+  }
+
+  @Override
+  public void writeByteArray(byte[] b) throws IOException
+  {
+    if (isXCompression())
+    {
+      if (b != null)
+      {
+        writeXInt(b.length);
+        write(b);
+      }
+      else
+      {
+        writeXInt(-1);
+      }
+    }
+    else
+    {
+      super.writeByteArray(b);
+    }
+  }
+
   public void writeCDOPackageUnit(CDOPackageUnit packageUnit, boolean withPackages) throws IOException
   {
     ((InternalCDOPackageUnit)packageUnit).write(this, withPackages);
@@ -92,7 +146,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   public void writeCDOPackageUnits(CDOPackageUnit... packageUnits) throws IOException
   {
     int size = packageUnits.length;
-    writeInt(size);
+    writeXInt(size);
     if (TRACER.isEnabled())
     {
       TRACER.format("Writing {0} package units", size); //$NON-NLS-1$
@@ -136,25 +190,25 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
 
   public void writeCDOBranch(CDOBranch branch) throws IOException
   {
-    writeInt(branch.getID());
+    writeXInt(branch.getID());
   }
 
   public void writeCDOBranchPoint(CDOBranchPoint branchPoint) throws IOException
   {
     writeCDOBranch(branchPoint.getBranch());
-    writeLong(branchPoint.getTimeStamp());
+    writeXLong(branchPoint.getTimeStamp());
   }
 
   public void writeCDOBranchVersion(CDOBranchVersion branchVersion) throws IOException
   {
     writeCDOBranch(branchVersion.getBranch());
-    writeInt(branchVersion.getVersion());
+    writeXInt(branchVersion.getVersion());
   }
 
   public void writeCDOChangeSetData(CDOChangeSetData changeSetData) throws IOException
   {
     Collection<CDOIDAndVersion> newObjects = changeSetData.getNewObjects();
-    writeInt(newObjects.size());
+    writeXInt(newObjects.size());
     for (CDOIDAndVersion data : newObjects)
     {
       if (data instanceof CDORevision)
@@ -170,7 +224,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
     }
 
     Collection<CDORevisionKey> changedObjects = changeSetData.getChangedObjects();
-    writeInt(changedObjects.size());
+    writeXInt(changedObjects.size());
     for (CDORevisionKey data : changedObjects)
     {
       if (data instanceof CDORevisionDelta)
@@ -186,19 +240,19 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
     }
 
     Collection<CDOIDAndVersion> detachedObjects = changeSetData.getDetachedObjects();
-    writeInt(detachedObjects.size());
+    writeXInt(detachedObjects.size());
     for (CDOIDAndVersion data : detachedObjects)
     {
       writeCDOID(data.getID());
       if (data instanceof CDORevisionKey)
       {
         CDORevisionKey revisionKey = (CDORevisionKey)data;
-        writeInt(-data.getVersion());
+        writeXInt(-data.getVersion());
         writeCDOBranch(revisionKey.getBranch());
       }
       else
       {
-        writeInt(data.getVersion());
+        writeXInt(data.getVersion());
       }
     }
   }
@@ -206,7 +260,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   public void writeCDOCommitData(CDOCommitData commitData) throws IOException
   {
     Collection<CDOPackageUnit> newPackageUnits = commitData.getNewPackageUnits();
-    writeInt(newPackageUnits.size());
+    writeXInt(newPackageUnits.size());
     for (CDOPackageUnit data : newPackageUnits)
     {
       writeCDOPackageUnit(data, false);
@@ -217,8 +271,8 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
 
   public void writeCDOCommitInfo(CDOCommitInfo commitInfo) throws IOException
   {
-    writeLong(commitInfo.getTimeStamp());
-    writeLong(commitInfo.getPreviousTimeStamp());
+    writeXLong(commitInfo.getTimeStamp());
+    writeXLong(commitInfo.getPreviousTimeStamp());
 
     CDOBranch branch = commitInfo.getBranch();
     if (branch != null)
@@ -251,7 +305,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
       writeCDOLockType(lockChangeInfo.getLockType());
 
       CDOLockState[] lockStates = lockChangeInfo.getLockStates();
-      writeInt(lockStates.length);
+      writeXInt(lockStates.length);
       for (CDOLockState lockState : lockStates)
       {
         writeCDOLockState(lockState);
@@ -263,11 +317,11 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   {
     writeString(lockArea.getDurableLockingID());
     writeCDOBranch(lockArea.getBranch());
-    writeLong(lockArea.getTimeStamp());
+    writeXLong(lockArea.getTimeStamp());
     writeString(lockArea.getUserID());
     writeBoolean(lockArea.isReadOnly());
 
-    writeInt(lockArea.getLocks().size());
+    writeXInt(lockArea.getLocks().size());
     for (Map.Entry<CDOID, LockGrade> entry : lockArea.getLocks().entrySet())
     {
       writeCDOID(entry.getKey());
@@ -277,8 +331,8 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
 
   public void writeCDOLockOwner(CDOLockOwner lockOwner) throws IOException
   {
-    writeInt(lockOwner.getSessionID());
-    writeInt(lockOwner.getViewID());
+    writeXInt(lockOwner.getSessionID());
+    writeXInt(lockOwner.getViewID());
     writeString(lockOwner.getDurableLockingID());
     writeBoolean(lockOwner.isDurableView());
   }
@@ -302,7 +356,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
     }
 
     Set<CDOLockOwner> readLockOwners = lockState.getReadLockOwners();
-    writeInt(readLockOwners.size());
+    writeXInt(readLockOwners.size());
     for (CDOLockOwner readLockOwner : readLockOwners)
     {
       writeCDOLockOwner(readLockOwner);
@@ -338,7 +392,14 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
 
   public void writeCDOID(CDOID id) throws IOException
   {
-    CDOIDUtil.write(this, id);
+    if (isXCompression())
+    {
+      writeXCDOID(id, 0L);
+    }
+    else
+    {
+      CDOIDUtil.write(this, id);
+    }
   }
 
   public void writeCDOIDReference(CDOIDReference idReference) throws IOException
@@ -349,7 +410,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   public void writeCDOIDAndVersion(CDOIDAndVersion idAndVersion) throws IOException
   {
     writeCDOID(idAndVersion.getID());
-    writeInt(idAndVersion.getVersion());
+    writeXInt(idAndVersion.getVersion());
   }
 
   public void writeCDOIDAndBranch(CDOIDAndBranch idAndBranch) throws IOException
@@ -362,7 +423,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   {
     writeCDOID(revisionKey.getID());
     writeCDOBranch(revisionKey.getBranch());
-    writeInt(revisionKey.getVersion());
+    writeXInt(revisionKey.getVersion());
   }
 
   public void writeCDORevision(CDORevision revision, int referenceChunk) throws IOException
@@ -387,9 +448,9 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   public void writeCDORevisable(CDORevisable revisable) throws IOException
   {
     writeCDOBranch(revisable.getBranch());
-    writeInt(revisable.getVersion());
-    writeLong(revisable.getTimeStamp());
-    writeLong(revisable.getRevised());
+    writeXInt(revisable.getVersion());
+    writeXLong(revisable.getTimeStamp());
+    writeXLong(revisable.getRevised());
   }
 
   public void writeCDOList(EClass owner, EStructuralFeature feature, CDOList list, int referenceChunk)
@@ -398,6 +459,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
     // TODO Simon: Could most of this stuff be moved into the list?
     // (only if protected methods of this class don't need to become public)
     int size = list == null ? 0 : list.size();
+    long[] longIDs = getLongIDs(feature, list);
     if (size > 0)
     {
       // Need to adjust the referenceChunk in case where we do not have enough value in the list.
@@ -405,8 +467,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
       int sizeToLook = referenceChunk == CDORevision.UNCHUNKED ? size : Math.min(referenceChunk, size);
       for (int i = 0; i < sizeToLook; i++)
       {
-        Object element = list.get(i, false);
-        if (element == CDORevisionUtil.UNINITIALIZED)
+        if (longIDs != null ? longIDs[i] <= 0L : list.get(i, false) == CDORevisionUtil.UNINITIALIZED)
         {
           referenceChunk = i;
           break;
@@ -422,8 +483,8 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
         TRACER.format("Writing feature {0}: size={1}, referenceChunk={2}", feature.getName(), size, referenceChunk); //$NON-NLS-1$
       }
 
-      writeInt(-size);
-      writeInt(referenceChunk);
+      writeXInt(-size);
+      writeXInt(referenceChunk);
       size = referenceChunk;
     }
     else
@@ -433,11 +494,22 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
         TRACER.format("Writing feature {0}: size={1}", feature.getName(), size); //$NON-NLS-1$
       }
 
-      writeInt(size);
+      writeXInt(size);
+    }
+
+    if (longIDs != null)
+    {
+      writeLongIDs(longIDs, size);
+      return;
     }
 
     CDOIDProvider idProvider = getIDProvider();
     boolean isFeatureMap = FeatureMapUtil.isFeatureMap(feature);
+
+    // Consecutive long IDs of a reference list are often close to each other
+    boolean isIDDeltas = isXCompression() && !isFeatureMap && feature instanceof EReference;
+    long previousID = 0L;
+
     for (int j = 0; j < size; j++)
     {
       Object value = list.get(j, false);
@@ -465,7 +537,7 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
           writeCDOClassifierRef(eClass);
 
           int featureID = eClass.getFeatureID(innerFeature);
-          writeInt(featureID);
+          writeXInt(featureID);
         }
       }
 
@@ -479,7 +551,15 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
         TRACER.trace("    " + value); //$NON-NLS-1$
       }
 
-      writeCDOFeatureValue(innerFeature, value);
+      if (isIDDeltas)
+      {
+        CDOID id = value instanceof CDORevision ? ((CDORevision)value).getID() : (CDOID)value;
+        previousID = writeXCDOID(id, previousID);
+      }
+      else
+      {
+        writeCDOFeatureValue(innerFeature, value);
+      }
     }
   }
 
@@ -566,4 +646,72 @@ public abstract class CDODataOutputImpl extends ExtendedDataOutput.Delegating im
   {
     return StringIO.DIRECT;
   }
+
+  /**
+   * Returns <code>true</code> if the {@link #writeXInt(int) writeXInt()} and {@link #writeXLong(long) writeXLong()}
+   * methods, byte array lengths and long CDOIDs use the variable-length encoding, <code>false</code> otherwise. Both
+   * sides of a stream must agree on this mode.
+   */
+  protected boolean isXCompression()
+  {
+    return false;
+  }
+
+  /**
+   * Writes a long ID as the difference to the given base ID and all other IDs as usual.
+   *
+   * @return the base ID for the next ID of the same list.
+   */
+  private long writeXCDOID(CDOID id, long baseID) throws IOException
+  {
+    if (id instanceof InternalCDOIDObject && ((InternalCDOIDObject)id).getSubType() == CDOID.ObjectType.LONG)
+    {
+      long value = CDOIDUtil.getLong(id);
+      writeByte(LONG_ID_ORDINAL);
+      writeXLong(value - baseID);
+      return value;
+    }
+
+    CDOIDUtil.write(this, id);
+    return baseID;
+  }
+
+  /**
+   * Returns the values of the long IDs of a {@link CDOLongIDListImpl reference list} that stores them in an array,
+   * <code>null</code> otherwise.
+   */
+  private static long[] getLongIDs(EStructuralFeature feature, CDOList list)
+  {
+    if (feature instanceof EReference && list instanceof CDOLongIDListImpl)
+    {
+      return ((CDOLongIDListImpl)list).getLongIDs();
+    }
+
+    return null;
+  }
+
+  /**
+   * Writes the given long IDs in the same format as {@link #writeCDOList(EClass, EStructuralFeature, CDOList, int)
+   * writeCDOList()} writes them one by one, but without creating an ID object per element.
+   */
+  private void writeLongIDs(long[] longIDs, int size) throws IOException
+  {
+    boolean isIDDeltas = isXCompression();
+    long previousID = 0L;
+
+    for (int j = 0; j < size; j++)
+    {
+      long value = longIDs[j];
+      writeByte(LONG_ID_ORDINAL);
+      if (isIDDeltas)
+      {
+        writeXLong(value - previousID);
+        previousID = value;
+      }
+      else
+      {
+        writeLong(value);
+      }
+    }
+  }
 }
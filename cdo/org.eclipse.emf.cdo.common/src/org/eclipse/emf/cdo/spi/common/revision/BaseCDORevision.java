@@ -38,6 +38,7 @@ import org.eclipse.emf.cdo.common.security.NoPermissionException;
 import org.eclipse.emf.cdo.common.util.CDOCommonUtil;
 import org.eclipse.emf.cdo.internal.common.bundle.OM;
 import org.eclipse.emf.cdo.internal.common.messages.Messages;
+import org.eclipse.emf.cdo.internal.common.revision.CDOLongIDListImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDORevisionDeltaImpl;
 import org.eclipse.emf.cdo.spi.common.branch.CDOBranchUtil;
 
@@ -173,15 +174,15 @@ public abstract class BaseCDORevision extends AbstractCDORevision
 
     id = in.readCDOID();
     branchPoint = in.readCDOBranchPoint();
-    version = in.readInt();
+    version = in.readXInt();
     if (!id.isTemporary())
     {
-      revised = in.readLong();
+      revised = in.readXLong();
     }
 
     resourceID = in.readCDOID();
     containerID = in.readCDOID();
-    containingFeatureID = in.readInt();
+    containingFeatureID = in.readXInt();
 
     if (TRACER.isEnabled())
     {
@@ -259,15 +260,15 @@ public abstract class BaseCDORevision extends AbstractCDORevision
     out.writeCDOClassifierRef(classRef);
     out.writeCDOID(id);
     out.writeCDOBranchPoint(branchPoint);
-    out.writeInt(getVersion());
+    out.writeXInt(getVersion());
     if (!id.isTemporary())
     {
-      out.writeLong(revised);
+      out.writeXLong(revised);
     }
 
     out.writeCDOID(resourceID);
     out.writeCDOID(out.getIDProvider().provideCDOID(containerID));
-    out.writeInt(containingFeatureID);
+    out.writeXInt(containingFeatureID);
   }
 
   /**
@@ -491,7 +492,7 @@ public abstract class BaseCDORevision extends AbstractCDORevision
   {
     if (feature.isMany() && index != EStore.NO_INDEX)
     {
-      CDOList list = getList(feature);
+      CDOList list = getListForReading(feature);
       return list.get(index);
     }
 
@@ -500,31 +501,31 @@ public abstract class BaseCDORevision extends AbstractCDORevision
 
   public boolean contains(EStructuralFeature feature, Object value)
   {
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.contains(value);
   }
 
   public int indexOf(EStructuralFeature feature, Object value)
   {
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.indexOf(value);
   }
 
   public int lastIndexOf(EStructuralFeature feature, Object value)
   {
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.lastIndexOf(value);
   }
 
   public boolean isEmpty(EStructuralFeature feature)
   {
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.isEmpty();
   }
 
   public int size(EStructuralFeature feature)
   {
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.size();
   }
 
@@ -535,7 +536,7 @@ public abstract class BaseCDORevision extends AbstractCDORevision
       throw new IllegalStateException("!feature.isMany()");
     }
 
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.toArray();
   }
 
@@ -546,7 +547,7 @@ public abstract class BaseCDORevision extends AbstractCDORevision
       throw new IllegalStateException("!feature.isMany()");
     }
 
-    CDOList list = getList(feature);
+    CDOList list = getListForReading(feature);
     return list.toArray(array);
   }
 
@@ -628,6 +629,12 @@ public abstract class BaseCDORevision extends AbstractCDORevision
           InternalCDOList list = (InternalCDOList)getValueAsList(i);
           if (list != null)
           {
+            if (isShared(list))
+            {
+              // Adjusting resynchronizes the indexes of the element proxies, even if no reference changes
+              list = unshareList(i, list, feature.getEType());
+            }
+
             changed |= list.adjustReferences(referenceAdjuster, feature);
           }
         }
@@ -682,7 +689,13 @@ public abstract class BaseCDORevision extends AbstractCDORevision
     CDOList list = (CDOList)getValue(featureIndex);
     if (list == null && size != -1)
     {
-      list = CDOListFactory.DEFAULT.createList(size, 0, 0);
+      CDOListFactory listFactory = CDOListFactory.DEFAULT;
+      if (feature instanceof EReference)
+      {
+        listFactory = CDOLongIDListImpl.getFactory(listFactory);
+      }
+
+      list = listFactory.createList(size, 0, 0);
 
       synchronized (this)
       {
@@ -705,6 +718,10 @@ public abstract class BaseCDORevision extends AbstractCDORevision
         }
       }
     }
+    else if (list != null && isShared((InternalCDOList)list))
+    {
+      list = unshareList(featureIndex, (InternalCDOList)list, feature.getEType());
+    }
 
     return list;
   }
@@ -802,6 +819,69 @@ public abstract class BaseCDORevision extends AbstractCDORevision
     return (CDOList)getValue(i);
   }
 
+  /**
+   * Returns a copy of the given list for a {@link #copy() copied} revision. A {@link InternalCDOList.Shareable
+   * shareable} list that is {@link InternalCDOList.Shareable#isFrozen() frozen} is shared with the copy until the copy
+   * is modified through {@link #getList(EStructuralFeature)} or {@link #adjustReferences(CDOReferenceAdjuster)} for
+   * the first time, so that the cost of copying a revision and applying a delta to it is proportional to the delta.
+   *
+   * @since 4.2
+   */
+  protected static InternalCDOList copyList(InternalCDOList list, EClassifier classifier)
+  {
+    if (isFrozen(list))
+    {
+      return list;
+    }
+
+    return list.clone(classifier);
+  }
+
+  private static boolean isFrozen(InternalCDOList list)
+  {
+    return list instanceof InternalCDOList.Shareable && ((InternalCDOList.Shareable)list).isFrozen();
+  }
+
+  /**
+   * Returns <code>true</code> if the given list is frozen although this revision is not, i.e., if it is still shared
+   * with the revision this one has been {@link #copyList(InternalCDOList, EClassifier) copied} from.
+   */
+  private boolean isShared(InternalCDOList list)
+  {
+    return isFrozen(list) && (flags & FROZEN_FLAG) == 0;
+  }
+
+  private InternalCDOList unshareList(int featureIndex, InternalCDOList list, EClassifier classifier)
+  {
+    synchronized (this)
+    {
+      InternalCDOList current = (InternalCDOList)doGetValue(featureIndex);
+      if (current != list)
+      {
+        // Another thread has already replaced the shared list
+        return current;
+      }
+
+      InternalCDOList copy = list.clone(classifier);
+      doSetValue(featureIndex, copy);
+      return copy;
+    }
+  }
+
+  /**
+   * Returns the list of the given feature without replacing it if it is still shared, because it is not modified.
+   */
+  private CDOList getListForReading(EStructuralFeature feature)
+  {
+    CDOList list = (CDOList)getValue(getFeatureIndex(feature));
+    if (list == null)
+    {
+      list = getList(feature);
+    }
+
+    return list;
+  }
+
   private void checkFrozen(int featureIndex, Object value)
   {
     if ((flags & FROZEN_FLAG) != 0)
@@ -46,4 +46,20 @@ public interface InternalCDOList extends CDOList
    * @since 4.0
    */
   public void setWithoutFrozenCheck(int i, Object value);
+
+  /**
+   * Complements {@link InternalCDOList lists} that can be shared between a revision and its copies once they are
+   * {@link InternalCDOList#freeze() frozen}. Other lists are cloned when a revision is copied.
+   * 
+   * @author Eike Stepper
+   * @since 4.2
+   */
+  public interface Shareable
+  {
+    /**
+     * Returns <code>true</code> if this list has been {@link InternalCDOList#freeze() frozen}, <code>false</code>
+     * otherwise. A frozen list is never modified anymore.
+     */
+    public boolean isFrozen();
+  }
 }
@@ -34,4 +34,21 @@ public interface InternalCDORevisionCache extends CDORevisionCache, CDOAllRevisi
   public void clear();
 
   public List<CDORevision> getRevisions(CDOBranchPoint branchPoint);
+
+  /**
+   * Complements {@link InternalCDORevisionCache revision caches} that keep copies of the cached revisions, e.g., in
+   * serialized form, rather than the revision objects themselves. Such caches must be told when the revised time stamp
+   * of a cached revision is set in place.
+   * 
+   * @author Eike Stepper
+   * @since 4.2
+   */
+  public interface Copying
+  {
+    /**
+     * Sets the revised time stamp of the cached copy of the given revision to the one of the given revision, if such a
+     * copy exists.
+     */
+    public void reviseRevision(CDORevision revision);
+  }
 }
@@ -44,6 +44,8 @@ public class CDONet4jSessionConfigurationImpl extends CDOSessionConfigurationImp
 
   private long signalTimeout = SignalProtocol.DEFAULT_TIMEOUT;
 
+  private boolean compactEncoding = CDONet4jSessionImpl.DEFAULT_COMPACT_ENCODING;
+
   public CDONet4jSessionConfigurationImpl()
   {
   }
@@ -95,6 +97,17 @@ public class CDONet4jSessionConfigurationImpl extends CDOSessionConfigurationImp
     this.signalTimeout = signalTimeout;
   }
 
+  public boolean isCompactEncoding()
+  {
+    return compactEncoding;
+  }
+
+  public void setCompactEncoding(boolean compactEncoding)
+  {
+    checkNotOpen();
+    this.compactEncoding = compactEncoding;
+  }
+
   public CDONet4jSession openNet4jSession()
   {
     return (CDONet4jSession)super.openSession();
@@ -126,6 +139,7 @@ public class CDONet4jSessionConfigurationImpl extends CDOSessionConfigurationImp
     sessionImpl.setConnector(connector);
     sessionImpl.setRepositoryName(repositoryName);
     sessionImpl.setSignalTimeout(signalTimeout);
+    sessionImpl.setCompactEncoding(compactEncoding);
   }
 
   /**
@@ -49,6 +49,8 @@ import org.eclipse.emf.spi.cdo.CDOSessionProtocol.OpenSessionResult;
 @SuppressWarnings("deprecation")
 public class CDONet4jSessionImpl extends CDOSessionImpl implements org.eclipse.emf.cdo.net4j.CDOSession
 {
+  public static final boolean DEFAULT_COMPACT_ENCODING = true;
+
   private IStreamWrapper streamWrapper;
 
   private IConnector connector;
@@ -57,6 +59,8 @@ public class CDONet4jSessionImpl extends CDOSessionImpl implements org.eclipse.e
 
   private long signalTimeout = SignalProtocol.DEFAULT_TIMEOUT;
 
+  private boolean compactEncoding = DEFAULT_COMPACT_ENCODING;
+
   public CDONet4jSessionImpl()
   {
   }
@@ -108,6 +112,16 @@ public class CDONet4jSessionImpl extends CDOSessionImpl implements org.eclipse.e
     }
   }
 
+  public boolean isCompactEncoding()
+  {
+    return compactEncoding;
+  }
+
+  public void setCompactEncoding(boolean compactEncoding)
+  {
+    this.compactEncoding = compactEncoding;
+  }
+
   @Override
   public OptionsImpl options()
   {
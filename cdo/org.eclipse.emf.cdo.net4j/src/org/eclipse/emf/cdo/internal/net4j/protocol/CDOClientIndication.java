@@ -58,7 +58,13 @@ public abstract class CDOClientIndication extends Indication
       @Override
       protected StringIO getPackageURICompressor()
       {
-        return getProtocol().getPackageURICompressor();
+        return CDOClientIndication.this.getPackageURICompressor();
+      }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return CDOClientIndication.this.isXCompression();
       }
 
       @Override
@@ -99,5 +105,15 @@ public abstract class CDOClientIndication extends Indication
     });
   }
 
+  protected StringIO getPackageURICompressor()
+  {
+    return getProtocol().getPackageURICompressor();
+  }
+
+  protected boolean isXCompression()
+  {
+    return getProtocol().isXCompression();
+  }
+
   protected abstract void indicating(CDODataInput in) throws IOException;
 }
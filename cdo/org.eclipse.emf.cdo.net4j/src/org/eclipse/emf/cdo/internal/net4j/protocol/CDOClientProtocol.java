@@ -27,8 +27,10 @@ import org.eclipse.emf.cdo.common.lob.CDOLob;
 import org.eclipse.emf.cdo.common.lob.CDOLobInfo;
 import org.eclipse.emf.cdo.common.lock.CDOLockState;
 import org.eclipse.emf.cdo.common.model.CDOPackageUnit;
+import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
 import org.eclipse.emf.cdo.common.revision.CDOIDAndVersion;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
 import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
 import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
 import org.eclipse.emf.cdo.common.util.TransportException;
@@ -82,6 +84,8 @@ public class CDOClientProtocol extends SignalProtocol<CDOSession> implements CDO
 
   private StringIO packageURICompressor = StringCompressor.BYPASS ? StringIO.DIRECT : new StringCompressor(true);
 
+  private volatile boolean xCompression;
+
   public CDOClientProtocol()
   {
     super(CDOProtocolConstants.PROTOCOL_NAME);
@@ -97,6 +101,20 @@ public class CDOClientProtocol extends SignalProtocol<CDOSession> implements CDO
     return packageURICompressor;
   }
 
+  /**
+   * Returns <code>true</code> if the signals of this protocol use the variable-length encoding of
+   * {@link CDODataOutput#writeXInt(int) CDODataOutput}, <code>false</code> otherwise.
+   */
+  public boolean isXCompression()
+  {
+    return xCompression;
+  }
+
+  public void setXCompression(boolean xCompression)
+  {
+    this.xCompression = xCompression;
+  }
+
   public OpenSessionResult openSession(String repositoryName, boolean passiveUpdateEnabled,
       PassiveUpdateMode passiveUpdateMode, LockNotificationMode lockNotificationMode)
   {
@@ -163,6 +181,12 @@ public class CDOClientProtocol extends SignalProtocol<CDOSession> implements CDO
   public List<InternalCDORevision> loadRevisions(List<RevisionInfo> infos, CDOBranchPoint branchPoint,
       int referenceChunk, int prefetchDepth)
   {
+    if (prefetchDepth != CDORevision.DEPTH_NONE)
+    {
+      // Prefetching can load large trees, let the server stream them
+      return send(new LoadRevisionsStreamedRequest(this, infos, branchPoint, referenceChunk, prefetchDepth));
+    }
+
     return send(new LoadRevisionsRequest(this, infos, branchPoint, referenceChunk, prefetchDepth));
   }
 
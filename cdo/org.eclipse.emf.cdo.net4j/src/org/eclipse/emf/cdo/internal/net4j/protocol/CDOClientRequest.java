@@ -81,6 +81,12 @@ public abstract class CDOClientRequest<RESULT> extends RequestWithConfirmation<R
       {
         return getProtocol().getPackageURICompressor();
       }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
     });
   }
 
@@ -101,6 +107,12 @@ public abstract class CDOClientRequest<RESULT> extends RequestWithConfirmation<R
         return getProtocol().getPackageURICompressor();
       }
 
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
+
       @Override
       protected CDOBranchManager getBranchManager()
       {
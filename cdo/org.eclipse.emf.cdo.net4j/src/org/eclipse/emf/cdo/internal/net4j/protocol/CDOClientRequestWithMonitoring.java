@@ -107,6 +107,12 @@ public abstract class CDOClientRequestWithMonitoring<RESULT> extends RequestWith
       {
         return getProtocol().getPackageURICompressor();
       }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
     }, monitor);
   }
 
@@ -122,6 +128,12 @@ public abstract class CDOClientRequestWithMonitoring<RESULT> extends RequestWith
         return getProtocol().getPackageURICompressor();
       }
 
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
+
       @Override
       protected CDOPackageRegistry getPackageRegistry()
       {
@@ -15,6 +15,8 @@ import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
 import org.eclipse.emf.cdo.common.protocol.CDODataInput;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
 
+import org.eclipse.net4j.util.io.StringIO;
+
 import org.eclipse.emf.spi.cdo.InternalCDOSession;
 
 import java.io.IOException;
@@ -29,6 +31,25 @@ public class CommitNotificationIndication extends CDOClientIndication
     super(protocol, CDOProtocolConstants.SIGNAL_COMMIT_NOTIFICATION);
   }
 
+  /**
+   * The server encodes a commit notification only once for all sessions with the same passive update settings, so it
+   * can't use the package URI compressor of this connection.
+   */
+  @Override
+  protected StringIO getPackageURICompressor()
+  {
+    return StringIO.DIRECT;
+  }
+
+  /**
+   * For the same reason the notification does not use the variable-length encoding of this connection.
+   */
+  @Override
+  protected boolean isXCompression()
+  {
+    return false;
+  }
+
   @Override
   protected void indicating(CDODataInput in) throws IOException
   {
@@ -81,7 +81,7 @@ public class LoadChunkRequest extends CDOClientRequest<Object>
       TRACER.format("Writing  version: {0}", version); //$NON-NLS-1$
     }
 
-    out.writeInt(version);
+    out.writeXInt(version);
     if (TRACER.isEnabled())
     {
       TRACER.format("Writing feature: {0}", feature); //$NON-NLS-1$
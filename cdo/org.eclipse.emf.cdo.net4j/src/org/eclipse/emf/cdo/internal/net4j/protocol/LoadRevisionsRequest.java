@@ -49,7 +49,13 @@ public class LoadRevisionsRequest extends CDOClientRequest<List<InternalCDORevis
   public LoadRevisionsRequest(CDOClientProtocol protocol, List<RevisionInfo> infos, CDOBranchPoint branchPoint,
       int referenceChunk, int prefetchDepth)
   {
-    super(protocol, CDOProtocolConstants.SIGNAL_LOAD_REVISIONS);
+    this(protocol, CDOProtocolConstants.SIGNAL_LOAD_REVISIONS, infos, branchPoint, referenceChunk, prefetchDepth);
+  }
+
+  protected LoadRevisionsRequest(CDOClientProtocol protocol, short signalID, List<RevisionInfo> infos,
+      CDOBranchPoint branchPoint, int referenceChunk, int prefetchDepth)
+  {
+    super(protocol, signalID);
     this.infos = infos;
     this.branchPoint = branchPoint;
     this.referenceChunk = referenceChunk;
@@ -129,6 +135,11 @@ public class LoadRevisionsRequest extends CDOClientRequest<List<InternalCDORevis
     }
   }
 
+  protected List<RevisionInfo> getInfos()
+  {
+    return infos;
+  }
+
   @Override
   protected List<InternalCDORevision> confirming(CDODataInput in) throws IOException
   {
@@ -166,8 +177,7 @@ public class LoadRevisionsRequest extends CDOClientRequest<List<InternalCDORevis
   @Override
   public String toString()
   {
-    return MessageFormat.format(
-        "LoadRevisionsRequest(infos={0}, branchPoint={1}, referenceChunk={2}, prefetchDepth={3})", infos, branchPoint,
-        referenceChunk, prefetchDepth);
+    return MessageFormat.format("{0}(infos={1}, branchPoint={2}, referenceChunk={3}, prefetchDepth={4})", //$NON-NLS-1$
+        getClass().getSimpleName(), infos, branchPoint, referenceChunk, prefetchDepth);
   }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.net4j.protocol;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.protocol.CDODataInput;
+import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
+import org.eclipse.emf.cdo.internal.net4j.bundle.OM;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionManager;
+import org.eclipse.emf.cdo.spi.common.revision.RevisionInfo;
+
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link LoadRevisionsRequest} that receives the additional revisions while the server is still loading them. Each
+ * additional revision is added to the revision manager as soon as it is read, so it is available to other threads before
+ * the whole response has arrived.
+ *
+ * @author Eike Stepper
+ */
+public class LoadRevisionsStreamedRequest extends LoadRevisionsRequest
+{
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_PROTOCOL, LoadRevisionsStreamedRequest.class);
+
+  public LoadRevisionsStreamedRequest(CDOClientProtocol protocol, List<RevisionInfo> infos,
+      CDOBranchPoint branchPoint, int referenceChunk, int prefetchDepth)
+  {
+    super(protocol, CDOProtocolConstants.SIGNAL_LOAD_REVISIONS_STREAMED, infos, branchPoint, referenceChunk,
+        prefetchDepth);
+  }
+
+  @Override
+  protected List<InternalCDORevision> confirming(CDODataInput in) throws IOException
+  {
+    List<RevisionInfo> infos = getInfos();
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Reading {0} revisions", infos.size()); //$NON-NLS-1$
+    }
+
+    for (RevisionInfo info : infos)
+    {
+      info.readResult(in);
+    }
+
+    InternalCDORevisionManager revisionManager = getSession().getRevisionManager();
+    List<InternalCDORevision> additionalRevisions = new ArrayList<InternalCDORevision>();
+    while (in.readBoolean())
+    {
+      InternalCDORevision revision = (InternalCDORevision)in.readCDORevision();
+      revisionManager.addRevision(revision);
+      additionalRevisions.add(revision);
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Read {0} additional revisions", additionalRevisions.size()); //$NON-NLS-1$
+    }
+
+    return additionalRevisions;
+  }
+}
@@ -22,6 +22,7 @@ import org.eclipse.emf.cdo.common.protocol.CDODataInput;
 import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
 import org.eclipse.emf.cdo.common.util.CDOCommonUtil;
+import org.eclipse.emf.cdo.internal.net4j.CDONet4jSessionImpl;
 import org.eclipse.emf.cdo.internal.net4j.bundle.OM;
 import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageUnit;
 
@@ -30,6 +31,7 @@ import org.eclipse.net4j.util.om.trace.ContextTracer;
 
 import org.eclipse.emf.spi.cdo.CDOSessionProtocol.OpenSessionResult;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
@@ -91,6 +93,14 @@ public class OpenSessionRequest extends CDOClientRequestWithMonitoring<OpenSessi
     }
 
     out.writeEnum(lockNotificationMode);
+
+    boolean compactEncoding = ((CDONet4jSessionImpl)getSession()).isCompactEncoding();
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Writing compactEncoding: {0}", compactEncoding); //$NON-NLS-1$
+    }
+
+    out.writeBoolean(compactEncoding);
   }
 
   @Override
@@ -216,6 +226,30 @@ public class OpenSessionRequest extends CDOClientRequestWithMonitoring<OpenSessi
       result.getPackageUnits().add((InternalCDOPackageUnit)packageUnits[i]);
     }
 
+    // Older servers neither read the requested flag nor confirm it, so the encoding stays fixed-width with them
+    boolean compactEncoding = readCompactEncoding(in);
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Read compactEncoding: {0}", compactEncoding); //$NON-NLS-1$
+    }
+
+    getProtocol().setXCompression(compactEncoding);
     return result;
   }
+
+  /**
+   * Reads the compact encoding flag that newer servers append to the response. Older servers end the response before
+   * it.
+   */
+  private static boolean readCompactEncoding(CDODataInput in) throws IOException
+  {
+    try
+    {
+      return in.readBoolean();
+    }
+    catch (EOFException ex)
+    {
+      return false;
+    }
+  }
 }
@@ -52,6 +52,24 @@ public interface CDONet4jSessionConfiguration extends org.eclipse.emf.cdo.sessio
    */
   public void setSignalTimeout(long timeout);
 
+  /**
+   * Returns <code>true</code> if the session asks the repository to use a variable-length encoding for the numbers, IDs
+   * and array lengths of its signals, <code>false</code> otherwise. The default is <code>true</code>.
+   * <p>
+   * The encoding is only used if the repository confirms it while the session is opened. Repositories that don't know
+   * the encoding don't confirm it, and the session then uses the fixed-width encoding.
+   *
+   * @since 4.2
+   */
+  public boolean isCompactEncoding();
+
+  /**
+   * Can only be set <b>before</b> the session is opened.
+   *
+   * @since 4.2
+   */
+  public void setCompactEncoding(boolean compactEncoding);
+
   /**
    * @see CDONet4jSession#getPackageRegistry()
    */
@@ -74,5 +74,55 @@ public interface IDBStore extends IStore, IDBConnectionProvider, CanHandleClient
   public interface Props
   {
     public static final String CONNECTION_KEEPALIVE_PERIOD = "connectionKeepAlivePeriod"; //$NON-NLS-1$
+
+    /**
+     * The number of concurrent commits at which a group stops waiting for more commits before it is made durable with
+     * a single database commit. Commits that finish writing while the group waits for the database also join it.
+     * Values greater than 1 enable group commits, which are only effective if the repository does not serialize
+     * commits.
+     *
+     * @since 4.2
+     */
+    public static final String GROUP_COMMIT_MAX_SIZE = "groupCommitMaxSize"; //$NON-NLS-1$
+
+    /**
+     * The number of milliseconds that the first commit of a group waits for more commits to join the group. The
+     * default is 0, i.e., a group consists of the commits that have finished writing while the previous group was
+     * committed.
+     *
+     * @since 4.2
+     */
+    public static final String GROUP_COMMIT_WINDOW = "groupCommitWindow"; //$NON-NLS-1$
+
+    /**
+     * The maximum number of connections of the built-in {@link org.eclipse.net4j.db.IDBConnectionPool connection
+     * pool}. Values greater than 0 make the store pool the connections of its connection provider; store accessors
+     * then also share the prepared statements that stay open in the pooled connections.
+     *
+     * @since 4.2
+     */
+    public static final String CONNECTION_POOL_MAX_SIZE = "connectionPoolMaxSize"; //$NON-NLS-1$
+
+    /**
+     * The number of connections that the connection pool keeps open even if they are idle. The default is 0.
+     *
+     * @since 4.2
+     */
+    public static final String CONNECTION_POOL_MIN_SIZE = "connectionPoolMinSize"; //$NON-NLS-1$
+
+    /**
+     * The number of milliseconds after which the connection pool closes an idle connection.
+     *
+     * @since 4.2
+     */
+    public static final String CONNECTION_POOL_IDLE_TIMEOUT = "connectionPoolIdleTimeout"; //$NON-NLS-1$
+
+    /**
+     * The number of milliseconds after which the connection pool reports a connection that has not been returned as a
+     * leak. The default is 0, i.e., leaks are not detected.
+     *
+     * @since 4.2
+     */
+    public static final String CONNECTION_POOL_LEAK_TIMEOUT = "connectionPoolLeakTimeout"; //$NON-NLS-1$
   }
 }
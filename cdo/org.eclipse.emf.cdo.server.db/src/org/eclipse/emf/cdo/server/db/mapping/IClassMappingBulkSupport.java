@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.db.mapping;
+
+import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+
+import org.eclipse.net4j.util.om.monitor.OMMonitor;
+
+import java.util.List;
+
+/**
+ * Interface which complements {@link IClassMapping} with methods to read and write multiple revisions of the mapped
+ * class with a small number of SQL statements.
+ * 
+ * @author Eike Stepper
+ * @since 4.2
+ */
+public interface IClassMappingBulkSupport
+{
+  /**
+   * Reads the current values of multiple revisions.
+   * 
+   * @param accessor
+   *          the accessor to use.
+   * @param revisions
+   *          the revision objects into which the data should be read. All revisions must have distinct IDs and the
+   *          same branch point set, which is used to determine the revisions to be read.
+   * @param listChunk
+   *          the chunk size to read attribute lists.
+   * @return the revisions that have been found and read correctly. The content of the other revisions is undefined.
+   */
+  public List<InternalCDORevision> readRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions,
+      int listChunk);
+
+  /**
+   * Writes multiple revisions with one statement batch per table. Resource nodes must be written with
+   * {@link IClassMapping#writeRevision(IDBStoreAccessor, InternalCDORevision, boolean, boolean, OMMonitor)
+   * writeRevision()}, so that duplicate resource names within a commit are detected.
+   * 
+   * @param accessor
+   *          the accessor to use.
+   * @param revisions
+   *          the revisions to write. All revisions must have distinct IDs.
+   * @param mapType
+   *          <code>true</code> if the type of the objects has to be written to the object type table, i.e., the
+   *          revisions are the first revisions of new objects.
+   * @param revise
+   *          <code>true</code> if the previous versions of the revisions have to be revised.
+   * @param monitor
+   *          the monitor to indicate progress.
+   */
+  public void writeRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions, boolean mapType,
+      boolean revise, OMMonitor monitor);
+}
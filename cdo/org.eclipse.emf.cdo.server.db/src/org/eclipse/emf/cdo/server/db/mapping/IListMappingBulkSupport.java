@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.db.mapping;
+
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+
+import java.util.List;
+
+/**
+ * Interface to complement {@link IListMapping} with methods to read and write the list values of multiple revisions
+ * with a small number of SQL statements.
+ * 
+ * @author Eike Stepper
+ * @since 4.2
+ */
+public interface IListMappingBulkSupport
+{
+  /**
+   * Reads the list values of multiple revisions.
+   * 
+   * @param accessor
+   *          the accessor to use.
+   * @param revisions
+   *          the revisions with distinct IDs whose lists have been initialized with the list sizes.
+   * @param listChunk
+   *          the number of entries to read per list, or {@link CDORevision#UNCHUNKED}.
+   */
+  public void readValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions, int listChunk);
+
+  /**
+   * Writes the list values of multiple revisions with one statement batch.
+   * 
+   * @param accessor
+   *          the accessor to use.
+   * @param revisions
+   *          the revisions with distinct IDs whose list values are to be written.
+   */
+  public void writeValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions);
+}
@@ -96,6 +96,15 @@ public interface IMappingStrategy
    */
   public static final String PROP_OBJECT_TYPE_CACHE_SIZE = "objectTypeCacheSize"; //$NON-NLS-1$
 
+  /**
+   * Name of the boolean property that configures whether the object type in-memory cache is filled with the most
+   * recently created objects when the repository is started. Only effective for repositories with long IDs. Default is
+   * <code>false</code>.
+   * 
+   * @since 4.2
+   */
+  public static final String PROP_OBJECT_TYPE_CACHE_WARM_UP = "objectTypeCacheWarmUp"; //$NON-NLS-1$
+
   /**
    * @return the store, this MappingStrategy instance belongs to.
    */
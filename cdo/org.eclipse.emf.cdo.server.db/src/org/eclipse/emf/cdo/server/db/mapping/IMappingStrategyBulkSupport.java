@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.db.mapping;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.model.CDOClassifierRef;
+import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Interface which complements {@link IMappingStrategy} with methods to read the types of multiple objects with a small
+ * number of SQL statements.
+ * 
+ * @author Eike Stepper
+ * @since 4.2
+ */
+public interface IMappingStrategyBulkSupport
+{
+  /**
+   * Read the types (i.e. classes) of the objects referred to by the given IDs with as few statements as possible.
+   * 
+   * @param accessor
+   *          the accessor to use to look up the types.
+   * @param ids
+   *          the IDs of the objects for which the types are to be determined.
+   * @return the types of the objects. IDs whose type is unknown are not contained.
+   */
+  public Map<CDOID, CDOClassifierRef> readObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids);
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.db;
+
+import org.eclipse.emf.cdo.server.db.CDODBUtil;
+import org.eclipse.emf.cdo.server.db.IDBStore;
+import org.eclipse.emf.cdo.server.db.IPreparedStatementCache;
+import org.eclipse.emf.cdo.server.internal.db.bundle.OM;
+
+import org.eclipse.net4j.db.DBException;
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.util.lifecycle.Lifecycle;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Lets the {@link DBStoreAccessor accessors} of concurrent commits write their changes into one shared connection, so
+ * that a group of commits is made durable with a single physical database commit.
+ * <p>
+ * The write phases of the members are serialized and each of them is protected by a savepoint, so that the failure of
+ * one member does not affect the changes of the others. The first member of a group waits until the
+ * {@link IDBStore.Props#GROUP_COMMIT_WINDOW window} has elapsed or the group has reached its
+ * {@link IDBStore.Props#GROUP_COMMIT_MAX_SIZE maximum size}, then commits the shared connection on behalf of all
+ * members. Each member receives the outcome of that commit as its own result.
+ * <p>
+ * All members that have written before the physical commit starts belong to the group, even if that exceeds the
+ * maximum size, and no member can write while the physical commit is running. Hence a group never reports success for
+ * changes that were rolled back with another group.
+ * <p>
+ * Commits can only be grouped if the repository does not serialize them.
+ *
+ * @author Eike Stepper
+ */
+public class DBGroupCommitter extends Lifecycle
+{
+  public static final long DEFAULT_WINDOW = 0;
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, DBGroupCommitter.class);
+
+  private DBStore store;
+
+  private int maxSize;
+
+  private long window;
+
+  private Semaphore writeLock = new Semaphore(1, true);
+
+  private Connection connection;
+
+  private IPreparedStatementCache statementCache;
+
+  private Group currentGroup;
+
+  public DBGroupCommitter(DBStore store, int maxSize, long window)
+  {
+    this.store = store;
+    this.maxSize = maxSize;
+    this.window = window;
+  }
+
+  public DBStore getStore()
+  {
+    return store;
+  }
+
+  public int getMaxSize()
+  {
+    return maxSize;
+  }
+
+  public long getWindow()
+  {
+    return window;
+  }
+
+  /**
+   * Returns the connection that the members of a group write to, or <code>null</code> if this committer is not active.
+   */
+  public Connection getConnection()
+  {
+    return connection;
+  }
+
+  public IPreparedStatementCache getStatementCache()
+  {
+    return statementCache;
+  }
+
+  /**
+   * Waits until no other member is writing to the {@link #getConnection() shared connection} and returns a savepoint
+   * that the caller's changes can be rolled back to with {@link #abortWrite(Savepoint) abortWrite()}.
+   */
+  public Savepoint beginWrite()
+  {
+    writeLock.acquireUninterruptibly();
+
+    try
+    {
+      return connection.setSavepoint();
+    }
+    catch (SQLException ex)
+    {
+      writeLock.release();
+      throw new DBException(ex);
+    }
+    catch (RuntimeException ex)
+    {
+      writeLock.release();
+      throw ex;
+    }
+  }
+
+  /**
+   * Rolls the {@link #getConnection() shared connection} back to the given savepoint and ends the write phase of the
+   * caller.
+   */
+  public void abortWrite(Savepoint savepoint)
+  {
+    try
+    {
+      connection.rollback(savepoint);
+    }
+    catch (SQLException ex)
+    {
+      throw new DBException(ex);
+    }
+    finally
+    {
+      writeLock.release();
+    }
+  }
+
+  /**
+   * Ends the write phase of the caller, joins the current group and waits until the changes of the group have been
+   * committed.
+   *
+   * @throws DBException if the physical commit of the group has failed.
+   */
+  public void commit()
+  {
+    Group group;
+    boolean leader;
+
+    synchronized (this)
+    {
+      // The changes of the caller are already in the shared connection, so it must join the group that commits them.
+      // A new group can only start after the physical commit of the previous group has ended.
+      group = currentGroup;
+      if (group == null)
+      {
+        group = new Group();
+        currentGroup = group;
+      }
+
+      leader = ++group.size == 1;
+      if (group.size >= maxSize)
+      {
+        notifyAll();
+      }
+    }
+
+    writeLock.release();
+
+    if (leader)
+    {
+      awaitMembers(group);
+      commitGroup(group);
+    }
+
+    Exception exception = awaitResult(group);
+    if (exception != null)
+    {
+      throw new DBException("Group commit failed", exception); //$NON-NLS-1$
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "DBGroupCommitter[" + maxSize + ", " + window + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  @Override
+  protected void doBeforeActivate() throws Exception
+  {
+    super.doBeforeActivate();
+    checkArg(maxSize > 1, "maxSize must be greater than 1"); //$NON-NLS-1$
+    checkArg(window >= 0, "window must not be negative"); //$NON-NLS-1$
+  }
+
+  @Override
+  protected void doActivate() throws Exception
+  {
+    super.doActivate();
+    connection = openConnection();
+
+    statementCache = CDODBUtil.createStatementCache();
+    statementCache.setConnection(connection);
+    LifecycleUtil.activate(statementCache);
+  }
+
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    LifecycleUtil.deactivate(statementCache);
+    statementCache = null;
+
+    DBUtil.close(connection);
+    connection = null;
+    super.doDeactivate();
+  }
+
+  /**
+   * Returns the connection that the members of the groups write to. It is closed when this committer is deactivated.
+   */
+  protected Connection openConnection()
+  {
+    return store.getConnection();
+  }
+
+  private void awaitMembers(Group group)
+  {
+    boolean interrupted = false;
+
+    synchronized (this)
+    {
+      long end = System.currentTimeMillis() + window;
+      while (group.size < maxSize)
+      {
+        long remaining = end - System.currentTimeMillis();
+        if (remaining <= 0)
+        {
+          break;
+        }
+
+        try
+        {
+          wait(remaining);
+        }
+        catch (InterruptedException ex)
+        {
+          interrupted = true;
+          break;
+        }
+      }
+    }
+
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void commitGroup(Group group)
+  {
+    // Wait for the member that is currently writing, if any. It joins this group before it releases the lock. No other
+    // member can write before the physical commit or rollback below has ended, so a failure only affects this group.
+    writeLock.acquireUninterruptibly();
+    Exception exception = null;
+
+    try
+    {
+      synchronized (this)
+      {
+        if (currentGroup == group)
+        {
+          currentGroup = null;
+        }
+      }
+
+      if (TRACER.isEnabled())
+      {
+        TRACER.format("--- DB GROUP COMMIT ({0}) ---", group.size); //$NON-NLS-1$
+      }
+
+      connection.commit();
+    }
+    catch (Exception ex)
+    {
+      exception = ex;
+
+      try
+      {
+        connection.rollback();
+      }
+      catch (Exception ex1)
+      {
+        OM.LOG.error(ex1);
+      }
+    }
+    finally
+    {
+      writeLock.release();
+    }
+
+    synchronized (this)
+    {
+      group.exception = exception;
+      group.done = true;
+      notifyAll();
+    }
+  }
+
+  private Exception awaitResult(Group group)
+  {
+    boolean interrupted = false;
+
+    synchronized (this)
+    {
+      // The changes of this member may already be committed, so the wait must not be abandoned
+      while (!group.done)
+      {
+        try
+        {
+          wait();
+        }
+        catch (InterruptedException ex)
+        {
+          interrupted = true;
+        }
+      }
+    }
+
+    if (interrupted)
+    {
+      Thread.currentThread().interrupt();
+    }
+
+    return group.exception;
+  }
+
+  /**
+   * Returns a new group committer if the given {@link DBStore#getProperties() store properties} enable group commits,
+   * <code>null</code> otherwise.
+   */
+  public static DBGroupCommitter create(DBStore store, Map<String, String> properties)
+  {
+    if (properties != null)
+    {
+      String value = properties.get(IDBStore.Props.GROUP_COMMIT_MAX_SIZE);
+      if (value != null)
+      {
+        int maxSize = Integer.parseInt(value);
+        if (maxSize > 1)
+        {
+          long window = DEFAULT_WINDOW;
+          value = properties.get(IDBStore.Props.GROUP_COMMIT_WINDOW);
+          if (value != null)
+          {
+            window = Long.parseLong(value);
+          }
+
+          return new DBGroupCommitter(store, maxSize, window);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * The commits that are made durable with the same physical database commit. Guarded by the committer.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Group
+  {
+    private int size;
+
+    private boolean done;
+
+    private Exception exception;
+  }
+}
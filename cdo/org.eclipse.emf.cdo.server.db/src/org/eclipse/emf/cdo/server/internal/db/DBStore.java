@@ -40,6 +40,7 @@ import org.eclipse.emf.cdo.spi.server.StoreAccessorPool;
 import org.eclipse.net4j.db.DBException;
 import org.eclipse.net4j.db.DBUtil;
 import org.eclipse.net4j.db.IDBAdapter;
+import org.eclipse.net4j.db.IDBConnectionPool;
 import org.eclipse.net4j.db.IDBConnectionProvider;
 import org.eclipse.net4j.db.ddl.IDBSchema;
 import org.eclipse.net4j.db.ddl.IDBTable;
@@ -135,6 +136,12 @@ public class DBStore extends Store implements IDBStore, CDOAllRevisionsProvider
   @ExcludeFromDump
   private transient Timer connectionKeepAliveTimer;
 
+  @ExcludeFromDump
+  private transient DBGroupCommitter groupCommitter;
+
+  @ExcludeFromDump
+  private transient IDBConnectionPool connectionPool;
+
   public DBStore()
   {
     super(TYPE, null, set(ChangeFormat.REVISION, ChangeFormat.DELTA), //
@@ -180,10 +187,11 @@ public class DBStore extends Store implements IDBStore, CDOAllRevisionsProvider
 
   public Connection getConnection()
   {
-    Connection connection = dbConnectionProvider.getConnection();
+    IDBConnectionProvider provider = connectionPool != null ? connectionPool : dbConnectionProvider;
+    Connection connection = provider.getConnection();
     if (connection == null)
     {
-      throw new DBException("No connection from connection provider: " + dbConnectionProvider); //$NON-NLS-1$
+      throw new DBException("No connection from connection provider: " + provider); //$NON-NLS-1$
     }
 
     try
@@ -223,6 +231,25 @@ public class DBStore extends Store implements IDBStore, CDOAllRevisionsProvider
     return connectionKeepAliveTimer;
   }
 
+  /**
+   * Returns the committer that groups concurrent commits, or <code>null</code> if group commits are not enabled.
+   */
+  public DBGroupCommitter getGroupCommitter()
+  {
+    return groupCommitter;
+  }
+
+  /**
+   * Returns the pool of the connections of the {@link #setDbConnectionProvider(IDBConnectionProvider) connection
+   * provider}, or <code>null</code> if connection pooling is not enabled.
+   *
+   * @see IDBStore.Props#CONNECTION_POOL_MAX_SIZE
+   */
+  public IDBConnectionPool getConnectionPool()
+  {
+    return connectionPool;
+  }
+
   @Override
   public Set<ChangeFormat> getSupportedChangeFormats()
   {
@@ -517,6 +544,9 @@ public class DBStore extends Store implements IDBStore, CDOAllRevisionsProvider
     setObjectIDTypes(idHandler.getObjectIDTypes());
     connectionKeepAliveTimer = new Timer("Connection-Keep-Alive-" + this); //$NON-NLS-1$
 
+    connectionPool = createConnectionPool();
+    LifecycleUtil.activate(connectionPool);
+
     Set<IDBTable> createdTables = null;
     Connection connection = getConnection();
 
@@ -544,6 +574,9 @@ public class DBStore extends Store implements IDBStore, CDOAllRevisionsProvider
     LifecycleUtil.activate(durableLockingManager);
     LifecycleUtil.activate(mappingStrategy);
 
+    groupCommitter = DBGroupCommitter.create(this, properties);
+    LifecycleUtil.activate(groupCommitter);
+
     setRevisionTemporality(mappingStrategy.hasAuditSupport() ? RevisionTemporality.AUDITING : RevisionTemporality.NONE);
     setRevisionParallelism(mappingStrategy.hasBranchingSupport() ? RevisionParallelism.BRANCHING
         : RevisionParallelism.NONE);
@@ -592,12 +625,59 @@ public class DBStore extends Store implements IDBStore, CDOAllRevisionsProvider
       writerPool.dispose();
     }
 
+    LifecycleUtil.deactivate(groupCommitter);
+    groupCommitter = null;
+
     connectionKeepAliveTimer.cancel();
     connectionKeepAliveTimer = null;
 
+    LifecycleUtil.deactivate(connectionPool);
+    connectionPool = null;
+
     super.doDeactivate();
   }
 
+  /**
+   * Returns a new pool of the connections of the connection provider if the store {@link #getProperties() properties}
+   * enable connection pooling, <code>null</code> otherwise.
+   */
+  protected IDBConnectionPool createConnectionPool()
+  {
+    if (properties == null)
+    {
+      return null;
+    }
+
+    String value = properties.get(IDBStore.Props.CONNECTION_POOL_MAX_SIZE);
+    if (value == null || Integer.parseInt(value) <= 0)
+    {
+      return null;
+    }
+
+    IDBConnectionPool pool = DBUtil.createConnectionPool(dbConnectionProvider, dbAdapter);
+    pool.setMaxSize(Integer.parseInt(value));
+
+    value = properties.get(IDBStore.Props.CONNECTION_POOL_MIN_SIZE);
+    if (value != null)
+    {
+      pool.setMinSize(Integer.parseInt(value));
+    }
+
+    value = properties.get(IDBStore.Props.CONNECTION_POOL_IDLE_TIMEOUT);
+    if (value != null)
+    {
+      pool.setIdleTimeout(Long.parseLong(value));
+    }
+
+    value = properties.get(IDBStore.Props.CONNECTION_POOL_LEAK_TIMEOUT);
+    if (value != null)
+    {
+      pool.setLeakTimeout(Long.parseLong(value));
+    }
+
+    return pool;
+  }
+
   protected boolean isFirstStart(Set<IDBTable> createdTables)
   {
     if (createdTables.contains(CDODBSchema.PROPERTIES))
@@ -31,12 +31,14 @@ import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
 import org.eclipse.emf.cdo.common.revision.CDORevisionCacheAdder;
 import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
+import org.eclipse.emf.cdo.common.revision.CDORevisionManager;
 import org.eclipse.emf.cdo.common.util.CDOQueryInfo;
 import org.eclipse.emf.cdo.eresource.EresourcePackage;
 import org.eclipse.emf.cdo.server.IQueryHandler;
 import org.eclipse.emf.cdo.server.IRepository;
 import org.eclipse.emf.cdo.server.ISession;
 import org.eclipse.emf.cdo.server.IStoreAccessor;
+import org.eclipse.emf.cdo.server.IStoreAccessor.BulkRevisionReader;
 import org.eclipse.emf.cdo.server.IStoreAccessor.DurableLocking2;
 import org.eclipse.emf.cdo.server.ITransaction;
 import org.eclipse.emf.cdo.server.db.CDODBUtil;
@@ -48,8 +50,10 @@ import org.eclipse.emf.cdo.server.db.IPreparedStatementCache;
 import org.eclipse.emf.cdo.server.db.IPreparedStatementCache.ReuseProbability;
 import org.eclipse.emf.cdo.server.db.mapping.IClassMapping;
 import org.eclipse.emf.cdo.server.db.mapping.IClassMappingAuditSupport;
+import org.eclipse.emf.cdo.server.db.mapping.IClassMappingBulkSupport;
 import org.eclipse.emf.cdo.server.db.mapping.IClassMappingDeltaSupport;
 import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategy;
+import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategyBulkSupport;
 import org.eclipse.emf.cdo.server.internal.db.bundle.OM;
 import org.eclipse.emf.cdo.server.internal.db.mapping.horizontal.AbstractHorizontalClassMapping;
 import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranch;
@@ -96,11 +100,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -109,7 +116,7 @@ import java.util.TimerTask;
 /**
  * @author Eike Stepper
  */
-public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor, DurableLocking2
+public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor, DurableLocking2, BulkRevisionReader
 {
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, DBStoreAccessor.class);
 
@@ -119,6 +126,10 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
   private IPreparedStatementCache statementCache;
 
+  private DBGroupCommitter groupCommitter;
+
+  private Savepoint groupSavepoint;
+
   private Set<CDOID> newObjects = new HashSet<CDOID>();
 
   private CDOID maxID = CDOID.NULL;
@@ -141,6 +152,11 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
   public IPreparedStatementCache getStatementCache()
   {
+    if (groupCommitter != null)
+    {
+      return groupCommitter.getStatementCache();
+    }
+
     return statementCache;
   }
 
@@ -202,6 +218,61 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     return null;
   }
 
+  /**
+   * Returns the types of the objects with the given IDs. The types that are not cached are read with a single call to
+   * the mapping strategy. IDs whose type is unknown are not contained in the resulting map.
+   */
+  protected Map<CDOID, EClass> getObjectTypes(Collection<CDOID> ids)
+  {
+    IRepository repository = getStore().getRepository();
+    CDORevisionManager revisionManager = repository.getRevisionManager();
+    CDOID rootResourceID = repository.getRootResourceID();
+
+    Map<CDOID, EClass> result = new LinkedHashMap<CDOID, EClass>();
+    List<CDOID> missingIDs = new ArrayList<CDOID>();
+    for (CDOID id : ids)
+    {
+      if (result.containsKey(id))
+      {
+        continue;
+      }
+
+      EClass eClass = rootResourceID.equals(id) ? EresourcePackage.Literals.CDO_RESOURCE : revisionManager
+          .getObjectType(id);
+      result.put(id, eClass);
+      if (eClass == null)
+      {
+        missingIDs.add(id);
+      }
+    }
+
+    if (!missingIDs.isEmpty())
+    {
+      IMappingStrategy mappingStrategy = getStore().getMappingStrategy();
+      Map<CDOID, CDOClassifierRef> types = null;
+      if (mappingStrategy instanceof IMappingStrategyBulkSupport)
+      {
+        types = ((IMappingStrategyBulkSupport)mappingStrategy).readObjectTypes(this, missingIDs);
+      }
+
+      CDOPackageRegistry packageRegistry = repository.getPackageRegistry();
+      for (CDOID id : missingIDs)
+      {
+        CDOClassifierRef type = types != null ? types.get(id) : mappingStrategy.readObjectType(this, id);
+        if (type != null)
+        {
+          result.put(id, (EClass)type.resolve(packageRegistry));
+        }
+        else
+        {
+          result.remove(id);
+        }
+      }
+    }
+
+    return result;
+  }
+
   public InternalCDORevision readRevision(CDOID id, CDOBranchPoint branchPoint, int listChunk,
       CDORevisionCacheAdder cache)
   {
@@ -236,6 +307,69 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     return null;
   }
 
+  public Map<CDOID, InternalCDORevision> readRevisions(Collection<CDOID> ids, CDOBranchPoint branchPoint,
+      int listChunk, CDORevisionCacheAdder cache)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Selecting {0} revisions from {1}", ids.size(), branchPoint); //$NON-NLS-1$
+    }
+
+    Map<CDOID, InternalCDORevision> result = new HashMap<CDOID, InternalCDORevision>();
+    IMappingStrategy mappingStrategy = getStore().getMappingStrategy();
+
+    // Group the revisions by class mapping so that each attribute table is queried with IN lists
+    Map<IClassMapping, List<InternalCDORevision>> revisions = new HashMap<IClassMapping, List<InternalCDORevision>>();
+
+    Map<CDOID, EClass> objectTypes = getObjectTypes(ids);
+    for (Map.Entry<CDOID, EClass> objectType : objectTypes.entrySet())
+    {
+      CDOID id = objectType.getKey();
+      EClass eClass = objectType.getValue();
+
+      IClassMapping mapping = mappingStrategy.getClassMapping(eClass);
+      if (mapping instanceof IClassMappingBulkSupport)
+      {
+        List<InternalCDORevision> list = revisions.get(mapping);
+        if (list == null)
+        {
+          list = new ArrayList<InternalCDORevision>();
+          revisions.put(mapping, list);
+        }
+
+        InternalCDORevision revision = getStore().createRevision(eClass, id);
+        revision.setBranchPoint(branchPoint);
+        list.add(revision);
+      }
+      else
+      {
+        InternalCDORevision revision = readRevision(id, branchPoint, listChunk, cache);
+        if (revision != null)
+        {
+          result.put(id, revision);
+        }
+      }
+    }
+
+    for (Map.Entry<IClassMapping, List<InternalCDORevision>> entry : revisions.entrySet())
+    {
+      IClassMappingBulkSupport mapping = (IClassMappingBulkSupport)entry.getKey();
+      for (InternalCDORevision revision : mapping.readRevisions(this, entry.getValue(), listChunk))
+      {
+        int version = revision.getVersion();
+        if (version < CDOBranchVersion.FIRST_VERSION - 1)
+        {
+          revision = new DetachedCDORevision(revision.getEClass(), revision.getID(), revision.getBranch(), -version,
+              revision.getTimeStamp(), revision.getRevised());
+        }
+
+        result.put(revision.getID(), revision);
+      }
+    }
+
+    return result;
+  }
+
   public InternalCDORevision readRevisionByVersion(CDOID id, CDOBranchVersion branchVersion, int listChunk,
       CDORevisionCacheAdder cache)
   {
@@ -326,7 +460,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_QUERY_LOBS, ReuseProbability.MEDIUM);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_QUERY_LOBS, ReuseProbability.MEDIUM);
 
       for (Iterator<byte[]> it = ids.iterator(); it.hasNext();)
       {
@@ -353,7 +487,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -364,7 +498,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_LOAD_LOB, ReuseProbability.MEDIUM);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_LOAD_LOB, ReuseProbability.MEDIUM);
       stmt.setString(1, HexUtil.bytesToHex(id));
 
       try
@@ -397,7 +531,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -408,7 +542,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_HANDLE_LOBS, ReuseProbability.LOW);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_HANDLE_LOBS, ReuseProbability.LOW);
 
       try
       {
@@ -464,7 +598,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -500,7 +634,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_CREATE_COMMIT_INFO, ReuseProbability.HIGH);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_CREATE_COMMIT_INFO, ReuseProbability.HIGH);
       stmt.setLong(1, timeStamp);
       stmt.setLong(2, previousTimeStamp);
       stmt.setInt(3, branch.getID());
@@ -515,7 +649,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -559,10 +693,38 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     try
     {
       monitor.begin(revisions.length);
+      IMappingStrategy mappingStrategy = getStore().getMappingStrategy();
+
+      // Group the revisions by class mapping so that each table is written with one statement batch
+      Map<IClassMapping, List<InternalCDORevision>> created = new HashMap<IClassMapping, List<InternalCDORevision>>();
+      Map<IClassMapping, List<InternalCDORevision>> revised = new HashMap<IClassMapping, List<InternalCDORevision>>();
+
       for (InternalCDORevision revision : revisions)
       {
-        writeRevision(revision, newObjects.contains(revision.getID()), true, monitor.fork());
+        boolean mapType = newObjects.contains(revision.getID());
+
+        // Resource nodes are written one by one, so that duplicate names within a commit are detected
+        IClassMapping mapping = mappingStrategy.getClassMapping(revision.getEClass());
+        if (mapping instanceof IClassMappingBulkSupport && !revision.isResourceNode())
+        {
+          Map<IClassMapping, List<InternalCDORevision>> map = mapType ? created : revised;
+          List<InternalCDORevision> list = map.get(mapping);
+          if (list == null)
+          {
+            list = new ArrayList<InternalCDORevision>();
+            map.put(mapping, list);
+          }
+
+          list.add(revision);
+        }
+        else
+        {
+          writeRevision(revision, mapType, true, monitor.fork());
+        }
       }
+
+      writeRevisions(created, true, monitor);
+      writeRevisions(revised, false, monitor);
     }
     finally
     {
@@ -571,6 +733,23 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
   }
 
+  private void writeRevisions(Map<IClassMapping, List<InternalCDORevision>> revisions, boolean mapType,
+      OMMonitor monitor)
+  {
+    for (Map.Entry<IClassMapping, List<InternalCDORevision>> entry : revisions.entrySet())
+    {
+      IClassMappingBulkSupport mapping = (IClassMappingBulkSupport)entry.getKey();
+      List<InternalCDORevision> list = entry.getValue();
+
+      if (TRACER.isEnabled())
+      {
+        TRACER.format("Writing {0} revisions of {1}", list.size(), entry.getKey().getEClass().getName()); //$NON-NLS-1$
+      }
+
+      mapping.writeRevisions(this, list, mapType, true, monitor.fork(list.size()));
+    }
+  }
+
   protected void writeRevision(InternalCDORevision revision, boolean mapType, boolean revise, OMMonitor monitor)
   {
     if (TRACER.isEnabled())
@@ -627,6 +806,11 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
   public Connection getConnection()
   {
+    if (groupCommitter != null)
+    {
+      return groupCommitter.getConnection();
+    }
+
     return connection;
   }
 
@@ -643,7 +827,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_WRITE_BLOB, ReuseProbability.MEDIUM);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_WRITE_BLOB, ReuseProbability.MEDIUM);
       stmt.setString(1, HexUtil.bytesToHex(id));
       stmt.setLong(2, size);
       stmt.setBinaryStream(3, inputStream, (int)size);
@@ -656,7 +840,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -667,7 +851,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_WRITE_CLOB, ReuseProbability.MEDIUM);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_WRITE_CLOB, ReuseProbability.MEDIUM);
       stmt.setString(1, HexUtil.bytesToHex(id));
       stmt.setLong(2, size);
       stmt.setCharacterStream(3, reader, (int)size);
@@ -680,10 +864,24 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
+  @Override
+  protected void doWrite(InternalCommitContext context, OMMonitor monitor)
+  {
+    // Creating tables commits implicitly on some databases, so new packages are never written as part of a group
+    DBGroupCommitter groupCommitter = getStore().getGroupCommitter();
+    if (groupCommitter != null && context.getNewPackageUnits().length == 0)
+    {
+      groupSavepoint = groupCommitter.beginWrite();
+      this.groupCommitter = groupCommitter;
+    }
+
+    super.doWrite(context, monitor);
+  }
+
   @Override
   protected final void doCommit(OMMonitor monitor)
   {
@@ -700,7 +898,17 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
       try
       {
         async = monitor.forkAsync();
-        getConnection().commit();
+        if (groupCommitter != null)
+        {
+          DBGroupCommitter groupCommitter = this.groupCommitter;
+          this.groupCommitter = null;
+          groupSavepoint = null;
+          groupCommitter.commit();
+        }
+        else
+        {
+          getConnection().commit();
+        }
 
         if (maxID != CDOID.NULL)
         {
@@ -739,6 +947,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
+      abortGroupWrite();
       getConnection().rollback();
 
       // Bugzilla 298632: Must rollback DBSchema to its prior state and drop the tables
@@ -790,6 +999,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
   {
     // this is called when the accessor is put back into the pool
     // we want to make sure that no DB lock is held (see Bug 276926)
+    abortGroupWrite();
     connection.rollback();
   }
 
@@ -799,6 +1009,18 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     // do nothing
   }
 
+  private void abortGroupWrite()
+  {
+    if (groupCommitter != null)
+    {
+      DBGroupCommitter groupCommitter = this.groupCommitter;
+      Savepoint groupSavepoint = this.groupSavepoint;
+      this.groupCommitter = null;
+      this.groupSavepoint = null;
+      groupCommitter.abortWrite(groupSavepoint);
+    }
+  }
+
   public EPackage[] loadPackageUnit(InternalCDOPackageUnit packageUnit)
   {
     return getStore().getMetaDataManager().loadPackageUnit(getConnection(), packageUnit);
@@ -846,7 +1068,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_CREATE_BRANCH, ReuseProbability.LOW);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_CREATE_BRANCH, ReuseProbability.LOW);
       stmt.setInt(1, branchID);
       stmt.setString(2, branchInfo.getName());
       stmt.setInt(3, branchInfo.getBaseBranchID());
@@ -862,7 +1084,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     }
     finally
     {
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -874,7 +1096,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_LOAD_BRANCH, ReuseProbability.HIGH);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_LOAD_BRANCH, ReuseProbability.HIGH);
       stmt.setInt(1, branchID);
 
       resultSet = stmt.executeQuery();
@@ -895,7 +1117,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     finally
     {
       DBUtil.close(resultSet);
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -907,7 +1129,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_LOAD_SUB_BRANCHES, ReuseProbability.HIGH);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_LOAD_SUB_BRANCHES, ReuseProbability.HIGH);
       stmt.setInt(1, baseID);
 
       resultSet = stmt.executeQuery();
@@ -929,7 +1151,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     finally
     {
       DBUtil.close(resultSet);
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -952,7 +1174,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(CDODBSchema.SQL_LOAD_BRANCHES, ReuseProbability.HIGH);
+      stmt = getStatementCache().getPreparedStatement(CDODBSchema.SQL_LOAD_BRANCHES, ReuseProbability.HIGH);
       stmt.setInt(1, startID);
       stmt.setInt(2, endID > 0 ? endID : Integer.MAX_VALUE);
 
@@ -978,7 +1200,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     finally
     {
       DBUtil.close(resultSet);
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
@@ -1043,7 +1265,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
 
     try
     {
-      stmt = statementCache.getPreparedStatement(sql, ReuseProbability.MEDIUM);
+      stmt = getStatementCache().getPreparedStatement(sql, ReuseProbability.MEDIUM);
 
       resultSet = stmt.executeQuery();
       while (resultSet.next())
@@ -1071,7 +1293,7 @@ public class DBStoreAccessor extends StoreAccessor implements IDBStoreAccessor,
     finally
     {
       DBUtil.close(resultSet);
-      statementCache.releasePreparedStatement(stmt);
+      getStatementCache().releasePreparedStatement(stmt);
     }
   }
 
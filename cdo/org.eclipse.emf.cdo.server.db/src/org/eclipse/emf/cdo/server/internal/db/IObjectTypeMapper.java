@@ -24,6 +24,8 @@ import org.eclipse.emf.ecore.EClass;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * @author Eike Stepper
@@ -33,6 +35,14 @@ public interface IObjectTypeMapper
 {
   public CDOClassifierRef getObjectType(IDBStoreAccessor accessor, CDOID id);
 
+  /**
+   * Returns the types of the objects with the given IDs. IDs whose type is unknown are not contained in the resulting
+   * map.
+   * 
+   * @since 4.2
+   */
+  public Map<CDOID, CDOClassifierRef> getObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids);
+
   public void putObjectType(IDBStoreAccessor accessor, long timeStamp, CDOID id, EClass type);
 
   public void removeObjectType(IDBStoreAccessor accessor, CDOID id);
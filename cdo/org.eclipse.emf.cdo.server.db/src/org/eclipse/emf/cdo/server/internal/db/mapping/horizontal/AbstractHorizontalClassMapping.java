@@ -32,7 +32,9 @@ import org.eclipse.emf.cdo.server.db.IIDHandler;
 import org.eclipse.emf.cdo.server.db.IPreparedStatementCache;
 import org.eclipse.emf.cdo.server.db.IPreparedStatementCache.ReuseProbability;
 import org.eclipse.emf.cdo.server.db.mapping.IClassMapping;
+import org.eclipse.emf.cdo.server.db.mapping.IClassMappingBulkSupport;
 import org.eclipse.emf.cdo.server.db.mapping.IListMapping;
+import org.eclipse.emf.cdo.server.db.mapping.IListMappingBulkSupport;
 import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategy;
 import org.eclipse.emf.cdo.server.db.mapping.ITypeMapping;
 import org.eclipse.emf.cdo.server.internal.db.CDODBSchema;
@@ -64,6 +66,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -74,10 +77,17 @@ import java.util.Set;
  * @author Eike Stepper
  * @since 2.0
  */
-public abstract class AbstractHorizontalClassMapping implements IClassMapping
+public abstract class AbstractHorizontalClassMapping implements IClassMapping, IClassMappingBulkSupport
 {
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, AbstractHorizontalClassMapping.class);
 
+  /**
+   * The maximum number of IDs in the IN list of a bulk read. Must be a power of two.
+   *
+   * @since 4.2
+   */
+  protected static final int BULK_READ_SIZE = 128;
+
   private EClass eClass;
 
   private IDBTable table;
@@ -96,6 +106,13 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
 
   private String sqlSelectForChangeSet;
 
+  private String sqlSelectForBulkPrefix;
+
+  /**
+   * Bulk read statements, indexed by [historical][log2(number of IDs)].
+   */
+  private String[][] sqlSelectForBulk = new String[2][Integer.numberOfTrailingZeros(BULK_READ_SIZE) + 1];
+
   public AbstractHorizontalClassMapping(AbstractHorizontalMappingStrategy mappingStrategy, EClass eClass)
   {
     this.mappingStrategy = mappingStrategy;
@@ -176,6 +193,51 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
     builder.append(getTable());
     builder.append(" WHERE "); //$NON-NLS-1$
     sqlSelectForChangeSet = builder.toString();
+
+    // ----------- Select multiple revisions (for readRevisions) ---
+    builder = new StringBuilder("SELECT "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_ID);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_VERSION);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_CREATED);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_REVISED);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_RESOURCE);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_CONTAINER);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.ATTRIBUTES_FEATURE);
+
+    for (ITypeMapping singleMapping : valueMappings)
+    {
+      builder.append(", "); //$NON-NLS-1$
+      builder.append(singleMapping.getField());
+    }
+
+    if (unsettableFields != null)
+    {
+      for (String fieldName : unsettableFields.values())
+      {
+        builder.append(", "); //$NON-NLS-1$
+        builder.append(fieldName);
+      }
+    }
+
+    if (listSizeFields != null)
+    {
+      for (String fieldName : listSizeFields.values())
+      {
+        builder.append(", "); //$NON-NLS-1$
+        builder.append(fieldName);
+      }
+    }
+
+    builder.append(" FROM "); //$NON-NLS-1$
+    builder.append(getTable());
+    builder.append(" WHERE "); //$NON-NLS-1$
+    sqlSelectForBulkPrefix = builder.toString();
   }
 
   private List<ITypeMapping> createValueMappings(EStructuralFeature[] features)
@@ -288,59 +350,175 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
         return false;
       }
 
-      revision.setVersion(resultSet.getInt(CDODBSchema.ATTRIBUTES_VERSION));
+      readValuesFromResultSet(resultSet, revision);
+      return true;
+    }
+    catch (SQLException ex)
+    {
+      throw new DBException(ex);
+    }
+    finally
+    {
+      DBUtil.close(resultSet);
+    }
+  }
+
+  /**
+   * Read the revision's values from the current row of the given result set.
+   */
+  private void readValuesFromResultSet(ResultSet resultSet, InternalCDORevision revision) throws SQLException
+  {
+    revision.setVersion(resultSet.getInt(CDODBSchema.ATTRIBUTES_VERSION));
 
-      long timeStamp = resultSet.getLong(CDODBSchema.ATTRIBUTES_CREATED);
+    long timeStamp = resultSet.getLong(CDODBSchema.ATTRIBUTES_CREATED);
 
-      IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
-      CDOBranchPoint branchPoint = revision.getBranch().getPoint(timeStamp);
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    CDOBranchPoint branchPoint = revision.getBranch().getPoint(timeStamp);
 
-      revision.setBranchPoint(branchPoint);
-      revision.setRevised(resultSet.getLong(CDODBSchema.ATTRIBUTES_REVISED));
-      revision.setResourceID(idHandler.getCDOID(resultSet, CDODBSchema.ATTRIBUTES_RESOURCE));
-      revision.setContainerID(idHandler.getCDOID(resultSet, CDODBSchema.ATTRIBUTES_CONTAINER));
-      revision.setContainingFeatureID(resultSet.getInt(CDODBSchema.ATTRIBUTES_FEATURE));
+    revision.setBranchPoint(branchPoint);
+    revision.setRevised(resultSet.getLong(CDODBSchema.ATTRIBUTES_REVISED));
+    revision.setResourceID(idHandler.getCDOID(resultSet, CDODBSchema.ATTRIBUTES_RESOURCE));
+    revision.setContainerID(idHandler.getCDOID(resultSet, CDODBSchema.ATTRIBUTES_CONTAINER));
+    revision.setContainingFeatureID(resultSet.getInt(CDODBSchema.ATTRIBUTES_FEATURE));
 
-      for (ITypeMapping mapping : valueMappings)
+    for (ITypeMapping mapping : valueMappings)
+    {
+      EStructuralFeature feature = mapping.getFeature();
+      if (feature.isUnsettable())
       {
-        EStructuralFeature feature = mapping.getFeature();
-        if (feature.isUnsettable())
+        if (!resultSet.getBoolean(unsettableFields.get(feature)))
         {
-          if (!resultSet.getBoolean(unsettableFields.get(feature)))
-          {
-            // isSet==false -- setValue: null
-            revision.setValue(feature, null);
-            continue;
-          }
+          // isSet==false -- setValue: null
+          revision.setValue(feature, null);
+          continue;
         }
-
-        mapping.readValueToRevision(resultSet, revision);
       }
 
-      if (listSizeFields != null)
+      mapping.readValueToRevision(resultSet, revision);
+    }
+
+    if (listSizeFields != null)
+    {
+      for (Map.Entry<EStructuralFeature, String> listSizeEntry : listSizeFields.entrySet())
       {
-        for (Map.Entry<EStructuralFeature, String> listSizeEntry : listSizeFields.entrySet())
+        EStructuralFeature feature = listSizeEntry.getKey();
+        String fieldName = listSizeEntry.getValue();
+        int size = resultSet.getInt(fieldName);
+
+        // ensure the listSize (TODO: remove assertion)
+        CDOList list = revision.getList(feature, size);
+
+        for (int i = 0; i < size; i++)
         {
-          EStructuralFeature feature = listSizeEntry.getKey();
-          String fieldName = listSizeEntry.getValue();
-          int size = resultSet.getInt(fieldName);
+          list.add(InternalCDOList.UNINITIALIZED);
+        }
 
-          // ensure the listSize (TODO: remove assertion)
-          CDOList list = revision.getList(feature, size);
+        if (list.size() != size)
+        {
+          Assert.isTrue(false);
+        }
+      }
+    }
+  }
 
-          for (int i = 0; i < size; i++)
-          {
-            list.add(InternalCDOList.UNINITIALIZED);
-          }
+  public List<InternalCDORevision> readRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions,
+      int listChunk)
+  {
+    List<InternalCDORevision> result = new ArrayList<InternalCDORevision>(revisions.size());
+    for (int start = 0; start < revisions.size(); start += BULK_READ_SIZE)
+    {
+      int end = Math.min(start + BULK_READ_SIZE, revisions.size());
+      readValuesInBulk(accessor, revisions.subList(start, end), result);
+    }
+
+    // Read multival tables only for revisions that exist and are not detached
+    List<InternalCDORevision> existing = new ArrayList<InternalCDORevision>(result.size());
+    for (InternalCDORevision revision : result)
+    {
+      if (revision.getVersion() >= CDOBranchVersion.FIRST_VERSION)
+      {
+        existing.add(revision);
+      }
+    }
 
-          if (list.size() != size)
+    if (!existing.isEmpty())
+    {
+      for (IListMapping listMapping : listMappings)
+      {
+        // Chunked reads are left to the single-revision path, which limits the rows per list
+        if (listChunk == CDORevision.UNCHUNKED && listMapping instanceof IListMappingBulkSupport)
+        {
+          ((IListMappingBulkSupport)listMapping).readValues(accessor, existing, listChunk);
+        }
+        else
+        {
+          for (InternalCDORevision revision : existing)
           {
-            Assert.isTrue(false);
+            listMapping.readValues(accessor, revision, listChunk);
           }
         }
       }
+    }
 
-      return true;
+    return result;
+  }
+
+  /**
+   * Reads the values of at most {@link #BULK_READ_SIZE} revisions with a single statement and adds the revisions that
+   * have been found to the given result list.
+   */
+  private void readValuesInBulk(IDBStoreAccessor accessor, List<InternalCDORevision> revisions,
+      List<InternalCDORevision> result)
+  {
+    InternalCDORevision first = revisions.get(0);
+    CDOBranch branch = first.getBranch();
+    long timeStamp = first.getTimeStamp();
+    boolean historical = timeStamp != CDOBranchPoint.UNSPECIFIED_DATE;
+
+    // Pad the IN list to the next power of two to limit the number of distinct statements
+    int size = revisions.size();
+    int sizeIndex = 32 - Integer.numberOfLeadingZeros(size - 1);
+    int paddedSize = 1 << sizeIndex;
+
+    Map<CDOID, InternalCDORevision> revisionsByID = new HashMap<CDOID, InternalCDORevision>(size);
+    for (InternalCDORevision revision : revisions)
+    {
+      revisionsByID.put(revision.getID(), revision);
+    }
+
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
+    ResultSet resultSet = null;
+
+    try
+    {
+      String sql = getSQLSelectForBulk(historical, sizeIndex);
+      stmt = statementCache.getPreparedStatement(sql, ReuseProbability.MEDIUM);
+
+      int column = setBulkReadParameters(stmt, 0, branch, timeStamp);
+      for (int i = 0; i < paddedSize; i++)
+      {
+        InternalCDORevision revision = revisions.get(Math.min(i, size - 1));
+        idHandler.setCDOID(stmt, ++column, revision.getID());
+      }
+
+      if (TRACER.isEnabled())
+      {
+        TRACER.format("Executing Query: {0}", stmt.toString()); //$NON-NLS-1$
+      }
+
+      resultSet = stmt.executeQuery();
+      while (resultSet.next())
+      {
+        CDOID id = idHandler.getCDOID(resultSet, CDODBSchema.ATTRIBUTES_ID);
+        InternalCDORevision revision = revisionsByID.remove(id);
+        if (revision != null)
+        {
+          readValuesFromResultSet(resultSet, revision);
+          result.add(revision);
+        }
+      }
     }
     catch (SQLException ex)
     {
@@ -349,9 +527,66 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
     finally
     {
       DBUtil.close(resultSet);
+      statementCache.releasePreparedStatement(stmt);
     }
   }
 
+  private String getSQLSelectForBulk(boolean historical, int sizeIndex)
+  {
+    String[] sqls = sqlSelectForBulk[historical ? 1 : 0];
+    String sql = sqls[sizeIndex];
+    if (sql == null)
+    {
+      StringBuilder builder = new StringBuilder(sqlSelectForBulkPrefix);
+
+      String condition = getBulkReadCondition(historical);
+      if (condition != null)
+      {
+        builder.append(condition);
+        builder.append(" AND "); //$NON-NLS-1$
+      }
+
+      builder.append(CDODBSchema.ATTRIBUTES_ID);
+      builder.append(" IN ("); //$NON-NLS-1$
+
+      for (int i = 0, size = 1 << sizeIndex; i < size; i++)
+      {
+        if (i != 0)
+        {
+          builder.append(", "); //$NON-NLS-1$
+        }
+
+        builder.append("?"); //$NON-NLS-1$
+      }
+
+      builder.append(")"); //$NON-NLS-1$
+      sql = builder.toString();
+      sqls[sizeIndex] = sql;
+    }
+
+    return sql;
+  }
+
+  /**
+   * Returns the SQL condition that restricts a bulk read to the rows that are valid in a branch at a point in time, or
+   * <code>null</code> if no restriction is needed.
+   *
+   * @param historical
+   *          <code>true</code> if the revisions are to be read at a specific point in time, <code>false</code> if the
+   *          current revisions are to be read.
+   * @since 4.2
+   */
+  protected abstract String getBulkReadCondition(boolean historical);
+
+  /**
+   * Sets the parameters of the condition returned by {@link #getBulkReadCondition(boolean)}.
+   *
+   * @return the index of the last parameter set.
+   * @since 4.2
+   */
+  protected abstract int setBulkReadParameters(PreparedStatement stmt, int column, CDOBranch branch, long timeStamp)
+      throws SQLException;
+
   protected final void readLists(IDBStoreAccessor accessor, InternalCDORevision revision, int listChunk)
   {
     for (IListMapping listMapping : listMappings)
@@ -453,6 +688,27 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
     }
   }
 
+  /**
+   * @since 4.2
+   */
+  protected void writeLists(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    for (IListMapping listMapping : listMappings)
+    {
+      if (listMapping instanceof IListMappingBulkSupport)
+      {
+        ((IListMappingBulkSupport)listMapping).writeValues(accessor, revisions);
+      }
+      else
+      {
+        for (InternalCDORevision revision : revisions)
+        {
+          listMapping.writeValues(accessor, revision);
+        }
+      }
+    }
+  }
+
   public void writeRevision(IDBStoreAccessor accessor, InternalCDORevision revision, boolean mapType, boolean revise,
       OMMonitor monitor)
   {
@@ -545,6 +801,95 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
     }
   }
 
+  public void writeRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions, boolean mapType,
+      boolean revise, OMMonitor monitor)
+  {
+    Async async = null;
+    monitor.begin(9);
+
+    try
+    {
+      try
+      {
+        async = monitor.forkAsync();
+        if (mapType)
+        {
+          for (InternalCDORevision revision : revisions)
+          {
+            mappingStrategy.putObjectType(accessor, revision.getTimeStamp(), revision.getID(), eClass);
+          }
+        }
+        else if (revise)
+        {
+          List<InternalCDORevision> revisedRevisions = new ArrayList<InternalCDORevision>(revisions.size());
+          for (InternalCDORevision revision : revisions)
+          {
+            if (hasOldRevision(revision))
+            {
+              revisedRevisions.add(revision);
+            }
+          }
+
+          reviseOldRevisions(accessor, revisedRevisions);
+          for (InternalCDORevision revision : revisedRevisions)
+          {
+            long revised = revision.getTimeStamp() - 1;
+            for (IListMapping mapping : getListMappings())
+            {
+              mapping.objectDetached(accessor, revision.getID(), revised);
+            }
+          }
+        }
+      }
+      finally
+      {
+        if (async != null)
+        {
+          async.stop();
+        }
+      }
+
+      try
+      {
+        // Write attribute table always (even without modeled attributes!)
+        async = monitor.forkAsync();
+        writeValues(accessor, revisions);
+      }
+      finally
+      {
+        if (async != null)
+        {
+          async.stop();
+        }
+      }
+
+      try
+      {
+        // Write list tables only if they exist
+        if (listMappings != null)
+        {
+          async = monitor.forkAsync(7);
+          writeLists(accessor, revisions);
+        }
+        else
+        {
+          monitor.worked(7);
+        }
+      }
+      finally
+      {
+        if (async != null)
+        {
+          async.stop();
+        }
+      }
+    }
+    finally
+    {
+      monitor.done();
+    }
+  }
+
   public void handleRevisions(IDBStoreAccessor accessor, CDOBranch branch, long timeStamp, boolean exactTime,
       CDORevisionHandler handler)
   {
@@ -910,5 +1255,44 @@ public abstract class AbstractHorizontalClassMapping implements IClassMapping
 
   protected abstract void reviseOldRevision(IDBStoreAccessor accessor, CDOID id, CDOBranch branch, long timeStamp);
 
+  /**
+   * Revises the previous versions of the given revisions. Subclasses are encouraged to override this method with an
+   * implementation that uses a statement batch.
+   *
+   * @since 4.2
+   */
+  protected void reviseOldRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    for (InternalCDORevision revision : revisions)
+    {
+      reviseOldRevision(accessor, revision.getID(), revision.getBranch(), revision.getTimeStamp() - 1);
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if a previous version of the given revision has to be revised when the revision is
+   * written, <code>false</code> otherwise.
+   *
+   * @since 4.2
+   */
+  protected boolean hasOldRevision(InternalCDORevision revision)
+  {
+    return true;
+  }
+
   protected abstract void writeValues(IDBStoreAccessor accessor, InternalCDORevision revision);
+
+  /**
+   * Writes the attribute rows of the given revisions. Subclasses are encouraged to override this method with an
+   * implementation that uses a statement batch.
+   *
+   * @since 4.2
+   */
+  protected void writeValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    for (InternalCDORevision revision : revisions)
+    {
+      writeValues(accessor, revision);
+    }
+  }
 }
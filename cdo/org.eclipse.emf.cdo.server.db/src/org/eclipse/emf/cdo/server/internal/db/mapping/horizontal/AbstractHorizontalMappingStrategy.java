@@ -26,8 +26,10 @@ import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
 import org.eclipse.emf.cdo.server.db.IIDHandler;
 import org.eclipse.emf.cdo.server.db.mapping.IClassMapping;
 import org.eclipse.emf.cdo.server.db.mapping.IListMapping;
+import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategyBulkSupport;
 import org.eclipse.emf.cdo.server.internal.db.CDODBSchema;
 import org.eclipse.emf.cdo.server.internal.db.IObjectTypeMapper;
+import org.eclipse.emf.cdo.server.internal.db.LongIDHandler;
 import org.eclipse.emf.cdo.server.internal.db.bundle.OM;
 import org.eclipse.emf.cdo.server.internal.db.mapping.AbstractMappingStrategy;
 
@@ -50,6 +52,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * * This abstract base class refines {@link AbstractMappingStrategy} by implementing aspects common to horizontal
@@ -62,7 +65,8 @@ import java.util.List;
  * @author Eike Stepper
  * @since 2.0
  */
-public abstract class AbstractHorizontalMappingStrategy extends AbstractMappingStrategy
+public abstract class AbstractHorizontalMappingStrategy extends AbstractMappingStrategy implements
+    IMappingStrategyBulkSupport
 {
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, AbstractHorizontalMappingStrategy.class);
 
@@ -76,6 +80,11 @@ public abstract class AbstractHorizontalMappingStrategy extends AbstractMappingS
     return objectTypeMapper.getObjectType(accessor, id);
   }
 
+  public Map<CDOID, CDOClassifierRef> readObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids)
+  {
+    return objectTypeMapper.getObjectTypes(accessor, ids);
+  }
+
   public void putObjectType(IDBStoreAccessor accessor, long timeStamp, CDOID id, EClass type)
   {
     objectTypeMapper.putObjectType(accessor, timeStamp, id, type);
@@ -358,6 +367,15 @@ public abstract class AbstractHorizontalMappingStrategy extends AbstractMappingS
       return table;
     }
 
+    if (getStore().getIDHandler() instanceof LongIDHandler)
+    {
+      LongObjectTypeCache cache = new LongObjectTypeCache(cacheSize);
+      cache.setMappingStrategy(this);
+      cache.setDelegate(table);
+      cache.setWarmUp(Boolean.valueOf(getProperties().get(PROP_OBJECT_TYPE_CACHE_WARM_UP)));
+      return cache;
+    }
+
     ObjectTypeCache cache = new ObjectTypeCache(cacheSize);
     cache.setMappingStrategy(this);
     cache.setDelegate(table);
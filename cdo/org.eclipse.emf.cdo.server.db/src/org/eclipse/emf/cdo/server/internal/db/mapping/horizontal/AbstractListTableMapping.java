@@ -23,6 +23,7 @@ import org.eclipse.emf.cdo.server.db.IDBStoreChunkReader;
 import org.eclipse.emf.cdo.server.db.IIDHandler;
 import org.eclipse.emf.cdo.server.db.IPreparedStatementCache;
 import org.eclipse.emf.cdo.server.db.IPreparedStatementCache.ReuseProbability;
+import org.eclipse.emf.cdo.server.db.mapping.IListMappingBulkSupport;
 import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategy;
 import org.eclipse.emf.cdo.server.db.mapping.ITypeMapping;
 import org.eclipse.emf.cdo.server.internal.db.CDODBSchema;
@@ -46,9 +47,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This abstract base class provides basic behavior needed for mapping many-valued attributes to tables.
@@ -56,7 +60,8 @@ import java.util.List;
  * @author Eike Stepper
  * @since 2.0
  */
-public abstract class AbstractListTableMapping extends BasicAbstractListTableMapping
+public abstract class AbstractListTableMapping extends BasicAbstractListTableMapping implements
+    IListMappingBulkSupport
 {
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, AbstractListTableMapping.class);
 
@@ -75,6 +80,16 @@ public abstract class AbstractListTableMapping extends BasicAbstractListTableMap
 
   private String sqlOrderByIndex;
 
+  private String sqlSelectBulkPrefix;
+
+  private String sqlSelectBulkKeys;
+
+  /**
+   * Bulk select statements, indexed by log2(number of revisions).
+   */
+  private String[] sqlSelectBulk = new String[Integer
+      .numberOfTrailingZeros(AbstractHorizontalClassMapping.BULK_READ_SIZE) + 1];
+
   private String sqlInsertEntry;
 
   public AbstractListTableMapping(IMappingStrategy mappingStrategy, EClass eClass, EStructuralFeature feature)
@@ -112,7 +127,17 @@ public abstract class AbstractListTableMapping extends BasicAbstractListTableMap
 
   protected abstract FieldInfo[] getKeyFields();
 
-  protected abstract void setKeyFields(PreparedStatement stmt, CDORevision revision) throws SQLException;
+  protected void setKeyFields(PreparedStatement stmt, CDORevision revision) throws SQLException
+  {
+    setKeyFields(stmt, 0, revision);
+  }
+
+  /**
+   * Sets the key fields of the given revision as the statement parameters following the given parameter index.
+   *
+   * @since 4.2
+   */
+  protected abstract void setKeyFields(PreparedStatement stmt, int column, CDORevision revision) throws SQLException;
 
   public Collection<IDBTable> getDBTables()
   {
@@ -151,6 +176,33 @@ public abstract class AbstractListTableMapping extends BasicAbstractListTableMap
 
     sqlOrderByIndex = " ORDER BY " + CDODBSchema.LIST_IDX; //$NON-NLS-1$
 
+    // ---------------- SELECT to read the lists of multiple revisions ----------------------------
+    builder = new StringBuilder();
+    builder.append("SELECT "); //$NON-NLS-1$
+    builder.append(CDODBSchema.LIST_REVISION_ID);
+    builder.append(", "); //$NON-NLS-1$
+    builder.append(CDODBSchema.LIST_VALUE);
+    builder.append(" FROM "); //$NON-NLS-1$
+    builder.append(tableName);
+    builder.append(" WHERE ("); //$NON-NLS-1$
+    sqlSelectBulkPrefix = builder.toString();
+
+    builder = new StringBuilder();
+    builder.append("("); //$NON-NLS-1$
+    for (int i = 0; i < fields.length; i++)
+    {
+      if (i != 0)
+      {
+        builder.append(" AND "); //$NON-NLS-1$
+      }
+
+      builder.append(fields[i].getName());
+      builder.append("=?"); //$NON-NLS-1$
+    }
+
+    builder.append(")"); //$NON-NLS-1$
+    sqlSelectBulkKeys = builder.toString();
+
     // ----------------- INSERT - reference entry -----------------
     builder = new StringBuilder("INSERT INTO "); //$NON-NLS-1$
     builder.append(tableName);
@@ -252,6 +304,132 @@ public abstract class AbstractListTableMapping extends BasicAbstractListTableMap
     }
   }
 
+  public void readValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions, int listChunk)
+  {
+    if (listChunk == 0)
+    {
+      // nothing to read take shortcut
+      return;
+    }
+
+    List<InternalCDORevision> nonEmpty = new ArrayList<InternalCDORevision>(revisions.size());
+    for (InternalCDORevision revision : revisions)
+    {
+      if (revision.getList(getFeature()).size() != 0)
+      {
+        nonEmpty.add(revision);
+      }
+    }
+
+    for (int start = 0; start < nonEmpty.size(); start += AbstractHorizontalClassMapping.BULK_READ_SIZE)
+    {
+      int end = Math.min(start + AbstractHorizontalClassMapping.BULK_READ_SIZE, nonEmpty.size());
+      readValuesInBulk(accessor, nonEmpty.subList(start, end), listChunk);
+    }
+  }
+
+  private void readValuesInBulk(IDBStoreAccessor accessor, List<InternalCDORevision> revisions, int listChunk)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Reading list values for feature {0}.{1} of {2} revisions", getContainingClass().getName(), //$NON-NLS-1$
+          getFeature().getName(), revisions.size());
+    }
+
+    // Pad the key list to the next power of two to limit the number of distinct statements
+    int size = revisions.size();
+    int sizeIndex = 32 - Integer.numberOfLeadingZeros(size - 1);
+    int paddedSize = 1 << sizeIndex;
+
+    Map<CDOID, MoveableList<Object>> lists = new HashMap<CDOID, MoveableList<Object>>(size);
+    for (InternalCDORevision revision : revisions)
+    {
+      lists.put(revision.getID(), revision.getList(getFeature()));
+    }
+
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
+    ResultSet resultSet = null;
+
+    try
+    {
+      stmt = statementCache.getPreparedStatement(getSQLSelectBulk(sizeIndex), ReuseProbability.MEDIUM);
+
+      int keyFields = getKeyFields().length;
+      int column = 0;
+      for (int i = 0; i < paddedSize; i++)
+      {
+        setKeyFields(stmt, column, revisions.get(Math.min(i, size - 1)));
+        column += keyFields;
+      }
+
+      if (TRACER.isEnabled())
+      {
+        TRACER.trace(stmt.toString());
+      }
+
+      // The stored indexes may be offset (see NonAuditListTableMapping), so count the rows of each list instead
+      resultSet = stmt.executeQuery();
+      CDOID currentID = null;
+      MoveableList<Object> list = null;
+      int currentIndex = 0;
+      while (resultSet.next())
+      {
+        CDOID id = idHandler.getCDOID(resultSet, CDODBSchema.LIST_REVISION_ID);
+        if (!id.equals(currentID))
+        {
+          currentID = id;
+          list = lists.get(id);
+          currentIndex = 0;
+        }
+
+        if (list != null && currentIndex < list.size()
+            && (listChunk == CDORevision.UNCHUNKED || currentIndex < listChunk))
+        {
+          Object value = typeMapping.readValue(resultSet);
+          list.set(currentIndex++, value);
+        }
+      }
+    }
+    catch (SQLException ex)
+    {
+      throw new DBException(ex);
+    }
+    finally
+    {
+      DBUtil.close(resultSet);
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
+
+  private String getSQLSelectBulk(int sizeIndex)
+  {
+    String sql = sqlSelectBulk[sizeIndex];
+    if (sql == null)
+    {
+      StringBuilder builder = new StringBuilder(sqlSelectBulkPrefix);
+      for (int i = 0, size = 1 << sizeIndex; i < size; i++)
+      {
+        if (i != 0)
+        {
+          builder.append(" OR "); //$NON-NLS-1$
+        }
+
+        builder.append(sqlSelectBulkKeys);
+      }
+
+      builder.append(") ORDER BY "); //$NON-NLS-1$
+      builder.append(CDODBSchema.LIST_REVISION_ID);
+      builder.append(", "); //$NON-NLS-1$
+      builder.append(CDODBSchema.LIST_IDX);
+      sql = builder.toString();
+      sqlSelectBulk[sizeIndex] = sql;
+    }
+
+    return sql;
+  }
+
   public final void readChunks(IDBStoreChunkReader chunkReader, List<Chunk> chunks, String where)
   {
     if (TRACER.isEnabled())
@@ -348,6 +526,58 @@ public abstract class AbstractListTableMapping extends BasicAbstractListTableMap
     }
   }
 
+  public void writeValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
+    int counter = 0;
+
+    try
+    {
+      stmt = statementCache.getPreparedStatement(sqlInsertEntry, ReuseProbability.HIGH);
+      int valueColumn = getKeyFields().length + 1;
+
+      for (InternalCDORevision revision : revisions)
+      {
+        CDOList values = revision.getList(getFeature());
+        if (values.isEmpty())
+        {
+          continue;
+        }
+
+        if (TRACER.isEnabled())
+        {
+          TRACER.format("Writing {0} values for feature {1}.{2} of {3}v{4}", values.size(), //$NON-NLS-1$
+              getContainingClass().getName(), getFeature().getName(), revision.getID(), revision.getVersion());
+        }
+
+        setKeyFields(stmt, revision);
+
+        int idx = 0;
+        for (Object element : values)
+        {
+          stmt.setInt(valueColumn, idx++);
+          typeMapping.setValue(stmt, valueColumn + 1, element);
+          stmt.addBatch();
+          ++counter;
+        }
+      }
+
+      if (counter != 0)
+      {
+        DBUtil.executeBatch(stmt, counter);
+      }
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
+
   protected final void writeValue(IDBStoreAccessor accessor, CDORevision revision, int idx, Object value)
   {
     IPreparedStatementCache statementCache = accessor.getStatementCache();
@@ -81,11 +81,11 @@ public class BranchingListTableMapping extends AbstractListTableMapping
   }
 
   @Override
-  protected void setKeyFields(PreparedStatement stmt, CDORevision revision) throws SQLException
+  protected void setKeyFields(PreparedStatement stmt, int column, CDORevision revision) throws SQLException
   {
-    getMappingStrategy().getStore().getIDHandler().setCDOID(stmt, 1, revision.getID());
-    stmt.setInt(2, revision.getBranch().getID());
-    stmt.setInt(3, revision.getVersion());
+    getMappingStrategy().getStore().getIDHandler().setCDOID(stmt, column + 1, revision.getID());
+    stmt.setInt(column + 2, revision.getBranch().getID());
+    stmt.setInt(column + 3, revision.getVersion());
   }
 
   public void objectDetached(IDBStoreAccessor accessor, CDOID id, long revised)
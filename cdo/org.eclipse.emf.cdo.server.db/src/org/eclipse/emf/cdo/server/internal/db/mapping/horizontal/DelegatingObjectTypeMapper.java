@@ -25,6 +25,11 @@ import org.eclipse.emf.ecore.EClass;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Eike Stepper
@@ -60,6 +65,32 @@ public abstract class DelegatingObjectTypeMapper extends AbstractObjectTypeMappe
     return delegate.getObjectType(accessor, id);
   }
 
+  public Map<CDOID, CDOClassifierRef> getObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids)
+  {
+    Map<CDOID, CDOClassifierRef> result = new HashMap<CDOID, CDOClassifierRef>();
+    List<CDOID> missingIDs = new ArrayList<CDOID>();
+    for (CDOID id : ids)
+    {
+      CDOID type = doGetObjectType(accessor, id);
+      if (type != null)
+      {
+        EClass eClass = (EClass)getMetaDataManager().getMetaInstance(type);
+        result.put(id, new CDOClassifierRef(eClass));
+      }
+      else
+      {
+        missingIDs.add(id);
+      }
+    }
+
+    if (!missingIDs.isEmpty())
+    {
+      result.putAll(delegate.getObjectTypes(accessor, missingIDs));
+    }
+
+    return result;
+  }
+
   public void putObjectType(IDBStoreAccessor accessor, long timeStamp, CDOID id, EClass type)
   {
     CDOID classID = getMetaDataManager().getMetaID(type, timeStamp);
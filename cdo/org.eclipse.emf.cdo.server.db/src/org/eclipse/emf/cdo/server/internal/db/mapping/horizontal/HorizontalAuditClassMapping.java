@@ -56,6 +56,7 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -320,6 +321,31 @@ public class HorizontalAuditClassMapping extends AbstractHorizontalClassMapping
     }
   }
 
+  @Override
+  protected String getBulkReadCondition(boolean historical)
+  {
+    if (historical)
+    {
+      return "(" + CDODBSchema.ATTRIBUTES_CREATED + "<=? AND (" + CDODBSchema.ATTRIBUTES_REVISED + "=0 OR " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+          + CDODBSchema.ATTRIBUTES_REVISED + ">=?))"; //$NON-NLS-1$
+    }
+
+    return CDODBSchema.ATTRIBUTES_REVISED + "=0"; //$NON-NLS-1$
+  }
+
+  @Override
+  protected int setBulkReadParameters(PreparedStatement stmt, int column, CDOBranch branch, long timeStamp)
+      throws SQLException
+  {
+    if (timeStamp != CDOBranchPoint.UNSPECIFIED_DATE)
+    {
+      stmt.setLong(++column, timeStamp);
+      stmt.setLong(++column, timeStamp);
+    }
+
+    return column;
+  }
+
   public boolean readRevisionByVersion(IDBStoreAccessor accessor, InternalCDORevision revision, int listChunk)
   {
     IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
@@ -453,67 +479,98 @@ public class HorizontalAuditClassMapping extends AbstractHorizontalClassMapping
   @Override
   protected final void writeValues(IDBStoreAccessor accessor, InternalCDORevision revision)
   {
-    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
     IPreparedStatementCache statementCache = accessor.getStatementCache();
     PreparedStatement stmt = null;
 
     try
     {
-      int column = 1;
       stmt = statementCache.getPreparedStatement(sqlInsertAttributes, ReuseProbability.HIGH);
-      idHandler.setCDOID(stmt, column++, revision.getID());
-      stmt.setInt(column++, revision.getVersion());
-      stmt.setLong(column++, revision.getTimeStamp());
-      stmt.setLong(column++, revision.getRevised());
-      idHandler.setCDOID(stmt, column++, revision.getResourceID());
-      idHandler.setCDOID(stmt, column++, (CDOID)revision.getContainerID());
-      stmt.setInt(column++, revision.getContainingFeatureID());
+      setValues(stmt, revision);
+      DBUtil.update(stmt, true);
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
 
-      int isSetCol = column + getValueMappings().size();
+  @Override
+  protected final void writeValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
 
-      for (ITypeMapping mapping : getValueMappings())
+    try
+    {
+      stmt = statementCache.getPreparedStatement(sqlInsertAttributes, ReuseProbability.HIGH);
+      for (InternalCDORevision revision : revisions)
       {
-        EStructuralFeature feature = mapping.getFeature();
-        if (feature.isUnsettable())
-        {
-          if (revision.getValue(feature) == null)
-          {
-            stmt.setBoolean(isSetCol++, false);
-
-            // also set value column to default value
-            mapping.setDefaultValue(stmt, column++);
+        setValues(stmt, revision);
+        stmt.addBatch();
+      }
 
-            continue;
-          }
+      DBUtil.executeBatch(stmt, revisions.size());
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
 
-          stmt.setBoolean(isSetCol++, true);
-        }
+  private void setValues(PreparedStatement stmt, InternalCDORevision revision) throws SQLException
+  {
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    int column = 1;
+    idHandler.setCDOID(stmt, column++, revision.getID());
+    stmt.setInt(column++, revision.getVersion());
+    stmt.setLong(column++, revision.getTimeStamp());
+    stmt.setLong(column++, revision.getRevised());
+    idHandler.setCDOID(stmt, column++, revision.getResourceID());
+    idHandler.setCDOID(stmt, column++, (CDOID)revision.getContainerID());
+    stmt.setInt(column++, revision.getContainingFeatureID());
 
-        mapping.setValueFromRevision(stmt, column++, revision);
-      }
+    int isSetCol = column + getValueMappings().size();
 
-      Map<EStructuralFeature, String> listSizeFields = getListSizeFields();
-      if (listSizeFields != null)
+    for (ITypeMapping mapping : getValueMappings())
+    {
+      EStructuralFeature feature = mapping.getFeature();
+      if (feature.isUnsettable())
       {
-        // isSetCol now points to the first listTableSize-column
-        column = isSetCol;
-
-        for (EStructuralFeature feature : listSizeFields.keySet())
+        if (revision.getValue(feature) == null)
         {
-          CDOList list = revision.getList(feature);
-          stmt.setInt(column++, list.size());
+          stmt.setBoolean(isSetCol++, false);
+
+          // also set value column to default value
+          mapping.setDefaultValue(stmt, column++);
+
+          continue;
         }
+
+        stmt.setBoolean(isSetCol++, true);
       }
 
-      DBUtil.update(stmt, true);
+      mapping.setValueFromRevision(stmt, column++, revision);
     }
-    catch (SQLException e)
-    {
-      throw new DBException(e);
-    }
-    finally
+
+    Map<EStructuralFeature, String> listSizeFields = getListSizeFields();
+    if (listSizeFields != null)
     {
-      statementCache.releasePreparedStatement(stmt);
+      // isSetCol now points to the first listTableSize-column
+      column = isSetCol;
+
+      for (EStructuralFeature feature : listSizeFields.keySet())
+      {
+        CDOList list = revision.getList(feature);
+        stmt.setInt(column++, list.size());
+      }
     }
   }
 
@@ -625,6 +682,40 @@ public class HorizontalAuditClassMapping extends AbstractHorizontalClassMapping
     }
   }
 
+  @Override
+  protected void reviseOldRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    if (revisions.isEmpty())
+    {
+      return;
+    }
+
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
+
+    try
+    {
+      stmt = statementCache.getPreparedStatement(sqlReviseAttributes, ReuseProbability.HIGH);
+      for (InternalCDORevision revision : revisions)
+      {
+        stmt.setLong(1, revision.getTimeStamp() - 1);
+        idHandler.setCDOID(stmt, 2, revision.getID());
+        stmt.addBatch();
+      }
+
+      DBUtil.executeBatch(stmt, revisions.size(), true);
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
+
   public void writeRevisionDelta(IDBStoreAccessor accessor, InternalCDORevisionDelta delta, long created,
       OMMonitor monitor)
   {
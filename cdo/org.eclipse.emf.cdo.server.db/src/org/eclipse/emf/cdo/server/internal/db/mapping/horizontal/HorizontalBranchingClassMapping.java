@@ -69,6 +69,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -467,6 +468,32 @@ public class HorizontalBranchingClassMapping extends AbstractHorizontalClassMapp
     }
   }
 
+  @Override
+  protected String getBulkReadCondition(boolean historical)
+  {
+    if (historical)
+    {
+      return CDODBSchema.ATTRIBUTES_BRANCH + "=? AND " + CDODBSchema.ATTRIBUTES_CREATED + "<=? AND (" //$NON-NLS-1$ //$NON-NLS-2$
+          + CDODBSchema.ATTRIBUTES_REVISED + "=0 OR " + CDODBSchema.ATTRIBUTES_REVISED + ">=?)"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    return CDODBSchema.ATTRIBUTES_BRANCH + "=? AND " + CDODBSchema.ATTRIBUTES_REVISED + "=0"; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  @Override
+  protected int setBulkReadParameters(PreparedStatement stmt, int column, CDOBranch branch, long timeStamp)
+      throws SQLException
+  {
+    stmt.setInt(++column, branch.getID());
+    if (timeStamp != CDOBranchPoint.UNSPECIFIED_DATE)
+    {
+      stmt.setLong(++column, timeStamp);
+      stmt.setLong(++column, timeStamp);
+    }
+
+    return column;
+  }
+
   public boolean readRevisionByVersion(IDBStoreAccessor accessor, InternalCDORevision revision, int listChunk)
   {
     IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
@@ -606,59 +633,41 @@ public class HorizontalBranchingClassMapping extends AbstractHorizontalClassMapp
   @Override
   protected final void writeValues(IDBStoreAccessor accessor, InternalCDORevision revision)
   {
-    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
     IPreparedStatementCache statementCache = accessor.getStatementCache();
     PreparedStatement stmt = null;
 
     try
     {
-      int column = 1;
       stmt = statementCache.getPreparedStatement(sqlInsertAttributes, ReuseProbability.HIGH);
-      idHandler.setCDOID(stmt, column++, revision.getID());
-      stmt.setInt(column++, revision.getVersion());
-      stmt.setInt(column++, revision.getBranch().getID());
-      stmt.setLong(column++, revision.getTimeStamp());
-      stmt.setLong(column++, revision.getRevised());
-      idHandler.setCDOID(stmt, column++, revision.getResourceID());
-      idHandler.setCDOID(stmt, column++, (CDOID)revision.getContainerID());
-      stmt.setInt(column++, revision.getContainingFeatureID());
-
-      int isSetCol = column + getValueMappings().size();
-
-      for (ITypeMapping mapping : getValueMappings())
-      {
-        EStructuralFeature feature = mapping.getFeature();
-        if (feature.isUnsettable())
-        {
-          if (revision.getValue(feature) == null)
-          {
-            stmt.setBoolean(isSetCol++, false);
-
-            // also set value column to default value
-            mapping.setDefaultValue(stmt, column++);
-            continue;
-          }
-
-          stmt.setBoolean(isSetCol++, true);
-        }
+      setValues(stmt, revision);
+      DBUtil.update(stmt, true);
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
 
-        mapping.setValueFromRevision(stmt, column++, revision);
-      }
+  @Override
+  protected final void writeValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
 
-      Map<EStructuralFeature, String> listSizeFields = getListSizeFields();
-      if (listSizeFields != null)
+    try
+    {
+      stmt = statementCache.getPreparedStatement(sqlInsertAttributes, ReuseProbability.HIGH);
+      for (InternalCDORevision revision : revisions)
       {
-        // isSetCol now points to the first listTableSize-column
-        column = isSetCol;
-
-        for (EStructuralFeature feature : listSizeFields.keySet())
-        {
-          CDOList list = revision.getList(feature);
-          stmt.setInt(column++, list.size());
-        }
+        setValues(stmt, revision);
+        stmt.addBatch();
       }
 
-      DBUtil.update(stmt, true);
+      DBUtil.executeBatch(stmt, revisions.size());
     }
     catch (SQLException e)
     {
@@ -670,6 +679,55 @@ public class HorizontalBranchingClassMapping extends AbstractHorizontalClassMapp
     }
   }
 
+  private void setValues(PreparedStatement stmt, InternalCDORevision revision) throws SQLException
+  {
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    int column = 1;
+    idHandler.setCDOID(stmt, column++, revision.getID());
+    stmt.setInt(column++, revision.getVersion());
+    stmt.setInt(column++, revision.getBranch().getID());
+    stmt.setLong(column++, revision.getTimeStamp());
+    stmt.setLong(column++, revision.getRevised());
+    idHandler.setCDOID(stmt, column++, revision.getResourceID());
+    idHandler.setCDOID(stmt, column++, (CDOID)revision.getContainerID());
+    stmt.setInt(column++, revision.getContainingFeatureID());
+
+    int isSetCol = column + getValueMappings().size();
+
+    for (ITypeMapping mapping : getValueMappings())
+    {
+      EStructuralFeature feature = mapping.getFeature();
+      if (feature.isUnsettable())
+      {
+        if (revision.getValue(feature) == null)
+        {
+          stmt.setBoolean(isSetCol++, false);
+
+          // also set value column to default value
+          mapping.setDefaultValue(stmt, column++);
+          continue;
+        }
+
+        stmt.setBoolean(isSetCol++, true);
+      }
+
+      mapping.setValueFromRevision(stmt, column++, revision);
+    }
+
+    Map<EStructuralFeature, String> listSizeFields = getListSizeFields();
+    if (listSizeFields != null)
+    {
+      // isSetCol now points to the first listTableSize-column
+      column = isSetCol;
+
+      for (EStructuralFeature feature : listSizeFields.keySet())
+      {
+        CDOList list = revision.getList(feature);
+        stmt.setInt(column++, list.size());
+      }
+    }
+  }
+
   @Override
   protected void detachAttributes(IDBStoreAccessor accessor, CDOID id, int version, CDOBranch branch, long timeStamp,
       OMMonitor mon)
@@ -780,6 +838,48 @@ public class HorizontalBranchingClassMapping extends AbstractHorizontalClassMapp
     }
   }
 
+  @Override
+  protected void reviseOldRevisions(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    if (revisions.isEmpty())
+    {
+      return;
+    }
+
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
+
+    try
+    {
+      stmt = statementCache.getPreparedStatement(sqlReviseAttributes, ReuseProbability.HIGH);
+      for (InternalCDORevision revision : revisions)
+      {
+        stmt.setLong(1, revision.getTimeStamp() - 1);
+        idHandler.setCDOID(stmt, 2, revision.getID());
+        stmt.setInt(3, revision.getBranch().getID());
+        stmt.addBatch();
+      }
+
+      // No row affected if old revision from other branch!
+      DBUtil.executeBatch(stmt, revisions.size(), false);
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
+
+  @Override
+  protected boolean hasOldRevision(InternalCDORevision revision)
+  {
+    return revision.getVersion() > CDOBranchVersion.FIRST_VERSION;
+  }
+
   @Override
   public void writeRevision(IDBStoreAccessor accessor, InternalCDORevision revision, boolean mapType, boolean revise,
       OMMonitor monitor)
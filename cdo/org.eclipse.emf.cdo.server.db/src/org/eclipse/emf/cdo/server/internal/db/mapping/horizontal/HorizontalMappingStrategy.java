@@ -25,6 +25,7 @@ import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
 import org.eclipse.emf.cdo.server.db.mapping.IClassMapping;
 import org.eclipse.emf.cdo.server.db.mapping.IListMapping;
 import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategy;
+import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategyBulkSupport;
 import org.eclipse.emf.cdo.server.db.mapping.ITypeMapping;
 import org.eclipse.emf.cdo.spi.common.commit.CDOChangeSetSegment;
 import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageUnit;
@@ -41,6 +42,7 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -48,7 +50,7 @@ import java.util.Set;
 /**
  * @author Eike Stepper
  */
-public class HorizontalMappingStrategy extends Lifecycle implements IMappingStrategy
+public class HorizontalMappingStrategy extends Lifecycle implements IMappingStrategy, IMappingStrategyBulkSupport
 {
   private Map<String, String> properties;
 
@@ -194,6 +196,26 @@ public class HorizontalMappingStrategy extends Lifecycle implements IMappingStra
     return delegate.readObjectType(accessor, id);
   }
 
+  public Map<CDOID, CDOClassifierRef> readObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids)
+  {
+    if (delegate instanceof IMappingStrategyBulkSupport)
+    {
+      return ((IMappingStrategyBulkSupport)delegate).readObjectTypes(accessor, ids);
+    }
+
+    Map<CDOID, CDOClassifierRef> result = new HashMap<CDOID, CDOClassifierRef>();
+    for (CDOID id : ids)
+    {
+      CDOClassifierRef type = delegate.readObjectType(accessor, id);
+      if (type != null)
+      {
+        result.put(id, type);
+      }
+    }
+
+    return result;
+  }
+
   public CloseableIterator<CDOID> readObjectIDs(IDBStoreAccessor accessor)
   {
     return delegate.readObjectIDs(accessor);
@@ -252,66 +252,97 @@ public class HorizontalNonAuditClassMapping extends AbstractHorizontalClassMappi
   @Override
   protected void writeValues(IDBStoreAccessor accessor, InternalCDORevision revision)
   {
-    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
     IPreparedStatementCache statementCache = accessor.getStatementCache();
     PreparedStatement stmt = null;
 
     try
     {
-      int column = 1;
       stmt = statementCache.getPreparedStatement(sqlInsertAttributes, ReuseProbability.HIGH);
-      idHandler.setCDOID(stmt, column++, revision.getID());
-      stmt.setInt(column++, revision.getVersion());
-      stmt.setLong(column++, revision.getTimeStamp());
-      stmt.setLong(column++, revision.getRevised());
-      idHandler.setCDOID(stmt, column++, revision.getResourceID());
-      idHandler.setCDOID(stmt, column++, (CDOID)revision.getContainerID());
-      stmt.setInt(column++, revision.getContainingFeatureID());
+      setValues(stmt, revision);
+      DBUtil.update(stmt, true);
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
 
-      int isSetCol = column + getValueMappings().size();
+  @Override
+  protected void writeValues(IDBStoreAccessor accessor, List<InternalCDORevision> revisions)
+  {
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
 
-      for (ITypeMapping mapping : getValueMappings())
+    try
+    {
+      stmt = statementCache.getPreparedStatement(sqlInsertAttributes, ReuseProbability.HIGH);
+      for (InternalCDORevision revision : revisions)
       {
-        EStructuralFeature feature = mapping.getFeature();
-        if (feature.isUnsettable())
-        {
-          if (revision.getValue(feature) == null)
-          {
-            stmt.setBoolean(isSetCol++, false);
+        setValues(stmt, revision);
+        stmt.addBatch();
+      }
 
-            // also set value column to default value
-            mapping.setDefaultValue(stmt, column++);
-            continue;
-          }
+      DBUtil.executeBatch(stmt, revisions.size());
+    }
+    catch (SQLException e)
+    {
+      throw new DBException(e);
+    }
+    finally
+    {
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
 
-          stmt.setBoolean(isSetCol++, true);
-        }
+  private void setValues(PreparedStatement stmt, InternalCDORevision revision) throws SQLException
+  {
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    int column = 1;
+    idHandler.setCDOID(stmt, column++, revision.getID());
+    stmt.setInt(column++, revision.getVersion());
+    stmt.setLong(column++, revision.getTimeStamp());
+    stmt.setLong(column++, revision.getRevised());
+    idHandler.setCDOID(stmt, column++, revision.getResourceID());
+    idHandler.setCDOID(stmt, column++, (CDOID)revision.getContainerID());
+    stmt.setInt(column++, revision.getContainingFeatureID());
 
-        mapping.setValueFromRevision(stmt, column++, revision);
-      }
+    int isSetCol = column + getValueMappings().size();
 
-      Map<EStructuralFeature, String> listSizeFields = getListSizeFields();
-      if (listSizeFields != null)
+    for (ITypeMapping mapping : getValueMappings())
+    {
+      EStructuralFeature feature = mapping.getFeature();
+      if (feature.isUnsettable())
       {
-        // isSetCol now points to the first listTableSize-column
-        column = isSetCol;
-
-        for (EStructuralFeature feature : listSizeFields.keySet())
+        if (revision.getValue(feature) == null)
         {
-          CDOList list = revision.getList(feature);
-          stmt.setInt(column++, list.size());
+          stmt.setBoolean(isSetCol++, false);
+
+          // also set value column to default value
+          mapping.setDefaultValue(stmt, column++);
+          continue;
         }
+
+        stmt.setBoolean(isSetCol++, true);
       }
 
-      DBUtil.update(stmt, true);
+      mapping.setValueFromRevision(stmt, column++, revision);
     }
-    catch (SQLException e)
-    {
-      throw new DBException(e);
-    }
-    finally
+
+    Map<EStructuralFeature, String> listSizeFields = getListSizeFields();
+    if (listSizeFields != null)
     {
-      statementCache.releasePreparedStatement(stmt);
+      // isSetCol now points to the first listTableSize-column
+      column = isSetCol;
+
+      for (EStructuralFeature feature : listSizeFields.keySet())
+      {
+        CDOList list = revision.getList(feature);
+        stmt.setInt(column++, list.size());
+      }
     }
   }
 
@@ -432,6 +463,24 @@ public class HorizontalNonAuditClassMapping extends AbstractHorizontalClassMappi
     }
   }
 
+  @Override
+  protected String getBulkReadCondition(boolean historical)
+  {
+    if (historical)
+    {
+      throw new UnsupportedOperationException("Mapping strategy does not support audits"); //$NON-NLS-1$
+    }
+
+    return null;
+  }
+
+  @Override
+  protected int setBulkReadParameters(PreparedStatement stmt, int column, CDOBranch branch, long timeStamp)
+      throws SQLException
+  {
+    return column;
+  }
+
   @Override
   protected void detachAttributes(IDBStoreAccessor accessor, CDOID id, int version, CDOBranch branch, long timeStamp,
       OMMonitor mon)
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.db.mapping.horizontal;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.server.db.IDBStore;
+import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
+import org.eclipse.emf.cdo.server.db.IIDHandler;
+import org.eclipse.emf.cdo.server.internal.db.CDODBSchema;
+import org.eclipse.emf.cdo.server.internal.db.bundle.OM;
+
+import org.eclipse.net4j.db.DBException;
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An object type cache for repositories with {@link org.eclipse.emf.cdo.server.internal.db.LongIDHandler long IDs}.
+ * <p>
+ * Unlike the {@link ObjectTypeCache} it does not lock or mutate a shared map on lookups. The cache is a
+ * set-associative table of primitive <code>long</code> object IDs and compact <code>int</code> class indexes. Each ID
+ * maps to a bucket of {@link #WAYS} slots, which is evicted with the CLOCK algorithm: a lookup hit sets the referenced
+ * bit of its slot and an insertion into a full bucket clears the referenced bits until it finds an unreferenced slot.
+ * Lookups don't take locks, insertions and removals only lock the segment of their bucket.
+ * <p>
+ * A slot is empty while its value is 0. Each bucket has a sequence number that writers make odd before they change the
+ * key of a slot and even again afterwards. A lookup only returns a value if it has read the same even sequence number
+ * before and after reading the slot, otherwise it treats the ID as a miss. Checking the key of the slot twice would not
+ * be enough: a slot can be reused for another ID and for the original one again while a lookup reads it.
+ *
+ * @author Eike Stepper
+ */
+public class LongObjectTypeCache extends DelegatingObjectTypeMapper
+{
+  public static final int WAYS = 8;
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, LongObjectTypeCache.class);
+
+  private static final int MAX_SEGMENTS = 64;
+
+  private static final int REFERENCED = 0x80000000;
+
+  private final int capacity;
+
+  private boolean warmUp;
+
+  private int bucketMask;
+
+  private AtomicLongArray keys;
+
+  /**
+   * The class index plus 1, with the {@link #REFERENCED} bit, or 0 for an empty slot.
+   */
+  private AtomicIntegerArray values;
+
+  /**
+   * The sequence numbers of the buckets, odd while a writer changes the key of one of their slots.
+   */
+  private AtomicIntegerArray sequences;
+
+  /**
+   * The CLOCK hands of the buckets, guarded by the segment locks.
+   */
+  private byte[] hands;
+
+  private Object[] segmentLocks;
+
+  private int segmentMask;
+
+  private final ConcurrentMap<CDOID, Integer> classIndexes = new ConcurrentHashMap<CDOID, Integer>();
+
+  private volatile CDOID[] classIDs = new CDOID[0];
+
+  public LongObjectTypeCache(int capacity)
+  {
+    this.capacity = capacity;
+  }
+
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  public boolean isWarmUp()
+  {
+    return warmUp;
+  }
+
+  /**
+   * Configures whether the cache is filled with the most recently created objects of the
+   * {@link CDODBSchema#CDO_OBJECTS objects table} when it is activated.
+   */
+  public void setWarmUp(boolean warmUp)
+  {
+    checkInactive();
+    this.warmUp = warmUp;
+  }
+
+  @Override
+  protected CDOID doGetObjectType(IDBStoreAccessor accessor, CDOID id)
+  {
+    if (!isCacheable(id))
+    {
+      return null;
+    }
+
+    long key = CDOIDUtil.getLong(id);
+    int bucket = getBucket(key);
+    int sequence = sequences.get(bucket);
+    if ((sequence & 1) != 0)
+    {
+      return null;
+    }
+
+    int slot = bucket * WAYS;
+    for (int end = slot + WAYS; slot < end; slot++)
+    {
+      if (keys.get(slot) == key)
+      {
+        int value = values.get(slot);
+        if (value != 0)
+        {
+          if (sequences.get(bucket) != sequence)
+          {
+            return null;
+          }
+
+          if ((value & REFERENCED) == 0)
+          {
+            values.compareAndSet(slot, value, value | REFERENCED);
+          }
+
+          return classIDs[(value & ~REFERENCED) - 1];
+        }
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  protected void doPutObjectType(IDBStoreAccessor accessor, CDOID id, CDOID type)
+  {
+    if (isCacheable(id))
+    {
+      put(CDOIDUtil.getLong(id), getClassIndex(type) + 1, true);
+    }
+  }
+
+  @Override
+  protected void doRemoveObjectType(IDBStoreAccessor accessor, CDOID id)
+  {
+    if (!isCacheable(id))
+    {
+      return;
+    }
+
+    long key = CDOIDUtil.getLong(id);
+    int bucket = getBucket(key);
+    synchronized (segmentLocks[bucket & segmentMask])
+    {
+      int slot = bucket * WAYS;
+      for (int end = slot + WAYS; slot < end; slot++)
+      {
+        if (values.get(slot) != 0 && keys.get(slot) == key)
+        {
+          values.set(slot, 0);
+          return;
+        }
+      }
+    }
+  }
+
+  @Override
+  protected CDOID doGetMaxID(Connection connection, IIDHandler idHandler)
+  {
+    return null;
+  }
+
+  @Override
+  protected void doActivate() throws Exception
+  {
+    super.doActivate();
+
+    int buckets = 1;
+    while (buckets * WAYS < capacity)
+    {
+      buckets <<= 1;
+    }
+
+    int segments = Math.min(buckets, MAX_SEGMENTS);
+    segmentLocks = new Object[segments];
+    for (int i = 0; i < segments; i++)
+    {
+      segmentLocks[i] = new Object();
+    }
+
+    bucketMask = buckets - 1;
+    segmentMask = segments - 1;
+    keys = new AtomicLongArray(buckets * WAYS);
+    values = new AtomicIntegerArray(buckets * WAYS);
+    sequences = new AtomicIntegerArray(buckets);
+    hands = new byte[buckets];
+
+    if (warmUp)
+    {
+      warmUp();
+    }
+  }
+
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    keys = null;
+    values = null;
+    sequences = null;
+    hands = null;
+    segmentLocks = null;
+    classIndexes.clear();
+    classIDs = new CDOID[0];
+    super.doDeactivate();
+  }
+
+  /**
+   * Fills the cache with the most recently created objects. Buckets that are full are skipped, so that the newer
+   * objects are not evicted by the older ones.
+   */
+  protected void warmUp()
+  {
+    IDBStore store = getMappingStrategy().getStore();
+    IIDHandler idHandler = store.getIDHandler();
+    IDBStoreAccessor accessor = store.getReader(null);
+    Connection connection = accessor.getConnection();
+    Statement stmt = null;
+    ResultSet resultSet = null;
+    int count = 0;
+
+    try
+    {
+      String sql = "SELECT " + CDODBSchema.ATTRIBUTES_ID + ", " + CDODBSchema.ATTRIBUTES_CLASS + " FROM " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+          + CDODBSchema.CDO_OBJECTS + " ORDER BY " + CDODBSchema.ATTRIBUTES_CREATED + " DESC"; //$NON-NLS-1$ //$NON-NLS-2$
+
+      stmt = connection.createStatement();
+      stmt.setMaxRows(capacity);
+      DBUtil.trace(sql);
+      resultSet = stmt.executeQuery(sql);
+
+      while (resultSet.next())
+      {
+        long key = resultSet.getLong(1);
+        CDOID classID = idHandler.getCDOID(resultSet, 2);
+        if (put(key, getClassIndex(classID) + 1, false))
+        {
+          ++count;
+        }
+      }
+    }
+    catch (SQLException ex)
+    {
+      throw new DBException(ex);
+    }
+    finally
+    {
+      DBUtil.close(resultSet);
+      DBUtil.close(stmt);
+      accessor.release();
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Warmed up object type cache with {0} objects", count); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the key has been added or updated, <code>false</code> if the bucket is full and
+   *         <code>evict</code> is <code>false</code>.
+   */
+  private boolean put(long key, int value, boolean evict)
+  {
+    int bucket = getBucket(key);
+    synchronized (segmentLocks[bucket & segmentMask])
+    {
+      int start = bucket * WAYS;
+      int free = -1;
+      for (int slot = start, end = start + WAYS; slot < end; slot++)
+      {
+        if (values.get(slot) == 0)
+        {
+          if (free == -1)
+          {
+            free = slot;
+          }
+        }
+        else if (keys.get(slot) == key)
+        {
+          values.set(slot, value);
+          return true;
+        }
+      }
+
+      if (free == -1)
+      {
+        if (!evict)
+        {
+          return false;
+        }
+
+        free = evict(bucket, start);
+      }
+
+      sequences.incrementAndGet(bucket);
+      values.set(free, 0);
+      keys.set(free, key);
+      values.set(free, value);
+      sequences.incrementAndGet(bucket);
+      return true;
+    }
+  }
+
+  /**
+   * Advances the CLOCK hand of the given bucket to the next unreferenced slot, clearing the referenced bits on its way.
+   * Must be called with the segment lock held.
+   */
+  private int evict(int bucket, int start)
+  {
+    int hand = hands[bucket];
+    for (int i = 0;; i++)
+    {
+      int slot = start + hand;
+      hand = (hand + 1) % WAYS;
+
+      // Concurrent hits can set the referenced bits again, so give up after two rounds
+      int value = values.get(slot);
+      if ((value & REFERENCED) == 0 || i == 2 * WAYS)
+      {
+        hands[bucket] = (byte)hand;
+        return slot;
+      }
+
+      values.compareAndSet(slot, value, value & ~REFERENCED);
+    }
+  }
+
+  private int getBucket(long key)
+  {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int)(hash >>> 32) & bucketMask;
+  }
+
+  private int getClassIndex(CDOID classID)
+  {
+    Integer index = classIndexes.get(classID);
+    if (index == null)
+    {
+      synchronized (classIndexes)
+      {
+        index = classIndexes.get(classID);
+        if (index == null)
+        {
+          CDOID[] oldIDs = classIDs;
+          CDOID[] newIDs = new CDOID[oldIDs.length + 1];
+          System.arraycopy(oldIDs, 0, newIDs, 0, oldIDs.length);
+
+          index = oldIDs.length;
+          newIDs[index] = classID;
+
+          // Publish the class ID before its index can be stored in a slot
+          classIDs = newIDs;
+          classIndexes.put(classID, index);
+        }
+      }
+    }
+
+    return index;
+  }
+
+  private static boolean isCacheable(CDOID id)
+  {
+    return id != null && id.getType() == CDOID.Type.OBJECT;
+  }
+}
@@ -212,9 +212,9 @@ public class NonAuditListTableMapping extends AbstractListTableMapping implement
   }
 
   @Override
-  protected void setKeyFields(PreparedStatement stmt, CDORevision revision) throws SQLException
+  protected void setKeyFields(PreparedStatement stmt, int column, CDORevision revision) throws SQLException
   {
-    getMappingStrategy().getStore().getIDHandler().setCDOID(stmt, 1, revision.getID());
+    getMappingStrategy().getStore().getIDHandler().setCDOID(stmt, column + 1, revision.getID());
   }
 
   public void objectDetached(IDBStoreAccessor accessor, CDOID id, long revised)
@@ -42,6 +42,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Eike Stepper
@@ -49,6 +54,11 @@ import java.sql.Statement;
  */
 public class ObjectTypeTable extends AbstractObjectTypeMapper
 {
+  /**
+   * The maximum number of IDs in the IN list of a bulk select. Must be a power of two.
+   */
+  private static final int BULK_SELECT_SIZE = 128;
+
   private IDBTable table;
 
   private IDBField idField;
@@ -63,6 +73,11 @@ public class ObjectTypeTable extends AbstractObjectTypeMapper
 
   private String sqlSelect;
 
+  /**
+   * Bulk select statements, indexed by log2(number of IDs).
+   */
+  private String[] sqlSelectBulk = new String[Integer.numberOfTrailingZeros(BULK_SELECT_SIZE) + 1];
+
   public ObjectTypeTable()
   {
   }
@@ -100,6 +115,103 @@ public class ObjectTypeTable extends AbstractObjectTypeMapper
     }
   }
 
+  public final Map<CDOID, CDOClassifierRef> getObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids)
+  {
+    Map<CDOID, CDOClassifierRef> result = new HashMap<CDOID, CDOClassifierRef>();
+    List<CDOID> list = new ArrayList<CDOID>(ids);
+    for (int start = 0; start < list.size(); start += BULK_SELECT_SIZE)
+    {
+      int end = Math.min(start + BULK_SELECT_SIZE, list.size());
+      getObjectTypes(accessor, list.subList(start, end), result);
+    }
+
+    return result;
+  }
+
+  private void getObjectTypes(IDBStoreAccessor accessor, List<CDOID> ids, Map<CDOID, CDOClassifierRef> result)
+  {
+    // Pad the IN list to the next power of two to limit the number of distinct statements
+    int size = ids.size();
+    int sizeIndex = 32 - Integer.numberOfLeadingZeros(size - 1);
+    int paddedSize = 1 << sizeIndex;
+
+    IIDHandler idHandler = getMappingStrategy().getStore().getIDHandler();
+    IPreparedStatementCache statementCache = accessor.getStatementCache();
+    PreparedStatement stmt = null;
+    ResultSet resultSet = null;
+
+    try
+    {
+      stmt = statementCache.getPreparedStatement(getSQLSelectBulk(sizeIndex), ReuseProbability.HIGH);
+      for (int i = 0; i < paddedSize; i++)
+      {
+        idHandler.setCDOID(stmt, i + 1, ids.get(Math.min(i, size - 1)));
+      }
+
+      DBUtil.trace(stmt.toString());
+      resultSet = stmt.executeQuery();
+
+      Map<CDOID, CDOClassifierRef> types = new HashMap<CDOID, CDOClassifierRef>();
+      while (resultSet.next())
+      {
+        CDOID id = idHandler.getCDOID(resultSet, 1);
+        CDOID classID = idHandler.getCDOID(resultSet, 2);
+
+        CDOClassifierRef type = types.get(classID);
+        if (type == null)
+        {
+          EClass eClass = (EClass)getMetaDataManager().getMetaInstance(classID);
+          type = new CDOClassifierRef(eClass);
+          types.put(classID, type);
+        }
+
+        result.put(id, type);
+      }
+    }
+    catch (SQLException ex)
+    {
+      throw new DBException(ex);
+    }
+    finally
+    {
+      DBUtil.close(resultSet);
+      statementCache.releasePreparedStatement(stmt);
+    }
+  }
+
+  private String getSQLSelectBulk(int sizeIndex)
+  {
+    String sql = sqlSelectBulk[sizeIndex];
+    if (sql == null)
+    {
+      StringBuilder builder = new StringBuilder("SELECT "); //$NON-NLS-1$
+      builder.append(idField);
+      builder.append(", "); //$NON-NLS-1$
+      builder.append(typeField);
+      builder.append(" FROM "); //$NON-NLS-1$
+      builder.append(table);
+      builder.append(" WHERE "); //$NON-NLS-1$
+      builder.append(idField);
+      builder.append(" IN ("); //$NON-NLS-1$
+
+      for (int i = 0, size = 1 << sizeIndex; i < size; i++)
+      {
+        if (i != 0)
+        {
+          builder.append(", "); //$NON-NLS-1$
+        }
+
+        builder.append("?"); //$NON-NLS-1$
+      }
+
+      builder.append(")"); //$NON-NLS-1$
+      sql = builder.toString();
+      sqlSelectBulk[sizeIndex] = sql;
+    }
+
+    return sql;
+  }
+
   public final void putObjectType(IDBStoreAccessor accessor, long timeStamp, CDOID id, EClass type)
   {
     IDBStore store = getMappingStrategy().getStore();
@@ -251,6 +363,7 @@ public class ObjectTypeTable extends AbstractObjectTypeMapper
     table = null;
     idField = null;
     typeField = null;
+    sqlSelectBulk = new String[sqlSelectBulk.length];
     super.doDeactivate();
   }
 }
@@ -10,12 +10,28 @@
  */
 package org.eclipse.emf.cdo.server.internal.lissome;
 
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchManager;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfoManager;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.lob.CDOLobStore;
+import org.eclipse.emf.cdo.common.model.CDOPackageRegistry;
+import org.eclipse.emf.cdo.common.protocol.CDODataInput;
+import org.eclipse.emf.cdo.common.revision.CDOListFactory;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataInputImpl;
+import org.eclipse.emf.cdo.spi.common.revision.DetachedCDORevision;
 
+import org.eclipse.net4j.util.io.ExtendedDataInput;
 import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.io.IOUtil;
+
+import org.eclipse.emf.ecore.EClass;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * @author Eike Stepper
@@ -30,6 +46,8 @@ public class LissomeFile extends File
 
   protected final LissomeStore store;
 
+  private transient LissomeFileMap map;
+
   public LissomeFile(LissomeStore store, String path) throws FileNotFoundException
   {
     super(store.getFolder(), path);
@@ -63,6 +81,95 @@ public class LissomeFile extends File
     }
   }
 
+  /**
+   * Returns the memory-mapped reader of this file that is shared by all reader threads.
+   */
+  public synchronized LissomeFileMap getMap()
+  {
+    if (map == null)
+    {
+      try
+      {
+        map = new LissomeFileMap(this);
+      }
+      catch (IOException ex)
+      {
+        throw new IORuntimeException(ex);
+      }
+    }
+
+    return map;
+  }
+
+  public synchronized void closeMap()
+  {
+    IOUtil.close(map);
+    map = null;
+  }
+
+  public CDODataInput createDataInput(ExtendedDataInput extendedDataInput)
+  {
+    return new CDODataInputImpl(extendedDataInput)
+    {
+      @Override
+      public CDORevision readCDORevision(boolean freeze) throws IOException
+      {
+        boolean detached = readBoolean();
+        if (detached)
+        {
+          int cid = readInt();
+          EClass eClass = (EClass)store.getMetaObject(cid);
+
+          CDOID id = readCDOID();
+          CDOBranch branch = readCDOBranch();
+          int version = readInt();
+          long timeStamp = readLong();
+          long revised = readLong();
+
+          return new DetachedCDORevision(eClass, id, branch, version, timeStamp, revised);
+        }
+
+        return super.readCDORevision(freeze);
+      }
+
+      @Override
+      protected CDOPackageRegistry getPackageRegistry()
+      {
+        return store.getRepository().getPackageRegistry();
+      }
+
+      @Override
+      protected CDOBranchManager getBranchManager()
+      {
+        return store.getRepository().getBranchManager();
+      }
+
+      @Override
+      protected CDOCommitInfoManager getCommitInfoManager()
+      {
+        return store.getRepository().getCommitInfoManager();
+      }
+
+      @Override
+      protected CDORevisionFactory getRevisionFactory()
+      {
+        return CDORevisionFactory.DEFAULT;
+      }
+
+      @Override
+      protected CDOListFactory getListFactory()
+      {
+        return CDOListFactory.DEFAULT;
+      }
+
+      @Override
+      protected CDOLobStore getLobStore()
+      {
+        return null;
+      }
+    };
+  }
+
   /**
    * @author Eike Stepper
    */
@@ -45,7 +45,6 @@ import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
 import org.eclipse.emf.cdo.common.revision.delta.CDOFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDORevisionDelta;
 import org.eclipse.emf.cdo.common.security.CDOPermissionProvider;
-import org.eclipse.emf.cdo.spi.common.protocol.CDODataInputImpl;
 import org.eclipse.emf.cdo.spi.common.protocol.CDODataOutputImpl;
 import org.eclipse.emf.cdo.spi.common.revision.DetachedCDORevision;
 
@@ -160,65 +159,7 @@ public class LissomeFileHandle extends DataInputOutputFile implements CDODataInp
   protected CDODataInput createDataInput()
   {
     ExtendedDataInput extendedDataInput = new DataInputExtender(this);
-    return new CDODataInputImpl(extendedDataInput)
-    {
-      @Override
-      public CDORevision readCDORevision(boolean freeze) throws IOException
-      {
-        boolean detached = readBoolean();
-        if (detached)
-        {
-          int cid = readInt();
-          EClass eClass = (EClass)file.getStore().getMetaObject(cid);
-
-          CDOID id = readCDOID();
-          CDOBranch branch = readCDOBranch();
-          int version = readInt();
-          long timeStamp = readLong();
-          long revised = readLong();
-
-          return new DetachedCDORevision(eClass, id, branch, version, timeStamp, revised);
-        }
-
-        return super.readCDORevision(freeze);
-      }
-
-      @Override
-      protected CDOPackageRegistry getPackageRegistry()
-      {
-        return LissomeFileHandle.this.getPackageRegistry();
-      }
-
-      @Override
-      protected CDOBranchManager getBranchManager()
-      {
-        return LissomeFileHandle.this.getBranchManager();
-      }
-
-      @Override
-      protected CDOCommitInfoManager getCommitInfoManager()
-      {
-        return LissomeFileHandle.this.getCommitInfoManager();
-      }
-
-      @Override
-      protected CDORevisionFactory getRevisionFactory()
-      {
-        return LissomeFileHandle.this.getRevisionFactory();
-      }
-
-      @Override
-      protected CDOListFactory getListFactory()
-      {
-        return LissomeFileHandle.this.getListFactory();
-      }
-
-      @Override
-      protected CDOLobStore getLobStore()
-      {
-        return LissomeFileHandle.this.getLobStore();
-      }
-    };
+    return file.createDataInput(extendedDataInput);
   }
 
   public byte[] readByteArray() throws IOException
@@ -226,6 +167,16 @@ public class LissomeFileHandle extends DataInputOutputFile implements CDODataInp
     return in().readByteArray();
   }
 
+  public int readXInt() throws IOException
+  {
+    return in().readXInt();
+  }
+
+  public long readXLong() throws IOException
+  {
+    return in().readXLong();
+  }
+
   public Object readObject() throws IOException
   {
     return in().readObject();
@@ -473,6 +424,16 @@ public class LissomeFileHandle extends DataInputOutputFile implements CDODataInp
     out().writeByteArray(b);
   }
 
+  public void writeXInt(int v) throws IOException
+  {
+    out().writeXInt(v);
+  }
+
+  public void writeXLong(long v) throws IOException
+  {
+    out().writeXLong(v);
+  }
+
   public void writeObject(Object object) throws IOException
   {
     out().writeObject(object);
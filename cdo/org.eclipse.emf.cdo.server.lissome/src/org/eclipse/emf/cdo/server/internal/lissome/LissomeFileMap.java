@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.lissome;
+
+import org.eclipse.emf.cdo.common.protocol.CDODataInput;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.server.internal.lissome.bundle.OM;
+
+import org.eclipse.net4j.util.io.DataInputExtender;
+import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.io.IOUtil;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reads a {@link LissomeFile} through read-only memory mappings that all reader threads share.
+ * <p>
+ * The file is mapped in regions of {@link #REGION_SIZE} bytes. The last region only covers the bytes that existed when
+ * it was mapped and is mapped again when a reader needs bytes that have been appended since. Reads don't move a shared
+ * file pointer; each {@link #openInput(long) input} has its own view of the regions.
+ * <p>
+ * Writes still go through the {@link LissomeFile#openWriter() writer} of the file. They are visible to the mappings as
+ * soon as the writer has written them.
+ * <p>
+ * {@link #close() Closing} the map unmaps the regions right away, rather than leaving that to the garbage collector.
+ * It waits for running {@link #readRevision(long) reads}; inputs that have been {@link #openInput(long) opened} must
+ * not be used after the map has been closed.
+ *
+ * @author Eike Stepper
+ */
+public class LissomeFileMap implements Closeable
+{
+  public static final int REGION_SHIFT = 26;
+
+  public static final int REGION_SIZE = 1 << REGION_SHIFT;
+
+  private static final int REGION_MASK = REGION_SIZE - 1;
+
+  private final LissomeFile file;
+
+  private final RandomAccessFile randomAccessFile;
+
+  private final FileChannel channel;
+
+  private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+  /**
+   * The mappings of the last region that have been replaced by larger ones. Readers may still use them, so they are
+   * only unmapped on close, unless the garbage collector has already unmapped them.
+   */
+  private final List<WeakReference<MappedByteBuffer>> oldRegions = new ArrayList<WeakReference<MappedByteBuffer>>();
+
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+  private volatile boolean closed;
+
+  public LissomeFileMap(LissomeFile file) throws IOException
+  {
+    this.file = file;
+    randomAccessFile = new RandomAccessFile(file, LissomeFile.READ_MODE);
+    channel = randomAccessFile.getChannel();
+  }
+
+  public LissomeFile getFile()
+  {
+    return file;
+  }
+
+  /**
+   * Returns a new {@link CDODataInput} that reads the file from the given pointer on. The input must only be used by a
+   * single thread.
+   */
+  public CDODataInput openInput(long pointer) throws IOException
+  {
+    return file.createDataInput(new DataInputExtender(new Input(pointer)));
+  }
+
+  public CDORevision readRevision(long pointer)
+  {
+    Lock readLock = closeLock.readLock();
+    readLock.lock();
+
+    try
+    {
+      if (closed)
+      {
+        throw new IOException("Closed: " + this); //$NON-NLS-1$
+      }
+
+      return openInput(pointer).readCDORevision();
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  public boolean isClosed()
+  {
+    return closed;
+  }
+
+  public void close()
+  {
+    Lock writeLock = closeLock.writeLock();
+    writeLock.lock();
+
+    try
+    {
+      if (closed)
+      {
+        return;
+      }
+
+      closed = true;
+
+      synchronized (this)
+      {
+        for (MappedByteBuffer region : regions)
+        {
+          if (region != null)
+          {
+            unmap(region);
+          }
+        }
+
+        for (WeakReference<MappedByteBuffer> reference : oldRegions)
+        {
+          MappedByteBuffer region = reference.get();
+          if (region != null)
+          {
+            unmap(region);
+          }
+        }
+
+        regions = new MappedByteBuffer[0];
+        oldRegions.clear();
+      }
+
+      IOUtil.close(randomAccessFile);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "LissomeFileMap[" + file.getName() + "]";
+  }
+
+  /**
+   * Returns a new view of the given region that ends at the mapped end of the region and that covers at least
+   * <code>minLimit</code> bytes of the region.
+   */
+  protected ByteBuffer getRegion(int index, int minLimit) throws IOException
+  {
+    MappedByteBuffer[] regions = this.regions;
+    if (index < regions.length)
+    {
+      MappedByteBuffer region = regions[index];
+      if (region != null && region.capacity() >= minLimit)
+      {
+        return region.duplicate();
+      }
+    }
+
+    return mapRegion(index, minLimit).duplicate();
+  }
+
+  private synchronized MappedByteBuffer mapRegion(int index, int minLimit) throws IOException
+  {
+    if (closed)
+    {
+      throw new IOException("Closed: " + this); //$NON-NLS-1$
+    }
+
+    MappedByteBuffer[] regions = this.regions;
+    if (index < regions.length)
+    {
+      MappedByteBuffer region = regions[index];
+      if (region != null && region.capacity() >= minLimit)
+      {
+        return region;
+      }
+    }
+
+    long start = (long)index << REGION_SHIFT;
+    long size = Math.min(REGION_SIZE, channel.size() - start);
+    if (size < minLimit)
+    {
+      throw new EOFException("End of file " + file.getName() + " reached at " + (start + size)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    MappedByteBuffer region = channel.map(MapMode.READ_ONLY, start, size);
+    if (index >= regions.length)
+    {
+      MappedByteBuffer[] newRegions = new MappedByteBuffer[index + 1];
+      System.arraycopy(regions, 0, newRegions, 0, regions.length);
+      regions = newRegions;
+    }
+    else
+    {
+      if (regions[index] != null)
+      {
+        addOldRegion(regions[index]);
+      }
+
+      regions = regions.clone();
+    }
+
+    regions[index] = region;
+    this.regions = regions;
+    return region;
+  }
+
+  private void addOldRegion(MappedByteBuffer region)
+  {
+    for (Iterator<WeakReference<MappedByteBuffer>> it = oldRegions.iterator(); it.hasNext();)
+    {
+      if (it.next().get() == null)
+      {
+        it.remove();
+      }
+    }
+
+    oldRegions.add(new WeakReference<MappedByteBuffer>(region));
+  }
+
+  /**
+   * Releases the mapping of the given buffer without waiting for the garbage collector. There's no API for that, so the
+   * cleaner of the buffer is invoked reflectively. If that isn't possible the mapping is left to the garbage collector.
+   */
+  private static void unmap(MappedByteBuffer buffer)
+  {
+    try
+    {
+      try
+      {
+        // Java 9 and later
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe"); //$NON-NLS-1$
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class); //$NON-NLS-1$
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe"); //$NON-NLS-1$
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      }
+      catch (NoSuchMethodException ex)
+      {
+        // Java 8 and earlier
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner"); //$NON-NLS-1$
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null)
+        {
+          cleaner.getClass().getMethod("clean").invoke(cleaner); //$NON-NLS-1$
+        }
+      }
+    }
+    catch (Throwable ex)
+    {
+      OM.LOG.warn("Mapping not released: " + ex); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * A {@link DataInput} over the regions of the file. Multi-byte values that don't cross a region boundary are decoded
+   * directly from the mapped buffer.
+   *
+   * @author Eike Stepper
+   */
+  private final class Input implements DataInput
+  {
+    private int index;
+
+    private ByteBuffer buffer;
+
+    public Input(long pointer) throws IOException
+    {
+      index = (int)(pointer >>> REGION_SHIFT);
+      int offset = (int)(pointer & REGION_MASK);
+
+      buffer = getRegion(index, offset);
+      buffer.position(offset);
+    }
+
+    public byte readByte() throws IOException
+    {
+      if (!buffer.hasRemaining())
+      {
+        nextBuffer();
+      }
+
+      return buffer.get();
+    }
+
+    public boolean readBoolean() throws IOException
+    {
+      return readByte() != 0;
+    }
+
+    public int readUnsignedByte() throws IOException
+    {
+      return readByte() & 0xff;
+    }
+
+    public short readShort() throws IOException
+    {
+      if (buffer.remaining() >= 2)
+      {
+        return buffer.getShort();
+      }
+
+      return (short)(readUnsignedByte() << 8 | readUnsignedByte());
+    }
+
+    public int readUnsignedShort() throws IOException
+    {
+      return readShort() & 0xffff;
+    }
+
+    public char readChar() throws IOException
+    {
+      return (char)readShort();
+    }
+
+    public int readInt() throws IOException
+    {
+      if (buffer.remaining() >= 4)
+      {
+        return buffer.getInt();
+      }
+
+      return readUnsignedShort() << 16 | readUnsignedShort();
+    }
+
+    public long readLong() throws IOException
+    {
+      if (buffer.remaining() >= 8)
+      {
+        return buffer.getLong();
+      }
+
+      return (long)readInt() << 32 | readInt() & 0xffffffffL;
+    }
+
+    public float readFloat() throws IOException
+    {
+      return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() throws IOException
+    {
+      return Double.longBitsToDouble(readLong());
+    }
+
+    public void readFully(byte[] b) throws IOException
+    {
+      readFully(b, 0, b.length);
+    }
+
+    public void readFully(byte[] b, int off, int len) throws IOException
+    {
+      while (len > 0)
+      {
+        if (!buffer.hasRemaining())
+        {
+          nextBuffer();
+        }
+
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        off += n;
+        len -= n;
+      }
+    }
+
+    public int skipBytes(int n) throws IOException
+    {
+      int skipped = 0;
+      while (skipped < n)
+      {
+        if (!buffer.hasRemaining())
+        {
+          try
+          {
+            nextBuffer();
+          }
+          catch (EOFException ex)
+          {
+            break;
+          }
+        }
+
+        int count = Math.min(n - skipped, buffer.remaining());
+        buffer.position(buffer.position() + count);
+        skipped += count;
+      }
+
+      return skipped;
+    }
+
+    public String readUTF() throws IOException
+    {
+      return DataInputStream.readUTF(this);
+    }
+
+    @Deprecated
+    public String readLine() throws IOException
+    {
+      StringBuilder builder = new StringBuilder();
+      for (;;)
+      {
+        int c;
+
+        try
+        {
+          c = readUnsignedByte();
+        }
+        catch (EOFException ex)
+        {
+          if (builder.length() == 0)
+          {
+            return null;
+          }
+
+          break;
+        }
+
+        if (c == '\n')
+        {
+          break;
+        }
+
+        if (c != '\r')
+        {
+          builder.append((char)c);
+        }
+      }
+
+      return builder.toString();
+    }
+
+    /**
+     * Continues in the next region or, if the current region is the partially mapped last one, in a new mapping of the
+     * current region that covers the bytes that have been appended meanwhile.
+     */
+    private void nextBuffer() throws IOException
+    {
+      int position = buffer.position();
+      if (position < REGION_SIZE)
+      {
+        buffer = getRegion(index, position + 1);
+        buffer.position(position);
+      }
+      else
+      {
+        buffer = getRegion(++index, 1);
+      }
+    }
+  }
+}
@@ -26,6 +26,7 @@ import org.eclipse.emf.cdo.server.StoreThreadLocal;
 import org.eclipse.emf.cdo.server.internal.lissome.db.Index;
 import org.eclipse.emf.cdo.server.internal.lissome.file.Journal;
 import org.eclipse.emf.cdo.server.internal.lissome.file.Vob;
+import org.eclipse.emf.cdo.server.internal.lissome.index.NativeIndex;
 import org.eclipse.emf.cdo.server.internal.lissome.optimizer.Optimizer;
 import org.eclipse.emf.cdo.server.lissome.ILissomeStore;
 import org.eclipse.emf.cdo.server.lissome.ILissomeStoreAccessor;
@@ -107,6 +108,10 @@ public class LissomeStore extends Store implements ILissomeStore, CDOAllRevision
 
   private boolean firstStart;
 
+  private boolean mappedReads;
+
+  private boolean nativeIndex;
+
   private long creationTime;
 
   private long lastCDOID;
@@ -338,6 +343,22 @@ public class LissomeStore extends Store implements ILissomeStore, CDOAllRevision
     return firstStart;
   }
 
+  /**
+   * @see ILissomeStore.Props#MAPPED_READS
+   */
+  public boolean isMappedReads()
+  {
+    return mappedReads;
+  }
+
+  /**
+   * @see ILissomeStore.Props#NATIVE_INDEX
+   */
+  public boolean isNativeIndex()
+  {
+    return nativeIndex;
+  }
+
   @Override
   protected void doBeforeActivate() throws Exception
   {
@@ -360,9 +381,22 @@ public class LissomeStore extends Store implements ILissomeStore, CDOAllRevision
       setObjectIDTypes(LongIDStore.OBJECT_ID_TYPES);
     }
 
+    String value = properties == null ? null : properties.get(Props.MAPPED_READS);
+    mappedReads = value == null || Boolean.valueOf(value);
+
+    value = properties == null ? null : properties.get(Props.NATIVE_INDEX);
+    nativeIndex = Boolean.valueOf(value);
+
     vob = createVob();
     index = createIndex();
     journal = createJournal();
+    if (mappedReads)
+    {
+      // Open the mappings together with the writers, so that later reads don't depend on the file paths
+      vob.getMap();
+      journal.getMap();
+    }
+
     optimizer.activate();
 
     File persistentPropertiesFile = getPersistentPropertiesFile();
@@ -406,6 +440,9 @@ public class LissomeStore extends Store implements ILissomeStore, CDOAllRevision
     }
 
     optimizer.deactivate();
+    index.close();
+    vob.closeMap();
+    journal.closeMap();
     super.doDeactivate();
   }
 
@@ -504,6 +541,11 @@ public class LissomeStore extends Store implements ILissomeStore, CDOAllRevision
 
   protected Index createIndex()
   {
+    if (nativeIndex)
+    {
+      return new NativeIndex(this);
+    }
+
     return new Index(this);
   }
 
@@ -25,6 +25,7 @@ import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
 import org.eclipse.emf.cdo.common.util.CDOQueryInfo;
 import org.eclipse.emf.cdo.server.IQueryHandler;
 import org.eclipse.emf.cdo.server.ISession;
+import org.eclipse.emf.cdo.server.IStoreAccessor.BulkRevisionReader;
 import org.eclipse.emf.cdo.server.IStoreChunkReader;
 import org.eclipse.emf.cdo.server.ITransaction;
 import org.eclipse.emf.cdo.server.internal.lissome.db.Index;
@@ -59,7 +60,11 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -68,8 +73,26 @@ import java.util.Set;
 /**
  * @author Eike Stepper
  */
-public class LissomeStoreReader extends StoreAccessorBase implements ILissomeStoreAccessor
+public class LissomeStoreReader extends StoreAccessorBase implements ILissomeStoreAccessor, BulkRevisionReader
 {
+  private static final Comparator<Pair<CDOID, RevisionInfo>> POINTER_ORDER = new Comparator<Pair<CDOID, RevisionInfo>>()
+  {
+    public int compare(Pair<CDOID, RevisionInfo> o1, Pair<CDOID, RevisionInfo> o2)
+    {
+      // Journal pointers are negative, vob pointers are positive
+      long p1 = o1.getElement2().getPointer();
+      long p2 = o2.getElement2().getPointer();
+      if (p1 < 0 != p2 < 0)
+      {
+        return p1 < 0 ? -1 : 1;
+      }
+
+      p1 = Math.abs(p1);
+      p2 = Math.abs(p2);
+      return p1 < p2 ? -1 : p1 == p2 ? 0 : 1;
+    }
+  };
+
   protected Journal journal;
 
   private LissomeFileHandle journalReader;
@@ -164,6 +187,49 @@ public class LissomeStoreReader extends StoreAccessorBase implements ILissomeSto
     return readRevision(info);
   }
 
+  public Map<CDOID, InternalCDORevision> readRevisions(Collection<CDOID> ids, CDOBranchPoint branchPoint,
+      int listChunk, CDORevisionCacheAdder cache)
+  {
+    Map<CDOID, InternalCDORevision> result = new HashMap<CDOID, InternalCDORevision>();
+    List<Pair<CDOID, RevisionInfo>> infos = new ArrayList<Pair<CDOID, RevisionInfo>>();
+
+    Optimizer optimizer = getStore().getOptimizer();
+    boolean supportingAudits = getStore().getRepository().isSupportingAudits();
+    for (CDOID id : ids)
+    {
+      InternalCDORevision revision = optimizer.readRevision(id, branchPoint);
+      if (revision != null)
+      {
+        if (supportingAudits || !(revision instanceof DetachedCDORevision)
+            && revision.getRevised() == CDOBranchPoint.UNSPECIFIED_DATE)
+        {
+          result.put(id, revision);
+        }
+
+        continue;
+      }
+
+      RevisionInfo info = indexReader.readRevision(id, branchPoint);
+      if (info != null && info.getPointer() != Index.NULL_POINTER)
+      {
+        infos.add(new Pair<CDOID, RevisionInfo>(id, info));
+      }
+    }
+
+    // Read the revisions in file order so that the vob and the journal are scanned rather than randomly accessed
+    Collections.sort(infos, POINTER_ORDER);
+    for (Pair<CDOID, RevisionInfo> pair : infos)
+    {
+      InternalCDORevision revision = readRevision(pair.getElement2());
+      if (revision != null)
+      {
+        result.put(pair.getElement1(), revision);
+      }
+    }
+
+    return result;
+  }
+
   public InternalCDORevision readRevisionByVersion(CDOID id, CDOBranchVersion branchVersion, int listChunk,
       CDORevisionCacheAdder cache)
   {
@@ -184,22 +250,21 @@ public class LissomeStoreReader extends StoreAccessorBase implements ILissomeSto
       return null;
     }
 
-    LissomeFileHandle reader;
-    if (pointer < 0)
-    {
-      reader = getJournalReader();
-      pointer = -pointer;
-    }
-    else
-    {
-      reader = getVobReader();
-    }
-
     try
     {
-      reader.seek(pointer);
+      InternalCDORevision revision;
+      if (getStore().isMappedReads())
+      {
+        LissomeFile file = pointer < 0 ? getStore().getJournal() : getStore().getVob();
+        revision = (InternalCDORevision)file.getMap().readRevision(Math.abs(pointer));
+      }
+      else
+      {
+        LissomeFileHandle reader = pointer < 0 ? getJournalReader() : getVobReader();
+        reader.seek(Math.abs(pointer));
+        revision = (InternalCDORevision)reader.readCDORevision();
+      }
 
-      InternalCDORevision revision = (InternalCDORevision)reader.readCDORevision();
       if (revision != null)
       {
         long revised = info.getRevised();
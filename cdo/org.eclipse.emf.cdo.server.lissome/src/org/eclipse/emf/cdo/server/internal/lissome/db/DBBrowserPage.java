@@ -12,6 +12,9 @@ package org.eclipse.emf.cdo.server.internal.lissome.db;
 
 import org.eclipse.emf.cdo.server.CDOServerBrowser;
 import org.eclipse.emf.cdo.server.CDOServerBrowser.AbstractPage;
+import org.eclipse.emf.cdo.server.IStore;
+import org.eclipse.emf.cdo.server.internal.lissome.LissomeStore;
+import org.eclipse.emf.cdo.server.internal.lissome.index.NativeIndex;
 import org.eclipse.emf.cdo.spi.server.InternalRepository;
 
 import org.eclipse.net4j.db.DBException;
@@ -39,7 +42,13 @@ public class DBBrowserPage extends AbstractPage
 
   public boolean canDisplay(InternalRepository repository)
   {
-    return repository.getStore() instanceof IDBConnectionProvider;
+    IStore store = repository.getStore();
+    if (store instanceof LissomeStore && ((LissomeStore)store).getIndex() instanceof NativeIndex)
+    {
+      return false;
+    }
+
+    return store instanceof IDBConnectionProvider;
   }
 
   public void display(CDOServerBrowser browser, InternalRepository repository, PrintStream out)
@@ -18,6 +18,7 @@ import org.eclipse.emf.cdo.spi.common.id.AbstractCDOIDByteArray;
 import org.eclipse.emf.cdo.spi.server.InternalRepository;
 
 import org.eclipse.net4j.db.DBException;
+import org.eclipse.net4j.db.DBUtil;
 import org.eclipse.net4j.db.IDBAdapter;
 import org.eclipse.net4j.db.IDBConnectionProvider;
 import org.eclipse.net4j.db.h2.H2Adapter;
@@ -175,6 +176,11 @@ public class Index extends DBSchema implements IDBConnectionProvider
     }
   }
 
+  public void close()
+  {
+    DBUtil.close(writer.getConnection());
+  }
+
   public void trace(ContextTracer tracer, PreparedStatement stmt)
   {
     if (DEBUG)
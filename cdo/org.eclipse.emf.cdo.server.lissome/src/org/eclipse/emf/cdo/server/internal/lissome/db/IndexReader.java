@@ -78,7 +78,7 @@ public class IndexReader implements IDBConnectionProvider
     supportingAudits = index.isSupportingAudits();
     supportingBranches = index.isSupportingBranches();
 
-    connection = index.getConnection();
+    connection = createConnection();
   }
 
   public Index getIndex()
@@ -96,6 +96,11 @@ public class IndexReader implements IDBConnectionProvider
     return connection;
   }
 
+  protected Connection createConnection()
+  {
+    return index.getConnection();
+  }
+
   protected int setParameters(PreparedStatement stmt, int column, CDOBranchPoint branchPoint) throws SQLException
   {
     if (supportingBranches)
@@ -23,6 +23,7 @@ import org.eclipse.net4j.db.DBException;
 import org.eclipse.net4j.db.DBType;
 import org.eclipse.net4j.util.om.trace.ContextTracer;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Arrays;
@@ -49,6 +50,12 @@ public class IndexWriter extends IndexReader
   public IndexWriter(Index index)
   {
     super(index);
+  }
+
+  @Override
+  protected Connection createConnection()
+  {
+    Connection connection = super.createConnection();
 
     try
     {
@@ -58,6 +65,8 @@ public class IndexWriter extends IndexReader
     {
       throw new DBException(ex);
     }
+
+    return connection;
   }
 
   public void commit()
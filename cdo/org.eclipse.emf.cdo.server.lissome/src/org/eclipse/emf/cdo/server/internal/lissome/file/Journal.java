@@ -59,6 +59,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 /**
  * @author Eike Stepper
@@ -73,6 +76,8 @@ public class Journal extends LissomeFile
 
   public static final byte CREATE_BRANCH_BLOCK = 3;
 
+  private static final long HEADER_SIZE = 16;
+
   private static final ContextTracer TRACER = new ContextTracer(OM.JOURNAL, Journal.class);
 
   private static final long serialVersionUID = 1L;
@@ -126,6 +131,7 @@ public class Journal extends LissomeFile
       writer.seek(0);
       writer.writeLong(commitPointer);
       writer.writeLong(packageUnitPointer);
+      writer.flush();
     }
     catch (IOException ex)
     {
@@ -155,6 +161,11 @@ public class Journal extends LissomeFile
     }
   }
 
+  public long getCommitPointer()
+  {
+    return commitPointer;
+  }
+
   public Collection<InternalCDOPackageUnit> readPackageUnits()
   {
     LissomeFileHandle reader = openReader();
@@ -447,6 +458,7 @@ public class Journal extends LissomeFile
           monitor.worked();
 
           // New package units
+          writer.writeBoolean(newPackageUnits.length != 0);
           if (newPackageUnits.length != 0)
           {
             writePackageUnits(writer, newPackageUnits, monitor);
@@ -585,6 +597,9 @@ public class Journal extends LissomeFile
         writer.seek(0L);
         writer.writeLong(commitPointer);
         writer.writeLong(packageUnitPointer);
+
+        // The writer is buffered, so make sure that the new head of the commit chain reaches the file
+        writer.flush();
       }
 
       return commitTransactionTask;
@@ -622,6 +637,171 @@ public class Journal extends LissomeFile
     newPackageUnitPointer = packageUnitPointer;
   }
 
+  /**
+   * Reads the blocks of this journal in file order and passes the created branches and the committed transactions to
+   * the given handler. Transactions that have not been committed are skipped.
+   */
+  public void handleBlocks(BlockHandler handler)
+  {
+    LissomeFileHandle reader = openReader();
+
+    try
+    {
+      SortedSet<Long> commitPointers = new TreeSet<Long>();
+      for (long pointer = commitPointer; pointer != 0;)
+      {
+        commitPointers.add(pointer);
+        reader.seek(pointer);
+        reader.readByte(); // COMMIT_TRANSACTION_BLOCK
+        pointer = reader.readLong();
+      }
+
+      ResourceSet resourceSet = new ResourceSetImpl();
+      resourceSet.setPackageRegistry(getStore().getRepository().getPackageRegistry());
+
+      long length = reader.length();
+      long pointer = HEADER_SIZE;
+      while (pointer < length)
+      {
+        try
+        {
+          pointer = handleBlock(reader, pointer, commitPointers, resourceSet, handler);
+        }
+        catch (Exception ex)
+        {
+          // A transaction that failed while it was written can leave an incomplete block behind
+          SortedSet<Long> nextPointers = commitPointers.tailSet(pointer + 1);
+          if (nextPointers.isEmpty())
+          {
+            OM.LOG.warn("Unreadable block at " + pointer + " in " + getName(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+            break;
+          }
+
+          OM.LOG.warn("Skipping unreadable block at " + pointer + " in " + getName(), ex); //$NON-NLS-1$ //$NON-NLS-2$
+          pointer = nextPointers.first();
+        }
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      IOUtil.close(reader);
+    }
+  }
+
+  protected long handleBlock(LissomeFileHandle reader, long pointer, Set<Long> commitPointers,
+      ResourceSet resourceSet, BlockHandler handler) throws IOException
+  {
+    reader.seek(pointer);
+    byte type = reader.readByte();
+    switch (type)
+    {
+    case PACKAGE_UNITS_BLOCK:
+      skipPackageUnits(reader, resourceSet);
+      break;
+
+    case COMMIT_TRANSACTION_BLOCK:
+    {
+      reader.readLong(); // commitPointer
+      CDOBranchPoint branchPoint = reader.readCDOBranchPoint();
+      reader.readLong(); // previousTimeStamp
+      reader.readString(); // userID
+      reader.readString(); // commitComment
+
+      if (reader.readBoolean())
+      {
+        skipPackageUnits(reader, resourceSet);
+      }
+
+      boolean withTypes = reader.readBoolean();
+      boolean withVersions = reader.readBoolean();
+      int detachedObjects = reader.readInt();
+      for (int i = 0; i < detachedObjects; i++)
+      {
+        if (withTypes)
+        {
+          reader.readInt(); // cid
+        }
+
+        if (withVersions && reader.readInt() < 0)
+        {
+          reader.readCDOBranch();
+        }
+      }
+
+      int size = reader.readInt();
+      InternalCDORevision[] newObjects = new InternalCDORevision[size];
+      long[] newObjectPointers = new long[size];
+      for (int i = 0; i < size; i++)
+      {
+        newObjectPointers[i] = reader.getFilePointer();
+        newObjects[i] = (InternalCDORevision)reader.readCDORevision();
+      }
+
+      int dirtyObjectDeltas = reader.readInt();
+      for (int i = 0; i < dirtyObjectDeltas; i++)
+      {
+        reader.readCDORevisionDelta();
+      }
+
+      if (commitPointers.contains(pointer))
+      {
+        handler.handleCommit(branchPoint, pointer, newObjects, newObjectPointers);
+      }
+
+      break;
+    }
+
+    case CREATE_BRANCH_BLOCK:
+    {
+      int branchID = reader.readInt();
+      String name = reader.readString();
+      int baseBranchID = reader.readInt();
+      long baseTimeStamp = reader.readLong();
+
+      handler.handleBranch(branchID, new BranchInfo(name, baseBranchID, baseTimeStamp));
+      break;
+    }
+
+    default:
+      throw new IOException("Unknown block type " + type + " at " + pointer); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    return reader.getFilePointer();
+  }
+
+  protected void skipPackageUnits(LissomeFileHandle reader, ResourceSet resourceSet) throws IOException
+  {
+    InternalCDOPackageRegistry packageRegistry = getStore().getRepository().getPackageRegistry();
+
+    int size = reader.readInt();
+    for (int i = 0; i < size; i++)
+    {
+      reader.readByteArray();
+    }
+
+    reader.readLong(); // packageUnitPointer
+
+    size = reader.readInt();
+    for (int i = 0; i < size; i++)
+    {
+      String id = reader.readCDOPackageUnit(resourceSet).getID();
+      reader.readLong(); // ePackagePointer
+
+      InternalCDOPackageUnit packageUnit = packageRegistry.getPackageUnit(id);
+      if (packageUnit == null)
+      {
+        throw new IOException("Package unit " + id + " not found"); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+
+      // Reads the meta IDs, which are already mapped to the same objects
+      mapPackage(packageUnit.getTopLevelPackageInfo().getEPackage(), reader);
+    }
+  }
+
   public CDOCommitInfo readCommitInfo(LissomeFileHandle reader, long pointer)
   {
     try
@@ -645,4 +825,15 @@ public class Journal extends LissomeFile
       throw new IORuntimeException(ex);
     }
   }
+
+  /**
+   * @author Eike Stepper
+   */
+  public interface BlockHandler
+  {
+    public void handleBranch(int branchID, BranchInfo branchInfo);
+
+    public void handleCommit(CDOBranchPoint branchPoint, long pointer, InternalCDORevision[] newObjects,
+        long[] newObjectPointers);
+  }
 }
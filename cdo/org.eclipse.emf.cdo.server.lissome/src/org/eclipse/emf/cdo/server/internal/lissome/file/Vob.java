@@ -15,8 +15,10 @@ import org.eclipse.emf.cdo.server.internal.lissome.LissomeFile;
 import org.eclipse.emf.cdo.server.internal.lissome.LissomeFileHandle;
 import org.eclipse.emf.cdo.server.internal.lissome.LissomeFileOperation;
 import org.eclipse.emf.cdo.server.internal.lissome.LissomeStore;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
 
 import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.io.IOUtil;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -30,6 +32,8 @@ public class Vob extends LissomeFile
 
   public static final String EXTENSION = "vob";
 
+  private static final long HEADER_SIZE = 8;
+
   private final LissomeFileHandle writer;
 
   public Vob(LissomeStore store) throws IOException
@@ -64,9 +68,46 @@ public class Vob extends LissomeFile
     });
   }
 
+  /**
+   * Reads all revisions of this vob in file order and passes them to the given handler.
+   */
+  public void handleRevisions(RevisionHandler handler)
+  {
+    LissomeFileHandle reader = openReader();
+
+    try
+    {
+      long length = reader.length();
+      long pointer = HEADER_SIZE;
+      while (pointer < length)
+      {
+        reader.seek(pointer);
+        InternalCDORevision revision = (InternalCDORevision)reader.readCDORevision();
+        handler.handleRevision(revision, pointer);
+        pointer = reader.getFilePointer();
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      IOUtil.close(reader);
+    }
+  }
+
   public void delete(long[] pointers)
   {
     // TODO: implement Vob.enclosing_method(enclosing_method_arguments)
     throw new UnsupportedOperationException();
   }
+
+  /**
+   * @author Eike Stepper
+   */
+  public interface RevisionHandler
+  {
+    public void handleRevision(InternalCDORevision revision, long pointer);
+  }
 }
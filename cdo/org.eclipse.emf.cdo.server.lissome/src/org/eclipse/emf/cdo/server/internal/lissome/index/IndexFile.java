@@ -0,0 +1,1551 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.lissome.index;
+
+import org.eclipse.emf.cdo.server.internal.lissome.bundle.OM;
+
+import org.eclipse.net4j.util.io.IOUtil;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent sorted map of byte array keys to byte array values that is stored in a single append-only file.
+ * <p>
+ * The file is a log-structured merge tree. Each {@link #write(List, long) write} is appended to the file as a log block
+ * and added to a sorted in-memory table. When the table exceeds the {@link #getMemTableLimit() limit} it is appended
+ * to the file as a sorted run, which makes the log blocks before it obsolete. A run is merged with the next newer run
+ * as long as it is not more than twice as large, so that there are only logarithmically many runs. When the runs that
+ * have been merged take more space than the live runs the file is rewritten with a single run.
+ * <p>
+ * Runs consist of checksummed data blocks of about {@link #DATA_BLOCK_SIZE} bytes. Only the first key of each data
+ * block is kept in memory, recently used data blocks are cached. A damaged or incomplete tail of the file, for example
+ * after a crash, is truncated when the file is opened.
+ * <p>
+ * Keys are compared as unsigned bytes. Entries can't be removed; writing an existing key replaces its value. Each write
+ * carries a {@link #getTag() tag} that the file remembers, so that the owner of the file can tell how far it is up to
+ * date. There must be only one writer thread, readers can run concurrently with it. {@link Cursor Cursors} read the
+ * entries in batches and only block the writer while they read a batch.
+ *
+ * @author Eike Stepper
+ */
+public class IndexFile implements Closeable
+{
+  public static final int DEFAULT_MEM_TABLE_LIMIT = 4 * 1024 * 1024;
+
+  public static final int DATA_BLOCK_SIZE = 4096;
+
+  /**
+   * The maximum number of entries that a {@link Cursor cursor} reads at once. The first batches are smaller, so that
+   * short iterations don't read more entries than they need.
+   */
+  public static final int CURSOR_BATCH_SIZE = 1024;
+
+  private static final int FIRST_CURSOR_BATCH_SIZE = 16;
+
+  public static final Comparator<byte[]> KEY_COMPARATOR = new Comparator<byte[]>()
+  {
+    public int compare(byte[] key1, byte[] key2)
+    {
+      return compareKeys(key1, key2);
+    }
+  };
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.INDEX, IndexFile.class);
+
+  private static final int MAGIC = 0x4C494458;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 8;
+
+  private static final int BLOCK_HEADER_SIZE = 9;
+
+  private static final int RUN_TRAILER_SIZE = 12;
+
+  private static final byte LOG_BLOCK = 1;
+
+  private static final byte RUN_BLOCK = 2;
+
+  private static final byte FLUSHED_RUN = 1;
+
+  private static final byte MERGED_RUN = 2;
+
+  private static final int BLOCK_CACHE_SIZE = 256;
+
+  private static final long[] NO_POSITIONS = {};
+
+  private final File file;
+
+  private final int memTableLimit;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final Map<Long, DataBlock> blockCache = new LinkedHashMap<Long, DataBlock>(BLOCK_CACHE_SIZE, 0.75f, true)
+  {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Long, DataBlock> eldest)
+    {
+      return size() > BLOCK_CACHE_SIZE;
+    }
+  };
+
+  private RandomAccessFile randomAccessFile;
+
+  private FileChannel channel;
+
+  private boolean created;
+
+  private long end;
+
+  /**
+   * The number of bytes of the header, the live runs and the log blocks after the last flushed run.
+   */
+  private long liveSize;
+
+  private long tag;
+
+  private SortedMap<byte[], byte[]> memTable = new TreeMap<byte[], byte[]>(KEY_COMPARATOR);
+
+  private int memTableSize;
+
+  /**
+   * The live runs, oldest first.
+   */
+  private List<Run> runs = new ArrayList<Run>();
+
+  public IndexFile(File file, int memTableLimit) throws IOException
+  {
+    this.file = file;
+    this.memTableLimit = memTableLimit;
+    open();
+  }
+
+  public IndexFile(File file) throws IOException
+  {
+    this(file, DEFAULT_MEM_TABLE_LIMIT);
+  }
+
+  public File getFile()
+  {
+    return file;
+  }
+
+  public int getMemTableLimit()
+  {
+    return memTableLimit;
+  }
+
+  /**
+   * Returns <code>true</code> if this file did not exist, or was unusable, before it was opened.
+   */
+  public boolean isCreated()
+  {
+    return created;
+  }
+
+  /**
+   * Returns the tag of the last write, or <code>0</code> if the file is empty.
+   */
+  public long getTag()
+  {
+    return tag;
+  }
+
+  /**
+   * Returns the number of live runs in the file.
+   */
+  public int getRunCount()
+  {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+
+    try
+    {
+      return runs.size();
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  public byte[] get(byte[] key) throws IOException
+  {
+    Entry entry = floor(key);
+    if (entry != null && compareKeys(entry.getKey(), key) == 0)
+    {
+      return entry.getValue();
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the entry with the greatest key that is less than or equal to the given key, or <code>null</code>.
+   */
+  public Entry floor(byte[] key) throws IOException
+  {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+
+    try
+    {
+      Entry result = null;
+      SortedMap<byte[], byte[]> headMap = memTable.headMap(successor(key));
+      if (!headMap.isEmpty())
+      {
+        byte[] floorKey = headMap.lastKey();
+        result = new Entry(floorKey, headMap.get(floorKey));
+      }
+
+      for (int i = runs.size() - 1; i >= 0; --i)
+      {
+        Entry entry = runs.get(i).floor(key);
+        if (entry != null && (result == null || compareKeys(entry.getKey(), result.getKey()) > 0))
+        {
+          result = entry;
+        }
+      }
+
+      return result;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Returns the entry with the least key that is greater than the given key, or <code>null</code>.
+   */
+  public Entry higher(byte[] key) throws IOException
+  {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+
+    try
+    {
+      Entry result = null;
+      SortedMap<byte[], byte[]> tailMap = memTable.tailMap(successor(key));
+      if (!tailMap.isEmpty())
+      {
+        byte[] higherKey = tailMap.firstKey();
+        result = new Entry(higherKey, tailMap.get(higherKey));
+      }
+
+      for (int i = runs.size() - 1; i >= 0; --i)
+      {
+        Entry entry = runs.get(i).higher(key);
+        if (entry != null && (result == null || compareKeys(entry.getKey(), result.getKey()) < 0))
+        {
+          result = entry;
+        }
+      }
+
+      return result;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Returns a new cursor over the entries with keys that are greater than or equal to the given key, in key order. The
+   * cursor only blocks writes while it reads a batch of entries. Entries that are written while the cursor is open are
+   * returned if their keys are greater than the last key of the batch that the cursor has read before.
+   */
+  public Cursor openCursor(byte[] fromKey)
+  {
+    return new Cursor(fromKey);
+  }
+
+  /**
+   * Appends the given entries to the file and makes them visible to readers. Must only be called by the writer thread.
+   */
+  public synchronized void write(List<Entry> entries, long tag) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0); // CRC
+    out.writeLong(tag);
+    out.writeInt(entries.size());
+    for (Entry entry : entries)
+    {
+      writeEntry(out, entry.getKey(), entry.getValue());
+    }
+
+    out.flush();
+    byte[] payload = bytes.toByteArray();
+    ByteBuffer.wrap(payload).putInt(0, checksum(payload, 4, payload.length - 4));
+
+    ByteBuffer buffer = ByteBuffer.allocate(BLOCK_HEADER_SIZE + payload.length);
+    buffer.put(LOG_BLOCK);
+    buffer.putLong(payload.length);
+    buffer.put(payload);
+    buffer.flip();
+    write(channel, buffer, end);
+
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+
+    try
+    {
+      for (Entry entry : entries)
+      {
+        putMemTable(entry.getKey(), entry.getValue());
+      }
+
+      end += buffer.limit();
+      liveSize += buffer.limit();
+      this.tag = tag;
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+
+    if (memTableSize >= memTableLimit)
+    {
+      flush();
+    }
+  }
+
+  /**
+   * Writes the in-memory table to the file as a sorted run. Must only be called by the writer thread.
+   */
+  public synchronized void flush() throws IOException
+  {
+    if (memTable.isEmpty())
+    {
+      return;
+    }
+
+    RunWriter writer = new RunWriter(channel, end, FLUSHED_RUN, tag, NO_POSITIONS);
+    for (Map.Entry<byte[], byte[]> entry : memTable.entrySet())
+    {
+      writer.add(entry.getKey(), entry.getValue());
+    }
+
+    Run run = writer.finish();
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Flushed {0} entries to {1}", run.getCount(), file); //$NON-NLS-1$
+    }
+
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+
+    try
+    {
+      runs.add(run);
+      memTable = new TreeMap<byte[], byte[]>(KEY_COMPARATOR);
+      memTableSize = 0;
+      end = run.getEnd();
+      liveSize = computeRunSize();
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+
+    merge();
+  }
+
+  /**
+   * Removes all entries from the file. Must only be called by the writer thread.
+   */
+  public synchronized void clear() throws IOException
+  {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+
+    try
+    {
+      channel.truncate(0);
+      writeHeader(channel);
+      reset();
+      end = HEADER_SIZE;
+      liveSize = HEADER_SIZE;
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  public synchronized void close()
+  {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+
+    try
+    {
+      IOUtil.close(randomAccessFile);
+      randomAccessFile = null;
+      channel = null;
+      reset();
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "IndexFile[" + file + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  protected void open() throws IOException
+  {
+    created = !file.exists() || file.length() == 0;
+    randomAccessFile = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+    channel = randomAccessFile.getChannel();
+
+    if (!created)
+    {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (channel.read(header, 0) == HEADER_SIZE && header.getInt(0) == MAGIC && header.getInt(4) == VERSION)
+      {
+        load();
+        return;
+      }
+
+      OM.LOG.warn("Recreating unreadable index file " + file); //$NON-NLS-1$
+      created = true;
+    }
+
+    channel.truncate(0);
+    writeHeader(channel);
+    end = HEADER_SIZE;
+    liveSize = HEADER_SIZE;
+  }
+
+  /**
+   * Reads the runs of the file and replays the log blocks after the last flushed run into the in-memory table.
+   */
+  protected void load() throws IOException
+  {
+    List<ByteBuffer> logs = new ArrayList<ByteBuffer>();
+    long logSize = 0;
+    long size = channel.size();
+    long position = HEADER_SIZE;
+
+    while (position < size)
+    {
+      try
+      {
+        ByteBuffer header = read(position, BLOCK_HEADER_SIZE);
+        byte type = header.get();
+        long length = header.getLong();
+        long blockEnd = position + BLOCK_HEADER_SIZE + length;
+        if (length <= 0 || blockEnd > size)
+        {
+          break;
+        }
+
+        if (type == LOG_BLOCK)
+        {
+          ByteBuffer payload = read(position + BLOCK_HEADER_SIZE, (int)length);
+          if (payload.getInt(0) != checksum(payload.array(), 4, (int)length - 4))
+          {
+            break;
+          }
+
+          tag = payload.getLong(4);
+          logs.add(payload);
+          logSize += blockEnd - position;
+        }
+        else if (type == RUN_BLOCK)
+        {
+          Run run = readRun(position, blockEnd);
+          if (run == null)
+          {
+            break;
+          }
+
+          if (run.isFlushed())
+          {
+            logs.clear();
+            logSize = 0;
+          }
+
+          for (long replaced : run.getReplaced())
+          {
+            for (Iterator<Run> it = runs.iterator(); it.hasNext();)
+            {
+              if (it.next().getPosition() == replaced)
+              {
+                it.remove();
+              }
+            }
+          }
+
+          runs.add(run);
+          tag = run.getTag();
+        }
+        else
+        {
+          break;
+        }
+
+        position = blockEnd;
+      }
+      catch (IOException ex)
+      {
+        break;
+      }
+    }
+
+    if (position < size)
+    {
+      OM.LOG.warn("Truncating damaged index file " + file + " at " + position); //$NON-NLS-1$ //$NON-NLS-2$
+      channel.truncate(position);
+    }
+
+    for (ByteBuffer payload : logs)
+    {
+      payload.position(12);
+      int count = payload.getInt();
+      for (int i = 0; i < count; i++)
+      {
+        byte[] key = readBytes(payload);
+        byte[] value = readBytes(payload);
+        putMemTable(key, value);
+      }
+    }
+
+    end = position;
+    liveSize = computeRunSize() + logSize;
+  }
+
+  /**
+   * Merges the newest runs as long as the older one is not more than twice as large as the newer one.
+   */
+  protected void merge() throws IOException
+  {
+    while (runs.size() >= 2)
+    {
+      Run newer = runs.get(runs.size() - 1);
+      Run older = runs.get(runs.size() - 2);
+      if (older.getCount() > 2 * newer.getCount())
+      {
+        break;
+      }
+
+      long[] replaced = { older.getPosition(), newer.getPosition() };
+      RunWriter writer = new RunWriter(channel, end, MERGED_RUN, tag, replaced);
+
+      List<Source> sources = new ArrayList<Source>();
+      sources.add(new RunSource(newer, null));
+      sources.add(new RunSource(older, null));
+      copy(new Merger(sources), writer);
+
+      Run run = writer.finish();
+
+      Lock writeLock = lock.writeLock();
+      writeLock.lock();
+
+      try
+      {
+        runs.remove(newer);
+        runs.remove(older);
+        runs.add(run);
+        end = run.getEnd();
+        liveSize = computeRunSize();
+      }
+      finally
+      {
+        writeLock.unlock();
+      }
+    }
+
+    if (end - liveSize > liveSize)
+    {
+      rewrite();
+    }
+  }
+
+  /**
+   * Writes all entries into a single run of a new file that replaces this file. Must only be called when the in-memory
+   * table is empty.
+   */
+  protected void rewrite() throws IOException
+  {
+    File tempFile = new File(file.getParentFile(), file.getName() + ".tmp"); //$NON-NLS-1$
+    RandomAccessFile tempRandomAccessFile = new RandomAccessFile(tempFile, "rw"); //$NON-NLS-1$
+    Run run;
+
+    try
+    {
+      FileChannel tempChannel = tempRandomAccessFile.getChannel();
+      tempChannel.truncate(0);
+      writeHeader(tempChannel);
+
+      RunWriter writer = new RunWriter(tempChannel, HEADER_SIZE, FLUSHED_RUN, tag, NO_POSITIONS);
+      List<Source> sources = new ArrayList<Source>();
+      for (int i = runs.size() - 1; i >= 0; --i)
+      {
+        sources.add(new RunSource(runs.get(i), null));
+      }
+
+      copy(new Merger(sources), writer);
+      run = writer.finish();
+      tempChannel.force(true);
+    }
+    finally
+    {
+      IOUtil.close(tempRandomAccessFile);
+    }
+
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+
+    try
+    {
+      IOUtil.close(randomAccessFile);
+      if (!tempFile.renameTo(file))
+      {
+        if (!file.delete() || !tempFile.renameTo(file))
+        {
+          throw new IOException("Unable to replace " + file + " with " + tempFile); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+      }
+
+      randomAccessFile = new RandomAccessFile(file, "rw"); //$NON-NLS-1$
+      channel = randomAccessFile.getChannel();
+      clearBlockCache();
+
+      runs.clear();
+      runs.add(run);
+      end = run.getEnd();
+      liveSize = end;
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Rewrote {0} with {1} entries", file, run.getCount()); //$NON-NLS-1$
+    }
+  }
+
+  private void reset()
+  {
+    runs = new ArrayList<Run>();
+    memTable = new TreeMap<byte[], byte[]>(KEY_COMPARATOR);
+    memTableSize = 0;
+    tag = 0;
+    clearBlockCache();
+  }
+
+  private void putMemTable(byte[] key, byte[] value)
+  {
+    byte[] oldValue = memTable.put(key, value);
+    if (oldValue == null)
+    {
+      memTableSize += key.length + value.length + 32;
+    }
+    else
+    {
+      memTableSize += value.length - oldValue.length;
+    }
+  }
+
+  private long computeRunSize()
+  {
+    long size = HEADER_SIZE;
+    for (Run run : runs)
+    {
+      size += run.getEnd() - run.getPosition();
+    }
+
+    return size;
+  }
+
+  /**
+   * Returns the sources of a merged iteration from the given key on. Must be called with the read or the write lock
+   * held, and the sources must only be used while it is held.
+   */
+  private List<Source> getSources(byte[] fromKey) throws IOException
+  {
+    List<Source> sources = new ArrayList<Source>();
+    sources.add(new MemTableSource(memTable.tailMap(fromKey)));
+    for (int i = runs.size() - 1; i >= 0; --i)
+    {
+      sources.add(new RunSource(runs.get(i), fromKey));
+    }
+
+    return sources;
+  }
+
+  private void copy(Merger merger, RunWriter writer) throws IOException
+  {
+    while (merger.next())
+    {
+      writer.add(merger.getKey(), merger.getValue());
+    }
+  }
+
+  private Run readRun(long position, long blockEnd) throws IOException
+  {
+    ByteBuffer trailer = read(blockEnd - RUN_TRAILER_SIZE, RUN_TRAILER_SIZE);
+    int indexChecksum = trailer.getInt();
+    long indexPosition = trailer.getLong();
+    if (indexPosition <= position || indexPosition > blockEnd - RUN_TRAILER_SIZE)
+    {
+      return null;
+    }
+
+    ByteBuffer index = read(indexPosition, (int)(blockEnd - RUN_TRAILER_SIZE - indexPosition));
+    if (indexChecksum != checksum(index.array(), 0, index.limit()))
+    {
+      return null;
+    }
+
+    ByteBuffer runHeader = read(position + BLOCK_HEADER_SIZE, 13);
+    byte kind = runHeader.get();
+    long runTag = runHeader.getLong();
+    long[] replaced = new long[runHeader.getInt()];
+    if (replaced.length != 0)
+    {
+      ByteBuffer buffer = read(position + BLOCK_HEADER_SIZE + 13, 8 * replaced.length);
+      for (int i = 0; i < replaced.length; i++)
+      {
+        replaced[i] = buffer.getLong();
+      }
+    }
+
+    int blockCount = index.getInt();
+    long[] blockPositions = new long[blockCount];
+    int[] blockLengths = new int[blockCount];
+    byte[][] firstKeys = new byte[blockCount][];
+    for (int i = 0; i < blockCount; i++)
+    {
+      blockPositions[i] = index.getLong();
+      blockLengths[i] = index.getInt();
+      firstKeys[i] = readBytes(index);
+    }
+
+    long count = index.getLong();
+    return new Run(position, blockEnd, kind, runTag, replaced, blockPositions, blockLengths, firstKeys, count);
+  }
+
+  private DataBlock getDataBlock(Run run, int index) throws IOException
+  {
+    long position = run.getBlockPosition(index);
+    Long key = position;
+
+    synchronized (blockCache)
+    {
+      DataBlock block = blockCache.get(key);
+      if (block != null)
+      {
+        return block;
+      }
+    }
+
+    ByteBuffer buffer = read(position, run.getBlockLength(index));
+    if (buffer.getInt(0) != checksum(buffer.array(), 4, buffer.limit() - 4))
+    {
+      throw new IOException("Damaged data block at " + position + " in " + file); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    buffer.position(4);
+    int count = buffer.getInt();
+    byte[][] keys = new byte[count][];
+    byte[][] values = new byte[count][];
+    for (int i = 0; i < count; i++)
+    {
+      keys[i] = readBytes(buffer);
+      values[i] = readBytes(buffer);
+    }
+
+    DataBlock block = new DataBlock(keys, values);
+    synchronized (blockCache)
+    {
+      blockCache.put(key, block);
+    }
+
+    return block;
+  }
+
+  private void clearBlockCache()
+  {
+    synchronized (blockCache)
+    {
+      blockCache.clear();
+    }
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException
+  {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining())
+    {
+      int n = channel.read(buffer, position + buffer.position());
+      if (n < 0)
+      {
+        throw new EOFException("End of file " + file + " reached at " + (position + buffer.position())); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+  {
+    while (buffer.hasRemaining())
+    {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  private static void writeHeader(FileChannel channel) throws IOException
+  {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC);
+    header.putInt(VERSION);
+    header.flip();
+    write(channel, header, 0);
+  }
+
+  private static void writeEntry(DataOutputStream out, byte[] key, byte[] value) throws IOException
+  {
+    out.writeInt(key.length);
+    out.write(key);
+    out.writeInt(value.length);
+    out.write(value);
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer)
+  {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  private static int checksum(byte[] bytes, int offset, int length)
+  {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, offset, length);
+    return (int)crc.getValue();
+  }
+
+  /**
+   * Returns the least key that is greater than the given key.
+   */
+  public static byte[] successor(byte[] key)
+  {
+    byte[] result = new byte[key.length + 1];
+    System.arraycopy(key, 0, result, 0, key.length);
+    return result;
+  }
+
+  public static int compareKeys(byte[] key1, byte[] key2)
+  {
+    int length = Math.min(key1.length, key2.length);
+    for (int i = 0; i < length; i++)
+    {
+      int diff = (key1[i] & 0xff) - (key2[i] & 0xff);
+      if (diff != 0)
+      {
+        return diff;
+      }
+    }
+
+    return key1.length - key2.length;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  public static final class Entry
+  {
+    private final byte[] key;
+
+    private final byte[] value;
+
+    public Entry(byte[] key, byte[] value)
+    {
+      this.key = key;
+      this.value = value;
+    }
+
+    public byte[] getKey()
+    {
+      return key;
+    }
+
+    public byte[] getValue()
+    {
+      return value;
+    }
+  }
+
+  /**
+   * Iterates the entries of all runs and of the in-memory table in key order. The entries are read in batches, each
+   * under the read lock of the file, so that a slow iteration doesn't keep the writer from appending to the file.
+   *
+   * @author Eike Stepper
+   */
+  public final class Cursor implements Closeable
+  {
+    /**
+     * The key to read the next batch from, or <code>null</code> if there are no more entries.
+     */
+    private byte[] nextKey;
+
+    private int batchSize = FIRST_CURSOR_BATCH_SIZE;
+
+    private byte[][] keys = new byte[0][];
+
+    private byte[][] values = new byte[0][];
+
+    private int size;
+
+    private int index;
+
+    private byte[] key;
+
+    private byte[] value;
+
+    private Cursor(byte[] fromKey)
+    {
+      nextKey = fromKey;
+    }
+
+    public boolean next() throws IOException
+    {
+      if (index == size)
+      {
+        if (nextKey == null || !readBatch())
+        {
+          key = null;
+          value = null;
+          return false;
+        }
+      }
+
+      key = keys[index];
+      value = values[index];
+      ++index;
+      return true;
+    }
+
+    public byte[] getKey()
+    {
+      return key;
+    }
+
+    public byte[] getValue()
+    {
+      return value;
+    }
+
+    public void close()
+    {
+      nextKey = null;
+      keys = new byte[0][];
+      values = new byte[0][];
+      size = 0;
+      index = 0;
+    }
+
+    private boolean readBatch() throws IOException
+    {
+      if (keys.length != batchSize)
+      {
+        keys = new byte[batchSize][];
+        values = new byte[batchSize][];
+      }
+
+      size = 0;
+      index = 0;
+
+      Lock readLock = lock.readLock();
+      readLock.lock();
+
+      try
+      {
+        Merger merger = new Merger(getSources(nextKey));
+        while (size < batchSize && merger.next())
+        {
+          keys[size] = merger.getKey();
+          values[size] = merger.getValue();
+          ++size;
+        }
+      }
+      finally
+      {
+        readLock.unlock();
+      }
+
+      nextKey = size == batchSize ? successor(keys[size - 1]) : null;
+      batchSize = Math.min(2 * batchSize, CURSOR_BATCH_SIZE);
+      return size != 0;
+    }
+  }
+
+  /**
+   * Merges the entries of several sources in key order. Must only be used while the sources are valid.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Merger
+  {
+    private final Source[] sources;
+
+    private byte[] key;
+
+    private byte[] value;
+
+    public Merger(List<Source> sources)
+    {
+      this.sources = sources.toArray(new Source[sources.size()]);
+    }
+
+    public boolean next() throws IOException
+    {
+      // The sources are ordered from newest to oldest, so the first of several equal keys wins
+      Source next = null;
+      for (Source source : sources)
+      {
+        if (source.getKey() != null && (next == null || compareKeys(source.getKey(), next.getKey()) < 0))
+        {
+          next = source;
+        }
+      }
+
+      if (next == null)
+      {
+        key = null;
+        value = null;
+        return false;
+      }
+
+      key = next.getKey();
+      value = next.getValue();
+
+      for (Source source : sources)
+      {
+        if (source.getKey() != null && compareKeys(source.getKey(), key) == 0)
+        {
+          source.advance();
+        }
+      }
+
+      return true;
+    }
+
+    public byte[] getKey()
+    {
+      return key;
+    }
+
+    public byte[] getValue()
+    {
+      return value;
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static abstract class Source
+  {
+    protected byte[] key;
+
+    protected byte[] value;
+
+    public byte[] getKey()
+    {
+      return key;
+    }
+
+    public byte[] getValue()
+    {
+      return value;
+    }
+
+    public abstract void advance() throws IOException;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class MemTableSource extends Source
+  {
+    private final Iterator<Map.Entry<byte[], byte[]>> iterator;
+
+    public MemTableSource(SortedMap<byte[], byte[]> map)
+    {
+      iterator = map.entrySet().iterator();
+      advance();
+    }
+
+    @Override
+    public void advance()
+    {
+      if (iterator.hasNext())
+      {
+        Map.Entry<byte[], byte[]> entry = iterator.next();
+        key = entry.getKey();
+        value = entry.getValue();
+      }
+      else
+      {
+        key = null;
+        value = null;
+      }
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private final class RunSource extends Source
+  {
+    private final Run run;
+
+    private int blockIndex;
+
+    private DataBlock block;
+
+    private int entryIndex;
+
+    public RunSource(Run run, byte[] fromKey) throws IOException
+    {
+      this.run = run;
+
+      if (fromKey == null || (blockIndex = run.findBlock(fromKey)) < 0)
+      {
+        blockIndex = 0;
+      }
+
+      if (blockIndex < run.getBlockCount())
+      {
+        block = getDataBlock(run, blockIndex);
+        entryIndex = fromKey == null ? 0 : block.ceilingIndex(fromKey);
+        update();
+      }
+    }
+
+    @Override
+    public void advance() throws IOException
+    {
+      ++entryIndex;
+      update();
+    }
+
+    private void update() throws IOException
+    {
+      while (entryIndex >= block.size())
+      {
+        if (++blockIndex >= run.getBlockCount())
+        {
+          key = null;
+          value = null;
+          return;
+        }
+
+        block = getDataBlock(run, blockIndex);
+        entryIndex = 0;
+      }
+
+      key = block.getKey(entryIndex);
+      value = block.getValue(entryIndex);
+    }
+  }
+
+  /**
+   * An immutable sorted run in the file.
+   *
+   * @author Eike Stepper
+   */
+  private final class Run
+  {
+    private final long position;
+
+    private final long end;
+
+    private final byte kind;
+
+    private final long tag;
+
+    private final long[] replaced;
+
+    private final long[] blockPositions;
+
+    private final int[] blockLengths;
+
+    private final byte[][] firstKeys;
+
+    private final long count;
+
+    public Run(long position, long end, byte kind, long tag, long[] replaced, long[] blockPositions,
+        int[] blockLengths, byte[][] firstKeys, long count)
+    {
+      this.position = position;
+      this.end = end;
+      this.kind = kind;
+      this.tag = tag;
+      this.replaced = replaced;
+      this.blockPositions = blockPositions;
+      this.blockLengths = blockLengths;
+      this.firstKeys = firstKeys;
+      this.count = count;
+    }
+
+    public long getPosition()
+    {
+      return position;
+    }
+
+    public long getEnd()
+    {
+      return end;
+    }
+
+    public boolean isFlushed()
+    {
+      return kind == FLUSHED_RUN;
+    }
+
+    public long getTag()
+    {
+      return tag;
+    }
+
+    public long[] getReplaced()
+    {
+      return replaced;
+    }
+
+    public long getCount()
+    {
+      return count;
+    }
+
+    public int getBlockCount()
+    {
+      return blockPositions.length;
+    }
+
+    public long getBlockPosition(int index)
+    {
+      return blockPositions[index];
+    }
+
+    public int getBlockLength(int index)
+    {
+      return blockLengths[index];
+    }
+
+    /**
+     * Returns the index of the last data block whose first key is less than or equal to the given key, or -1.
+     */
+    public int findBlock(byte[] key)
+    {
+      int low = 0;
+      int high = firstKeys.length - 1;
+      while (low <= high)
+      {
+        int mid = low + high >>> 1;
+        if (compareKeys(firstKeys[mid], key) <= 0)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid - 1;
+        }
+      }
+
+      return high;
+    }
+
+    public Entry floor(byte[] key) throws IOException
+    {
+      int blockIndex = findBlock(key);
+      if (blockIndex < 0)
+      {
+        return null;
+      }
+
+      DataBlock block = getDataBlock(this, blockIndex);
+      int entryIndex = block.ceilingIndex(successor(key)) - 1;
+      return block.getEntry(entryIndex);
+    }
+
+    public Entry higher(byte[] key) throws IOException
+    {
+      int blockIndex = Math.max(findBlock(key), 0);
+      if (blockIndex >= firstKeys.length)
+      {
+        return null;
+      }
+
+      DataBlock block = getDataBlock(this, blockIndex);
+      int entryIndex = block.ceilingIndex(successor(key));
+      if (entryIndex < block.size())
+      {
+        return block.getEntry(entryIndex);
+      }
+
+      if (++blockIndex < firstKeys.length)
+      {
+        return getDataBlock(this, blockIndex).getEntry(0);
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * The decoded entries of a data block.
+   *
+   * @author Eike Stepper
+   */
+  private static final class DataBlock
+  {
+    private final byte[][] keys;
+
+    private final byte[][] values;
+
+    public DataBlock(byte[][] keys, byte[][] values)
+    {
+      this.keys = keys;
+      this.values = values;
+    }
+
+    public int size()
+    {
+      return keys.length;
+    }
+
+    public byte[] getKey(int index)
+    {
+      return keys[index];
+    }
+
+    public byte[] getValue(int index)
+    {
+      return values[index];
+    }
+
+    public Entry getEntry(int index)
+    {
+      return new Entry(keys[index], values[index]);
+    }
+
+    /**
+     * Returns the index of the first entry whose key is greater than or equal to the given key, or the size of this
+     * block.
+     */
+    public int ceilingIndex(byte[] key)
+    {
+      int low = 0;
+      int high = keys.length;
+      while (low < high)
+      {
+        int mid = low + high >>> 1;
+        if (compareKeys(keys[mid], key) < 0)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid;
+        }
+      }
+
+      return low;
+    }
+  }
+
+  /**
+   * Writes a run as a sequence of data blocks, followed by the first keys of the blocks.
+   *
+   * @author Eike Stepper
+   */
+  private final class RunWriter
+  {
+    private final FileChannel channel;
+
+    private final long position;
+
+    private final byte kind;
+
+    private final long tag;
+
+    private final long[] replaced;
+
+    private long blockPosition;
+
+    private ByteArrayOutputStream block = new ByteArrayOutputStream(2 * DATA_BLOCK_SIZE);
+
+    private DataOutputStream blockOut = new DataOutputStream(block);
+
+    private int blockCount;
+
+    private List<Long> blockPositions = new ArrayList<Long>();
+
+    private List<Integer> blockLengths = new ArrayList<Integer>();
+
+    private List<byte[]> firstKeys = new ArrayList<byte[]>();
+
+    private long count;
+
+    public RunWriter(FileChannel channel, long position, byte kind, long tag, long[] replaced) throws IOException
+    {
+      this.channel = channel;
+      this.position = position;
+      this.kind = kind;
+      this.tag = tag;
+      this.replaced = replaced;
+
+      ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE + 13 + 8 * replaced.length);
+      header.put(RUN_BLOCK);
+      header.putLong(0); // Length
+      header.put(kind);
+      header.putLong(tag);
+      header.putInt(replaced.length);
+      for (long replacedPosition : replaced)
+      {
+        header.putLong(replacedPosition);
+      }
+
+      header.flip();
+      write(channel, header, position);
+      blockPosition = position + header.limit();
+      startBlock();
+    }
+
+    public void add(byte[] key, byte[] value) throws IOException
+    {
+      if (blockCount != 0 && block.size() + 8 + key.length + value.length > DATA_BLOCK_SIZE)
+      {
+        finishBlock();
+        startBlock();
+      }
+
+      if (blockCount == 0)
+      {
+        firstKeys.add(key);
+      }
+
+      writeEntry(blockOut, key, value);
+      ++blockCount;
+      ++count;
+    }
+
+    public Run finish() throws IOException
+    {
+      if (blockCount != 0)
+      {
+        finishBlock();
+      }
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(blockPositions.size());
+      for (int i = 0; i < blockPositions.size(); i++)
+      {
+        out.writeLong(blockPositions.get(i));
+        out.writeInt(blockLengths.get(i));
+        out.writeInt(firstKeys.get(i).length);
+        out.write(firstKeys.get(i));
+      }
+
+      out.writeLong(count);
+      out.flush();
+
+      byte[] index = bytes.toByteArray();
+      long indexPosition = blockPosition;
+      ByteBuffer buffer = ByteBuffer.allocate(index.length + RUN_TRAILER_SIZE);
+      buffer.put(index);
+      buffer.putInt(checksum(index, 0, index.length));
+      buffer.putLong(indexPosition);
+      buffer.flip();
+      write(channel, buffer, indexPosition);
+
+      long runEnd = indexPosition + buffer.limit();
+      ByteBuffer length = ByteBuffer.allocate(8);
+      length.putLong(runEnd - position - BLOCK_HEADER_SIZE);
+      length.flip();
+      write(channel, length, position + 1);
+
+      int size = blockPositions.size();
+      long[] positions = new long[size];
+      int[] lengths = new int[size];
+      for (int i = 0; i < size; i++)
+      {
+        positions[i] = blockPositions.get(i);
+        lengths[i] = blockLengths.get(i);
+      }
+
+      return new Run(position, runEnd, kind, tag, replaced, positions, lengths,
+          firstKeys.toArray(new byte[size][]), count);
+    }
+
+    private void startBlock() throws IOException
+    {
+      block.reset();
+      blockOut.writeInt(0); // CRC
+      blockOut.writeInt(0); // Count
+      blockCount = 0;
+    }
+
+    private void finishBlock() throws IOException
+    {
+      blockOut.flush();
+      byte[] bytes = block.toByteArray();
+
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      buffer.putInt(4, blockCount);
+      buffer.putInt(0, checksum(bytes, 4, bytes.length - 4));
+      write(channel, buffer, blockPosition);
+
+      blockPositions.add(blockPosition);
+      blockLengths.add(bytes.length);
+      blockPosition += bytes.length;
+    }
+  }
+}
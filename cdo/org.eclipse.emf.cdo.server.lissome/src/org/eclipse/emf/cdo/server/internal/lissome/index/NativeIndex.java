@@ -0,0 +1,847 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.lissome.index;
+
+import org.eclipse.emf.cdo.common.CDOCommonRepository.IDGenerationLocation;
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchHandler;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.eresource.EresourcePackage;
+import org.eclipse.emf.cdo.server.IStoreAccessor;
+import org.eclipse.emf.cdo.server.internal.lissome.LissomeStore;
+import org.eclipse.emf.cdo.server.internal.lissome.bundle.OM;
+import org.eclipse.emf.cdo.server.internal.lissome.db.Index;
+import org.eclipse.emf.cdo.server.internal.lissome.db.IndexReader;
+import org.eclipse.emf.cdo.server.internal.lissome.db.IndexReader.PointerHandler;
+import org.eclipse.emf.cdo.server.internal.lissome.db.IndexReader.RevisionInfo;
+import org.eclipse.emf.cdo.server.internal.lissome.db.IndexWriter;
+import org.eclipse.emf.cdo.server.internal.lissome.file.Journal;
+import org.eclipse.emf.cdo.server.internal.lissome.file.Vob;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranch;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.BranchInfo;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.SubBranchInfo;
+import org.eclipse.emf.cdo.spi.common.id.AbstractCDOIDByteArray;
+import org.eclipse.emf.cdo.spi.common.revision.DetachedCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.util.CDOURIUtil;
+
+import org.eclipse.net4j.util.WrappedException;
+import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.io.IOUtil;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import org.eclipse.emf.ecore.EClass;
+
+import javax.sql.DataSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link Index index} that is stored in a native, append-only {@link IndexFile index file} instead of an embedded H2
+ * database.
+ * <p>
+ * All entries share one sorted key space. The first byte of a key identifies the kind of the entry:
+ * <ul>
+ * <li>Revisions are keyed by object ID, branch and creation time. They map to the pointer, version and class of the
+ * revision.
+ * <li>Revisions of resource nodes are additionally keyed by container ID and name.
+ * <li>Commits are keyed by time. They map to the branch and the journal pointer of the commit.
+ * <li>Branches are keyed by ID.
+ * </ul>
+ * The revised time of a revision is not stored; it is derived from the creation time of the next revision of the same
+ * object in the same branch. That's why the index is never updated, only appended to.
+ * <p>
+ * Each commit tags the index file with its journal pointer. If the tag of the index file doesn't match the last commit
+ * of the {@link Journal journal} when the index file is opened, for example because the file is new or was damaged, the
+ * index is rebuilt from the journal and the {@link Vob vob}.
+ *
+ * @author Eike Stepper
+ */
+public class NativeIndex extends Index
+{
+  public static final String EXTENSION = "index"; //$NON-NLS-1$
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.INDEX, NativeIndex.class);
+
+  private static final byte OBJECT = 'O';
+
+  private static final byte RESOURCE = 'R';
+
+  private static final byte COMMIT = 'C';
+
+  private static final byte BRANCH = 'B';
+
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private static final String UTF8 = "UTF-8"; //$NON-NLS-1$
+
+  private IndexFile file;
+
+  public NativeIndex(LissomeStore store)
+  {
+    super(store);
+  }
+
+  /**
+   * Returns the index file, after it has been opened and, if needed, rebuilt.
+   */
+  public synchronized IndexFile getFile()
+  {
+    if (file == null)
+    {
+      LissomeStore store = getStore();
+      String name = getRepository().getName() + "." + EXTENSION; //$NON-NLS-1$
+
+      try
+      {
+        file = new IndexFile(new File(store.getFolder(), name));
+        if (file.getTag() != store.getJournal().getCommitPointer())
+        {
+          rebuild();
+        }
+      }
+      catch (IOException ex)
+      {
+        close();
+        throw new IORuntimeException(ex);
+      }
+      catch (RuntimeException ex)
+      {
+        close();
+        throw ex;
+      }
+    }
+
+    return file;
+  }
+
+  @Override
+  public IndexReader createReader()
+  {
+    return new NativeIndexReader(this);
+  }
+
+  @Override
+  protected IndexWriter createWriter()
+  {
+    return new NativeIndexWriter(this);
+  }
+
+  @Override
+  protected DataSource createDataSource()
+  {
+    return null;
+  }
+
+  @Override
+  public Connection getConnection()
+  {
+    throw new UnsupportedOperationException("The native index has no database connection"); //$NON-NLS-1$
+  }
+
+  @Override
+  public void createTables()
+  {
+    getFile();
+  }
+
+  @Override
+  public synchronized void close()
+  {
+    IOUtil.close(file);
+    file = null;
+  }
+
+  /**
+   * Clears the index file and indexes the created branches and committed transactions of the journal, followed by the
+   * revisions of the vob.
+   */
+  protected void rebuild() throws IOException
+  {
+    OM.LOG.info("Rebuilding " + file.getFile()); //$NON-NLS-1$
+    file.clear();
+
+    LissomeStore store = getStore();
+    final NativeIndexWriter writer = new NativeIndexWriter(this);
+
+    store.getJournal().handleBlocks(new Journal.BlockHandler()
+    {
+      public void handleBranch(int branchID, BranchInfo branchInfo)
+      {
+        writer.addBranch(branchID, branchInfo);
+        writer.commit();
+      }
+
+      public void handleCommit(CDOBranchPoint branchPoint, long pointer, InternalCDORevision[] newObjects,
+          long[] newObjectPointers)
+      {
+        writer.addCommitInfo(branchPoint, pointer);
+        for (int i = 0; i < newObjects.length; i++)
+        {
+          // The pointers of revisions in the journal are negative
+          writer.addObject(newObjects[i], -newObjectPointers[i]);
+        }
+
+        writer.commit();
+      }
+    });
+
+    store.getVob().handleRevisions(new Vob.RevisionHandler()
+    {
+      private int count;
+
+      public void handleRevision(InternalCDORevision revision, long pointer)
+      {
+        writer.addObject(revision, pointer);
+        if (++count % REBUILD_BATCH_SIZE == 0)
+        {
+          writer.commit();
+        }
+      }
+    });
+
+    writer.commit();
+
+    long commitPointer = store.getJournal().getCommitPointer();
+    if (file.getTag() != commitPointer)
+    {
+      file.write(new ArrayList<IndexFile.Entry>(), commitPointer);
+    }
+
+    file.flush();
+  }
+
+  public void addObject(List<IndexFile.Entry> entries, InternalCDORevision revision, long pointer)
+  {
+    boolean detached = revision instanceof DetachedCDORevision;
+    CDOID id = revision.getID();
+    int branchID = revision.getBranch().getID();
+    long timeStamp = revision.getTimeStamp();
+
+    int version = revision.getVersion();
+    if (detached)
+    {
+      version = -version;
+    }
+
+    ByteBuffer value = ByteBuffer.allocate(16);
+    value.putLong(pointer);
+    value.putInt(version);
+    value.putInt(getStore().getMetaID(revision.getEClass()));
+    entries.add(new IndexFile.Entry(createObjectKey(id, branchID, timeStamp), value.array()));
+
+    if (!detached && revision.isResourceNode())
+    {
+      String name = (String)revision.data().get(EresourcePackage.Literals.CDO_RESOURCE_NODE__NAME, 0);
+      if (name == null)
+      {
+        name = CDOURIUtil.SEGMENT_SEPARATOR;
+      }
+
+      CDOID containerID = (CDOID)revision.getContainerID();
+      byte[] prefix = createResourcePrefix(containerID, name, true);
+
+      ByteBuffer key = ByteBuffer.allocate(prefix.length + getIDLength(id) + 13);
+      key.put(prefix);
+      putObjectKey(key, id, branchID, timeStamp);
+      entries.add(new IndexFile.Entry(key.array(), new byte[0]));
+    }
+  }
+
+  public void addCommitInfo(List<IndexFile.Entry> entries, CDOBranchPoint branchPoint, long pointer)
+  {
+    ByteBuffer value = ByteBuffer.allocate(12);
+    value.putInt(branchPoint.getBranch().getID());
+    value.putLong(pointer);
+    entries.add(new IndexFile.Entry(createCommitKey(branchPoint.getTimeStamp()), value.array()));
+  }
+
+  public void addBranch(List<IndexFile.Entry> entries, int branchID, BranchInfo branchInfo)
+  {
+    byte[] name = toUTF8(branchInfo.getName());
+
+    ByteBuffer value = ByteBuffer.allocate(12 + name.length);
+    value.putInt(branchInfo.getBaseBranchID());
+    value.putLong(branchInfo.getBaseTimeStamp());
+    value.put(name);
+    entries.add(new IndexFile.Entry(createBranchKey(branchID), value.array()));
+  }
+
+  public void queryResources(IStoreAccessor.QueryResourcesContext context)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("queryResources: {0}", context); //$NON-NLS-1$
+    }
+
+    String name = context.getName();
+    if (name == null)
+    {
+      name = CDOURIUtil.SEGMENT_SEPARATOR;
+    }
+
+    boolean exactMatch = context.exactMatch();
+    byte[] prefix = createResourcePrefix(context.getFolderID(), name, exactMatch);
+    int branchID = context.getBranch().getID();
+    long timeStamp = context.getTimeStamp();
+
+    IndexFile.Cursor cursor = getFile().openCursor(prefix);
+
+    try
+    {
+      while (cursor.next() && startsWith(cursor.getKey(), prefix))
+      {
+        byte[] key = cursor.getKey();
+        int start = prefix.length;
+        if (!exactMatch)
+        {
+          // Skip the rest of the name
+          while (key[start++] != 0)
+          {
+          }
+        }
+
+        // The rest of the key is the key of the revision
+        ByteBuffer buffer = ByteBuffer.wrap(key, start + 1, key.length - start - 1);
+        CDOID id = getID(buffer);
+        int revisionBranchID = buffer.getInt() ^ Integer.MIN_VALUE;
+        long revisionTimeStamp = buffer.getLong() ^ Long.MIN_VALUE;
+
+        if (revisionBranchID == branchID && isValid(id, branchID, revisionTimeStamp, timeStamp))
+        {
+          if (!context.addResource(id))
+          {
+            // No more results allowed
+            break;
+          }
+        }
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+
+  public RevisionInfo readRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("readRevision: {0}, {1}", id, branchPoint); //$NON-NLS-1$
+    }
+
+    try
+    {
+      int branchID = branchPoint.getBranch().getID();
+      long timeStamp = branchPoint.getTimeStamp();
+      boolean historical = timeStamp != CDOBranchPoint.UNSPECIFIED_DATE && isSupportingAudits();
+
+      IndexFile indexFile = getFile();
+      IndexFile.Entry entry = indexFile.floor(createObjectKey(id, branchID, historical ? timeStamp : Long.MAX_VALUE));
+      if (entry == null || !isSameObject(entry.getKey(), createObjectKey(id, branchID, 0)))
+      {
+        return null;
+      }
+
+      long revised = CDOBranchPoint.UNSPECIFIED_DATE;
+      if (historical)
+      {
+        IndexFile.Entry next = indexFile.higher(entry.getKey());
+        if (next != null && isSameObject(next.getKey(), entry.getKey()))
+        {
+          revised = getTimeStamp(next.getKey()) - 1;
+        }
+      }
+
+      return new RevisionInfo(ByteBuffer.wrap(entry.getValue()).getLong(), revised);
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+  }
+
+  public RevisionInfo readRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("readRevisionByVersion: {0}, {1}", id, branchVersion); //$NON-NLS-1$
+    }
+
+    byte[] fromKey = createObjectKey(id, branchVersion.getBranch().getID(), Long.MIN_VALUE);
+    int version = Math.abs(branchVersion.getVersion());
+    IndexFile.Cursor cursor = getFile().openCursor(fromKey);
+
+    try
+    {
+      while (cursor.next() && isSameObject(cursor.getKey(), fromKey))
+      {
+        ByteBuffer value = ByteBuffer.wrap(cursor.getValue());
+        long pointer = value.getLong();
+        if (value.getInt() == version)
+        {
+          long revised = CDOBranchPoint.UNSPECIFIED_DATE;
+          if (isSupportingAudits() && cursor.next() && isSameObject(cursor.getKey(), fromKey))
+          {
+            revised = getTimeStamp(cursor.getKey()) - 1;
+          }
+
+          return new RevisionInfo(pointer, revised);
+        }
+      }
+
+      return null;
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+
+  public void handleRevisions(EClass eClass, CDOBranch branch, long timeStamp, boolean exactTime,
+      RevisionInfo.Handler handler)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("handleRevisions: {0}, {1}, {2}, {3}", eClass, branch, timeStamp, exactTime); //$NON-NLS-1$
+    }
+
+    boolean withClass = eClass != null;
+    boolean withBranch = branch != null && isSupportingBranches();
+    boolean withTime = timeStamp != CDOBranchPoint.INVALID_DATE;
+    boolean historical = timeStamp != CDOBranchPoint.UNSPECIFIED_DATE;
+    boolean supportingAudits = isSupportingAudits();
+
+    int cid = withClass ? getStore().getMetaID(eClass) : 0;
+    int branchID = withBranch ? branch.getID() : 0;
+
+    IndexFile.Cursor cursor = getFile().openCursor(new byte[] { OBJECT });
+
+    try
+    {
+      boolean more = cursor.next() && cursor.getKey()[0] == OBJECT;
+      while (more)
+      {
+        byte[] key = cursor.getKey();
+        ByteBuffer value = ByteBuffer.wrap(cursor.getValue());
+
+        more = cursor.next() && cursor.getKey()[0] == OBJECT;
+        long revised = CDOBranchPoint.UNSPECIFIED_DATE;
+        if (more && isSameObject(cursor.getKey(), key))
+        {
+          revised = getTimeStamp(cursor.getKey()) - 1;
+        }
+
+        long pointer = value.getLong();
+        value.getInt(); // version
+        if (withClass && value.getInt() != cid)
+        {
+          continue;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(key, 1, key.length - 1);
+        CDOID id = getID(buffer);
+        if (withBranch && (buffer.getInt() ^ Integer.MIN_VALUE) != branchID)
+        {
+          continue;
+        }
+
+        if (withTime)
+        {
+          long created = getTimeStamp(key);
+          if (exactTime)
+          {
+            if (historical && created != timeStamp)
+            {
+              continue;
+            }
+          }
+          else if (historical)
+          {
+            if (created > timeStamp || revised != CDOBranchPoint.UNSPECIFIED_DATE && revised < timeStamp)
+            {
+              continue;
+            }
+          }
+          else if (revised != CDOBranchPoint.UNSPECIFIED_DATE)
+          {
+            continue;
+          }
+        }
+
+        handler.handleRevisionInfo(id, new RevisionInfo(pointer, supportingAudits ? revised
+            : CDOBranchPoint.UNSPECIFIED_DATE));
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+
+  public BranchInfo loadBranch(int branchID)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("loadBranch: {0}", branchID); //$NON-NLS-1$
+    }
+
+    try
+    {
+      byte[] value = getFile().get(createBranchKey(branchID));
+      if (value == null)
+      {
+        return null;
+      }
+
+      ByteBuffer buffer = ByteBuffer.wrap(value);
+      int baseBranchID = buffer.getInt();
+      long baseTimeStamp = buffer.getLong();
+      String name = fromUTF8(value, 12);
+      return new BranchInfo(name, baseBranchID, baseTimeStamp);
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+  }
+
+  public SubBranchInfo[] loadSubBranches(int branchID)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("loadSubBranches: {0}", branchID); //$NON-NLS-1$
+    }
+
+    List<SubBranchInfo> result = new ArrayList<SubBranchInfo>();
+    IndexFile.Cursor cursor = getFile().openCursor(new byte[] { BRANCH });
+
+    try
+    {
+      while (cursor.next() && cursor.getKey()[0] == BRANCH)
+      {
+        byte[] value = cursor.getValue();
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        if (buffer.getInt() == branchID)
+        {
+          int id = getBranchID(cursor.getKey());
+          long baseTimeStamp = buffer.getLong();
+          String name = fromUTF8(value, 12);
+          result.add(new SubBranchInfo(id, name, baseTimeStamp));
+        }
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      cursor.close();
+    }
+
+    return result.toArray(new SubBranchInfo[result.size()]);
+  }
+
+  public int loadBranches(int startID, int endID, CDOBranchHandler handler)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("loadBranches: {0}, {1}", startID, endID); //$NON-NLS-1$
+    }
+
+    InternalCDOBranchManager branchManager = getRepository().getBranchManager();
+    int lastID = endID > 0 ? endID : Integer.MAX_VALUE;
+    int count = 0;
+
+    IndexFile.Cursor cursor = getFile().openCursor(createBranchKey(startID));
+
+    try
+    {
+      while (cursor.next() && cursor.getKey()[0] == BRANCH)
+      {
+        int branchID = getBranchID(cursor.getKey());
+        if (branchID > lastID)
+        {
+          break;
+        }
+
+        byte[] value = cursor.getValue();
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        int baseBranchID = buffer.getInt();
+        long baseTimeStamp = buffer.getLong();
+        String name = fromUTF8(value, 12);
+
+        InternalCDOBranch branch = branchManager.getBranch(branchID, new BranchInfo(name, baseBranchID, baseTimeStamp));
+        handler.handleBranch(branch);
+        ++count;
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      cursor.close();
+    }
+
+    return count;
+  }
+
+  public void loadCommitInfos(CDOBranch branch, long startTime, long endTime, PointerHandler handler)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("loadCommitInfos: {0}, {1}, {2}", branch, startTime, endTime); //$NON-NLS-1$
+    }
+
+    byte[] fromKey = createCommitKey(startTime != CDOBranchPoint.UNSPECIFIED_DATE ? startTime : Long.MIN_VALUE);
+    long lastTime = endTime != CDOBranchPoint.UNSPECIFIED_DATE ? endTime : Long.MAX_VALUE;
+    IndexFile.Cursor cursor = getFile().openCursor(fromKey);
+
+    try
+    {
+      while (cursor.next() && cursor.getKey()[0] == COMMIT)
+      {
+        if (getTimeStamp(cursor.getKey()) > lastTime)
+        {
+          break;
+        }
+
+        ByteBuffer value = ByteBuffer.wrap(cursor.getValue());
+        int branchID = value.getInt();
+        if (branch == null || branch.getID() == branchID)
+        {
+          handler.handlePointer(value.getLong());
+        }
+      }
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the revision of the given object that was created at the given time is the one that is
+   * valid at the given time stamp.
+   */
+  protected boolean isValid(CDOID id, int branchID, long created, long timeStamp) throws IOException
+  {
+    boolean historical = timeStamp != CDOBranchPoint.UNSPECIFIED_DATE && isSupportingAudits();
+    if (historical && created > timeStamp)
+    {
+      return false;
+    }
+
+    IndexFile.Entry entry = getFile().floor(createObjectKey(id, branchID, historical ? timeStamp : Long.MAX_VALUE));
+    return entry != null && getTimeStamp(entry.getKey()) == created
+        && isSameObject(entry.getKey(), createObjectKey(id, branchID, created));
+  }
+
+  protected byte[] createObjectKey(CDOID id, int branchID, long timeStamp)
+  {
+    ByteBuffer key = ByteBuffer.allocate(getIDLength(id) + 13);
+    putObjectKey(key, id, branchID, timeStamp);
+    return key.array();
+  }
+
+  protected byte[] createResourcePrefix(CDOID containerID, String name, boolean exactMatch)
+  {
+    byte[] nameBytes = toUTF8(name);
+
+    ByteBuffer prefix = ByteBuffer.allocate(1 + getIDLength(containerID) + nameBytes.length + (exactMatch ? 1 : 0));
+    prefix.put(RESOURCE);
+    putID(prefix, containerID);
+    prefix.put(nameBytes);
+    if (exactMatch)
+    {
+      prefix.put((byte)0);
+    }
+
+    return prefix.array();
+  }
+
+  protected byte[] createCommitKey(long timeStamp)
+  {
+    ByteBuffer key = ByteBuffer.allocate(9);
+    key.put(COMMIT);
+    key.putLong(timeStamp ^ Long.MIN_VALUE);
+    return key.array();
+  }
+
+  protected byte[] createBranchKey(int branchID)
+  {
+    ByteBuffer key = ByteBuffer.allocate(5);
+    key.put(BRANCH);
+    key.putInt(branchID ^ Integer.MIN_VALUE);
+    return key.array();
+  }
+
+  private void putObjectKey(ByteBuffer key, CDOID id, int branchID, long timeStamp)
+  {
+    key.put(OBJECT);
+    putID(key, id);
+    key.putInt(branchID ^ Integer.MIN_VALUE);
+    key.putLong(timeStamp ^ Long.MIN_VALUE);
+  }
+
+  private int getIDLength(CDOID id)
+  {
+    if (getIDGenerationLocation() == IDGenerationLocation.CLIENT)
+    {
+      return 1 + getIDBytes(id).length;
+    }
+
+    return 8;
+  }
+
+  private void putID(ByteBuffer buffer, CDOID id)
+  {
+    if (getIDGenerationLocation() == IDGenerationLocation.CLIENT)
+    {
+      byte[] value = getIDBytes(id);
+      buffer.put((byte)value.length);
+      buffer.put(value);
+    }
+    else
+    {
+      buffer.putLong(CDOIDUtil.getLong(id) ^ Long.MIN_VALUE);
+    }
+  }
+
+  private CDOID getID(ByteBuffer buffer)
+  {
+    if (getIDGenerationLocation() == IDGenerationLocation.CLIENT)
+    {
+      byte[] value = new byte[buffer.get() & 0xff];
+      if (value.length == 0)
+      {
+        return CDOID.NULL;
+      }
+
+      buffer.get(value);
+      return CDOIDUtil.createUUID(value);
+    }
+
+    return CDOIDUtil.createLong(buffer.getLong() ^ Long.MIN_VALUE);
+  }
+
+  private static byte[] getIDBytes(CDOID id)
+  {
+    if (id == null || id.isNull())
+    {
+      return new byte[0];
+    }
+
+    return ((AbstractCDOIDByteArray)id).getByteArrayValue();
+  }
+
+  /**
+   * Returns <code>true</code> if the given object keys differ only in their time stamps.
+   */
+  private static boolean isSameObject(byte[] key1, byte[] key2)
+  {
+    if (key1.length != key2.length || key1[0] != OBJECT)
+    {
+      return false;
+    }
+
+    for (int i = key1.length - 9; i >= 0; --i)
+    {
+      if (key1[i] != key2[i])
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static long getTimeStamp(byte[] key)
+  {
+    return ByteBuffer.wrap(key, key.length - 8, 8).getLong() ^ Long.MIN_VALUE;
+  }
+
+  private static int getBranchID(byte[] key)
+  {
+    return ByteBuffer.wrap(key, 1, 4).getInt() ^ Integer.MIN_VALUE;
+  }
+
+  private static boolean startsWith(byte[] key, byte[] prefix)
+  {
+    if (key.length < prefix.length)
+    {
+      return false;
+    }
+
+    for (int i = 0; i < prefix.length; i++)
+    {
+      if (key[i] != prefix[i])
+      {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static byte[] toUTF8(String string)
+  {
+    try
+    {
+      return string.getBytes(UTF8);
+    }
+    catch (UnsupportedEncodingException ex)
+    {
+      throw WrappedException.wrap(ex);
+    }
+  }
+
+  private static String fromUTF8(byte[] bytes, int offset)
+  {
+    try
+    {
+      return new String(bytes, offset, bytes.length - offset, UTF8);
+    }
+    catch (UnsupportedEncodingException ex)
+    {
+      throw WrappedException.wrap(ex);
+    }
+  }
+}
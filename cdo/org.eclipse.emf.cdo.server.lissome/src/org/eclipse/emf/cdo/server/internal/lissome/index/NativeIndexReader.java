@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.lissome.index;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchHandler;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.server.IStoreAccessor;
+import org.eclipse.emf.cdo.server.internal.lissome.db.IndexReader;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.BranchInfo;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.SubBranchInfo;
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.sql.Connection;
+
+/**
+ * An {@link IndexReader index reader} that reads from a {@link NativeIndex native index}.
+ *
+ * @author Eike Stepper
+ */
+public class NativeIndexReader extends IndexReader
+{
+  public NativeIndexReader(NativeIndex index)
+  {
+    super(index);
+  }
+
+  @Override
+  public NativeIndex getIndex()
+  {
+    return (NativeIndex)index;
+  }
+
+  @Override
+  protected Connection createConnection()
+  {
+    return null;
+  }
+
+  @Override
+  public void queryResources(IStoreAccessor.QueryResourcesContext context)
+  {
+    getIndex().queryResources(context);
+  }
+
+  @Override
+  public RevisionInfo readRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    return getIndex().readRevision(id, branchPoint);
+  }
+
+  @Override
+  public RevisionInfo readRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  {
+    return getIndex().readRevisionByVersion(id, branchVersion);
+  }
+
+  @Override
+  public void handleRevisions(EClass eClass, CDOBranch branch, long timeStamp, boolean exactTime,
+      RevisionInfo.Handler handler)
+  {
+    getIndex().handleRevisions(eClass, branch, timeStamp, exactTime, handler);
+  }
+
+  @Override
+  public BranchInfo loadBranch(int branchID)
+  {
+    return getIndex().loadBranch(branchID);
+  }
+
+  @Override
+  public SubBranchInfo[] loadSubBranches(int branchID)
+  {
+    return getIndex().loadSubBranches(branchID);
+  }
+
+  @Override
+  public int loadBranches(int startID, int endID, CDOBranchHandler handler)
+  {
+    return getIndex().loadBranches(startID, endID, handler);
+  }
+
+  @Override
+  public void loadCommitInfos(CDOBranch branch, long startTime, long endTime, PointerHandler handler)
+  {
+    getIndex().loadCommitInfos(branch, startTime, endTime, handler);
+  }
+}
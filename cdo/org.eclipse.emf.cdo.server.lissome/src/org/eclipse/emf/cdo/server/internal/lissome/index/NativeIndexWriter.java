@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.lissome.index;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchHandler;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.server.IStoreAccessor;
+import org.eclipse.emf.cdo.server.internal.lissome.bundle.OM;
+import org.eclipse.emf.cdo.server.internal.lissome.db.IndexWriter;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.BranchInfo;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.SubBranchInfo;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+
+import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An {@link IndexWriter index writer} that collects the entries of a commit and appends them to the file of a
+ * {@link NativeIndex native index} in one block. The file is tagged with the journal pointer of the commit.
+ * <p>
+ * The revised time stamps of older revisions are derived from the newer revisions, so updates and detachments are added
+ * like new revisions.
+ *
+ * @author Eike Stepper
+ */
+public class NativeIndexWriter extends IndexWriter
+{
+  private static final ContextTracer TRACER = new ContextTracer(OM.INDEX, NativeIndexWriter.class);
+
+  private static final long NO_TAG = Long.MIN_VALUE;
+
+  private List<IndexFile.Entry> entries = new ArrayList<IndexFile.Entry>();
+
+  private long tag = NO_TAG;
+
+  public NativeIndexWriter(NativeIndex index)
+  {
+    super(index);
+  }
+
+  @Override
+  public NativeIndex getIndex()
+  {
+    return (NativeIndex)index;
+  }
+
+  @Override
+  protected Connection createConnection()
+  {
+    return null;
+  }
+
+  @Override
+  public void commit()
+  {
+    if (entries.isEmpty() && tag == NO_TAG)
+    {
+      return;
+    }
+
+    try
+    {
+      IndexFile file = getIndex().getFile();
+      file.write(entries, tag != NO_TAG ? tag : file.getTag());
+    }
+    catch (IOException ex)
+    {
+      throw new IORuntimeException(ex);
+    }
+    finally
+    {
+      entries = new ArrayList<IndexFile.Entry>();
+      tag = NO_TAG;
+    }
+  }
+
+  @Override
+  public void addCommitInfo(CDOBranchPoint branchPoint, long pointer)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("addCommitInfo: {0}, {1}", branchPoint, pointer); //$NON-NLS-1$
+    }
+
+    getIndex().addCommitInfo(entries, branchPoint, pointer);
+    tag = pointer;
+  }
+
+  @Override
+  public void addObjects(InternalCDORevision[] newRevisions, long[] pointers)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("addObjects: {0}, {1}", Arrays.asList(newRevisions), Arrays.asList(pointers)); //$NON-NLS-1$
+    }
+
+    for (int i = 0; i < newRevisions.length; i++)
+    {
+      addObject(newRevisions[i], pointers[i]);
+    }
+  }
+
+  public void addObject(InternalCDORevision revision, long pointer)
+  {
+    getIndex().addObject(entries, revision, pointer);
+  }
+
+  @Override
+  public void updateObjects(InternalCDORevision[] newRevisions, long[] pointers)
+  {
+    addObjects(newRevisions, pointers);
+  }
+
+  @Override
+  public void detachObjects(CDOBranchPoint branchPoint, CDOID[] ids, InternalCDORevision[] detachedRevisions,
+      long[] detachedObjectPointers)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("detachObjects: {0}, {1}", Arrays.asList(ids), branchPoint); //$NON-NLS-1$
+    }
+
+    addObjects(detachedRevisions, detachedObjectPointers);
+  }
+
+  @Override
+  public void createBranch(int branchID, String name, CDOBranchPoint base, long pointer)
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("createBranch: {0}, {1}, {2}", branchID, name, base); //$NON-NLS-1$
+    }
+
+    addBranch(branchID, new BranchInfo(name, base.getBranch().getID(), base.getTimeStamp()));
+  }
+
+  public void addBranch(int branchID, BranchInfo branchInfo)
+  {
+    getIndex().addBranch(entries, branchID, branchInfo);
+  }
+
+  @Override
+  public void queryResources(IStoreAccessor.QueryResourcesContext context)
+  {
+    getIndex().queryResources(context);
+  }
+
+  @Override
+  public RevisionInfo readRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    return getIndex().readRevision(id, branchPoint);
+  }
+
+  @Override
+  public RevisionInfo readRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  {
+    return getIndex().readRevisionByVersion(id, branchVersion);
+  }
+
+  @Override
+  public void handleRevisions(EClass eClass, CDOBranch branch, long timeStamp, boolean exactTime,
+      RevisionInfo.Handler handler)
+  {
+    getIndex().handleRevisions(eClass, branch, timeStamp, exactTime, handler);
+  }
+
+  @Override
+  public BranchInfo loadBranch(int branchID)
+  {
+    return getIndex().loadBranch(branchID);
+  }
+
+  @Override
+  public SubBranchInfo[] loadSubBranches(int branchID)
+  {
+    return getIndex().loadSubBranches(branchID);
+  }
+
+  @Override
+  public int loadBranches(int startID, int endID, CDOBranchHandler handler)
+  {
+    return getIndex().loadBranches(startID, endID, handler);
+  }
+
+  @Override
+  public void loadCommitInfos(CDOBranch branch, long startTime, long endTime, PointerHandler handler)
+  {
+    getIndex().loadCommitInfos(branch, startTime, endTime, handler);
+  }
+}
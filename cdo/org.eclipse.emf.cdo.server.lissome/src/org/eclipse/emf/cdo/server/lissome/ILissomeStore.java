@@ -40,5 +40,20 @@ public interface ILissomeStore extends IStore, CanHandleClientAssignedIDs
    */
   public interface Props
   {
+    /**
+     * Whether revisions are read through memory mappings of the vob and journal files that all readers share, rather
+     * than through a file handle per reader. The default is <code>true</code>.
+     *
+     * @since 4.2
+     */
+    public static final String MAPPED_READS = "mappedReads"; //$NON-NLS-1$
+
+    /**
+     * Whether the index is kept in a native, append-only index file rather than in an embedded H2 database. The native
+     * index is rebuilt from the journal and the vob if it is missing or out of date. The default is <code>false</code>.
+     *
+     * @since 4.2
+     */
+    public static final String NATIVE_INDEX = "nativeIndex"; //$NON-NLS-1$
   }
 }
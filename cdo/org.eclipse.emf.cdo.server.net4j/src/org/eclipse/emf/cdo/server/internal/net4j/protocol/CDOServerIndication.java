@@ -96,6 +96,12 @@ public abstract class CDOServerIndication extends IndicationWithResponse
         return getProtocol().getPackageURICompressor();
       }
 
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
+
       @Override
       protected CDOBranchManager getBranchManager()
       {
@@ -156,6 +162,12 @@ public abstract class CDOServerIndication extends IndicationWithResponse
       {
         return getProtocol().getPackageURICompressor();
       }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
     });
   }
 
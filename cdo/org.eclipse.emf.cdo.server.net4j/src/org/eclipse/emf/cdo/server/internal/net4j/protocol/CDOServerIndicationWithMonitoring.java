@@ -120,6 +120,12 @@ public abstract class CDOServerIndicationWithMonitoring extends IndicationWithMo
           return getProtocol().getPackageURICompressor();
         }
 
+        @Override
+        protected boolean isXCompression()
+        {
+          return getProtocol().isXCompression();
+        }
+
         @Override
         protected CDOBranchManager getBranchManager()
         {
@@ -186,6 +192,12 @@ public abstract class CDOServerIndicationWithMonitoring extends IndicationWithMo
       {
         return getProtocol().getPackageURICompressor();
       }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return getProtocol().isXCompression();
+      }
     }, monitor);
   }
 
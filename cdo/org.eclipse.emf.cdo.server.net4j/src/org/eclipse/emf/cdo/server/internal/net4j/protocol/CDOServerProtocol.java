@@ -18,21 +18,26 @@ import org.eclipse.emf.cdo.common.CDOCommonRepository;
 import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.lock.CDOLockChangeInfo;
+import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
 import org.eclipse.emf.cdo.server.IRepositoryProvider;
 import org.eclipse.emf.cdo.server.internal.net4j.bundle.OM;
 import org.eclipse.emf.cdo.session.remote.CDORemoteSessionMessage;
 import org.eclipse.emf.cdo.spi.common.CDOAuthenticationResult;
 import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranch;
+import org.eclipse.emf.cdo.spi.server.CommitNotificationInfo;
 import org.eclipse.emf.cdo.spi.server.ISessionProtocol;
 import org.eclipse.emf.cdo.spi.server.InternalSession;
 
+import org.eclipse.net4j.signal.SignalMetrics;
 import org.eclipse.net4j.signal.SignalProtocol;
 import org.eclipse.net4j.signal.SignalReactor;
 import org.eclipse.net4j.util.io.StringCompressor;
 import org.eclipse.net4j.util.io.StringIO;
 import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
 
+import javax.management.ObjectName;
+
 /**
  * @author Eike Stepper
  */
@@ -40,12 +45,22 @@ public class CDOServerProtocol extends SignalProtocol<InternalSession> implement
 {
   public static final long DEFAULT_NEGOTIATION_TIMEOUT = 15 * 1000;
 
+  /**
+   * The JMX domain of the {@link SignalMetrics signal metrics} MBeans of the sessions. Their object names also have a
+   * <code>repository</code> and a <code>session</code> key.
+   */
+  public static final String METRICS_DOMAIN = "org.eclipse.emf.cdo"; //$NON-NLS-1$
+
   private long negotiationTimeout = DEFAULT_NEGOTIATION_TIMEOUT;
 
   private IRepositoryProvider repositoryProvider;
 
   private StringIO packageURICompressor = StringCompressor.BYPASS ? StringIO.DIRECT : new StringCompressor(false);
 
+  private volatile boolean xCompression;
+
+  private ObjectName metricsName;
+
   public CDOServerProtocol(IRepositoryProvider repositoryProvider)
   {
     super(CDOProtocolConstants.PROTOCOL_NAME);
@@ -57,6 +72,18 @@ public class CDOServerProtocol extends SignalProtocol<InternalSession> implement
     return getInfraStructure();
   }
 
+  @Override
+  public void setInfraStructure(InternalSession session)
+  {
+    super.setInfraStructure(session);
+    if (session != null && metricsName == null)
+    {
+      String repositoryName = session.getManager().getRepository().getName();
+      metricsName = getMetrics().registerMBean(METRICS_DOMAIN + ":type=" + SignalMetrics.TYPE + ",repository=" //$NON-NLS-1$ //$NON-NLS-2$
+          + ObjectName.quote(repositoryName) + ",session=" + session.getSessionID()); //$NON-NLS-1$
+    }
+  }
+
   public IRepositoryProvider getRepositoryProvider()
   {
     return repositoryProvider;
@@ -67,6 +94,20 @@ public class CDOServerProtocol extends SignalProtocol<InternalSession> implement
     return packageURICompressor;
   }
 
+  /**
+   * Returns <code>true</code> if the signals of this protocol use the variable-length encoding of
+   * {@link CDODataOutput#writeXInt(int) CDODataOutput}, <code>false</code> otherwise.
+   */
+  public boolean isXCompression()
+  {
+    return xCompression;
+  }
+
+  public void setXCompression(boolean xCompression)
+  {
+    this.xCompression = xCompression;
+  }
+
   public long getNegotiationTimeout()
   {
     return negotiationTimeout;
@@ -139,6 +180,18 @@ public class CDOServerProtocol extends SignalProtocol<InternalSession> implement
     }
   }
 
+  public void sendCommitNotification(CommitNotificationInfo notificationInfo) throws Exception
+  {
+    if (LifecycleUtil.isActive(getChannel()))
+    {
+      new CommitNotificationRequest(this, notificationInfo).sendAsync();
+    }
+    else
+    {
+      handleInactiveSession();
+    }
+  }
+
   public void sendRemoteSessionNotification(InternalSession sender, byte opcode) throws Exception
   {
     if (LifecycleUtil.isActive(getChannel()))
@@ -175,6 +228,14 @@ public class CDOServerProtocol extends SignalProtocol<InternalSession> implement
     }
   }
 
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    SignalMetrics.unregisterMBean(metricsName);
+    metricsName = null;
+    super.doDeactivate();
+  }
+
   protected void handleInactiveSession()
   {
     OM.LOG.warn("Session channel is inactive: " + this); //$NON-NLS-1$
@@ -215,6 +276,9 @@ public class CDOServerProtocol extends SignalProtocol<InternalSession> implement
     case CDOProtocolConstants.SIGNAL_LOAD_REVISIONS:
       return new LoadRevisionsIndication(this);
 
+    case CDOProtocolConstants.SIGNAL_LOAD_REVISIONS_STREAMED:
+      return new LoadRevisionsStreamedIndication(this);
+
     case CDOProtocolConstants.SIGNAL_LOAD_REVISION_BY_VERSION:
       return new LoadRevisionByVersionIndication(this);
 
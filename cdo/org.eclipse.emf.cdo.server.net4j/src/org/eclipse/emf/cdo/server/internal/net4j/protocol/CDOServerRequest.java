@@ -46,7 +46,12 @@ public abstract class CDOServerRequest extends Request
   @Override
   protected final void requesting(ExtendedDataOutputStream out) throws Exception
   {
-    requesting(new CDODataOutputImpl(out)
+    requesting(createCDODataOutput(out));
+  }
+
+  protected CDODataOutput createCDODataOutput(ExtendedDataOutputStream out)
+  {
+    return new CDODataOutputImpl(out)
     {
       @Override
       public CDOPackageRegistry getPackageRegistry()
@@ -57,7 +62,13 @@ public abstract class CDOServerRequest extends Request
       @Override
       protected StringIO getPackageURICompressor()
       {
-        return getProtocol().getPackageURICompressor();
+        return CDOServerRequest.this.getPackageURICompressor();
+      }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return CDOServerRequest.this.isXCompression();
       }
 
       @Override
@@ -65,7 +76,17 @@ public abstract class CDOServerRequest extends Request
       {
         return getSession();
       }
-    });
+    };
+  }
+
+  protected StringIO getPackageURICompressor()
+  {
+    return getProtocol().getPackageURICompressor();
+  }
+
+  protected boolean isXCompression()
+  {
+    return getProtocol().isXCompression();
   }
 
   protected abstract void requesting(CDODataOutput out) throws IOException;
@@ -15,10 +15,20 @@ package org.eclipse.emf.cdo.server.internal.net4j.protocol;
 import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
 import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
+import org.eclipse.emf.cdo.spi.server.CommitNotificationInfo;
 
+import org.eclipse.net4j.util.io.ExtendedDataOutputStream;
+import org.eclipse.net4j.util.io.StringIO;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 /**
+ * Sends a {@link CDOCommitInfo commit info} to the client. A {@link CommitNotificationInfo notification info} that is
+ * shared by several sessions is encoded only once and the cached bytes are written to all of their channels. Package
+ * URIs are therefore not compressed with the per-connection compressor and the negotiated variable-length encoding is
+ * not used.
+ *
  * @author Eike Stepper
  */
 public class CommitNotificationRequest extends CDOServerRequest
@@ -31,9 +41,51 @@ public class CommitNotificationRequest extends CDOServerRequest
     this.commitInfo = commitInfo;
   }
 
+  @Override
+  protected StringIO getPackageURICompressor()
+  {
+    return StringIO.DIRECT;
+  }
+
+  @Override
+  protected boolean isXCompression()
+  {
+    return false;
+  }
+
   @Override
   protected void requesting(CDODataOutput out) throws IOException
   {
-    out.writeCDOCommitInfo(commitInfo); // Exposes revision to client side
+    if (commitInfo instanceof CommitNotificationInfo)
+    {
+      byte[] bytes = getEncoding((CommitNotificationInfo)commitInfo);
+      out.write(bytes);
+    }
+    else
+    {
+      out.writeCDOCommitInfo(commitInfo); // Exposes revision to client side
+    }
+  }
+
+  private byte[] getEncoding(CommitNotificationInfo notificationInfo) throws IOException
+  {
+    synchronized (notificationInfo)
+    {
+      Object encoding = notificationInfo.getEncoding();
+      if (encoding instanceof byte[])
+      {
+        return (byte[])encoding;
+      }
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ExtendedDataOutputStream stream = new ExtendedDataOutputStream(baos);
+      CDODataOutput out = createCDODataOutput(stream);
+      out.writeCDOCommitInfo(notificationInfo); // Exposes revision to client side
+      stream.flush();
+
+      byte[] bytes = baos.toByteArray();
+      notificationInfo.setEncoding(bytes);
+      return bytes;
+    }
   }
 }
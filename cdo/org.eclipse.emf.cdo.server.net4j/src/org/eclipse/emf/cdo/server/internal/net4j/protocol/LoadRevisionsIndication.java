@@ -13,11 +13,11 @@ package org.eclipse.emf.cdo.server.internal.net4j.protocol;
 import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.id.CDOIDUtil;
-import org.eclipse.emf.cdo.common.model.CDOClassInfo;
 import org.eclipse.emf.cdo.common.protocol.CDODataInput;
 import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
 import org.eclipse.emf.cdo.common.util.CDOFetchRule;
 import org.eclipse.emf.cdo.server.internal.net4j.bundle.OM;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
@@ -28,12 +28,11 @@ import org.eclipse.net4j.util.collection.MoveableList;
 import org.eclipse.net4j.util.om.trace.ContextTracer;
 
 import org.eclipse.emf.ecore.EClass;
-import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -61,9 +60,18 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
 
   private int loadRevisionCollectionChunkSize;
 
+  private Set<CDOID> revisionIDs;
+
+  private List<CDORevision> additionalRevisions;
+
   public LoadRevisionsIndication(CDOServerProtocol protocol)
   {
-    super(protocol, CDOProtocolConstants.SIGNAL_LOAD_REVISIONS);
+    this(protocol, CDOProtocolConstants.SIGNAL_LOAD_REVISIONS);
+  }
+
+  protected LoadRevisionsIndication(CDOServerProtocol protocol, short signalID)
+  {
+    super(protocol, signalID);
   }
 
   @Override
@@ -136,13 +144,76 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
   protected void responding(CDODataOutput out) throws IOException
   {
     List<CDORevision> additionalRevisions = new ArrayList<CDORevision>();
-    Set<CDOID> revisionIDs = new HashSet<CDOID>();
+    this.additionalRevisions = additionalRevisions;
+
+    InternalCDORevision[] revisions = loadRevisions();
+    collectAdditionalRevisions(revisions);
+
+    getRepository().notifyReadAccessHandlers(getSession(), revisions, additionalRevisions);
+    writeResults(out, revisions);
+
+    int additionalSize = additionalRevisions.size();
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Writing {0} additional revisions", additionalSize); //$NON-NLS-1$
+    }
+
+    out.writeInt(additionalSize);
+    for (CDORevision revision : additionalRevisions)
+    {
+      out.writeCDORevision(revision, referenceChunk, branchPoint); // Exposes revision to client side
+    }
+  }
+
+  protected int getReferenceChunk()
+  {
+    return referenceChunk;
+  }
+
+  protected CDOBranchPoint getBranchPoint()
+  {
+    return branchPoint;
+  }
+
+  protected InternalCDORevision[] loadRevisions()
+  {
     int size = infos.length;
     if (TRACER.isEnabled())
     {
-      TRACER.format("Writing {0} results", size); //$NON-NLS-1$
+      TRACER.format("Loading {0} revisions", size); //$NON-NLS-1$
+    }
+
+    InternalCDORevisionManager revisionManager = getRepository().getRevisionManager();
+    if (size > 1)
+    {
+      // Load all missing revisions with a single call so that the store can read them in bulk
+      List<CDOID> ids = new ArrayList<CDOID>(size);
+      for (RevisionInfo info : infos)
+      {
+        ids.add(info.getID());
+      }
+
+      revisionManager.getRevisions(ids, branchPoint, referenceChunk, CDORevision.DEPTH_NONE, true);
+    }
+
+    InternalCDORevision[] revisions = new InternalCDORevision[size];
+    for (int i = 0; i < size; i++)
+    {
+      RevisionInfo info = infos[i];
+      info.execute(revisionManager, referenceChunk);
+      revisions[i] = info.getResult();
     }
 
+    return revisions;
+  }
+
+  /**
+   * Collects the additional revisions that the fetch rules and the prefetch depth ask for. Each additional revision is
+   * passed to {@link #addAdditionalRevision(CDORevision) addAdditionalRevision()} as soon as it is loaded.
+   */
+  protected void collectAdditionalRevisions(InternalCDORevision[] revisions)
+  {
+    revisionIDs = CDOIDUtil.createSet(infos.length);
     for (RevisionInfo info : infos)
     {
       revisionIDs.add(info.getID());
@@ -158,47 +229,51 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
       }
 
       InternalCDORevision revisionContext = getRevision(contextID);
-      collectRevisions(revisionContext, revisionIDs, additionalRevisions, visitedFetchRules);
+      collectRevisions(revisionContext, visitedFetchRules);
     }
 
-    InternalCDORevisionManager revisionManager = getRepository().getRevisionManager();
-    InternalCDORevision[] revisions = new InternalCDORevision[size];
-    for (int i = 0; i < size; i++)
+    if (loadRevisionCollectionChunkSize > 0)
     {
-      RevisionInfo info = infos[i];
-      info.execute(revisionManager, referenceChunk);
-      revisions[i] = info.getResult();
-      if (loadRevisionCollectionChunkSize > 0)
+      for (InternalCDORevision revision : revisions)
       {
-        collectRevisions(revisions[i], revisionIDs, additionalRevisions, visitedFetchRules);
+        collectRevisions(revision, visitedFetchRules);
       }
     }
 
     if (prefetchDepth != 0)
     {
-      prefetchRevisions(prefetchDepth > 0 ? prefetchDepth : Integer.MAX_VALUE, revisions, additionalRevisions);
+      // The children of the last level have always been prefetched as well
+      int depth = prefetchDepth > 0 ? prefetchDepth + 1 : CDORevision.DEPTH_INFINITE;
+      getSession().collectContainedRevisions(Arrays.asList(revisions), branchPoint, referenceChunk, depth,
+          revisionIDs, new CDORevisionHandler()
+          {
+            public boolean handleRevision(CDORevision revision)
+            {
+              addAdditionalRevision(revision);
+              return true;
+            }
+          });
     }
+  }
 
-    getRepository().notifyReadAccessHandlers(getSession(), revisions, additionalRevisions);
+  protected void writeResults(CDODataOutput out, InternalCDORevision[] revisions) throws IOException
+  {
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Writing {0} results", revisions.length); //$NON-NLS-1$
+    }
 
-    for (int i = 0; i < size; i++)
+    for (int i = 0; i < revisions.length; i++)
     {
       RevisionInfo info = infos[i];
       info.setResult(revisions[i]);
       info.writeResult(out, referenceChunk, branchPoint); // Exposes revision to client side
     }
+  }
 
-    int additionalSize = additionalRevisions.size();
-    if (TRACER.isEnabled())
-    {
-      TRACER.format("Writing {0} additional revisions", additionalSize); //$NON-NLS-1$
-    }
-
-    out.writeInt(additionalSize);
-    for (CDORevision revision : additionalRevisions)
-    {
-      out.writeCDORevision(revision, referenceChunk, branchPoint); // Exposes revision to client side
-    }
+  protected void addAdditionalRevision(CDORevision revision)
+  {
+    additionalRevisions.add(revision);
   }
 
   private InternalCDORevision getRevision(CDOID id)
@@ -207,15 +282,19 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
         true);
   }
 
-  private void collectRevisions(InternalCDORevision revision, Set<CDOID> revisions,
-      List<CDORevision> additionalRevisions, Set<CDOFetchRule> visitedFetchRules)
+  private void collectRevisions(InternalCDORevision revision, Set<CDOFetchRule> visitedFetchRules)
   {
     if (revision == null)
     {
       return;
     }
 
-    getSession().collectContainedRevisions(revision, branchPoint, referenceChunk, revisions, additionalRevisions);
+    List<CDORevision> containedRevisions = new ArrayList<CDORevision>();
+    getSession().collectContainedRevisions(revision, branchPoint, referenceChunk, revisionIDs, containedRevisions);
+    for (CDORevision containedRevision : containedRevisions)
+    {
+      addAdditionalRevision(containedRevision);
+    }
 
     CDOFetchRule fetchRule = fetchRules.get(revision.getEClass());
     if (fetchRule == null || visitedFetchRules.contains(fetchRule))
@@ -237,14 +316,14 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
           if (value instanceof CDOID)
           {
             CDOID id = (CDOID)value;
-            if (!CDOIDUtil.isNull(id) && !revisions.contains(id))
+            if (!CDOIDUtil.isNull(id) && !revisionIDs.contains(id))
             {
               InternalCDORevision containedRevision = getRevision(id);
               if (containedRevision != null)
               {
-                revisions.add(containedRevision.getID());
-                additionalRevisions.add(containedRevision);
-                collectRevisions(containedRevision, revisions, additionalRevisions, visitedFetchRules);
+                revisionIDs.add(containedRevision.getID());
+                addAdditionalRevision(containedRevision);
+                collectRevisions(containedRevision, visitedFetchRules);
               }
             }
           }
@@ -256,14 +335,14 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
         if (value instanceof CDOID)
         {
           CDOID id = (CDOID)value;
-          if (!id.isNull() && !revisions.contains(id))
+          if (!id.isNull() && !revisionIDs.contains(id))
           {
             InternalCDORevision containedRevision = getRevision(id);
             if (containedRevision != null)
             {
-              revisions.add(containedRevision.getID());
-              additionalRevisions.add(containedRevision);
-              collectRevisions(containedRevision, revisions, additionalRevisions, visitedFetchRules);
+              revisionIDs.add(containedRevision.getID());
+              addAdditionalRevision(containedRevision);
+              collectRevisions(containedRevision, visitedFetchRules);
             }
           }
         }
@@ -272,85 +351,4 @@ public class LoadRevisionsIndication extends CDOServerReadIndication
 
     visitedFetchRules.remove(fetchRule);
   }
-
-  private void prefetchRevisions(int depth, CDORevision[] revisions, List<CDORevision> additionalRevisions)
-  {
-    Map<CDOID, CDORevision> map = new HashMap<CDOID, CDORevision>();
-    for (CDORevision revision : revisions)
-    {
-      map.put(revision.getID(), revision);
-    }
-
-    for (CDORevision revision : additionalRevisions)
-    {
-      map.put(revision.getID(), revision);
-    }
-
-    for (CDORevision revision : revisions)
-    {
-      prefetchRevision(depth, (InternalCDORevision)revision, additionalRevisions, map);
-    }
-  }
-
-  private void prefetchRevision(int depth, InternalCDORevision revision, List<CDORevision> additionalRevisions,
-      Map<CDOID, CDORevision> map)
-  {
-    CDOClassInfo classInfo = revision.getClassInfo();
-    for (EStructuralFeature feature : classInfo.getAllPersistentFeatures())
-    {
-      if (feature instanceof EReference)
-      {
-        EReference reference = (EReference)feature;
-        if (reference.isContainment())
-        {
-          Object value = revision.getValue(reference);
-          if (value instanceof CDOID)
-          {
-            CDOID id = (CDOID)value;
-            prefetchRevisionChild(depth, id, additionalRevisions, map);
-          }
-          else if (value instanceof Collection<?>)
-          {
-            Collection<?> c = (Collection<?>)value;
-            for (Object e : c)
-            {
-              // If this revision was loaded with referenceChunk != UNCHUNKED, then
-              // some elements might be uninitialized, i.e. not instanceof CDOID.
-              // (See bug 339313.)
-              if (e instanceof CDOID)
-              {
-                CDOID id = (CDOID)e;
-                prefetchRevisionChild(depth, id, additionalRevisions, map);
-              }
-            }
-          }
-        }
-      }
-    }
-  }
-
-  private void prefetchRevisionChild(int depth, CDOID id, List<CDORevision> additionalRevisions,
-      Map<CDOID, CDORevision> map)
-  {
-    if (CDOIDUtil.isNull(id))
-    {
-      return;
-    }
-
-    CDORevision child = map.get(id);
-    if (child == null)
-    {
-      child = getRevision(id);
-      if (child != null)
-      {
-        map.put(id, child);
-        additionalRevisions.add(child);
-      }
-    }
-
-    if (child != null && depth > 0)
-    {
-      prefetchRevision(depth - 1, (InternalCDORevision)child, additionalRevisions, map);
-    }
-  }
 }
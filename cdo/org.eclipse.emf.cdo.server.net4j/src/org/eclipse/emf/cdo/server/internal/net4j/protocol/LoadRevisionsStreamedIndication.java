@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.server.internal.net4j.protocol;
+
+import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
+import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.server.internal.net4j.bundle.OM;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+
+import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link LoadRevisionsIndication} that writes the additional revisions while they are loaded instead of collecting
+ * them all before the response starts.
+ * <p>
+ * The requested revisions are written and flushed first. Then the additional revisions follow in batches of
+ * {@link #BATCH_SIZE}, each preceded by a <code>true</code> and passed through the read access handlers right before
+ * it is written. A <code>false</code> ends the response. Only one batch of revisions is held in memory at a time.
+ *
+ * @author Eike Stepper
+ */
+public class LoadRevisionsStreamedIndication extends LoadRevisionsIndication
+{
+  public static final int BATCH_SIZE = 100;
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_PROTOCOL,
+      LoadRevisionsStreamedIndication.class);
+
+  private CDODataOutput out;
+
+  private List<CDORevision> batch = new ArrayList<CDORevision>(BATCH_SIZE);
+
+  private int additionalSize;
+
+  public LoadRevisionsStreamedIndication(CDOServerProtocol protocol)
+  {
+    super(protocol, CDOProtocolConstants.SIGNAL_LOAD_REVISIONS_STREAMED);
+  }
+
+  @Override
+  protected void responding(CDODataOutput out) throws IOException
+  {
+    this.out = out;
+
+    try
+    {
+      InternalCDORevision[] revisions = loadRevisions();
+      getRepository().notifyReadAccessHandlers(getSession(), revisions, new ArrayList<CDORevision>());
+      writeResults(out, revisions);
+      flush();
+
+      collectAdditionalRevisions(revisions);
+      writeBatch();
+      out.writeBoolean(false);
+
+      if (TRACER.isEnabled())
+      {
+        TRACER.format("Wrote {0} additional revisions", additionalSize); //$NON-NLS-1$
+      }
+    }
+    catch (IORuntimeException ex)
+    {
+      throw (IOException)ex.getCause();
+    }
+    finally
+    {
+      this.out = null;
+    }
+  }
+
+  @Override
+  protected void addAdditionalRevision(CDORevision revision)
+  {
+    batch.add(revision);
+    if (batch.size() >= BATCH_SIZE)
+    {
+      try
+      {
+        writeBatch();
+      }
+      catch (IOException ex)
+      {
+        throw new IORuntimeException(ex);
+      }
+    }
+  }
+
+  private void writeBatch() throws IOException
+  {
+    if (batch.isEmpty())
+    {
+      return;
+    }
+
+    getRepository().notifyReadAccessHandlers(getSession(), new CDORevision[0], batch);
+    for (CDORevision revision : batch)
+    {
+      out.writeBoolean(true);
+      out.writeCDORevision(revision, getReferenceChunk(), getBranchPoint()); // Exposes revision to client side
+    }
+
+    additionalSize += batch.size();
+    batch.clear();
+    flush();
+  }
+}
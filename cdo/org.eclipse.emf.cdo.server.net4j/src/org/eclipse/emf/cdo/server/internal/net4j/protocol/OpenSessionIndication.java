@@ -29,6 +29,8 @@ import org.eclipse.net4j.util.om.monitor.OMMonitor;
 import org.eclipse.net4j.util.om.monitor.OMMonitor.Async;
 import org.eclipse.net4j.util.om.trace.ContextTracer;
 
+import java.io.EOFException;
+import java.io.IOException;
 import java.util.Set;
 
 /**
@@ -46,6 +48,8 @@ public class OpenSessionIndication extends CDOServerIndicationWithMonitoring
 
   private LockNotificationMode lockNotificationMode;
 
+  private boolean compactEncoding;
+
   private InternalRepository repository;
 
   private InternalSession session;
@@ -93,6 +97,12 @@ public class OpenSessionIndication extends CDOServerIndicationWithMonitoring
     {
       TRACER.format("Read lockNotificationMode: {0}", lockNotificationMode); //$NON-NLS-1$
     }
+
+    compactEncoding = readCompactEncoding(in);
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Read compactEncoding: {0}", compactEncoding); //$NON-NLS-1$
+    }
   }
 
   @Override
@@ -170,6 +180,15 @@ public class OpenSessionIndication extends CDOServerIndicationWithMonitoring
 
       CDOPackageUnit[] packageUnits = repository.getPackageRegistry().getPackageUnits();
       out.writeCDOPackageUnits(packageUnits);
+
+      // Confirm the compact encoding at the very end, where older clients stop reading. Both sides switch after it.
+      if (TRACER.isEnabled())
+      {
+        TRACER.format("Writing compactEncoding: {0}", compactEncoding); //$NON-NLS-1$
+      }
+
+      out.writeBoolean(compactEncoding);
+      protocol.setXCompression(compactEncoding);
     }
     finally
     {
@@ -177,4 +196,19 @@ public class OpenSessionIndication extends CDOServerIndicationWithMonitoring
       monitor.done();
     }
   }
+
+  /**
+   * Reads the compact encoding flag that newer clients append to the request. Older clients end the request before it.
+   */
+  private static boolean readCompactEncoding(CDODataInput in) throws IOException
+  {
+    try
+    {
+      return in.readBoolean();
+    }
+    catch (EOFException ex)
+    {
+      return false;
+    }
+  }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.internal.server;
+
+import org.eclipse.emf.cdo.common.CDOCommonSession.Options.PassiveUpdateMode;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDOIDAndVersion;
+import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
+import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
+import org.eclipse.emf.cdo.internal.common.commit.DelegatingCommitInfo;
+import org.eclipse.emf.cdo.spi.server.CommitNotificationInfo;
+
+import org.eclipse.net4j.util.ObjectUtil;
+import org.eclipse.net4j.util.collection.IndexedList;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The commit info that is sent to the sessions with a given {@link PassiveUpdateMode passive update mode}. Two
+ * instances are {@link #equals(Object) equal} if they filter the same commit info in the same way.
+ *
+ * @author Eike Stepper
+ */
+public class CommitNotificationInfoImpl extends DelegatingCommitInfo implements CommitNotificationInfo
+{
+  private final CDOCommitInfo commitInfo;
+
+  private final PassiveUpdateMode passiveUpdateMode;
+
+  /**
+   * The indexes of the changed objects that are sent as full deltas in {@link PassiveUpdateMode#INVALIDATIONS
+   * INVALIDATIONS} mode because the session has subscribed to them, or <code>null</code> for the other modes.
+   */
+  private final BitSet subscriptions;
+
+  private Object encoding;
+
+  public CommitNotificationInfoImpl(CDOCommitInfo commitInfo, PassiveUpdateMode passiveUpdateMode, BitSet subscriptions)
+  {
+    this.commitInfo = commitInfo;
+    this.passiveUpdateMode = passiveUpdateMode;
+    this.subscriptions = subscriptions;
+  }
+
+  public CDOCommitInfo getCommitInfo()
+  {
+    return commitInfo;
+  }
+
+  public PassiveUpdateMode getPassiveUpdateMode()
+  {
+    return passiveUpdateMode;
+  }
+
+  public synchronized Object getEncoding()
+  {
+    return encoding;
+  }
+
+  public synchronized void setEncoding(Object encoding)
+  {
+    this.encoding = encoding;
+  }
+
+  @Override
+  protected CDOCommitInfo getDelegate()
+  {
+    return commitInfo;
+  }
+
+  @Override
+  public List<CDOIDAndVersion> getNewObjects()
+  {
+    final List<CDOIDAndVersion> newObjects = super.getNewObjects();
+    final boolean additions = passiveUpdateMode == PassiveUpdateMode.ADDITIONS;
+    return new IndexedList<CDOIDAndVersion>()
+    {
+      @Override
+      public CDOIDAndVersion get(int index)
+      {
+        // The following will always be a CDORevision!
+        CDOIDAndVersion newObject = newObjects.get(index);
+        if (additions)
+        {
+          // Return full revisions if not in INVALIDATION mode
+          return newObject;
+        }
+
+        // Prevent sending whole revisions by copying the id and version
+        return CDOIDUtil.createIDAndVersion(newObject);
+      }
+
+      @Override
+      public int size()
+      {
+        return newObjects.size();
+      }
+    };
+  }
+
+  @Override
+  public List<CDORevisionKey> getChangedObjects()
+  {
+    final List<CDORevisionKey> changedObjects = super.getChangedObjects();
+    return new IndexedList<CDORevisionKey>()
+    {
+      @Override
+      public CDORevisionKey get(int index)
+      {
+        // The following will always be a CDORevisionDelta!
+        CDORevisionKey changedObject = changedObjects.get(index);
+        if (subscriptions == null || subscriptions.get(index))
+        {
+          return changedObject;
+        }
+
+        // Prevent sending whole revisions by copying the id and version
+        return CDORevisionUtil.copyRevisionKey(changedObject);
+      }
+
+      @Override
+      public int size()
+      {
+        return changedObjects.size();
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object obj)
+  {
+    if (obj == this)
+    {
+      return true;
+    }
+
+    if (obj instanceof CommitNotificationInfoImpl)
+    {
+      CommitNotificationInfoImpl that = (CommitNotificationInfoImpl)obj;
+      return commitInfo == that.commitInfo && passiveUpdateMode == that.passiveUpdateMode
+          && ObjectUtil.equals(subscriptions, that.subscriptions);
+    }
+
+    return false;
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return System.identityHashCode(commitInfo) ^ passiveUpdateMode.hashCode() ^ ObjectUtil.hashCode(subscriptions);
+  }
+}
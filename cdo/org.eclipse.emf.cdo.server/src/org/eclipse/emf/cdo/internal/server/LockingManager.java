@@ -42,7 +42,8 @@ import org.eclipse.net4j.util.ImplementationError;
 import org.eclipse.net4j.util.ReflectUtil.ExcludeFromDump;
 import org.eclipse.net4j.util.WrappedException;
 import org.eclipse.net4j.util.collection.ConcurrentArray;
-import org.eclipse.net4j.util.concurrent.RWOLockManager;
+import org.eclipse.net4j.util.concurrent.RWOLockManager.LockState;
+import org.eclipse.net4j.util.concurrent.StripedRWOLockManager;
 import org.eclipse.net4j.util.container.ContainerEventAdapter;
 import org.eclipse.net4j.util.container.IContainer;
 import org.eclipse.net4j.util.event.IListener;
@@ -67,7 +68,7 @@ import java.util.Set;
  * @author Simon McDuff
  * @since 3.0
  */
-public class LockingManager extends RWOLockManager<Object, IView> implements InternalLockManager
+public class LockingManager extends StripedRWOLockManager<Object, IView> implements InternalLockManager
 {
   private InternalRepository repository;
 
@@ -135,9 +136,9 @@ public class LockingManager extends RWOLockManager<Object, IView> implements Int
     this.repository = repository;
   }
 
-  public synchronized Object getLockEntryObject(Object key)
+  public Object getLockEntryObject(Object key)
   {
-    LockState<Object, IView> lockState = getObjectToLocksMap().get(key);
+    LockState<Object, IView> lockState = getLockState(key);
     return lockState == null ? null : lockState.getLockedObject();
   }
 
@@ -151,31 +152,32 @@ public class LockingManager extends RWOLockManager<Object, IView> implements Int
     return id;
   }
 
-  public synchronized Map<CDOID, LockGrade> getLocks(final IView view)
+  public Map<CDOID, LockGrade> getLocks(final IView view)
   {
     final Map<CDOID, LockGrade> result = new HashMap<CDOID, LockGrade>();
 
-    for (LockState<Object, IView> lockState : getObjectToLocksMap().values())
+    for (LockState<Object, IView> lockState : getLockStates(view))
     {
+      Object key = lockState.getLockedObject();
       LockGrade grade = LockGrade.NONE;
-      if (lockState.hasLock(LockType.READ, view, false))
+      if (hasLock(LockType.READ, view, key))
       {
         grade = grade.getUpdated(LockType.READ, true);
       }
 
-      if (lockState.hasLock(LockType.WRITE, view, false))
+      if (hasLock(LockType.WRITE, view, key))
       {
         grade = grade.getUpdated(LockType.WRITE, true);
       }
 
-      if (lockState.hasLock(LockType.OPTION, view, false))
+      if (hasLock(LockType.OPTION, view, key))
       {
         grade = grade.getUpdated(LockType.OPTION, true);
       }
 
       if (grade != LockGrade.NONE)
       {
-        CDOID id = getLockKeyID(lockState.getLockedObject());
+        CDOID id = getLockKeyID(key);
         result.put(id, grade);
       }
     }
@@ -206,24 +208,19 @@ public class LockingManager extends RWOLockManager<Object, IView> implements Int
     }
 
     long startTime = timeout == WAIT ? 0L : currentTimeMillis();
-
-    List<LockState<Object, IView>> newLockStates;
-    synchronized (this)
+    if (recursive)
     {
-      if (recursive)
-      {
-        objectsToLock = createContentSet(objectsToLock, view);
-      }
+      objectsToLock = createContentSet(objectsToLock, view);
 
-      // Adjust timeout for delay we may have incurred on entering this synchronized block
+      // Adjust timeout for delay we may have incurred on collecting the contents
       if (timeout != WAIT)
       {
         timeout -= currentTimeMillis() - startTime;
       }
-
-      newLockStates = super.lock2(type, view, objectsToLock, timeout);
     }
 
+    List<LockState<Object, IView>> newLockStates = super.lock2(type, view, objectsToLock, timeout);
+
     if (accessor != null)
     {
       accessor.lock(durableLockingID, type, objectsToLock);
@@ -277,26 +274,22 @@ public class LockingManager extends RWOLockManager<Object, IView> implements Int
   }
 
   @Deprecated
-  public synchronized void unlock(boolean explicit, LockType type, IView view,
+  public void unlock(boolean explicit, LockType type, IView view,
       Collection<? extends Object> objectsToUnlock)
   {
     unlock2(explicit, type, view, objectsToUnlock, false);
   }
 
-  public synchronized List<LockState<Object, IView>> unlock2(boolean explicit, LockType type, IView view,
+  public List<LockState<Object, IView>> unlock2(boolean explicit, LockType type, IView view,
       Collection<? extends Object> objects, boolean recursive)
   {
-    List<LockState<Object, IView>> newLockStates;
-    synchronized (this)
+    if (recursive)
     {
-      if (recursive)
-      {
-        objects = createContentSet(objects, view);
-      }
-
-      newLockStates = super.unlock2(type, view, objects);
+      objects = createContentSet(objects, view);
     }
 
+    List<LockState<Object, IView>> newLockStates = super.unlock2(type, view, objects);
+
     if (explicit)
     {
       String durableLockingID = view.getDurableLockingID();
@@ -311,12 +304,12 @@ public class LockingManager extends RWOLockManager<Object, IView> implements Int
   }
 
   @Deprecated
-  public synchronized void unlock(boolean explicit, IView view)
+  public void unlock(boolean explicit, IView view)
   {
     unlock2(explicit, view);
   }
 
-  public synchronized List<LockState<Object, IView>> unlock2(boolean explicit, IView view)
+  public List<LockState<Object, IView>> unlock2(boolean explicit, IView view)
   {
     if (explicit)
     {
@@ -777,7 +770,7 @@ public class LockingManager extends RWOLockManager<Object, IView> implements Int
 
   public LockGrade getLockGrade(Object key)
   {
-    LockState<Object, IView> lockState = getObjectToLocksMap().get(key);
+    LockState<Object, IView> lockState = getLockState(key);
     LockGrade grade = LockGrade.NONE;
     if (lockState != null)
     {
@@ -14,6 +14,7 @@ package org.eclipse.emf.cdo.internal.server;
 import org.eclipse.emf.cdo.common.branch.CDOBranch;
 import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
 import org.eclipse.emf.cdo.common.util.CDOQueryInfo;
+import org.eclipse.emf.cdo.common.util.CDOQueryQueue;
 import org.eclipse.emf.cdo.internal.server.bundle.OM;
 import org.eclipse.emf.cdo.server.IQueryContext;
 import org.eclipse.emf.cdo.server.IQueryHandler;
@@ -34,20 +35,45 @@ import org.eclipse.net4j.util.event.IListener;
 import org.eclipse.net4j.util.lifecycle.Lifecycle;
 import org.eclipse.net4j.util.om.trace.ContextTracer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Executes queries on an {@link #getExecutors() executor service}.
+ * <p>
+ * Queries don't go to the executor directly. They wait in one FIFO queue per session and the sessions are served
+ * round-robin, so that a session with many queries can't starve the others. A query is only started if fewer than
+ * {@link IRepository.Props#MAX_RUNNING_QUERIES maxRunningQueries} queries, and fewer than the limit of its query
+ * language, are running. A session that already has {@link IRepository.Props#MAX_QUEUED_QUERIES_PER_SESSION
+ * maxQueuedQueriesPerSession} queries waiting gets new queries rejected.
+ * <p>
+ * If a {@link IRepository.Props#QUERY_RESULT_QUEUE_CAPACITY queryResultQueueCapacity} is configured
+ * {@link IQueryContext#addResult(Object) addResult()} waits while the result queue of the query is full.
+ *
  * @author Simon McDuff
  * @since 2.0
  */
 public class QueryManager extends Lifecycle implements InternalQueryManager
 {
+  /**
+   * @since 4.2
+   */
+  public static final int DEFAULT_MAX_RUNNING_QUERIES = 10;
+
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_SESSION, QueryManager.class);
 
+  private static final long RESULT_QUEUE_POLL_MILLIS = 100;
+
   private InternalRepository repository;
 
   private Map<Integer, QueryContext> queryContexts = new ConcurrentHashMap<Integer, QueryContext>();
@@ -60,6 +86,32 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
 
   private boolean allowInterruptRunningQueries = true;
 
+  private int maxRunningQueries = DEFAULT_MAX_RUNNING_QUERIES;
+
+  private Map<String, Integer> maxRunningQueriesByLanguage = new HashMap<String, Integer>();
+
+  private int maxQueuedQueriesPerSession = Integer.MAX_VALUE;
+
+  private int resultQueueCapacity;
+
+  private Object scheduleLock = new Object();
+
+  private Map<InternalSession, SessionQueue> sessionQueues = new HashMap<InternalSession, SessionQueue>();
+
+  private int waitingQueryCount;
+
+  private int runningQueryCount;
+
+  private Map<String, Integer> runningQueryCountByLanguage = new HashMap<String, Integer>();
+
+  private long startedQueryCount;
+
+  private long rejectedQueryCount;
+
+  private long totalWaitTime;
+
+  private long maxWaitTime;
+
   public QueryManager()
   {
   }
@@ -73,11 +125,117 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
   {
     this.repository = repository;
 
-    String value = repository.getProperties().get(IRepository.Props.ALLOW_INTERRUPT_RUNNING_QUERIES);
+    Map<String, String> properties = repository.getProperties();
+    String value = properties.get(IRepository.Props.ALLOW_INTERRUPT_RUNNING_QUERIES);
     if (value != null)
     {
       allowInterruptRunningQueries = Boolean.parseBoolean(value);
     }
+
+    value = properties.get(IRepository.Props.MAX_RUNNING_QUERIES);
+    if (value != null)
+    {
+      maxRunningQueries = Math.max(1, Integer.parseInt(value));
+    }
+
+    value = properties.get(IRepository.Props.MAX_QUEUED_QUERIES_PER_SESSION);
+    if (value != null)
+    {
+      int max = Integer.parseInt(value);
+      maxQueuedQueriesPerSession = max < 0 ? Integer.MAX_VALUE : max;
+    }
+
+    value = properties.get(IRepository.Props.QUERY_RESULT_QUEUE_CAPACITY);
+    if (value != null)
+    {
+      resultQueueCapacity = Integer.parseInt(value);
+    }
+
+    for (Entry<String, String> entry : properties.entrySet())
+    {
+      String key = entry.getKey();
+      if (key.startsWith(IRepository.Props.MAX_RUNNING_QUERIES_PREFIX))
+      {
+        String language = key.substring(IRepository.Props.MAX_RUNNING_QUERIES_PREFIX.length());
+        int max = Math.max(1, Integer.parseInt(entry.getValue()));
+        maxRunningQueriesByLanguage.put(language, max);
+      }
+    }
+  }
+
+  public int getMaxRunningQueries()
+  {
+    return maxRunningQueries;
+  }
+
+  public int getMaxRunningQueries(String language)
+  {
+    Integer max = maxRunningQueriesByLanguage.get(language);
+    return max == null ? maxRunningQueries : Math.min(max, maxRunningQueries);
+  }
+
+  public int getMaxQueuedQueriesPerSession()
+  {
+    return maxQueuedQueriesPerSession;
+  }
+
+  public int getResultQueueCapacity()
+  {
+    return resultQueueCapacity;
+  }
+
+  public int getWaitingQueryCount()
+  {
+    synchronized (scheduleLock)
+    {
+      return waitingQueryCount;
+    }
+  }
+
+  public int getRunningQueryCount()
+  {
+    synchronized (scheduleLock)
+    {
+      return runningQueryCount;
+    }
+  }
+
+  public long getStartedQueryCount()
+  {
+    synchronized (scheduleLock)
+    {
+      return startedQueryCount;
+    }
+  }
+
+  public long getRejectedQueryCount()
+  {
+    synchronized (scheduleLock)
+    {
+      return rejectedQueryCount;
+    }
+  }
+
+  /**
+   * Returns the total time in milliseconds that the started queries have waited for execution.
+   */
+  public long getTotalWaitTime()
+  {
+    synchronized (scheduleLock)
+    {
+      return TimeUnit.NANOSECONDS.toMillis(totalWaitTime);
+    }
+  }
+
+  /**
+   * Returns the longest time in milliseconds that a started query has waited for execution.
+   */
+  public long getMaxWaitTime()
+  {
+    synchronized (scheduleLock)
+    {
+      return TimeUnit.NANOSECONDS.toMillis(maxWaitTime);
+    }
   }
 
   public synchronized ExecutorService getExecutors()
@@ -85,7 +243,7 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
     if (executors == null)
     {
       shutdownExecutorService = true;
-      executors = Executors.newFixedThreadPool(10);
+      executors = Executors.newFixedThreadPool(maxRunningQueries);
     }
 
     return executors;
@@ -105,6 +263,8 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
   public InternalQueryResult execute(InternalView view, CDOQueryInfo queryInfo)
   {
     InternalQueryResult queryResult = new QueryResult(view, queryInfo, getNextQueryID());
+    queryResult.getQueue().setCapacity(resultQueueCapacity);
+
     QueryContext queryContext = new QueryContext(queryResult);
     execute(queryContext);
     return queryResult;
@@ -119,7 +279,7 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
   public void cancel(int queryID)
   {
     QueryContext queryContext = queryContexts.get(queryID);
-    if (queryContext == null || queryContext.getFuture().isDone())
+    if (queryContext == null || queryContext.isDone())
     {
       throw new RuntimeException("Query " + queryID + " is not running anymore"); //$NON-NLS-1$ //$NON-NLS-2$
     }
@@ -154,17 +314,206 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
   @Override
   protected void doDeactivate() throws Exception
   {
+    List<QueryContext> queryContexts = new ArrayList<QueryContext>();
+    synchronized (scheduleLock)
+    {
+      for (SessionQueue sessionQueue : sessionQueues.values())
+      {
+        queryContexts.addAll(sessionQueue);
+      }
+    }
+
+    for (QueryContext queryContext : queryContexts)
+    {
+      queryContext.cancel();
+    }
+
     super.doDeactivate();
     setExecutors(null);
   }
 
-  private Future<?> execute(QueryContext queryContext)
+  private void execute(QueryContext queryContext)
   {
     register(queryContext);
 
-    Future<?> future = getExecutors().submit(queryContext);
-    queryContext.setFuture(future);
-    return future;
+    InternalSession session = queryContext.getSession();
+    synchronized (scheduleLock)
+    {
+      SessionQueue sessionQueue = sessionQueues.get(session);
+      if (sessionQueue == null)
+      {
+        sessionQueue = new SessionQueue();
+        sessionQueues.put(session, sessionQueue);
+      }
+
+      if (sessionQueue.size() < maxQueuedQueriesPerSession)
+      {
+        sessionQueue.addLast(queryContext);
+        ++waitingQueryCount;
+        schedule();
+        return;
+      }
+
+      if (sessionQueue.running == 0 && sessionQueue.isEmpty())
+      {
+        sessionQueues.remove(session);
+      }
+
+      ++rejectedQueryCount;
+    }
+
+    queryContext.reject(new RejectedExecutionException("Too many queued queries for " + session)); //$NON-NLS-1$
+  }
+
+  /**
+   * Starts waiting queries as long as the limits permit. The next query is taken from the session that has waited
+   * longest since one of its queries was started.
+   * <p>
+   * Must be called with the schedule lock held.
+   */
+  private void schedule()
+  {
+    while (runningQueryCount < maxRunningQueries && waitingQueryCount > 0)
+    {
+      SessionQueue nextQueue = null;
+      QueryContext next = null;
+
+      for (SessionQueue sessionQueue : sessionQueues.values())
+      {
+        if (nextQueue != null && sessionQueue.lastStart >= nextQueue.lastStart)
+        {
+          continue;
+        }
+
+        for (QueryContext queryContext : sessionQueue)
+        {
+          if (canStart(queryContext.getLanguage()))
+          {
+            nextQueue = sessionQueue;
+            next = queryContext;
+            break;
+          }
+        }
+      }
+
+      if (next == null)
+      {
+        // The waiting queries are all of languages that are at their limits
+        return;
+      }
+
+      nextQueue.remove(next);
+      nextQueue.lastStart = ++startedQueryCount;
+      ++nextQueue.running;
+      --waitingQueryCount;
+      start(next);
+    }
+  }
+
+  private boolean canStart(String language)
+  {
+    Integer count = runningQueryCountByLanguage.get(language);
+    return count == null || count < getMaxRunningQueries(language);
+  }
+
+  private void start(QueryContext queryContext)
+  {
+    String language = queryContext.getLanguage();
+    Integer count = runningQueryCountByLanguage.get(language);
+    runningQueryCountByLanguage.put(language, count == null ? 1 : count + 1);
+    ++runningQueryCount;
+
+    try
+    {
+      Future<?> future = getExecutors().submit(queryContext);
+      queryContext.setFuture(future);
+    }
+    catch (RejectedExecutionException ex)
+    {
+      finished(queryContext);
+      queryContext.reject(ex);
+    }
+  }
+
+  private void finished(QueryContext queryContext)
+  {
+    String language = queryContext.getLanguage();
+    int count = runningQueryCountByLanguage.get(language);
+    if (count == 1)
+    {
+      runningQueryCountByLanguage.remove(language);
+    }
+    else
+    {
+      runningQueryCountByLanguage.put(language, count - 1);
+    }
+
+    --runningQueryCount;
+
+    InternalSession session = queryContext.getSession();
+    SessionQueue sessionQueue = sessionQueues.get(session);
+    if (--sessionQueue.running == 0 && sessionQueue.isEmpty())
+    {
+      sessionQueues.remove(session);
+    }
+  }
+
+  private boolean dequeue(QueryContext queryContext)
+  {
+    InternalSession session = queryContext.getSession();
+    synchronized (scheduleLock)
+    {
+      SessionQueue sessionQueue = sessionQueues.get(session);
+      if (sessionQueue != null && sessionQueue.remove(queryContext))
+      {
+        if (sessionQueue.running == 0 && sessionQueue.isEmpty())
+        {
+          sessionQueues.remove(session);
+        }
+
+        --waitingQueryCount;
+        return true;
+      }
+
+      return false;
+    }
+  }
+
+  private void started(QueryContext queryContext)
+  {
+    long waitTime = System.nanoTime() - queryContext.getQueueTime();
+    synchronized (scheduleLock)
+    {
+      totalWaitTime += waitTime;
+      if (waitTime > maxWaitTime)
+      {
+        maxWaitTime = waitTime;
+      }
+    }
+  }
+
+  private void stopped(QueryContext queryContext)
+  {
+    synchronized (scheduleLock)
+    {
+      finished(queryContext);
+      schedule();
+    }
+  }
+
+  /**
+   * The waiting queries of a session, together with the number of its running queries and the sequence number of the
+   * last query that was started for it.
+   *
+   * @author Eike Stepper
+   */
+  private static final class SessionQueue extends LinkedList<QueryContext>
+  {
+    private static final long serialVersionUID = 1L;
+
+    private int running;
+
+    private long lastStart;
   }
 
   /**
@@ -177,13 +526,15 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
 
     private InternalQueryResult queryResult;
 
-    private boolean started;
+    private long queueTime = System.nanoTime();
+
+    private volatile boolean started;
 
-    private boolean cancelled;
+    private volatile boolean cancelled;
 
     private int resultCount;
 
-    private Future<?> future;
+    private volatile Future<?> future;
 
     private IListener sessionListener = new IListener()
     {
@@ -230,6 +581,21 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
       return queryResult.getView();
     }
 
+    public InternalSession getSession()
+    {
+      return queryResult.getView().getSession();
+    }
+
+    public String getLanguage()
+    {
+      return queryResult.getQueryInfo().getQueryLanguage();
+    }
+
+    public long getQueueTime()
+    {
+      return queueTime;
+    }
+
     public CDOBranch getBranch()
     {
       return branchPoint.getBranch();
@@ -250,20 +616,35 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
       this.future = future;
     }
 
+    public boolean isDone()
+    {
+      return future != null && future.isDone();
+    }
+
     public void cancel()
     {
       cancelled = true;
-      if (future != null)
+      if (dequeue(this))
       {
-        future.cancel(allowInterruptRunningQueries);
+        queryResult.getQueue().close();
+        unregister(this);
+        return;
       }
 
-      if (!started)
+      // A query that has been handed to the executor but isn't started yet must still run to release its slot
+      if (started && future != null)
       {
-        unregister(this);
+        future.cancel(allowInterruptRunningQueries);
       }
     }
 
+    public void reject(Exception exception)
+    {
+      queryResult.getQueue().setException(exception);
+      queryResult.getQueue().close();
+      unregister(this);
+    }
+
     public int getResultCount()
     {
       return resultCount;
@@ -276,7 +657,15 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
         throw new IllegalStateException("Maximum number of results exceeded"); //$NON-NLS-1$
       }
 
-      queryResult.getQueue().add(object);
+      CDOQueryQueue<Object> queue = queryResult.getQueue();
+      while (!queue.offer(object, RESULT_QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS))
+      {
+        if (cancelled || Thread.currentThread().isInterrupted())
+        {
+          return false;
+        }
+      }
+
       return !cancelled && --resultCount > 0;
     }
 
@@ -288,6 +677,12 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
       try
       {
         started = true;
+        started(this);
+        if (cancelled)
+        {
+          return;
+        }
+
         CDOQueryInfo info = queryResult.getQueryInfo();
         resultCount = info.getMaxResults() < 0 ? Integer.MAX_VALUE : info.getMaxResults();
         IQueryHandler handler = repository.getQueryHandler(info);
@@ -302,6 +697,7 @@ public class QueryManager extends Lifecycle implements InternalQueryManager
         queryResult.getQueue().close();
         unregister(this);
         StoreThreadLocal.release();
+        stopped(this);
       }
     }
 
@@ -427,6 +427,9 @@ public class Repository extends Container<Object> implements InternalRepository
   public List<InternalCDORevision> loadRevisions(List<RevisionInfo> infos, CDOBranchPoint branchPoint,
       int referenceChunk, int prefetchDepth)
   {
+    List<RevisionInfo> infosToRead = new ArrayList<RevisionInfo>(infos.size());
+    List<CDOID> idsToRead = new ArrayList<CDOID>(infos.size());
+
     for (RevisionInfo info : infos)
     {
       CDOID id = info.getID();
@@ -477,8 +480,22 @@ public class Repository extends Container<Object> implements InternalRepository
         throw new IllegalStateException("Invalid revision info type: " + type);
       }
 
-      IStoreAccessor accessor = StoreThreadLocal.getAccessor();
-      InternalCDORevision revision = accessor.readRevision(id, branchPoint, referenceChunk, revisionManager);
+      infosToRead.add(info);
+      idsToRead.add(id);
+    }
+
+    if (idsToRead.isEmpty())
+    {
+      return null;
+    }
+
+    IStoreAccessor accessor = StoreThreadLocal.getAccessor();
+    Map<CDOID, InternalCDORevision> revisions = readRevisions(accessor, idsToRead, branchPoint, referenceChunk);
+
+    for (RevisionInfo info : infosToRead)
+    {
+      CDOID id = info.getID();
+      InternalCDORevision revision = revisions.get(id);
       if (revision == null)
       {
         if (isSupportingAudits())
@@ -526,6 +543,32 @@ public class Repository extends Container<Object> implements InternalRepository
     return null;
   }
 
+  /**
+   * Reads all missing revisions with a single call if the store accessor can batch its back-end access, or one by one
+   * otherwise.
+   */
+  private Map<CDOID, InternalCDORevision> readRevisions(IStoreAccessor accessor, List<CDOID> ids,
+      CDOBranchPoint branchPoint, int referenceChunk)
+  {
+    if (accessor instanceof IStoreAccessor.BulkRevisionReader)
+    {
+      return ((IStoreAccessor.BulkRevisionReader)accessor).readRevisions(ids, branchPoint, referenceChunk,
+          revisionManager);
+    }
+
+    Map<CDOID, InternalCDORevision> revisions = new HashMap<CDOID, InternalCDORevision>();
+    for (CDOID id : ids)
+    {
+      InternalCDORevision revision = accessor.readRevision(id, branchPoint, referenceChunk, revisionManager);
+      if (revision != null)
+      {
+        revisions.put(id, revision);
+      }
+    }
+
+    return revisions;
+  }
+
   private InternalCDORevision loadRevisionTarget(CDOID id, CDOBranchPoint branchPoint, int referenceChunk,
       IStoreAccessor accessor)
   {
@@ -1280,7 +1323,7 @@ public class Repository extends Container<Object> implements InternalRepository
     try
     {
       IStoreAccessor accessor = StoreThreadLocal.getAccessor();
-      Set<CDOID> ids = new HashSet<CDOID>();
+      Set<CDOID> ids = CDOIDUtil.createSet();
 
       if (targetBaseInfo == null && sourceBaseInfo == null)
       {
@@ -1410,7 +1453,7 @@ public class Repository extends Container<Object> implements InternalRepository
 
       wrapper = new CDORevisionHandler()
       {
-        private Set<CDOID> handled = new HashSet<CDOID>();
+        private Set<CDOID> handled = CDOIDUtil.createSet();
 
         public boolean handleRevision(CDORevision revision)
         {
@@ -24,18 +24,18 @@ import org.eclipse.emf.cdo.common.id.CDOIDUtil;
 import org.eclipse.emf.cdo.common.lock.CDOLockChangeInfo;
 import org.eclipse.emf.cdo.common.model.CDOModelUtil;
 import org.eclipse.emf.cdo.common.protocol.CDOProtocolConstants;
-import org.eclipse.emf.cdo.common.revision.CDOIDAndVersion;
+import org.eclipse.emf.cdo.common.revision.CDOList;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
 import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
-import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
 import org.eclipse.emf.cdo.common.security.CDOPermission;
-import org.eclipse.emf.cdo.internal.common.commit.DelegatingCommitInfo;
 import org.eclipse.emf.cdo.server.IPermissionManager;
 import org.eclipse.emf.cdo.server.IView;
 import org.eclipse.emf.cdo.session.remote.CDORemoteSessionMessage;
 import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranch;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionManager;
+import org.eclipse.emf.cdo.spi.server.CommitNotificationInfo;
 import org.eclipse.emf.cdo.spi.server.ISessionProtocol;
 import org.eclipse.emf.cdo.spi.server.InternalSession;
 import org.eclipse.emf.cdo.spi.server.InternalSessionManager;
@@ -43,7 +43,6 @@ import org.eclipse.emf.cdo.spi.server.InternalTransaction;
 import org.eclipse.emf.cdo.spi.server.InternalView;
 
 import org.eclipse.net4j.util.ReflectUtil.ExcludeFromDump;
-import org.eclipse.net4j.util.collection.IndexedList;
 import org.eclipse.net4j.util.container.Container;
 import org.eclipse.net4j.util.event.EventUtil;
 import org.eclipse.net4j.util.event.IListener;
@@ -57,6 +56,11 @@ import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -319,30 +323,114 @@ public class Session extends Container<IView> implements InternalSession
    * @since 2.0
    */
   public void collectContainedRevisions(InternalCDORevision revision, CDOBranchPoint branchPoint, int referenceChunk,
-      Set<CDOID> revisions, List<CDORevision> additionalRevisions)
+      Set<CDOID> revisions, final List<CDORevision> additionalRevisions)
+  {
+    collectContainedRevisions(Collections.singletonList(revision), branchPoint, referenceChunk,
+        CDORevision.DEPTH_INFINITE, true, revisions, new CDORevisionHandler()
+        {
+          public boolean handleRevision(CDORevision revision)
+          {
+            additionalRevisions.add(revision);
+            return true;
+          }
+        });
+  }
+
+  public void collectContainedRevisions(List<? extends CDORevision> revisions, CDOBranchPoint branchPoint,
+      int referenceChunk, int depth, Set<CDOID> revisionIDs, CDORevisionHandler handler)
+  {
+    collectContainedRevisions(revisions, branchPoint, referenceChunk, depth, false, revisionIDs, handler);
+  }
+
+  /**
+   * Walks the containment tree breadth-first and loads each level with a single call to the revision manager, so that
+   * the store can read the revisions that are not cached in bulk.
+   */
+  private void collectContainedRevisions(List<? extends CDORevision> revisions, CDOBranchPoint branchPoint,
+      int referenceChunk, int depth, boolean singleValuedOnly, Set<CDOID> revisionIDs, CDORevisionHandler handler)
   {
     InternalCDORevisionManager revisionManager = getManager().getRepository().getRevisionManager();
+    Set<CDOID> visited = new HashSet<CDOID>();
+    List<? extends CDORevision> level = revisions;
+
+    for (int i = 0; depth == CDORevision.DEPTH_INFINITE || i < depth; i++)
+    {
+      boolean lastLevel = depth != CDORevision.DEPTH_INFINITE && i == depth - 1;
+
+      List<CDOID> ids = new ArrayList<CDOID>();
+      for (CDORevision revision : level)
+      {
+        if (revision != null)
+        {
+          collectContainedIDs((InternalCDORevision)revision, singleValuedOnly, ids);
+        }
+      }
+
+      // Children that are already known only need to be loaded if their own children are to be collected
+      for (Iterator<CDOID> it = ids.iterator(); it.hasNext();)
+      {
+        CDOID id = it.next();
+        if (!visited.add(id) || lastLevel && revisionIDs.contains(id))
+        {
+          it.remove();
+        }
+      }
+
+      if (ids.isEmpty())
+      {
+        return;
+      }
+
+      List<CDORevision> children = revisionManager.getRevisions(ids, branchPoint, referenceChunk,
+          CDORevision.DEPTH_NONE, true);
+
+      for (CDORevision child : children)
+      {
+        if (child != null && revisionIDs.add(child.getID()))
+        {
+          if (!handler.handleRevision(child))
+          {
+            return;
+          }
+        }
+      }
+
+      level = children;
+    }
+  }
+
+  private void collectContainedIDs(InternalCDORevision revision, boolean singleValuedOnly, List<CDOID> ids)
+  {
     EClass eClass = revision.getEClass();
     EStructuralFeature[] features = CDOModelUtil.getAllPersistentFeatures(eClass);
     for (int i = 0; i < features.length; i++)
     {
       EStructuralFeature feature = features[i];
       // TODO Clarify feature maps
-      if (feature instanceof EReference && !feature.isMany() && ((EReference)feature).isContainment())
+      if (feature instanceof EReference && ((EReference)feature).isContainment())
       {
-        Object value = revision.getValue(feature);
-        if (value instanceof CDOID)
+        if (!feature.isMany())
         {
-          CDOID id = (CDOID)value;
-          if (!CDOIDUtil.isNull(id) && !revisions.contains(id))
+          Object value = revision.getValue(feature);
+          if (value instanceof CDOID && !CDOIDUtil.isNull((CDOID)value))
           {
-            InternalCDORevision containedRevision = revisionManager.getRevision(id, branchPoint, referenceChunk,
-                CDORevision.DEPTH_NONE, true);
-            revisions.add(id);
-            additionalRevisions.add(containedRevision);
-
-            // Recurse
-            collectContainedRevisions(containedRevision, branchPoint, referenceChunk, revisions, additionalRevisions);
+            ids.add((CDOID)value);
+          }
+        }
+        else if (!singleValuedOnly)
+        {
+          // Don't use getList(), which can create or unshare a list in the cached revision
+          Object value = revision.getValue(feature);
+          if (value instanceof CDOList)
+          {
+            for (Object element : (CDOList)value)
+            {
+              // With a reference chunk some elements might not be initialized (see bug 339313)
+              if (element instanceof CDOID && !CDOIDUtil.isNull((CDOID)element))
+              {
+                ids.add((CDOID)element);
+              }
+            }
           }
         }
       }
@@ -398,94 +486,54 @@ public class Session extends Container<IView> implements InternalSession
     }
   }
 
-  public void sendCommitNotification(final CDOCommitInfo commitInfo) throws Exception
+  public void sendCommitNotification(CDOCommitInfo commitInfo) throws Exception
+  {
+    CommitNotificationInfo notificationInfo = getCommitNotificationInfo(commitInfo);
+    if (notificationInfo != null)
+    {
+      sendCommitNotification(notificationInfo);
+    }
+  }
+
+  public CommitNotificationInfo getCommitNotificationInfo(CDOCommitInfo commitInfo)
   {
     if (protocol == null)
     {
-      return;
+      return null;
     }
 
     if (!isPassiveUpdateEnabled())
     {
-      return;
+      return null;
     }
 
-    final InternalView[] views = getViews();
-    protocol.sendCommitNotification(new DelegatingCommitInfo()
+    PassiveUpdateMode passiveUpdateMode = getPassiveUpdateMode();
+    BitSet subscriptions = null;
+    if (passiveUpdateMode == PassiveUpdateMode.INVALIDATIONS)
     {
-      private final PassiveUpdateMode passiveUpdateMode = getPassiveUpdateMode();
-
-      private final boolean additions = passiveUpdateMode == PassiveUpdateMode.ADDITIONS;
-
-      private final boolean changes = passiveUpdateMode == PassiveUpdateMode.CHANGES;
-
-      @Override
-      protected CDOCommitInfo getDelegate()
-      {
-        return commitInfo;
-      }
+      subscriptions = new BitSet();
 
-      @Override
-      public List<CDOIDAndVersion> getNewObjects()
+      InternalView[] views = getViews();
+      List<CDORevisionKey> changedObjects = commitInfo.getChangedObjects();
+      for (int i = 0; i < changedObjects.size(); i++)
       {
-        final List<CDOIDAndVersion> newObjects = super.getNewObjects();
-        return new IndexedList<CDOIDAndVersion>()
+        if (hasSubscription(changedObjects.get(i).getID(), views))
         {
-          @Override
-          public CDOIDAndVersion get(int index)
-          {
-            // The following will always be a CDORevision!
-            CDOIDAndVersion newObject = newObjects.get(index);
-            if (additions)
-            {
-              // Return full revisions if not in INVALIDATION mode
-              return newObject;
-            }
-
-            // Prevent sending whole revisions by copying the id and version
-            return CDOIDUtil.createIDAndVersion(newObject);
-          }
-
-          @Override
-          public int size()
-          {
-            return newObjects.size();
-          }
-        };
+          subscriptions.set(i);
+        }
       }
+    }
 
-      @Override
-      public List<CDORevisionKey> getChangedObjects()
-      {
-        final List<CDORevisionKey> changedObjects = super.getChangedObjects();
-        return new IndexedList<CDORevisionKey>()
-        {
-          @Override
-          public CDORevisionKey get(int index)
-          {
-            // The following will always be a CDORevisionDelta!
-            CDORevisionKey changedObject = changedObjects.get(index);
-            if (changes || additions || hasSubscription(changedObject.getID(), views))
-            {
-              return changedObject;
-            }
-
-            // Prevent sending whole revisions by copying the id and version
-            return CDORevisionUtil.copyRevisionKey(changedObject);
-          }
+    return new CommitNotificationInfoImpl(commitInfo, passiveUpdateMode, subscriptions);
+  }
 
-          @Override
-          public int size()
-          {
-            return changedObjects.size();
-          }
-        };
-      }
-    });
+  public void sendCommitNotification(CommitNotificationInfo notificationInfo) throws Exception
+  {
+    protocol.sendCommitNotification(notificationInfo);
 
     synchronized (lastUpdateTimeLock)
     {
-      lastUpdateTime = commitInfo.getTimeStamp();
+      lastUpdateTime = notificationInfo.getTimeStamp();
     }
   }
 
@@ -26,6 +26,7 @@ import org.eclipse.emf.cdo.server.ISession;
 import org.eclipse.emf.cdo.session.remote.CDORemoteSessionMessage;
 import org.eclipse.emf.cdo.spi.common.CDOAuthenticationResult;
 import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranch;
+import org.eclipse.emf.cdo.spi.server.CommitNotificationInfo;
 import org.eclipse.emf.cdo.spi.server.ISessionProtocol;
 import org.eclipse.emf.cdo.spi.server.InternalRepository;
 import org.eclipse.emf.cdo.spi.server.InternalSession;
@@ -46,6 +47,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -80,6 +85,10 @@ public class SessionManager extends Container<ISession> implements InternalSessi
 
   private final AtomicInteger lastSessionID = new AtomicInteger();
 
+  private ExecutorService notificationExecutors;
+
+  private boolean shutdownNotificationExecutors;
+
   /**
    * @since 2.0
    */
@@ -342,15 +351,36 @@ public class SessionManager extends Container<ISession> implements InternalSessi
     }
   }
 
+  /**
+   * Determines the {@link CommitNotificationInfo notification info} of all other sessions and lets the
+   * {@link #getNotificationExecutors() notification executors} send them. Sessions with the same passive update
+   * settings share a single notification info, so that the protocol needs to encode it only once. This method returns
+   * when all notifications have been handed to the sessions' protocols.
+   */
   public void sendCommitNotification(InternalSession sender, CDOCommitInfo commitInfo)
   {
+    Map<CommitNotificationInfo, CommitNotificationInfo> sharedInfos = //
+    new HashMap<CommitNotificationInfo, CommitNotificationInfo>();
+    List<CommitNotification> notifications = new ArrayList<CommitNotification>();
+
     for (InternalSession session : getSessions())
     {
       if (session != sender)
       {
         try
         {
-          session.sendCommitNotification(commitInfo);
+          CommitNotificationInfo notificationInfo = session.getCommitNotificationInfo(commitInfo);
+          if (notificationInfo != null)
+          {
+            CommitNotificationInfo sharedInfo = sharedInfos.get(notificationInfo);
+            if (sharedInfo == null)
+            {
+              sharedInfos.put(notificationInfo, notificationInfo);
+              sharedInfo = notificationInfo;
+            }
+
+            notifications.add(new CommitNotification(session, sharedInfo));
+          }
         }
         catch (Exception ex)
         {
@@ -358,6 +388,40 @@ public class SessionManager extends Container<ISession> implements InternalSessi
         }
       }
     }
+
+    int size = notifications.size();
+    if (size == 1)
+    {
+      notifications.get(0).run();
+      return;
+    }
+
+    if (size != 0)
+    {
+      ExecutorService executors = getNotificationExecutors();
+      List<Future<?>> futures = new ArrayList<Future<?>>(size);
+      for (CommitNotification notification : notifications)
+      {
+        futures.add(executors.submit(notification));
+      }
+
+      for (int i = 0; i < size; i++)
+      {
+        try
+        {
+          futures.get(i).get();
+        }
+        catch (InterruptedException ex)
+        {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        catch (ExecutionException ex)
+        {
+          handleNotificationProblem(notifications.get(i).getSession(), ex.getCause());
+        }
+      }
+    }
   }
 
   public void sendLockNotification(InternalSession sender, CDOLockChangeInfo lockChangeInfo)
@@ -433,6 +497,28 @@ public class SessionManager extends Container<ISession> implements InternalSessi
     return result;
   }
 
+  public synchronized ExecutorService getNotificationExecutors()
+  {
+    if (notificationExecutors == null)
+    {
+      shutdownNotificationExecutors = true;
+      notificationExecutors = Executors.newFixedThreadPool(10);
+    }
+
+    return notificationExecutors;
+  }
+
+  public synchronized void setNotificationExecutors(ExecutorService notificationExecutors)
+  {
+    if (shutdownNotificationExecutors)
+    {
+      this.notificationExecutors.shutdown();
+      shutdownNotificationExecutors = false;
+    }
+
+    this.notificationExecutors = notificationExecutors;
+  }
+
   protected void handleNotificationProblem(InternalSession session, Throwable t)
   {
     OM.LOG.warn("A problem occured while notifying session " + session, t);
@@ -530,5 +616,41 @@ public class SessionManager extends Container<ISession> implements InternalSessi
     }
 
     super.doDeactivate();
+    setNotificationExecutors(null);
+  }
+
+  /**
+   * Sends a shared {@link CommitNotificationInfo notification info} to a single session.
+   *
+   * @author Eike Stepper
+   */
+  private final class CommitNotification implements Runnable
+  {
+    private final InternalSession session;
+
+    private final CommitNotificationInfo notificationInfo;
+
+    public CommitNotification(InternalSession session, CommitNotificationInfo notificationInfo)
+    {
+      this.session = session;
+      this.notificationInfo = notificationInfo;
+    }
+
+    public InternalSession getSession()
+    {
+      return session;
+    }
+
+    public void run()
+    {
+      try
+      {
+        session.sendCommitNotification(notificationInfo);
+      }
+      catch (Exception ex)
+      {
+        handleNotificationProblem(session, ex);
+      }
+    }
   }
 }
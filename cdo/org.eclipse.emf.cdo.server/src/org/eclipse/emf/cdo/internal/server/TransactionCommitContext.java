@@ -60,6 +60,7 @@ import org.eclipse.emf.cdo.spi.common.revision.CDOIDMapper;
 import org.eclipse.emf.cdo.spi.common.revision.CDOReferenceAdjuster;
 import org.eclipse.emf.cdo.spi.common.revision.DetachedCDORevision;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionDelta;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionManager;
 import org.eclipse.emf.cdo.spi.common.revision.StubCDORevision;
@@ -305,7 +306,7 @@ public class TransactionCommitContext implements InternalCommitContext
 
   private Map<CDOID, InternalCDORevision> cacheRevisions()
   {
-    Map<CDOID, InternalCDORevision> cache = new HashMap<CDOID, InternalCDORevision>();
+    Map<CDOID, InternalCDORevision> cache = CDOIDUtil.createMap();
     if (newObjects != null)
     {
       for (int i = 0; i < newObjects.length; i++)
@@ -734,7 +735,7 @@ public class TransactionCommitContext implements InternalCommitContext
       CDOFeatureDeltaVisitor deltaTargetLocker = null;
       if (ensuringReferentialIntegrity && !serializingCommits)
       {
-        final Set<CDOID> newIDs = new HashSet<CDOID>();
+        final Set<CDOID> newIDs = CDOIDUtil.createSet(newObjects.length);
         for (int i = 0; i < newObjects.length; i++)
         {
           InternalCDORevision newRevision = newObjects[i];
@@ -1268,11 +1269,16 @@ public class TransactionCommitContext implements InternalCommitContext
     {
       monitor.begin(cachedDetachedRevisions.length);
       long revised = getBranchPoint().getTimeStamp() - 1;
+      InternalCDORevisionCache cache = revisionManager.getCache();
       for (InternalCDORevision revision : cachedDetachedRevisions)
       {
         if (revision != null)
         {
           revision.setRevised(revised);
+          if (cache instanceof InternalCDORevisionCache.Copying)
+          {
+            ((InternalCDORevisionCache.Copying)cache).reviseRevision(revision);
+          }
         }
 
         monitor.worked();
@@ -1499,9 +1505,9 @@ public class TransactionCommitContext implements InternalCommitContext
   {
     private Map<EClass, List<EReference>> sourceCandidates = new HashMap<EClass, List<EReference>>();
 
-    private Set<CDOID> detachedIDs = new HashSet<CDOID>();
+    private Set<CDOID> detachedIDs = CDOIDUtil.createSet();
 
-    private Set<CDOID> dirtyIDs = new HashSet<CDOID>();
+    private Set<CDOID> dirtyIDs = CDOIDUtil.createSet();
 
     private List<CDOIDReference> result = new ArrayList<CDOIDReference>();
 
@@ -13,6 +13,7 @@ package org.eclipse.emf.cdo.internal.server.bundle;
 import org.eclipse.emf.cdo.common.lock.IDurableLockingManager;
 import org.eclipse.emf.cdo.common.lock.IDurableLockingManager.LockArea;
 import org.eclipse.emf.cdo.common.util.CDOCommonUtil;
+import org.eclipse.emf.cdo.internal.server.QueryManager;
 import org.eclipse.emf.cdo.server.CDOServerExporter;
 import org.eclipse.emf.cdo.server.CDOServerImporter;
 import org.eclipse.emf.cdo.server.CDOServerUtil;
@@ -39,11 +40,17 @@ import org.eclipse.osgi.framework.console.CommandProvider;
 
 import org.osgi.framework.BundleContext;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * @author Eike Stepper
@@ -54,6 +61,11 @@ public class CDOCommandProvider implements CommandProvider
 
   private static final String INDENT = "   "; //$NON-NLS-1$
 
+  /**
+   * The object name prefix of the signal metrics MBeans that the Net4j server protocol registers per session.
+   */
+  private static final String SIGNAL_METRICS_NAME = "org.eclipse.emf.cdo:type=SignalMetrics,repository="; //$NON-NLS-1$
+
   public CDOCommandProvider(BundleContext bundleContext)
   {
     bundleContext.registerService(CommandProvider.class.getName(), this, null);
@@ -69,6 +81,8 @@ public class CDOCommandProvider implements CommandProvider
     buffer.append(INDENT + "cdo export - export the contents of a repository to an XML file" + NEW_LINE);
     buffer.append(INDENT + "cdo import - import the contents of a repository from an XML file" + NEW_LINE);
     buffer.append(INDENT + "cdo sessions - dump the sessions of a repository" + NEW_LINE);
+    buffer.append(INDENT + "cdo signals - dump the signal metrics of the sessions of a repository" + NEW_LINE);
+    buffer.append(INDENT + "cdo queries - dump the query scheduling metrics of a repository" + NEW_LINE);
     buffer.append(INDENT + "cdo packages - dump the packages of a repository" + NEW_LINE);
     buffer.append(INDENT + "cdo branches - dump the branches of a repository" + NEW_LINE);
     buffer.append(INDENT + "cdo locks - dump the durable locking areas of a repository" + NEW_LINE);
@@ -117,6 +131,18 @@ public class CDOCommandProvider implements CommandProvider
         return null;
       }
 
+      if ("signals".equals(cmd))
+      {
+        signals(interpreter);
+        return null;
+      }
+
+      if ("queries".equals(cmd))
+      {
+        queries(interpreter);
+        return null;
+      }
+
       if ("packages".equals(cmd))
       {
         packages(interpreter);
@@ -254,6 +280,51 @@ public class CDOCommandProvider implements CommandProvider
     }
   }
 
+  protected void signals(CommandInterpreter interpreter) throws Exception
+  {
+    InternalRepository repository = getRepository(interpreter, "Syntax: cdo signals <repository-name>");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName pattern = new ObjectName(SIGNAL_METRICS_NAME + ObjectName.quote(repository.getName()) + ",*");
+
+    ObjectName[] names = server.queryNames(pattern, null).toArray(new ObjectName[0]);
+    Arrays.sort(names, new Comparator<ObjectName>()
+    {
+      public int compare(ObjectName n1, ObjectName n2)
+      {
+        return Integer.parseInt(n1.getKeyProperty("session")) - Integer.parseInt(n2.getKeyProperty("session"));
+      }
+    });
+
+    for (ObjectName name : names)
+    {
+      interpreter.println("Session " + name.getKeyProperty("session"));
+      for (String signal : (String[])server.getAttribute(name, "Signals"))
+      {
+        interpreter.println(INDENT + signal);
+      }
+    }
+  }
+
+  protected void queries(CommandInterpreter interpreter)
+  {
+    InternalRepository repository = getRepository(interpreter, "Syntax: cdo queries <repository-name>");
+    if (!(repository.getQueryManager() instanceof QueryManager))
+    {
+      throw new CommandException("No query metrics available: " + repository.getName());
+    }
+
+    QueryManager queryManager = (QueryManager)repository.getQueryManager();
+    long started = queryManager.getStartedQueryCount();
+    long totalWaitTime = queryManager.getTotalWaitTime();
+    interpreter.println("Running:      " + queryManager.getRunningQueryCount() + " of "
+        + queryManager.getMaxRunningQueries());
+    interpreter.println("Waiting:      " + queryManager.getWaitingQueryCount());
+    interpreter.println("Started:      " + started);
+    interpreter.println("Rejected:     " + queryManager.getRejectedQueryCount());
+    interpreter.println("Average wait: " + (started == 0 ? 0 : totalWaitTime / started) + " ms");
+    interpreter.println("Maximum wait: " + queryManager.getMaxWaitTime() + " ms");
+  }
+
   protected void packages(CommandInterpreter interpreter)
   {
     InternalRepository repository = getRepository(interpreter, "Syntax: cdo packages <repository-name>");
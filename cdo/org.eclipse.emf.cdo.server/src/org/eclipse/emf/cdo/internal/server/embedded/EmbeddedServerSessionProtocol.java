@@ -17,6 +17,7 @@ import org.eclipse.emf.cdo.common.lock.CDOLockChangeInfo;
 import org.eclipse.emf.cdo.session.remote.CDORemoteSessionMessage;
 import org.eclipse.emf.cdo.spi.common.CDOAuthenticationResult;
 import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranch;
+import org.eclipse.emf.cdo.spi.server.CommitNotificationInfo;
 import org.eclipse.emf.cdo.spi.server.ISessionProtocol;
 import org.eclipse.emf.cdo.spi.server.InternalRepository;
 import org.eclipse.emf.cdo.spi.server.InternalSession;
@@ -93,6 +94,11 @@ public class EmbeddedServerSessionProtocol extends Lifecycle implements ISession
     clientSession.handleCommitNotification(commitInfo);
   }
 
+  public void sendCommitNotification(CommitNotificationInfo notificationInfo)
+  {
+    sendCommitNotification((CDOCommitInfo)notificationInfo);
+  }
+
   public void sendLockNotification(CDOLockChangeInfo lockChangeInfo)
   {
     EmbeddedClientSession clientSession = clientSessionProtocol.getSession();
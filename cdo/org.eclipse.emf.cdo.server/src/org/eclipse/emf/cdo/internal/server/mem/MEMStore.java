@@ -84,6 +84,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock.ReadLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 
 /**
  * @author Simon McDuff
@@ -106,7 +109,7 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
 
   private List<CommitInfo> commitInfos = new ArrayList<CommitInfo>();
 
-  private Map<CDOID, EClass> objectTypes = new HashMap<CDOID, EClass>();
+  private Map<CDOID, EClass> objectTypes = CDOIDUtil.createMap();
 
   private Map<String, LockArea> lockAreas = new HashMap<String, LockArea>();
 
@@ -114,6 +117,29 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
 
   private int listLimit;
 
+  /**
+   * The list keys of all resource nodes, by folder ID and name. A key stays indexed under a folder ID and name as long
+   * as one of the revisions in its list has them, so queries must check the revision at the requested branch point.
+   */
+  private Map<CDOID, Map<String, Set<Object>>> resourceNodes = new HashMap<CDOID, Map<String, Set<Object>>>();
+
+  /**
+   * The list keys of all revision lists that reference a target ID. A key stays indexed under a target ID as long as
+   * one of the revisions in its list references it, so queries must check the revision at the requested branch point.
+   */
+  private Map<CDOID, Set<Object>> xRefs = new HashMap<CDOID, Set<Object>>();
+
+  /**
+   * The list keys of all revision lists, by EClass.
+   */
+  private Map<EClass, Set<Object>> extents = new HashMap<EClass, Set<Object>>();
+
+  private ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+  private ReadLock readLock = rwLock.readLock();
+
+  private WriteLock writeLock = rwLock.writeLock();
+
   @ExcludeFromDump
   private transient EStructuralFeature resourceNameFeature;
 
@@ -166,131 +192,232 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     super.ensureLastObjectID(id);
   }
 
-  public synchronized Map<String, String> getPersistentProperties(Set<String> names)
+  public Map<String, String> getPersistentProperties(Set<String> names)
   {
-    if (names == null || names.isEmpty())
-    {
-      return new HashMap<String, String>(properties);
-    }
+    readLock.lock();
 
-    Map<String, String> result = new HashMap<String, String>();
-    for (String name : names)
+    try
     {
-      String value = properties.get(name);
-      if (value != null)
+      if (names == null || names.isEmpty())
       {
-        result.put(name, value);
+        return new HashMap<String, String>(properties);
       }
-    }
 
-    return result;
+      Map<String, String> result = new HashMap<String, String>();
+      for (String name : names)
+      {
+        String value = properties.get(name);
+        if (value != null)
+        {
+          result.put(name, value);
+        }
+      }
+
+      return result;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized void setPersistentProperties(Map<String, String> properties)
+  public void setPersistentProperties(Map<String, String> properties)
   {
-    this.properties.putAll(properties);
+    writeLock.lock();
+
+    try
+    {
+      this.properties.putAll(properties);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized void removePersistentProperties(Set<String> names)
+  public void removePersistentProperties(Set<String> names)
   {
-    for (String name : names)
+    writeLock.lock();
+
+    try
+    {
+      for (String name : names)
+      {
+        properties.remove(name);
+      }
+    }
+    finally
     {
-      properties.remove(name);
+      writeLock.unlock();
     }
   }
 
-  public synchronized Pair<Integer, Long> createBranch(int branchID, BranchInfo branchInfo)
+  public Pair<Integer, Long> createBranch(int branchID, BranchInfo branchInfo)
   {
-    if (branchID == NEW_BRANCH)
+    writeLock.lock();
+
+    try
     {
-      branchID = ++lastBranchID;
+      if (branchID == NEW_BRANCH)
+      {
+        branchID = ++lastBranchID;
+      }
+      else if (branchID == NEW_LOCAL_BRANCH)
+      {
+        branchID = --lastLocalBranchID;
+      }
+
+      branchInfos.put(branchID, branchInfo);
+      return new Pair<Integer, Long>(branchID, branchInfo.getBaseTimeStamp());
     }
-    else if (branchID == NEW_LOCAL_BRANCH)
+    finally
     {
-      branchID = --lastLocalBranchID;
+      writeLock.unlock();
     }
-
-    branchInfos.put(branchID, branchInfo);
-    return new Pair<Integer, Long>(branchID, branchInfo.getBaseTimeStamp());
   }
 
-  public synchronized BranchInfo loadBranch(int branchID)
+  public BranchInfo loadBranch(int branchID)
   {
-    return branchInfos.get(branchID);
+    readLock.lock();
+
+    try
+    {
+      return branchInfos.get(branchID);
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized SubBranchInfo[] loadSubBranches(int branchID)
+  public SubBranchInfo[] loadSubBranches(int branchID)
   {
-    List<SubBranchInfo> result = new ArrayList<SubBranchInfo>();
-    for (Entry<Integer, BranchInfo> entry : branchInfos.entrySet())
+    readLock.lock();
+
+    try
     {
-      BranchInfo branchInfo = entry.getValue();
-      if (branchInfo.getBaseBranchID() == branchID)
+      List<SubBranchInfo> result = new ArrayList<SubBranchInfo>();
+      for (Entry<Integer, BranchInfo> entry : branchInfos.entrySet())
       {
-        int id = entry.getKey();
-        result.add(new SubBranchInfo(id, branchInfo.getName(), branchInfo.getBaseTimeStamp()));
+        BranchInfo branchInfo = entry.getValue();
+        if (branchInfo.getBaseBranchID() == branchID)
+        {
+          int id = entry.getKey();
+          result.add(new SubBranchInfo(id, branchInfo.getName(), branchInfo.getBaseTimeStamp()));
+        }
       }
-    }
 
-    return result.toArray(new SubBranchInfo[result.size()]);
+      return result.toArray(new SubBranchInfo[result.size()]);
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized int loadBranches(int startID, int endID, CDOBranchHandler handler)
+  public int loadBranches(int startID, int endID, CDOBranchHandler handler)
   {
-    int count = 0;
-    InternalCDOBranchManager branchManager = getRepository().getBranchManager();
-    for (Entry<Integer, BranchInfo> entry : branchInfos.entrySet())
+    readLock.lock();
+
+    try
     {
-      int id = entry.getKey();
-      if (startID <= id && (id <= endID || endID == 0))
+      int count = 0;
+      InternalCDOBranchManager branchManager = getRepository().getBranchManager();
+      for (Entry<Integer, BranchInfo> entry : branchInfos.entrySet())
       {
-        BranchInfo branchInfo = entry.getValue();
-        InternalCDOBranch branch = branchManager.getBranch(id, branchInfo);
-        handler.handleBranch(branch);
-        ++count;
+        int id = entry.getKey();
+        if (startID <= id && (id <= endID || endID == 0))
+        {
+          BranchInfo branchInfo = entry.getValue();
+          InternalCDOBranch branch = branchManager.getBranch(id, branchInfo);
+          handler.handleBranch(branch);
+          ++count;
+        }
       }
-    }
 
-    return count;
+      return count;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized void loadCommitInfos(CDOBranch branch, long startTime, long endTime, CDOCommitInfoHandler handler)
+  public void loadCommitInfos(CDOBranch branch, long startTime, long endTime, CDOCommitInfoHandler handler)
   {
-    InternalCDOCommitInfoManager manager = getRepository().getCommitInfoManager();
-    for (int i = 0; i < commitInfos.size(); i++)
+    readLock.lock();
+
+    try
     {
-      CommitInfo info = commitInfos.get(i);
-      if (startTime != CDOBranchPoint.UNSPECIFIED_DATE && info.getTimeStamp() < startTime)
+      InternalCDOCommitInfoManager manager = getRepository().getCommitInfoManager();
+      int start = startTime != CDOBranchPoint.UNSPECIFIED_DATE ? getCommitInfoIndex(startTime) : 0;
+      for (int i = start; i < commitInfos.size(); i++)
       {
-        continue;
+        CommitInfo info = commitInfos.get(i);
+        if (endTime != CDOBranchPoint.UNSPECIFIED_DATE && info.getTimeStamp() > endTime)
+        {
+          // The commit infos are sorted by time stamp
+          break;
+        }
+
+        if (branch != null && !ObjectUtil.equals(info.getBranch(), branch))
+        {
+          continue;
+        }
+
+        info.handle(manager, handler);
       }
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
 
-      if (endTime != CDOBranchPoint.UNSPECIFIED_DATE && info.getTimeStamp() > endTime)
+  /**
+   * Returns the index of the first commit info with a time stamp that is not less than the given time stamp.
+   */
+  private int getCommitInfoIndex(long timeStamp)
+  {
+    int low = 0;
+    int high = commitInfos.size();
+    while (low < high)
+    {
+      int mid = low + high >>> 1;
+      if (commitInfos.get(mid).getTimeStamp() < timeStamp)
       {
-        continue;
+        low = mid + 1;
       }
-
-      if (branch != null && !ObjectUtil.equals(info.getBranch(), branch))
+      else
       {
-        continue;
+        high = mid;
       }
-
-      info.handle(manager, handler);
     }
+
+    return low;
   }
 
-  public synchronized Set<CDOID> readChangeSet(CDOChangeSetSegment[] segments)
+  public Set<CDOID> readChangeSet(CDOChangeSetSegment[] segments)
   {
-    Set<CDOID> ids = new HashSet<CDOID>();
-    for (CDOChangeSetSegment segment : segments)
+    readLock.lock();
+
+    try
     {
-      for (List<InternalCDORevision> list : revisions.values())
+      Set<CDOID> ids = CDOIDUtil.createSet();
+      for (CDOChangeSetSegment segment : segments)
       {
-        readChangeSet(segment, list, ids);
+        for (List<InternalCDORevision> list : revisions.values())
+        {
+          readChangeSet(segment, list, ids);
+        }
       }
-    }
 
-    return ids;
+      return ids;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
   private void readChangeSet(CDOChangeSetSegment segment, List<InternalCDORevision> list, Set<CDOID> ids)
@@ -323,19 +450,38 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     }
   }
 
-  public synchronized void handleRevisions(EClass eClass, CDOBranch branch, long timeStamp, boolean exactTime,
+  public void handleRevisions(EClass eClass, CDOBranch branch, long timeStamp, boolean exactTime,
       CDORevisionHandler handler)
   {
-    for (List<InternalCDORevision> list : revisions.values())
+    readLock.lock();
+
+    try
     {
-      for (InternalCDORevision revision : list)
+      Collection<List<InternalCDORevision>> lists;
+      if (eClass != null)
       {
-        if (!handleRevision(revision, eClass, branch, timeStamp, exactTime, handler))
+        lists = getLists(extents.get(eClass));
+      }
+      else
+      {
+        lists = revisions.values();
+      }
+
+      for (List<InternalCDORevision> list : lists)
+      {
+        for (InternalCDORevision revision : list)
         {
-          return;
+          if (!handleRevision(revision, eClass, branch, timeStamp, exactTime, handler))
+          {
+            return;
+          }
         }
       }
     }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
   private boolean handleRevision(InternalCDORevision revision, EClass eClass, CDOBranch branch, long timeStamp,
@@ -372,6 +518,17 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     return handler.handleRevision(revision);
   }
 
+  /**
+   * Returns the lock that guards the data of this store. Readers share the read lock, while writers hold the write lock
+   * exclusively.
+   *
+   * @since 4.2
+   */
+  public ReentrantReadWriteLock getLock()
+  {
+    return rwLock;
+  }
+
   /**
    * @since 2.0
    */
@@ -383,52 +540,124 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
   /**
    * @since 2.0
    */
-  public synchronized void setListLimit(int listLimit)
+  public void setListLimit(int listLimit)
   {
-    if (listLimit != UNLIMITED && this.listLimit != listLimit)
+    writeLock.lock();
+
+    try
     {
-      for (List<InternalCDORevision> list : revisions.values())
+      boolean changed = this.listLimit != listLimit;
+      this.listLimit = listLimit;
+
+      if (listLimit != UNLIMITED && changed)
       {
-        enforceListLimit(list);
+        for (Entry<Object, List<InternalCDORevision>> entry : new ArrayList<Entry<Object, List<InternalCDORevision>>>(
+            revisions.entrySet()))
+        {
+          enforceListLimit(entry.getKey(), entry.getValue());
+        }
       }
     }
-
-    this.listLimit = listLimit;
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
   /**
    * @since 2.0
    */
-  public synchronized List<InternalCDORevision> getCurrentRevisions()
+  public List<InternalCDORevision> getCurrentRevisions()
   {
-    ArrayList<InternalCDORevision> simpleRevisions = new ArrayList<InternalCDORevision>();
-    Iterator<List<InternalCDORevision>> itr = revisions.values().iterator();
-    while (itr.hasNext())
+    readLock.lock();
+
+    try
     {
-      List<InternalCDORevision> list = itr.next();
-      InternalCDORevision revision = list.get(list.size() - 1);
-      simpleRevisions.add(revision);
-    }
+      ArrayList<InternalCDORevision> simpleRevisions = new ArrayList<InternalCDORevision>();
+      Iterator<List<InternalCDORevision>> itr = revisions.values().iterator();
+      while (itr.hasNext())
+      {
+        List<InternalCDORevision> list = itr.next();
+        InternalCDORevision revision = list.get(list.size() - 1);
+        simpleRevisions.add(revision);
+      }
 
-    return simpleRevisions;
+      return simpleRevisions;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized InternalCDORevision getRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
+  public InternalCDORevision getRevisionByVersion(CDOID id, CDOBranchVersion branchVersion)
   {
-    Object listKey = getListKey(id, branchVersion.getBranch());
-    List<InternalCDORevision> list = revisions.get(listKey);
-    if (list == null)
+    readLock.lock();
+
+    try
     {
-      return null;
-    }
+      Object listKey = getListKey(id, branchVersion.getBranch());
+      List<InternalCDORevision> list = revisions.get(listKey);
+      if (list == null)
+      {
+        return null;
+      }
 
-    return getRevisionByVersion(list, branchVersion.getVersion());
+      return getRevisionByVersion(list, branchVersion.getVersion());
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
   /**
    * @since 2.0
    */
-  public synchronized InternalCDORevision getRevision(CDOID id, CDOBranchPoint branchPoint)
+  public InternalCDORevision getRevision(CDOID id, CDOBranchPoint branchPoint)
+  {
+    readLock.lock();
+
+    try
+    {
+      return readRevision(id, branchPoint);
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Looks up the revisions of all given IDs while acquiring the read lock of this store only once.
+   *
+   * @since 4.2
+   */
+  public Map<CDOID, InternalCDORevision> getRevisions(Collection<CDOID> ids, CDOBranchPoint branchPoint)
+  {
+    readLock.lock();
+
+    try
+    {
+      Map<CDOID, InternalCDORevision> result = CDOIDUtil.createMap();
+      for (CDOID id : ids)
+      {
+        InternalCDORevision revision = readRevision(id, branchPoint);
+        if (revision != null)
+        {
+          result.put(id, revision);
+        }
+      }
+
+      return result;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  private InternalCDORevision readRevision(CDOID id, CDOBranchPoint branchPoint)
   {
     Object listKey = getListKey(id, branchPoint.getBranch());
     if (branchPoint.getTimeStamp() == CDORevision.UNSPECIFIED_DATE)
@@ -456,492 +685,698 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     return getRevision(list, branchPoint);
   }
 
-  public synchronized void addRevision(InternalCDORevision revision, boolean raw)
+  public void addRevision(InternalCDORevision revision, boolean raw)
   {
-    Object listKey = getListKey(revision.getID(), revision.getBranch());
-    List<InternalCDORevision> list = revisions.get(listKey);
-    if (list == null)
+    writeLock.lock();
+
+    try
     {
-      list = new ArrayList<InternalCDORevision>();
-      revisions.put(listKey, list);
-    }
+      Object listKey = getListKey(revision.getID(), revision.getBranch());
+      List<InternalCDORevision> list = revisions.get(listKey);
+      if (list == null)
+      {
+        list = new ArrayList<InternalCDORevision>();
+        revisions.put(listKey, list);
+      }
 
-    addRevision(list, revision, raw);
+      addRevision(listKey, list, revision, raw);
 
-    if (raw)
+      if (raw)
+      {
+        ensureLastObjectID(revision.getID());
+      }
+    }
+    finally
     {
-      ensureLastObjectID(revision.getID());
+      writeLock.unlock();
     }
   }
 
-  public synchronized void addCommitInfo(CDOBranch branch, long timeStamp, long previousTimeStamp, String userID,
-      String comment)
+  public void addCommitInfo(CDOBranch branch, long timeStamp, long previousTimeStamp, String userID, String comment)
   {
-    int index = commitInfos.size() - 1;
-    while (index >= 0)
+    writeLock.lock();
+
+    try
     {
-      CommitInfo info = commitInfos.get(index);
-      if (timeStamp > info.getTimeStamp())
+      int index = commitInfos.size() - 1;
+      while (index >= 0)
       {
-        break;
+        CommitInfo info = commitInfos.get(index);
+        if (timeStamp > info.getTimeStamp())
+        {
+          break;
+        }
+
+        --index;
       }
 
-      --index;
+      CommitInfo commitInfo = new CommitInfo(branch, timeStamp, previousTimeStamp, userID, comment);
+      commitInfos.add(index + 1, commitInfo);
+    }
+    finally
+    {
+      writeLock.unlock();
     }
-
-    CommitInfo commitInfo = new CommitInfo(branch, timeStamp, previousTimeStamp, userID, comment);
-    commitInfos.add(index + 1, commitInfo);
   }
 
   /**
    * @since 2.0
    */
-  public synchronized boolean rollbackRevision(InternalCDORevision revision)
+  public boolean rollbackRevision(InternalCDORevision revision)
   {
-    CDOID id = revision.getID();
-    CDOBranch branch = revision.getBranch();
-    int version = revision.getVersion();
+    writeLock.lock();
 
-    Object listKey = getListKey(id, branch);
-    List<InternalCDORevision> list = revisions.get(listKey);
-    if (list == null)
+    try
     {
-      return false;
-    }
+      CDOID id = revision.getID();
+      CDOBranch branch = revision.getBranch();
+      int version = revision.getVersion();
 
-    for (Iterator<InternalCDORevision> it = list.iterator(); it.hasNext();)
-    {
-      InternalCDORevision rev = it.next();
-      if (rev.getVersion() == version)
+      Object listKey = getListKey(id, branch);
+      List<InternalCDORevision> list = revisions.get(listKey);
+      if (list == null)
       {
-        it.remove();
-        return true;
+        return false;
       }
-      else if (rev.getVersion() == version - 1)
+
+      for (Iterator<InternalCDORevision> it = list.iterator(); it.hasNext();)
       {
-        rev.setRevised(CDORevision.UNSPECIFIED_DATE);
+        InternalCDORevision rev = it.next();
+        if (rev.getVersion() == version)
+        {
+          it.remove();
+          unindexRevision(listKey, list, rev);
+          return true;
+        }
+        else if (rev.getVersion() == version - 1)
+        {
+          rev.setRevised(CDORevision.UNSPECIFIED_DATE);
+        }
       }
-    }
 
-    return false;
+      return false;
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
   /**
    * @since 3.0
    */
-  public synchronized DetachedCDORevision detachObject(CDOID id, CDOBranch branch, long timeStamp)
+  public DetachedCDORevision detachObject(CDOID id, CDOBranch branch, long timeStamp)
   {
-    Object listKey = getListKey(id, branch);
-    List<InternalCDORevision> list = revisions.get(listKey);
-    if (list != null)
+    writeLock.lock();
+
+    try
     {
-      InternalCDORevision revision = getRevision(list, branch.getHead());
-      if (revision != null)
+      Object listKey = getListKey(id, branch);
+      List<InternalCDORevision> list = revisions.get(listKey);
+      if (list != null)
       {
-        revision.setRevised(timeStamp - 1);
+        InternalCDORevision revision = getRevision(list, branch.getHead());
+        if (revision != null)
+        {
+          revision.setRevised(timeStamp - 1);
+        }
       }
-    }
 
-    int version;
-    if (list == null)
-    {
-      list = new ArrayList<InternalCDORevision>();
-      revisions.put(listKey, list);
-      version = CDOBranchVersion.FIRST_VERSION;
+      int version;
+      if (list == null)
+      {
+        list = new ArrayList<InternalCDORevision>();
+        revisions.put(listKey, list);
+        version = CDOBranchVersion.FIRST_VERSION;
+      }
+      else
+      {
+        version = getHighestVersion(list) + 1;
+      }
+
+      EClass eClass = getObjectType(id);
+      DetachedCDORevision detached = new DetachedCDORevision(eClass, id, branch, version, timeStamp);
+      addRevision(listKey, list, detached, false);
+      return detached;
     }
-    else
+    finally
     {
-      version = getHighestVersion(list) + 1;
+      writeLock.unlock();
     }
-
-    EClass eClass = getObjectType(id);
-    DetachedCDORevision detached = new DetachedCDORevision(eClass, id, branch, version, timeStamp);
-    addRevision(list, detached, false);
-    return detached;
   }
 
   /**
    * @since 2.0
    */
-  public synchronized void queryResources(IStoreAccessor.QueryResourcesContext context)
+  public void queryResources(IStoreAccessor.QueryResourcesContext context)
   {
-    CDOID folderID = context.getFolderID();
-    String name = context.getName();
-    boolean exactMatch = context.exactMatch();
-    for (Entry<Object, List<InternalCDORevision>> entry : revisions.entrySet())
+    readLock.lock();
+
+    try
     {
-      CDOBranch branch = getBranch(entry.getKey());
-      if (!ObjectUtil.equals(branch, context.getBranch()))
-      {
-        continue;
-      }
+      CDOID folderID = context.getFolderID();
+      String name = context.getName();
+      boolean exactMatch = context.exactMatch();
 
-      List<InternalCDORevision> list = entry.getValue();
-      if (list.isEmpty())
+      Map<String, Set<Object>> names = resourceNodes.get(getFolderKey(folderID));
+      if (names == null)
       {
-        continue;
+        return;
       }
 
-      InternalCDORevision revision = list.get(0);
-      if (revision instanceof SyntheticCDORevision)
+      Collection<Object> listKeys;
+      if (exactMatch || name == null)
       {
-        continue;
+        listKeys = names.get(name);
+        if (listKeys == null)
+        {
+          return;
+        }
       }
-
-      if (!revision.isResourceNode())
+      else
       {
-        continue;
+        // A renamed node can be indexed under several matching names
+        listKeys = new HashSet<Object>();
+        for (Entry<String, Set<Object>> entry : names.entrySet())
+        {
+          String indexedName = entry.getKey();
+          if (indexedName != null && indexedName.startsWith(name))
+          {
+            listKeys.addAll(entry.getValue());
+          }
+        }
       }
 
-      revision = getRevision(list, context);
-      if (revision == null || revision instanceof DetachedCDORevision)
+      for (Object listKey : listKeys)
       {
-        continue;
-      }
+        CDOBranch branch = getBranch(listKey);
+        if (!ObjectUtil.equals(branch, context.getBranch()))
+        {
+          continue;
+        }
 
-      CDOID revisionFolder = (CDOID)revision.data().getContainerID();
-      if (!CDOIDUtil.equals(revisionFolder, folderID))
-      {
-        continue;
-      }
+        List<InternalCDORevision> list = revisions.get(listKey);
+        InternalCDORevision revision = getRevision(list, context);
+        if (revision == null || revision instanceof DetachedCDORevision)
+        {
+          continue;
+        }
 
-      String revisionName = (String)revision.data().get(resourceNameFeature, 0);
-      boolean useEquals = exactMatch || revisionName == null || name == null;
-      boolean match = useEquals ? ObjectUtil.equals(revisionName, name) : revisionName.startsWith(name);
+        // The index may be outdated, so the current state of the node must be checked
+        CDOID revisionFolder = (CDOID)revision.data().getContainerID();
+        if (!CDOIDUtil.equals(revisionFolder, folderID))
+        {
+          continue;
+        }
 
-      if (match)
-      {
-        if (!context.addResource(revision.getID()))
+        String revisionName = (String)revision.data().get(resourceNameFeature, 0);
+        boolean useEquals = exactMatch || revisionName == null || name == null;
+        boolean match = useEquals ? ObjectUtil.equals(revisionName, name) : revisionName.startsWith(name);
+
+        if (match)
         {
-          // No more results allowed
-          break;
+          if (!context.addResource(revision.getID()))
+          {
+            // No more results allowed
+            break;
+          }
         }
       }
     }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized void queryXRefs(QueryXRefsContext context)
+  public void queryXRefs(QueryXRefsContext context)
   {
-    Set<CDOID> targetIDs = context.getTargetObjects().keySet();
-    Map<EClass, List<EReference>> sourceCandidates = context.getSourceCandidates();
+    readLock.lock();
 
-    for (Entry<Object, List<InternalCDORevision>> entry : revisions.entrySet())
+    try
     {
-      CDOBranch branch = getBranch(entry.getKey());
-      if (!ObjectUtil.equals(branch, context.getBranch()))
-      {
-        continue;
-      }
+      Set<CDOID> targetIDs = context.getTargetObjects().keySet();
+      Map<EClass, List<EReference>> sourceCandidates = context.getSourceCandidates();
 
-      List<InternalCDORevision> list = entry.getValue();
-      if (list.isEmpty())
+      Set<Object> listKeys = new HashSet<Object>();
+      for (CDOID targetID : targetIDs)
       {
-        continue;
+        Set<Object> sourceKeys = xRefs.get(targetID);
+        if (sourceKeys != null)
+        {
+          listKeys.addAll(sourceKeys);
+        }
       }
 
-      InternalCDORevision revision = getRevision(list, context);
-      if (revision == null || revision instanceof SyntheticCDORevision)
+      for (Object listKey : listKeys)
       {
-        continue;
-      }
+        CDOBranch branch = getBranch(listKey);
+        if (!ObjectUtil.equals(branch, context.getBranch()))
+        {
+          continue;
+        }
 
-      EClass eClass = revision.getEClass();
-      CDOID sourceID = revision.getID();
+        List<InternalCDORevision> list = revisions.get(listKey);
+        InternalCDORevision revision = getRevision(list, context);
+        if (revision == null || revision instanceof SyntheticCDORevision)
+        {
+          continue;
+        }
 
-      List<EReference> eReferences = sourceCandidates.get(eClass);
-      if (eReferences != null)
-      {
-        for (EReference eReference : eReferences)
+        EClass eClass = revision.getEClass();
+        CDOID sourceID = revision.getID();
+
+        List<EReference> eReferences = sourceCandidates.get(eClass);
+        if (eReferences != null)
         {
-          Object value = revision.getValue(eReference);
-          if (value != null)
+          for (EReference eReference : eReferences)
           {
-            if (eReference.isMany())
+            Object value = revision.getValue(eReference);
+            if (value != null)
             {
-              @SuppressWarnings("unchecked")
-              List<CDOID> ids = (List<CDOID>)value;
-              int index = 0;
-              for (CDOID id : ids)
+              if (eReference.isMany())
               {
-                if (!queryXRefs(context, targetIDs, id, sourceID, eReference, index++))
+                @SuppressWarnings("unchecked")
+                List<CDOID> ids = (List<CDOID>)value;
+                int index = 0;
+                for (CDOID id : ids)
                 {
-                  return;
+                  if (!queryXRefs(context, targetIDs, id, sourceID, eReference, index++))
+                  {
+                    return;
+                  }
                 }
               }
-            }
-            else
-            {
-              CDOID id = (CDOID)value;
-              if (!queryXRefs(context, targetIDs, id, sourceID, eReference, 0))
+              else
               {
-                return;
+                CDOID id = (CDOID)value;
+                if (!queryXRefs(context, targetIDs, id, sourceID, eReference, 0))
+                {
+                  return;
+                }
               }
             }
           }
         }
       }
     }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
   private boolean queryXRefs(QueryXRefsContext context, Set<CDOID> targetIDs, CDOID targetID, CDOID sourceID,
       EReference sourceReference, int index)
   {
-    for (CDOID id : targetIDs)
+    if (targetIDs.contains(targetID))
     {
-      if (id.equals(targetID))
+      if (!context.addXRef(targetID, sourceID, sourceReference, index))
       {
-        if (!context.addXRef(targetID, sourceID, sourceReference, index))
-        {
-          // No more results allowed
-          return false;
-        }
+        // No more results allowed
+        return false;
       }
     }
 
     return true;
   }
 
-  public synchronized void rawExport(CDODataOutput out, int fromBranchID, int toBranchID, long fromCommitTime,
-      long toCommitTime)
+  public void rawExport(CDODataOutput out, int fromBranchID, int toBranchID, long fromCommitTime, long toCommitTime)
   {
     // TODO: implement MEMStore.rawExport(out, fromBranchID, toBranchID, fromCommitTime, toCommitTime)
     throw new UnsupportedOperationException();
   }
 
-  public synchronized void rawImport(CDODataInput in, int fromBranchID, int toBranchID, long fromCommitTime,
-      long toCommitTime, OMMonitor monitor)
+  public void rawImport(CDODataInput in, int fromBranchID, int toBranchID, long fromCommitTime, long toCommitTime,
+      OMMonitor monitor)
   {
     // TODO: implement MEMStore.rawImport(in, fromBranchID, toBranchID, fromCommitTime, toCommitTime, monitor)
     throw new UnsupportedOperationException();
   }
 
-  public synchronized void rawDelete(CDOID id, int version, CDOBranch branch)
+  public void rawDelete(CDOID id, int version, CDOBranch branch)
   {
-    Object listKey = getListKey(id, branch);
-    List<InternalCDORevision> list = revisions.get(listKey);
-    if (list != null)
+    writeLock.lock();
+
+    try
     {
-      for (Iterator<InternalCDORevision> it = list.iterator(); it.hasNext();)
+      Object listKey = getListKey(id, branch);
+      List<InternalCDORevision> list = revisions.get(listKey);
+      if (list != null)
       {
-        InternalCDORevision rev = it.next();
-        if (rev.getVersion() == version)
+        for (Iterator<InternalCDORevision> it = list.iterator(); it.hasNext();)
         {
-          it.remove();
-          break;
+          InternalCDORevision rev = it.next();
+          if (rev.getVersion() == version)
+          {
+            it.remove();
+            unindexRevision(listKey, list, rev);
+            break;
+          }
         }
       }
     }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized LockArea createLockArea(String userID, CDOBranchPoint branchPoint, boolean readOnly,
+  public LockArea createLockArea(String userID, CDOBranchPoint branchPoint, boolean readOnly,
       Map<CDOID, LockGrade> locks)
   {
-    return createLockArea(null, userID, branchPoint, readOnly, locks);
+    writeLock.lock();
+
+    try
+    {
+      return createLockArea(null, userID, branchPoint, readOnly, locks);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized LockArea createLockArea(String durableLockingID, String userID, CDOBranchPoint branchPoint,
-      boolean readOnly, Map<CDOID, LockGrade> locks)
+  public LockArea createLockArea(String durableLockingID, String userID, CDOBranchPoint branchPoint, boolean readOnly,
+      Map<CDOID, LockGrade> locks)
   {
-    if (durableLockingID != null)
+    writeLock.lock();
+
+    try
     {
-      // If the caller is specifying the ID, make sure there is no area with this ID yet
-      if (lockAreas.containsKey(durableLockingID))
+      if (durableLockingID != null)
+      {
+        // If the caller is specifying the ID, make sure there is no area with this ID yet
+        if (lockAreas.containsKey(durableLockingID))
+        {
+          throw new LockAreaAlreadyExistsException(durableLockingID);
+        }
+      }
+      else
       {
-        throw new LockAreaAlreadyExistsException(durableLockingID);
+        do
+        {
+          durableLockingID = CDOLockUtil.createDurableLockingID();
+        } while (lockAreas.containsKey(durableLockingID));
       }
+
+      LockArea area = CDOLockUtil.createLockArea(durableLockingID, userID, branchPoint, readOnly, locks);
+      lockAreas.put(durableLockingID, area);
+      return area;
     }
-    else
+    finally
     {
-      do
-      {
-        durableLockingID = CDOLockUtil.createDurableLockingID();
-      } while (lockAreas.containsKey(durableLockingID));
+      writeLock.unlock();
     }
-
-    LockArea area = CDOLockUtil.createLockArea(durableLockingID, userID, branchPoint, readOnly, locks);
-    lockAreas.put(durableLockingID, area);
-    return area;
   }
 
-  public synchronized void updateLockArea(LockArea lockArea)
+  public void updateLockArea(LockArea lockArea)
   {
-    String durableLockingID = lockArea.getDurableLockingID();
-    lockAreas.put(durableLockingID, lockArea);
+    writeLock.lock();
+
+    try
+    {
+      String durableLockingID = lockArea.getDurableLockingID();
+      lockAreas.put(durableLockingID, lockArea);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized LockArea getLockArea(String durableLockingID) throws LockAreaNotFoundException
+  public LockArea getLockArea(String durableLockingID) throws LockAreaNotFoundException
   {
-    LockArea area = lockAreas.get(durableLockingID);
-    if (area == null)
+    readLock.lock();
+
+    try
     {
-      throw new LockAreaNotFoundException(durableLockingID);
-    }
+      LockArea area = lockAreas.get(durableLockingID);
+      if (area == null)
+      {
+        throw new LockAreaNotFoundException(durableLockingID);
+      }
 
-    return area;
+      return area;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized void getLockAreas(String userIDPrefix, Handler handler)
+  public void getLockAreas(String userIDPrefix, Handler handler)
   {
-    for (LockArea area : lockAreas.values())
+    readLock.lock();
+
+    try
     {
-      String userID = area.getUserID();
-      if (userID == null || userID.startsWith(userIDPrefix))
+      for (LockArea area : lockAreas.values())
       {
-        if (!handler.handleLockArea(area))
+        String userID = area.getUserID();
+        if (userID == null || userID.startsWith(userIDPrefix))
         {
-          return;
+          if (!handler.handleLockArea(area))
+          {
+            return;
+          }
         }
       }
     }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized void deleteLockArea(String durableLockingID)
+  public void deleteLockArea(String durableLockingID)
   {
-    lockAreas.remove(durableLockingID);
+    writeLock.lock();
+
+    try
+    {
+      lockAreas.remove(durableLockingID);
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized void lock(String durableLockingID, LockType type, Collection<? extends Object> objectsToLock)
+  public void lock(String durableLockingID, LockType type, Collection<? extends Object> objectsToLock)
   {
-    LockArea area = getLockArea(durableLockingID);
-    Map<CDOID, LockGrade> locks = area.getLocks();
+    writeLock.lock();
 
-    InternalLockManager lockManager = getRepository().getLockingManager();
-    for (Object objectToLock : objectsToLock)
+    try
     {
-      CDOID id = lockManager.getLockKeyID(objectToLock);
-      LockGrade grade = locks.get(id);
-      if (grade != null)
-      {
-        grade = grade.getUpdated(type, true);
-      }
-      else
+      LockArea area = getLockArea(durableLockingID);
+      Map<CDOID, LockGrade> locks = area.getLocks();
+
+      InternalLockManager lockManager = getRepository().getLockingManager();
+      for (Object objectToLock : objectsToLock)
       {
-        grade = LockGrade.get(type);
-      }
+        CDOID id = lockManager.getLockKeyID(objectToLock);
+        LockGrade grade = locks.get(id);
+        if (grade != null)
+        {
+          grade = grade.getUpdated(type, true);
+        }
+        else
+        {
+          grade = LockGrade.get(type);
+        }
 
-      locks.put(id, grade);
+        locks.put(id, grade);
+      }
+    }
+    finally
+    {
+      writeLock.unlock();
     }
   }
 
-  public synchronized void unlock(String durableLockingID, LockType type, Collection<? extends Object> objectsToUnlock)
+  public void unlock(String durableLockingID, LockType type, Collection<? extends Object> objectsToUnlock)
   {
-    LockArea area = getLockArea(durableLockingID);
-    Map<CDOID, LockGrade> locks = area.getLocks();
+    writeLock.lock();
 
-    InternalLockManager lockManager = getRepository().getLockingManager();
-    for (Object objectToUnlock : objectsToUnlock)
+    try
     {
-      CDOID id = lockManager.getLockKeyID(objectToUnlock);
-      LockGrade grade = locks.get(id);
-      if (grade != null)
+      LockArea area = getLockArea(durableLockingID);
+      Map<CDOID, LockGrade> locks = area.getLocks();
+
+      InternalLockManager lockManager = getRepository().getLockingManager();
+      for (Object objectToUnlock : objectsToUnlock)
       {
-        grade = grade.getUpdated(type, false);
-        if (grade == LockGrade.NONE)
+        CDOID id = lockManager.getLockKeyID(objectToUnlock);
+        LockGrade grade = locks.get(id);
+        if (grade != null)
         {
-          locks.remove(id);
+          grade = grade.getUpdated(type, false);
+          if (grade == LockGrade.NONE)
+          {
+            locks.remove(id);
+          }
         }
       }
     }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized void unlock(String durableLockingID)
+  public void unlock(String durableLockingID)
   {
-    LockArea area = getLockArea(durableLockingID);
-    Map<CDOID, LockGrade> locks = area.getLocks();
-    locks.clear();
+    writeLock.lock();
+
+    try
+    {
+      LockArea area = getLockArea(durableLockingID);
+      Map<CDOID, LockGrade> locks = area.getLocks();
+      locks.clear();
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
-  public synchronized void queryLobs(List<byte[]> ids)
+  public void queryLobs(List<byte[]> ids)
   {
-    for (Iterator<byte[]> it = ids.iterator(); it.hasNext();)
+    readLock.lock();
+
+    try
     {
-      byte[] id = it.next();
-      String key = HexUtil.bytesToHex(id);
-      if (!lobs.containsKey(key))
+      for (Iterator<byte[]> it = ids.iterator(); it.hasNext();)
       {
-        it.remove();
+        byte[] id = it.next();
+        String key = HexUtil.bytesToHex(id);
+        if (!lobs.containsKey(key))
+        {
+          it.remove();
+        }
       }
     }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
   public void handleLobs(long fromTime, long toTime, CDOLobHandler handler) throws IOException
   {
-    for (Entry<String, Object> entry : lobs.entrySet())
+    readLock.lock();
+
+    try
     {
-      byte[] id = HexUtil.hexToBytes(entry.getKey());
-      Object lob = entry.getValue();
-      if (lob instanceof byte[])
+      for (Entry<String, Object> entry : lobs.entrySet())
       {
-        byte[] blob = (byte[])lob;
-        ByteArrayInputStream in = new ByteArrayInputStream(blob);
-        OutputStream out = handler.handleBlob(id, blob.length);
-        if (out != null)
+        byte[] id = HexUtil.hexToBytes(entry.getKey());
+        Object lob = entry.getValue();
+        if (lob instanceof byte[])
         {
-          try
+          byte[] blob = (byte[])lob;
+          ByteArrayInputStream in = new ByteArrayInputStream(blob);
+          OutputStream out = handler.handleBlob(id, blob.length);
+          if (out != null)
           {
-            IOUtil.copyBinary(in, out, blob.length);
+            try
+            {
+              IOUtil.copyBinary(in, out, blob.length);
+            }
+            finally
+            {
+              IOUtil.close(out);
+            }
           }
-          finally
+        }
+        else
+        {
+          char[] clob = (char[])lob;
+          CharArrayReader in = new CharArrayReader(clob);
+          Writer out = handler.handleClob(id, clob.length);
+          if (out != null)
           {
-            IOUtil.close(out);
+            try
+            {
+              IOUtil.copyCharacter(in, out, clob.length);
+            }
+            finally
+            {
+              IOUtil.close(out);
+            }
           }
         }
       }
+    }
+    finally
+    {
+      readLock.unlock();
+    }
+  }
+
+  public void loadLob(byte[] id, OutputStream out) throws IOException
+  {
+    readLock.lock();
+
+    try
+    {
+      String key = HexUtil.bytesToHex(id);
+      Object lob = lobs.get(key);
+      if (lob == null)
+      {
+        throw new IOException("Lob not found: " + key);
+      }
+
+      if (lob instanceof byte[])
+      {
+        byte[] blob = (byte[])lob;
+        ByteArrayInputStream in = new ByteArrayInputStream(blob);
+        IOUtil.copyBinary(in, out, blob.length);
+      }
       else
       {
         char[] clob = (char[])lob;
         CharArrayReader in = new CharArrayReader(clob);
-        Writer out = handler.handleClob(id, clob.length);
-        if (out != null)
-        {
-          try
-          {
-            IOUtil.copyCharacter(in, out, clob.length);
-          }
-          finally
-          {
-            IOUtil.close(out);
-          }
-        }
+        IOUtil.copyCharacter(in, new OutputStreamWriter(out), clob.length);
       }
     }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized void loadLob(byte[] id, OutputStream out) throws IOException
+  public void writeBlob(byte[] id, long size, InputStream inputStream) throws IOException
   {
-    String key = HexUtil.bytesToHex(id);
-    Object lob = lobs.get(key);
-    if (lob == null)
-    {
-      throw new IOException("Lob not found: " + key);
-    }
+    writeLock.lock();
 
-    if (lob instanceof byte[])
+    try
     {
-      byte[] blob = (byte[])lob;
-      ByteArrayInputStream in = new ByteArrayInputStream(blob);
-      IOUtil.copyBinary(in, out, blob.length);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      IOUtil.copyBinary(inputStream, out, size);
+      lobs.put(HexUtil.bytesToHex(id), out.toByteArray());
     }
-    else
+    finally
     {
-      char[] clob = (char[])lob;
-      CharArrayReader in = new CharArrayReader(clob);
-      IOUtil.copyCharacter(in, new OutputStreamWriter(out), clob.length);
+      writeLock.unlock();
     }
   }
 
-  public synchronized void writeBlob(byte[] id, long size, InputStream inputStream) throws IOException
+  public void writeClob(byte[] id, long size, Reader reader) throws IOException
   {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    IOUtil.copyBinary(inputStream, out, size);
-    lobs.put(HexUtil.bytesToHex(id), out.toByteArray());
-  }
+    writeLock.lock();
 
-  public synchronized void writeClob(byte[] id, long size, Reader reader) throws IOException
-  {
-    CharArrayWriter out = new CharArrayWriter();
-    IOUtil.copyCharacter(reader, out, size);
-    lobs.put(HexUtil.bytesToHex(id), out.toCharArray());
+    try
+    {
+      CharArrayWriter out = new CharArrayWriter();
+      IOUtil.copyCharacter(reader, out, size);
+      lobs.put(HexUtil.bytesToHex(id), out.toCharArray());
+    }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
   @Override
@@ -977,34 +1412,52 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     return true;
   }
 
-  public synchronized Map<CDOBranch, List<CDORevision>> getAllRevisions()
+  public Map<CDOBranch, List<CDORevision>> getAllRevisions()
   {
-    Map<CDOBranch, List<CDORevision>> result = new HashMap<CDOBranch, List<CDORevision>>();
-    InternalCDOBranchManager branchManager = getRepository().getBranchManager();
-    result.put(branchManager.getMainBranch(), new ArrayList<CDORevision>());
+    readLock.lock();
 
-    for (Integer branchID : branchInfos.keySet())
+    try
     {
-      InternalCDOBranch branch = branchManager.getBranch(branchID);
-      result.put(branch, new ArrayList<CDORevision>());
-    }
+      Map<CDOBranch, List<CDORevision>> result = new HashMap<CDOBranch, List<CDORevision>>();
+      InternalCDOBranchManager branchManager = getRepository().getBranchManager();
+      result.put(branchManager.getMainBranch(), new ArrayList<CDORevision>());
 
-    for (List<InternalCDORevision> list : revisions.values())
-    {
-      for (InternalCDORevision revision : list)
+      for (Integer branchID : branchInfos.keySet())
       {
-        CDOBranch branch = revision.getBranch();
-        List<CDORevision> resultList = result.get(branch);
-        resultList.add(revision);
+        InternalCDOBranch branch = branchManager.getBranch(branchID);
+        result.put(branch, new ArrayList<CDORevision>());
+      }
+
+      for (List<InternalCDORevision> list : revisions.values())
+      {
+        for (InternalCDORevision revision : list)
+        {
+          CDOBranch branch = revision.getBranch();
+          List<CDORevision> resultList = result.get(branch);
+          resultList.add(revision);
+        }
       }
-    }
 
-    return result;
+      return result;
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
-  public synchronized EClass getObjectType(CDOID id)
+  public EClass getObjectType(CDOID id)
   {
-    return objectTypes.get(id);
+    readLock.lock();
+
+    try
+    {
+      return objectTypes.get(id);
+    }
+    finally
+    {
+      readLock.unlock();
+    }
   }
 
   /**
@@ -1026,6 +1479,9 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
   protected void doDeactivate() throws Exception
   {
     revisions.clear();
+    resourceNodes.clear();
+    xRefs.clear();
+    extents.clear();
     branchInfos.clear();
     commitInfos.clear();
     objectTypes.clear();
@@ -1121,14 +1577,18 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     return null;
   }
 
-  private void addRevision(List<InternalCDORevision> list, InternalCDORevision revision, boolean raw)
+  private void addRevision(Object listKey, List<InternalCDORevision> list, InternalCDORevision revision, boolean raw)
   {
-    boolean resource = !(revision instanceof SyntheticCDORevision) && revision.isResource();
-    if (resource && resourceNameFeature == null)
+    boolean synthetic = revision instanceof SyntheticCDORevision;
+    boolean resourceNode = !synthetic && revision.isResourceNode();
+    if (resourceNode && resourceNameFeature == null)
     {
       resourceNameFeature = revision.getEClass().getEStructuralFeature(CDOModelConstants.RESOURCE_NODE_NAME_ATTRIBUTE);
     }
 
+    boolean resource = resourceNode && revision.isResource();
+    InternalCDORevision removedRevision = null;
+
     if (!raw)
     {
       // Check version conflict
@@ -1154,6 +1614,7 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
           else
           {
             list.remove(oldRevision);
+            removedRevision = oldRevision;
           }
         }
       }
@@ -1165,18 +1626,200 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
       }
     }
 
-    // Adjust the list
     list.add(revision);
-    if (listLimit != UNLIMITED)
-    {
-      enforceListLimit(list);
-    }
 
     CDOID id = revision.getID();
     if (!objectTypes.containsKey(id))
     {
       objectTypes.put(id, revision.getEClass());
     }
+
+    EClass eClass = revision.getEClass();
+    if (eClass != null)
+    {
+      addIndexEntry(extents, eClass, listKey);
+    }
+
+    if (!synthetic)
+    {
+      if (resourceNode)
+      {
+        indexResourceNode(listKey, revision);
+      }
+
+      indexXRefs(listKey, revision);
+    }
+
+    // Adjust the list and the indexes after the new revision has been indexed, so that its entries are kept
+    if (removedRevision != null)
+    {
+      unindexRevision(listKey, list, removedRevision);
+    }
+
+    if (listLimit != UNLIMITED)
+    {
+      enforceListLimit(listKey, list);
+    }
+  }
+
+  private void indexResourceNode(Object listKey, InternalCDORevision revision)
+  {
+    CDOID folderID = getFolderKey((CDOID)revision.data().getContainerID());
+    Map<String, Set<Object>> names = resourceNodes.get(folderID);
+    if (names == null)
+    {
+      names = new HashMap<String, Set<Object>>();
+      resourceNodes.put(folderID, names);
+    }
+
+    String name = (String)revision.data().get(resourceNameFeature, 0);
+    addIndexEntry(names, name, listKey);
+  }
+
+  private void indexXRefs(Object listKey, InternalCDORevision revision)
+  {
+    Set<CDOID> targetIDs = new HashSet<CDOID>();
+    collectXRefTargets(revision, targetIDs);
+
+    for (CDOID targetID : targetIDs)
+    {
+      addIndexEntry(xRefs, targetID, listKey);
+    }
+  }
+
+  /**
+   * Removes the index entries of a revision that has been removed from the given list, unless they are still needed by
+   * another revision of the list. Removes the list if it is empty.
+   */
+  private void unindexRevision(Object listKey, List<InternalCDORevision> list, InternalCDORevision removedRevision)
+  {
+    if (list.isEmpty())
+    {
+      revisions.remove(listKey);
+
+      EClass eClass = removedRevision.getEClass();
+      if (eClass != null)
+      {
+        removeIndexEntry(extents, eClass, listKey);
+      }
+    }
+
+    if (removedRevision instanceof SyntheticCDORevision)
+    {
+      return;
+    }
+
+    Set<CDOID> targetIDs = new HashSet<CDOID>();
+    collectXRefTargets(removedRevision, targetIDs);
+
+    boolean resourceNode = removedRevision.isResourceNode();
+    CDOID folderID = resourceNode ? getFolderKey((CDOID)removedRevision.data().getContainerID()) : null;
+    String name = resourceNode ? (String)removedRevision.data().get(resourceNameFeature, 0) : null;
+
+    Set<CDOID> remainingTargetIDs = new HashSet<CDOID>();
+    for (InternalCDORevision revision : list)
+    {
+      if (revision instanceof SyntheticCDORevision)
+      {
+        continue;
+      }
+
+      collectXRefTargets(revision, remainingTargetIDs);
+
+      if (resourceNode && revision.isResourceNode()
+          && ObjectUtil.equals(getFolderKey((CDOID)revision.data().getContainerID()), folderID)
+          && ObjectUtil.equals(revision.data().get(resourceNameFeature, 0), name))
+      {
+        // The node is still indexed under this folder and name
+        resourceNode = false;
+      }
+    }
+
+    targetIDs.removeAll(remainingTargetIDs);
+    for (CDOID targetID : targetIDs)
+    {
+      removeIndexEntry(xRefs, targetID, listKey);
+    }
+
+    if (resourceNode)
+    {
+      Map<String, Set<Object>> names = resourceNodes.get(folderID);
+      if (names != null)
+      {
+        removeIndexEntry(names, name, listKey);
+        if (names.isEmpty())
+        {
+          resourceNodes.remove(folderID);
+        }
+      }
+    }
+  }
+
+  private static void collectXRefTargets(InternalCDORevision revision, Set<CDOID> targetIDs)
+  {
+    for (EStructuralFeature feature : revision.getClassInfo().getAllPersistentFeatures())
+    {
+      if (feature instanceof EReference)
+      {
+        Object value = revision.getValue(feature);
+        if (value instanceof List<?>)
+        {
+          for (Object element : (List<?>)value)
+          {
+            if (element instanceof CDOID)
+            {
+              targetIDs.add((CDOID)element);
+            }
+          }
+        }
+        else if (value instanceof CDOID)
+        {
+          targetIDs.add((CDOID)value);
+        }
+      }
+    }
+  }
+
+  private List<List<InternalCDORevision>> getLists(Set<Object> listKeys)
+  {
+    if (listKeys == null)
+    {
+      return Collections.emptyList();
+    }
+
+    List<List<InternalCDORevision>> lists = new ArrayList<List<InternalCDORevision>>(listKeys.size());
+    for (Object listKey : listKeys)
+    {
+      lists.add(revisions.get(listKey));
+    }
+
+    return lists;
+  }
+
+  private static CDOID getFolderKey(CDOID folderID)
+  {
+    return folderID == null ? CDOID.NULL : folderID;
+  }
+
+  private static <K> void addIndexEntry(Map<K, Set<Object>> index, K key, Object listKey)
+  {
+    Set<Object> listKeys = index.get(key);
+    if (listKeys == null)
+    {
+      listKeys = new HashSet<Object>();
+      index.put(key, listKeys);
+    }
+
+    listKeys.add(listKey);
+  }
+
+  private static <K> void removeIndexEntry(Map<K, Set<Object>> index, K key, Object listKey)
+  {
+    Set<Object> listKeys = index.get(key);
+    if (listKeys != null && listKeys.remove(listKey) && listKeys.isEmpty())
+    {
+      index.remove(key);
+    }
   }
 
   private void checkDuplicateResource(InternalCDORevision revision)
@@ -1193,11 +1836,12 @@ public class MEMStore extends LongIDStore implements IMEMStore, BranchLoader, Du
     }
   }
 
-  private void enforceListLimit(List<InternalCDORevision> list)
+  private void enforceListLimit(Object listKey, List<InternalCDORevision> list)
   {
     while (list.size() > listLimit)
     {
-      list.remove(0);
+      InternalCDORevision evictedRevision = list.remove(0);
+      unindexRevision(listKey, list, evictedRevision);
     }
   }
 
@@ -28,6 +28,7 @@ import org.eclipse.emf.cdo.common.util.CDOQueryInfo;
 import org.eclipse.emf.cdo.server.IQueryContext;
 import org.eclipse.emf.cdo.server.IQueryHandler;
 import org.eclipse.emf.cdo.server.ISession;
+import org.eclipse.emf.cdo.server.IStoreAccessor.BulkRevisionReader;
 import org.eclipse.emf.cdo.server.IStoreAccessor.DurableLocking2;
 import org.eclipse.emf.cdo.server.IStoreAccessor.Raw;
 import org.eclipse.emf.cdo.server.ITransaction;
@@ -58,11 +59,12 @@ import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
 
 /**
  * @author Simon McDuff
  */
-public class MEMStoreAccessor extends LongIDStoreAccessor implements Raw, DurableLocking2
+public class MEMStoreAccessor extends LongIDStoreAccessor implements Raw, DurableLocking2, BulkRevisionReader
 {
   private final IQueryHandler testQueryHandler = new IQueryHandler()
   {
@@ -206,6 +208,12 @@ public class MEMStoreAccessor extends LongIDStoreAccessor implements Raw, Durabl
     return getStore().getRevision(id, branchPoint);
   }
 
+  public Map<CDOID, InternalCDORevision> readRevisions(Collection<CDOID> ids, CDOBranchPoint branchPoint,
+      int listChunk, CDORevisionCacheAdder cache)
+  {
+    return getStore().getRevisions(ids, branchPoint);
+  }
+
   public InternalCDORevision readRevisionByVersion(CDOID id, CDOBranchVersion branchVersion, int listChunk,
       CDORevisionCacheAdder cache)
   {
@@ -230,11 +238,17 @@ public class MEMStoreAccessor extends LongIDStoreAccessor implements Raw, Durabl
   @Override
   public void doWrite(InternalCommitContext context, OMMonitor monitor)
   {
-    MEMStore store = getStore();
-    synchronized (store)
+    WriteLock writeLock = getStore().getLock().writeLock();
+    writeLock.lock();
+
+    try
     {
       super.doWrite(context, monitor);
     }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
   @Override
@@ -248,13 +262,20 @@ public class MEMStoreAccessor extends LongIDStoreAccessor implements Raw, Durabl
   protected void doRollback(CommitContext context)
   {
     MEMStore store = getStore();
-    synchronized (store)
+    WriteLock writeLock = store.getLock().writeLock();
+    writeLock.lock();
+
+    try
     {
       for (InternalCDORevision revision : newRevisions)
       {
         store.rollbackRevision(revision);
       }
     }
+    finally
+    {
+      writeLock.unlock();
+    }
   }
 
   public void writePackageUnits(InternalCDOPackageUnit[] packageUnits, OMMonitor monitor)
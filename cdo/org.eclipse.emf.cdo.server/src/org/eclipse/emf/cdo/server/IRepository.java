@@ -285,6 +285,38 @@ public interface IRepository extends CDOCommonRepository, IQueryHandlerProvider,
      */
     public static final String ALLOW_INTERRUPT_RUNNING_QUERIES = "allowInterruptRunningQueries"; //$NON-NLS-1$
 
+    /**
+     * The maximum number of queries that run at the same time. Further queries wait in per-session queues that are
+     * served round-robin. The default is 10.
+     *
+     * @since 4.2
+     */
+    public static final String MAX_RUNNING_QUERIES = "maxRunningQueries"; //$NON-NLS-1$
+
+    /**
+     * The prefix of the properties that limit the number of running queries of a single query language, for example
+     * <code>maxRunningQueries.ocl</code>. The limit of a language never exceeds {@link #MAX_RUNNING_QUERIES}.
+     *
+     * @since 4.2
+     */
+    public static final String MAX_RUNNING_QUERIES_PREFIX = MAX_RUNNING_QUERIES + "."; //$NON-NLS-1$
+
+    /**
+     * The maximum number of queries a single session can have waiting for execution. Further queries of that session
+     * are rejected. The default is unlimited.
+     *
+     * @since 4.2
+     */
+    public static final String MAX_QUEUED_QUERIES_PER_SESSION = "maxQueuedQueriesPerSession"; //$NON-NLS-1$
+
+    /**
+     * The maximum number of results a query buffers before it waits for them to be sent to the client. The default is
+     * unlimited.
+     *
+     * @since 4.2
+     */
+    public static final String QUERY_RESULT_QUEUE_CAPACITY = "queryResultQueueCapacity"; //$NON-NLS-1$
+
     /**
      * @since 4.1
      */
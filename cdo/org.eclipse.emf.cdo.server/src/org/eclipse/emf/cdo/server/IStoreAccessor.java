@@ -757,4 +757,28 @@ public interface IStoreAccessor extends IQueryHandlerProvider, BranchLoader, Com
 
     public void updateLockArea(LockArea lockArea);
   }
+
+  /**
+   * An extension interface for {@link IStoreAccessor store accessors} that can read multiple revisions with fewer
+   * back-end round trips than individual {@link #readRevision(CDOID, CDOBranchPoint, int, CDORevisionCacheAdder)
+   * readRevision()} calls would need. The repository reads the revisions one by one from store accessors that do not
+   * implement this interface.
+   *
+   * @author Eike Stepper
+   * @since 4.2
+   * @apiviz.exclude
+   */
+  public interface BulkRevisionReader extends IStoreAccessor
+  {
+    /**
+     * Reads the revisions with the given IDs from the back-end that were valid at the given timeStamp in the given
+     * branch.
+     * <p>
+     * For each ID the resulting map contains the revision that
+     * {@link #readRevision(CDOID, CDOBranchPoint, int, CDORevisionCacheAdder) readRevision()} would return. IDs for
+     * which <code>readRevision()</code> would return <code>null</code> are not contained in the resulting map.
+     */
+    public Map<CDOID, InternalCDORevision> readRevisions(Collection<CDOID> ids, CDOBranchPoint branchPoint,
+        int listChunk, CDORevisionCacheAdder cache);
+  }
 }
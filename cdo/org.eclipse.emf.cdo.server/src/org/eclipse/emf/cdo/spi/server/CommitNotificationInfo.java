@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.spi.server;
+
+import org.eclipse.emf.cdo.common.CDOCommonSession.Options.PassiveUpdateMode;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
+
+/**
+ * A {@link CDOCommitInfo commit info} that is filtered according to the passive update settings of a session.
+ * <p>
+ * All sessions with equal settings are notified with the same instance, so that a {@link ISessionProtocol protocol}
+ * needs to serialize it only once and can cache the result as the {@link #getEncoding() encoding} of the notification.
+ *
+ * @author Eike Stepper
+ * @since 4.2
+ * @noextend This interface is not intended to be extended by clients.
+ * @noimplement This interface is not intended to be implemented by clients.
+ */
+public interface CommitNotificationInfo extends CDOCommitInfo
+{
+  /**
+   * Returns the unfiltered commit info.
+   */
+  public CDOCommitInfo getCommitInfo();
+
+  public PassiveUpdateMode getPassiveUpdateMode();
+
+  /**
+   * Returns the protocol-specific encoding of this notification, or <code>null</code> if it has not been encoded, yet.
+   */
+  public Object getEncoding();
+
+  public void setEncoding(Object encoding);
+}
@@ -52,6 +52,14 @@ public interface ISessionProtocol extends CDOProtocol
 
   public void sendCommitNotification(CDOCommitInfo commitInfo) throws Exception;
 
+  /**
+   * Sends a commit notification that may be shared with other sessions. Implementations can cache their
+   * {@link CommitNotificationInfo#setEncoding(Object) encoding} of the notification.
+   *
+   * @since 4.2
+   */
+  public void sendCommitNotification(CommitNotificationInfo notificationInfo) throws Exception;
+
   public void sendRemoteSessionNotification(InternalSession sender, byte opcode) throws Exception;
 
   public void sendRemoteMessageNotification(InternalSession sender, CDORemoteSessionMessage message) throws Exception;
@@ -18,6 +18,7 @@ import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.id.CDOIDProvider;
 import org.eclipse.emf.cdo.common.lock.CDOLockChangeInfo;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
 import org.eclipse.emf.cdo.common.security.CDOPermissionProvider;
 import org.eclipse.emf.cdo.server.ISession;
 import org.eclipse.emf.cdo.session.remote.CDORemoteSessionMessage;
@@ -54,6 +55,22 @@ public interface InternalSession extends ISession, CDOIDProvider, CDOPermissionP
   public void collectContainedRevisions(InternalCDORevision revision, CDOBranchPoint branchPoint, int referenceChunk,
       Set<CDOID> revisions, List<CDORevision> additionalRevisions);
 
+  /**
+   * Loads the revisions that are contained by the given revisions down to the given depth and passes the ones whose IDs
+   * are not yet in the given set to the handler. The containment tree is walked breadth-first and each level is loaded
+   * with a single call to the revision manager, so that the store can read it in bulk.
+   *
+   * @param depth
+   *          the number of containment levels to load, or {@link CDORevision#DEPTH_INFINITE}.
+   * @param revisionIDs
+   *          the IDs of the revisions that are already known. The IDs of the revisions passed to the handler are added.
+   * @param handler
+   *          the handler to pass the loaded revisions to. The walk stops when it returns <code>false</code>.
+   * @since 4.2
+   */
+  public void collectContainedRevisions(List<? extends CDORevision> revisions, CDOBranchPoint branchPoint,
+      int referenceChunk, int depth, Set<CDOID> revisionIDs, CDORevisionHandler handler);
+
   public void sendRepositoryTypeNotification(CDOCommonRepository.Type oldType, CDOCommonRepository.Type newType)
       throws Exception;
 
@@ -76,6 +93,19 @@ public interface InternalSession extends ISession, CDOIDProvider, CDOPermissionP
 
   public void sendCommitNotification(CDOCommitInfo commitInfo) throws Exception;
 
+  /**
+   * Returns the commit info to send to this session, filtered according to its passive update settings, or
+   * <code>null</code> if this session is not interested in commit notifications.
+   *
+   * @since 4.2
+   */
+  public CommitNotificationInfo getCommitNotificationInfo(CDOCommitInfo commitInfo);
+
+  /**
+   * @since 4.2
+   */
+  public void sendCommitNotification(CommitNotificationInfo notificationInfo) throws Exception;
+
   public void sendRemoteSessionNotification(InternalSession sender, byte opcode) throws Exception;
 
   public void sendRemoteMessageNotification(InternalSession sender, CDORemoteSessionMessage message) throws Exception;
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.lissome;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+/**
+ * The Lissome tests that don't need a repository configuration.
+ *
+ * @author Eike Stepper
+ */
+public class AllTestsLissomeStandalone
+{
+  public static Test suite()
+  {
+    TestSuite suite = new TestSuite("Standalone tests for Lissome"); //$NON-NLS-1$
+
+    // $JUnit-BEGIN$
+    suite.addTestSuite(LissomeFileMapTest.class);
+    suite.addTestSuite(IndexFileTest.class);
+    // $JUnit-END$
+
+    return suite;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.lissome;
+
+import org.eclipse.emf.cdo.server.internal.lissome.index.IndexFile;
+
+import org.eclipse.net4j.util.io.IOUtil;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Eike Stepper
+ */
+public class IndexFileTest extends AbstractOMTest
+{
+  private static final int KEYS = 5000;
+
+  private static final int MEM_TABLE_LIMIT = 4096;
+
+  private File file;
+
+  private IndexFile indexFile;
+
+  private volatile Throwable writerException;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    file = new File(createTempFolder(), "test.index");
+    indexFile = new IndexFile(file, MEM_TABLE_LIMIT);
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    IOUtil.close(indexFile);
+    indexFile = null;
+    file = null;
+    super.doTearDown();
+  }
+
+  public void testGet() throws Exception
+  {
+    write(0, 10, 0, 1);
+    write(5, 10, 1, 2);
+
+    assertEquals(4, getValue(indexFile.get(key(4))));
+    assertEquals(-5, getValue(indexFile.get(key(5))));
+    assertEquals(null, indexFile.get(key(10)));
+    assertEquals(9, getKey(indexFile.floor(key(20)).getKey()));
+    assertEquals(3, getKey(indexFile.higher(key(2)).getKey()));
+    assertEquals(null, indexFile.higher(key(9)));
+    assertEquals(2, indexFile.getTag());
+  }
+
+  public void testCursor() throws Exception
+  {
+    // Many small writes in random order, so that the entries are spread over several runs and the in-memory table
+    List<Integer> keys = new ArrayList<Integer>();
+    for (int i = 0; i < KEYS; i++)
+    {
+      keys.add(i);
+    }
+
+    Collections.shuffle(keys, new Random(4711));
+    for (int i = 0; i < KEYS; i += 50)
+    {
+      List<IndexFile.Entry> entries = new ArrayList<IndexFile.Entry>();
+      for (int key : keys.subList(i, i + 50))
+      {
+        entries.add(new IndexFile.Entry(key(key), value(key)));
+      }
+
+      indexFile.write(entries, i + 1);
+    }
+
+    // Replace every third value
+    for (int i = 0; i < KEYS; i += 250)
+    {
+      write(i, i + 250, 3, KEYS + i);
+    }
+
+    assertEquals(true, indexFile.getRunCount() > 1);
+    assertCursor(0, KEYS);
+    assertCursor(KEYS / 2, KEYS);
+    assertCursor(KEYS, KEYS);
+  }
+
+  public void testReopen() throws Exception
+  {
+    write(0, KEYS, 0, 1);
+    write(0, KEYS, 3, 2);
+    indexFile.close();
+
+    indexFile = new IndexFile(file, MEM_TABLE_LIMIT);
+    assertEquals(false, indexFile.isCreated());
+    assertEquals(2, indexFile.getTag());
+    assertCursor(0, KEYS);
+  }
+
+  public void testCursorDoesNotBlockWrites() throws Exception
+  {
+    write(0, KEYS, 0, 1);
+
+    IndexFile.Cursor cursor = indexFile.openCursor(key(0));
+
+    try
+    {
+      assertEquals(true, cursor.next());
+      assertEquals(0, getKey(cursor.getKey()));
+
+      Thread writer = new Thread("writer")
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            write(KEYS, 2 * KEYS, 0, 2);
+          }
+          catch (Throwable ex)
+          {
+            writerException = ex;
+          }
+        }
+      };
+
+      writer.setDaemon(true);
+      writer.start();
+      writer.join(DEFAULT_TIMEOUT);
+      assertEquals(false, writer.isAlive());
+      if (writerException != null)
+      {
+        throw new Exception("Writer failed", writerException);
+      }
+
+      assertEquals(2, indexFile.getTag());
+
+      // The cursor continues after the entries that it has already read and sees the new ones
+      int count = 1;
+      while (cursor.next())
+      {
+        assertEquals(count++, getKey(cursor.getKey()));
+      }
+
+      assertEquals(2 * KEYS, count);
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+
+  /**
+   * Writes the keys from <code>from</code> to <code>to</code>, with the keys as values. If <code>step</code> is greater
+   * than 0 only every <code>step</code>-th key is written, with the negated key as value.
+   */
+  private void write(int from, int to, int step, int tag) throws Exception
+  {
+    List<IndexFile.Entry> entries = new ArrayList<IndexFile.Entry>();
+    for (int i = from; i < to; i++)
+    {
+      if (step == 0)
+      {
+        entries.add(new IndexFile.Entry(key(i), value(i)));
+      }
+      else if (i % step == 0)
+      {
+        entries.add(new IndexFile.Entry(key(i), value(-i)));
+      }
+    }
+
+    indexFile.write(entries, tag);
+  }
+
+  private void assertCursor(int from, int to) throws Exception
+  {
+    IndexFile.Cursor cursor = indexFile.openCursor(key(from));
+
+    try
+    {
+      for (int i = from; i < to; i++)
+      {
+        assertEquals(true, cursor.next());
+        assertEquals(i, getKey(cursor.getKey()));
+        assertEquals(i % 3 == 0 ? -i : i, getValue(cursor.getValue()));
+      }
+
+      assertEquals(false, cursor.next());
+    }
+    finally
+    {
+      cursor.close();
+    }
+  }
+
+  private static byte[] key(int key)
+  {
+    return ByteBuffer.allocate(4).putInt(key).array();
+  }
+
+  private static byte[] value(int value)
+  {
+    return ByteBuffer.allocate(8).putInt(value).putInt(~value).array();
+  }
+
+  private static int getKey(byte[] key)
+  {
+    return ByteBuffer.wrap(key).getInt();
+  }
+
+  private static int getValue(byte[] value)
+  {
+    ByteBuffer buffer = ByteBuffer.wrap(value);
+    int result = buffer.getInt();
+    assertEquals(~result, buffer.getInt());
+    return result;
+  }
+}
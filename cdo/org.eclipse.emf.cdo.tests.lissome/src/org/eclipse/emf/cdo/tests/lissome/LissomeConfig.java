@@ -17,6 +17,7 @@ import org.eclipse.emf.cdo.server.internal.lissome.db.DBBrowserPage;
 import org.eclipse.emf.cdo.server.internal.lissome.db.Index;
 import org.eclipse.emf.cdo.server.internal.lissome.file.Journal;
 import org.eclipse.emf.cdo.server.internal.lissome.file.Vob;
+import org.eclipse.emf.cdo.server.internal.lissome.index.NativeIndex;
 import org.eclipse.emf.cdo.tests.config.impl.RepositoryConfig;
 
 import org.eclipse.net4j.db.DBUtil;
@@ -82,6 +83,7 @@ public class LissomeConfig extends RepositoryConfig
       new File(reusableFolder, repoName + "." + LissomeStore.PERSISTENT_PROPERTIES_EXTENSION).delete();
       new File(reusableFolder, repoName + "." + Journal.EXTENSION).delete();
       new File(reusableFolder, repoName + "." + Vob.EXTENSION).delete();
+      new File(reusableFolder, repoName + "." + NativeIndex.EXTENSION).delete();
     }
 
     LissomeStore store = new LissomeStore();
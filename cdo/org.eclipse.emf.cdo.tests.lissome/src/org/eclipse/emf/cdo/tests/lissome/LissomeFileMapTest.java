@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.lissome;
+
+import org.eclipse.emf.cdo.common.protocol.CDODataInput;
+import org.eclipse.emf.cdo.server.internal.lissome.LissomeFile;
+import org.eclipse.emf.cdo.server.internal.lissome.LissomeFileMap;
+import org.eclipse.emf.cdo.server.internal.lissome.LissomeStore;
+
+import org.eclipse.net4j.util.io.IORuntimeException;
+import org.eclipse.net4j.util.io.IOUtil;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * @author Eike Stepper
+ */
+public class LissomeFileMapTest extends AbstractOMTest
+{
+  private static final File PROCESS_MAPS = new File("/proc/self/maps");
+
+  private LissomeFile file;
+
+  private LissomeFileMap map;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    LissomeStore store = new LissomeStore();
+    store.setFolder(createTempFolder());
+    file = new LissomeFile(store, "test.vob");
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    IOUtil.close(map);
+    map = null;
+    file = null;
+    super.doTearDown();
+  }
+
+  public void testRead() throws Exception
+  {
+    append(0, 10);
+    map = new LissomeFileMap(file);
+
+    assertValues(map.openInput(0), 0, 10);
+    assertValues(map.openInput(5 * 12), 5, 10);
+  }
+
+  public void testReadAppended() throws Exception
+  {
+    append(0, 10);
+    map = new LissomeFileMap(file);
+    assertValues(map.openInput(0), 0, 10);
+
+    append(10, 20);
+    assertValues(map.openInput(0), 0, 20);
+    assertValues(map.openInput(15 * 12), 15, 20);
+  }
+
+  public void testReadAfterClose() throws Exception
+  {
+    append(0, 10);
+    map = new LissomeFileMap(file);
+    map.close();
+    assertEquals(true, map.isClosed());
+
+    try
+    {
+      map.readRevision(0);
+      fail("IORuntimeException expected");
+    }
+    catch (IORuntimeException expected)
+    {
+      // SUCCESS
+    }
+  }
+
+  public void testCloseUnmaps() throws Exception
+  {
+    skipTest(!PROCESS_MAPS.isFile());
+
+    append(0, 10);
+    map = new LissomeFileMap(file);
+    assertValues(map.openInput(0), 0, 10);
+    assertEquals(true, isMapped());
+
+    map.close();
+    assertEquals(false, isMapped());
+  }
+
+  public void testCloseUnmapsReplacedRegions() throws Exception
+  {
+    skipTest(!PROCESS_MAPS.isFile());
+
+    append(0, 10);
+    map = new LissomeFileMap(file);
+
+    // Keeps the first mapping of the region in use while the region is mapped again for the appended values
+    CDODataInput input = map.openInput(0);
+    assertValues(input, 0, 1);
+
+    append(10, 20);
+    assertValues(map.openInput(10 * 12), 10, 20);
+    assertValues(input, 1, 10);
+
+    map.close();
+    assertEquals(false, isMapped());
+  }
+
+  /**
+   * Appends an <code>int</code> and a <code>long</code> for each value, i.e., 12 bytes per value.
+   */
+  private void append(int from, int to) throws IOException
+  {
+    RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+
+    try
+    {
+      randomAccessFile.seek(randomAccessFile.length());
+      for (int i = from; i < to; i++)
+      {
+        randomAccessFile.writeInt(i);
+        randomAccessFile.writeLong(Long.MAX_VALUE - i);
+      }
+    }
+    finally
+    {
+      IOUtil.close(randomAccessFile);
+    }
+  }
+
+  private boolean isMapped() throws IOException
+  {
+    String path = file.getCanonicalPath();
+    BufferedReader reader = new BufferedReader(new FileReader(PROCESS_MAPS));
+
+    try
+    {
+      String line;
+      while ((line = reader.readLine()) != null)
+      {
+        if (line.endsWith(path))
+        {
+          return true;
+        }
+      }
+
+      return false;
+    }
+    finally
+    {
+      IOUtil.close(reader);
+    }
+  }
+
+  private static void assertValues(CDODataInput input, int from, int to) throws IOException
+  {
+    for (int i = from; i < to; i++)
+    {
+      assertEquals(i, input.readInt());
+      assertEquals(Long.MAX_VALUE - i, input.readLong());
+    }
+  }
+}
@@ -33,10 +33,12 @@ public abstract class AllConfigs extends ConfigTestSuite
     testClasses.add(EnumTest.class);
     testClasses.add(EMapTest.class);
     testClasses.add(UnsetTest.class);
+    testClasses.add(CompactRevisionTest.class);
     testClasses.add(StateMachineTest.class);
     testClasses.add(SessionTest.class);
     testClasses.add(RevisionManagerTest.class);
     testClasses.add(RevisionManagerClientSideTest.class);
+    testClasses.add(RevisionLoadingTest.class);
     testClasses.add(BranchingTest.class);
     testClasses.add(BranchingSameSessionTest.class);
     testClasses.add(BranchingWithCacheClearTest.class);
@@ -56,6 +58,8 @@ public abstract class AllConfigs extends ConfigTestSuite
     testClasses.add(ChunkingTest.class);
     testClasses.add(ChunkingWithMEMTest.class);
     testClasses.add(MEMStoreQueryTest.class);
+    testClasses.add(MEMStoreIndexTest.class);
+    testClasses.add(QuerySchedulerTest.class);
     testClasses.add(PackageRegistryTest.class);
     testClasses.add(PartialCommitTest.class);
     testClasses.add(MetaTest.class);
@@ -12,6 +12,8 @@ package org.eclipse.emf.cdo.tests;
 
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.id.CDOIDExternal;
+import org.eclipse.emf.cdo.common.id.CDOIDMap;
+import org.eclipse.emf.cdo.common.id.CDOIDSet;
 import org.eclipse.emf.cdo.common.id.CDOIDUtil;
 import org.eclipse.emf.cdo.eresource.CDOResource;
 import org.eclipse.emf.cdo.internal.common.id.CDOIDNullImpl;
@@ -24,6 +26,9 @@ import org.eclipse.emf.cdo.tests.model1.Supplier;
 import org.eclipse.emf.cdo.transaction.CDOTransaction;
 import org.eclipse.emf.cdo.util.CDOUtil;
 
+import java.util.Iterator;
+import java.util.Map;
+
 /**
  * @author Stefan Winkler
  */
@@ -103,4 +108,79 @@ public class CDOIDTest extends AbstractCDOTest
     CDOID id = CDOIDUtil.read(uriFragment);
     System.out.println(id);
   }
+
+  public void testSet_LongIDs()
+  {
+    CDOIDSet set = CDOIDUtil.createSet();
+    for (long i = 1; i <= 1000; i++)
+    {
+      assertEquals(true, set.add(CDOIDUtil.createLong(i)));
+    }
+
+    assertEquals(false, set.add(CDOIDUtil.createLong(500)));
+    assertEquals(1000, set.size());
+    assertEquals(true, set.contains(CDOIDUtil.createLong(1000)));
+    assertEquals(false, set.contains(CDOIDUtil.createLong(1001)));
+    assertEquals(false, set.contains(CDOIDUtil.createTempObject(1)));
+
+    for (Iterator<CDOID> it = set.iterator(); it.hasNext();)
+    {
+      if (CDOIDUtil.getLong(it.next()) % 2 == 0)
+      {
+        it.remove();
+      }
+    }
+
+    assertEquals(500, set.size());
+    assertEquals(true, set.remove(CDOIDUtil.createLong(1)));
+    assertEquals(false, set.remove(CDOIDUtil.createLong(2)));
+    assertEquals(499, set.size());
+
+    for (long i = 1; i <= 1000; i++)
+    {
+      assertEquals(i % 2 == 1 && i != 1, set.contains(CDOIDUtil.createLong(i)));
+    }
+  }
+
+  public void testSet_MixedIDs()
+  {
+    CDOIDSet set = CDOIDUtil.createSet();
+    set.add(CDOIDUtil.createLong(1));
+    set.add(CDOIDUtil.createLong(2));
+    set.add(CDOIDUtil.createString("3"));
+
+    assertEquals(3, set.size());
+    assertEquals(true, set.contains(CDOIDUtil.createLong(1)));
+    assertEquals(true, set.contains(CDOIDUtil.createString("3")));
+    assertEquals(false, set.add(CDOIDUtil.createLong(2)));
+  }
+
+  public void testMap_LongIDs()
+  {
+    CDOIDMap<String> map = CDOIDUtil.createMap();
+    for (long i = 1; i <= 1000; i++)
+    {
+      assertEquals(null, map.put(CDOIDUtil.createLong(i), "v" + i));
+    }
+
+    assertEquals("v7", map.put(CDOIDUtil.createLong(7), "w7"));
+    assertEquals(1000, map.size());
+    assertEquals("w7", map.get(CDOIDUtil.createLong(7)));
+    assertEquals("v1000", map.remove(CDOIDUtil.createLong(1000)));
+    assertEquals(null, map.get(CDOIDUtil.createLong(1000)));
+    assertEquals(false, map.containsKey(CDOIDUtil.createLong(1000)));
+
+    for (Map.Entry<CDOID, String> entry : map.entrySet())
+    {
+      entry.setValue("x" + CDOIDUtil.getLong(entry.getKey()));
+    }
+
+    assertEquals(999, map.size());
+    assertEquals("x999", map.get(CDOIDUtil.createLong(999)));
+
+    map.put(CDOIDUtil.createTempObject(1), "temp");
+    assertEquals(1000, map.size());
+    assertEquals("x1", map.get(CDOIDUtil.createLong(1)));
+    assertEquals("temp", map.get(CDOIDUtil.createTempObject(1)));
+  }
 }
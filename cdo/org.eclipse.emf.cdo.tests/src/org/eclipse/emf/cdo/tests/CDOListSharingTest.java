@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDOElementProxy;
+import org.eclipse.emf.cdo.common.revision.CDOList;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.internal.common.revision.CDOLongIDListImpl;
+import org.eclipse.emf.cdo.spi.common.revision.CDOReferenceAdjuster;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDOList;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Checks that the copy of a frozen revision shares its frozen lists until the copy modifies them.
+ *
+ * @author Eike Stepper
+ */
+public class CDOListSharingTest extends AbstractOMTest
+{
+  private static final EReference FEATURE = Model1Package.eINSTANCE.getCompany_Customers();
+
+  private static final CDORevisionFactory[] FACTORIES = { CDORevisionFactory.DEFAULT, CDORevisionFactory.COMPACT };
+
+  public void testCopySharesFrozenList() throws Exception
+  {
+    for (CDORevisionFactory factory : FACTORIES)
+    {
+      InternalCDORevision revision = createRevision(factory, 1, 2, 3);
+      InternalCDORevision copy = revision.copy();
+      assertSame(revision.getValue(FEATURE), copy.getValue(FEATURE));
+
+      // Reading doesn't need a private list
+      assertEquals(3, copy.size(FEATURE));
+      assertEquals(CDOIDUtil.createLong(2), copy.get(FEATURE, 1));
+      assertEquals(true, copy.contains(FEATURE, CDOIDUtil.createLong(3)));
+      assertEquals(2, copy.indexOf(FEATURE, CDOIDUtil.createLong(3)));
+      assertEquals(3, copy.toArray(FEATURE).length);
+      assertSame(revision.getValue(FEATURE), copy.getValue(FEATURE));
+    }
+  }
+
+  public void testCopyDoesNotShareUnfrozenList() throws Exception
+  {
+    for (CDORevisionFactory factory : FACTORIES)
+    {
+      InternalCDORevision revision = (InternalCDORevision)factory.createRevision(FEATURE.getEContainingClass());
+      revision.getList(FEATURE).add(CDOIDUtil.createLong(1));
+
+      InternalCDORevision copy = revision.copy();
+      assertNotSame(revision.getValue(FEATURE), copy.getValue(FEATURE));
+      assertEquals(revision.getValue(FEATURE), copy.getValue(FEATURE));
+    }
+  }
+
+  public void testGetListUnshares() throws Exception
+  {
+    for (CDORevisionFactory factory : FACTORIES)
+    {
+      InternalCDORevision revision = createRevision(factory, 1, 2, 3);
+      CDOList sharedList = (CDOList)revision.getValue(FEATURE);
+      InternalCDORevision copy = revision.copy();
+
+      CDOList list = copy.getList(FEATURE);
+      assertNotSame(sharedList, list);
+      assertSame(list, copy.getValue(FEATURE));
+      assertSame(list, copy.getList(FEATURE));
+      assertEquals(sharedList, list);
+
+      list.add(CDOIDUtil.createLong(4));
+      list.move(0, 3);
+      assertEquals(4, copy.size(FEATURE));
+      assertEquals(CDOIDUtil.createLong(4), copy.get(FEATURE, 0));
+
+      // The source revision is unchanged
+      assertSame(sharedList, revision.getValue(FEATURE));
+      assertEquals(3, sharedList.size());
+      assertEquals(CDOIDUtil.createLong(1), sharedList.get(0));
+      assertEquals(true, ((InternalCDOList.Shareable)sharedList).isFrozen());
+    }
+  }
+
+  public void testAdjustReferencesUnshares() throws Exception
+  {
+    for (CDORevisionFactory factory : FACTORIES)
+    {
+      InternalCDORevision revision = createRevision(factory, 1, 2, 3);
+      CDOList sharedList = (CDOList)revision.getValue(FEATURE);
+      InternalCDORevision copy = revision.copy();
+
+      assertEquals(true, copy.adjustReferences(new CDOReferenceAdjuster()
+      {
+        public Object adjustReference(Object id, EStructuralFeature feature, int index)
+        {
+          return CDOIDUtil.createLong(2).equals(id) ? CDOIDUtil.createLong(4711) : id;
+        }
+      }));
+
+      CDOList list = (CDOList)copy.getValue(FEATURE);
+      assertNotSame(sharedList, list);
+      assertEquals(CDOIDUtil.createLong(4711), list.get(1));
+      assertEquals(CDOIDUtil.createLong(2), sharedList.get(1));
+    }
+  }
+
+  public void testAdjustReferencesDoesNotModifySharedProxies() throws Exception
+  {
+    for (CDORevisionFactory factory : FACTORIES)
+    {
+      // A chunked list whose proxies have been moved, so that their indexes are out of date
+      InternalCDORevision revision = (InternalCDORevision)factory.createRevision(FEATURE.getEContainingClass());
+      InternalCDOList chunkedList = (InternalCDOList)CDOLongIDListImpl.FACTORY_WITH_ELEMENT_PROXIES
+          .createList(5, 5, 2);
+      chunkedList.set(0, CDOIDUtil.createLong(1));
+      chunkedList.set(1, CDOIDUtil.createLong(2));
+      chunkedList.move(0, 4);
+      revision.setList(FEATURE, chunkedList);
+      revision.freeze();
+
+      CDOList sharedList = (CDOList)revision.getValue(FEATURE);
+      assertEquals(4, ((CDOElementProxy)sharedList.get(0)).getIndex());
+
+      InternalCDORevision copy = revision.copy();
+      assertSame(sharedList, copy.getValue(FEATURE));
+      copy.adjustReferences(new CDOReferenceAdjuster()
+      {
+        public Object adjustReference(Object id, EStructuralFeature feature, int index)
+        {
+          return id;
+        }
+      });
+
+      CDOList list = (CDOList)copy.getValue(FEATURE);
+      assertNotSame(sharedList, list);
+      assertEquals(0, ((CDOElementProxy)list.get(0)).getIndex());
+      assertEquals(4, ((CDOElementProxy)sharedList.get(0)).getIndex());
+      assertEquals(CDOIDUtil.createLong(1), sharedList.get(1));
+    }
+  }
+
+  /**
+   * Creates a frozen revision that references the given IDs.
+   */
+  private static InternalCDORevision createRevision(CDORevisionFactory factory, long... ids)
+  {
+    InternalCDORevision revision = (InternalCDORevision)factory.createRevision(FEATURE.getEContainingClass());
+    revision.setID(CDOIDUtil.createLong(100));
+    revision.setVersion(1);
+
+    CDOList list = revision.getList(FEATURE);
+    for (long id : ids)
+    {
+      CDOID value = CDOIDUtil.createLong(id);
+      list.add(value);
+    }
+
+    revision.freeze();
+    return revision;
+  }
+}
@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranchManager;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfoManager;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDProvider;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.lob.CDOLobStore;
+import org.eclipse.emf.cdo.common.model.CDOPackageRegistry;
+import org.eclipse.emf.cdo.common.revision.CDOElementProxy;
+import org.eclipse.emf.cdo.common.revision.CDOList;
+import org.eclipse.emf.cdo.common.revision.CDOListFactory;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
+import org.eclipse.emf.cdo.internal.common.revision.CDOListImpl;
+import org.eclipse.emf.cdo.internal.common.revision.CDOListWithElementProxiesImpl;
+import org.eclipse.emf.cdo.internal.common.revision.CDOLongIDListImpl;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataInputImpl;
+import org.eclipse.emf.cdo.spi.common.protocol.CDODataOutputImpl;
+import org.eclipse.emf.cdo.spi.common.revision.CDOReferenceAdjuster;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDOList;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+
+import org.eclipse.net4j.util.io.ExtendedDataInputStream;
+import org.eclipse.net4j.util.io.ExtendedDataOutputStream;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that a {@link CDOLongIDListImpl} behaves like the {@link CDOListImpl} and the
+ * {@link CDOListWithElementProxiesImpl} that it replaces for references, and that it is written and read in the same
+ * format.
+ *
+ * @author Eike Stepper
+ */
+public class CDOLongIDListTest extends AbstractOMTest
+{
+  private static final int OPERATIONS = 2000;
+
+  private static final EClass OWNER = Model1Package.eINSTANCE.getCompany();
+
+  private static final EReference FEATURE = Model1Package.eINSTANCE.getCompany_Customers();
+
+  private static final CDOReferenceAdjuster NOOP_ADJUSTER = new CDOReferenceAdjuster()
+  {
+    public Object adjustReference(Object id, EStructuralFeature feature, int index)
+    {
+      return id;
+    }
+  };
+
+  public void testSameAsList() throws Exception
+  {
+    CDOList expected = CDOListImpl.FACTORY.createList(0, 0, 0);
+    CDOLongIDListImpl actual = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+
+    performOperations(new Random(4711), expected, actual, false);
+    assertEquals(true, actual.isLongIDs());
+  }
+
+  public void testSameAsListWithElementProxies() throws Exception
+  {
+    CDOList expected = CDOListWithElementProxiesImpl.FACTORY.createList(20, 20, 5);
+    CDOLongIDListImpl actual = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY_WITH_ELEMENT_PROXIES.createList(20, 20, 5);
+    assertSameElements(expected, actual);
+
+    for (int i = 0; i < 5; i++)
+    {
+      assertEquals(CDORevisionUtil.UNINITIALIZED, actual.get(i));
+    }
+
+    for (int i = 5; i < 20; i++)
+    {
+      assertEquals(i, ((CDOElementProxy)actual.get(i)).getIndex());
+      assertEquals(CDORevisionUtil.UNINITIALIZED, actual.get(i, false));
+    }
+
+    // Load a chunk, as the revision manager does
+    for (int i = 5; i < 10; i++)
+    {
+      CDOID id = CDOIDUtil.createLong(100 + i);
+      ((InternalCDOList)expected).setWithoutFrozenCheck(i, id);
+      actual.setWithoutFrozenCheck(i, id);
+    }
+
+    assertSameElements(expected, actual);
+
+    // Moves and removes leave the proxies with stale indexes until the references are adjusted
+    expected.move(2, 15);
+    actual.move(2, 15);
+    expected.remove(12);
+    actual.remove(12);
+    expected.add(0, CDOIDUtil.createLong(1));
+    actual.add(0, CDOIDUtil.createLong(1));
+    assertSameElements(expected, actual);
+
+    ((InternalCDOList)expected).adjustReferences(NOOP_ADJUSTER, FEATURE);
+    actual.adjustReferences(NOOP_ADJUSTER, FEATURE);
+    assertSameElements(expected, actual);
+    assertEquals(3, ((CDOElementProxy)actual.get(3)).getIndex());
+    assertEquals(true, actual.isLongIDs());
+
+    performOperations(new Random(4712), expected, actual, false);
+    assertEquals(true, actual.isLongIDs());
+  }
+
+  public void testObjectFallback() throws Exception
+  {
+    CDOList expected = CDOListImpl.FACTORY.createList(0, 0, 0);
+    CDOLongIDListImpl actual = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+    for (int i = 1; i <= 10; i++)
+    {
+      expected.add(CDOIDUtil.createLong(i));
+      actual.add(CDOIDUtil.createLong(i));
+    }
+
+    CDOID tempID = CDOIDUtil.createTempObject(1);
+    expected.add(3, tempID);
+    actual.add(3, tempID);
+    assertEquals(false, actual.isLongIDs());
+    assertEquals(null, actual.getLongIDs());
+    assertSameElements(expected, actual);
+    assertEquals(3, actual.indexOf(tempID));
+
+    actual.setLongID(0, 4711L);
+    expected.set(0, CDOIDUtil.createLong(4711L));
+    assertSameElements(expected, actual);
+
+    // Map the temporary ID, as a commit does
+    CDOReferenceAdjuster adjuster = new CDOReferenceAdjuster()
+    {
+      public Object adjustReference(Object id, EStructuralFeature feature, int index)
+      {
+        return ((CDOID)id).isTemporary() ? CDOIDUtil.createLong(4712L) : id;
+      }
+    };
+
+    assertEquals(true, ((InternalCDOList)expected).adjustReferences(adjuster, FEATURE));
+    assertEquals(true, actual.adjustReferences(adjuster, FEATURE));
+    assertSameElements(expected, actual);
+    assertEquals(false, actual.isLongIDs());
+
+    performOperations(new Random(4713), expected, actual, true);
+  }
+
+  public void testMove() throws Exception
+  {
+    for (int targetIndex = 0; targetIndex < 5; targetIndex++)
+    {
+      for (int sourceIndex = 0; sourceIndex < 5; sourceIndex++)
+      {
+        CDOList expected = CDOListImpl.FACTORY.createList(0, 0, 0);
+        CDOLongIDListImpl actual = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+        for (int i = 1; i <= 5; i++)
+        {
+          expected.add(CDOIDUtil.createLong(i));
+          actual.add(CDOIDUtil.createLong(i));
+        }
+
+        assertEquals(expected.move(targetIndex, sourceIndex), actual.move(targetIndex, sourceIndex));
+        assertSameElements(expected, actual);
+      }
+    }
+
+    CDOList expected = CDOListImpl.FACTORY.createList(0, 0, 0);
+    CDOLongIDListImpl actual = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+    for (int i = 1; i <= 5; i++)
+    {
+      expected.add(CDOIDUtil.createLong(i));
+      actual.add(CDOIDUtil.createLong(i));
+    }
+
+    expected.move(4, CDOIDUtil.createLong(2));
+    actual.move(4, CDOIDUtil.createLong(2));
+    assertSameElements(expected, actual);
+
+    try
+    {
+      actual.move(5, 0);
+      fail("IndexOutOfBoundsException expected");
+    }
+    catch (IndexOutOfBoundsException expectedException)
+    {
+      // SUCCESS
+    }
+  }
+
+  public void testWriteLongIDs() throws Exception
+  {
+    long[] values = { 1L, 2L, 3L, 1000000L, 17L, Long.MAX_VALUE, 5L, 5L, 4711L };
+    CDOList list = CDOListImpl.FACTORY.createList(0, 0, 0);
+    CDOLongIDListImpl longIDList = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+    for (int i = 0; i < values.length; i++)
+    {
+      list.add(CDOIDUtil.createLong(values[i]));
+      longIDList.add(CDOIDUtil.createLong(values[i]));
+    }
+
+    assertEquals(true, longIDList.isLongIDs());
+    for (boolean xCompression : new boolean[] { false, true })
+    {
+      byte[] expected = write(list, CDORevision.UNCHUNKED, xCompression);
+      byte[] actual = write(longIDList, CDORevision.UNCHUNKED, xCompression);
+      assertEquals(true, Arrays.equals(expected, actual));
+
+      expected = write(list, 4, xCompression);
+      actual = write(longIDList, 4, xCompression);
+      assertEquals(true, Arrays.equals(expected, actual));
+    }
+  }
+
+  public void testWriteLongIDsWithElementProxies() throws Exception
+  {
+    CDOList list = CDOListWithElementProxiesImpl.FACTORY.createList(10, 10, 4);
+    CDOLongIDListImpl longIDList = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY_WITH_ELEMENT_PROXIES.createList(10, 10,
+        4);
+    for (int i = 0; i < 4; i++)
+    {
+      ((InternalCDOList)list).setWithoutFrozenCheck(i, CDOIDUtil.createLong(10 - i));
+      longIDList.setWithoutFrozenCheck(i, CDOIDUtil.createLong(10 - i));
+    }
+
+    for (boolean xCompression : new boolean[] { false, true })
+    {
+      byte[] expected = write(list, CDORevision.UNCHUNKED, xCompression);
+      byte[] actual = write(longIDList, CDORevision.UNCHUNKED, xCompression);
+      assertEquals(true, Arrays.equals(expected, actual));
+    }
+  }
+
+  public void testRoundTrip() throws Exception
+  {
+    Random random = new Random(4714);
+    for (boolean xCompression : new boolean[] { false, true })
+    {
+      CDOLongIDListImpl list = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+      for (int i = 0; i < 1000; i++)
+      {
+        list.add(CDOIDUtil.createLong(1 + random.nextInt(i % 100 == 0 ? Integer.MAX_VALUE : 1000)));
+      }
+
+      byte[] bytes = write(list, CDORevision.UNCHUNKED, xCompression);
+      CDOList result = read(bytes, CDOListImpl.FACTORY, xCompression);
+      assertEquals(true, result instanceof CDOLongIDListImpl);
+      assertEquals(true, ((CDOLongIDListImpl)result).isLongIDs());
+      assertSameElements(list, result);
+    }
+  }
+
+  public void testRoundTripWithElementProxies() throws Exception
+  {
+    for (boolean xCompression : new boolean[] { false, true })
+    {
+      CDOList list = CDOListWithElementProxiesImpl.FACTORY.createList(10, 10, 3);
+      for (int i = 0; i < 3; i++)
+      {
+        ((InternalCDOList)list).setWithoutFrozenCheck(i, CDOIDUtil.createLong(i + 1));
+      }
+
+      byte[] bytes = write(list, CDORevision.UNCHUNKED, xCompression);
+      CDOList result = read(bytes, CDOListWithElementProxiesImpl.FACTORY, xCompression);
+      assertEquals(true, result instanceof CDOLongIDListImpl);
+      assertSameElements(list, result);
+    }
+  }
+
+  public void testRoundTripWithTemporaryIDs() throws Exception
+  {
+    for (boolean xCompression : new boolean[] { false, true })
+    {
+      CDOLongIDListImpl list = (CDOLongIDListImpl)CDOLongIDListImpl.FACTORY.createList(0, 0, 0);
+      list.add(CDOIDUtil.createLong(3));
+      list.add(CDOIDUtil.createTempObject(1));
+      list.add(CDOIDUtil.createLong(2));
+
+      byte[] bytes = write(list, CDORevision.UNCHUNKED, xCompression);
+      CDOList result = read(bytes, CDOListImpl.FACTORY, xCompression);
+      assertEquals(false, ((CDOLongIDListImpl)result).isLongIDs());
+      assertSameElements(list, result);
+    }
+  }
+
+  /**
+   * Performs random operations on both lists and checks after each one that they have the same elements.
+   */
+  private static void performOperations(Random random, CDOList expected, CDOLongIDListImpl actual,
+      boolean temporaryIDs)
+  {
+    for (int i = 0; i < OPERATIONS; i++)
+    {
+      int size = expected.size();
+      CDOID id = temporaryIDs && random.nextInt(10) == 0 ? CDOIDUtil.createTempObject(1 + random.nextInt(5))
+          : CDOIDUtil.createLong(1 + random.nextInt(50));
+
+      int operation = size < 10 ? 0 : random.nextInt(8);
+      switch (operation)
+      {
+      case 0:
+        assertEquals(expected.add(id), actual.add(id));
+        break;
+
+      case 1:
+      {
+        int index = random.nextInt(size + 1);
+        expected.add(index, id);
+        actual.add(index, id);
+        break;
+      }
+
+      case 2:
+      {
+        int index = random.nextInt(size);
+        assertSameElement(expected.set(index, id), actual.set(index, id));
+        break;
+      }
+
+      case 3:
+      {
+        int index = random.nextInt(size);
+        assertSameElement(expected.remove(index), actual.remove(index));
+        break;
+      }
+
+      case 4:
+        assertEquals(expected.remove(id), actual.remove(id));
+        break;
+
+      case 5:
+      {
+        int targetIndex = random.nextInt(size);
+        int sourceIndex = random.nextInt(size);
+        assertSameElement(expected.move(targetIndex, sourceIndex), actual.move(targetIndex, sourceIndex));
+        break;
+      }
+
+      case 6:
+        if (expected.contains(id))
+        {
+          int newPosition = random.nextInt(size);
+          expected.move(newPosition, id);
+          actual.move(newPosition, id);
+        }
+
+        break;
+
+      case 7:
+        assertEquals(expected.indexOf(id), actual.indexOf(id));
+        assertEquals(expected.lastIndexOf(id), actual.lastIndexOf(id));
+        assertEquals(expected.contains(id), actual.contains(id));
+        break;
+
+      default:
+        fail("Unexpected operation: " + operation);
+      }
+
+      assertSameElements(expected, actual);
+    }
+
+    expected.clear();
+    actual.clear();
+    assertSameElements(expected, actual);
+  }
+
+  private static void assertSameElements(CDOList expected, CDOList actual)
+  {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++)
+    {
+      assertSameElement(expected.get(i), actual.get(i));
+      assertSameElement(expected.get(i, false), actual.get(i, false));
+    }
+  }
+
+  /**
+   * Asserts that the elements are equal, or that both are element proxies with the same index.
+   */
+  private static void assertSameElement(Object expected, Object actual)
+  {
+    if (expected instanceof CDOElementProxy)
+    {
+      assertEquals(true, actual instanceof CDOElementProxy);
+      assertEquals(((CDOElementProxy)expected).getIndex(), ((CDOElementProxy)actual).getIndex());
+    }
+    else
+    {
+      assertEquals(expected, actual);
+    }
+  }
+
+  private static byte[] write(CDOList list, int referenceChunk, final boolean xCompression) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    CDODataOutputImpl out = new CDODataOutputImpl(new ExtendedDataOutputStream(bytes))
+    {
+      @Override
+      public CDOIDProvider getIDProvider()
+      {
+        return CDOIDProvider.NOOP;
+      }
+
+      @Override
+      protected boolean isXCompression()
+      {
+        return xCompression;
+      }
+    };
+
+    out.writeCDOList(OWNER, FEATURE, list, referenceChunk);
+    return bytes.toByteArray();
+  }
+
+  private static CDOList read(byte[] bytes, final CDOListFactory listFactory, final boolean xCompression)
+      throws IOException
+  {
+    ExtendedDataInputStream stream = new ExtendedDataInputStream(new ByteArrayInputStream(bytes));
+    CDODataInputImpl in = new CDODataInputImpl(stream)
+    {
+      @Override
+      protected boolean isXCompression()
+      {
+        return xCompression;
+      }
+
+      @Override
+      protected CDOPackageRegistry getPackageRegistry()
+      {
+        return null;
+      }
+
+      @Override
+      protected CDOBranchManager getBranchManager()
+      {
+        return null;
+      }
+
+      @Override
+      protected CDOCommitInfoManager getCommitInfoManager()
+      {
+        return null;
+      }
+
+      @Override
+      protected CDORevisionFactory getRevisionFactory()
+      {
+        return CDORevisionFactory.DEFAULT;
+      }
+
+      @Override
+      protected CDOListFactory getListFactory()
+      {
+        return listFactory;
+      }
+
+      @Override
+      protected CDOLobStore getLobStore()
+      {
+        return null;
+      }
+    };
+
+    CDOList list = in.readCDOList(OWNER, FEATURE);
+    assertEquals(0, stream.available());
+    return list;
+  }
+}
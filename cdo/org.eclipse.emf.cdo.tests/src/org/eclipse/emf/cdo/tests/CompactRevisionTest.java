@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDORevisionData;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionManager;
+import org.eclipse.emf.cdo.tests.config.impl.RepositoryConfig;
+import org.eclipse.emf.cdo.tests.model2.Model2Package;
+import org.eclipse.emf.cdo.tests.util.TestRevisionManager;
+
+import org.eclipse.emf.ecore.EClass;
+
+/**
+ * Runs the {@link UnsetTest} with revisions that are created by {@link CDORevisionFactory#COMPACT} on the server and
+ * on the client.
+ *
+ * @author Eike Stepper
+ */
+public class CompactRevisionTest extends UnsetTest
+{
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    InternalCDORevisionManager revisionManager = (InternalCDORevisionManager)getRepositoryConfig().getTestProperty(
+        RepositoryConfig.PROP_TEST_REVISION_MANAGER);
+    if (revisionManager == null)
+    {
+      revisionManager = new TestRevisionManager();
+      getRepositoryConfig().getTestProperties().put(RepositoryConfig.PROP_TEST_REVISION_MANAGER, revisionManager);
+    }
+
+    revisionManager.setFactory(CDORevisionFactory.COMPACT);
+    super.doSetUp();
+  }
+
+  /**
+   * @category Session
+   */
+  @Override
+  public CDOSession openSession()
+  {
+    CDOSession session = super.openSession();
+    InternalCDORevisionManager revisionManager = (InternalCDORevisionManager)session.getRevisionManager();
+    revisionManager.deactivate();
+    revisionManager.setFactory(CDORevisionFactory.COMPACT);
+    revisionManager.activate();
+    return session;
+  }
+
+  public void testCopyAndFreeze() throws Exception
+  {
+    Model2Package model2 = getModel2Package();
+    EClass eClass = model2.getUnsettable1();
+
+    InternalCDORevision revision = (InternalCDORevision)CDORevisionFactory.COMPACT.createRevision(eClass);
+    revision.setID(CDOIDUtil.createLong(1));
+    revision.setValue(model2.getUnsettable1_UnsettableInt(), 4711);
+    revision.setValue(model2.getUnsettable1_UnsettableLong(), Long.MIN_VALUE);
+    revision.setValue(model2.getUnsettable1_UnsettableDouble(), -1.5d);
+    revision.setValue(model2.getUnsettable1_UnsettableBoolean(), true);
+    revision.setValue(model2.getUnsettable1_UnsettableChar(), 'x');
+    revision.setValue(model2.getUnsettable1_UnsettableShort(), CDORevisionData.NIL);
+    revision.setValue(model2.getUnsettable1_UnsettableString(), "text");
+
+    InternalCDORevision copy = revision.copy();
+    copy.setValue(model2.getUnsettable1_UnsettableInt(), 42);
+    copy.setValue(model2.getUnsettable1_UnsettableBoolean(), null);
+    copy.setValue(model2.getUnsettable1_UnsettableShort(), (short)7);
+
+    assertEquals(4711, revision.getValue(model2.getUnsettable1_UnsettableInt()));
+    assertEquals(Long.MIN_VALUE, revision.getValue(model2.getUnsettable1_UnsettableLong()));
+    assertEquals(-1.5d, revision.getValue(model2.getUnsettable1_UnsettableDouble()));
+    assertEquals(true, revision.getValue(model2.getUnsettable1_UnsettableBoolean()));
+    assertEquals('x', revision.getValue(model2.getUnsettable1_UnsettableChar()));
+    assertEquals(CDORevisionData.NIL, revision.getValue(model2.getUnsettable1_UnsettableShort()));
+    assertEquals("text", revision.getValue(model2.getUnsettable1_UnsettableString()));
+    assertEquals(null, revision.getValue(model2.getUnsettable1_UnsettableFloat()));
+
+    assertEquals(42, copy.getValue(model2.getUnsettable1_UnsettableInt()));
+    assertEquals(Long.MIN_VALUE, copy.getValue(model2.getUnsettable1_UnsettableLong()));
+    assertEquals(null, copy.getValue(model2.getUnsettable1_UnsettableBoolean()));
+    assertEquals((short)7, copy.getValue(model2.getUnsettable1_UnsettableShort()));
+    assertEquals("text", copy.getValue(model2.getUnsettable1_UnsettableString()));
+
+    revision.freeze();
+
+    try
+    {
+      revision.setValue(model2.getUnsettable1_UnsettableInt(), 1);
+      fail("IllegalStateException expected");
+    }
+    catch (IllegalStateException expected)
+    {
+      // SUCCESS
+    }
+
+    assertEquals(4711, revision.getValue(model2.getUnsettable1_UnsettableInt()));
+  }
+}
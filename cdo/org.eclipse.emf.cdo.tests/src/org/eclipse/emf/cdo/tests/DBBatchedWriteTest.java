@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.server.IStore;
+import org.eclipse.emf.cdo.server.StoreThreadLocal;
+import org.eclipse.emf.cdo.server.db.CDODBUtil;
+import org.eclipse.emf.cdo.server.db.IDBStore;
+import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
+import org.eclipse.emf.cdo.server.db.mapping.IClassMapping;
+import org.eclipse.emf.cdo.server.db.mapping.IClassMappingBulkSupport;
+import org.eclipse.emf.cdo.server.db.mapping.IMappingStrategy;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.server.InternalRepository;
+import org.eclipse.emf.cdo.tests.model1.Category;
+import org.eclipse.emf.cdo.tests.model1.Company;
+import org.eclipse.emf.cdo.tests.model1.Model1Factory;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+import org.eclipse.emf.cdo.tests.model1.Supplier;
+import org.eclipse.emf.cdo.tests.revisioncache.Session;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+import org.eclipse.emf.cdo.util.CDOUtil;
+
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.db.ddl.IDBTable;
+import org.eclipse.net4j.db.h2.H2Adapter;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.eclipse.net4j.util.om.monitor.Monitor;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that the batched write path of the DB store produces the same rows as writing the revisions one by one.
+ *
+ * @author Eike Stepper
+ */
+public class DBBatchedWriteTest extends AbstractOMTest
+{
+  private static final int COMPANIES = 20;
+
+  private Session sessionHolder;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    final File folder = createTempFolder("h2db");
+
+    sessionHolder = new Session()
+    {
+      @Override
+      protected IStore createStore()
+      {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:" + folder.getAbsolutePath() + "/batched");
+
+        IMappingStrategy mappingStrategy = CDODBUtil.createHorizontalMappingStrategy(false);
+        return CDODBUtil.createStore(mappingStrategy, new H2Adapter(), DBUtil.createConnectionProvider(dataSource));
+      }
+    };
+
+    LifecycleUtil.activate(sessionHolder);
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    LifecycleUtil.deactivate(sessionHolder);
+    sessionHolder = null;
+    super.doTearDown();
+  }
+
+  public void testBatchedAndSingleWritesProduceSameRows() throws Exception
+  {
+    CDOSession session = sessionHolder.getSession(Model1Package.eINSTANCE);
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource("/res");
+
+    List<Company> companies = new ArrayList<Company>();
+    List<Supplier> suppliers = new ArrayList<Supplier>();
+    for (int i = 0; i < COMPANIES; i++)
+    {
+      Company company = Model1Factory.eINSTANCE.createCompany();
+      company.setName("company" + i);
+      company.setCity(i % 3 == 0 ? null : "city" + i);
+
+      for (int j = 0; j < i % 4; j++)
+      {
+        Supplier supplier = Model1Factory.eINSTANCE.createSupplier();
+        supplier.setName("supplier" + i + "." + j);
+        supplier.setPreferred(j % 2 == 0);
+        company.getSuppliers().add(supplier);
+        suppliers.add(supplier);
+
+        Category category = Model1Factory.eINSTANCE.createCategory();
+        category.setName("category" + i + "." + j);
+        company.getCategories().add(category);
+      }
+
+      resource.getContents().add(company);
+      companies.add(company);
+    }
+
+    transaction.commit();
+
+    InternalRepository repository = (InternalRepository)sessionHolder.getRepository();
+    StoreThreadLocal.setSession(repository.getSessionManager().getSession(session.getSessionID()));
+
+    try
+    {
+      IDBStore store = (IDBStore)repository.getStore();
+      IDBStoreAccessor accessor = (IDBStoreAccessor)StoreThreadLocal.getAccessor();
+      Connection connection = accessor.getConnection();
+
+      try
+      {
+        assertSameRows(accessor, store, getRevisions(repository, companies));
+        assertSameRows(accessor, store, getRevisions(repository, suppliers));
+      }
+      finally
+      {
+        connection.rollback();
+      }
+    }
+    finally
+    {
+      StoreThreadLocal.release();
+    }
+  }
+
+  private void assertSameRows(IDBStoreAccessor accessor, IDBStore store, List<InternalCDORevision> revisions)
+      throws SQLException
+  {
+    EClass eClass = revisions.get(0).getEClass();
+    IClassMapping mapping = store.getMappingStrategy().getClassMapping(eClass);
+    assertEquals(true, mapping instanceof IClassMappingBulkSupport);
+
+    List<IDBTable> tables = mapping.getDBTables();
+    List<String> committedRows = readRows(accessor, tables);
+    assertEquals(true, committedRows.size() >= revisions.size());
+
+    deleteRows(accessor, tables);
+    for (InternalCDORevision revision : revisions)
+    {
+      mapping.writeRevision(accessor, revision, false, false, new Monitor());
+    }
+
+    assertEquals(committedRows, readRows(accessor, tables));
+
+    deleteRows(accessor, tables);
+    ((IClassMappingBulkSupport)mapping).writeRevisions(accessor, revisions, false, false, new Monitor());
+
+    assertEquals(committedRows, readRows(accessor, tables));
+  }
+
+  private static List<InternalCDORevision> getRevisions(InternalRepository repository, List<? extends EObject> objects)
+  {
+    List<InternalCDORevision> revisions = new ArrayList<InternalCDORevision>();
+    for (EObject object : objects)
+    {
+      CDORevision revision = CDOUtil.getCDOObject(object).cdoRevision();
+      revisions.add(repository.getRevisionManager().getRevision(revision.getID(),
+          repository.getBranchManager().getMainBranch().getHead(), CDORevision.UNCHUNKED, CDORevision.DEPTH_NONE,
+          true));
+    }
+
+    return revisions;
+  }
+
+  private static List<String> readRows(IDBStoreAccessor accessor, List<IDBTable> tables) throws SQLException
+  {
+    List<String> rows = new ArrayList<String>();
+    Statement statement = accessor.getConnection().createStatement();
+
+    try
+    {
+      for (IDBTable table : tables)
+      {
+        ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table.getName()); //$NON-NLS-1$
+        int columns = resultSet.getMetaData().getColumnCount();
+        while (resultSet.next())
+        {
+          StringBuilder builder = new StringBuilder(table.getName());
+          for (int i = 1; i <= columns; i++)
+          {
+            builder.append('|');
+            builder.append(resultSet.getObject(i));
+          }
+
+          rows.add(builder.toString());
+        }
+
+        DBUtil.close(resultSet);
+      }
+    }
+    finally
+    {
+      DBUtil.close(statement);
+    }
+
+    Collections.sort(rows);
+    return rows;
+  }
+
+  private static void deleteRows(IDBStoreAccessor accessor, List<IDBTable> tables) throws SQLException
+  {
+    Statement statement = accessor.getConnection().createStatement();
+
+    try
+    {
+      for (IDBTable table : tables)
+      {
+        statement.executeUpdate("DELETE FROM " + table.getName()); //$NON-NLS-1$
+      }
+    }
+    finally
+    {
+      DBUtil.close(statement);
+    }
+  }
+}
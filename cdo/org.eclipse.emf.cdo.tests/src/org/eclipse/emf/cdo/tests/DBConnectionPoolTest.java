@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.net4j.db.DBException;
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.db.IDBAdapter;
+import org.eclipse.net4j.db.IDBConnectionPool;
+import org.eclipse.net4j.db.IDBConnectionProvider;
+import org.eclipse.net4j.db.derby.EmbeddedDerbyAdapter;
+import org.eclipse.net4j.db.h2.H2Adapter;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Eike Stepper
+ */
+public abstract class DBConnectionPoolTest extends AbstractOMTest
+{
+  private List<Connection> physicalConnections = new ArrayList<Connection>();
+
+  private IDBConnectionPool pool;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    final DataSource dataSource = createDataSource();
+    IDBConnectionProvider connectionProvider = new IDBConnectionProvider()
+    {
+      public Connection getConnection() throws DBException
+      {
+        try
+        {
+          Connection connection = dataSource.getConnection();
+          physicalConnections.add(connection);
+          return connection;
+        }
+        catch (SQLException ex)
+        {
+          throw new DBException(ex);
+        }
+      }
+    };
+
+    pool = DBUtil.createConnectionPool(connectionProvider, getAdapter());
+    pool.setMaxSize(2);
+    pool.setCheckoutTimeout(200);
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    LifecycleUtil.deactivate(pool);
+    pool = null;
+    physicalConnections = null;
+    super.doTearDown();
+  }
+
+  public void testReuse() throws Exception
+  {
+    pool.activate();
+
+    Connection connection = pool.getConnection();
+    connection.close();
+    assertEquals(true, connection.isClosed());
+
+    connection = pool.getConnection();
+    connection.close();
+
+    assertEquals(1, physicalConnections.size());
+    assertEquals(1, pool.getSize());
+    assertEquals(1, pool.getIdleCount());
+    assertEquals(0, pool.getActiveCount());
+    assertEquals(2, pool.getCheckoutCount());
+  }
+
+  public void testClosedConnection() throws Exception
+  {
+    pool.activate();
+
+    Connection connection = pool.getConnection();
+    connection.close();
+    connection.close();
+
+    try
+    {
+      connection.createStatement();
+      fail("SQLException expected");
+    }
+    catch (SQLException expected)
+    {
+      // SUCCESS
+    }
+
+    assertEquals(1, pool.getIdleCount());
+  }
+
+  public void testStatementCache() throws Exception
+  {
+    pool.activate();
+    String sql = getAdapter().getValidationQuery();
+
+    for (int i = 0; i < 3; i++)
+    {
+      Connection connection = pool.getConnection();
+      PreparedStatement statement = connection.prepareStatement(sql);
+      ResultSet resultSet = statement.executeQuery();
+      assertEquals(true, resultSet.next());
+      assertEquals(1, resultSet.getInt(1));
+      resultSet.close();
+
+      assertSame(connection, statement.getConnection());
+      statement.close();
+      assertEquals(true, statement.isClosed());
+      connection.close();
+    }
+
+    assertEquals(1, pool.getStatementMissCount());
+    assertEquals(2, pool.getStatementHitCount());
+  }
+
+  public void testStatementCacheResetsSettings() throws Exception
+  {
+    pool.activate();
+
+    Connection connection = pool.getConnection();
+    connection.createStatement().execute("CREATE TABLE POOLTEST (ID INTEGER)");
+    connection.createStatement().execute("INSERT INTO POOLTEST VALUES (1)");
+    connection.createStatement().execute("INSERT INTO POOLTEST VALUES (2)");
+    connection.createStatement().execute("INSERT INTO POOLTEST VALUES (3)");
+
+    PreparedStatement statement = connection.prepareStatement("SELECT ID FROM POOLTEST");
+    statement.setMaxRows(1);
+    statement.setQueryTimeout(10);
+    statement.setFetchSize(1);
+    assertEquals(1, countRows(statement.executeQuery()));
+    statement.close();
+    connection.close();
+
+    connection = pool.getConnection();
+    statement = connection.prepareStatement("SELECT ID FROM POOLTEST");
+    assertEquals(1, pool.getStatementHitCount());
+    assertEquals(0, statement.getMaxRows());
+    assertEquals(0, statement.getQueryTimeout());
+    assertEquals(3, countRows(statement.executeQuery()));
+    statement.close();
+    connection.close();
+  }
+
+  public void testRollback() throws Exception
+  {
+    pool.activate();
+
+    Connection connection = pool.getConnection();
+    connection.setAutoCommit(false);
+    connection.createStatement().execute("CREATE TABLE POOLTEST (ID INTEGER)");
+    connection.commit();
+    connection.createStatement().execute("INSERT INTO POOLTEST VALUES (1)");
+    connection.close();
+
+    connection = pool.getConnection();
+    assertEquals(true, connection.getAutoCommit());
+
+    ResultSet resultSet = connection.createStatement().executeQuery("SELECT COUNT(*) FROM POOLTEST");
+    assertEquals(true, resultSet.next());
+    assertEquals(0, resultSet.getInt(1));
+    resultSet.close();
+
+    connection.createStatement().execute("DROP TABLE POOLTEST");
+    connection.close();
+  }
+
+  public void testTimeout() throws Exception
+  {
+    pool.activate();
+
+    Connection connection1 = pool.getConnection();
+    Connection connection2 = pool.getConnection();
+
+    try
+    {
+      pool.getConnection();
+      fail("DBException expected");
+    }
+    catch (DBException expected)
+    {
+      // SUCCESS
+    }
+
+    assertEquals(1, pool.getWaitCount());
+    assertEquals(1, pool.getTimeoutCount());
+
+    connection1.close();
+    pool.getConnection().close();
+    connection2.close();
+
+    assertEquals(2, pool.getSize());
+  }
+
+  public void testValidation() throws Exception
+  {
+    pool.setValidationInterval(0);
+    pool.activate();
+
+    pool.getConnection().close();
+    physicalConnections.get(0).close();
+
+    Connection connection = pool.getConnection();
+    connection.close();
+
+    assertEquals(1, pool.getValidationFailureCount());
+    assertEquals(2, physicalConnections.size());
+    assertEquals(1, pool.getSize());
+  }
+
+  public void testMinSize() throws Exception
+  {
+    pool.setMinSize(1);
+    pool.setIdleTimeout(100);
+    pool.activate();
+
+    assertEquals(1, physicalConnections.size());
+    assertEquals(1, pool.getIdleCount());
+
+    Connection connection1 = pool.getConnection();
+    Connection connection2 = pool.getConnection();
+    connection1.close();
+    connection2.close();
+    assertEquals(2, pool.getIdleCount());
+
+    long end = System.currentTimeMillis() + 5000;
+    while (pool.getSize() > 1 && System.currentTimeMillis() < end)
+    {
+      sleep(50);
+    }
+
+    assertEquals(1, pool.getSize());
+    assertEquals(1, pool.getDestroyedCount());
+  }
+
+  public void testLeak() throws Exception
+  {
+    pool.setLeakTimeout(100);
+    pool.activate();
+
+    Connection connection = pool.getConnection();
+
+    long end = System.currentTimeMillis() + 5000;
+    while (pool.getLeakCount() == 0 && System.currentTimeMillis() < end)
+    {
+      sleep(50);
+    }
+
+    assertEquals(1, pool.getLeakCount());
+    connection.close();
+  }
+
+  public void testDeactivate() throws Exception
+  {
+    pool.activate();
+
+    Connection connection1 = pool.getConnection();
+    Connection connection2 = pool.getConnection();
+    connection1.close();
+
+    pool.deactivate();
+    assertEquals(true, physicalConnections.get(0).isClosed());
+    assertEquals(false, physicalConnections.get(1).isClosed());
+
+    connection2.close();
+    assertEquals(true, physicalConnections.get(1).isClosed());
+    assertEquals(0, pool.getSize());
+  }
+
+  private static int countRows(ResultSet resultSet) throws SQLException
+  {
+    int count = 0;
+    while (resultSet.next())
+    {
+      ++count;
+    }
+
+    resultSet.close();
+    return count;
+  }
+
+  protected abstract DataSource createDataSource();
+
+  protected abstract IDBAdapter getAdapter();
+
+  /**
+   * @author Eike Stepper
+   */
+  public static class H2 extends DBConnectionPoolTest
+  {
+    @Override
+    protected DataSource createDataSource()
+    {
+      JdbcDataSource dataSource = new JdbcDataSource();
+      dataSource.setURL("jdbc:h2:" + createTempFolder("h2db").getAbsolutePath() + "/pool");
+      return dataSource;
+    }
+
+    @Override
+    protected IDBAdapter getAdapter()
+    {
+      return new H2Adapter();
+    }
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  public static class Derby extends DBConnectionPoolTest
+  {
+    @Override
+    protected DataSource createDataSource()
+    {
+      Map<Object, Object> properties = new HashMap<Object, Object>();
+      properties.put("class", "org.apache.derby.jdbc.EmbeddedDataSource");
+      properties.put("databaseName", createTempFolder("derbydb").getAbsolutePath() + "/pool");
+      properties.put("createDatabase", "create");
+      return DBUtil.createDataSource(properties);
+    }
+
+    @Override
+    protected IDBAdapter getAdapter()
+    {
+      return new EmbeddedDerbyAdapter();
+    }
+  }
+}
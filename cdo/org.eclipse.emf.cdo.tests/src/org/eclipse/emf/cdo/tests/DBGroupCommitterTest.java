@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.server.internal.db.DBGroupCommitter;
+
+import org.eclipse.net4j.db.DBException;
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+import org.eclipse.net4j.util.tests.ConcurrentRunner;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Eike Stepper
+ */
+public class DBGroupCommitterTest extends AbstractOMTest
+{
+  private static final int THREADS = 8;
+
+  private static final int COMMITS = 50;
+
+  private static final int MAX_SIZE = 2;
+
+  private static final long WINDOW = 5;
+
+  private JdbcDataSource dataSource;
+
+  private Connection verificationConnection;
+
+  private FailingGroupCommitter committer;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:" + createTempFolder("h2db").getAbsolutePath() + "/group");
+
+    verificationConnection = dataSource.getConnection();
+    Statement statement = verificationConnection.createStatement();
+    statement.execute("CREATE TABLE RECORDS (ID INT PRIMARY KEY)"); //$NON-NLS-1$
+    DBUtil.close(statement);
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    LifecycleUtil.deactivate(committer);
+    committer = null;
+
+    DBUtil.close(verificationConnection);
+    verificationConnection = null;
+    dataSource = null;
+    super.doTearDown();
+  }
+
+  public void testCommit() throws Throwable
+  {
+    committer = new FailingGroupCommitter(0);
+    committer.activate();
+
+    Set<Integer> committed = insertConcurrently();
+    assertEquals(THREADS * COMMITS, committed.size());
+    assertEquals(committed, readRecords());
+  }
+
+  public void testCommitFailure() throws Throwable
+  {
+    committer = new FailingGroupCommitter(3);
+    committer.activate();
+
+    Set<Integer> committed = insertConcurrently();
+    assertEquals(true, committer.getFailures() > 0);
+    assertEquals(true, committed.size() < THREADS * COMMITS);
+
+    // No member of a group must report success for changes that were rolled back with a failed group
+    assertEquals(committed, readRecords());
+  }
+
+  private Set<Integer> insertConcurrently() throws Throwable
+  {
+    final Set<Integer> committed = Collections.synchronizedSet(new HashSet<Integer>());
+    Runnable[] runnables = new Runnable[THREADS];
+    for (int t = 0; t < THREADS; t++)
+    {
+      final int offset = t * COMMITS;
+      runnables[t] = new Runnable()
+      {
+        public void run()
+        {
+          for (int i = 0; i < COMMITS; i++)
+          {
+            int id = offset + i;
+            insert(id);
+
+            try
+            {
+              committer.commit();
+              committed.add(id);
+            }
+            catch (DBException expected)
+            {
+              // The record must not be committed
+            }
+          }
+        }
+      };
+    }
+
+    ConcurrentRunner.run(runnables, THREADS, 1);
+    return committed;
+  }
+
+  private void insert(int id)
+  {
+    Savepoint savepoint = committer.beginWrite();
+    PreparedStatement statement = null;
+
+    try
+    {
+      statement = committer.getConnection().prepareStatement("INSERT INTO RECORDS VALUES (?)"); //$NON-NLS-1$
+      statement.setInt(1, id);
+      statement.executeUpdate();
+    }
+    catch (SQLException ex)
+    {
+      committer.abortWrite(savepoint);
+      throw new DBException(ex);
+    }
+    finally
+    {
+      DBUtil.close(statement);
+    }
+  }
+
+  private Set<Integer> readRecords() throws SQLException
+  {
+    Set<Integer> result = new HashSet<Integer>();
+    Statement statement = verificationConnection.createStatement();
+
+    try
+    {
+      ResultSet resultSet = statement.executeQuery("SELECT ID FROM RECORDS"); //$NON-NLS-1$
+      while (resultSet.next())
+      {
+        result.add(resultSet.getInt(1));
+      }
+
+      return result;
+    }
+    finally
+    {
+      DBUtil.close(statement);
+    }
+  }
+
+  /**
+   * A group committer whose connection fails every n-th physical commit.
+   *
+   * @author Eike Stepper
+   */
+  private final class FailingGroupCommitter extends DBGroupCommitter
+  {
+    private int failureRate;
+
+    private AtomicInteger commits = new AtomicInteger();
+
+    private AtomicInteger failures = new AtomicInteger();
+
+    public FailingGroupCommitter(int failureRate)
+    {
+      super(null, MAX_SIZE, WINDOW);
+      this.failureRate = failureRate;
+    }
+
+    public int getFailures()
+    {
+      return failures.get();
+    }
+
+    @Override
+    protected Connection openConnection()
+    {
+      try
+      {
+        final Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+            new InvocationHandler()
+            {
+              public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+              {
+                if (method.getName().equals("commit") && failureRate != 0 //$NON-NLS-1$
+                    && commits.incrementAndGet() % failureRate == 0)
+                {
+                  failures.incrementAndGet();
+                  throw new SQLException("Injected commit failure"); //$NON-NLS-1$
+                }
+
+                try
+                {
+                  return method.invoke(connection, args);
+                }
+                catch (InvocationTargetException ex)
+                {
+                  throw ex.getTargetException();
+                }
+              }
+            });
+      }
+      catch (SQLException ex)
+      {
+        throw new DBException(ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.model.CDOClassifierRef;
+import org.eclipse.emf.cdo.common.protocol.CDODataInput;
+import org.eclipse.emf.cdo.common.protocol.CDODataOutput;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.server.IStore;
+import org.eclipse.emf.cdo.server.StoreThreadLocal;
+import org.eclipse.emf.cdo.server.db.CDODBUtil;
+import org.eclipse.emf.cdo.server.db.IDBStore;
+import org.eclipse.emf.cdo.server.db.IDBStoreAccessor;
+import org.eclipse.emf.cdo.server.db.IIDHandler;
+import org.eclipse.emf.cdo.server.internal.db.IObjectTypeMapper;
+import org.eclipse.emf.cdo.server.internal.db.LongIDHandler;
+import org.eclipse.emf.cdo.server.internal.db.mapping.horizontal.LongObjectTypeCache;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.spi.server.InternalRepository;
+import org.eclipse.emf.cdo.tests.model1.Model1Factory;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+import org.eclipse.emf.cdo.tests.revisioncache.Session;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+import org.eclipse.emf.cdo.util.CDOUtil;
+
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.db.h2.H2Adapter;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.eclipse.net4j.util.om.monitor.OMMonitor;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+import org.eclipse.net4j.util.tests.ConcurrentRunner;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Eike Stepper
+ */
+public class DBObjectTypeCacheTest extends AbstractOMTest
+{
+  private static final int OBJECTS = 20;
+
+  private static final int THREADS = 8;
+
+  private static final int LOOKUPS = 20000;
+
+  private List<CDOID> ids = new ArrayList<CDOID>();
+
+  private Map<CDOID, EClass> types = new HashMap<CDOID, EClass>();
+
+  private Session sessionHolder;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    final File folder = createTempFolder("h2db");
+
+    sessionHolder = new Session()
+    {
+      @Override
+      protected IStore createStore()
+      {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:" + folder.getAbsolutePath() + "/types");
+        return CDODBUtil.createStore(CDODBUtil.createHorizontalMappingStrategy(false), new H2Adapter(),
+            DBUtil.createConnectionProvider(dataSource));
+      }
+    };
+
+    LifecycleUtil.activate(sessionHolder);
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    LifecycleUtil.deactivate(sessionHolder);
+    sessionHolder = null;
+    super.doTearDown();
+  }
+
+  public void testWarmUp() throws Exception
+  {
+    CDOSession session = commitObjects();
+    StoreThreadLocal.setSession(getRepository().getSessionManager().getSession(session.getSessionID()));
+
+    try
+    {
+      // A single bucket that can only hold the most recently created objects
+      TypeMapper delegate = new TypeMapper();
+      LongObjectTypeCache cache = createCache(delegate, LongObjectTypeCache.WAYS, true);
+
+      try
+      {
+        IDBStoreAccessor accessor = (IDBStoreAccessor)StoreThreadLocal.getAccessor();
+        for (int i = 0; i < OBJECTS; i++)
+        {
+          CDOID id = ids.get(i);
+          assertEquals(new CDOClassifierRef(types.get(id)), cache.getObjectType(accessor, id));
+
+          boolean cached = i >= OBJECTS - LongObjectTypeCache.WAYS;
+          assertEquals(cached ? 0 : 1, delegate.getMisses());
+          delegate.resetMisses();
+        }
+      }
+      finally
+      {
+        LifecycleUtil.deactivate(cache);
+      }
+    }
+    finally
+    {
+      StoreThreadLocal.release();
+    }
+  }
+
+  public void testClockEviction() throws Exception
+  {
+    CDOSession session = commitObjects();
+    StoreThreadLocal.setSession(getRepository().getSessionManager().getSession(session.getSessionID()));
+
+    try
+    {
+      // A single bucket, so that every insertion into the full bucket evicts a slot
+      TypeMapper delegate = new TypeMapper();
+      LongObjectTypeCache cache = createCache(delegate, LongObjectTypeCache.WAYS, false);
+
+      try
+      {
+        IDBStoreAccessor accessor = (IDBStoreAccessor)StoreThreadLocal.getAccessor();
+        for (int i = 0; i < LongObjectTypeCache.WAYS; i++)
+        {
+          CDOID id = ids.get(i);
+          cache.putObjectType(accessor, CDORevision.UNSPECIFIED_DATE, id, types.get(id));
+        }
+
+        // Reference the first half of the slots
+        int referenced = LongObjectTypeCache.WAYS / 2;
+        for (int i = 0; i < referenced; i++)
+        {
+          assertCached(cache, delegate, accessor, i, true);
+        }
+
+        // The hand passes the referenced slots and evicts the first unreferenced one
+        CDOID id = ids.get(LongObjectTypeCache.WAYS);
+        cache.putObjectType(accessor, CDORevision.UNSPECIFIED_DATE, id, types.get(id));
+        assertCached(cache, delegate, accessor, LongObjectTypeCache.WAYS, true);
+        assertCached(cache, delegate, accessor, referenced, false);
+        for (int i = 0; i < LongObjectTypeCache.WAYS; i++)
+        {
+          assertCached(cache, delegate, accessor, i, i != referenced);
+        }
+
+        // All slots are referenced again, so the hand clears a full round and evicts the slot behind the last victim
+        id = ids.get(LongObjectTypeCache.WAYS + 1);
+        cache.putObjectType(accessor, CDORevision.UNSPECIFIED_DATE, id, types.get(id));
+        for (int i = 0; i <= LongObjectTypeCache.WAYS + 1; i++)
+        {
+          assertCached(cache, delegate, accessor, i, i != referenced && i != referenced + 1);
+        }
+      }
+      finally
+      {
+        LifecycleUtil.deactivate(cache);
+      }
+    }
+    finally
+    {
+      StoreThreadLocal.release();
+    }
+  }
+
+  public void testConcurrentReuseOfSlots() throws Throwable
+  {
+    CDOSession session = commitObjects();
+    StoreThreadLocal.setSession(getRepository().getSessionManager().getSession(session.getSessionID()));
+
+    try
+    {
+      // All objects compete for the slots of a single bucket, so that the slots are reused all the time
+      TypeMapper delegate = new TypeMapper();
+      final LongObjectTypeCache cache = createCache(delegate, LongObjectTypeCache.WAYS, false);
+
+      try
+      {
+        final IDBStoreAccessor accessor = (IDBStoreAccessor)StoreThreadLocal.getAccessor();
+        for (CDOID id : ids)
+        {
+          // Maps the class IDs while the accessor is available
+          cache.putObjectType(accessor, CDORevision.UNSPECIFIED_DATE, id, types.get(id));
+        }
+
+        Runnable[] runnables = new Runnable[THREADS];
+        for (int t = 0; t < THREADS; t++)
+        {
+          final int offset = t;
+          runnables[t] = new Runnable()
+          {
+            public void run()
+            {
+              for (int i = 0; i < LOOKUPS; i++)
+              {
+                CDOID id = ids.get((i * 7 + offset) % OBJECTS);
+                if (i % 3 == 0)
+                {
+                  cache.putObjectType(accessor, CDORevision.UNSPECIFIED_DATE, id, types.get(id));
+                }
+                else if (i % 17 == 0)
+                {
+                  cache.removeObjectType(accessor, id);
+                }
+                else
+                {
+                  assertEquals(new CDOClassifierRef(types.get(id)), cache.getObjectType(accessor, id));
+                }
+              }
+            }
+          };
+        }
+
+        ConcurrentRunner.run(runnables, THREADS, 1);
+      }
+      finally
+      {
+        LifecycleUtil.deactivate(cache);
+      }
+    }
+    finally
+    {
+      StoreThreadLocal.release();
+    }
+  }
+
+  /**
+   * Commits the objects one by one, so that their creation times define their order.
+   */
+  private CDOSession commitObjects() throws Exception
+  {
+    InternalRepository repository = getRepository();
+    IDBStore store = (IDBStore)repository.getStore();
+    assertEquals(true, store.getIDHandler() instanceof LongIDHandler);
+
+    CDOSession session = sessionHolder.getSession(Model1Package.eINSTANCE);
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource("/res");
+
+    for (int i = 0; i < OBJECTS; i++)
+    {
+      EObject object;
+      if (i % 2 == 0)
+      {
+        object = Model1Factory.eINSTANCE.createCompany();
+      }
+      else
+      {
+        object = Model1Factory.eINSTANCE.createSupplier();
+      }
+
+      resource.getContents().add(object);
+      transaction.commit();
+
+      CDORevision revision = repository.getRevisionManager().getRevision(CDOUtil.getCDOObject(object).cdoID(),
+          repository.getBranchManager().getMainBranch().getHead(), CDORevision.UNCHUNKED, CDORevision.DEPTH_NONE,
+          true);
+      ids.add(revision.getID());
+      types.put(revision.getID(), revision.getEClass());
+    }
+
+    return session;
+  }
+
+  private void assertCached(LongObjectTypeCache cache, TypeMapper delegate, IDBStoreAccessor accessor, int i,
+      boolean cached)
+  {
+    CDOID id = ids.get(i);
+    assertEquals(new CDOClassifierRef(types.get(id)), cache.getObjectType(accessor, id));
+    assertEquals(cached ? 0 : 1, delegate.getMisses());
+    delegate.resetMisses();
+  }
+
+  private InternalRepository getRepository()
+  {
+    return (InternalRepository)sessionHolder.getRepository();
+  }
+
+  private LongObjectTypeCache createCache(IObjectTypeMapper delegate, int capacity, boolean warmUp)
+  {
+    IDBStore store = (IDBStore)getRepository().getStore();
+    LongObjectTypeCache cache = new LongObjectTypeCache(capacity);
+    cache.setMappingStrategy(store.getMappingStrategy());
+    cache.setDelegate(delegate);
+    cache.setWarmUp(warmUp);
+    cache.activate();
+    return cache;
+  }
+
+  /**
+   * Answers the object types that the test has committed and counts how often it is asked.
+   *
+   * @author Eike Stepper
+   */
+  private final class TypeMapper implements IObjectTypeMapper
+  {
+    private AtomicInteger misses = new AtomicInteger();
+
+    public int getMisses()
+    {
+      return misses.get();
+    }
+
+    public void resetMisses()
+    {
+      misses.set(0);
+    }
+
+    public CDOClassifierRef getObjectType(IDBStoreAccessor accessor, CDOID id)
+    {
+      misses.incrementAndGet();
+      return new CDOClassifierRef(types.get(id));
+    }
+
+    public Map<CDOID, CDOClassifierRef> getObjectTypes(IDBStoreAccessor accessor, Collection<CDOID> ids)
+    {
+      Map<CDOID, CDOClassifierRef> result = new HashMap<CDOID, CDOClassifierRef>();
+      for (CDOID id : ids)
+      {
+        result.put(id, getObjectType(accessor, id));
+      }
+
+      return result;
+    }
+
+    public void putObjectType(IDBStoreAccessor accessor, long timeStamp, CDOID id, EClass type)
+    {
+    }
+
+    public void removeObjectType(IDBStoreAccessor accessor, CDOID id)
+    {
+    }
+
+    public CDOID getMaxID(Connection connection, IIDHandler idHandler)
+    {
+      return null;
+    }
+
+    public void rawExport(Connection connection, CDODataOutput out, long fromCommitTime, long toCommitTime)
+    {
+    }
+
+    public void rawImport(Connection connection, CDODataInput in, OMMonitor monitor)
+    {
+    }
+  }
+}
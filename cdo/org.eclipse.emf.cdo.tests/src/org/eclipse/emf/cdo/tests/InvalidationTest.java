@@ -819,4 +819,60 @@ public class InvalidationTest extends AbstractCDOTest
       }
     }.assertNoTimeOut();
   }
+
+  public void testPassiveUpdateMode_Mixed() throws Exception
+  {
+    Category categoryA = getModel1Factory().createCategory();
+    categoryA.setName("category1");
+
+    CDOSession sessionA = openSession();
+    CDOTransaction transaction = sessionA.openTransaction();
+    CDOResource resourceA = transaction.createResource(getResourcePath("/test1"));
+
+    resourceA.getContents().add(categoryA);
+    transaction.commit();
+
+    // ************************************************************* //
+
+    // Sessions B and C share the same commit notification, session D gets a different one
+    Category categoryB = openCategory(PassiveUpdateMode.CHANGES);
+    Category categoryC = openCategory(PassiveUpdateMode.CHANGES);
+    final Category categoryD = openCategory(PassiveUpdateMode.INVALIDATIONS);
+
+    final TestAdapter testAdapterB = new TestAdapter();
+    categoryB.eAdapters().add(testAdapterB);
+
+    final TestAdapter testAdapterC = new TestAdapter();
+    categoryC.eAdapters().add(testAdapterC);
+
+    // ************************************************************* //
+
+    categoryA.setName("CHANGED");
+    transaction.commit();
+
+    new PollingTimeOuter()
+    {
+      @Override
+      protected boolean successful()
+      {
+        return testAdapterB.getNotifications().length != 0 && testAdapterC.getNotifications().length != 0
+            && "CHANGED".equals(categoryD.getName());
+      }
+    }.assertNoTimeOut();
+
+    assertEquals("category1", testAdapterB.getNotifications()[0].getOldStringValue());
+    assertEquals("CHANGED", testAdapterB.getNotifications()[0].getNewStringValue());
+    assertEquals("category1", testAdapterC.getNotifications()[0].getOldStringValue());
+    assertEquals("CHANGED", testAdapterC.getNotifications()[0].getNewStringValue());
+  }
+
+  private Category openCategory(PassiveUpdateMode passiveUpdateMode)
+  {
+    CDOSession session = openSession();
+    session.options().setPassiveUpdateMode(passiveUpdateMode);
+
+    CDOView view = session.openView();
+    CDOResource resource = view.getResource(getResourcePath("/test1"));
+    return (Category)resource.getContents().get(0);
+  }
 }
@@ -32,8 +32,10 @@ import org.eclipse.emf.cdo.util.StaleRevisionLockException;
 import org.eclipse.emf.cdo.view.CDOView;
 
 import org.eclipse.net4j.util.concurrent.IRWLockManager.LockType;
+import org.eclipse.net4j.util.concurrent.IRWOLockManager;
 import org.eclipse.net4j.util.concurrent.RWOLockManager;
 import org.eclipse.net4j.util.concurrent.RWOLockManager.LockState;
+import org.eclipse.net4j.util.concurrent.StripedRWOLockManager;
 import org.eclipse.net4j.util.concurrent.TimeoutRuntimeException;
 import org.eclipse.net4j.util.io.IOUtil;
 
@@ -42,6 +44,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -53,7 +56,16 @@ public class LockingManagerTest extends AbstractLockingTest
 {
   public void testUnlockAll() throws Exception
   {
-    final RWOLockManager<Integer, Integer> lockingManager = new RWOLockManager<Integer, Integer>();
+    unlockAll(new RWOLockManager<Integer, Integer>());
+  }
+
+  public void testUnlockAllStriped() throws Exception
+  {
+    unlockAll(new StripedRWOLockManager<Integer, Integer>());
+  }
+
+  private void unlockAll(final IRWOLockManager<Integer, Integer> lockingManager) throws Exception
+  {
 
     Set<Integer> keys = new HashSet<Integer>();
     keys.add(1);
@@ -66,7 +78,16 @@ public class LockingManagerTest extends AbstractLockingTest
 
   public void testWriteOptions() throws Exception
   {
-    final RWOLockManager<Integer, Integer> lockingManager = new RWOLockManager<Integer, Integer>();
+    writeOptions(new RWOLockManager<Integer, Integer>());
+  }
+
+  public void testWriteOptionsStriped() throws Exception
+  {
+    writeOptions(new StripedRWOLockManager<Integer, Integer>());
+  }
+
+  private void writeOptions(final IRWOLockManager<Integer, Integer> lockingManager) throws Exception
+  {
 
     Set<Integer> keys = new HashSet<Integer>();
     keys.add(1);
@@ -164,7 +185,16 @@ public class LockingManagerTest extends AbstractLockingTest
 
   public void testBasicUpgradeFromReadToWriteLock() throws Exception
   {
-    final RWOLockManager<Integer, Integer> lockingManager = new RWOLockManager<Integer, Integer>();
+    basicUpgradeFromReadToWriteLock(new RWOLockManager<Integer, Integer>());
+  }
+
+  public void testBasicUpgradeFromReadToWriteLockStriped() throws Exception
+  {
+    basicUpgradeFromReadToWriteLock(new StripedRWOLockManager<Integer, Integer>());
+  }
+
+  private void basicUpgradeFromReadToWriteLock(final IRWOLockManager<Integer, Integer> lockingManager) throws Exception
+  {
 
     Runnable step1 = new Runnable()
     {
@@ -253,7 +283,16 @@ public class LockingManagerTest extends AbstractLockingTest
 
   public void testBasicWrongUnlock() throws Exception
   {
-    final RWOLockManager<Integer, Integer> lockingManager = new RWOLockManager<Integer, Integer>();
+    basicWrongUnlock(new RWOLockManager<Integer, Integer>());
+  }
+
+  public void testBasicWrongUnlockStriped() throws Exception
+  {
+    basicWrongUnlock(new StripedRWOLockManager<Integer, Integer>());
+  }
+
+  private void basicWrongUnlock(final IRWOLockManager<Integer, Integer> lockingManager) throws Exception
+  {
     Set<Integer> keys = new HashSet<Integer>();
     keys.add(1);
     lockingManager.lock(LockType.READ, 1, keys, 10000);
@@ -269,6 +308,81 @@ public class LockingManagerTest extends AbstractLockingTest
     }
   }
 
+  public void testStripedAtomicLock() throws Exception
+  {
+    StripedRWOLockManager<Integer, Integer> lockingManager = new StripedRWOLockManager<Integer, Integer>(4);
+    lockingManager.lock(LockType.WRITE, 2, 500, 100);
+
+    List<Integer> keys = new ArrayList<Integer>();
+    for (int i = 0; i < 1000; i++)
+    {
+      keys.add(i);
+    }
+
+    try
+    {
+      lockingManager.lock(LockType.WRITE, 1, keys, 100);
+      fail("TimeoutRuntimeException expected");
+    }
+    catch (TimeoutRuntimeException expected)
+    {
+      // SUCCESS
+    }
+
+    for (int i = 0; i < 1000; i++)
+    {
+      assertEquals(false, lockingManager.hasLock(LockType.WRITE, 1, i));
+    }
+
+    assertEquals(0, lockingManager.getLockStates(1).size());
+    assertEquals(1, lockingManager.getLockStates(2).size());
+
+    lockingManager.unlock(2);
+    lockingManager.lock(LockType.WRITE, 1, keys, 100);
+    assertEquals(1000, lockingManager.getLockStates(1).size());
+    assertEquals(0, lockingManager.getLockStates(2).size());
+
+    lockingManager.unlock(1);
+    assertEquals(0, lockingManager.getLockStates(1).size());
+    assertEquals(null, lockingManager.getLockState(500));
+  }
+
+  public void testStripedWakeUp() throws Exception
+  {
+    final StripedRWOLockManager<Integer, Integer> lockingManager = new StripedRWOLockManager<Integer, Integer>();
+    lockingManager.lock(LockType.WRITE, 1, 1, 100);
+    lockingManager.lock(LockType.WRITE, 1, 2, 100);
+
+    final CountDownLatch locked = new CountDownLatch(1);
+    Thread thread = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          lockingManager.lock(LockType.WRITE, 2, 1, IRWOLockManager.WAIT);
+          locked.countDown();
+        }
+        catch (InterruptedException ex)
+        {
+          // Ignore
+        }
+      }
+    };
+
+    thread.start();
+    sleep(100);
+
+    lockingManager.unlock(LockType.WRITE, 1, Collections.singleton(2));
+    assertEquals(false, locked.await(200, TimeUnit.MILLISECONDS));
+
+    lockingManager.unlock(LockType.WRITE, 1, Collections.singleton(1));
+    assertEquals(true, locked.await(DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals(true, lockingManager.hasLock(LockType.WRITE, 2, 1));
+    thread.join(DEFAULT_TIMEOUT);
+  }
+
   public void testReadTimeout() throws Exception
   {
     Company company = getModel1Factory().createCompany();
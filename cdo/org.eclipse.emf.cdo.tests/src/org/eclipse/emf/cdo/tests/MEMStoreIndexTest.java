@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.CDOCommonRepository.IDGenerationLocation;
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionHandler;
+import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.internal.server.mem.MEMStore;
+import org.eclipse.emf.cdo.server.StoreThreadLocal;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.spi.common.revision.DetachedCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.server.InternalRepository;
+import org.eclipse.emf.cdo.tests.config.impl.ConfigTest.CleanRepositoriesAfter;
+import org.eclipse.emf.cdo.tests.config.impl.ConfigTest.Requires;
+import org.eclipse.emf.cdo.tests.model1.PurchaseOrder;
+import org.eclipse.emf.cdo.tests.model1.Supplier;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+import org.eclipse.emf.cdo.util.CDOUtil;
+
+import org.eclipse.net4j.util.ReflectUtil;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks that the resource node, cross reference and extent indexes of the {@link MEMStore} don't keep entries of
+ * revisions that have been removed, and that the queries that use them return the right results.
+ *
+ * @author Eike Stepper
+ */
+@Requires("MEM")
+public class MEMStoreIndexTest extends AbstractCDOTest
+{
+  public void testRemovedReference() throws Exception
+  {
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("/res"));
+
+    Supplier supplier = getModel1Factory().createSupplier();
+    PurchaseOrder order = getModel1Factory().createPurchaseOrder();
+    order.setSupplier(supplier);
+    resource.getContents().add(supplier);
+    resource.getContents().add(order);
+    transaction.commit();
+
+    CDOID supplierID = getID(supplier);
+    Object orderKey = getListKey(getID(order));
+    assertEquals(1, queryOrders(transaction, supplier));
+    assertEquals(true, getIndexEntries(getXRefs(), supplierID).contains(orderKey));
+
+    order.setSupplier(null);
+    transaction.commit();
+
+    assertEquals(0, queryOrders(transaction, supplier));
+    if (!getRepository().isSupportingAudits())
+    {
+      assertEquals(false, getIndexEntries(getXRefs(), supplierID).contains(orderKey));
+    }
+  }
+
+  public void testDelete() throws Exception
+  {
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("/res"));
+
+    Supplier supplier = getModel1Factory().createSupplier();
+    PurchaseOrder order = getModel1Factory().createPurchaseOrder();
+    order.setSupplier(supplier);
+    resource.getContents().add(supplier);
+    resource.getContents().add(order);
+    transaction.commit();
+
+    CDOID supplierID = getID(supplier);
+    Object orderKey = getListKey(getID(order));
+    Object resourceKey = getListKey(getID(resource));
+    CDOID folderID = getFolderID(resource);
+    String name = resource.getName();
+    assertEquals(true, getIndexEntries(getResourceNodes(folderID), name).contains(resourceKey));
+
+    resource.delete(null);
+    transaction.commit();
+
+    assertEquals(false, transaction.hasResource(getResourcePath("/res")));
+    assertEquals(false, queryExtent(getModel1Package().getSupplier()).contains(supplierID));
+    assertEquals(false, queryExtent(getModel1Package().getPurchaseOrder()).contains(getID(order)));
+
+    if (!getRepository().isSupportingAudits())
+    {
+      assertEquals(false, getIndexEntries(getResourceNodes(folderID), name).contains(resourceKey));
+      assertEquals(false, getIndexEntries(getXRefs(), supplierID).contains(orderKey));
+    }
+  }
+
+  public void testRollback() throws Exception
+  {
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("/res"));
+
+    Supplier supplier1 = getModel1Factory().createSupplier();
+    Supplier supplier2 = getModel1Factory().createSupplier();
+    PurchaseOrder order = getModel1Factory().createPurchaseOrder();
+    order.setSupplier(supplier1);
+    resource.getContents().add(supplier1);
+    resource.getContents().add(supplier2);
+    resource.getContents().add(order);
+    transaction.commit();
+
+    // Revisions with resource nodes are checked for duplicates in the context of a session
+    InternalRepository repository = getRepository();
+    StoreThreadLocal.setSession(repository.getSessionManager().getSession(session.getSessionID()));
+
+    try
+    {
+      MEMStore store = getStore();
+      CDOBranch branch = repository.getBranchManager().getMainBranch();
+      long timeStamp = repository.getTimeStamp();
+
+      // Without audits the previous revisions are replaced, so only the rollback of new objects can be checked
+      if (repository.isSupportingAudits())
+      {
+        // Roll back a change of a reference and of a resource name
+        InternalCDORevision orderRevision = createNextRevision(getID(order), branch, timeStamp);
+        orderRevision.setValue(getModel1Package().getPurchaseOrder_Supplier(), getID(supplier2));
+
+        InternalCDORevision resourceRevision = createNextRevision(getID(resource), branch, timeStamp);
+        EStructuralFeature nameFeature = resourceRevision.getEClass().getEStructuralFeature("name"); //$NON-NLS-1$
+        resourceRevision.setValue(nameFeature, "renamed"); //$NON-NLS-1$
+
+        store.addRevision(orderRevision, false);
+        store.addRevision(resourceRevision, false);
+
+        Object orderKey = getListKey(getID(order));
+        Object resourceKey = getListKey(getID(resource));
+        Map<String, Set<Object>> names = getResourceNodes(getFolderID(resource));
+        assertEquals(true, getIndexEntries(getXRefs(), getID(supplier2)).contains(orderKey));
+        assertEquals(true, getIndexEntries(names, "renamed").contains(resourceKey));
+
+        assertEquals(true, store.rollbackRevision(orderRevision));
+        assertEquals(true, store.rollbackRevision(resourceRevision));
+
+        assertEquals(false, getIndexEntries(getXRefs(), getID(supplier2)).contains(orderKey));
+        assertEquals(true, getIndexEntries(getXRefs(), getID(supplier1)).contains(orderKey));
+        assertEquals(false, getIndexEntries(names, "renamed").contains(resourceKey));
+        assertEquals(true, getIndexEntries(names, resource.getName()).contains(resourceKey));
+
+        assertEquals(0, queryOrders(transaction, supplier2));
+        assertEquals(1, queryOrders(transaction, supplier1));
+        assertEquals(true, transaction.hasResource(getResourcePath("/res")));
+      }
+
+      // Roll back a new object
+      CDOID newID = repository.getIDGenerationLocation() == IDGenerationLocation.CLIENT ? CDOIDUtil.createUUID()
+          : CDOIDUtil.createLong(Long.MAX_VALUE);
+      InternalCDORevision newRevision = store.getRevision(getID(supplier1), branch.getHead()).copy();
+      newRevision.setID(newID);
+      newRevision.setVersion(CDOBranchVersion.FIRST_VERSION);
+      newRevision.setBranchPoint(branch.getPoint(timeStamp));
+      newRevision.setRevised(CDOBranchPoint.UNSPECIFIED_DATE);
+
+      store.addRevision(newRevision, false);
+
+      Object newKey = getListKey(newID);
+      EClass supplierClass = getModel1Package().getSupplier();
+      assertEquals(true, getIndexEntries(getExtents(), supplierClass).contains(newKey));
+      assertEquals(true, queryExtent(supplierClass).contains(newID));
+
+      assertEquals(true, store.rollbackRevision(newRevision));
+
+      assertEquals(false, getIndexEntries(getExtents(), supplierClass).contains(newKey));
+      assertEquals(null, store.getRevision(newID, branch.getHead()));
+      assertEquals(false, queryExtent(supplierClass).contains(newID));
+      assertEquals(true, queryExtent(supplierClass).contains(getID(supplier1)));
+    }
+    finally
+    {
+      StoreThreadLocal.release();
+    }
+  }
+
+  @CleanRepositoriesAfter
+  public void testListLimit() throws Exception
+  {
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("/res"));
+
+    Supplier supplier1 = getModel1Factory().createSupplier();
+    Supplier supplier2 = getModel1Factory().createSupplier();
+    PurchaseOrder order = getModel1Factory().createPurchaseOrder();
+    order.setSupplier(supplier1);
+    resource.getContents().add(supplier1);
+    resource.getContents().add(supplier2);
+    resource.getContents().add(order);
+    transaction.commit();
+
+    order.setSupplier(supplier2);
+    transaction.commit();
+
+    Object orderKey = getListKey(getID(order));
+    MEMStore store = getStore();
+    int listLimit = store.getListLimit();
+
+    try
+    {
+      store.setListLimit(1);
+
+      assertEquals(false, getIndexEntries(getXRefs(), getID(supplier1)).contains(orderKey));
+      assertEquals(true, getIndexEntries(getXRefs(), getID(supplier2)).contains(orderKey));
+      assertEquals(0, queryOrders(transaction, supplier1));
+      assertEquals(1, queryOrders(transaction, supplier2));
+    }
+    finally
+    {
+      store.setListLimit(listLimit);
+    }
+  }
+
+  private MEMStore getStore()
+  {
+    return (MEMStore)getRepository().getStore();
+  }
+
+  private InternalCDORevision createNextRevision(CDOID id, CDOBranch branch, long timeStamp)
+  {
+    InternalCDORevision revision = getStore().getRevision(id, branch.getHead()).copy();
+    revision.setVersion(revision.getVersion() + 1);
+    revision.setBranchPoint(branch.getPoint(timeStamp));
+    revision.setRevised(CDOBranchPoint.UNSPECIFIED_DATE);
+    return revision;
+  }
+
+  private Object getListKey(CDOID id)
+  {
+    Method method = ReflectUtil.getMethod(MEMStore.class, "getListKey", CDOID.class, //$NON-NLS-1$
+        CDOBranch.class);
+    return ReflectUtil.invokeMethod(method, getStore(), id, getRepository().getBranchManager().getMainBranch());
+  }
+
+  private Map<CDOID, Set<Object>> getXRefs()
+  {
+    return getIndex("xRefs"); //$NON-NLS-1$
+  }
+
+  private Map<EClass, Set<Object>> getExtents()
+  {
+    return getIndex("extents"); //$NON-NLS-1$
+  }
+
+  private Map<String, Set<Object>> getResourceNodes(CDOID folderID)
+  {
+    Map<CDOID, Map<String, Set<Object>>> resourceNodes = getIndex("resourceNodes"); //$NON-NLS-1$
+    Map<String, Set<Object>> names = resourceNodes.get(folderID);
+    if (names == null)
+    {
+      return Collections.emptyMap();
+    }
+
+    return names;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T getIndex(String name)
+  {
+    Field field = ReflectUtil.getField(MEMStore.class, name);
+    return (T)ReflectUtil.getValue(field, getStore());
+  }
+
+  private static CDOID getFolderID(CDOResource resource)
+  {
+    if (resource.getFolder() == null)
+    {
+      return CDOID.NULL;
+    }
+
+    return getID(resource.getFolder());
+  }
+
+  private static CDOID getID(EObject object)
+  {
+    return CDOUtil.getCDOObject(object).cdoID();
+  }
+
+  private static <K> Set<Object> getIndexEntries(Map<K, Set<Object>> index, K key)
+  {
+    Set<Object> listKeys = index.get(key);
+    if (listKeys == null)
+    {
+      return Collections.emptySet();
+    }
+
+    return listKeys;
+  }
+
+  private int queryOrders(CDOTransaction transaction, Supplier supplier)
+  {
+    return transaction.queryXRefs(CDOUtil.getCDOObject(supplier), getModel1Package().getPurchaseOrder_Supplier())
+        .size();
+  }
+
+  /**
+   * Returns the IDs of the objects of the given class that the store finds through its extent index.
+   */
+  private Set<CDOID> queryExtent(EClass eClass)
+  {
+    final Set<CDOID> ids = new HashSet<CDOID>();
+    CDOBranch branch = getRepository().getBranchManager().getMainBranch();
+    getStore().handleRevisions(eClass, branch, getRepository().getTimeStamp(), false, new CDORevisionHandler()
+    {
+      public boolean handleRevision(CDORevision revision)
+      {
+        if (!(revision instanceof DetachedCDORevision))
+        {
+          ids.add(revision.getID());
+        }
+
+        return true;
+      }
+    });
+
+    return ids;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.internal.server.QueryManager;
+import org.eclipse.emf.cdo.server.IRepository;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.tests.config.impl.ConfigTest.Requires;
+import org.eclipse.emf.cdo.tests.model1.Category;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+import org.eclipse.emf.cdo.view.CDOQuery;
+
+import org.eclipse.emf.internal.cdo.query.CDOQueryResultIteratorImpl;
+
+import org.eclipse.net4j.util.collection.CloseableIterator;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the scheduling of queries by the {@link QueryManager} with one running query, one waiting query per session
+ * and a result queue capacity of five results.
+ *
+ * @author Eike Stepper
+ */
+@Requires("MEM")
+public class QuerySchedulerTest extends AbstractCDOTest
+{
+  private static final int CATEGORIES = 100;
+
+  @Override
+  public synchronized Map<String, Object> getTestProperties()
+  {
+    Map<String, Object> map = super.getTestProperties();
+    map.put(IRepository.Props.MAX_RUNNING_QUERIES, "1");
+    map.put(IRepository.Props.MAX_QUEUED_QUERIES_PER_SESSION, "1");
+    map.put(IRepository.Props.QUERY_RESULT_QUEUE_CAPACITY, "5");
+    return map;
+  }
+
+  public void testBoundedResultQueue() throws Exception
+  {
+    CDOTransaction transaction = initialize();
+    CDOQuery query = transaction.createQuery("TEST", "QUERYSTRING");
+    query.setParameter("context", getModel1Package().getCategory());
+
+    List<Category> result = query.getResult(Category.class);
+    assertEquals(CATEGORIES, result.size());
+    assertEquals(0, getQueryManager().getRunningQueryCount());
+  }
+
+  public void testRejectQueuedQuery() throws Exception
+  {
+    CDOTransaction transaction = initialize();
+    CloseableIterator<Object> running = createSleepingQuery(transaction).getResultAsync(Object.class);
+    CloseableIterator<Object> waiting = createSleepingQuery(transaction).getResultAsync(Object.class);
+    assertEquals(1, getQueryManager().getWaitingQueryCount());
+
+    CloseableIterator<Object> rejected = createSleepingQuery(transaction).getResultAsync(Object.class);
+
+    try
+    {
+      rejected.hasNext();
+      fail("Exception expected");
+    }
+    catch (Exception expected)
+    {
+      // SUCCESS
+    }
+
+    assertEquals(1, getQueryManager().getRejectedQueryCount());
+    waiting.close();
+    running.close();
+  }
+
+  public void testCancelWaitingQuery() throws Exception
+  {
+    CDOTransaction transaction = initialize();
+    final CloseableIterator<Object> running = createSleepingQuery(transaction).getResultAsync(Object.class);
+    final CloseableIterator<Object> waiting = createSleepingQuery(transaction).getResultAsync(Object.class);
+    waiting.close();
+
+    new PollingTimeOuter()
+    {
+      @Override
+      protected boolean successful()
+      {
+        return !getRepository().getQueryManager().isRunning(getQueryID(waiting));
+      }
+    }.assertNoTimeOut();
+
+    assertEquals(0, getQueryManager().getWaitingQueryCount());
+    assertEquals(true, getRepository().getQueryManager().isRunning(getQueryID(running)));
+    running.close();
+
+    new PollingTimeOuter()
+    {
+      @Override
+      protected boolean successful()
+      {
+        return getQueryManager().getRunningQueryCount() == 0;
+      }
+    }.assertNoTimeOut();
+  }
+
+  public void testFairness() throws Exception
+  {
+    CDOTransaction transaction1 = initialize();
+    CloseableIterator<Object> running = createSleepingQuery(transaction1).getResultAsync(Object.class);
+    CloseableIterator<Object> waiting1 = createSleepingQuery(transaction1).getResultAsync(Object.class);
+
+    CDOSession session2 = openSession();
+    CDOTransaction transaction2 = session2.openTransaction();
+    CloseableIterator<Object> waiting2 = createSleepingQuery(transaction2).getResultAsync(Object.class);
+    assertEquals(2, getQueryManager().getWaitingQueryCount());
+
+    // The first session had its turn, so the query of the second session starts next
+    running.close();
+    assertEquals(true, waiting2.hasNext());
+    assertEquals(1, getQueryManager().getWaitingQueryCount());
+
+    waiting2.close();
+    waiting1.close();
+  }
+
+  private QueryManager getQueryManager()
+  {
+    return (QueryManager)getRepository().getQueryManager();
+  }
+
+  private static int getQueryID(CloseableIterator<?> result)
+  {
+    return ((CDOQueryResultIteratorImpl<?>)result).getQueryID();
+  }
+
+  private static CDOQuery createSleepingQuery(CDOTransaction transaction)
+  {
+    CDOQuery query = transaction.createQuery("TEST", "QUERYSTRING");
+    query.setParameter("sleep", 1000L);
+    return query;
+  }
+
+  private CDOTransaction initialize() throws Exception
+  {
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("/test1"));
+
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      Category category = getModel1Factory().createCategory();
+      resource.getContents().add(category);
+    }
+
+    transaction.commit();
+    return transaction;
+  }
+}
@@ -12,15 +12,25 @@
 package org.eclipse.emf.cdo.tests;
 
 import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDOList;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
 import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
 import org.eclipse.emf.cdo.common.revision.delta.CDOAddFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOClearFeatureDelta;
+import org.eclipse.emf.cdo.common.revision.delta.CDOFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOListFeatureDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDORevisionDelta;
 import org.eclipse.emf.cdo.common.revision.delta.CDOSetFeatureDelta;
 import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.internal.common.revision.CDOListImpl;
+import org.eclipse.emf.cdo.internal.common.revision.delta.CDOAddFeatureDeltaImpl;
+import org.eclipse.emf.cdo.internal.common.revision.delta.CDOClearFeatureDeltaImpl;
 import org.eclipse.emf.cdo.internal.common.revision.delta.CDOListFeatureDeltaImpl;
+import org.eclipse.emf.cdo.internal.common.revision.delta.CDOMoveFeatureDeltaImpl;
+import org.eclipse.emf.cdo.internal.common.revision.delta.CDORemoveFeatureDeltaImpl;
+import org.eclipse.emf.cdo.internal.common.revision.delta.CDOSetFeatureDeltaImpl;
 import org.eclipse.emf.cdo.internal.server.mem.MEMStore;
 import org.eclipse.emf.cdo.server.IStore;
 import org.eclipse.emf.cdo.session.CDOSession;
@@ -42,9 +52,17 @@ import org.eclipse.net4j.util.io.IOUtil;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.spi.cdo.InternalCDOTransaction;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 /**
  * See bug 201266
  * 
@@ -663,6 +681,159 @@ public class RevisionDeltaTest extends AbstractCDOTest
     });
   }
 
+  public void testLargeListDelta() throws Exception
+  {
+    EReference feature = getModel1Package().getCompany_Categories();
+    InternalCDORevision revision = createRevision(feature, 1000);
+    List<Object> expected = new ArrayList<Object>(revision.getList(feature));
+
+    Random random = new Random(4711);
+    CDOListFeatureDeltaImpl listDelta = new CDOListFeatureDeltaImpl(feature);
+    List<CDOFeatureDelta> listChanges = listDelta.getListChanges();
+    for (int i = 0; i < 5000; i++)
+    {
+      int size = expected.size();
+      if (i == 2500)
+      {
+        listChanges.add(new CDOClearFeatureDeltaImpl(feature));
+        expected.clear();
+      }
+      else if (size == 0 || random.nextInt(4) == 0)
+      {
+        int index = random.nextInt(size + 1);
+        CDOID value = CDOIDUtil.createLong(10000 + i);
+        listChanges.add(new CDOAddFeatureDeltaImpl(feature, index, value));
+        expected.add(index, value);
+      }
+      else if (random.nextBoolean())
+      {
+        int index = random.nextInt(size);
+        listChanges.add(new CDORemoveFeatureDeltaImpl(feature, index));
+        expected.remove(index);
+      }
+      else if (random.nextBoolean())
+      {
+        int targetIndex = random.nextInt(size);
+        int sourceIndex = random.nextInt(size);
+        listChanges.add(new CDOMoveFeatureDeltaImpl(feature, targetIndex, sourceIndex));
+        expected.add(targetIndex, expected.remove(sourceIndex));
+      }
+      else
+      {
+        int index = random.nextInt(size);
+        CDOID value = CDOIDUtil.createLong(10000 + i);
+        listChanges.add(new CDOSetFeatureDeltaImpl(feature, index, value));
+        expected.set(index, value);
+      }
+    }
+
+    listDelta.apply(revision);
+    assertEquals(expected, new ArrayList<Object>(revision.getList(feature)));
+  }
+
+  public void testLargeListDeltaEffort() throws Exception
+  {
+    int count = 10000;
+    EReference feature = getModel1Package().getCompany_Categories();
+    InternalCDORevision revision = createRevision(feature, count);
+    WriteCountingList list = new WriteCountingList(revision.getList(feature));
+    revision.setList(feature, list);
+
+    // Inserts as many elements at the front of the list as it has and moves as many elements from the end to the front
+    CDOListFeatureDeltaImpl listDelta = new CDOListFeatureDeltaImpl(feature);
+    List<CDOFeatureDelta> listChanges = listDelta.getListChanges();
+    for (int i = 0; i < count; i++)
+    {
+      listChanges.add(new CDOAddFeatureDeltaImpl(feature, 0, CDOIDUtil.createLong(2 * count + i + 1)));
+      listChanges.add(new CDOMoveFeatureDeltaImpl(feature, 0, count + i));
+    }
+
+    listDelta.apply(revision);
+
+    // The original elements end up interleaved with the added ones in reverse order
+    assertSame(list, revision.getList(feature));
+    assertEquals(2 * count, list.size());
+    for (int i = 0; i < count; i++)
+    {
+      assertEquals(CDOIDUtil.createLong(i + 1), list.get(2 * i));
+      assertEquals(CDOIDUtil.createLong(3 * count - i), list.get(2 * i + 1));
+    }
+
+    // Applying the changes one by one would shift about 3 * count * count elements
+    assertEquals(true, list.getWrites() <= 4 * count);
+  }
+
+  public void testLargeListDeltaRecording() throws Exception
+  {
+    EReference feature = getModel1Package().getCompany_Categories();
+    InternalCDORevision revision = createRevision(feature, 1000);
+    List<Object> expected = new ArrayList<Object>(revision.getList(feature));
+
+    // Removing added elements cancels their additions
+    Random random = new Random(4711);
+    CDOListFeatureDeltaImpl listDelta = new CDOListFeatureDeltaImpl(feature);
+    for (int i = 0; i < 5000; i++)
+    {
+      int size = expected.size();
+      if (size == 0 || random.nextInt(3) == 0)
+      {
+        int index = random.nextInt(size + 1);
+        CDOID value = CDOIDUtil.createLong(10000 + i);
+        listDelta.add(new CDOAddFeatureDeltaImpl(feature, index, value));
+        expected.add(index, value);
+      }
+      else if (random.nextInt(3) != 0)
+      {
+        int index = random.nextInt(size);
+        listDelta.add(new CDORemoveFeatureDeltaImpl(feature, index));
+        expected.remove(index);
+      }
+      else
+      {
+        int targetIndex = random.nextInt(size);
+        int sourceIndex = random.nextInt(size);
+        listDelta.add(new CDOMoveFeatureDeltaImpl(feature, targetIndex, sourceIndex));
+        expected.add(targetIndex, expected.remove(sourceIndex));
+      }
+    }
+
+    Set<Integer> expectedIndices = new HashSet<Integer>();
+    for (int i = 0; i < expected.size(); i++)
+    {
+      if (CDOIDUtil.getLong((CDOID)expected.get(i)) >= 10000)
+      {
+        expectedIndices.add(i);
+      }
+    }
+
+    Set<Integer> addedIndices = new HashSet<Integer>();
+    int[] indices = listDelta.reconstructAddedIndices().getElement2();
+    for (int i = 1; i <= indices[0]; i++)
+    {
+      addedIndices.add(indices[i]);
+    }
+
+    assertEquals(expectedIndices, addedIndices);
+
+    listDelta.apply(revision);
+    assertEquals(expected, new ArrayList<Object>(revision.getList(feature)));
+  }
+
+  private InternalCDORevision createRevision(EReference feature, int size)
+  {
+    InternalCDORevision revision = (InternalCDORevision)CDORevisionFactory.DEFAULT.createRevision(feature
+        .getEContainingClass());
+    revision.setID(CDOIDUtil.createLong(1));
+
+    CDOList list = revision.getList(feature);
+    for (int i = 0; i < size; i++)
+    {
+      list.add(CDOIDUtil.createLong(i + 1));
+    }
+
+    return revision;
+  }
+
   private InternalCDORevision getCopyCDORevision(Object object)
   {
     return (InternalCDORevision)CDOUtil.getCDOObject((EObject)object).cdoRevision().copy();
@@ -751,4 +922,62 @@ public class RevisionDeltaTest extends AbstractCDOTest
   {
     public void doManipulations(EList<?> list);
   }
+
+  /**
+   * Counts the elements that are written into the list, including the ones that are shifted by adds, removes and moves.
+   *
+   * @author Eike Stepper
+   */
+  private static final class WriteCountingList extends CDOListImpl
+  {
+    private static final long serialVersionUID = 1L;
+
+    private int writes;
+
+    public WriteCountingList(List<Object> elements)
+    {
+      super(elements.size(), 0);
+      super.addAll(elements);
+    }
+
+    public int getWrites()
+    {
+      return writes;
+    }
+
+    @Override
+    public boolean add(Object o)
+    {
+      ++writes;
+      return super.add(o);
+    }
+
+    @Override
+    public void add(int index, Object element)
+    {
+      writes += size() - index + 1;
+      super.add(index, element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Object> c)
+    {
+      writes += c.size();
+      return super.addAll(c);
+    }
+
+    @Override
+    public Object remove(int index)
+    {
+      writes += size() - index - 1;
+      return super.remove(index);
+    }
+
+    @Override
+    public Object set(int index, Object element)
+    {
+      ++writes;
+      return super.set(index, element);
+    }
+  }
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionData;
+import org.eclipse.emf.cdo.common.revision.CDORevisionManager;
+import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+import org.eclipse.emf.cdo.tests.config.IRepositoryConfig;
+import org.eclipse.emf.cdo.tests.config.impl.ConfigTest.Requires;
+import org.eclipse.emf.cdo.tests.model1.Category;
+import org.eclipse.emf.cdo.tests.model1.Company;
+import org.eclipse.emf.cdo.tests.model1.Product1;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+import org.eclipse.emf.cdo.util.CDOUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads many revisions with a single request so that the stores read them in bulk.
+ *
+ * @author Eike Stepper
+ */
+public class RevisionLoadingTest extends AbstractCDOTest
+{
+  private static final int CATEGORIES = 300;
+
+  private static final int PRODUCTS = 3;
+
+  private long commitTime;
+
+  private CDOID companyID;
+
+  public void testLoadRevisions() throws Exception
+  {
+    List<CDOID> ids = createCategories();
+    clearCache(getRepository().getRevisionManager());
+
+    CDOSession session = openSession();
+    List<CDORevision> revisions = loadRevisions(session, ids, session.getBranchManager().getMainBranch().getHead());
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      assertCategory(revisions.get(i), "category" + i);
+    }
+  }
+
+  @Requires(IRepositoryConfig.CAPABILITY_AUDITING)
+  public void testLoadRevisionsHistorical() throws Exception
+  {
+    List<CDOID> ids = createCategories();
+
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      Category category = (Category)CDOUtil.getEObject(transaction.getObject(ids.get(i)));
+      category.setName("renamed" + i);
+    }
+
+    transaction.commit();
+    session.close();
+    clearCache(getRepository().getRevisionManager());
+
+    session = openSession();
+    List<CDORevision> revisions = loadRevisions(session, ids, session.getBranchManager().getMainBranch().getPoint(
+        commitTime));
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      assertCategory(revisions.get(i), "category" + i);
+    }
+
+    revisions = loadRevisions(session, ids, session.getBranchManager().getMainBranch().getHead());
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      assertCategory(revisions.get(i), "renamed" + i);
+    }
+  }
+
+  public void testLoadRevisionsDetached() throws Exception
+  {
+    List<CDOID> ids = createCategories();
+
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.getResource(getResourcePath("/res"));
+    Company company = (Company)resource.getContents().get(0);
+    for (int i = CATEGORIES - 1; i >= 0; i -= 2)
+    {
+      company.getCategories().remove(i);
+    }
+
+    transaction.commit();
+    session.close();
+    clearCache(getRepository().getRevisionManager());
+
+    session = openSession();
+    List<CDORevision> revisions = loadRevisions(session, ids, session.getBranchManager().getMainBranch().getHead());
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      if (i % 2 == 0)
+      {
+        assertCategory(revisions.get(i), "category" + i);
+      }
+      else
+      {
+        assertEquals(null, revisions.get(i));
+      }
+    }
+  }
+
+  public void testLoadRevisionsPrefetched() throws Exception
+  {
+    List<CDOID> ids = createCategories();
+    clearCache(getRepository().getRevisionManager());
+
+    CDOSession session = openSession();
+    assertPrefetched(session, ids);
+  }
+
+  public void testLoadRevisionsPrefetchedPartiallyCached() throws Exception
+  {
+    List<CDOID> ids = createCategories();
+    clearCache(getRepository().getRevisionManager());
+
+    // Every other category is already cached on the server, the others must be read from the store
+    List<CDOID> cachedIDs = new ArrayList<CDOID>();
+    for (int i = 0; i < CATEGORIES; i += 2)
+    {
+      cachedIDs.add(ids.get(i));
+    }
+
+    CDOSession session = openSession();
+    loadRevisions(session, cachedIDs, session.getBranchManager().getMainBranch().getHead());
+    session.close();
+
+    session = openSession();
+    assertPrefetched(session, ids);
+  }
+
+  public void testLoadRevisionsPrefetchedKeepsCachedLists() throws Exception
+  {
+    List<CDOID> ids = createCategories();
+    clearCache(getRepository().getRevisionManager());
+
+    // Cache the company and the categories on the server without prefetching
+    List<CDOID> cachedIDs = new ArrayList<CDOID>(ids);
+    cachedIDs.add(companyID);
+
+    CDOSession session = openSession();
+    loadRevisions(session, cachedIDs, session.getBranchManager().getMainBranch().getHead());
+    session.close();
+
+    InternalCDORevisionCache cache = getRepository().getRevisionManager().getCache();
+    CDOBranchPoint head = getRepository().getBranchManager().getMainBranch().getHead();
+    InternalCDORevision company = (InternalCDORevision)cache.getRevision(companyID, head);
+    Object categories = company.getValue(getModel1Package().getCompany_Categories());
+
+    // The subcategories of the categories have never been touched, so some stores don't even have a list for them
+    InternalCDORevision category = (InternalCDORevision)cache.getRevision(ids.get(0), head);
+    Object subcategories = category.getValue(getModel1Package().getCategory_Categories());
+
+    // Prefetching from the cached revisions must not create or replace their lists
+    session = openSession();
+    assertPrefetched(session, ids);
+    assertSame(company, cache.getRevision(companyID, head));
+    assertSame(categories, company.getValue(getModel1Package().getCompany_Categories()));
+    assertSame(category, cache.getRevision(ids.get(0), head));
+    assertSame(subcategories, category.getValue(getModel1Package().getCategory_Categories()));
+  }
+
+  private void assertPrefetched(CDOSession session, List<CDOID> ids)
+  {
+    CDOBranchPoint head = session.getBranchManager().getMainBranch().getHead();
+    CDORevisionManager revisionManager = session.getRevisionManager();
+    revisionManager.getRevision(companyID, head, CDORevision.UNCHUNKED, CDORevision.DEPTH_INFINITE, true);
+
+    // The whole tree must have arrived with the prefetch
+    List<CDORevision> revisions = revisionManager.getRevisions(ids, head, CDORevision.UNCHUNKED,
+        CDORevision.DEPTH_NONE, false);
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      CDORevision revision = revisions.get(i);
+      assertCategory(revision, "category" + i);
+
+      for (int j = 0; j < PRODUCTS; j++)
+      {
+        CDOID productID = (CDOID)revision.data().get(getModel1Package().getCategory_Products(), j);
+        CDORevision product = revisionManager.getRevision(productID, head, CDORevision.UNCHUNKED,
+            CDORevision.DEPTH_NONE, false);
+        assertEquals("product" + i + "-" + j, product.data().get(getModel1Package().getProduct1_Name(), 0));
+      }
+    }
+  }
+
+  private List<CDOID> createCategories() throws Exception
+  {
+    CDOSession session = openSession();
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("/res"));
+
+    Company company = getModel1Factory().createCompany();
+    resource.getContents().add(company);
+
+    List<Category> categories = new ArrayList<Category>();
+    for (int i = 0; i < CATEGORIES; i++)
+    {
+      Category category = getModel1Factory().createCategory();
+      category.setName("category" + i);
+      for (int j = 0; j < PRODUCTS; j++)
+      {
+        Product1 product = getModel1Factory().createProduct1();
+        product.setName("product" + i + "-" + j);
+        category.getProducts().add(product);
+      }
+
+      company.getCategories().add(category);
+      categories.add(category);
+    }
+
+    commitTime = transaction.commit().getTimeStamp();
+    companyID = CDOUtil.getCDOObject(company).cdoID();
+
+    List<CDOID> ids = new ArrayList<CDOID>();
+    for (Category category : categories)
+    {
+      ids.add(CDOUtil.getCDOObject(category).cdoID());
+    }
+
+    session.close();
+    return ids;
+  }
+
+  private List<CDORevision> loadRevisions(CDOSession session, List<CDOID> ids, CDOBranchPoint branchPoint)
+  {
+    return session.getRevisionManager().getRevisions(ids, branchPoint, CDORevision.UNCHUNKED, CDORevision.DEPTH_NONE,
+        true);
+  }
+
+  private void assertCategory(CDORevision revision, String name)
+  {
+    CDORevisionData data = revision.data();
+    assertEquals(name, data.get(getModel1Package().getCategory_Name(), 0));
+    assertEquals(PRODUCTS, data.size(getModel1Package().getCategory_Products()));
+    for (int j = 0; j < PRODUCTS; j++)
+    {
+      assertInstanceOf(CDOID.class, data.get(getModel1Package().getCategory_Products(), j));
+    }
+  }
+}
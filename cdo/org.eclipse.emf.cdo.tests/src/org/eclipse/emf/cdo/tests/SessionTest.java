@@ -13,13 +13,23 @@ package org.eclipse.emf.cdo.tests;
 import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
 import org.eclipse.emf.cdo.common.util.NotAuthenticatedException;
 import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.internal.net4j.protocol.CDOClientProtocol;
+import org.eclipse.emf.cdo.net4j.CDONet4jSession;
+import org.eclipse.emf.cdo.net4j.CDONet4jSessionConfiguration;
+import org.eclipse.emf.cdo.net4j.CDONet4jUtil;
 import org.eclipse.emf.cdo.server.IRepository;
 import org.eclipse.emf.cdo.server.ISession;
+import org.eclipse.emf.cdo.server.internal.net4j.protocol.CDOServerProtocol;
 import org.eclipse.emf.cdo.session.CDOSession;
 import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
 import org.eclipse.emf.cdo.spi.server.ISessionProtocol;
+import org.eclipse.emf.cdo.tests.config.IRepositoryConfig;
+import org.eclipse.emf.cdo.tests.config.ISessionConfig;
+import org.eclipse.emf.cdo.tests.config.impl.ConfigTest.Requires;
 import org.eclipse.emf.cdo.tests.config.impl.RepositoryConfig;
 import org.eclipse.emf.cdo.tests.config.impl.SessionConfig;
+import org.eclipse.emf.cdo.tests.model1.Category;
+import org.eclipse.emf.cdo.tests.model1.Company;
 import org.eclipse.emf.cdo.transaction.CDOTransaction;
 import org.eclipse.emf.cdo.util.CommitException;
 import org.eclipse.emf.cdo.view.CDOView;
@@ -440,4 +450,65 @@ public class SessionTest extends AbstractCDOTest
     transaction.createResource(getResourcePath("ttt"));
     transaction.commit();
   }
+
+  @Requires(ISessionConfig.CAPABILITY_NET4J)
+  public void testCompactEncoding() throws Exception
+  {
+    assertCompactEncoding(true);
+  }
+
+  @Requires(ISessionConfig.CAPABILITY_NET4J)
+  public void testFixedWidthEncoding() throws Exception
+  {
+    assertCompactEncoding(false);
+  }
+
+  private void assertCompactEncoding(boolean compactEncoding) throws Exception
+  {
+    CDONet4jSessionConfiguration configuration = CDONet4jUtil.createNet4jSessionConfiguration();
+    configuration.setConnector(((SessionConfig.Net4j)getSessionConfig()).getConnector());
+    configuration.setRepositoryName(IRepositoryConfig.REPOSITORY_NAME);
+    configuration.setCompactEncoding(compactEncoding);
+    getTestProperties().put(SessionConfig.PROP_TEST_SESSION_CONFIGURATION, configuration);
+
+    CDOSession session = openSession();
+    getTestProperties().remove(SessionConfig.PROP_TEST_SESSION_CONFIGURATION);
+
+    ISignalProtocol<?> clientProtocol = ((CDONet4jSession)session).options().getNet4jProtocol();
+    assertEquals(compactEncoding, ((CDOClientProtocol)clientProtocol).isXCompression());
+
+    ISession serverSession = getRepository().getSessionManager().getSession(session.getSessionID());
+    assertEquals(compactEncoding, ((CDOServerProtocol)serverSession.getProtocol()).isXCompression());
+
+    CDOTransaction transaction = session.openTransaction();
+    CDOResource resource = transaction.createResource(getResourcePath("res"));
+    Company company = getModel1Factory().createCompany();
+    company.setName("company");
+    for (int i = 0; i < 10; i++)
+    {
+      Category category = getModel1Factory().createCategory();
+      category.setName("category" + i);
+      company.getCategories().add(category);
+    }
+
+    resource.getContents().add(company);
+    transaction.commit();
+
+    // The other session uses the default encoding
+    CDOSession otherSession = openSession();
+    CDOView view = otherSession.openView();
+    Company otherCompany = (Company)view.getResource(getResourcePath("res")).getContents().get(0);
+    assertEquals("company", otherCompany.getName());
+    assertEquals(10, otherCompany.getCategories().size());
+    assertEquals("category9", otherCompany.getCategories().get(9).getName());
+
+    company.setName("changed");
+    company.getCategories().remove(0);
+    transaction.commit();
+
+    assertEquals(true, otherSession.waitForUpdate(transaction.getLastCommitTime(), DEFAULT_TIMEOUT));
+    assertEquals("changed", otherCompany.getName());
+    assertEquals(9, otherCompany.getCategories().size());
+    assertEquals("category1", otherCompany.getCategories().get(0).getName());
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.performance;
+
+import org.eclipse.emf.cdo.tests.performance.framework.PerformanceTest;
+
+import org.eclipse.net4j.util.concurrent.IRWLockManager.LockType;
+import org.eclipse.net4j.util.concurrent.IRWOLockManager;
+import org.eclipse.net4j.util.concurrent.RWOLockManager;
+import org.eclipse.net4j.util.concurrent.StripedRWOLockManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures the throughput of small lock/unlock calls of several contexts while another context repeatedly locks and
+ * unlocks a large set of objects.
+ *
+ * @author Eike Stepper
+ */
+public class LockingManagerPerformanceTest extends PerformanceTest
+{
+  private static final int WORKERS = 8;
+
+  private static final int OPERATIONS_PER_WORKER = 20000;
+
+  private static final int OBJECTS = 100000;
+
+  private static final int BULK_OBJECTS = 10000;
+
+  public void testContentionRWOLockManager() throws Exception
+  {
+    runContention(new RWOLockManager<Integer, Integer>());
+  }
+
+  public void testContentionStripedRWOLockManager() throws Exception
+  {
+    runContention(new StripedRWOLockManager<Integer, Integer>());
+  }
+
+  private void runContention(final IRWOLockManager<Integer, Integer> lockManager) throws Exception
+  {
+    final AtomicBoolean running = new AtomicBoolean(true);
+    final List<Throwable> problems = Collections.synchronizedList(new ArrayList<Throwable>());
+
+    Thread bulkLocker = new Thread("BulkLocker")
+    {
+      @Override
+      public void run()
+      {
+        List<Integer> objects = new ArrayList<Integer>(BULK_OBJECTS);
+        for (int i = 0; i < BULK_OBJECTS; i++)
+        {
+          objects.add(i * (OBJECTS / BULK_OBJECTS));
+        }
+
+        try
+        {
+          while (running.get())
+          {
+            lockManager.lock2(LockType.WRITE, 0, objects, IRWOLockManager.WAIT);
+            lockManager.unlock2(0);
+          }
+        }
+        catch (Throwable t)
+        {
+          problems.add(t);
+        }
+      }
+    };
+
+    final CountDownLatch done = new CountDownLatch(WORKERS);
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int w = 1; w <= WORKERS; w++)
+    {
+      final Integer context = w;
+      workers.add(new Thread("Worker-" + w)
+      {
+        @Override
+        public void run()
+        {
+          Random random = new Random(context);
+
+          try
+          {
+            for (int i = 0; i < OPERATIONS_PER_WORKER; i++)
+            {
+              List<Integer> objects = new ArrayList<Integer>(3);
+              for (int j = 0; j < 3; j++)
+              {
+                objects.add(random.nextInt(OBJECTS));
+              }
+
+              LockType type = random.nextInt(4) == 0 ? LockType.WRITE : LockType.READ;
+              lockManager.lock2(type, context, objects, IRWOLockManager.WAIT);
+              lockManager.unlock2(context, objects);
+            }
+          }
+          catch (Throwable t)
+          {
+            problems.add(t);
+          }
+          finally
+          {
+            done.countDown();
+          }
+        }
+      });
+    }
+
+    bulkLocker.start();
+    startProbing();
+
+    for (Thread worker : workers)
+    {
+      worker.start();
+    }
+
+    done.await();
+    stopProbing();
+
+    running.set(false);
+    bulkLocker.join();
+
+    if (!problems.isEmpty())
+    {
+      throw new Exception(problems.get(0));
+    }
+  }
+}
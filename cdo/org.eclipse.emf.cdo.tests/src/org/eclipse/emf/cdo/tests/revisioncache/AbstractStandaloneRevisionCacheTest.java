@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.revisioncache;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranch;
+import org.eclipse.emf.cdo.common.branch.CDOBranchHandler;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionFactory;
+import org.eclipse.emf.cdo.common.util.CDOTimeProvider;
+import org.eclipse.emf.cdo.spi.common.branch.CDOBranchUtil;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.BranchInfo;
+import org.eclipse.emf.cdo.spi.common.branch.InternalCDOBranchManager.BranchLoader.SubBranchInfo;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+
+import org.eclipse.net4j.util.collection.Pair;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.eclipse.net4j.util.tests.AbstractOMTest;
+
+import org.eclipse.emf.ecore.EClass;
+
+import java.util.List;
+
+/**
+ * Tests the behaviour that is common to all revision caches with revisions that are created directly, i.e., without a
+ * repository or a session.
+ *
+ * @author Eike Stepper
+ */
+public abstract class AbstractStandaloneRevisionCacheTest extends AbstractOMTest
+{
+  protected static final long TIME_STEP = 100L;
+
+  private InternalCDOBranchManager branchManager;
+
+  private CDOBranch mainBranch;
+
+  private InternalCDORevisionCache cache;
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    branchManager = CDOBranchUtil.createBranchManager();
+    branchManager.setBranchLoader(new NOOPBranchLoader());
+    branchManager.setTimeProvider(new CDOTimeProvider()
+    {
+      public long getTimeStamp()
+      {
+        return System.currentTimeMillis();
+      }
+    });
+
+    branchManager.initMainBranch(false, 0L);
+    LifecycleUtil.activate(branchManager);
+    mainBranch = branchManager.getMainBranch();
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    LifecycleUtil.deactivate(cache);
+    cache = null;
+    LifecycleUtil.deactivate(branchManager);
+    super.doTearDown();
+  }
+
+  public void testAddedRevisionIsGettable() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(true, false);
+    InternalCDORevision revision = createRevision(1, 1, false);
+    cache.addRevision(revision);
+
+    assertRevision(revision, cache.getRevision(revision.getID(), mainBranch.getHead()));
+    assertRevision(revision, cache.getRevisionByVersion(revision.getID(), mainBranch.getVersion(1)));
+    assertEquals(revision.getEClass(), cache.getObjectType(revision.getID()));
+  }
+
+  public void testFormerVersionsAreGettable() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(true, false);
+    InternalCDORevision[] revisions = createRevisions(1, 3);
+    for (int i = 0; i < revisions.length; i++)
+    {
+      cache.addRevision(revisions[i]);
+    }
+
+    CDOID id = revisions[0].getID();
+    for (int i = 0; i < revisions.length; i++)
+    {
+      assertRevision(revisions[i], cache.getRevisionByVersion(id, mainBranch.getVersion(i + 1)));
+      assertRevision(revisions[i], cache.getRevision(id, mainBranch.getPoint(getTimeStamp(i) + TIME_STEP / 2)));
+    }
+
+    assertRevision(revisions[2], cache.getRevision(id, mainBranch.getHead()));
+    assertEquals(3, cache.getAllRevisions().get(mainBranch).size());
+  }
+
+  public void testRevisionIsNotVisibleBeforeCreation() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(true, false);
+    InternalCDORevision revision = createRevision(1, 2, false);
+    cache.addRevision(revision);
+
+    assertEquals(null, cache.getRevision(revision.getID(), mainBranch.getPoint(getTimeStamp(0))));
+  }
+
+  public void testRemovedRevisionIsNotGettable() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(true, false);
+    InternalCDORevision[] revisions = createRevisions(1, 2);
+    cache.addRevision(revisions[0]);
+    cache.addRevision(revisions[1]);
+
+    CDOID id = revisions[0].getID();
+    cache.removeRevision(id, mainBranch.getVersion(2));
+    assertEquals(null, cache.getRevisionByVersion(id, mainBranch.getVersion(2)));
+    assertRevision(revisions[0], cache.getRevisionByVersion(id, mainBranch.getVersion(1)));
+  }
+
+  public void testGetRevisions() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(true, false);
+    for (int i = 0; i < 10; i++)
+    {
+      InternalCDORevision[] revisions = createRevisions(i + 1, 2);
+      cache.addRevision(revisions[0]);
+      cache.addRevision(revisions[1]);
+    }
+
+    List<CDORevision> revisions = cache.getRevisions(mainBranch.getPoint(getTimeStamp(0) + TIME_STEP / 2));
+    assertEquals(10, revisions.size());
+    for (CDORevision revision : revisions)
+    {
+      assertEquals(1, revision.getVersion());
+    }
+
+    assertEquals(10, cache.getCurrentRevisions().size());
+  }
+
+  public void testClear() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(true, false);
+    InternalCDORevision revision = createRevision(1, 1, false);
+    cache.addRevision(revision);
+    cache.clear();
+
+    assertEquals(null, cache.getRevision(revision.getID(), mainBranch.getHead()));
+    assertEquals(0, cache.getCurrentRevisions().size());
+  }
+
+  public void testNonAuditingKeepsLatestVersion() throws Exception
+  {
+    InternalCDORevisionCache cache = getCache(false, false);
+    InternalCDORevision[] revisions = createRevisions(1, 2);
+    cache.addRevision(revisions[0]);
+    cache.addRevision(revisions[1]);
+
+    CDOID id = revisions[0].getID();
+    assertRevision(revisions[1], cache.getRevision(id, mainBranch.getHead()));
+    assertEquals(1, cache.getCurrentRevisions().size());
+  }
+
+  protected abstract InternalCDORevisionCache createCache(boolean supportingAudits, boolean supportingBranches)
+      throws Exception;
+
+  /**
+   * Asserts that the given revision was returned by a cache. A cache can return the same instance or an equal copy.
+   */
+  protected void assertRevision(CDORevision expected, CDORevision actual)
+  {
+    assertNotNull(actual);
+    assertEquals(expected.getID(), actual.getID());
+    assertEquals(expected.getBranch(), actual.getBranch());
+    assertEquals(expected.getVersion(), actual.getVersion());
+    assertEquals(expected.getTimeStamp(), actual.getTimeStamp());
+    assertEquals(expected.getRevised(), actual.getRevised());
+  }
+
+  protected InternalCDORevisionCache getCache(boolean supportingAudits, boolean supportingBranches) throws Exception
+  {
+    cache = createCache(supportingAudits, supportingBranches);
+    LifecycleUtil.activate(cache);
+    return cache;
+  }
+
+  protected CDOBranch getMainBranch()
+  {
+    return mainBranch;
+  }
+
+  /**
+   * Creates the given number of consecutive versions of the object with the given ID, all but the last one revised.
+   */
+  protected InternalCDORevision[] createRevisions(long id, int versions)
+  {
+    InternalCDORevision[] revisions = new InternalCDORevision[versions];
+    for (int v = 0; v < versions; v++)
+    {
+      revisions[v] = createRevision(id, v + 1, v < versions - 1);
+    }
+
+    return revisions;
+  }
+
+  protected InternalCDORevision createRevision(long id, int version, boolean revised)
+  {
+    EClass eClass = Model1Package.eINSTANCE.getCompany();
+    InternalCDORevision revision = (InternalCDORevision)CDORevisionFactory.DEFAULT.createRevision(eClass);
+    revision.setID(CDOIDUtil.createLong(id));
+    revision.setVersion(version);
+    revision.setBranchPoint(mainBranch.getPoint(getTimeStamp(version - 1)));
+    revision.setResourceID(CDOIDUtil.createLong(1000000L));
+    revision.setContainerID(CDOIDUtil.createLong(1000000L));
+    revision.setValue(Model1Package.eINSTANCE.getAddress_Name(), "company " + id + " v" + version);
+    if (revised)
+    {
+      revision.setRevised(getTimeStamp(version) - 1);
+    }
+
+    revision.freeze();
+    return revision;
+  }
+
+  protected static long getTimeStamp(int v)
+  {
+    return (v + 1) * TIME_STEP;
+  }
+
+  /**
+   * @author Eike Stepper
+   */
+  private static final class NOOPBranchLoader implements BranchLoader
+  {
+    public Pair<Integer, Long> createBranch(int branchID, BranchInfo branchInfo)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    public BranchInfo loadBranch(int branchID)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    public SubBranchInfo[] loadSubBranches(int branchID)
+    {
+      return new SubBranchInfo[0];
+    }
+
+    public int loadBranches(int startID, int endID, CDOBranchHandler branchHandler)
+    {
+      return 0;
+    }
+  }
+}
@@ -27,6 +27,9 @@ public class AllTestsCDORevisionCache
     suite.addTestSuite(DerbyDBRevisionCacheTest.class);
     suite.addTestSuite(H2DBRevisionCacheTest.class);
     suite.addTestSuite(DefaultRevisionCacheTest.class);
+    suite.addTestSuite(ConcurrentRevisionCacheTest.class);
+    suite.addTestSuite(OffHeapRevisionCacheTest.class);
+    suite.addTestSuite(OffHeapSlabRevisionCacheTest.class);
     // $JUnit-END$
 
     return suite;
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.revisioncache;
+
+import org.eclipse.emf.cdo.common.branch.CDOBranchPoint;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+
+import org.eclipse.net4j.util.tests.ConcurrentRunner;
+
+import java.util.Random;
+
+/**
+ * @author Eike Stepper
+ */
+public class ConcurrentRevisionCacheTest extends AbstractStandaloneRevisionCacheTest
+{
+  private static final int OBJECTS = 100;
+
+  private static final int VERSIONS = 5;
+
+  private static final int THREADS = 8;
+
+  private static final int OPERATIONS = 10000;
+
+  @Override
+  protected InternalCDORevisionCache createCache(boolean supportingAudits, boolean supportingBranches)
+      throws Exception
+  {
+    return (InternalCDORevisionCache)CDORevisionUtil.createRevisionCache(supportingAudits, supportingBranches, true);
+  }
+
+  public void testConcurrentAddAndGet() throws Throwable
+  {
+    final InternalCDORevisionCache cache = getCache(true, false);
+    final InternalCDORevision[][] revisions = new InternalCDORevision[OBJECTS][];
+    for (int i = 0; i < OBJECTS; i++)
+    {
+      revisions[i] = createRevisions(i + 1, VERSIONS);
+    }
+
+    Runnable[] runnables = new Runnable[THREADS];
+    for (int t = 0; t < THREADS; t++)
+    {
+      final int offset = t;
+      runnables[t] = new Runnable()
+      {
+        public void run()
+        {
+          for (int i = 0; i < OBJECTS; i++)
+          {
+            InternalCDORevision[] history = revisions[(i + offset) % OBJECTS];
+            for (int v = 0; v < VERSIONS; v++)
+            {
+              cache.addRevision(history[(v + offset) % VERSIONS]);
+            }
+
+            CDOID id = history[0].getID();
+            for (int v = 0; v < VERSIONS; v++)
+            {
+              CDORevision revision = cache.getRevisionByVersion(id, getMainBranch().getVersion(v + 1));
+              assertSame(history[v], revision);
+            }
+          }
+        }
+      };
+    }
+
+    ConcurrentRunner.run(runnables, THREADS, 1);
+    assertEquals(OBJECTS * VERSIONS, cache.getAllRevisions().get(getMainBranch()).size());
+    assertEquals(OBJECTS, cache.getCurrentRevisions().size());
+  }
+
+  public void testConcurrentLookupsWhileAddingLatestVersion() throws Throwable
+  {
+    lookupWhileAddingLatestVersion(true);
+  }
+
+  public void testConcurrentLookupsWhileAddingLatestVersionNonAuditing() throws Throwable
+  {
+    lookupWhileAddingLatestVersion(false);
+  }
+
+  /**
+   * Looks revisions up by version, by time stamp and by head from several threads while the threads add the latest
+   * versions of the objects, which revises the former latest versions.
+   */
+  private void lookupWhileAddingLatestVersion(final boolean supportingAudits) throws Throwable
+  {
+    final InternalCDORevisionCache cache = getCache(supportingAudits, false);
+    final InternalCDORevision[][] revisions = new InternalCDORevision[OBJECTS][];
+    for (int i = 0; i < OBJECTS; i++)
+    {
+      revisions[i] = createRevisions(i + 1, VERSIONS);
+      for (int v = supportingAudits ? 0 : VERSIONS - 2; v < VERSIONS - 1; v++)
+      {
+        cache.addRevision(revisions[i][v]);
+      }
+    }
+
+    Runnable[] runnables = new Runnable[THREADS];
+    for (int t = 0; t < THREADS; t++)
+    {
+      final Random random = new Random(t);
+      runnables[t] = new Runnable()
+      {
+        public void run()
+        {
+          for (int op = 0; op < OPERATIONS; op++)
+          {
+            InternalCDORevision[] history = revisions[random.nextInt(OBJECTS)];
+            CDOID id = history[0].getID();
+            int v = random.nextInt(VERSIONS - 1);
+
+            int kind = random.nextInt(4);
+            if (kind == 0)
+            {
+              cache.addRevision(history[VERSIONS - 1]);
+            }
+            else if (kind == 1 && supportingAudits)
+            {
+              assertSame(history[v], cache.getRevisionByVersion(id, getMainBranch().getVersion(v + 1)));
+            }
+            else if (supportingAudits)
+            {
+              CDOBranchPoint branchPoint = getMainBranch().getPoint(getTimeStamp(v) + TIME_STEP / 2);
+              assertSame(history[v], cache.getRevision(id, branchPoint));
+            }
+            else
+            {
+              // The former latest version is revised, so it isn't returned for the head
+              CDORevision revision = cache.getRevision(id, getMainBranch().getHead());
+              assertEquals(true, revision == null || revision == history[VERSIONS - 1]);
+            }
+          }
+        }
+      };
+    }
+
+    ConcurrentRunner.run(runnables, THREADS, 1);
+
+    // Adding the latest versions again must not create duplicates
+    for (int i = 0; i < OBJECTS; i++)
+    {
+      InternalCDORevision revision = revisions[i][VERSIONS - 1];
+      cache.addRevision(revision);
+      assertSame(revision, cache.getRevision(revision.getID(), getMainBranch().getHead()));
+    }
+
+    if (supportingAudits)
+    {
+      assertEquals(OBJECTS * VERSIONS, cache.getAllRevisions().get(getMainBranch()).size());
+    }
+
+    assertEquals(OBJECTS, cache.getCurrentRevisions().size());
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.revisioncache;
+
+import org.eclipse.emf.cdo.common.revision.CDOListFactory;
+import org.eclipse.emf.cdo.common.revision.CDORevisionUtil;
+import org.eclipse.emf.cdo.session.CDORepositoryInfo;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+
+import org.eclipse.emf.spi.cdo.InternalCDOSession;
+
+/**
+ * @author Eike Stepper
+ */
+public class OffHeapRevisionCacheTest extends AbstractCDORevisionCacheTest
+{
+  private static final long CAPACITY = 1024L * 1024L;
+
+  @Override
+  protected InternalCDORevisionCache createRevisionCache(CDOSession session) throws Exception
+  {
+    CDORepositoryInfo repositoryInfo = session.getRepositoryInfo();
+    boolean supportingAudits = repositoryInfo.isSupportingAudits();
+    boolean supportingBranches = repositoryInfo.isSupportingBranches();
+
+    return (InternalCDORevisionCache)CDORevisionUtil.createRevisionCache(
+        CDORevisionUtil.createRevisionCache(supportingAudits, supportingBranches), session.getPackageRegistry(),
+        ((InternalCDOSession)session).getRevisionManager().getFactory(), CDOListFactory.DEFAULT, CAPACITY);
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.emf.cdo.tests.revisioncache;
+
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.common.model.CDOPackageUnit;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.common.revision.CDORevisionCache.EvictionEvent;
+import org.eclipse.emf.cdo.internal.common.model.CDOPackageRegistryImpl;
+import org.eclipse.emf.cdo.internal.common.revision.CDORevisionCacheOffHeap;
+import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageRegistry;
+import org.eclipse.emf.cdo.spi.common.model.InternalCDOPackageRegistry.PackageLoader;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevision;
+import org.eclipse.emf.cdo.spi.common.revision.InternalCDORevisionCache;
+import org.eclipse.emf.cdo.tests.model1.Model1Package;
+
+import org.eclipse.net4j.util.event.IEvent;
+import org.eclipse.net4j.util.event.IListener;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+import org.eclipse.emf.ecore.EPackage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the slab management of the {@link CDORevisionCacheOffHeap off-heap revision cache}: recycling of the oldest
+ * slab, compaction of the revisions that get a second chance, eviction events and rehydration.
+ *
+ * @author Eike Stepper
+ */
+public class OffHeapSlabRevisionCacheTest extends AbstractStandaloneRevisionCacheTest
+{
+  private static final int SLABS = 3;
+
+  private static final int REVISIONS_PER_SLAB = 5;
+
+  /**
+   * The first ID of the revisions that are used to fill the slabs. All IDs have the same number of digits, so all
+   * revisions are serialized to the same number of bytes.
+   */
+  private static final long FIRST_ID = 100L;
+
+  private InternalCDOPackageRegistry packageRegistry;
+
+  private CDORevisionCacheOffHeap slabCache;
+
+  private int revisionSize;
+
+  private List<CDOID> evictedIDs = new ArrayList<CDOID>();
+
+  @Override
+  protected void doSetUp() throws Exception
+  {
+    super.doSetUp();
+    packageRegistry = new CDOPackageRegistryImpl();
+    packageRegistry.setPackageLoader(new PackageLoader()
+    {
+      public EPackage[] loadPackages(CDOPackageUnit packageUnit)
+      {
+        throw new UnsupportedOperationException();
+      }
+    });
+
+    LifecycleUtil.activate(packageRegistry);
+    packageRegistry.putEPackage(Model1Package.eINSTANCE);
+  }
+
+  @Override
+  protected void doTearDown() throws Exception
+  {
+    LifecycleUtil.deactivate(slabCache);
+    slabCache = null;
+    LifecycleUtil.deactivate(packageRegistry);
+    packageRegistry = null;
+    super.doTearDown();
+  }
+
+  @Override
+  protected InternalCDORevisionCache createCache(boolean supportingAudits, boolean supportingBranches)
+      throws Exception
+  {
+    CDORevisionCacheOffHeap cache = new CDORevisionCacheOffHeap();
+    cache.setPackageRegistry(packageRegistry);
+    return cache;
+  }
+
+  public void testRehydration() throws Exception
+  {
+    CDORevisionCacheOffHeap cache = getSlabCache();
+    InternalCDORevision revision = createRevision(FIRST_ID, 1, false);
+    cache.addRevision(revision);
+
+    InternalCDORevision rehydrated = cache.getRevision(revision.getID(), getMainBranch().getHead());
+    assertNotSame(revision, rehydrated);
+    assertRevision(revision, rehydrated);
+    assertEquals(revision.getEClass(), rehydrated.getEClass());
+    assertEquals(revision.getResourceID(), rehydrated.getResourceID());
+    assertEquals(revision.getContainerID(), rehydrated.getContainerID());
+    assertEquals(getName(revision), getName(rehydrated));
+
+    // Each lookup rehydrates a new revision
+    assertNotSame(rehydrated, cache.getRevision(revision.getID(), getMainBranch().getHead()));
+  }
+
+  public void testRevisedCopy() throws Exception
+  {
+    CDORevisionCacheOffHeap cache = getSlabCache();
+    InternalCDORevision revision = createRevision(FIRST_ID, 1, false);
+    cache.addRevision(revision);
+
+    long revised = getTimeStamp(1) - 1;
+    revision.setRevised(revised);
+    assertNotNull(cache.getRevision(revision.getID(), getMainBranch().getHead()));
+
+    cache.reviseRevision(revision);
+    assertEquals(null, cache.getRevision(revision.getID(), getMainBranch().getHead()));
+    assertEquals(revised, cache.getRevisionByVersion(revision.getID(), getMainBranch().getVersion(1)).getRevised());
+  }
+
+  public void testSlabRecycling() throws Exception
+  {
+    CDORevisionCacheOffHeap cache = getSlabCache();
+    int revisions = SLABS * REVISIONS_PER_SLAB;
+    addRevisions(0, revisions);
+    assertEquals(revisions * revisionSize, cache.getSize());
+    assertEquals(0, evictedIDs.size());
+
+    // All slabs are full, so the oldest one is recycled and all of its revisions are evicted
+    addRevisions(revisions, revisions + 1);
+    assertEvicted(0, REVISIONS_PER_SLAB);
+    assertCached(REVISIONS_PER_SLAB, revisions + 1);
+    assertEquals((revisions - REVISIONS_PER_SLAB + 1) * revisionSize, cache.getSize());
+    assertEquals(true, cache.getSize() <= cache.getCapacity());
+  }
+
+  public void testSecondChance() throws Exception
+  {
+    CDORevisionCacheOffHeap cache = getSlabCache();
+    int revisions = SLABS * REVISIONS_PER_SLAB;
+    addRevisions(0, revisions);
+
+    // Read the first and the third revision of the oldest slab
+    getRevision(0);
+    getRevision(2);
+
+    // The read revisions are moved to the front of the recycled slab, the others are evicted
+    addRevisions(revisions, revisions + 1);
+    assertEvicted(1, 2);
+    assertEvicted(3, REVISIONS_PER_SLAB);
+    assertEquals(REVISIONS_PER_SLAB - 2, evictedIDs.size());
+    assertCached(0, 1);
+    assertCached(2, 3);
+    assertCached(REVISIONS_PER_SLAB, revisions + 1);
+    assertEquals((revisions - REVISIONS_PER_SLAB + 3) * revisionSize, cache.getSize());
+
+    // Fill the rest of the recycled slab, then recycle the other slabs, which have not been read
+    int added = revisions + REVISIONS_PER_SLAB - 2;
+    addRevisions(revisions + 1, added);
+    assertEquals(REVISIONS_PER_SLAB - 2, evictedIDs.size());
+
+    addRevisions(added, added + 1);
+    assertEvicted(REVISIONS_PER_SLAB, 2 * REVISIONS_PER_SLAB);
+    addRevisions(added + 1, added + REVISIONS_PER_SLAB + 1);
+    assertEvicted(2 * REVISIONS_PER_SLAB, revisions);
+
+    // The second chance is over, the revisions are evicted when their slab is recycled again
+    assertCached(0, 1);
+    assertCached(2, 3);
+    addRevisions(added + REVISIONS_PER_SLAB + 1, added + 2 * REVISIONS_PER_SLAB + 1);
+    assertEvicted(0, 1);
+    assertEvicted(2, 3);
+    assertEquals(true, cache.getSize() <= cache.getCapacity());
+  }
+
+  /**
+   * Returns an off-heap cache whose slabs hold exactly {@link #REVISIONS_PER_SLAB} of the revisions that are created
+   * for the IDs from {@link #FIRST_ID}, and that records the IDs of the evicted revisions.
+   */
+  private CDORevisionCacheOffHeap getSlabCache() throws Exception
+  {
+    CDORevisionCacheOffHeap probe = (CDORevisionCacheOffHeap)createCache(true, false);
+    LifecycleUtil.activate(probe);
+
+    try
+    {
+      probe.addRevision(createRevision(FIRST_ID, 1, false));
+      revisionSize = (int)probe.getSize();
+    }
+    finally
+    {
+      LifecycleUtil.deactivate(probe);
+    }
+
+    int slabSize = REVISIONS_PER_SLAB * revisionSize;
+    slabCache = (CDORevisionCacheOffHeap)createCache(true, false);
+    slabCache.setSlabSize(slabSize);
+    slabCache.setCapacity(SLABS * slabSize);
+    slabCache.addListener(new IListener()
+    {
+      public void notifyEvent(IEvent event)
+      {
+        if (event instanceof EvictionEvent)
+        {
+          evictedIDs.add(((EvictionEvent)event).getID());
+        }
+      }
+    });
+
+    LifecycleUtil.activate(slabCache);
+    return slabCache;
+  }
+
+  private void addRevisions(int from, int to)
+  {
+    for (int i = from; i < to; i++)
+    {
+      slabCache.addRevision(createRevision(FIRST_ID + i, 1, false));
+    }
+  }
+
+  private InternalCDORevision getRevision(int i)
+  {
+    return slabCache.getRevisionByVersion(CDOIDUtil.createLong(FIRST_ID + i), getMainBranch().getVersion(1));
+  }
+
+  /**
+   * Asserts that the revisions are cached, without marking them as read.
+   */
+  private void assertCached(int from, int to)
+  {
+    Map<CDOID, CDORevision> revisions = new HashMap<CDOID, CDORevision>();
+    for (CDORevision revision : slabCache.getCurrentRevisions())
+    {
+      revisions.put(revision.getID(), revision);
+    }
+
+    for (int i = from; i < to; i++)
+    {
+      CDORevision revision = revisions.get(CDOIDUtil.createLong(FIRST_ID + i));
+      assertNotNull(revision);
+      assertEquals("company " + (FIRST_ID + i) + " v1", getName(revision));
+    }
+  }
+
+  private void assertEvicted(int from, int to)
+  {
+    for (int i = from; i < to; i++)
+    {
+      CDOID id = CDOIDUtil.createLong(FIRST_ID + i);
+      assertEquals(true, evictedIDs.contains(id));
+      assertEquals(null, getRevision(i));
+    }
+  }
+
+  private static Object getName(CDORevision revision)
+  {
+    return ((InternalCDORevision)revision).getValue(Model1Package.eINSTANCE.getAddress_Name());
+  }
+}
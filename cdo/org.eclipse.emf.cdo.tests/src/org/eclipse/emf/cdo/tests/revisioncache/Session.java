@@ -15,7 +15,7 @@ import org.eclipse.emf.cdo.net4j.CDONet4jSessionConfiguration;
 import org.eclipse.emf.cdo.net4j.CDONet4jUtil;
 import org.eclipse.emf.cdo.server.CDOServerUtil;
 import org.eclipse.emf.cdo.server.IRepository;
-import org.eclipse.emf.cdo.server.mem.IMEMStore;
+import org.eclipse.emf.cdo.server.IStore;
 import org.eclipse.emf.cdo.server.mem.MEMStoreUtil;
 import org.eclipse.emf.cdo.server.net4j.CDONet4jServerUtil;
 import org.eclipse.emf.cdo.session.CDOSession;
@@ -33,8 +33,8 @@ import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
 import org.eclipse.emf.ecore.EPackage;
 
 /**
- * A class that holds a single CDOSession. It starts an IRepository that uses a memstore and a client that connects to
- * it by JVM transport
+ * A class that holds a single CDOSession. It starts an IRepository that uses a memstore (unless
+ * {@link #createStore()} is overridden) and a client that connects to it by JVM transport
  * 
  * @author Andre Dietisheim
  */
@@ -48,7 +48,7 @@ public class Session extends Lifecycle
 
   private IJVMAcceptor acceptor;
 
-  private IMEMStore store;
+  private IStore store;
 
   private IRepository repository;
 
@@ -101,6 +101,14 @@ public class Session extends Lifecycle
     return session;
   }
 
+  /**
+   * Returns the repository the session of this class is connected to.
+   */
+  public IRepository getRepository()
+  {
+    return repository;
+  }
+
   /**
    * Returns the session this class holds.
    * 
@@ -145,8 +153,16 @@ public class Session extends Lifecycle
     LifecycleUtil.activate(serverContainer);
 
     acceptor = JVMUtil.getAcceptor(serverContainer, CONNECTOR_NAME);
-    store = MEMStoreUtil.createMEMStore();
+    store = createStore();
     repository = CDOServerUtil.createRepository(repositoryName, store, null);
     CDOServerUtil.addRepository(serverContainer, repository);
   }
+
+  /**
+   * Creates the store of the repository. The default implementation creates a memstore.
+   */
+  protected IStore createStore()
+  {
+    return MEMStoreUtil.createMEMStore();
+  }
 }
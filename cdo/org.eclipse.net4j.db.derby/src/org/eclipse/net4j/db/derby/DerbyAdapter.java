@@ -88,4 +88,10 @@ public abstract class DerbyAdapter extends DBAdapter
       return super.isValidFirstChar(ch);
     }
   }
+
+  @Override
+  public String getValidationQuery()
+  {
+    return "VALUES 1"; //$NON-NLS-1$
+  }
 }
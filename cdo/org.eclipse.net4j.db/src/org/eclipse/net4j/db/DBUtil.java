@@ -13,6 +13,7 @@ package org.eclipse.net4j.db;
 import org.eclipse.net4j.db.ddl.IDBField;
 import org.eclipse.net4j.db.ddl.IDBSchema;
 import org.eclipse.net4j.db.ddl.IDBTable;
+import org.eclipse.net4j.internal.db.DBConnectionPool;
 import org.eclipse.net4j.internal.db.DataSourceConnectionProvider;
 import org.eclipse.net4j.internal.db.bundle.OM;
 import org.eclipse.net4j.spi.db.DBSchema;
@@ -167,6 +168,28 @@ public final class DBUtil
     return new DataSourceConnectionProvider(dataSource);
   }
 
+  /**
+   * Returns a new, inactive {@link IDBConnectionPool connection pool} for the connections of the given data source.
+   * 
+   * @since 4.2
+   */
+  public static IDBConnectionPool createConnectionPool(DataSource dataSource, IDBAdapter adapter)
+  {
+    return createConnectionPool(createConnectionProvider(dataSource), adapter);
+  }
+
+  /**
+   * Returns a new, inactive {@link IDBConnectionPool connection pool} for the connections of the given connection
+   * provider. The pool validates idle connections with the {@link IDBAdapter#getValidationQuery() validation query} of
+   * the given adapter.
+   * 
+   * @since 4.2
+   */
+  public static IDBConnectionPool createConnectionPool(IDBConnectionProvider connectionProvider, IDBAdapter adapter)
+  {
+    return new DBConnectionPool(connectionProvider, adapter == null ? null : adapter.getValidationQuery());
+  }
+
   /**
    * Can only be used when Eclipse is running. In standalone scenarios create the adapter instance by directly calling
    * the constructor of the adapter class.
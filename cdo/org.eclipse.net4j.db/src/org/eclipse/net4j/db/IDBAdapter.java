@@ -87,4 +87,12 @@ public interface IDBAdapter
    * @since 4.0
    */
   public boolean isDuplicateKeyException(SQLException ex);
+
+  /**
+   * Returns a cheap SQL query that succeeds if and only if a connection is still usable, e.g. for the validation of
+   * pooled connections.
+   * 
+   * @since 4.2
+   */
+  public String getValidationQuery();
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.db;
+
+import org.eclipse.net4j.util.lifecycle.ILifecycle;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+/**
+ * A {@link IDBConnectionProvider connection provider} that pools the connections of another connection provider.
+ * <p>
+ * Closing a connection that has been obtained from a pool returns it to the pool. The {@link PreparedStatement prepared
+ * statements} of a pooled connection stay open across checkouts, so that preparing the same SQL again after the next
+ * checkout reuses them. The configuration must be set before the pool is {@link ILifecycle#activate() activated}.
+ *
+ * @author Eike Stepper
+ * @since 4.2
+ * @noimplement This interface is not intended to be implemented by clients.
+ * @see DBUtil#createConnectionPool(IDBConnectionProvider, IDBAdapter)
+ */
+public interface IDBConnectionPool extends IDBConnectionProvider, ILifecycle
+{
+  public static final int DEFAULT_MIN_SIZE = 0;
+
+  public static final int DEFAULT_MAX_SIZE = 20;
+
+  public static final long DEFAULT_CHECKOUT_TIMEOUT = 30 * 1000L;
+
+  public static final long DEFAULT_VALIDATION_INTERVAL = 30 * 1000L;
+
+  public static final long DEFAULT_IDLE_TIMEOUT = 10 * 60 * 1000L;
+
+  public static final long DEFAULT_LEAK_TIMEOUT = 0L;
+
+  public static final int DEFAULT_MAX_STATEMENTS = 100;
+
+  /**
+   * Returns the number of connections that the pool keeps open even if they are idle.
+   */
+  public int getMinSize();
+
+  public void setMinSize(int minSize);
+
+  /**
+   * Returns the maximum number of open connections. Further checkouts wait until a connection is returned.
+   */
+  public int getMaxSize();
+
+  public void setMaxSize(int maxSize);
+
+  /**
+   * Returns the number of milliseconds that a checkout waits for a connection before it fails with a
+   * {@link DBException}.
+   */
+  public long getCheckoutTimeout();
+
+  public void setCheckoutTimeout(long checkoutTimeout);
+
+  /**
+   * Returns the number of milliseconds that a connection can be idle before it is validated at its next checkout, or
+   * <code>0</code> if connections are validated at every checkout.
+   */
+  public long getValidationInterval();
+
+  public void setValidationInterval(long validationInterval);
+
+  /**
+   * Returns the number of milliseconds after which an idle connection is closed if the pool has more than
+   * {@link #getMinSize() min size} connections, or <code>0</code> if idle connections are never closed.
+   */
+  public long getIdleTimeout();
+
+  public void setIdleTimeout(long idleTimeout);
+
+  /**
+   * Returns the number of milliseconds after which a connection that has not been returned is reported as a leak,
+   * together with the stack trace of its checkout, or <code>0</code> if leaks are not detected.
+   */
+  public long getLeakTimeout();
+
+  public void setLeakTimeout(long leakTimeout);
+
+  /**
+   * Returns the maximum number of prepared statements that are kept open per connection.
+   */
+  public int getMaxStatements();
+
+  public void setMaxStatements(int maxStatements);
+
+  /**
+   * Returns the number of open connections.
+   */
+  public int getSize();
+
+  /**
+   * Returns the number of open connections that are not checked out.
+   */
+  public int getIdleCount();
+
+  /**
+   * Returns the number of connections that are checked out.
+   */
+  public int getActiveCount();
+
+  /**
+   * Returns the number of successful checkouts.
+   */
+  public long getCheckoutCount();
+
+  /**
+   * Returns the number of checkouts that had to wait for a connection to be returned.
+   */
+  public long getWaitCount();
+
+  /**
+   * Returns the number of checkouts that have failed because no connection was returned in time.
+   */
+  public long getTimeoutCount();
+
+  /**
+   * Returns the number of {@link Connection connections} that have been opened.
+   */
+  public long getCreatedCount();
+
+  /**
+   * Returns the number of {@link Connection connections} that have been closed.
+   */
+  public long getDestroyedCount();
+
+  /**
+   * Returns the number of connections that have been closed because they failed their validation.
+   */
+  public long getValidationFailureCount();
+
+  /**
+   * Returns the number of connections that have been reported as leaks.
+   */
+  public long getLeakCount();
+
+  /**
+   * Returns the number of prepared statements that have been reused from the statement cache of a connection.
+   */
+  public long getStatementHitCount();
+
+  /**
+   * Returns the number of prepared statements that had to be prepared by the database.
+   */
+  public long getStatementMissCount();
+}
@@ -0,0 +1,1038 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.internal.db;
+
+import org.eclipse.net4j.db.DBException;
+import org.eclipse.net4j.db.IDBConnectionPool;
+import org.eclipse.net4j.db.IDBConnectionProvider;
+import org.eclipse.net4j.internal.db.bundle.OM;
+import org.eclipse.net4j.util.lifecycle.Lifecycle;
+import org.eclipse.net4j.util.lifecycle.LifecycleState;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pools the connections of another {@link IDBConnectionProvider connection provider}.
+ * <p>
+ * The connections that are handed out are proxies of the pooled physical connections. Closing a proxy rolls back
+ * uncommitted work, restores the auto-commit mode and returns the physical connection to the pool. Each physical
+ * connection keeps the statements that have been prepared through its proxies in an LRU cache that survives checkouts.
+ *
+ * @author Eike Stepper
+ */
+public class DBConnectionPool extends Lifecycle implements IDBConnectionPool
+{
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, DBConnectionPool.class);
+
+  private static final long MAINTENANCE_PERIOD = 1000L;
+
+  private static final Class<?>[] CONNECTION_INTERFACES = { Connection.class };
+
+  private static final Class<?>[] STATEMENT_INTERFACES = { PreparedStatement.class };
+
+  private final IDBConnectionProvider connectionProvider;
+
+  private final String validationQuery;
+
+  private int minSize = DEFAULT_MIN_SIZE;
+
+  private int maxSize = DEFAULT_MAX_SIZE;
+
+  private long checkoutTimeout = DEFAULT_CHECKOUT_TIMEOUT;
+
+  private long validationInterval = DEFAULT_VALIDATION_INTERVAL;
+
+  private long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+  private long leakTimeout = DEFAULT_LEAK_TIMEOUT;
+
+  private int maxStatements = DEFAULT_MAX_STATEMENTS;
+
+  /**
+   * Ordered from the most to the least recently returned connection, so that the hot connections are reused and the
+   * cold ones are evicted.
+   */
+  private final LinkedList<PooledConnection> idleConnections = new LinkedList<PooledConnection>();
+
+  private final Set<PooledConnection> activeConnections = new HashSet<PooledConnection>();
+
+  /**
+   * The number of open connections including the ones that are currently being opened.
+   */
+  private int size;
+
+  private Timer maintenanceTimer;
+
+  private long checkoutCount;
+
+  private long waitCount;
+
+  private long timeoutCount;
+
+  private long createdCount;
+
+  private long destroyedCount;
+
+  private long validationFailureCount;
+
+  private long leakCount;
+
+  private final AtomicLong statementHitCount = new AtomicLong();
+
+  private final AtomicLong statementMissCount = new AtomicLong();
+
+  /**
+   * @param validationQuery
+   *          the SQL query that checks whether an idle connection is still usable, or <code>null</code> to only check
+   *          whether it is {@link Connection#isClosed() closed}.
+   */
+  public DBConnectionPool(IDBConnectionProvider connectionProvider, String validationQuery)
+  {
+    this.connectionProvider = connectionProvider;
+    this.validationQuery = validationQuery;
+  }
+
+  public IDBConnectionProvider getConnectionProvider()
+  {
+    return connectionProvider;
+  }
+
+  public String getValidationQuery()
+  {
+    return validationQuery;
+  }
+
+  public int getMinSize()
+  {
+    return minSize;
+  }
+
+  public void setMinSize(int minSize)
+  {
+    checkInactive();
+    this.minSize = minSize;
+  }
+
+  public int getMaxSize()
+  {
+    return maxSize;
+  }
+
+  public void setMaxSize(int maxSize)
+  {
+    checkInactive();
+    this.maxSize = maxSize;
+  }
+
+  public long getCheckoutTimeout()
+  {
+    return checkoutTimeout;
+  }
+
+  public void setCheckoutTimeout(long checkoutTimeout)
+  {
+    checkInactive();
+    this.checkoutTimeout = checkoutTimeout;
+  }
+
+  public long getValidationInterval()
+  {
+    return validationInterval;
+  }
+
+  public void setValidationInterval(long validationInterval)
+  {
+    checkInactive();
+    this.validationInterval = validationInterval;
+  }
+
+  public long getIdleTimeout()
+  {
+    return idleTimeout;
+  }
+
+  public void setIdleTimeout(long idleTimeout)
+  {
+    checkInactive();
+    this.idleTimeout = idleTimeout;
+  }
+
+  public long getLeakTimeout()
+  {
+    return leakTimeout;
+  }
+
+  public void setLeakTimeout(long leakTimeout)
+  {
+    checkInactive();
+    this.leakTimeout = leakTimeout;
+  }
+
+  public int getMaxStatements()
+  {
+    return maxStatements;
+  }
+
+  public void setMaxStatements(int maxStatements)
+  {
+    checkInactive();
+    this.maxStatements = maxStatements;
+  }
+
+  public synchronized int getSize()
+  {
+    return size;
+  }
+
+  public synchronized int getIdleCount()
+  {
+    return idleConnections.size();
+  }
+
+  public synchronized int getActiveCount()
+  {
+    return activeConnections.size();
+  }
+
+  public synchronized long getCheckoutCount()
+  {
+    return checkoutCount;
+  }
+
+  public synchronized long getWaitCount()
+  {
+    return waitCount;
+  }
+
+  public synchronized long getTimeoutCount()
+  {
+    return timeoutCount;
+  }
+
+  public synchronized long getCreatedCount()
+  {
+    return createdCount;
+  }
+
+  public synchronized long getDestroyedCount()
+  {
+    return destroyedCount;
+  }
+
+  public synchronized long getValidationFailureCount()
+  {
+    return validationFailureCount;
+  }
+
+  public synchronized long getLeakCount()
+  {
+    return leakCount;
+  }
+
+  public long getStatementHitCount()
+  {
+    return statementHitCount.get();
+  }
+
+  public long getStatementMissCount()
+  {
+    return statementMissCount.get();
+  }
+
+  public Connection getConnection() throws DBException
+  {
+    for (;;)
+    {
+      PooledConnection connection = checkOut();
+      if (connection == null)
+      {
+        connection = createConnection();
+      }
+      else if (!validate(connection))
+      {
+        synchronized (this)
+        {
+          activeConnections.remove(connection);
+          --size;
+          ++destroyedCount;
+          ++validationFailureCount;
+          notifyAll();
+        }
+
+        connection.destroy();
+        continue;
+      }
+
+      return connection.open();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return MessageFormat.format("DBConnectionPool[{0}]", connectionProvider); //$NON-NLS-1$
+  }
+
+  @Override
+  protected void doBeforeActivate() throws Exception
+  {
+    super.doBeforeActivate();
+    checkState(connectionProvider, "connectionProvider"); //$NON-NLS-1$
+    checkState(maxSize > 0, "maxSize must be positive"); //$NON-NLS-1$
+    checkState(minSize <= maxSize, "minSize must not be greater than maxSize"); //$NON-NLS-1$
+  }
+
+  @Override
+  protected void doActivate() throws Exception
+  {
+    super.doActivate();
+    for (int i = 0; i < minSize; i++)
+    {
+      synchronized (this)
+      {
+        ++size;
+      }
+
+      addIdleConnection(createConnection());
+    }
+
+    maintenanceTimer = new Timer("DBConnectionPool-Maintenance", true); //$NON-NLS-1$
+    maintenanceTimer.schedule(new TimerTask()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          maintain();
+        }
+        catch (Exception ex)
+        {
+          OM.LOG.error(ex);
+        }
+      }
+    }, MAINTENANCE_PERIOD, MAINTENANCE_PERIOD);
+  }
+
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    maintenanceTimer.cancel();
+    maintenanceTimer = null;
+
+    List<PooledConnection> connections;
+    synchronized (this)
+    {
+      connections = new ArrayList<PooledConnection>(idleConnections);
+      idleConnections.clear();
+      size -= connections.size();
+      destroyedCount += connections.size();
+
+      // Wake up waiting checkouts so that they fail; active connections are destroyed when they are returned
+      notifyAll();
+    }
+
+    for (PooledConnection connection : connections)
+    {
+      connection.destroy();
+    }
+
+    super.doDeactivate();
+  }
+
+  /**
+   * Closes the connections that have been idle for longer than the {@link #getIdleTimeout() idle timeout}, reports
+   * leaked connections and opens connections until the pool has its {@link #getMinSize() minimum size} again.
+   */
+  protected void maintain()
+  {
+    List<PooledConnection> evictedConnections = new ArrayList<PooledConnection>();
+    List<PooledConnection> leakedConnections = new ArrayList<PooledConnection>();
+    int missing;
+
+    synchronized (this)
+    {
+      if (!isActive())
+      {
+        return;
+      }
+
+      long now = System.currentTimeMillis();
+      if (idleTimeout > 0)
+      {
+        while (size > minSize && !idleConnections.isEmpty() && now - idleConnections.getLast().idleSince > idleTimeout)
+        {
+          evictedConnections.add(idleConnections.removeLast());
+          --size;
+          ++destroyedCount;
+        }
+      }
+
+      if (leakTimeout > 0)
+      {
+        for (PooledConnection connection : activeConnections)
+        {
+          if (!connection.leakReported && now - connection.checkoutTime > leakTimeout)
+          {
+            connection.leakReported = true;
+            leakedConnections.add(connection);
+            ++leakCount;
+          }
+        }
+      }
+
+      missing = Math.max(0, minSize - size);
+      size += missing;
+    }
+
+    for (PooledConnection connection : evictedConnections)
+    {
+      if (TRACER.isEnabled())
+      {
+        TRACER.trace("Closing idle connection " + connection); //$NON-NLS-1$
+      }
+
+      connection.destroy();
+    }
+
+    for (PooledConnection connection : leakedConnections)
+    {
+      OM.LOG.warn("Connection has not been returned within " + leakTimeout + " millis: " + connection, //$NON-NLS-1$ //$NON-NLS-2$
+          connection.checkoutStack);
+    }
+
+    for (int i = 0; i < missing; i++)
+    {
+      try
+      {
+        addIdleConnection(createConnection());
+      }
+      catch (RuntimeException ex)
+      {
+        OM.LOG.warn(ex);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns an idle connection, or <code>null</code> if the caller has to open a new connection, for which the size of
+   * the pool has already been increased.
+   */
+  private synchronized PooledConnection checkOut()
+  {
+    long deadline = 0L;
+    for (;;)
+    {
+      checkActive();
+      if (!idleConnections.isEmpty())
+      {
+        PooledConnection connection = idleConnections.removeFirst();
+        activeConnections.add(connection);
+        ++checkoutCount;
+        return connection;
+      }
+
+      if (size < maxSize)
+      {
+        ++size;
+        ++checkoutCount;
+        return null;
+      }
+
+      long now = System.currentTimeMillis();
+      if (deadline == 0L)
+      {
+        deadline = now + checkoutTimeout;
+        ++waitCount;
+      }
+      else if (now >= deadline)
+      {
+        ++timeoutCount;
+        throw new DBException("No connection has been returned within " + checkoutTimeout + " millis: " + this); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+
+      try
+      {
+        wait(deadline - now);
+      }
+      catch (InterruptedException ex)
+      {
+        Thread.currentThread().interrupt();
+        throw new DBException(ex);
+      }
+    }
+  }
+
+  /**
+   * Returns a connection that has been checked out. Connections that could not be reset or that are returned to an
+   * inactive pool are closed.
+   */
+  private void checkIn(PooledConnection connection, boolean reusable)
+  {
+    synchronized (this)
+    {
+      activeConnections.remove(connection);
+      if (reusable && isActive())
+      {
+        connection.idleSince = System.currentTimeMillis();
+        idleConnections.addFirst(connection);
+        notify();
+        return;
+      }
+
+      --size;
+      ++destroyedCount;
+      notifyAll();
+    }
+
+    connection.destroy();
+  }
+
+  /**
+   * Opens a new connection for which the size of the pool has already been increased.
+   */
+  private PooledConnection createConnection()
+  {
+    PooledConnection connection;
+
+    try
+    {
+      Connection physicalConnection = connectionProvider.getConnection();
+      if (physicalConnection == null)
+      {
+        throw new DBException("No connection from connection provider: " + connectionProvider); //$NON-NLS-1$
+      }
+
+      connection = new PooledConnection(physicalConnection);
+    }
+    catch (RuntimeException ex)
+    {
+      synchronized (this)
+      {
+        --size;
+        notifyAll();
+      }
+
+      throw ex;
+    }
+
+    synchronized (this)
+    {
+      ++createdCount;
+      activeConnections.add(connection);
+    }
+
+    return connection;
+  }
+
+  /**
+   * Adds a connection that has been opened by {@link #doActivate()} or {@link #maintain()} to the idle connections.
+   */
+  private void addIdleConnection(PooledConnection connection)
+  {
+    synchronized (this)
+    {
+      activeConnections.remove(connection);
+      LifecycleState state = getLifecycleState();
+      if (state == LifecycleState.ACTIVATING || state == LifecycleState.ACTIVE)
+      {
+        connection.idleSince = System.currentTimeMillis();
+        idleConnections.addLast(connection);
+        notify();
+        return;
+      }
+
+      --size;
+      ++destroyedCount;
+    }
+
+    connection.destroy();
+  }
+
+  private boolean validate(PooledConnection connection)
+  {
+    if (validationInterval > 0 && System.currentTimeMillis() - connection.idleSince < validationInterval)
+    {
+      return true;
+    }
+
+    Connection physicalConnection = connection.physicalConnection;
+    if (validationQuery == null)
+    {
+      try
+      {
+        return !physicalConnection.isClosed();
+      }
+      catch (SQLException ex)
+      {
+        return false;
+      }
+    }
+
+    Statement statement = null;
+    ResultSet resultSet = null;
+
+    try
+    {
+      statement = physicalConnection.createStatement();
+      resultSet = statement.executeQuery(validationQuery);
+      return true;
+    }
+    catch (SQLException ex)
+    {
+      if (TRACER.isEnabled())
+      {
+        TRACER.trace("Validation of " + connection + " failed", ex); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+
+      return false;
+    }
+    finally
+    {
+      closeQuietly(resultSet);
+      closeQuietly(statement);
+    }
+  }
+
+  private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable
+  {
+    try
+    {
+      return method.invoke(target, args);
+    }
+    catch (InvocationTargetException ex)
+    {
+      throw ex.getTargetException();
+    }
+  }
+
+  private static void closeQuietly(ResultSet resultSet)
+  {
+    if (resultSet != null)
+    {
+      try
+      {
+        resultSet.close();
+      }
+      catch (SQLException ex)
+      {
+        // Ignore
+      }
+    }
+  }
+
+  private static void closeQuietly(Statement statement)
+  {
+    if (statement != null)
+    {
+      try
+      {
+        statement.close();
+      }
+      catch (SQLException ex)
+      {
+        // Ignore
+      }
+    }
+  }
+
+  private static Object invokeObjectMethod(Object proxy, String name, Object[] args)
+  {
+    if ("equals".equals(name)) //$NON-NLS-1$
+    {
+      return proxy == args[0];
+    }
+
+    if ("hashCode".equals(name)) //$NON-NLS-1$
+    {
+      return System.identityHashCode(proxy);
+    }
+
+    return Proxy.getInvocationHandler(proxy).getClass().getSimpleName() + "@" //$NON-NLS-1$
+        + Integer.toHexString(System.identityHashCode(proxy));
+  }
+
+  /**
+   * A physical connection of the pool together with its statement cache.
+   *
+   * @author Eike Stepper
+   */
+  private final class PooledConnection
+  {
+    private final Connection physicalConnection;
+
+    private final boolean autoCommit;
+
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16,
+        0.75f, true)
+    {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest)
+      {
+        if (size() > maxStatements)
+        {
+          closeQuietly(eldest.getValue());
+          return true;
+        }
+
+        return false;
+      }
+    };
+
+    private long idleSince;
+
+    private long checkoutTime;
+
+    private Exception checkoutStack;
+
+    private boolean leakReported;
+
+    public PooledConnection(Connection physicalConnection)
+    {
+      this.physicalConnection = physicalConnection;
+
+      try
+      {
+        autoCommit = physicalConnection.getAutoCommit();
+      }
+      catch (SQLException ex)
+      {
+        destroy();
+        throw new DBException(ex);
+      }
+    }
+
+    public Connection open()
+    {
+      checkoutTime = System.currentTimeMillis();
+      checkoutStack = leakTimeout > 0 ? new Exception("Checkout of " + this) : null; //$NON-NLS-1$
+      leakReported = false;
+
+      ConnectionHandle handle = new ConnectionHandle(this);
+      return (Connection)Proxy.newProxyInstance(DBConnectionPool.class.getClassLoader(), CONNECTION_INTERFACES, handle);
+    }
+
+    public PreparedStatement takeStatement(String key)
+    {
+      PreparedStatement statement = statements.remove(key);
+      if (statement != null)
+      {
+        statementHitCount.incrementAndGet();
+      }
+      else
+      {
+        statementMissCount.incrementAndGet();
+      }
+
+      return statement;
+    }
+
+    public void returnStatement(String key, PreparedStatement statement)
+    {
+      try
+      {
+        // Don't let the settings of this checkout leak into the next one
+        statement.clearParameters();
+        statement.clearBatch();
+        statement.clearWarnings();
+        statement.setMaxRows(0);
+        statement.setQueryTimeout(0);
+        statement.setFetchSize(0);
+      }
+      catch (SQLException ex)
+      {
+        closeQuietly(statement);
+        return;
+      }
+
+      if (statements.containsKey(key))
+      {
+        // The same SQL has been prepared twice during a checkout
+        closeQuietly(statement);
+      }
+      else
+      {
+        statements.put(key, statement);
+      }
+    }
+
+    /**
+     * Rolls back uncommitted work and restores the auto-commit mode.
+     *
+     * @return <code>true</code> if the connection can be reused, <code>false</code> otherwise.
+     */
+    public boolean reset()
+    {
+      try
+      {
+        if (!physicalConnection.getAutoCommit())
+        {
+          physicalConnection.rollback();
+          if (autoCommit)
+          {
+            physicalConnection.setAutoCommit(true);
+          }
+        }
+        else if (!autoCommit)
+        {
+          physicalConnection.setAutoCommit(false);
+        }
+
+        physicalConnection.clearWarnings();
+        return true;
+      }
+      catch (SQLException ex)
+      {
+        if (TRACER.isEnabled())
+        {
+          TRACER.trace("Reset of " + this + " failed", ex); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        return false;
+      }
+    }
+
+    public void destroy()
+    {
+      for (PreparedStatement statement : statements.values())
+      {
+        closeQuietly(statement);
+      }
+
+      statements.clear();
+
+      try
+      {
+        physicalConnection.close();
+      }
+      catch (SQLException ex)
+      {
+        if (TRACER.isEnabled())
+        {
+          TRACER.trace("Close of " + this + " failed", ex); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+      }
+    }
+
+    @Override
+    public String toString()
+    {
+      return MessageFormat.format("PooledConnection[{0}]", physicalConnection); //$NON-NLS-1$
+    }
+  }
+
+  /**
+   * Handles the calls to the proxy of a pooled connection during a single checkout.
+   *
+   * @author Eike Stepper
+   */
+  private final class ConnectionHandle implements InvocationHandler
+  {
+    private final PooledConnection connection;
+
+    private final List<StatementHandle> statementHandles = new ArrayList<StatementHandle>();
+
+    private final List<Statement> unpooledStatements = new ArrayList<Statement>();
+
+    private boolean closed;
+
+    public ConnectionHandle(PooledConnection connection)
+    {
+      this.connection = connection;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+      String name = method.getName();
+      if (method.getDeclaringClass() == Object.class)
+      {
+        return invokeObjectMethod(proxy, name, args);
+      }
+
+      if ("close".equals(name)) //$NON-NLS-1$
+      {
+        close();
+        return null;
+      }
+
+      if ("isClosed".equals(name)) //$NON-NLS-1$
+      {
+        return closed;
+      }
+
+      if (closed)
+      {
+        throw new SQLException("Connection is closed"); //$NON-NLS-1$
+      }
+
+      if ("prepareStatement".equals(name)) //$NON-NLS-1$
+      {
+        String key = getStatementKey(method, args);
+        if (key != null)
+        {
+          PreparedStatement statement = connection.takeStatement(key);
+          if (statement == null)
+          {
+            statement = (PreparedStatement)invokeTarget(connection.physicalConnection, method, args);
+          }
+
+          StatementHandle handle = new StatementHandle(this, (Connection)proxy, key, statement);
+          statementHandles.add(handle);
+          return Proxy.newProxyInstance(DBConnectionPool.class.getClassLoader(), STATEMENT_INTERFACES, handle);
+        }
+      }
+
+      Object result = invokeTarget(connection.physicalConnection, method, args);
+      if (result instanceof Statement)
+      {
+        unpooledStatements.add((Statement)result);
+      }
+
+      return result;
+    }
+
+    public void returnStatement(StatementHandle handle)
+    {
+      statementHandles.remove(handle);
+      connection.returnStatement(handle.key, handle.statement);
+    }
+
+    private void close()
+    {
+      if (!closed)
+      {
+        closed = true;
+        for (StatementHandle handle : statementHandles.toArray(new StatementHandle[statementHandles.size()]))
+        {
+          handle.close();
+        }
+
+        for (Statement statement : unpooledStatements)
+        {
+          closeQuietly(statement);
+        }
+
+        checkIn(connection, connection.reset());
+      }
+    }
+
+    /**
+     * Returns the key of the statement cache for the two common variants of <code>prepareStatement()</code>, or
+     * <code>null</code> if the statement is not pooled.
+     */
+    private String getStatementKey(Method method, Object[] args)
+    {
+      Class<?>[] types = method.getParameterTypes();
+      if (types.length == 1)
+      {
+        return (String)args[0];
+      }
+
+      if (types.length == 3 && types[1] == int.class && types[2] == int.class)
+      {
+        return args[1] + "," + args[2] + "," + args[0]; //$NON-NLS-1$ //$NON-NLS-2$
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * Handles the calls to the proxy of a pooled prepared statement.
+   *
+   * @author Eike Stepper
+   */
+  private static final class StatementHandle implements InvocationHandler
+  {
+    private final ConnectionHandle connectionHandle;
+
+    private final Connection connectionProxy;
+
+    private final String key;
+
+    private final PreparedStatement statement;
+
+    private boolean closed;
+
+    public StatementHandle(ConnectionHandle connectionHandle, Connection connectionProxy, String key,
+        PreparedStatement statement)
+    {
+      this.connectionHandle = connectionHandle;
+      this.connectionProxy = connectionProxy;
+      this.key = key;
+      this.statement = statement;
+    }
+
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+    {
+      String name = method.getName();
+      if (method.getDeclaringClass() == Object.class)
+      {
+        return invokeObjectMethod(proxy, name, args);
+      }
+
+      if ("close".equals(name)) //$NON-NLS-1$
+      {
+        close();
+        return null;
+      }
+
+      if ("isClosed".equals(name)) //$NON-NLS-1$
+      {
+        return closed;
+      }
+
+      if (closed)
+      {
+        throw new SQLException("Statement is closed"); //$NON-NLS-1$
+      }
+
+      if ("getConnection".equals(name)) //$NON-NLS-1$
+      {
+        return connectionProxy;
+      }
+
+      return invokeTarget(statement, method, args);
+    }
+
+    public void close()
+    {
+      if (!closed)
+      {
+        closed = true;
+        connectionHandle.returnStatement(this);
+      }
+    }
+  }
+}
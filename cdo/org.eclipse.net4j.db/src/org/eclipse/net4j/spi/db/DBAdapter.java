@@ -548,6 +548,14 @@ public abstract class DBAdapter implements IDBAdapter
     return "23001".equals(ex.getSQLState());
   }
 
+  /**
+   * @since 4.2
+   */
+  public String getValidationQuery()
+  {
+    return "SELECT 1"; //$NON-NLS-1$
+  }
+
   /**
    * @since 4.2
    */
@@ -47,6 +47,8 @@ public class TCPAcceptor extends Acceptor implements ITCPAcceptor, ITCPPassiveSe
 
   private TCPSelector selector;
 
+  private TCPSelectorGroup selectorGroup;
+
   @ExcludeFromDump
   private SelectionKey selectionKey;
 
@@ -97,6 +99,20 @@ public class TCPAcceptor extends Acceptor implements ITCPAcceptor, ITCPPassiveSe
     this.selector = selector;
   }
 
+  /**
+   * Returns the group of selectors that accepted connectors are spread across, or <code>null</code> if they are
+   * registered with the {@link #getSelector() selector} of this acceptor.
+   */
+  public TCPSelectorGroup getSelectorGroup()
+  {
+    return selectorGroup;
+  }
+
+  public void setSelectorGroup(TCPSelectorGroup selectorGroup)
+  {
+    this.selectorGroup = selectorGroup;
+  }
+
   public boolean isStartSynchronously()
   {
     return startSynchronously;
@@ -187,7 +203,7 @@ public class TCPAcceptor extends Acceptor implements ITCPAcceptor, ITCPPassiveSe
         TCPConnector connector = createConnector();
         prepareConnector(connector);
         connector.setSocketChannel(socketChannel);
-        connector.setSelector(selector);
+        connector.setSelector(getConnectorSelector(selector, connector));
         connector.activate();
       }
     }
@@ -217,6 +233,16 @@ public class TCPAcceptor extends Acceptor implements ITCPAcceptor, ITCPPassiveSe
     return new TCPServerConnector(this);
   }
 
+  protected ITCPSelector getConnectorSelector(ITCPSelector selector, TCPConnector connector)
+  {
+    if (selectorGroup != null)
+    {
+      return selectorGroup.assignSelector(connector);
+    }
+
+    return selector;
+  }
+
   @Override
   protected void doBeforeActivate() throws Exception
   {
@@ -34,12 +34,17 @@ import org.eclipse.net4j.util.security.NegotiationContext;
 import org.eclipse.net4j.util.security.NegotiationException;
 
 import org.eclipse.spi.net4j.Connector;
+import org.eclipse.spi.net4j.InternalBuffer;
 import org.eclipse.spi.net4j.InternalChannel;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 
@@ -48,8 +53,12 @@ import java.util.concurrent.BlockingQueue;
  */
 public abstract class TCPConnector extends Connector implements ITCPConnector, ITCPActiveSelectorListener
 {
+  public static final int DEFAULT_MAX_GATHERED_BUFFERS = 64;
+
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, TCPConnector.class);
 
+  private static final ByteBuffer EMPTY_BYTE_BUFFER = ByteBuffer.allocate(0);
+
   private SocketChannel socketChannel;
 
   private ITCPSelector selector;
@@ -59,6 +68,15 @@ public abstract class TCPConnector extends Connector implements ITCPConnector, I
 
   private BlockingQueue<InternalChannel> writeQueue = new RoundRobinBlockingQueue<InternalChannel>();
 
+  private int maxGatheredBuffers = DEFAULT_MAX_GATHERED_BUFFERS;
+
+  /**
+   * The buffers that have been taken from the {@link #writeQueue} but have not been completely written, yet. Only
+   * accessed while the {@link #writeQueue} is locked.
+   */
+  @ExcludeFromDump
+  private List<GatheredBuffer> gatheredBuffers = new ArrayList<GatheredBuffer>();
+
   private IBuffer inputBuffer;
 
   private ControlChannel controlChannel;
@@ -134,6 +152,19 @@ public abstract class TCPConnector extends Connector implements ITCPConnector, I
     this.writeQueue = writeQueue;
   }
 
+  /**
+   * Returns the maximum number of buffers that are written to the socket channel with a single gathering write.
+   */
+  public int getMaxGatheredBuffers()
+  {
+    return maxGatheredBuffers;
+  }
+
+  public void setMaxGatheredBuffers(int maxGatheredBuffers)
+  {
+    this.maxGatheredBuffers = maxGatheredBuffers;
+  }
+
   public IBuffer getInputBuffer()
   {
     return inputBuffer;
@@ -300,26 +331,16 @@ public abstract class TCPConnector extends Connector implements ITCPConnector, I
     {
       synchronized (writeQueue)
       {
-        InternalChannel channel = writeQueue.peek();
-        if (channel != null)
+        if (isGatheringWrites())
         {
-          Queue<IBuffer> bufferQueue = channel.getSendQueue();
-          if (bufferQueue != null)
-          {
-            IBuffer buffer = bufferQueue.peek();
-            if (buffer != null)
-            {
-              if (buffer.write(socketChannel))
-              {
-                writeQueue.poll();
-                bufferQueue.poll();
-                buffer.release();
-              }
-            }
-          }
+          writeGatheredBuffers(socketChannel);
+        }
+        else
+        {
+          writeBuffer(socketChannel);
         }
 
-        if (writeQueue.isEmpty())
+        if (writeQueue.isEmpty() && gatheredBuffers.isEmpty())
         {
           if (selectionKey != null)
           {
@@ -355,6 +376,128 @@ public abstract class TCPConnector extends Connector implements ITCPConnector, I
     selector.orderWriteInterest(selectionKey, isClient(), on);
   }
 
+  /**
+   * Returns <code>true</code> if the queued buffers are written with gathering writes, <code>false</code> if they are
+   * written one by one with {@link IBuffer#write(SocketChannel)}.
+   */
+  protected boolean isGatheringWrites()
+  {
+    return maxGatheredBuffers > 1;
+  }
+
+  private void writeBuffer(SocketChannel socketChannel) throws IOException
+  {
+    InternalChannel channel = writeQueue.peek();
+    if (channel != null)
+    {
+      Queue<IBuffer> bufferQueue = channel.getSendQueue();
+      if (bufferQueue != null)
+      {
+        IBuffer buffer = bufferQueue.peek();
+        if (buffer != null)
+        {
+          if (buffer.write(socketChannel))
+          {
+            writeQueue.poll();
+            bufferQueue.poll();
+            buffer.release();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes as many queued buffers as the socket channel accepts with a single gathering write. The buffers are taken
+   * from the {@link #writeQueue} in the round robin order of their channels, so that all multiplexed channels are
+   * served fairly.
+   */
+  private void writeGatheredBuffers(SocketChannel socketChannel) throws IOException
+  {
+    gatherBuffers();
+
+    int size = gatheredBuffers.size();
+    if (size == 0)
+    {
+      return;
+    }
+
+    ByteBuffer[] byteBuffers = new ByteBuffer[size];
+    for (int i = 0; i < size; i++)
+    {
+      byteBuffers[i] = gatheredBuffers.get(i).getByteBuffer();
+    }
+
+    if (socketChannel.write(byteBuffers) == -1)
+    {
+      throw new IOException("Channel closed"); //$NON-NLS-1$
+    }
+
+    for (Iterator<GatheredBuffer> it = gatheredBuffers.iterator(); it.hasNext();)
+    {
+      GatheredBuffer gatheredBuffer = it.next();
+      if (gatheredBuffer.getByteBuffer().hasRemaining())
+      {
+        break;
+      }
+
+      it.remove();
+      gatheredBuffer.written();
+    }
+  }
+
+  private void gatherBuffers()
+  {
+    while (gatheredBuffers.size() < maxGatheredBuffers)
+    {
+      InternalChannel channel = writeQueue.poll();
+      if (channel == null)
+      {
+        break;
+      }
+
+      Queue<IBuffer> bufferQueue = channel.getSendQueue();
+      if (bufferQueue == null)
+      {
+        continue;
+      }
+
+      // Skip the buffers of this channel that have already been gathered
+      int skip = 0;
+      for (GatheredBuffer gatheredBuffer : gatheredBuffers)
+      {
+        if (gatheredBuffer.getBufferQueue() == bufferQueue)
+        {
+          ++skip;
+        }
+      }
+
+      IBuffer buffer = null;
+      for (Iterator<IBuffer> it = bufferQueue.iterator(); it.hasNext();)
+      {
+        buffer = it.next();
+        if (skip-- == 0)
+        {
+          break;
+        }
+
+        buffer = null;
+      }
+
+      if (buffer != null)
+      {
+        ByteBuffer byteBuffer = ((InternalBuffer)buffer).startWriting();
+        if (byteBuffer == null)
+        {
+          // *Pretend* that this empty buffer will be written
+          byteBuffer = EMPTY_BYTE_BUFFER;
+        }
+
+        gatheredBuffers.add(new GatheredBuffer(bufferQueue, buffer, byteBuffer));
+      }
+    }
+  }
+
   @Override
   protected void registerChannelWithPeer(short channelID, long timeout, IProtocol<?> protocol) throws ChannelException
   {
@@ -425,6 +568,11 @@ public abstract class TCPConnector extends Connector implements ITCPConnector, I
     LifecycleUtil.deactivate(controlChannel);
     controlChannel = null;
 
+    synchronized (writeQueue)
+    {
+      gatheredBuffers.clear();
+    }
+
     IOUtil.closeSilent(socketChannel);
     socketChannel = null;
     super.doDeactivate();
@@ -454,6 +602,48 @@ public abstract class TCPConnector extends Connector implements ITCPConnector, I
     }
   }
 
+  /**
+   * A buffer that is part of a gathering write.
+   *
+   * @author Eike Stepper
+   */
+  private static final class GatheredBuffer
+  {
+    private final Queue<IBuffer> bufferQueue;
+
+    private final IBuffer buffer;
+
+    private final ByteBuffer byteBuffer;
+
+    public GatheredBuffer(Queue<IBuffer> bufferQueue, IBuffer buffer, ByteBuffer byteBuffer)
+    {
+      this.bufferQueue = bufferQueue;
+      this.buffer = buffer;
+      this.byteBuffer = byteBuffer;
+    }
+
+    public Queue<IBuffer> getBufferQueue()
+    {
+      return bufferQueue;
+    }
+
+    public ByteBuffer getByteBuffer()
+    {
+      return byteBuffer;
+    }
+
+    public void written()
+    {
+      bufferQueue.poll();
+      if (byteBuffer != EMPTY_BYTE_BUFFER)
+      {
+        buffer.clear();
+      }
+
+      buffer.release();
+    }
+  }
+
   /**
    * @author Eike Stepper
    */
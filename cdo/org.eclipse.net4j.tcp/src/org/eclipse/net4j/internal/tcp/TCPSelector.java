@@ -34,6 +34,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  */
 public class TCPSelector extends Lifecycle implements ITCPSelector, Runnable
 {
+  public static final String DEFAULT_NAME = "TCPSelector"; //$NON-NLS-1$
+
   private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG, TCPSelector.class);
 
   private Selector selector;
@@ -52,8 +54,21 @@ public class TCPSelector extends Lifecycle implements ITCPSelector, Runnable
 
   private transient boolean running;
 
+  private String name;
+
   public TCPSelector()
   {
+    this(DEFAULT_NAME);
+  }
+
+  public TCPSelector(String name)
+  {
+    this.name = name;
+  }
+
+  public String getName()
+  {
+    return name;
   }
 
   public Selector getSocketSelector()
@@ -206,7 +221,7 @@ public class TCPSelector extends Lifecycle implements ITCPSelector, Runnable
   @Override
   public String toString()
   {
-    return "TCPSelector"; //$NON-NLS-1$
+    return name;
   }
 
   protected void handleSelection(SelectionKey selKey) throws IOException
@@ -284,7 +299,7 @@ public class TCPSelector extends Lifecycle implements ITCPSelector, Runnable
     running = true;
     selector = openSelector();
 
-    thread = new Thread(this, "TCPSelector"); //$NON-NLS-1$
+    thread = new Thread(this, name);
     thread.setDaemon(true);
     thread.start();
   }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.internal.tcp;
+
+import org.eclipse.net4j.util.lifecycle.ILifecycle;
+import org.eclipse.net4j.util.lifecycle.Lifecycle;
+import org.eclipse.net4j.util.lifecycle.LifecycleEventAdapter;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+
+/**
+ * A fixed number of {@link TCPSelector selectors} that the connectors of a {@link TCPAcceptor acceptor} are spread
+ * across, so that the network I/O of a server is not limited to a single thread.
+ * <p>
+ * Each accepted connector is assigned to the selector that currently serves the fewest connectors.
+ *
+ * @author Eike Stepper
+ */
+public class TCPSelectorGroup extends Lifecycle
+{
+  public static final int DEFAULT_SIZE = 1;
+
+  private int size;
+
+  private TCPSelector[] selectors;
+
+  private int[] loads;
+
+  public TCPSelectorGroup()
+  {
+    this(DEFAULT_SIZE);
+  }
+
+  public TCPSelectorGroup(int size)
+  {
+    this.size = size;
+  }
+
+  public int getSize()
+  {
+    return size;
+  }
+
+  public synchronized TCPSelector[] getSelectors()
+  {
+    return selectors;
+  }
+
+  /**
+   * Returns the number of connectors that are currently assigned to the selector with the given index.
+   */
+  public synchronized int getLoad(int index)
+  {
+    return loads[index];
+  }
+
+  /**
+   * Returns the least loaded selector of this group and assigns the given connector to it until the connector is
+   * deactivated.
+   */
+  public TCPSelector assignSelector(TCPConnector connector)
+  {
+    final int index;
+    TCPSelector selector;
+    synchronized (this)
+    {
+      checkActive();
+
+      int leastLoaded = 0;
+      for (int i = 1; i < loads.length; i++)
+      {
+        if (loads[i] < loads[leastLoaded])
+        {
+          leastLoaded = i;
+        }
+      }
+
+      ++loads[leastLoaded];
+      index = leastLoaded;
+
+      // Read under the lock, so that a concurrent deactivation can't null the slot in between
+      selector = selectors[index];
+    }
+
+    connector.addListener(new LifecycleEventAdapter()
+    {
+      @Override
+      protected void onDeactivated(ILifecycle lifecycle)
+      {
+        lifecycle.removeListener(this);
+        release(index);
+      }
+    });
+
+    return selector;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "TCPSelectorGroup[" + size + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  protected TCPSelector createSelector(int index)
+  {
+    return new TCPSelector(TCPSelector.DEFAULT_NAME + "-" + (index + 1)); //$NON-NLS-1$
+  }
+
+  @Override
+  protected void doBeforeActivate() throws Exception
+  {
+    super.doBeforeActivate();
+    checkArg(size > 0, "size must be positive"); //$NON-NLS-1$
+  }
+
+  @Override
+  protected void doActivate() throws Exception
+  {
+    super.doActivate();
+    TCPSelector[] selectors = new TCPSelector[size];
+    for (int i = 0; i < size; i++)
+    {
+      selectors[i] = createSelector(i);
+      selectors[i].activate();
+    }
+
+    synchronized (this)
+    {
+      this.selectors = selectors;
+      loads = new int[size];
+    }
+  }
+
+  @Override
+  protected void doDeactivate() throws Exception
+  {
+    TCPSelector[] selectors;
+    synchronized (this)
+    {
+      selectors = this.selectors;
+      this.selectors = null;
+      loads = null;
+    }
+
+    Exception exception = null;
+    for (int i = 0; selectors != null && i < selectors.length; i++)
+    {
+      Exception ex = LifecycleUtil.deactivate(selectors[i]);
+      if (exception == null)
+      {
+        exception = ex;
+      }
+    }
+
+    super.doDeactivate();
+    if (exception != null)
+    {
+      throw exception;
+    }
+  }
+
+  private synchronized void release(int index)
+  {
+    if (loads != null)
+    {
+      --loads[index];
+    }
+  }
+}
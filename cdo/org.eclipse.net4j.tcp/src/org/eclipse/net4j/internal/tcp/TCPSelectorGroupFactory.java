@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.internal.tcp;
+
+import org.eclipse.net4j.util.StringUtil;
+import org.eclipse.net4j.util.container.IManagedContainer;
+import org.eclipse.net4j.util.factory.Factory;
+import org.eclipse.net4j.util.factory.ProductCreationException;
+import org.eclipse.net4j.util.om.OMPlatform;
+
+/**
+ * Creates {@link TCPSelectorGroup selector groups}. The description is the number of selectors in the group. If it is
+ * empty the number is taken from the system property {@link #SIZE_PROPERTY} and defaults to
+ * {@link TCPSelectorGroup#DEFAULT_SIZE}.
+ *
+ * @author Eike Stepper
+ */
+public class TCPSelectorGroupFactory extends Factory
+{
+  public static final String PRODUCT_GROUP = "org.eclipse.net4j.selectorGroups"; //$NON-NLS-1$
+
+  public static final String TYPE = "tcp"; //$NON-NLS-1$
+
+  public static final String SIZE_PROPERTY = "org.eclipse.net4j.tcp.selectors"; //$NON-NLS-1$
+
+  public TCPSelectorGroupFactory()
+  {
+    super(PRODUCT_GROUP, TYPE);
+  }
+
+  public TCPSelectorGroup create(String description) throws ProductCreationException
+  {
+    if (StringUtil.isEmpty(description))
+    {
+      description = OMPlatform.INSTANCE.getProperty(SIZE_PROPERTY);
+    }
+
+    if (StringUtil.isEmpty(description))
+    {
+      return new TCPSelectorGroup();
+    }
+
+    try
+    {
+      return new TCPSelectorGroup(Integer.parseInt(description.trim()));
+    }
+    catch (NumberFormatException ex)
+    {
+      throw new ProductCreationException(ex);
+    }
+  }
+
+  public static TCPSelectorGroup get(IManagedContainer container, String description)
+  {
+    return (TCPSelectorGroup)container.getElement(PRODUCT_GROUP, TYPE, description);
+  }
+}
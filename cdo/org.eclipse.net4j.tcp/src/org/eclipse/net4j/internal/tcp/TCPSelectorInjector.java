@@ -10,8 +10,10 @@
  */
 package org.eclipse.net4j.internal.tcp;
 
+import org.eclipse.net4j.util.StringUtil;
 import org.eclipse.net4j.util.container.IElementProcessor;
 import org.eclipse.net4j.util.container.IManagedContainer;
+import org.eclipse.net4j.util.om.OMPlatform;
 
 /**
  * @author Eike Stepper
@@ -34,6 +36,11 @@ public class TCPSelectorInjector implements IElementProcessor
       {
         acceptor.setSelector(getSelector(container));
       }
+
+      if (acceptor.getSelectorGroup() == null)
+      {
+        acceptor.setSelectorGroup(getSelectorGroup(container));
+      }
     }
     else if (element instanceof TCPConnector)
     {
@@ -51,4 +58,26 @@ public class TCPSelectorInjector implements IElementProcessor
   {
     return TCPSelectorFactory.get(container, null);
   }
+
+  /**
+   * Returns the selector group that has been configured explicitly, either as an element of the container or with the
+   * {@link TCPSelectorGroupFactory#SIZE_PROPERTY} system property, or <code>null</code>. Without a group the accepted
+   * connectors are registered with the selector of the acceptor.
+   */
+  protected TCPSelectorGroup getSelectorGroup(IManagedContainer container)
+  {
+    Object[] groups = container.getElements(TCPSelectorGroupFactory.PRODUCT_GROUP, TCPSelectorGroupFactory.TYPE);
+    if (groups.length != 0)
+    {
+      return (TCPSelectorGroup)groups[0];
+    }
+
+    if (StringUtil.isEmpty(OMPlatform.INSTANCE.getProperty(TCPSelectorGroupFactory.SIZE_PROPERTY))
+        || !container.getFactoryTypes(TCPSelectorGroupFactory.PRODUCT_GROUP).contains(TCPSelectorGroupFactory.TYPE))
+    {
+      return null;
+    }
+
+    return TCPSelectorGroupFactory.get(container, null);
+  }
 }
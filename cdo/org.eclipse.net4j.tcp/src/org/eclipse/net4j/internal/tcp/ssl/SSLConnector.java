@@ -134,6 +134,15 @@ public class SSLConnector extends TCPConnector
     }
   }
 
+  /**
+   * The {@link SSLBuffer SSL buffers} encrypt their content while they are written one by one.
+   */
+  @Override
+  protected boolean isGatheringWrites()
+  {
+    return false;
+  }
+
   /**
    * Toggles between OP_READ and OP_WRITE
    * <p>
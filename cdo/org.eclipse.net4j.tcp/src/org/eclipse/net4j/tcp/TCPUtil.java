@@ -13,6 +13,7 @@ package org.eclipse.net4j.tcp;
 import org.eclipse.net4j.internal.tcp.TCPAcceptorFactory;
 import org.eclipse.net4j.internal.tcp.TCPConnectorFactory;
 import org.eclipse.net4j.internal.tcp.TCPSelectorFactory;
+import org.eclipse.net4j.internal.tcp.TCPSelectorGroupFactory;
 import org.eclipse.net4j.internal.tcp.TCPSelectorInjector;
 import org.eclipse.net4j.util.StringUtil;
 import org.eclipse.net4j.util.container.IManagedContainer;
@@ -50,6 +51,7 @@ public final class TCPUtil
   public static void prepareContainer(IManagedContainer container)
   {
     container.registerFactory(new TCPSelectorFactory());
+    container.registerFactory(new TCPSelectorGroupFactory());
     container.registerFactory(new TCPAcceptorFactory());
     container.registerFactory(new TCPConnectorFactory());
     container.addPostProcessor(new TCPSelectorInjector());
@@ -12,6 +12,7 @@
 package org.eclipse.net4j.tests;
 
 import org.eclipse.net4j.internal.tcp.TCPConnector;
+import org.eclipse.net4j.signal.SignalMetrics;
 import org.eclipse.net4j.tests.data.TinyData;
 import org.eclipse.net4j.tests.signal.ArrayRequest;
 import org.eclipse.net4j.tests.signal.AsyncRequest;
@@ -101,6 +102,37 @@ public class SignalTest extends AbstractProtocolTest
     }
   }
 
+  public void testMetrics() throws Exception
+  {
+    TestSignalProtocol protocol = null;
+
+    try
+    {
+      startTransport();
+      protocol = new TestSignalProtocol(getConnector());
+      for (int i = 0; i < 10; i++)
+      {
+        new IntRequest(protocol, i).send();
+      }
+
+      SignalMetrics.Entry entry = protocol.getMetrics().getEntry(TestSignalProtocol.SIGNAL_INT);
+      assertEquals(10, entry.getCount());
+      assertEquals(0, entry.getFailures());
+      assertEquals(0, entry.getInFlight());
+      assertEquals(10 * 4, entry.getBytesOut());
+      assertEquals(10 * 4, entry.getBytesIn());
+      assertEquals(true, entry.getPercentileMicros(0.5d) > 0);
+      assertEquals(true, protocol.getMetrics().getParent().getEntry(TestSignalProtocol.SIGNAL_INT).getCount() >= 10);
+    }
+    finally
+    {
+      if (protocol != null)
+      {
+        protocol.close();
+      }
+    }
+  }
+
   public void testCloseSocketChannel() throws Exception
   {
     TestSignalProtocol protocol = null;
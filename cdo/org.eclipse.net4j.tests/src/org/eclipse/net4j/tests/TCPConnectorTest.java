@@ -12,6 +12,8 @@
 package org.eclipse.net4j.tests;
 
 import org.eclipse.net4j.Net4jUtil;
+import org.eclipse.net4j.buffer.BufferState;
+import org.eclipse.net4j.buffer.IBuffer;
 import org.eclipse.net4j.buffer.IBufferPool;
 import org.eclipse.net4j.channel.IChannel;
 import org.eclipse.net4j.connector.ConnectorException;
@@ -22,6 +24,9 @@ import org.eclipse.net4j.internal.tcp.TCPClientConnector;
 import org.eclipse.net4j.internal.tcp.TCPConnector;
 import org.eclipse.net4j.internal.tcp.TCPConnectorFactory;
 import org.eclipse.net4j.internal.tcp.TCPSelector;
+import org.eclipse.net4j.internal.tcp.TCPSelectorGroup;
+import org.eclipse.net4j.internal.tcp.TCPSelectorGroupFactory;
+import org.eclipse.net4j.internal.tcp.TCPSelectorInjector;
 import org.eclipse.net4j.internal.tcp.ssl.SSLAcceptor;
 import org.eclipse.net4j.internal.tcp.ssl.SSLAcceptorFactory;
 import org.eclipse.net4j.internal.tcp.ssl.SSLClientConnector;
@@ -44,7 +49,14 @@ import org.eclipse.net4j.util.security.UserManager;
 import org.eclipse.spi.net4j.Channel;
 import org.eclipse.spi.net4j.InternalChannel;
 
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -75,6 +87,10 @@ public class TCPConnectorTest extends AbstractTransportTest
 
   private TCPSelector selector;
 
+  private TCPSelectorGroup selectorGroup;
+
+  private List<TCPConnector> clientConnectors = new ArrayList<TCPConnector>();
+
   private TCPAcceptor acceptor;
 
   private TCPConnector connector;
@@ -106,6 +122,13 @@ public class TCPConnectorTest extends AbstractTransportTest
       connector = null;
     }
 
+    for (TCPConnector clientConnector : clientConnectors)
+    {
+      clientConnector.close();
+    }
+
+    clientConnectors.clear();
+
     if (responseNegotiator != null)
     {
       LifecycleUtil.deactivate(responseNegotiator);
@@ -148,6 +171,12 @@ public class TCPConnectorTest extends AbstractTransportTest
       selector = null;
     }
 
+    if (selectorGroup != null)
+    {
+      LifecycleUtil.deactivate(selectorGroup);
+      selectorGroup = null;
+    }
+
     if (bufferPool != null)
     {
       LifecycleUtil.deactivate(bufferPool);
@@ -557,6 +586,218 @@ public class TCPConnectorTest extends AbstractTransportTest
     }
   }
 
+  public void testSelectorGroup() throws Exception
+  {
+    threadPool = Executors.newCachedThreadPool();
+    LifecycleUtil.activate(threadPool);
+
+    bufferPool = Net4jUtil.createBufferPool();
+    LifecycleUtil.activate(bufferPool);
+
+    provideTransport();
+
+    selector.activate();
+
+    selectorGroup = new TCPSelectorGroup(2);
+    selectorGroup.activate();
+
+    acceptor.setStartSynchronously(true);
+    acceptor.setSynchronousStartTimeout(TIMEOUT);
+    acceptor.getConfig().setBufferProvider(bufferPool);
+    acceptor.getConfig().setReceiveExecutor(threadPool);
+    acceptor.setSelector(selector);
+    acceptor.setSelectorGroup(selectorGroup);
+    acceptor.setAddress("0.0.0.0"); //$NON-NLS-1$
+    acceptor.setPort(PORT);
+    acceptor.activate();
+
+    clientConnectors.add(connector);
+    connector = null;
+    for (int i = 1; i < 4; i++)
+    {
+      clientConnectors.add(useSSLTransport() ? new SSLClientConnector() : new TCPClientConnector());
+    }
+
+    for (TCPConnector clientConnector : clientConnectors)
+    {
+      clientConnector.getConfig().setBufferProvider(bufferPool);
+      clientConnector.getConfig().setReceiveExecutor(threadPool);
+      clientConnector.setSelector(selector);
+      clientConnector.setHost("localhost"); //$NON-NLS-1$
+      clientConnector.setPort(PORT);
+      clientConnector.connect();
+    }
+
+    new PollingTimeOuter()
+    {
+      @Override
+      protected boolean successful()
+      {
+        return acceptor.getAcceptedConnectors().length == 4;
+      }
+    }.assertNoTimeOut();
+
+    Set<ITCPSelector> serverSelectors = new HashSet<ITCPSelector>();
+    for (IConnector serverConnector : acceptor.getAcceptedConnectors())
+    {
+      ITCPSelector serverSelector = ((TCPConnector)serverConnector).getSelector();
+      assertNotSame(selector, serverSelector);
+      serverSelectors.add(serverSelector);
+    }
+
+    assertEquals(2, serverSelectors.size());
+    assertEquals(2, selectorGroup.getLoad(0));
+    assertEquals(2, selectorGroup.getLoad(1));
+
+    clientConnectors.remove(0).close();
+
+    new PollingTimeOuter()
+    {
+      @Override
+      protected boolean successful()
+      {
+        return selectorGroup.getLoad(0) + selectorGroup.getLoad(1) == 3;
+      }
+    }.assertNoTimeOut();
+  }
+
+  public void testSelectorGroupInjection() throws Exception
+  {
+    TCPSelectorInjector injector = new TCPSelectorInjector();
+
+    TCPAcceptor defaultAcceptor = new TCPAcceptor();
+    injector.process(container, null, null, null, defaultAcceptor);
+    assertNotNull(defaultAcceptor.getSelector());
+    assertNull(defaultAcceptor.getSelectorGroup());
+
+    TCPSelectorGroup group = TCPSelectorGroupFactory.get(container, "2"); //$NON-NLS-1$
+    TCPAcceptor groupAcceptor = new TCPAcceptor();
+    injector.process(container, null, null, null, groupAcceptor);
+    assertSame(group, groupAcceptor.getSelectorGroup());
+    assertEquals(2, group.getSelectors().length);
+  }
+
+  /**
+   * Writes the buffers of several channels with gathering writes to a socket channel with tiny socket buffers, so that
+   * most writes are short, and checks that the peer receives the buffers of each channel completely and in order.
+   */
+  public void testGatheringWriteWithShortWrites() throws Exception
+  {
+    final int channelCount = 3;
+    final int buffersPerChannel = 50;
+
+    bufferPool = Net4jUtil.createBufferPool();
+    LifecycleUtil.activate(bufferPool);
+
+    ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
+    SocketChannel socketChannel = SocketChannel.open();
+    SocketChannel peerChannel = null;
+    TCPClientConnector gatheringConnector = new TCPClientConnector();
+
+    try
+    {
+      serverSocketChannel.socket().setReceiveBufferSize(1024);
+      serverSocketChannel.socket().bind(new InetSocketAddress("localhost", 0)); //$NON-NLS-1$
+      socketChannel.socket().setSendBufferSize(1024);
+      socketChannel.connect(serverSocketChannel.socket().getLocalSocketAddress());
+      peerChannel = serverSocketChannel.accept();
+      peerChannel.configureBlocking(false);
+      socketChannel.configureBlocking(false);
+
+      gatheringConnector.setMaxGatheredBuffers(8);
+
+      Channel[] channels = new Channel[channelCount];
+      for (int i = 0; i < channelCount; i++)
+      {
+        channels[i] = new Channel();
+        channels[i].setID((short)(i + 1));
+        channels[i].setMultiplexer(gatheringConnector);
+        channels[i].activate();
+      }
+
+      // Queue the buffers of all channels before the first write, so that each write gathers buffers of all channels
+      int total = 0;
+      for (int sequence = 0; sequence < buffersPerChannel; sequence++)
+      {
+        for (Channel channel : channels)
+        {
+          IBuffer buffer = bufferPool.provideBuffer();
+          ByteBuffer byteBuffer = buffer.startPutting(channel.getID());
+          byteBuffer.putInt(channel.getID());
+          byteBuffer.putInt(sequence);
+          for (int i = 0; byteBuffer.hasRemaining(); i++)
+          {
+            byteBuffer.put((byte)(sequence + i));
+          }
+
+          total += byteBuffer.position();
+          channel.sendBuffer(buffer);
+        }
+      }
+
+      ByteBuffer received = ByteBuffer.allocate(total);
+      int shortWrites = 0;
+      long end = System.currentTimeMillis() + TIMEOUT;
+
+      while (received.hasRemaining())
+      {
+        assertEquals("Timeout", true, System.currentTimeMillis() < end); //$NON-NLS-1$
+        gatheringConnector.handleWrite(null, socketChannel);
+
+        for (Channel channel : channels)
+        {
+          IBuffer buffer = channel.getSendQueue().peek();
+          if (buffer != null && buffer.getState() == BufferState.WRITING)
+          {
+            ByteBuffer byteBuffer = buffer.getByteBuffer();
+            if (byteBuffer.position() != 0 && byteBuffer.hasRemaining())
+            {
+              ++shortWrites;
+            }
+          }
+        }
+
+        // Read less than the socket buffers hold to keep the writes short
+        int limit = Math.min(received.position() + 512, total);
+        received.limit(limit);
+        peerChannel.read(received);
+        received.limit(total);
+      }
+
+      assertEquals("Short writes", true, shortWrites > 0); //$NON-NLS-1$
+
+      received.flip();
+      int[] expectedSequences = new int[channelCount + 1];
+      while (received.hasRemaining())
+      {
+        short channelID = received.getShort();
+        int payloadSize = Math.abs(received.getShort()) - 1;
+        int payloadEnd = received.position() + payloadSize;
+
+        assertEquals(channelID, received.getInt());
+        int sequence = received.getInt();
+        assertEquals(expectedSequences[channelID]++, sequence);
+        for (int i = 0; received.position() < payloadEnd; i++)
+        {
+          assertEquals((byte)(sequence + i), received.get());
+        }
+      }
+
+      for (Channel channel : channels)
+      {
+        assertEquals(buffersPerChannel, expectedSequences[channel.getID()]);
+        assertEquals(true, channel.getSendQueue().isEmpty());
+      }
+    }
+    finally
+    {
+      IOUtil.closeSilent(gatheringConnector.getSocketChannel());
+      IOUtil.closeSilent(peerChannel);
+      IOUtil.closeSilent(socketChannel);
+      IOUtil.closeSilent(serverSocketChannel);
+    }
+  }
+
   public void testRoundRobinBlockingQueue() throws Exception
   {
     BlockingQueue<IChannel> queue = new RoundRobinBlockingQueue<IChannel>();
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.tests.apps;
+
+import org.eclipse.net4j.Net4jUtil;
+import org.eclipse.net4j.connector.IConnector;
+import org.eclipse.net4j.internal.tcp.TCPConnector;
+import org.eclipse.net4j.tcp.ITCPAcceptor;
+import org.eclipse.net4j.tcp.TCPUtil;
+import org.eclipse.net4j.tests.signal.ArrayRequest;
+import org.eclipse.net4j.tests.signal.TestSignalProtocol;
+import org.eclipse.net4j.util.container.ContainerUtil;
+import org.eclipse.net4j.util.container.IManagedContainer;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares the throughput of a TCP connection with gathering writes to the throughput with single buffer writes. A
+ * number of channels are multiplexed over the same connection and each of them echoes large byte arrays.
+ *
+ * @author Eike Stepper
+ */
+public class TCPThroughput
+{
+  private static final int CHANNELS = 4;
+
+  private static final int ROUNDS = 20;
+
+  private static final int ARRAY_SIZE = 4 * 1024 * 1024;
+
+  public static void main(String[] args) throws Exception
+  {
+    for (int i = 0; i < 2; i++)
+    {
+      run(1);
+      run(TCPConnector.DEFAULT_MAX_GATHERED_BUFFERS);
+    }
+  }
+
+  public static void run(int maxGatheredBuffers) throws Exception
+  {
+    IManagedContainer container = ContainerUtil.createContainer();
+    Net4jUtil.prepareContainer(container);
+    TCPUtil.prepareContainer(container);
+    container.registerFactory(new TestSignalProtocol.Factory());
+    container.activate();
+
+    try
+    {
+      ITCPAcceptor acceptor = TCPUtil.getAcceptor(container, null);
+      TCPConnector connector = (TCPConnector)TCPUtil.getConnector(container, "localhost"); //$NON-NLS-1$
+      connector.setMaxGatheredBuffers(maxGatheredBuffers);
+      for (IConnector serverConnector : acceptor.getAcceptedConnectors())
+      {
+        ((TCPConnector)serverConnector).setMaxGatheredBuffers(maxGatheredBuffers);
+      }
+
+      final byte[] data = new byte[ARRAY_SIZE];
+      for (int i = 0; i < data.length; i++)
+      {
+        data[i] = (byte)i;
+      }
+
+      final List<Exception> exceptions = new ArrayList<Exception>();
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int i = 0; i < CHANNELS; i++)
+      {
+        final TestSignalProtocol protocol = new TestSignalProtocol(connector);
+        threads.add(new Thread()
+        {
+          @Override
+          public void run()
+          {
+            try
+            {
+              for (int j = 0; j < ROUNDS; j++)
+              {
+                byte[] result = new ArrayRequest(protocol, data).send();
+                if (!Arrays.equals(data, result))
+                {
+                  throw new IllegalStateException("Corrupted data"); //$NON-NLS-1$
+                }
+              }
+            }
+            catch (Exception ex)
+            {
+              synchronized (exceptions)
+              {
+                exceptions.add(ex);
+              }
+            }
+            finally
+            {
+              protocol.close();
+            }
+          }
+        });
+      }
+
+      long start = System.currentTimeMillis();
+      for (Thread thread : threads)
+      {
+        thread.start();
+      }
+
+      for (Thread thread : threads)
+      {
+        thread.join();
+      }
+
+      long duration = System.currentTimeMillis() - start;
+      if (!exceptions.isEmpty())
+      {
+        throw exceptions.get(0);
+      }
+
+      long megaBytes = 2L * CHANNELS * ROUNDS * ARRAY_SIZE / 1024 / 1024;
+      long throughput = megaBytes * 1000 / Math.max(duration, 1);
+      System.out.println(MessageFormat.format("maxGatheredBuffers={0}: {1} MB in {2} millis ({3} MB/s)", //$NON-NLS-1$
+          maxGatheredBuffers, megaBytes, duration, throughput));
+    }
+    finally
+    {
+      container.deactivate();
+    }
+  }
+}
@@ -12,6 +12,8 @@ package org.eclipse.net4j.util.tests;
 
 import org.eclipse.net4j.util.io.ExtendedDataInputStream;
 import org.eclipse.net4j.util.io.ExtendedDataOutputStream;
+import org.eclipse.net4j.util.io.ExtendedIOUtil;
+import org.eclipse.net4j.util.io.IOUtil;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -95,6 +97,109 @@ public class ExtendedIOTest extends AbstractOMTest
     assertEquals(true, Arrays.equals(byteArray, result));
   }
 
+  public void testVarInt() throws Exception
+  {
+    int[] values = { 0, 1, -1, 63, -64, 64, -65, 8191, -8192, 1 << 20, -(1 << 20), Integer.MAX_VALUE - 1,
+        Integer.MAX_VALUE, Integer.MIN_VALUE + 1, Integer.MIN_VALUE };
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ExtendedDataOutputStream edos = new ExtendedDataOutputStream(baos);
+    for (int value : values)
+    {
+      ExtendedIOUtil.writeVarInt(edos, value);
+    }
+
+    edos.close();
+
+    ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+    ExtendedDataInputStream edis = new ExtendedDataInputStream(bais);
+    for (int value : values)
+    {
+      assertEquals(value, ExtendedIOUtil.readVarInt(edis));
+    }
+
+    assertEquals(IOUtil.EOF, edis.read());
+  }
+
+  public void testVarIntLength() throws Exception
+  {
+    assertEquals(1, getVarIntLength(0));
+    assertEquals(1, getVarIntLength(-1));
+    assertEquals(1, getVarIntLength(63));
+    assertEquals(1, getVarIntLength(-64));
+    assertEquals(2, getVarIntLength(64));
+    assertEquals(2, getVarIntLength(-65));
+    assertEquals(5, getVarIntLength(Integer.MAX_VALUE));
+    assertEquals(5, getVarIntLength(Integer.MIN_VALUE));
+  }
+
+  public void testVarLong() throws Exception
+  {
+    long[] values = { 0L, 1L, -1L, 63L, -64L, 64L, -65L, Integer.MAX_VALUE, Integer.MIN_VALUE, 1L << 40, -(1L << 40),
+        System.currentTimeMillis(), Long.MAX_VALUE - 1L, Long.MAX_VALUE, Long.MIN_VALUE + 1L, Long.MIN_VALUE };
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ExtendedDataOutputStream edos = new ExtendedDataOutputStream(baos);
+    for (long value : values)
+    {
+      ExtendedIOUtil.writeVarLong(edos, value);
+    }
+
+    edos.close();
+
+    ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+    ExtendedDataInputStream edis = new ExtendedDataInputStream(bais);
+    for (long value : values)
+    {
+      assertEquals(value, ExtendedIOUtil.readVarLong(edis));
+    }
+
+    assertEquals(IOUtil.EOF, edis.read());
+  }
+
+  public void testVarLongLength() throws Exception
+  {
+    assertEquals(1, getVarLongLength(0L));
+    assertEquals(1, getVarLongLength(-1L));
+    assertEquals(2, getVarLongLength(64L));
+    assertEquals(10, getVarLongLength(Long.MAX_VALUE));
+    assertEquals(10, getVarLongLength(Long.MIN_VALUE));
+  }
+
+  public void testMalformedVarInt() throws Exception
+  {
+    byte[] bytes = { (byte)0x80, (byte)0x80, (byte)0x80, (byte)0x80, (byte)0x80, 0 };
+    ExtendedDataInputStream edis = new ExtendedDataInputStream(new ByteArrayInputStream(bytes));
+
+    try
+    {
+      ExtendedIOUtil.readVarInt(edis);
+      fail("IOException expected"); //$NON-NLS-1$
+    }
+    catch (IOException expected)
+    {
+      // SUCCESS
+    }
+  }
+
+  private int getVarIntLength(int value) throws IOException
+  {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ExtendedDataOutputStream edos = new ExtendedDataOutputStream(baos);
+    ExtendedIOUtil.writeVarInt(edos, value);
+    edos.close();
+    return baos.size();
+  }
+
+  private int getVarLongLength(long value) throws IOException
+  {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ExtendedDataOutputStream edos = new ExtendedDataOutputStream(baos);
+    ExtendedIOUtil.writeVarLong(edos, value);
+    edos.close();
+    return baos.size();
+  }
+
   private byte[] createByteArray1() throws IOException
   {
     HashMap<String, String> map = createMap();
@@ -0,0 +1,790 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.util.concurrent;
+
+import org.eclipse.net4j.internal.util.bundle.OM;
+import org.eclipse.net4j.util.concurrent.RWOLockManager.LockState;
+import org.eclipse.net4j.util.lifecycle.Lifecycle;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link IRWOLockManager lock manager} with the same locking semantics as the {@link RWOLockManager}, but without a
+ * global monitor.
+ * <p>
+ * The {@link LockState lock states} are distributed over a fixed number of stripes by the hash codes of the locked
+ * objects. A lock or unlock call only acquires the stripes of the objects that it is called for, in ascending order, so
+ * that calls for disjoint sets of objects don't block each other. A lock call that can not be granted registers a
+ * waiter with the object that blocks it, releases its stripes and waits until exactly that object is unlocked. Unlock
+ * calls only wake up the waiters of the objects that they have released.
+ *
+ * @author Eike Stepper
+ * @since 3.3
+ */
+public class StripedRWOLockManager<OBJECT, CONTEXT> extends Lifecycle implements IRWOLockManager<OBJECT, CONTEXT>
+{
+  public static final int DEFAULT_STRIPES = 64;
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_CONCURRENCY, StripedRWOLockManager.class);
+
+  private final List<LockState<OBJECT, CONTEXT>> emptyResult = Collections.emptyList();
+
+  private final Stripe<OBJECT, CONTEXT>[] stripes;
+
+  /**
+   * Mappings of contexts (owners of locks) to the lock states that they are involved in, see
+   * {@link RWOLockManager#getContextToLocksMap()}. The context stripes are always acquired after the object stripes.
+   */
+  private final ContextStripe<OBJECT, CONTEXT>[] contextStripes;
+
+  private final int mask;
+
+  public StripedRWOLockManager()
+  {
+    this(DEFAULT_STRIPES);
+  }
+
+  @SuppressWarnings("unchecked")
+  public StripedRWOLockManager(int stripeCount)
+  {
+    int size = 1;
+    while (size < stripeCount)
+    {
+      size <<= 1;
+    }
+
+    mask = size - 1;
+    stripes = (Stripe<OBJECT, CONTEXT>[])new Stripe<?, ?>[size];
+    contextStripes = (ContextStripe<OBJECT, CONTEXT>[])new ContextStripe<?, ?>[size];
+    for (int i = 0; i < size; i++)
+    {
+      stripes[i] = new Stripe<OBJECT, CONTEXT>();
+      contextStripes[i] = new ContextStripe<OBJECT, CONTEXT>();
+    }
+  }
+
+  public int getStripeCount()
+  {
+    return stripes.length;
+  }
+
+  public void lock(LockType type, CONTEXT context, Collection<? extends OBJECT> objectsToLock, long timeout)
+      throws InterruptedException
+  {
+    lock2(type, context, objectsToLock, timeout);
+  }
+
+  public void lock(LockType type, CONTEXT context, OBJECT objectToLock, long timeout) throws InterruptedException
+  {
+    lock2(type, context, Collections.singleton(objectToLock), timeout);
+  }
+
+  public List<LockState<OBJECT, CONTEXT>> lock2(LockType type, CONTEXT context,
+      Collection<? extends OBJECT> objectsToLock, long timeout) throws InterruptedException
+  {
+    if (objectsToLock.isEmpty())
+    {
+      return emptyResult;
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Lock: {0} --> {1}", objectsToLock, context); //$NON-NLS-1$
+    }
+
+    long startTime = timeout == WAIT ? 0L : currentTimeMillis();
+    int[] indexes = getStripeIndexes(objectsToLock);
+
+    for (;;)
+    {
+      OBJECT blockingObject = null;
+      Waiter waiter = null;
+
+      lockStripes(indexes);
+
+      try
+      {
+        for (OBJECT object : objectsToLock)
+        {
+          LockState<OBJECT, CONTEXT> lockState = getStripe(object).lockStates.get(object);
+          if (lockState != null && !lockState.canLock(type, context))
+          {
+            blockingObject = object;
+            waiter = new Waiter();
+            getStripe(object).addWaiter(object, waiter);
+            break;
+          }
+        }
+
+        if (waiter == null)
+        {
+          List<LockState<OBJECT, CONTEXT>> lockStates = new ArrayList<LockState<OBJECT, CONTEXT>>(objectsToLock.size());
+          for (OBJECT object : objectsToLock)
+          {
+            LockState<OBJECT, CONTEXT> lockState = getStripe(object).getOrCreateLockState(object);
+            lockState.lock(type, context);
+            lockStates.add(lockState);
+          }
+
+          getContextStripe(context).add(context, lockStates);
+          return lockStates;
+        }
+      }
+      finally
+      {
+        unlockStripes(indexes);
+      }
+
+      await(waiter, blockingObject, startTime, timeout);
+    }
+  }
+
+  public void unlock(LockType type, CONTEXT context, Collection<? extends OBJECT> objectsToUnlock)
+  {
+    unlock2(type, context, objectsToUnlock);
+  }
+
+  public List<LockState<OBJECT, CONTEXT>> unlock2(LockType type, CONTEXT context,
+      Collection<? extends OBJECT> objectsToUnlock)
+  {
+    if (objectsToUnlock.isEmpty())
+    {
+      return emptyResult;
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Unlock", objectsToUnlock, context); //$NON-NLS-1$
+    }
+
+    List<LockState<OBJECT, CONTEXT>> lockStates = new ArrayList<LockState<OBJECT, CONTEXT>>(objectsToUnlock.size());
+    List<Waiter> waiters = new ArrayList<Waiter>();
+    int[] indexes = getStripeIndexes(objectsToUnlock);
+
+    lockStripes(indexes);
+
+    try
+    {
+      for (OBJECT object : objectsToUnlock)
+      {
+        LockState<OBJECT, CONTEXT> lockState = getStripe(object).lockStates.get(object);
+        if (lockState == null || !lockState.canUnlock(type, context))
+        {
+          throw new IllegalMonitorStateException();
+        }
+
+        lockStates.add(lockState);
+      }
+
+      List<LockState<OBJECT, CONTEXT>> unmappedLockStates = new ArrayList<LockState<OBJECT, CONTEXT>>();
+      for (LockState<OBJECT, CONTEXT> lockState : lockStates)
+      {
+        lockState.unlock(type, context);
+        if (!lockState.hasLocks(context))
+        {
+          unmappedLockStates.add(lockState);
+        }
+
+        release(lockState, waiters);
+      }
+
+      getContextStripe(context).remove(context, unmappedLockStates);
+    }
+    finally
+    {
+      unlockStripes(indexes);
+    }
+
+    signal(waiters);
+    return lockStates;
+  }
+
+  public List<LockState<OBJECT, CONTEXT>> unlock2(CONTEXT context, Collection<? extends OBJECT> objectsToUnlock)
+  {
+    if (objectsToUnlock.isEmpty())
+    {
+      return emptyResult;
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Unlock", objectsToUnlock, context); //$NON-NLS-1$
+    }
+
+    Set<LockState<OBJECT, CONTEXT>> lockStates = new LinkedHashSet<LockState<OBJECT, CONTEXT>>();
+    List<Waiter> waiters = new ArrayList<Waiter>();
+    int[] indexes = getStripeIndexes(objectsToUnlock);
+
+    lockStripes(indexes);
+
+    try
+    {
+      for (OBJECT object : objectsToUnlock)
+      {
+        LockState<OBJECT, CONTEXT> lockState = getStripe(object).lockStates.get(object);
+        if (lockState != null && unlockAll(lockState, context))
+        {
+          lockStates.add(lockState);
+        }
+      }
+
+      for (LockState<OBJECT, CONTEXT> lockState : lockStates)
+      {
+        release(lockState, waiters);
+      }
+
+      getContextStripe(context).remove(context, lockStates);
+    }
+    finally
+    {
+      unlockStripes(indexes);
+    }
+
+    signal(waiters);
+    return new ArrayList<LockState<OBJECT, CONTEXT>>(lockStates);
+  }
+
+  public void unlock(CONTEXT context)
+  {
+    unlock2(context);
+  }
+
+  /**
+   * Removes all locks owned by the given context. Other than {@link RWOLockManager#unlock2(Object)} this method also
+   * releases write locks that the context has acquired multiple times.
+   */
+  public List<LockState<OBJECT, CONTEXT>> unlock2(CONTEXT context)
+  {
+    List<LockState<OBJECT, CONTEXT>> lockStates = getLockStates(context);
+    if (lockStates.isEmpty())
+    {
+      return emptyResult;
+    }
+
+    if (TRACER.isEnabled())
+    {
+      TRACER.format("Unlock", lockStates, context); //$NON-NLS-1$
+    }
+
+    List<Waiter> waiters = new ArrayList<Waiter>();
+    int[] indexes = getStripeIndexes(lockStates);
+
+    lockStripes(indexes);
+
+    try
+    {
+      for (LockState<OBJECT, CONTEXT> lockState : lockStates)
+      {
+        unlockAll(lockState, context);
+        release(lockState, waiters);
+      }
+
+      getContextStripe(context).remove(context, lockStates);
+    }
+    finally
+    {
+      unlockStripes(indexes);
+    }
+
+    signal(waiters);
+    return lockStates;
+  }
+
+  public boolean hasLock(LockType type, CONTEXT context, OBJECT objectToLock)
+  {
+    Stripe<OBJECT, CONTEXT> stripe = getStripe(objectToLock);
+    stripe.lock.lock();
+
+    try
+    {
+      LockState<OBJECT, CONTEXT> lockState = stripe.lockStates.get(objectToLock);
+      return lockState != null && lockState.hasLock(type, context, false);
+    }
+    finally
+    {
+      stripe.lock.unlock();
+    }
+  }
+
+  public boolean hasLockByOthers(LockType type, CONTEXT context, OBJECT objectToLock)
+  {
+    Stripe<OBJECT, CONTEXT> stripe = getStripe(objectToLock);
+    stripe.lock.lock();
+
+    try
+    {
+      LockState<OBJECT, CONTEXT> lockState = stripe.lockStates.get(objectToLock);
+      return lockState != null && lockState.hasLock(type, context, true);
+    }
+    finally
+    {
+      stripe.lock.unlock();
+    }
+  }
+
+  public LockState<OBJECT, CONTEXT> getLockState(OBJECT key)
+  {
+    Stripe<OBJECT, CONTEXT> stripe = getStripe(key);
+    stripe.lock.lock();
+
+    try
+    {
+      return stripe.lockStates.get(key);
+    }
+    finally
+    {
+      stripe.lock.unlock();
+    }
+  }
+
+  public void setLockState(OBJECT key, LockState<OBJECT, CONTEXT> lockState)
+  {
+    Stripe<OBJECT, CONTEXT> stripe = getStripe(key);
+    stripe.lock.lock();
+
+    try
+    {
+      stripe.lockStates.put(key, lockState);
+
+      List<LockState<OBJECT, CONTEXT>> lockStates = Collections.singletonList(lockState);
+      for (CONTEXT readLockOwner : lockState.getReadLockOwners())
+      {
+        getContextStripe(readLockOwner).add(readLockOwner, lockStates);
+      }
+
+      CONTEXT writeLockOwner = lockState.getWriteLockOwner();
+      if (writeLockOwner != null)
+      {
+        getContextStripe(writeLockOwner).add(writeLockOwner, lockStates);
+      }
+
+      CONTEXT writeOptionOwner = lockState.getWriteOptionOwner();
+      if (writeOptionOwner != null)
+      {
+        getContextStripe(writeOptionOwner).add(writeOptionOwner, lockStates);
+      }
+    }
+    finally
+    {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a snapshot of the lock states that the given context is involved in.
+   */
+  public List<LockState<OBJECT, CONTEXT>> getLockStates(CONTEXT context)
+  {
+    return getContextStripe(context).get(context);
+  }
+
+  protected void changeContext(CONTEXT oldContext, CONTEXT newContext)
+  {
+    List<LockState<OBJECT, CONTEXT>> lockStates = getLockStates(oldContext);
+    if (lockStates.isEmpty())
+    {
+      return;
+    }
+
+    List<Waiter> waiters = new ArrayList<Waiter>();
+    int[] indexes = getStripeIndexes(lockStates);
+
+    lockStripes(indexes);
+
+    try
+    {
+      for (LockState<OBJECT, CONTEXT> lockState : lockStates)
+      {
+        lockState.replaceContext(oldContext, newContext);
+
+        // Waiters of the new context may now be able to lock the object
+        getStripe(lockState.getLockedObject()).removeWaiters(lockState.getLockedObject(), waiters);
+      }
+
+      getContextStripe(oldContext).remove(oldContext, lockStates);
+      getContextStripe(newContext).add(newContext, lockStates);
+    }
+    finally
+    {
+      unlockStripes(indexes);
+    }
+
+    signal(waiters);
+  }
+
+  protected long currentTimeMillis()
+  {
+    return System.currentTimeMillis();
+  }
+
+  private Stripe<OBJECT, CONTEXT> getStripe(Object object)
+  {
+    return stripes[getIndex(object)];
+  }
+
+  private ContextStripe<OBJECT, CONTEXT> getContextStripe(CONTEXT context)
+  {
+    return contextStripes[getIndex(context)];
+  }
+
+  private int getIndex(Object object)
+  {
+    int hash = object.hashCode();
+    hash ^= hash >>> 16;
+    hash ^= hash >>> 7;
+    return hash & mask;
+  }
+
+  /**
+   * Returns the ascending indexes of the stripes of the given objects.
+   */
+  private int[] getStripeIndexes(Collection<? extends OBJECT> objects)
+  {
+    if (objects.size() == 1)
+    {
+      return new int[] { getIndex(objects.iterator().next()) };
+    }
+
+    boolean[] used = new boolean[stripes.length];
+    int count = 0;
+    for (OBJECT object : objects)
+    {
+      int index = getIndex(object);
+      if (!used[index])
+      {
+        used[index] = true;
+        if (++count == used.length)
+        {
+          break;
+        }
+      }
+    }
+
+    return toIndexes(used, count);
+  }
+
+  private int[] getStripeIndexes(List<LockState<OBJECT, CONTEXT>> lockStates)
+  {
+    boolean[] used = new boolean[stripes.length];
+    int count = 0;
+    for (LockState<OBJECT, CONTEXT> lockState : lockStates)
+    {
+      int index = getIndex(lockState.getLockedObject());
+      if (!used[index])
+      {
+        used[index] = true;
+        ++count;
+      }
+    }
+
+    return toIndexes(used, count);
+  }
+
+  private static int[] toIndexes(boolean[] used, int count)
+  {
+    int[] indexes = new int[count];
+    for (int i = 0, j = 0; j < count; i++)
+    {
+      if (used[i])
+      {
+        indexes[j++] = i;
+      }
+    }
+
+    return indexes;
+  }
+
+  private void lockStripes(int[] indexes)
+  {
+    for (int i = 0; i < indexes.length; i++)
+    {
+      stripes[indexes[i]].lock.lock();
+    }
+  }
+
+  private void unlockStripes(int[] indexes)
+  {
+    for (int i = indexes.length - 1; i >= 0; --i)
+    {
+      stripes[indexes[i]].lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all locks of the given context from the given lock state. The stripe of the lock state must be locked.
+   */
+  private boolean unlockAll(LockState<OBJECT, CONTEXT> lockState, CONTEXT context)
+  {
+    boolean changed = false;
+    for (LockType lockType : LockType.values())
+    {
+      while (lockState.canUnlock(lockType, context))
+      {
+        lockState.unlock(lockType, context);
+        changed = true;
+      }
+    }
+
+    return changed;
+  }
+
+  /**
+   * Removes the given lock state from its stripe if it has no locks anymore and collects the waiters of its object. The
+   * stripe of the lock state must be locked.
+   */
+  private void release(LockState<OBJECT, CONTEXT> lockState, List<Waiter> waiters)
+  {
+    OBJECT object = lockState.getLockedObject();
+    Stripe<OBJECT, CONTEXT> stripe = getStripe(object);
+    if (lockState.hasNoLocks() && stripe.lockStates.get(object) == lockState)
+    {
+      stripe.lockStates.remove(object);
+    }
+
+    stripe.removeWaiters(object, waiters);
+  }
+
+  private void signal(List<Waiter> waiters)
+  {
+    for (Waiter waiter : waiters)
+    {
+      waiter.signal();
+    }
+  }
+
+  private void await(Waiter waiter, OBJECT blockingObject, long startTime, long timeout) throws InterruptedException
+  {
+    long waitTime = 0L;
+    if (timeout != WAIT)
+    {
+      long elapsedTime = currentTimeMillis() - startTime;
+      waitTime = timeout - elapsedTime;
+      if (waitTime < 1)
+      {
+        cancel(waiter, blockingObject);
+        throw new TimeoutRuntimeException("Could not lock objects within " + timeout + " milli seconds");
+      }
+    }
+
+    try
+    {
+      waiter.await(waitTime);
+    }
+    finally
+    {
+      cancel(waiter, blockingObject);
+    }
+  }
+
+  private void cancel(Waiter waiter, OBJECT blockingObject)
+  {
+    if (!waiter.isSignaled())
+    {
+      Stripe<OBJECT, CONTEXT> stripe = getStripe(blockingObject);
+      stripe.lock.lock();
+
+      try
+      {
+        stripe.removeWaiter(blockingObject, waiter);
+      }
+      finally
+      {
+        stripe.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * The lock states and wait queues of the objects that are mapped to one stripe.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Stripe<OBJECT, CONTEXT>
+  {
+    public final ReentrantLock lock = new ReentrantLock();
+
+    public final Map<OBJECT, LockState<OBJECT, CONTEXT>> lockStates = new HashMap<OBJECT, LockState<OBJECT, CONTEXT>>();
+
+    private final Map<OBJECT, List<Waiter>> waiters = new HashMap<OBJECT, List<Waiter>>();
+
+    public Stripe()
+    {
+    }
+
+    public LockState<OBJECT, CONTEXT> getOrCreateLockState(OBJECT object)
+    {
+      LockState<OBJECT, CONTEXT> lockState = lockStates.get(object);
+      if (lockState == null)
+      {
+        lockState = new LockState<OBJECT, CONTEXT>(object);
+        lockStates.put(object, lockState);
+      }
+
+      return lockState;
+    }
+
+    public void addWaiter(OBJECT object, Waiter waiter)
+    {
+      List<Waiter> list = waiters.get(object);
+      if (list == null)
+      {
+        list = new ArrayList<Waiter>(2);
+        waiters.put(object, list);
+      }
+
+      list.add(waiter);
+    }
+
+    public void removeWaiter(OBJECT object, Waiter waiter)
+    {
+      List<Waiter> list = waiters.get(object);
+      if (list != null && list.remove(waiter) && list.isEmpty())
+      {
+        waiters.remove(object);
+      }
+    }
+
+    public void removeWaiters(OBJECT object, List<Waiter> result)
+    {
+      if (!waiters.isEmpty())
+      {
+        List<Waiter> list = waiters.remove(object);
+        if (list != null)
+        {
+          result.addAll(list);
+        }
+      }
+    }
+  }
+
+  /**
+   * The context mappings of the contexts that are mapped to one stripe.
+   *
+   * @author Eike Stepper
+   */
+  private static final class ContextStripe<OBJECT, CONTEXT>
+  {
+    private final Map<CONTEXT, Set<LockState<OBJECT, CONTEXT>>> contextToLockStates = //
+    new HashMap<CONTEXT, Set<LockState<OBJECT, CONTEXT>>>();
+
+    public ContextStripe()
+    {
+    }
+
+    public synchronized List<LockState<OBJECT, CONTEXT>> get(CONTEXT context)
+    {
+      Set<LockState<OBJECT, CONTEXT>> lockStates = contextToLockStates.get(context);
+      if (lockStates == null)
+      {
+        return Collections.emptyList();
+      }
+
+      return new ArrayList<LockState<OBJECT, CONTEXT>>(lockStates);
+    }
+
+    public synchronized void add(CONTEXT context, Collection<LockState<OBJECT, CONTEXT>> lockStates)
+    {
+      Set<LockState<OBJECT, CONTEXT>> set = contextToLockStates.get(context);
+      if (set == null)
+      {
+        set = new HashSet<LockState<OBJECT, CONTEXT>>();
+        contextToLockStates.put(context, set);
+      }
+
+      set.addAll(lockStates);
+    }
+
+    public synchronized void remove(CONTEXT context, Collection<LockState<OBJECT, CONTEXT>> lockStates)
+    {
+      if (lockStates.isEmpty())
+      {
+        return;
+      }
+
+      Set<LockState<OBJECT, CONTEXT>> set = contextToLockStates.get(context);
+      if (set != null)
+      {
+        for (LockState<OBJECT, CONTEXT> lockState : lockStates)
+        {
+          set.remove(lockState);
+        }
+
+        if (set.isEmpty())
+        {
+          contextToLockStates.remove(context);
+        }
+      }
+    }
+  }
+
+  /**
+   * A thread that waits for the release of one particular object.
+   *
+   * @author Eike Stepper
+   */
+  private static final class Waiter
+  {
+    private boolean signaled;
+
+    public Waiter()
+    {
+    }
+
+    public synchronized boolean isSignaled()
+    {
+      return signaled;
+    }
+
+    public synchronized void signal()
+    {
+      signaled = true;
+      notifyAll();
+    }
+
+    /**
+     * Waits until this waiter is signaled or the given time has elapsed. A wait time of zero waits forever.
+     */
+    public synchronized void await(long waitTime) throws InterruptedException
+    {
+      if (waitTime == 0L)
+      {
+        while (!signaled)
+        {
+          wait();
+        }
+
+        return;
+      }
+
+      long deadline = System.currentTimeMillis() + waitTime;
+      while (!signaled)
+      {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining < 1)
+        {
+          return;
+        }
+
+        wait(remaining);
+      }
+    }
+  }
+}
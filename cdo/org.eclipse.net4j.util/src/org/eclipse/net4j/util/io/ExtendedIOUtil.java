@@ -240,6 +240,80 @@ public final class ExtendedIOUtil
     return literals[ordinal - Byte.MIN_VALUE - 1];
   }
 
+  /**
+   * Writes the given int with 1 to 5 bytes. The value is zig-zag encoded, so that small negative values are as short as
+   * small positive values.
+   *
+   * @since 3.3
+   */
+  public static void writeVarInt(DataOutput out, int v) throws IOException
+  {
+    int bits = v << 1 ^ v >> 31;
+    while ((bits & ~0x7f) != 0)
+    {
+      out.writeByte(bits & 0x7f | 0x80);
+      bits >>>= 7;
+    }
+
+    out.writeByte(bits);
+  }
+
+  /**
+   * @since 3.3
+   */
+  public static int readVarInt(DataInput in) throws IOException
+  {
+    int bits = 0;
+    for (int shift = 0; shift < 32; shift += 7)
+    {
+      int b = in.readByte();
+      bits |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+      {
+        return bits >>> 1 ^ -(bits & 1);
+      }
+    }
+
+    throw new IOException("Malformed variable-length int"); //$NON-NLS-1$
+  }
+
+  /**
+   * Writes the given long with 1 to 10 bytes. The value is zig-zag encoded, so that small negative values are as short
+   * as small positive values.
+   *
+   * @since 3.3
+   */
+  public static void writeVarLong(DataOutput out, long v) throws IOException
+  {
+    long bits = v << 1 ^ v >> 63;
+    while ((bits & ~0x7fL) != 0L)
+    {
+      out.writeByte((int)bits & 0x7f | 0x80);
+      bits >>>= 7;
+    }
+
+    out.writeByte((int)bits);
+  }
+
+  /**
+   * @since 3.3
+   */
+  public static long readVarLong(DataInput in) throws IOException
+  {
+    long bits = 0L;
+    for (int shift = 0; shift < 64; shift += 7)
+    {
+      int b = in.readByte();
+      bits |= (long)(b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+      {
+        return bits >>> 1 ^ -(bits & 1L);
+      }
+    }
+
+    throw new IOException("Malformed variable-length long"); //$NON-NLS-1$
+  }
+
   private static <T> T[] getEnumLiterals(Class<T> type)
   {
     T[] literals = type.getEnumConstants();
@@ -269,36 +269,7 @@ public class Buffer implements InternalBuffer
         return true; // *Pretend* that this empty buffer has been written
       }
 
-      if (state != BufferState.PUTTING && state != BufferState.WRITING)
-      {
-        throw new IllegalStateException(toString());
-      }
-
-      if (state == BufferState.PUTTING)
-      {
-        if (channelID == NO_CHANNEL)
-        {
-          throw new IllegalStateException("channelID == NO_CHANNEL"); //$NON-NLS-1$
-        }
-
-        int payloadSize = byteBuffer.position() - IBuffer.HEADER_SIZE + EOS_OFFSET;
-        if (eos)
-        {
-          payloadSize = -payloadSize;
-        }
-
-        if (TRACER.isEnabled())
-        {
-          TRACER.trace("Writing " + (Math.abs(payloadSize) - 1) + " bytes" //$NON-NLS-1$ //$NON-NLS-2$
-              + (eos ? " (EOS)" : "") + StringUtil.NL + formatContent(false)); //$NON-NLS-1$ //$NON-NLS-2$
-        }
-
-        byteBuffer.flip();
-        byteBuffer.putShort(channelID);
-        byteBuffer.putShort((short)payloadSize);
-        byteBuffer.position(0);
-        state = BufferState.WRITING;
-      }
+      prepareWriting();
 
       int numBytes = socketChannel.write(byteBuffer);
       if (numBytes == -1)
@@ -331,6 +302,31 @@ public class Buffer implements InternalBuffer
     }
   }
 
+  public ByteBuffer startWriting()
+  {
+    try
+    {
+      if (state == BufferState.PUTTING && byteBuffer.position() == HEADER_SIZE)
+      {
+        clear();
+        return null;
+      }
+
+      prepareWriting();
+      return byteBuffer;
+    }
+    catch (RuntimeException ex)
+    {
+      handleError(ex);
+      throw ex;
+    }
+    catch (Error ex)
+    {
+      handleError(ex);
+      throw ex;
+    }
+  }
+
   public void flip()
   {
     try
@@ -417,6 +413,40 @@ public class Buffer implements InternalBuffer
     release();
   }
 
+  private void prepareWriting()
+  {
+    if (state != BufferState.PUTTING && state != BufferState.WRITING)
+    {
+      throw new IllegalStateException(toString());
+    }
+
+    if (state == BufferState.PUTTING)
+    {
+      if (channelID == NO_CHANNEL)
+      {
+        throw new IllegalStateException("channelID == NO_CHANNEL"); //$NON-NLS-1$
+      }
+
+      int payloadSize = byteBuffer.position() - IBuffer.HEADER_SIZE + EOS_OFFSET;
+      if (eos)
+      {
+        payloadSize = -payloadSize;
+      }
+
+      if (TRACER.isEnabled())
+      {
+        TRACER.trace("Writing " + (Math.abs(payloadSize) - 1) + " bytes" //$NON-NLS-1$ //$NON-NLS-2$
+            + (eos ? " (EOS)" : "") + StringUtil.NL + formatContent(false)); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+
+      byteBuffer.flip();
+      byteBuffer.putShort(channelID);
+      byteBuffer.putShort((short)payloadSize);
+      byteBuffer.position(0);
+      state = BufferState.WRITING;
+    }
+  }
+
   private static void readChannel(SocketChannel socketChannel, ByteBuffer buffer) throws ClosedChannelException
   {
     try
@@ -10,6 +10,11 @@
  */
 package org.eclipse.internal.net4j.bundle;
 
+import org.eclipse.net4j.acceptor.IAcceptor;
+import org.eclipse.net4j.channel.IChannel;
+import org.eclipse.net4j.connector.IConnector;
+import org.eclipse.net4j.signal.SignalMetrics;
+import org.eclipse.net4j.signal.SignalProtocol;
 import org.eclipse.net4j.util.container.IContainer;
 import org.eclipse.net4j.util.container.IPluginContainer;
 
@@ -41,6 +46,7 @@ public class Net4jCommandProvider implements CommandProvider
     buffer.append(INDENT + "elements - list all managed elements" + NEW_LINE);
     buffer.append(INDENT + "acceptors - list all active acceptors, their connectors and channels" + NEW_LINE);
     buffer.append(INDENT + "connectors - list all active connectors and their channels" + NEW_LINE);
+    buffer.append(INDENT + "signals - dump the signal metrics of all protocols and of the active channels" + NEW_LINE);
     return buffer.toString();
   }
 
@@ -90,6 +96,43 @@ public class Net4jCommandProvider implements CommandProvider
     return null;
   }
 
+  public Object _signals(CommandInterpreter interpreter)
+  {
+    try
+    {
+      for (SignalMetrics metrics : SignalMetrics.getAggregates())
+      {
+        printSignalMetrics(interpreter, metrics, "");
+      }
+
+      IPluginContainer container = getContainer();
+      for (Object element : container.getElements(AcceptorFactory.PRODUCT_GROUP))
+      {
+        if (element instanceof IAcceptor)
+        {
+          for (IConnector connector : ((IAcceptor)element).getAcceptedConnectors())
+          {
+            printSignalMetrics(interpreter, connector);
+          }
+        }
+      }
+
+      for (Object element : container.getElements(ConnectorFactory.PRODUCT_GROUP))
+      {
+        if (element instanceof IConnector)
+        {
+          printSignalMetrics(interpreter, (IConnector)element);
+        }
+      }
+    }
+    catch (Exception ex)
+    {
+      interpreter.printStackTrace(ex);
+    }
+
+    return null;
+  }
+
   protected IPluginContainer getContainer()
   {
     return IPluginContainer.INSTANCE;
@@ -105,6 +148,28 @@ public class Net4jCommandProvider implements CommandProvider
     }
   }
 
+  private void printSignalMetrics(CommandInterpreter interpreter, IConnector connector)
+  {
+    for (IChannel channel : connector.getChannels())
+    {
+      Object receiveHandler = channel.getReceiveHandler();
+      if (receiveHandler instanceof SignalProtocol<?>)
+      {
+        interpreter.println(channel);
+        printSignalMetrics(interpreter, ((SignalProtocol<?>)receiveHandler).getMetrics(), INDENT);
+      }
+    }
+  }
+
+  private void printSignalMetrics(CommandInterpreter interpreter, SignalMetrics metrics, String prefix)
+  {
+    interpreter.println(prefix + metrics.getName());
+    for (String signal : metrics.getSignals())
+    {
+      interpreter.println(prefix + INDENT + signal);
+    }
+  }
+
   private void printElements(CommandInterpreter interpreter, Object[] elements, String prefix)
   {
     for (Object element : elements)
@@ -54,6 +54,8 @@ public abstract class Signal implements Runnable
 
   private Object currentStream;
 
+  private SignalMetrics.Entry metricsEntry;
+
   /**
    * Both implementation classes of a logical signal must have the same signalID. The signalID of a user signals must be
    * equal to or greater than zero.
@@ -246,6 +248,8 @@ public abstract class Signal implements Runnable
 
   void runSync() throws Exception
   {
+    SignalMetrics.Entry metricsEntry = getMetricsEntry();
+    long startNanos = metricsEntry.started();
     Exception exception = null;
 
     try
@@ -264,10 +268,21 @@ public abstract class Signal implements Runnable
     }
     finally
     {
+      metricsEntry.finished(startNanos, exception != null);
       getProtocol().stopSignal(this, exception);
     }
   }
 
+  SignalMetrics.Entry getMetricsEntry()
+  {
+    if (metricsEntry == null)
+    {
+      metricsEntry = protocol.getMetrics().getEntry(id, getName());
+    }
+
+    return metricsEntry;
+  }
+
   void setCorrelationID(int correlationID)
   {
     this.correlationID = correlationID;
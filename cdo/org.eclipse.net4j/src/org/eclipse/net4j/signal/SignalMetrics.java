@@ -0,0 +1,522 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.signal;
+
+import org.eclipse.net4j.ILocationAware.Location;
+import org.eclipse.net4j.util.om.trace.ContextTracer;
+
+import org.eclipse.internal.net4j.bundle.OM;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records execution counts, in-flight gauges, payload byte counts and latency histograms per signal ID of a
+ * {@link SignalProtocol signal protocol}.
+ * <p>
+ * Each signal protocol has its own {@link SignalProtocol#getMetrics() metrics}. They also record into the
+ * {@link #getAggregate(String, Location) aggregate} metrics of all protocols with the same type and location in this
+ * VM, which are registered as JMX MBeans in the {@link #DOMAIN} domain. The latency of a
+ * {@link SignalActor signal actor} is its whole round trip, the latency of a {@link SignalReactor signal reactor} is
+ * the time it takes to process the signal.
+ *
+ * @author Eike Stepper
+ * @since 4.2
+ */
+public class SignalMetrics implements SignalMetricsMBean
+{
+  public static final String DOMAIN = "org.eclipse.net4j"; //$NON-NLS-1$
+
+  public static final String TYPE = "SignalMetrics"; //$NON-NLS-1$
+
+  private static final ContextTracer TRACER = new ContextTracer(OM.DEBUG_SIGNAL, SignalMetrics.class);
+
+  private static final ConcurrentMap<String, SignalMetrics> AGGREGATES = new ConcurrentHashMap<String, SignalMetrics>();
+
+  private static final Comparator<Entry> ENTRY_COMPARATOR = new Comparator<Entry>()
+  {
+    public int compare(Entry e1, Entry e2)
+    {
+      return e1.getSignalID() - e2.getSignalID();
+    }
+  };
+
+  private final String name;
+
+  private final SignalMetrics parent;
+
+  private final ConcurrentMap<Short, Entry> entries = new ConcurrentHashMap<Short, Entry>();
+
+  public SignalMetrics(String name, SignalMetrics parent)
+  {
+    this.name = name;
+    this.parent = parent;
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns the metrics that everything recorded into these metrics is recorded into as well, or <code>null</code>.
+   */
+  public SignalMetrics getParent()
+  {
+    return parent;
+  }
+
+  /**
+   * Returns the entry of the given signal ID, or <code>null</code> if no such signal has been started yet.
+   */
+  public Entry getEntry(short signalID)
+  {
+    return entries.get(signalID);
+  }
+
+  /**
+   * Returns the entries of all signals that have been started, ordered by signal ID.
+   */
+  public Entry[] getEntries()
+  {
+    Entry[] result = entries.values().toArray(new Entry[0]);
+    Arrays.sort(result, ENTRY_COMPARATOR);
+    return result;
+  }
+
+  public long getCount()
+  {
+    long result = 0;
+    for (Entry entry : entries.values())
+    {
+      result += entry.getCount();
+    }
+
+    return result;
+  }
+
+  public long getFailures()
+  {
+    long result = 0;
+    for (Entry entry : entries.values())
+    {
+      result += entry.getFailures();
+    }
+
+    return result;
+  }
+
+  public int getInFlight()
+  {
+    int result = 0;
+    for (Entry entry : entries.values())
+    {
+      result += entry.getInFlight();
+    }
+
+    return result;
+  }
+
+  public long getBytesIn()
+  {
+    long result = 0;
+    for (Entry entry : entries.values())
+    {
+      result += entry.getBytesIn();
+    }
+
+    return result;
+  }
+
+  public long getBytesOut()
+  {
+    long result = 0;
+    for (Entry entry : entries.values())
+    {
+      result += entry.getBytesOut();
+    }
+
+    return result;
+  }
+
+  public String[] getSignals()
+  {
+    Entry[] entries = getEntries();
+    String[] result = new String[entries.length];
+    for (int i = 0; i < entries.length; i++)
+    {
+      result[i] = entries[i].toString();
+    }
+
+    return result;
+  }
+
+  public void reset()
+  {
+    for (Entry entry : entries.values())
+    {
+      entry.reset();
+    }
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under the given object name.
+   *
+   * @return the object name, or <code>null</code> if the name is already registered or the registration has failed.
+   */
+  public ObjectName registerMBean(String objectName)
+  {
+    try
+    {
+      ObjectName result = new ObjectName(objectName);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, result);
+      return result;
+    }
+    catch (InstanceAlreadyExistsException ex)
+    {
+      if (TRACER.isEnabled())
+      {
+        TRACER.trace("Signal metrics already registered: " + objectName); //$NON-NLS-1$
+      }
+
+      return null;
+    }
+    catch (Exception ex)
+    {
+      OM.LOG.warn("Signal metrics could not be registered: " + objectName, ex); //$NON-NLS-1$
+      return null;
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return MessageFormat.format("SignalMetrics[{0}]", name); //$NON-NLS-1$
+  }
+
+  Entry getEntry(short signalID, String signalName)
+  {
+    Entry entry = entries.get(signalID);
+    if (entry == null)
+    {
+      Entry parentEntry = parent == null ? null : parent.getEntry(signalID, signalName);
+      entry = new Entry(signalID, signalName, parentEntry);
+
+      Entry existing = entries.putIfAbsent(signalID, entry);
+      if (existing != null)
+      {
+        entry = existing;
+      }
+    }
+
+    return entry;
+  }
+
+  /**
+   * Returns the aggregate metrics of all signal protocols with the given type and location in this VM and registers
+   * them as an MBean when they are created.
+   */
+  public static SignalMetrics getAggregate(String protocolType, Location location)
+  {
+    String name = protocolType + " " + location; //$NON-NLS-1$
+    SignalMetrics aggregate = AGGREGATES.get(name);
+    if (aggregate == null)
+    {
+      aggregate = new SignalMetrics(name, null);
+      SignalMetrics existing = AGGREGATES.putIfAbsent(name, aggregate);
+      if (existing != null)
+      {
+        return existing;
+      }
+
+      aggregate.registerMBean(DOMAIN + ":type=" + TYPE + ",protocol=" + ObjectName.quote(protocolType) //$NON-NLS-1$ //$NON-NLS-2$
+          + ",location=" + location.toString().toLowerCase()); //$NON-NLS-1$
+    }
+
+    return aggregate;
+  }
+
+  /**
+   * Returns the aggregate metrics of all signal protocols in this VM, ordered by name.
+   */
+  public static SignalMetrics[] getAggregates()
+  {
+    SignalMetrics[] result = AGGREGATES.values().toArray(new SignalMetrics[0]);
+    Arrays.sort(result, new Comparator<SignalMetrics>()
+    {
+      public int compare(SignalMetrics m1, SignalMetrics m2)
+      {
+        return m1.getName().compareTo(m2.getName());
+      }
+    });
+
+    return result;
+  }
+
+  public static void unregisterMBean(ObjectName objectName)
+  {
+    if (objectName != null)
+    {
+      try
+      {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      }
+      catch (InstanceNotFoundException ex)
+      {
+        if (TRACER.isEnabled())
+        {
+          TRACER.trace("Signal metrics not registered: " + objectName); //$NON-NLS-1$
+        }
+      }
+      catch (Exception ex)
+      {
+        OM.LOG.warn(ex);
+      }
+    }
+  }
+
+  /**
+   * The metrics of a single signal ID.
+   * <p>
+   * Latencies are recorded in a histogram with power-of-two microsecond buckets, so that
+   * {@link #getPercentileMicros(double) percentiles} are upper bounds that are at most twice the exact value.
+   *
+   * @author Eike Stepper
+   */
+  public static final class Entry
+  {
+    public static final int BUCKETS = 32;
+
+    private final short signalID;
+
+    private final String signalName;
+
+    private final Entry parent;
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong bytesIn = new AtomicLong();
+
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    Entry(short signalID, String signalName, Entry parent)
+    {
+      this.signalID = signalID;
+      this.signalName = signalName;
+      this.parent = parent;
+    }
+
+    public short getSignalID()
+    {
+      return signalID;
+    }
+
+    public String getSignalName()
+    {
+      return signalName;
+    }
+
+    public long getCount()
+    {
+      return count.get();
+    }
+
+    public long getFailures()
+    {
+      return failures.get();
+    }
+
+    public int getInFlight()
+    {
+      return inFlight.get();
+    }
+
+    public long getBytesIn()
+    {
+      return bytesIn.get();
+    }
+
+    public long getBytesOut()
+    {
+      return bytesOut.get();
+    }
+
+    public long getTotalNanos()
+    {
+      return totalNanos.get();
+    }
+
+    public long getMaxNanos()
+    {
+      return maxNanos.get();
+    }
+
+    public long getAverageNanos()
+    {
+      long n = count.get();
+      return n == 0 ? 0 : totalNanos.get() / n;
+    }
+
+    /**
+     * Returns the number of signals per latency bucket. Bucket <code>0</code> counts the latencies below one
+     * microsecond, bucket <code>i</code> the latencies below <code>2^i</code> microseconds.
+     */
+    public long[] getHistogram()
+    {
+      long[] result = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++)
+      {
+        result[i] = histogram.get(i);
+      }
+
+      return result;
+    }
+
+    /**
+     * Returns an upper bound of the latency in microseconds that the given fraction (between <code>0</code> and
+     * <code>1</code>) of the signals has not exceeded, or <code>0</code> if no signal has finished yet.
+     */
+    public long getPercentileMicros(double fraction)
+    {
+      long[] histogram = getHistogram();
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++)
+      {
+        total += histogram[i];
+      }
+
+      if (total == 0)
+      {
+        return 0;
+      }
+
+      long threshold = (long)Math.ceil(total * fraction);
+      long sum = 0;
+      for (int i = 0; i < BUCKETS; i++)
+      {
+        sum += histogram[i];
+        if (sum >= threshold)
+        {
+          return 1L << i;
+        }
+      }
+
+      return 1L << BUCKETS - 1;
+    }
+
+    @Override
+    public String toString()
+    {
+      return signalName + "[" + signalID + "]: count=" + count.get() + ", failures=" + failures.get() + ", inFlight=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+          + inFlight.get() + ", bytesIn=" + bytesIn.get() + ", bytesOut=" + bytesOut.get() + ", avg=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+          + getAverageNanos() / 1000 + "us, p50=" + getPercentileMicros(0.5d) + "us, p99=" //$NON-NLS-1$ //$NON-NLS-2$
+          + getPercentileMicros(0.99d) + "us, max=" + maxNanos.get() / 1000 + "us"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    void reset()
+    {
+      count.set(0);
+      failures.set(0);
+      bytesIn.set(0);
+      bytesOut.set(0);
+      totalNanos.set(0);
+      maxNanos.set(0);
+      for (int i = 0; i < BUCKETS; i++)
+      {
+        histogram.set(i, 0);
+      }
+    }
+
+    /**
+     * Returns the start time to pass into {@link #finished(long, boolean)}.
+     */
+    long started()
+    {
+      for (Entry entry = this; entry != null; entry = entry.parent)
+      {
+        entry.inFlight.incrementAndGet();
+      }
+
+      return System.nanoTime();
+    }
+
+    void finished(long startNanos, boolean failed)
+    {
+      long nanos = System.nanoTime() - startNanos;
+      int bucket = getBucket(nanos / 1000);
+      for (Entry entry = this; entry != null; entry = entry.parent)
+      {
+        entry.inFlight.decrementAndGet();
+        entry.count.incrementAndGet();
+        if (failed)
+        {
+          entry.failures.incrementAndGet();
+        }
+
+        entry.totalNanos.addAndGet(nanos);
+        entry.histogram.incrementAndGet(bucket);
+
+        long max;
+        while ((max = entry.maxNanos.get()) < nanos && !entry.maxNanos.compareAndSet(max, nanos))
+        {
+          // Retry
+        }
+      }
+    }
+
+    void addBytesIn(int bytes)
+    {
+      for (Entry entry = this; entry != null; entry = entry.parent)
+      {
+        entry.bytesIn.addAndGet(bytes);
+      }
+    }
+
+    void addBytesOut(long bytes)
+    {
+      for (Entry entry = this; entry != null; entry = entry.parent)
+      {
+        entry.bytesOut.addAndGet(bytes);
+      }
+    }
+
+    private static int getBucket(long micros)
+    {
+      if (micros <= 0)
+      {
+        return 0;
+      }
+
+      return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2004 - 2012 Eike Stepper (Berlin, Germany) and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Eike Stepper - initial API and implementation
+ */
+package org.eclipse.net4j.signal;
+
+/**
+ * The JMX management interface of {@link SignalMetrics signal metrics}.
+ *
+ * @author Eike Stepper
+ * @since 4.2
+ */
+public interface SignalMetricsMBean
+{
+  /**
+   * Returns the number of signals that have finished, successfully or not.
+   */
+  public long getCount();
+
+  /**
+   * Returns the number of signals that have finished with an exception.
+   */
+  public long getFailures();
+
+  /**
+   * Returns the number of signals that are currently running.
+   */
+  public int getInFlight();
+
+  /**
+   * Returns the number of payload bytes that have been received.
+   */
+  public long getBytesIn();
+
+  /**
+   * Returns the number of payload bytes that have been sent.
+   */
+  public long getBytesOut();
+
+  /**
+   * Returns a one-line summary per signal ID, ordered by signal ID.
+   */
+  public String[] getSignals();
+
+  /**
+   * Resets all counters and latency histograms. The in-flight gauges are not affected.
+   */
+  public void reset();
+}
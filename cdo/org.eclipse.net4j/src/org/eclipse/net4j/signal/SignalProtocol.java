@@ -90,6 +90,8 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
 
   private boolean failingOver;
 
+  private volatile SignalMetrics metrics;
+
   /**
    * @since 2.0
    */
@@ -142,6 +144,31 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
     }
   }
 
+  /**
+   * Returns the {@link SignalMetrics metrics} of the signals of this protocol. They are created on the first call,
+   * which requires a {@link #getChannel() channel}.
+   *
+   * @since 4.2
+   */
+  public SignalMetrics getMetrics()
+  {
+    SignalMetrics result = metrics;
+    if (result == null)
+    {
+      synchronized (this)
+      {
+        result = metrics;
+        if (result == null)
+        {
+          result = new SignalMetrics(toString(), SignalMetrics.getAggregate(getType(), getLocation()));
+          metrics = result;
+        }
+      }
+    }
+
+    return result;
+  }
+
   /**
    * @since 2.0
    */
@@ -209,11 +236,12 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
           }
 
           signal = provideSignalReactor(signalID);
+          SignalMetrics.Entry metricsEntry = signal.getMetricsEntry();
           signal.setCorrelationID(-correlationID);
           signal.setBufferInputStream(new SignalInputStream(getTimeout()));
           if (signal instanceof IndicationWithResponse)
           {
-            signal.setBufferOutputStream(new SignalOutputStream(-correlationID, signalID, false));
+            signal.setBufferOutputStream(new SignalOutputStream(-correlationID, signalID, false, metricsEntry));
           }
 
           signals.put(-correlationID, signal);
@@ -239,6 +267,8 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
         }
       }
 
+      signal.getMetricsEntry().addBytesIn(byteBuffer.remaining());
+
       BufferInputStream inputStream = signal.getBufferInputStream();
       inputStream.handleBuffer(buffer);
     }
@@ -420,7 +450,8 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
     checkArg(signalActor.getProtocol() == this, "Wrong protocol"); //$NON-NLS-1$
     short signalID = signalActor.getID();
     int correlationID = signalActor.getCorrelationID();
-    signalActor.setBufferOutputStream(new SignalOutputStream(correlationID, signalID, true));
+    signalActor.setBufferOutputStream(new SignalOutputStream(correlationID, signalID, true, signalActor
+        .getMetricsEntry()));
     if (signalActor instanceof RequestWithConfirmation<?>)
     {
       signalActor.setBufferInputStream(new SignalInputStream(timeout));
@@ -593,7 +624,12 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
    */
   class SignalOutputStream extends ChannelOutputStream
   {
-    public SignalOutputStream(final int correlationID, final short signalID, final boolean addSignalID)
+    private SignalMetrics.Entry metricsEntry;
+
+    private long bytesWritten;
+
+    public SignalOutputStream(final int correlationID, final short signalID, final boolean addSignalID,
+        SignalMetrics.Entry metricsEntry)
     {
       super(getChannel(), new IBufferProvider()
       {
@@ -641,6 +677,23 @@ public class SignalProtocol<INFRA_STRUCTURE> extends Protocol<INFRA_STRUCTURE> i
           delegate.retainBuffer(buffer);
         }
       });
+
+      this.metricsEntry = metricsEntry;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+      super.write(b);
+      ++bytesWritten;
+    }
+
+    @Override
+    public void flushWithEOS() throws IOException
+    {
+      super.flushWithEOS();
+      metricsEntry.addBytesOut(bytesWritten);
+      bytesWritten = 0;
     }
   }
 }
@@ -13,6 +13,9 @@ package org.eclipse.spi.net4j;
 import org.eclipse.net4j.buffer.IBuffer;
 import org.eclipse.net4j.buffer.IBufferProvider;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
 /**
  * @author Eike Stepper
  * @noimplement This interface is not intended to be implemented by clients.
@@ -22,4 +25,13 @@ public interface InternalBuffer extends IBuffer
   public void setBufferProvider(IBufferProvider bufferProvider);
 
   public void dispose();
+
+  /**
+   * Prepares this buffer for being written as part of a {@link GatheringByteChannel gathering} write and returns the
+   * byte buffer to write, or <code>null</code> if this buffer is empty and needs not be written at all. The buffer has
+   * been completely written when the returned byte buffer has no remaining bytes.
+   *
+   * @since 4.2
+   */
+  public ByteBuffer startWriting() throws IllegalStateException;
 }